@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.model.visibility;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A set of authorizations that {@link CompiledVisibility}s are evaluated against.
+ * Instances are shared through the {@link VisibilityCache}, so a compiled expression
+ * can tell that it is evaluated for the same user again by comparing references.
+ * Use {@link VisibilityCache#compileAuthorizations(Set)} to get an instance.
+ */
+@DefaultAnnotation(NonNull.class)
+public final class CompiledAuthorizations {
+
+    private final ImmutableSet<String> authorizations;
+
+    /**
+     * Constructs an instance of {@link CompiledAuthorizations}.
+     *
+     * @param authorizations - The authorizations of a user. (not null)
+     */
+    CompiledAuthorizations(final Set<String> authorizations) {
+        this.authorizations = ImmutableSet.copyOf(requireNonNull(authorizations));
+    }
+
+    /**
+     * @return The authorizations of the user.
+     */
+    public Set<String> getAuthorizations() {
+        return authorizations;
+    }
+
+    /**
+     * @param term - A visibility term, without quotes or escapes. (not null)
+     * @return {@code true} if the user holds the authorization of the term.
+     */
+    boolean contains(final String term) {
+        return authorizations.contains(term);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof CompiledAuthorizations && authorizations.equals(((CompiledAuthorizations) o).authorizations);
+    }
+
+    @Override
+    public int hashCode() {
+        return authorizations.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return authorizations.toString();
+    }
+}
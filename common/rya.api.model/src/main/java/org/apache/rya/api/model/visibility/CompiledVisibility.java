@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.model.visibility;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.apache.rya.api.model.visibility.ColumnVisibility.Node;
+import org.apache.rya.api.model.visibility.ColumnVisibility.NodeType;
+
+import com.google.common.base.Charsets;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A visibility expression that has been parsed once and can be evaluated
+ * against many {@link CompiledAuthorizations} without parsing it again.
+ * <p>
+ * Evaluating the expression only looks its terms up in the authorizations. The
+ * result of the last evaluation is remembered along with the authorizations it was
+ * computed for, so evaluating the expression again for the same user is a single
+ * comparison. Use {@link VisibilityCache#compile(String)} to get an instance.
+ */
+@DefaultAnnotation(NonNull.class)
+public final class CompiledVisibility {
+
+    private static final int TERM = 0;
+    private static final int AND = 1;
+    private static final int OR = 2;
+
+    /**
+     * The expression everybody may see.
+     */
+    static final CompiledVisibility EMPTY = new CompiledVisibility("", null);
+
+    private final String expression;
+    private final Op root;
+    private volatile Result lastResult = null;
+
+    /**
+     * The result of evaluating the expression for a set of authorizations.
+     */
+    private static final class Result {
+        private final CompiledAuthorizations authorizations;
+        private final boolean visible;
+
+        private Result(final CompiledAuthorizations authorizations, final boolean visible) {
+            this.authorizations = authorizations;
+            this.visible = visible;
+        }
+    }
+
+    /**
+     * A compiled node of the parse tree.
+     */
+    private static final class Op {
+        private final int type;
+        private final String term;
+        private final Op[] children;
+
+        private Op(final int type, final String term, final Op[] children) {
+            this.type = type;
+            this.term = term;
+            this.children = children;
+        }
+
+        private boolean evaluate(final CompiledAuthorizations authorizations) {
+            switch (type) {
+                case TERM:
+                    return authorizations.contains(term);
+                case AND:
+                    for (final Op child : children) {
+                        if (!child.evaluate(authorizations)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                default:
+                    for (final Op child : children) {
+                        if (child.evaluate(authorizations)) {
+                            return true;
+                        }
+                    }
+                    return false;
+            }
+        }
+    }
+
+    private CompiledVisibility(final String expression, final Op root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /**
+     * Parses and compiles a visibility expression.
+     *
+     * @param expression - The visibility expression. (not null)
+     * @return The compiled form of {@code expression}.
+     * @throws BadArgumentException The expression is not a valid visibility expression.
+     */
+    static CompiledVisibility compile(final String expression) {
+        requireNonNull(expression);
+        if (expression.isEmpty()) {
+            return EMPTY;
+        }
+
+        final ColumnVisibility visibility = new ColumnVisibility(expression);
+        return new CompiledVisibility(expression, compile(visibility.getParseTree(), visibility.getExpression()));
+    }
+
+    private static Op compile(final Node node, final byte[] expression) {
+        final NodeType type = node.getType();
+        if (type == NodeType.TERM) {
+            return new Op(TERM, getTerm(node, expression), null);
+        }
+
+        final List<Node> children = node.getChildren();
+        final Op[] ops = new Op[children.size()];
+        for (int i = 0; i < ops.length; i++) {
+            ops[i] = compile(children.get(i), expression);
+        }
+        return new Op(type == NodeType.AND ? AND : OR, null, ops);
+    }
+
+    /**
+     * Reads the authorization a term node requires, removing the quotes and
+     * escapes of a quoted term.
+     */
+    private static String getTerm(final Node node, final byte[] expression) {
+        final ByteSequence term = node.getTerm(expression);
+        if (expression[node.getTermStart()] != '"') {
+            return new String(term.toArray(), Charsets.UTF_8);
+        }
+
+        final ByteArrayOutputStream unescaped = new ByteArrayOutputStream(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            byte b = term.byteAt(i);
+            if (b == '\\') {
+                b = term.byteAt(++i);
+            }
+            unescaped.write(b);
+        }
+        return new String(unescaped.toByteArray(), Charsets.UTF_8);
+    }
+
+    /**
+     * @return The visibility expression that was compiled.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return {@code true} if the expression is empty, which means everybody may see what it protects.
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param authorizations - The authorizations of the user. (not null)
+     * @return {@code true} if the authorizations satisfy the expression.
+     */
+    public boolean evaluate(final CompiledAuthorizations authorizations) {
+        requireNonNull(authorizations);
+        if (root == null) {
+            return true;
+        }
+
+        final Result last = lastResult;
+        if (last != null && last.authorizations == authorizations) {
+            return last.visible;
+        }
+        final boolean visible = root.evaluate(authorizations);
+        lastResult = new Result(authorizations, visible);
+        return visible;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
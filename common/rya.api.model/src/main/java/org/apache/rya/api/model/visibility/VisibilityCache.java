@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.model.visibility;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Set;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A process wide cache of parsed visibility expressions.
+ * <p>
+ * Rya sees the same few hundred visibility expressions over and over again, so
+ * each expression is parsed once into a {@link CompiledVisibility} and each set
+ * of authorizations into a {@link CompiledAuthorizations}. Evaluating one against
+ * the other only looks up the expression's terms, and an expression remembers its
+ * result for the last authorizations it was evaluated for. The simplified forms of
+ * expressions are cached as well. Every cache is bounded.
+ */
+@DefaultAnnotation(NonNull.class)
+public final class VisibilityCache {
+
+    /**
+     * The maximum number of compiled and simplified expressions that are cached.
+     */
+    public static final int MAX_CACHED_EXPRESSIONS = 10_000;
+
+    /**
+     * The maximum number of compiled sets of authorizations that are cached.
+     */
+    public static final int MAX_CACHED_AUTHORIZATIONS = 1_000;
+
+    private static final Interner<String> EXPRESSIONS = Interners.newWeakInterner();
+
+    private static final LoadingCache<String, CompiledVisibility> VISIBILITIES = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_EXPRESSIONS)
+            .build(new CacheLoader<String, CompiledVisibility>() {
+                @Override
+                public CompiledVisibility load(final String expression) {
+                    return CompiledVisibility.compile(expression);
+                }
+            });
+
+    private static final LoadingCache<Set<String>, CompiledAuthorizations> AUTHORIZATIONS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_AUTHORIZATIONS)
+            .build(new CacheLoader<Set<String>, CompiledAuthorizations>() {
+                @Override
+                public CompiledAuthorizations load(final Set<String> authorizations) {
+                    return new CompiledAuthorizations(authorizations);
+                }
+            });
+
+    private static final LoadingCache<String, String> SIMPLIFIED = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_EXPRESSIONS)
+            .build(new CacheLoader<String, String>() {
+                @Override
+                public String load(final String expression) {
+                    return intern(VisibilitySimplifier.simplifyExpression(expression));
+                }
+            });
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private VisibilityCache() {
+    }
+
+    /**
+     * Compiles a visibility expression, or returns the cached compiled form.
+     *
+     * @param expression - The visibility expression. (not null)
+     * @return The compiled form of {@code expression}.
+     * @throws BadArgumentException The expression is not a valid visibility expression.
+     */
+    public static CompiledVisibility compile(final String expression) {
+        requireNonNull(expression);
+        return expression.isEmpty() ? CompiledVisibility.EMPTY : get(VISIBILITIES, expression);
+    }
+
+    /**
+     * Compiles a UTF-8 encoded visibility expression, or returns the cached compiled form.
+     *
+     * @param expression - The visibility expression. (not null)
+     * @return The compiled form of {@code expression}.
+     * @throws BadArgumentException The expression is not a valid visibility expression.
+     */
+    public static CompiledVisibility compile(final byte[] expression) {
+        requireNonNull(expression);
+        return compile(new String(expression, Charsets.UTF_8));
+    }
+
+    /**
+     * Compiles a set of authorizations, or returns the cached compiled form.
+     *
+     * @param authorizations - The authorizations of a user. (not null)
+     * @return The compiled form of {@code authorizations}.
+     */
+    public static CompiledAuthorizations compileAuthorizations(final Set<String> authorizations) {
+        requireNonNull(authorizations);
+        return get(AUTHORIZATIONS, ImmutableSet.copyOf(authorizations));
+    }
+
+    /**
+     * Simplifies a visibility expression, or returns the cached simplified form.
+     *
+     * @param expression - The expression to simplify. (not null)
+     * @return A simplified form of {@code expression}.
+     */
+    public static String simplify(final String expression) {
+        requireNonNull(expression);
+        return get(SIMPLIFIED, expression);
+    }
+
+    /**
+     * Returns a canonical instance of a visibility expression, so the many
+     * copies of the same expression that are read from storage or the network
+     * share one String whose hash code is only computed once.
+     *
+     * @param expression - The visibility expression. (not null)
+     * @return The canonical instance of {@code expression}.
+     */
+    public static String intern(final String expression) {
+        requireNonNull(expression);
+        return EXPRESSIONS.intern(expression);
+    }
+
+    private static <K, V> V get(final LoadingCache<K, V> cache, final K key) {
+        try {
+            return cache.getUnchecked(key);
+        } catch (final UncheckedExecutionException e) {
+            // Rethrow parse errors as they would have been thrown without the cache.
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
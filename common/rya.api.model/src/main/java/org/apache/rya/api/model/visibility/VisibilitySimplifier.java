@@ -68,12 +68,23 @@ public class VisibilitySimplifier {
     }
 
     /**
-     * Simplifies an Accumulo visibility expression.
+     * Simplifies an Accumulo visibility expression. The simplified forms are
+     * cached by the {@link VisibilityCache}.
      *
      * @param visibility - The expression to simplify. (not null)
      * @return A simplified form of {@code visibility}.
      */
     public static String simplify(final String visibility) {
+        return VisibilityCache.simplify(visibility);
+    }
+
+    /**
+     * Simplifies an Accumulo visibility expression without using the cache.
+     *
+     * @param visibility - The expression to simplify. (not null)
+     * @return A simplified form of {@code visibility}.
+     */
+    static String simplifyExpression(final String visibility) {
         requireNonNull(visibility);
 
         String last = visibility;
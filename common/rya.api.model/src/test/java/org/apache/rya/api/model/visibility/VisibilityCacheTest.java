@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.model.visibility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the methods of {@link VisibilityCache}.
+ */
+public class VisibilityCacheTest {
+
+    private final CompiledAuthorizations auths = VisibilityCache.compileAuthorizations(Sets.newHashSet("a", "b", "x y"));
+
+    @Test
+    public void emptyIsVisibleToEveryone() {
+        assertTrue(VisibilityCache.compile("").isEmpty());
+        assertTrue(VisibilityCache.compile("").evaluate(VisibilityCache.compileAuthorizations(Sets.<String>newHashSet())));
+    }
+
+    @Test
+    public void terms() {
+        assertTrue(VisibilityCache.compile("a").evaluate(auths));
+        assertFalse(VisibilityCache.compile("c").evaluate(auths));
+    }
+
+    @Test
+    public void andOr() {
+        assertTrue(VisibilityCache.compile("a&b").evaluate(auths));
+        assertFalse(VisibilityCache.compile("a&c").evaluate(auths));
+        assertTrue(VisibilityCache.compile("a|c").evaluate(auths));
+        assertTrue(VisibilityCache.compile("(a&c)|b").evaluate(auths));
+        assertTrue(VisibilityCache.compile("c|(a&(b|d))").evaluate(auths));
+        assertFalse(VisibilityCache.compile("c|(a&(d|e))").evaluate(auths));
+    }
+
+    @Test
+    public void quotedTerms() {
+        assertTrue(VisibilityCache.compile("\"x y\"&a").evaluate(auths));
+        assertTrue(VisibilityCache.compile("\"a\"").evaluate(auths));
+        assertFalse(VisibilityCache.compile("\"x\\\\y\"").evaluate(auths));
+        assertTrue(VisibilityCache.compile("\"x\\\\y\"").evaluate(VisibilityCache.compileAuthorizations(Sets.newHashSet("x\\y"))));
+    }
+
+    @Test
+    public void termsSeenAfterTheAuthorizations() {
+        assertFalse(VisibilityCache.compile("neverSeenBefore").evaluate(auths));
+        assertTrue(VisibilityCache.compile("neverSeenBefore|a").evaluate(auths));
+    }
+
+    @Test
+    public void differentAuthorizations() {
+        final CompiledVisibility visibility = VisibilityCache.compile("a&(b|c)");
+        final CompiledAuthorizations onlyA = VisibilityCache.compileAuthorizations(Sets.newHashSet("a"));
+        final CompiledAuthorizations equalToAuths = new CompiledAuthorizations(Sets.newHashSet("a", "b", "x y"));
+
+        // The result remembered for one set of authorizations is not reused for another.
+        assertTrue(visibility.evaluate(auths));
+        assertFalse(visibility.evaluate(onlyA));
+        assertTrue(visibility.evaluate(auths));
+        assertTrue(visibility.evaluate(equalToAuths));
+        assertFalse(visibility.evaluate(onlyA));
+    }
+
+    @Test
+    public void compiledOnce() {
+        assertSame(VisibilityCache.compile("a&(b|c)"), VisibilityCache.compile("a&(b|c)"));
+        assertSame(VisibilityCache.compile("a&(b|c)"), VisibilityCache.compile("a&(b|c)".getBytes()));
+        assertSame(auths, VisibilityCache.compileAuthorizations(Sets.newHashSet("x y", "b", "a")));
+    }
+
+    @Test
+    public void simplify() {
+        assertEquals("a&b", VisibilityCache.simplify("(a&b)&a"));
+        assertSame(VisibilityCache.simplify("(a&b)&a"), VisibilityCache.simplify("(a&b)&a"));
+    }
+
+    @Test(expected = BadArgumentException.class)
+    public void invalidExpression() {
+        VisibilityCache.compile("a&");
+    }
+}
@@ -24,6 +24,7 @@ import java.util.Set;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.layout.DictionaryTableLayoutStrategy;
 import org.apache.rya.api.layout.TableLayoutStrategy;
 import org.apache.rya.api.layout.TablePrefixLayoutStrategy;
 import org.apache.rya.api.persist.RdfEvalStatsDAO;
@@ -44,6 +45,12 @@ public abstract class RdfCloudTripleStoreConfiguration extends Configuration {
     //    public static final String CONF_TIMEINDEXURIS = "query.timeindexuris";
     public static final String CONF_NUM_THREADS = "query.numthreads";
     public static final String CONF_PERFORMANT = "query.performant";
+    public static final String CONF_QUERY_EXECUTOR_THREADS = "query.executor.numthreads";
+    public static final String CONF_QUERY_TIMEOUT = "query.timeout";
+    public static final String CONF_PARALLEL_JOIN = "query.paralleljoin";
+    public static final String CONF_PARALLEL_JOIN_BATCH = "query.paralleljoin.batch";
+    public static final String CONF_PLAN_CACHE_SIZE = "query.plancache.size";
+    public static final String CONF_PLAN_CACHE_TTL = "query.plancache.ttl";
     public static final String CONF_INFER = "query.infer";
     public static final String CONF_USE_STATS = "query.usestats";
     public static final String CONF_USE_COMPOSITE = "query.usecompositecard";
@@ -62,12 +69,17 @@ public abstract class RdfCloudTripleStoreConfiguration extends Configuration {
     public static final String CONF_TBL_NS = "tbl.ns";
     public static final String CONF_TBL_EVAL = "tbl.eval";
     public static final String CONF_PREFIX_ROW_WITH_HASH = "tbl.hashprefix";
+    public static final String CONF_LAZY_DESERIALIZATION = "query.lazydeserialization";
+    public static final String CONF_DICTIONARY_ENCODING = "tbl.dictionary.encoding";
+    public static final String CONF_DICTIONARY_CACHE_SIZE = "tbl.dictionary.cachesize";
     public static final String CONF_OPTIMIZERS = "query.optimizers";
     public static final String CONF_PCJ_OPTIMIZER = "pcj.query.optimizer";
     public static final String CONF_PCJ_TABLES = "pcj.index.tables";
     public static final String CONF_STATEMENT_METADATA_PROPERTIES = "statement.metadata.properites";
     public static final String CONF_USE_STATEMENT_METADATA = "use.statement.metadata";
     public static final String STATS_PUSH_EMPTY_RDFTYPE_DOWN = "conf.stats.rdftype.down";
+    public static final String STATS_CACHE_TTL = "conf.stats.cache.ttl";
+    public static final String STATS_CACHE_SIZE = "conf.stats.cache.size";
     public static final String INFER_INCLUDE_ALL_VALUES_FROM = "infer.include.allvaluesfrom";
     public static final String INFER_INCLUDE_DOMAIN_RANGE = "infer.include.domainrange";
     public static final String INFER_INCLUDE_HAS_SELF = "infer.include.hasself";
@@ -83,6 +95,7 @@ public abstract class RdfCloudTripleStoreConfiguration extends Configuration {
     public static final String INFER_INCLUDE_SUBPROPOF = "infer.include.subpropof";
     public static final String INFER_INCLUDE_SYMMPROP = "infer.include.symmprop";
     public static final String INFER_INCLUDE_TRANSITIVEPROP = "infer.include.transprop";
+    public static final String INFER_INCREMENTAL_REFRESH = "infer.incremental.refresh";
 
     public static final String RDF_DAO_CLASS = "class.rdf.dao";
     public static final String RDF_EVAL_STATS_DAO_CLASS = "class.rdf.evalstats";
@@ -162,6 +175,83 @@ public abstract class RdfCloudTripleStoreConfiguration extends Configuration {
         setInt(CONF_NUM_THREADS, numThreads);
     }
 
+    /**
+     * @return The number of threads shared by all of the queries of a store. Each query may use at most
+     * {@link #getNumThreads()} of them at a time. Defaults to twice the number of available processors.
+     */
+    public int getQueryExecutorThreads() {
+        return getInt(CONF_QUERY_EXECUTOR_THREADS, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public void setQueryExecutorThreads(final int numThreads) {
+        Preconditions.checkArgument(numThreads > 0, "numThreads must be greater than 0");
+        setInt(CONF_QUERY_EXECUTOR_THREADS, numThreads);
+    }
+
+    /**
+     * @return The number of milliseconds a query may run before it is cancelled, or 0 if queries
+     * never time out. Defaults to 0.
+     */
+    public long getQueryTimeout() {
+        return getLong(CONF_QUERY_TIMEOUT, 0L);
+    }
+
+    public void setQueryTimeout(final long timeoutMillis) {
+        Preconditions.checkArgument(timeoutMillis >= 0, "timeout must be non negative");
+        setLong(CONF_QUERY_TIMEOUT, timeoutMillis);
+    }
+
+    /**
+     * @return {@code true} if joins whose right side is expensive to evaluate may evaluate it for many
+     * left side bindings at the same time. Defaults to {@code true}.
+     */
+    public boolean isParallelJoin() {
+        return getBoolean(CONF_PARALLEL_JOIN, true);
+    }
+
+    public void setParallelJoin(final boolean val) {
+        setBoolean(CONF_PARALLEL_JOIN, val);
+    }
+
+    /**
+     * @return The maximum number of left side bindings a parallel join evaluates ahead of the one
+     * being read. Defaults to 100.
+     */
+    public int getParallelJoinBatch() {
+        return getInt(CONF_PARALLEL_JOIN_BATCH, 100);
+    }
+
+    public void setParallelJoinBatch(final int batch) {
+        Preconditions.checkArgument(batch > 0, "batch must be greater than 0");
+        setInt(CONF_PARALLEL_JOIN_BATCH, batch);
+    }
+
+    /**
+     * @return The maximum number of optimized query plans a store keeps for reuse, or 0 if every
+     * query is optimized from scratch. Defaults to 0.
+     */
+    public int getPlanCacheSize() {
+        return getInt(CONF_PLAN_CACHE_SIZE, 0);
+    }
+
+    public void setPlanCacheSize(final int size) {
+        Preconditions.checkArgument(size >= 0, "size must be non negative");
+        setInt(CONF_PLAN_CACHE_SIZE, size);
+    }
+
+    /**
+     * @return The number of milliseconds an optimized query plan may be reused for. Plans are dropped
+     * earlier when the inference schema changes. Defaults to 300000.
+     */
+    public long getPlanCacheTtl() {
+        return getLong(CONF_PLAN_CACHE_TTL, 300000L);
+    }
+
+    public void setPlanCacheTtl(final long ttlMillis) {
+        Preconditions.checkArgument(ttlMillis > 0, "ttl must be greater than 0");
+        setLong(CONF_PLAN_CACHE_TTL, ttlMillis);
+    }
+
     public Boolean isPerformant() {
         return getBoolean(CONF_PERFORMANT, true);
     }
@@ -207,6 +297,58 @@ public abstract class RdfCloudTripleStoreConfiguration extends Configuration {
         setBoolean(CONF_PREFIX_ROW_WITH_HASH, val);
     }
 
+    /**
+     * @return {@code true} if rows read from the triple tables are deserialized into statements
+     * that only decode their terms when they are read. Defaults to {@code false}.
+     */
+    public Boolean isLazyDeserialization() {
+        return getBoolean(CONF_LAZY_DESERIALIZATION, false);
+    }
+
+    /**
+     * Sets whether rows read from the triple tables are deserialized lazily.
+     * @param val {@code true} if terms should only be decoded when they are read.
+     */
+    public void setLazyDeserialization(final Boolean val) {
+        Preconditions.checkNotNull(val);
+        setBoolean(CONF_LAZY_DESERIALIZATION, val);
+    }
+
+    /**
+     * @return {@code true} if the terms of statements are replaced by IDs in the triple tables
+     * and stored once in a separate terms table. Defaults to {@code false}.
+     */
+    public Boolean isDictionaryEncoding() {
+        return getBoolean(CONF_DICTIONARY_ENCODING, false);
+    }
+
+    /**
+     * Sets whether the terms of statements are dictionary encoded. This also switches the
+     * table layout, because encoded statements are kept in their own tables.
+     * @param val {@code true} if terms should be dictionary encoded.
+     */
+    public void setDictionaryEncoding(final Boolean val) {
+        Preconditions.checkNotNull(val);
+        setBoolean(CONF_DICTIONARY_ENCODING, val);
+        setTableLayoutStrategy(createTableLayoutStrategy(getTablePrefix()));
+    }
+
+    /**
+     * @return The number of terms cached by the term dictionary. Defaults to 100000.
+     */
+    public long getDictionaryCacheSize() {
+        return getLong(CONF_DICTIONARY_CACHE_SIZE, 100000L);
+    }
+
+    public void setDictionaryCacheSize(final long size) {
+        Preconditions.checkArgument(size >= 0, "The cache size must not be negative.");
+        setLong(CONF_DICTIONARY_CACHE_SIZE, size);
+    }
+
+    private TableLayoutStrategy createTableLayoutStrategy(final String tablePrefix) {
+        return isDictionaryEncoding() ? new DictionaryTableLayoutStrategy(tablePrefix) : new TablePrefixLayoutStrategy(tablePrefix);
+    }
+
     public String getTablePrefix() {
         return get(CONF_TBL_PREFIX, RdfCloudTripleStoreConstants.TBL_PRFX_DEF);
     }
@@ -214,7 +356,7 @@ public abstract class RdfCloudTripleStoreConfiguration extends Configuration {
     public void setTablePrefix(final String tablePrefix) {
         Preconditions.checkNotNull(tablePrefix);
         set(CONF_TBL_PREFIX, tablePrefix);
-        setTableLayoutStrategy(new TablePrefixLayoutStrategy(tablePrefix)); //TODO: Should we change the layout strategy
+        setTableLayoutStrategy(createTableLayoutStrategy(tablePrefix)); //TODO: Should we change the layout strategy
     }
 
     public Integer getBatchSize() {
@@ -335,6 +477,31 @@ public abstract class RdfCloudTripleStoreConfiguration extends Configuration {
         setBoolean(STATS_PUSH_EMPTY_RDFTYPE_DOWN, val);
     }
 
+    /**
+     * @return The number of milliseconds a cardinality read from the statistics table is reused by
+     * the query planner, or 0 if cardinalities are not cached. Defaults to 60000.
+     */
+    public long getStatsCacheTtl() {
+        return getLong(STATS_CACHE_TTL, 60000L);
+    }
+
+    public void setStatsCacheTtl(final long ttlMillis) {
+        Preconditions.checkArgument(ttlMillis >= 0, "ttl must be non negative");
+        setLong(STATS_CACHE_TTL, ttlMillis);
+    }
+
+    /**
+     * @return The maximum number of cardinalities the query planner caches. Defaults to 10000.
+     */
+    public int getStatsCacheSize() {
+        return getInt(STATS_CACHE_SIZE, 10000);
+    }
+
+    public void setStatsCacheSize(final int size) {
+        Preconditions.checkArgument(size > 0, "size must be greater than 0");
+        setInt(STATS_CACHE_SIZE, size);
+    }
+
     /**
      * @return {@code true} if owl:allValuesFrom inferencing is enabled.
      * {@code false} otherwise. Defaults to {@code true} if nothing is
@@ -620,6 +787,25 @@ public abstract class RdfCloudTripleStoreConfiguration extends Configuration {
         setBoolean(INFER_INCLUDE_TRANSITIVEPROP, val);
     }
 
+    /**
+     * @return {@code true} if the inference engine applies schema changes made through the store as they
+     * happen instead of rebuilding the schema on a schedule. Defaults to {@code false}.
+     */
+    public Boolean isInferIncrementalRefresh() {
+        return getBoolean(INFER_INCREMENTAL_REFRESH, false);
+    }
+
+    /**
+     * Sets whether the inference engine applies schema changes made through the store as they happen.
+     * Changes made by other processes are only picked up when the schema is rebuilt on demand.
+     * @param val {@code true} if schema changes are applied incrementally.
+     * {@code false} otherwise.
+     */
+    public void setInferIncrementalRefresh(final Boolean val) {
+        Preconditions.checkNotNull(val);
+        setBoolean(INFER_INCREMENTAL_REFRESH, val);
+    }
+
     public void setRdfEvalStatsDaoClass(final Class<? extends RdfEvalStatsDAO> rdfEvalStatsDaoClass) {
         Preconditions.checkNotNull(rdfEvalStatsDaoClass);
         setClass(RDF_EVAL_STATS_DAO_CLASS, rdfEvalStatsDaoClass, RdfEvalStatsDAO.class);
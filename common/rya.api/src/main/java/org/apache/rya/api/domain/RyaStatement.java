@@ -20,6 +20,7 @@ package org.apache.rya.api.domain;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * Date: 7/17/12
@@ -149,39 +150,43 @@ public class RyaStatement {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Statements are equal if they hold the same values, no matter how they were built. The terms
+     * are read through their getters so subclasses that decode them on demand compare correctly.
+     */
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (!(o instanceof RyaStatement)) {
             return false;
         }
 
         final RyaStatement that = (RyaStatement) o;
 
-        if (!Arrays.equals(columnVisibility, that.columnVisibility)) {
+        if (!Arrays.equals(getColumnVisibility(), that.getColumnVisibility())) {
             return false;
         }
-        if (context != null ? !context.equals(that.context) : that.context != null) {
+        if (!Objects.equals(getContext(), that.getContext())) {
             return false;
         }
-        if (object != null ? !object.equals(that.object) : that.object != null) {
+        if (!Objects.equals(getObject(), that.getObject())) {
             return false;
         }
-        if (predicate != null ? !predicate.equals(that.predicate) : that.predicate != null) {
+        if (!Objects.equals(getPredicate(), that.getPredicate())) {
             return false;
         }
-        if (qualifer != null ? !qualifer.equals(that.qualifer) : that.qualifer != null) {
+        if (!Objects.equals(getQualifer(), that.getQualifer())) {
             return false;
         }
-        if (subject != null ? !subject.equals(that.subject) : that.subject != null) {
+        if (!Objects.equals(getSubject(), that.getSubject())) {
             return false;
         }
-        if (timestamp != null ? !timestamp.equals(that.timestamp) : that.timestamp != null) {
+        if (!Objects.equals(getTimestamp(), that.getTimestamp())) {
             return false;
         }
-        if (!Arrays.equals(value, that.value)) {
+        if (!Arrays.equals(getValue(), that.getValue())) {
             return false;
         }
 
@@ -190,6 +195,14 @@ public class RyaStatement {
 
     @Override
     public int hashCode() {
+        final RyaIRI subject = getSubject();
+        final RyaIRI predicate = getPredicate();
+        final RyaType object = getObject();
+        final RyaIRI context = getContext();
+        final String qualifer = getQualifer();
+        final byte[] columnVisibility = getColumnVisibility();
+        final byte[] value = getValue();
+        final Long timestamp = getTimestamp();
         int result = subject != null ? subject.hashCode() : 0;
         result = 31 * result + (predicate != null ? predicate.hashCode() : 0);
         result = 31 * result + (object != null ? object.hashCode() : 0);
@@ -0,0 +1,61 @@
+package org.apache.rya.api.layout;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.rya.api.RdfCloudTripleStoreConstants;
+
+/**
+ * The table layout used when terms are dictionary encoded. The triple tables are kept apart from
+ * the whole row tables of the same prefix so both layouts may exist side by side while migrating.
+ */
+public class DictionaryTableLayoutStrategy extends TablePrefixLayoutStrategy {
+    public static final String TBL_DICTIONARY_SUFFIX = "dict_";
+    public static final String TBL_TERMS_SUFFIX = "terms";
+
+    public DictionaryTableLayoutStrategy() {
+        this(RdfCloudTripleStoreConstants.TBL_PRFX_DEF);
+    }
+
+    public DictionaryTableLayoutStrategy(String tablePrefix) {
+        super(tablePrefix);
+    }
+
+    @Override
+    public String getSpo() {
+        return getTablePrefix() + TBL_DICTIONARY_SUFFIX + RdfCloudTripleStoreConstants.TBL_SPO_SUFFIX;
+    }
+
+    @Override
+    public String getPo() {
+        return getTablePrefix() + TBL_DICTIONARY_SUFFIX + RdfCloudTripleStoreConstants.TBL_PO_SUFFIX;
+    }
+
+    @Override
+    public String getOsp() {
+        return getTablePrefix() + TBL_DICTIONARY_SUFFIX + RdfCloudTripleStoreConstants.TBL_OSP_SUFFIX;
+    }
+
+    /**
+     * @return The table that maps term IDs back to the terms.
+     */
+    public String getTerms() {
+        return getTablePrefix() + TBL_DICTIONARY_SUFFIX + TBL_TERMS_SUFFIX;
+    }
+}
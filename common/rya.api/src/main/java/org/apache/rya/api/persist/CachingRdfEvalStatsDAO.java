@@ -0,0 +1,227 @@
+package org.apache.rya.api.persist;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * An {@link RdfEvalStatsDAO} that remembers the cardinalities it reads from another one for a
+ * limited amount of time, so that planning a query does not read the same statistics over and
+ * over again. Cardinalities are cached per set of authorizations, because the statistics a user
+ * may see depend on them.
+ *
+ * @param <C> - The type of configuration used by the wrapped DAO.
+ */
+public class CachingRdfEvalStatsDAO<C extends RdfCloudTripleStoreConfiguration> implements RdfEvalStatsDAO<C> {
+
+    private final RdfEvalStatsDAO<C> delegate;
+    private final Cache<AuthorizedKey, Double> cache;
+    private final AtomicLong lookups = new AtomicLong();
+
+    /**
+     * @param delegate - The DAO cardinalities are read from. (not null)
+     * @param ttlMillis - The number of milliseconds a cardinality is cached for. (&gt; 0)
+     * @param maxSize - The maximum number of cached cardinalities. (&gt; 0)
+     */
+    public CachingRdfEvalStatsDAO(final RdfEvalStatsDAO<C> delegate, final long ttlMillis, final int maxSize) {
+        checkArgument(ttlMillis > 0, "ttlMillis must be greater than 0");
+        checkArgument(maxSize > 0, "maxSize must be greater than 0");
+        this.delegate = checkNotNull(delegate);
+        cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return The DAO cardinalities are read from.
+     */
+    public RdfEvalStatsDAO<C> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void init() throws RdfDAOException {
+        delegate.init();
+    }
+
+    @Override
+    public boolean isInitialized() throws RdfDAOException {
+        return delegate.isInitialized();
+    }
+
+    @Override
+    public void destroy() throws RdfDAOException {
+        cache.invalidateAll();
+        delegate.destroy();
+    }
+
+    @Override
+    public double getCardinality(final C conf, final CARDINALITY_OF card, final List<Value> val) throws RdfDAOException {
+        return getCardinality(conf, card, val, null);
+    }
+
+    @Override
+    public double getCardinality(final C conf, final CARDINALITY_OF card, final List<Value> val, final Resource context) throws RdfDAOException {
+        final AuthorizedKey key = new AuthorizedKey(conf, new CardinalityKey(card, val, context));
+        final Double cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        lookups.incrementAndGet();
+        final double cardinality = delegate.getCardinality(conf, card, val, context);
+        cache.put(key, cardinality);
+        return cardinality;
+    }
+
+    @Override
+    public Map<CardinalityKey, Double> getCardinalities(final C conf, final Collection<CardinalityKey> keys) throws RdfDAOException {
+        final Set<AuthorizedKey> authorizedKeys = new LinkedHashSet<>();
+        for (final CardinalityKey key : keys) {
+            authorizedKeys.add(new AuthorizedKey(conf, key));
+        }
+
+        final Map<AuthorizedKey, Double> cached = cache.getAllPresent(authorizedKeys);
+        final Map<CardinalityKey, Double> cardinalities = new HashMap<>();
+        final List<CardinalityKey> misses = new ArrayList<>();
+        for (final AuthorizedKey key : authorizedKeys) {
+            final Double cardinality = cached.get(key);
+            if (cardinality != null) {
+                cardinalities.put(key.key, cardinality);
+            } else {
+                misses.add(key.key);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            lookups.incrementAndGet();
+            for (final Map.Entry<CardinalityKey, Double> entry : delegate.getCardinalities(conf, misses).entrySet()) {
+                cache.put(new AuthorizedKey(conf, entry.getKey()), entry.getValue());
+                cardinalities.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return cardinalities;
+    }
+
+    @Override
+    public double getRangeCardinality(final C conf, final IRI predicate, final Value start, final Value end) throws RdfDAOException {
+        return delegate.getRangeCardinality(conf, predicate, start, end);
+    }
+
+    @Override
+    public double getDistinctCount(final C conf, final IRI predicate, final CARDINALITY_OF position) throws RdfDAOException {
+        return delegate.getDistinctCount(conf, predicate, position);
+    }
+
+    @Override
+    public void setConf(final C conf) {
+        delegate.setConf(conf);
+    }
+
+    @Override
+    public C getConf() {
+        return delegate.getConf();
+    }
+
+    /**
+     * Forgets every cached cardinality, for example after the statistics have been recomputed.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return The number of cardinalities that were found in the cache.
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * @return The number of cardinalities that were not found in the cache.
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * @return The number of times the wrapped DAO was asked for cardinalities, either one at a time or as a batch.
+     */
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
+    /**
+     * @return All of the statistics of the cache, including evictions.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * A {@link CardinalityKey} qualified by the authorizations it was read with.
+     */
+    private static final class AuthorizedKey {
+        private final List<String> auths;
+        private final CardinalityKey key;
+
+        AuthorizedKey(final RdfCloudTripleStoreConfiguration conf, final CardinalityKey key) {
+            this.auths = conf == null ? null : Arrays.asList(conf.getAuths());
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(auths, key);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof AuthorizedKey)) {
+                return false;
+            }
+            final AuthorizedKey other = (AuthorizedKey) o;
+            return Objects.equals(auths, other.auths) && key.equals(other.key);
+        }
+    }
+}
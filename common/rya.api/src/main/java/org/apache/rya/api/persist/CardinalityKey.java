@@ -0,0 +1,85 @@
+package org.apache.rya.api.persist;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.rya.api.persist.RdfEvalStatsDAO.CARDINALITY_OF;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Identifies a single cardinality that may be looked up using an {@link RdfEvalStatsDAO}.
+ */
+public final class CardinalityKey {
+    private final CARDINALITY_OF card;
+    private final List<Value> values;
+    private final Resource context;
+
+    /**
+     * @param card - Which cardinality is looked up. (not null)
+     * @param values - The values the cardinality is for. (not null)
+     * @param context - The context the cardinality is for, or {@code null} for all contexts.
+     */
+    public CardinalityKey(final CARDINALITY_OF card, final List<? extends Value> values, final Resource context) {
+        this.card = checkNotNull(card);
+        this.values = ImmutableList.copyOf(checkNotNull(values));
+        this.context = context;
+    }
+
+    public CARDINALITY_OF getCard() {
+        return card;
+    }
+
+    public List<Value> getValues() {
+        return values;
+    }
+
+    public Resource getContext() {
+        return context;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(card, values, context);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CardinalityKey)) {
+            return false;
+        }
+        final CardinalityKey other = (CardinalityKey) o;
+        return card == other.card && values.equals(other.values) && Objects.equals(context, other.context);
+    }
+
+    @Override
+    public String toString() {
+        return "CardinalityKey[" + card + ", " + values + (context == null ? "" : ", " + context) + "]";
+    }
+}
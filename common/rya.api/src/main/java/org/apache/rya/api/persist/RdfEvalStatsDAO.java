@@ -19,9 +19,13 @@ package org.apache.rya.api.persist;
  * under the License.
  */
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Value;
 
@@ -45,6 +49,51 @@ public interface RdfEvalStatsDAO<C extends RdfCloudTripleStoreConfiguration> {
     public double getCardinality(C conf, CARDINALITY_OF card, List<Value> val) throws RdfDAOException;
     public double getCardinality(C conf, CARDINALITY_OF card, List<Value> val, Resource context) throws RdfDAOException;
 
+    /**
+     * Looks up many cardinalities at once. Implementations should resolve them in as few round
+     * trips as they can; the default looks each of them up individually.
+     *
+     * @param conf - The configuration of the query the cardinalities are for. (not null)
+     * @param keys - The cardinalities to look up. (not null)
+     * @return The cardinality of each key, -1 if no cardinality could be found.
+     */
+    public default Map<CardinalityKey, Double> getCardinalities(final C conf, final Collection<CardinalityKey> keys) throws RdfDAOException {
+        final Map<CardinalityKey, Double> cardinalities = new HashMap<>();
+        for (final CardinalityKey key : keys) {
+            if (!cardinalities.containsKey(key)) {
+                cardinalities.put(key, getCardinality(conf, key.getCard(), key.getValues(), key.getContext()));
+            }
+        }
+        return cardinalities;
+    }
+
+    /**
+     * Estimates how many Statements that use a predicate have an object that falls within a
+     * range of values. Only implementations that keep value histograms are able to answer this.
+     *
+     * @param conf - The configuration of the query the estimate is for. (not null)
+     * @param predicate - The predicate of the Statements. (not null)
+     * @param start - The inclusive lower bound of the object range. (not null)
+     * @param end - The inclusive upper bound of the object range. (not null)
+     * @return The estimated number of Statements, -1 if no estimate could be made.
+     */
+    public default double getRangeCardinality(final C conf, final IRI predicate, final Value start, final Value end) throws RdfDAOException {
+        return -1;
+    }
+
+    /**
+     * Estimates how many distinct values appear in the subject or object position of the
+     * Statements that use a predicate.
+     *
+     * @param conf - The configuration of the query the estimate is for. (not null)
+     * @param predicate - The predicate of the Statements. (not null)
+     * @param position - Either {@link CARDINALITY_OF#SUBJECT} or {@link CARDINALITY_OF#OBJECT}. (not null)
+     * @return The estimated number of distinct values, -1 if no estimate could be made.
+     */
+    public default double getDistinctCount(final C conf, final IRI predicate, final CARDINALITY_OF position) throws RdfDAOException {
+        return -1;
+    }
+
     public void setConf(C conf);
 
     public C getConf();
@@ -21,11 +21,14 @@ package org.apache.rya.api.persist;
 
 
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
 import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.persist.index.RyaSecondaryIndexer;
 import org.apache.rya.api.persist.query.RyaQueryEngine;
 
 /**
@@ -130,4 +133,11 @@ public interface RyaDAO<C extends RdfCloudTripleStoreConfiguration> extends RyaC
      * @throws RyaDAOException
      */
     public void flush() throws RyaDAOException;
+
+    /**
+     * @return The secondary indexers that are kept up to date by this DAO.
+     */
+    public default List<? extends RyaSecondaryIndexer> getSecondaryIndexers() {
+        return Collections.emptyList();
+    }
 }
@@ -0,0 +1,52 @@
+package org.apache.rya.api.persist.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.persist.RyaDAOException;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+
+/**
+ * Answers statement patterns over transitive properties from a precomputed closure instead of
+ * walking the property's statements at query time.
+ */
+public interface TransitiveClosureIndex {
+
+    /**
+     * @param property - A property. (not null)
+     * @return {@code true} if the closure of {@code property} is indexed and can be queried.
+     */
+    public boolean isIndexed(RyaIRI property);
+
+    /**
+     * Finds the statements that are implied by the transitivity of the pattern's predicate.
+     *
+     * @param pattern - The pattern to match. The predicate must be an indexed property; the subject and
+     *   object may be {@code null} to match any value. The context is ignored. (not null)
+     * @param conf - Provides the authorizations of the query. (not null)
+     * @return Each distinct (subject, object) pair of the closure that matches the pattern. The results are
+     *   read as they are consumed, so they must be closed.
+     * @throws RyaDAOException The index could not be read.
+     */
+    public CloseableIteration<RyaStatement, RyaDAOException> queryClosure(RyaStatement pattern,
+            RdfCloudTripleStoreConfiguration conf) throws RyaDAOException;
+}
@@ -0,0 +1,104 @@
+package org.apache.rya.api.persist.joinselect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.persist.CachingRdfEvalStatsDAO;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A {@link SelectivityEvalDAO} that remembers the cardinalities, join selectivities and table size it
+ * reads from another one for a limited amount of time. The join selectivity optimizer asks for the
+ * selectivity of every pair of join arguments it considers, and the same pairs come up again for
+ * every query of the same shape, so each lookup that would scan the selectivity table is cached.
+ * Like the cardinalities, the values are cached per set of authorizations.
+ * <p>
+ * Expressions are cached by a copy of their structure, so later changes to the query tree do not
+ * change the cached keys.
+ *
+ * @param <C> - The type of configuration used by the wrapped DAO.
+ */
+public class CachingSelectivityEvalDAO<C extends RdfCloudTripleStoreConfiguration> extends CachingRdfEvalStatsDAO<C>
+        implements SelectivityEvalDAO<C> {
+
+    private final SelectivityEvalDAO<C> delegate;
+    private final Cache<List<Object>, Number> cache;
+
+    /**
+     * @param delegate - The DAO statistics are read from. (not null)
+     * @param ttlMillis - The number of milliseconds a statistic is cached for. (&gt; 0)
+     * @param maxSize - The maximum number of cached statistics of each kind. (&gt; 0)
+     */
+    public CachingSelectivityEvalDAO(final SelectivityEvalDAO<C> delegate, final long ttlMillis, final int maxSize) {
+        super(delegate, ttlMillis, maxSize);
+        this.delegate = delegate;
+        cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    @Override
+    public double getJoinSelect(final C conf, final TupleExpr te1, final TupleExpr te2) throws Exception {
+        final List<Object> key = Arrays.asList("joinSelect", auths(conf), te1.clone(), te2.clone());
+        return get(key, () -> delegate.getJoinSelect(conf, te1, te2)).doubleValue();
+    }
+
+    @Override
+    public long getCardinality(final C conf, final StatementPattern sp) throws Exception {
+        final List<Object> key = Arrays.asList("cardinality", auths(conf), sp.clone());
+        return get(key, () -> delegate.getCardinality(conf, sp)).longValue();
+    }
+
+    @Override
+    public int getTableSize(final C conf) throws Exception {
+        final List<Object> key = Arrays.asList("tableSize", auths(conf));
+        return get(key, () -> delegate.getTableSize(conf)).intValue();
+    }
+
+    @Override
+    public void invalidateAll() {
+        super.invalidateAll();
+        cache.invalidateAll();
+    }
+
+    private Number get(final List<Object> key, final Callable<Number> loader) throws Exception {
+        try {
+            return cache.get(key, loader);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private static List<String> auths(final RdfCloudTripleStoreConfiguration conf) {
+        return conf == null ? null : Arrays.asList(conf.getAuths());
+    }
+}
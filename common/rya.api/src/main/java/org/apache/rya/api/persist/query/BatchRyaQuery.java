@@ -36,6 +36,9 @@ public class BatchRyaQuery extends RyaQueryOptions {
     //maximum number of ranges before we use a batchScanner
     private int maxRanges = 2;
 
+    //whether the results of each range are returned together and in the order the queries were given
+    private boolean preserveRangeOrder = false;
+
     public BatchRyaQuery(Iterable<RyaStatement> queries) {
         Preconditions.checkNotNull(queries, "RyaStatement queries cannot be null");
         this.queries = queries;
@@ -62,6 +65,11 @@ public class BatchRyaQuery extends RyaQueryOptions {
             return this;
         }
 
+        public RyaBatchQueryBuilder setPreserveRangeOrder(boolean preserveRangeOrder) {
+            ryaQuery.setPreserveRangeOrder(preserveRangeOrder);
+            return this;
+        }
+
         public BatchRyaQuery build() {
             return ryaQuery;
         }
@@ -83,6 +91,18 @@ public class BatchRyaQuery extends RyaQueryOptions {
         this.maxRanges = maxRanges;
     }
 
+    /**
+     * @return {@code true} if the results of each query are returned contiguously, in key order,
+     *   and in the order the queries were given. Otherwise results may be interleaved.
+     */
+    public boolean isPreserveRangeOrder() {
+        return preserveRangeOrder;
+    }
+
+    public void setPreserveRangeOrder(boolean preserveRangeOrder) {
+        this.preserveRangeOrder = preserveRangeOrder;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.persist.query;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.rya.api.RdfCloudTripleStoreUtils;
+import org.apache.rya.api.domain.RyaStatement;
+import org.eclipse.rdf4j.query.BindingSet;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * The left side of a bind join, held by column instead of as one statement/binding pair per binding.
+ * <p>
+ * Bindings that produce the same triple pattern share a single probe, so the query engine only has to
+ * scan each distinct pattern once. Results are correlated back to the bindings by the index of the
+ * probe that matched them.
+ */
+@DefaultAnnotation(NonNull.class)
+public class BindingBatch {
+
+    private final List<RyaStatement> probes;
+    private final List<List<BindingSet>> bindings;
+    private final int numBindings;
+
+    private BindingBatch(final List<RyaStatement> probes, final List<List<BindingSet>> bindings, final int numBindings) {
+        this.probes = probes;
+        this.bindings = bindings;
+        this.numBindings = numBindings;
+    }
+
+    /**
+     * @return The number of distinct probes.
+     */
+    public int size() {
+        return probes.size();
+    }
+
+    /**
+     * @return The number of bindings, counting the bindings that share a probe.
+     */
+    public int getNumBindings() {
+        return numBindings;
+    }
+
+    /**
+     * @param index - The index of a probe. (0 <= index < size())
+     * @return The triple pattern that is scanned for the probe.
+     */
+    public RyaStatement getProbe(final int index) {
+        return probes.get(index);
+    }
+
+    /**
+     * @param index - The index of a probe. (0 <= index < size())
+     * @return The bindings that produced the probe.
+     */
+    public List<BindingSet> getBindings(final int index) {
+        return bindings.get(index);
+    }
+
+    /**
+     * @return One statement/binding pair per binding, the form accepted by
+     *   {@link RyaQueryEngine#queryWithBindingSet(Collection, org.apache.rya.api.RdfCloudTripleStoreConfiguration)}.
+     */
+    public Collection<Map.Entry<RyaStatement, BindingSet>> toEntries() {
+        final List<Map.Entry<RyaStatement, BindingSet>> entries = new ArrayList<>(numBindings);
+        for (int i = 0; i < probes.size(); i++) {
+            for (final BindingSet bs : bindings.get(i)) {
+                entries.add(new RdfCloudTripleStoreUtils.CustomEntry<RyaStatement, BindingSet>(probes.get(i), bs));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @param entries - Statement/binding pairs. (not null)
+     * @return A batch holding the pairs.
+     */
+    public static BindingBatch fromEntries(final Collection<Map.Entry<RyaStatement, BindingSet>> entries) {
+        final Builder builder = builder();
+        for (final Map.Entry<RyaStatement, BindingSet> entry : entries) {
+            builder.add(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builds a {@link BindingBatch}, merging the bindings of probes that have the same subject,
+     * predicate, object, and context.
+     */
+    public static class Builder {
+        private final Map<List<Object>, Integer> probeIndexes = new HashMap<>();
+        private final List<RyaStatement> probes = new ArrayList<>();
+        private final List<List<BindingSet>> bindings = new ArrayList<>();
+        private int numBindings = 0;
+
+        /**
+         * @param probe - The triple pattern the binding produces. (not null)
+         * @param bs - The binding. (not null)
+         * @return This builder.
+         */
+        public Builder add(final RyaStatement probe, final BindingSet bs) {
+            requireNonNull(probe);
+            requireNonNull(bs);
+            final List<Object> key = Arrays.<Object>asList(probe.getSubject(), probe.getPredicate(), probe.getObject(), probe.getContext());
+            Integer index = probeIndexes.get(key);
+            if (index == null) {
+                index = probes.size();
+                probeIndexes.put(key, index);
+                probes.add(probe);
+                bindings.add(new ArrayList<BindingSet>(1));
+            }
+            bindings.get(index).add(bs);
+            numBindings++;
+            return this;
+        }
+
+        public BindingBatch build() {
+            final List<List<BindingSet>> frozen = new ArrayList<>(bindings.size());
+            for (final List<BindingSet> probeBindings : bindings) {
+                frozen.add(Collections.unmodifiableList(probeBindings));
+            }
+            return new BindingBatch(Collections.unmodifiableList(new ArrayList<>(probes)), Collections.unmodifiableList(frozen), numBindings);
+        }
+    }
+}
@@ -61,6 +61,21 @@ public interface RyaQueryEngine<C extends RdfCloudTripleStoreConfiguration> exte
     public CloseableIteration<? extends Map.Entry<RyaStatement, BindingSet>, RyaDAOException>
     queryWithBindingSet(Collection<Map.Entry<RyaStatement, BindingSet>> stmts, C conf) throws RyaDAOException;
 
+    /**
+     * Batch query for the left side of a bind join. Each result is paired with every binding of the
+     * probe it matched. Engines that can route results by probe should override this; by default the
+     * batch is expanded and handed to {@link #queryWithBindingSet(Collection, RdfCloudTripleStoreConfiguration)}.
+     *
+     * @param batch - The distinct probes and their bindings.
+     * @param conf
+     * @return
+     * @throws RyaDAOException
+     */
+    public default CloseableIteration<? extends Map.Entry<RyaStatement, BindingSet>, RyaDAOException>
+    queryWithBindingBatch(BindingBatch batch, C conf) throws RyaDAOException {
+        return queryWithBindingSet(batch.toEntries(), conf);
+    }
+
     /**
      * Performs intersection joins.
      *
@@ -19,32 +19,59 @@ package org.apache.rya.api.persist.query.join;
  * under the License.
  */
 
-import java.util.Enumeration;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
-import org.apache.rya.api.RdfCloudTripleStoreUtils;
+import org.apache.rya.api.domain.RyaIRI;
 import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.domain.RyaType;
-import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.persist.RdfDAOException;
+import org.apache.rya.api.persist.RdfEvalStatsDAO;
+import org.apache.rya.api.persist.RdfEvalStatsDAO.CARDINALITY_OF;
 import org.apache.rya.api.persist.RyaDAOException;
 import org.apache.rya.api.persist.query.RyaQueryEngine;
+import org.apache.rya.api.persist.query.join.SpillingHashIntersection.KeySource;
 import org.apache.rya.api.resolver.RyaContext;
-import org.apache.rya.api.utils.EnumerationWrapper;
+import org.apache.rya.api.resolver.RyaToRdfConversions;
+import org.apache.rya.api.resolver.RyaTypeResolverException;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Use HashTable to do a HashJoin.
  * <p/>
- * TODO: Somehow make a more streaming way of doing this hash join. This will not support large sets.
+ * The inputs are ordered by their cardinality when a {@link RdfEvalStatsDAO} is available so the
+ * smallest input is used to build the hash table. The hash table holds serialized terms and is
+ * spilled to hash partitioned files on local disk once it grows beyond
+ * {@link #CONF_MEMORY_BUDGET} bytes. The last input is probed lazily as the results are iterated.
  * Date: 7/26/12
  * Time: 8:58 AM
  */
 public class HashJoin<C extends RdfCloudTripleStoreConfiguration> implements Join<C> {
+    private static final Logger logger = LoggerFactory.getLogger(HashJoin.class);
+
+    public static final String CONF_MEMORY_BUDGET = "query.join.hash.memorybudget";
+    public static final String CONF_SPILL_PARTITIONS = "query.join.hash.spillpartitions";
+    public static final String CONF_SPILL_DIR = "query.join.hash.spilldir";
+
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+    public static final int DEFAULT_SPILL_PARTITIONS = 64;
 
     private RyaContext ryaContext = RyaContext.getInstance();
     private RyaQueryEngine ryaQueryEngine;
+    private RdfEvalStatsDAO<C> rdfEvalStatsDAO;
 
     public HashJoin() {
     }
@@ -53,97 +80,198 @@ public class HashJoin<C extends RdfCloudTripleStoreConfiguration> implements Joi
         this.ryaQueryEngine = ryaQueryEngine;
     }
 
+    public HashJoin(RyaQueryEngine ryaQueryEngine, RdfEvalStatsDAO<C> rdfEvalStatsDAO) {
+        this.ryaQueryEngine = ryaQueryEngine;
+        this.rdfEvalStatsDAO = rdfEvalStatsDAO;
+    }
+
+    /**
+     * Return the subject and object of every statement that exists for all of the input predicates.
+     * The returned statements do not have a predicate.
+     */
     @Override
-    public CloseableIteration<RyaStatement, RyaDAOException> join(C conf, RyaIRI... preds) throws RyaDAOException {
-        ConcurrentHashMap<Map.Entry<RyaIRI, RyaType>, Integer> ht = new ConcurrentHashMap<Map.Entry<RyaIRI, RyaType>, Integer>();
-        int count = 0;
-        boolean first = true;
-        for (RyaIRI pred : preds) {
-            count++;
-            //query
-            CloseableIteration<RyaStatement, RyaDAOException> results = ryaQueryEngine.query(new RyaStatement(null, pred, null), null);
-            //add to hashtable
-            while (results.hasNext()) {
-                RyaStatement next = results.next();
-                RyaIRI subject = next.getSubject();
-                RyaType object = next.getObject();
-                Map.Entry<RyaIRI, RyaType> entry = new RdfCloudTripleStoreUtils.CustomEntry<RyaIRI, RyaType>(subject, object);
-                if (!first) {
-                    if (!ht.containsKey(entry)) {
-                        continue; //not in join
-                    }
-                }
-                ht.put(entry, count);
-            }
-            //remove from hashtable values that are under count
-            if (first) {
-                first = false;
-            } else {
-                for (Map.Entry<Map.Entry<RyaIRI, RyaType>, Integer> entry : ht.entrySet()) {
-                    if (entry.getValue() < count) {
-                        ht.remove(entry.getKey());
-                    }
+    public CloseableIteration<RyaStatement, RyaDAOException> join(final C conf, RyaIRI... preds) throws RyaDAOException {
+        final List<RyaIRI> ordered = orderByCardinality(Arrays.asList(preds), pred ->
+                cardinality(conf, CARDINALITY_OF.PREDICATE, Collections.<Value>singletonList(RyaToRdfConversions.convertIRI(pred))));
+
+        final List<KeySource> sources = new ArrayList<>();
+        for (final RyaIRI pred : ordered) {
+            sources.add(() -> new KeyIteration(ryaQueryEngine.query(new RyaStatement(null, pred, null), conf)) {
+                @Override
+                protected byte[] toKey(final RyaStatement statement) throws RyaTypeResolverException, IOException {
+                    return subjectObjectKey(statement.getSubject(), statement.getObject());
                 }
-            }
+            });
         }
-        final Enumeration<Map.Entry<RyaIRI, RyaType>> keys = ht.keys();
-        return new CloseableIteration<RyaStatement, RyaDAOException>() {
-            @Override
-            public void close() throws RyaDAOException {
-
-            }
 
+        final CloseableIteration<byte[], RyaDAOException> keys = newIntersection(conf).intersect(sources);
+        return new DecodingIteration<RyaStatement>(keys) {
             @Override
-            public boolean hasNext() throws RyaDAOException {
-                return keys.hasMoreElements();
+            protected RyaStatement decode(final byte[] key) throws RyaTypeResolverException {
+                final ByteBuffer buffer = ByteBuffer.wrap(key);
+                final byte[] subject = new byte[buffer.getInt()];
+                buffer.get(subject);
+                final byte[] object = new byte[buffer.remaining()];
+                buffer.get(object);
+                return new RyaStatement((RyaIRI) ryaContext.deserialize(subject), null, ryaContext.deserialize(object));
             }
+        };
+    }
 
-            @Override
-            public RyaStatement next() throws RyaDAOException {
-                Map.Entry<RyaIRI, RyaType> subjObj = keys.nextElement();
-                return new RyaStatement(subjObj.getKey(), null, subjObj.getValue());
-            }
+    /**
+     * Return all subjects that have all of the predicate objects associated.
+     */
+    @Override
+    public CloseableIteration<RyaIRI, RyaDAOException> join(final C conf, Map.Entry<RyaIRI, RyaType>... predObjs) throws RyaDAOException {
+        final List<Map.Entry<RyaIRI, RyaType>> ordered = orderByCardinality(Arrays.asList(predObjs), predObj ->
+                cardinality(conf, CARDINALITY_OF.PREDICATEOBJECT, Arrays.asList(
+                        RyaToRdfConversions.convertIRI(predObj.getKey()),
+                        RyaToRdfConversions.convertValue(predObj.getValue()))));
+
+        final List<KeySource> sources = new ArrayList<>();
+        for (final Map.Entry<RyaIRI, RyaType> predObj : ordered) {
+            sources.add(() -> new KeyIteration(ryaQueryEngine.query(new RyaStatement(null, predObj.getKey(), predObj.getValue()), conf)) {
+                @Override
+                protected byte[] toKey(final RyaStatement statement) throws RyaTypeResolverException {
+                    return ryaContext.serialize(statement.getSubject());
+                }
+            });
+        }
 
+        final CloseableIteration<byte[], RyaDAOException> keys = newIntersection(conf).intersect(sources);
+        return new DecodingIteration<RyaIRI>(keys) {
             @Override
-            public void remove() throws RyaDAOException {
-                keys.nextElement();
+            protected RyaIRI decode(final byte[] key) throws RyaTypeResolverException {
+                return (RyaIRI) ryaContext.deserialize(key);
             }
         };
     }
 
-    @Override
-    public CloseableIteration<RyaIRI, RyaDAOException> join(C conf, Map.Entry<RyaIRI, RyaType>... predObjs) throws RyaDAOException {
-        ConcurrentHashMap<RyaIRI, Integer> ht = new ConcurrentHashMap<RyaIRI, Integer>();
-        int count = 0;
-        boolean first = true;
-        for (Map.Entry<RyaIRI, RyaType> predObj : predObjs) {
-            count++;
-            RyaIRI pred = predObj.getKey();
-            RyaType obj = predObj.getValue();
-            //query
-            CloseableIteration<RyaStatement, RyaDAOException> results = ryaQueryEngine.query(new RyaStatement(null, pred, obj), null);
-            //add to hashtable
-            while (results.hasNext()) {
-                RyaIRI subject = results.next().getSubject();
-                if (!first) {
-                    if (!ht.containsKey(subject)) {
-                        continue; //not in join
-                    }
-                }
-                ht.put(subject, count);
+    private SpillingHashIntersection newIntersection(final C conf) {
+        long memoryBudget = DEFAULT_MEMORY_BUDGET;
+        int partitions = DEFAULT_SPILL_PARTITIONS;
+        String spillDir = System.getProperty("java.io.tmpdir");
+        if (conf != null) {
+            memoryBudget = conf.getLong(CONF_MEMORY_BUDGET, memoryBudget);
+            partitions = conf.getInt(CONF_SPILL_PARTITIONS, partitions);
+            spillDir = conf.get(CONF_SPILL_DIR, spillDir);
+        }
+        return new SpillingHashIntersection(memoryBudget, partitions, new File(spillDir));
+    }
+
+    private byte[] subjectObjectKey(final RyaIRI subject, final RyaType object) throws RyaTypeResolverException, IOException {
+        final byte[] subjectBytes = ryaContext.serialize(subject);
+        final byte[] objectBytes = ryaContext.serialize(object);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + subjectBytes.length + objectBytes.length);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(subjectBytes.length);
+        out.write(subjectBytes);
+        out.write(objectBytes);
+        return bytes.toByteArray();
+    }
+
+    private interface CardinalityFunction<T> {
+        double apply(T input);
+    }
+
+    /**
+     * Sort the inputs so the smallest ones are read first. Inputs without statistics are read last.
+     */
+    private <T> List<T> orderByCardinality(final List<T> inputs, final CardinalityFunction<T> cardinality) {
+        if (rdfEvalStatsDAO == null || inputs.size() < 2) {
+            return inputs;
+        }
+        final List<T> ordered = new ArrayList<>(inputs);
+        final Map<T, Double> cardinalities = new IdentityHashMap<>();
+        for (final T input : ordered) {
+            cardinalities.put(input, cardinality.apply(input));
+        }
+        Collections.sort(ordered, (a, b) -> Double.compare(cardinalities.get(a), cardinalities.get(b)));
+        return ordered;
+    }
+
+    private double cardinality(final C conf, final CARDINALITY_OF card, final List<Value> values) {
+        try {
+            final double cardinality = rdfEvalStatsDAO.getCardinality(conf, card, values);
+            return cardinality < 0 ? Double.MAX_VALUE : cardinality;
+        } catch (final RdfDAOException e) {
+            logger.warn("Could not retrieve the cardinality of " + values + ", using it as the probe side", e);
+            return Double.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Turns query results into hash join keys.
+     */
+    private abstract static class KeyIteration implements CloseableIteration<byte[], RyaDAOException> {
+        private final CloseableIteration<RyaStatement, RyaDAOException> results;
+
+        KeyIteration(final CloseableIteration<RyaStatement, RyaDAOException> results) {
+            this.results = results;
+        }
+
+        protected abstract byte[] toKey(RyaStatement statement) throws RyaTypeResolverException, IOException;
+
+        @Override
+        public boolean hasNext() throws RyaDAOException {
+            return results.hasNext();
+        }
+
+        @Override
+        public byte[] next() throws RyaDAOException {
+            try {
+                return toKey(results.next());
+            } catch (final RyaTypeResolverException | IOException e) {
+                throw new RyaDAOException(e);
             }
-            //remove from hashtable values that are under count
-            if (first) {
-                first = false;
-            } else {
-                for (Map.Entry<RyaIRI, Integer> entry : ht.entrySet()) {
-                    if (entry.getValue() < count) {
-                        ht.remove(entry.getKey());
-                    }
-                }
+        }
+
+        @Override
+        public void remove() throws RyaDAOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws RyaDAOException {
+            results.close();
+        }
+    }
+
+    /**
+     * Turns hash join keys back into results.
+     */
+    private abstract static class DecodingIteration<T> implements CloseableIteration<T, RyaDAOException> {
+        private final CloseableIteration<byte[], RyaDAOException> keys;
+
+        DecodingIteration(final CloseableIteration<byte[], RyaDAOException> keys) {
+            this.keys = keys;
+        }
+
+        protected abstract T decode(byte[] key) throws RyaTypeResolverException;
+
+        @Override
+        public boolean hasNext() throws RyaDAOException {
+            return keys.hasNext();
+        }
+
+        @Override
+        public T next() throws RyaDAOException {
+            try {
+                return decode(keys.next());
+            } catch (final RyaTypeResolverException e) {
+                throw new RyaDAOException(e);
             }
         }
-        return new EnumerationWrapper<RyaIRI, RyaDAOException>(ht.keys());
+
+        @Override
+        public void remove() throws RyaDAOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws RyaDAOException {
+            keys.close();
+        }
     }
 
     public RyaQueryEngine getRyaQueryEngine() {
@@ -153,4 +281,12 @@ public class HashJoin<C extends RdfCloudTripleStoreConfiguration> implements Joi
     public void setRyaQueryEngine(RyaQueryEngine ryaQueryEngine) {
         this.ryaQueryEngine = ryaQueryEngine;
     }
+
+    public RdfEvalStatsDAO<C> getRdfEvalStatsDAO() {
+        return rdfEvalStatsDAO;
+    }
+
+    public void setRdfEvalStatsDAO(RdfEvalStatsDAO<C> rdfEvalStatsDAO) {
+        this.rdfEvalStatsDAO = rdfEvalStatsDAO;
+    }
 }
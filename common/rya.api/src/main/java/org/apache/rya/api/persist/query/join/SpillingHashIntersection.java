@@ -0,0 +1,478 @@
+package org.apache.rya.api.persist.query.join;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.rya.api.persist.RyaDAOException;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Intersects a number of key streams using a memory budgeted hash table.
+ * <p/>
+ * The first source is the build side and should be the smallest one. Its keys are
+ * held in memory until the budget is exceeded. Every source except the last one is
+ * drained to shrink the hash table. The last source is the probe side and is only
+ * read as the returned iteration is consumed.
+ * <p/>
+ * Once the budget is exceeded, the build side sources are hash partitioned to local
+ * disk. The partitions are then loaded a budget at a time, and the probe side is
+ * streamed once per load against the partitions in memory, so it is never written
+ * to disk.
+ * <p/>
+ * Keys are compact byte arrays rather than object graphs, so the in memory
+ * footprint is roughly the size of the encoded terms.
+ */
+class SpillingHashIntersection {
+    private static final Logger log = LoggerFactory.getLogger(SpillingHashIntersection.class);
+
+    /**
+     * Approximate per entry overhead of a {@link HashSet} holding a wrapped byte array.
+     */
+    private static final long ENTRY_OVERHEAD = 96;
+
+    /**
+     * Lazily opens one of the inputs of the intersection.
+     */
+    interface KeySource {
+        CloseableIteration<byte[], RyaDAOException> open() throws RyaDAOException;
+    }
+
+    private final long memoryBudget;
+    private final int numPartitions;
+    private final File spillDir;
+
+    /**
+     * @param memoryBudget - The number of bytes the build side may use before spilling. (> 0)
+     * @param numPartitions - The number of partitions used when spilling. (> 1)
+     * @param spillDir - The directory spill files are written to. (not null)
+     */
+    SpillingHashIntersection(final long memoryBudget, final int numPartitions, final File spillDir) {
+        Preconditions.checkArgument(memoryBudget > 0, "memoryBudget must be greater than 0");
+        Preconditions.checkArgument(numPartitions > 1, "numPartitions must be greater than 1");
+        this.memoryBudget = memoryBudget;
+        this.numPartitions = numPartitions;
+        this.spillDir = requireNonNull(spillDir);
+    }
+
+    /**
+     * @param sources - The sources to intersect, smallest first. (not null, not empty)
+     * @return The distinct keys that appear in every source.
+     * @throws RyaDAOException The sources could not be read or spilled.
+     */
+    CloseableIteration<byte[], RyaDAOException> intersect(final List<KeySource> sources) throws RyaDAOException {
+        requireNonNull(sources);
+        Preconditions.checkArgument(!sources.isEmpty(), "Must provide at least one source");
+
+        final Set<ByteBuffer> build = new HashSet<>();
+        long used = 0;
+        try (final CloseableIteration<byte[], RyaDAOException> it = sources.get(0).open()) {
+            while (it.hasNext()) {
+                final byte[] key = it.next();
+                if (build.add(ByteBuffer.wrap(key))) {
+                    used += key.length + ENTRY_OVERHEAD;
+                    if (used > memoryBudget) {
+                        log.debug("Hash join build side exceeded {} bytes, spilling to {}", memoryBudget, spillDir);
+                        return spill(build, it, sources);
+                    }
+                }
+            }
+        }
+
+        Set<ByteBuffer> current = build;
+        for (int i = 1; i < sources.size() - 1 && !current.isEmpty(); i++) {
+            current = retain(current, sources.get(i));
+        }
+
+        if (sources.size() == 1 || current.isEmpty()) {
+            return new SetIteration(current);
+        }
+        return new ProbeIteration(current, sources.get(sources.size() - 1).open());
+    }
+
+    private static Set<ByteBuffer> retain(final Set<ByteBuffer> current, final KeySource source) throws RyaDAOException {
+        final Set<ByteBuffer> retained = new HashSet<>();
+        try (final CloseableIteration<byte[], RyaDAOException> it = source.open()) {
+            while (it.hasNext()) {
+                final ByteBuffer key = ByteBuffer.wrap(it.next());
+                if (current.contains(key)) {
+                    retained.add(key);
+                }
+            }
+        }
+        return retained;
+    }
+
+    private CloseableIteration<byte[], RyaDAOException> spill(final Set<ByteBuffer> build,
+            final CloseableIteration<byte[], RyaDAOException> buildRemainder,
+            final List<KeySource> sources) throws RyaDAOException {
+        final File dir;
+        try {
+            dir = Files.createTempDirectory(spillDir.toPath(), "rya-hashjoin").toFile();
+        } catch (final IOException e) {
+            throw new RyaDAOException("Could not create the hash join spill directory in " + spillDir, e);
+        }
+
+        // the probe side, if there is one, is streamed rather than spilled
+        final int buildSources = sources.size() == 1 ? 1 : sources.size() - 1;
+        final File[][] partitions = new File[buildSources][numPartitions];
+        boolean spilled = false;
+        try {
+            try (PartitionWriter writer = new PartitionWriter(dir, 0, partitions[0])) {
+                for (final ByteBuffer key : build) {
+                    writer.write(key.array());
+                }
+                build.clear();
+                while (buildRemainder.hasNext()) {
+                    writer.write(buildRemainder.next());
+                }
+            }
+
+            for (int i = 1; i < buildSources; i++) {
+                try (PartitionWriter writer = new PartitionWriter(dir, i, partitions[i]);
+                        CloseableIteration<byte[], RyaDAOException> it = sources.get(i).open()) {
+                    while (it.hasNext()) {
+                        writer.write(it.next());
+                    }
+                }
+            }
+            spilled = true;
+        } catch (final IOException e) {
+            throw new RyaDAOException("Could not spill the hash join to " + dir, e);
+        } finally {
+            if (!spilled) {
+                deleteQuietly(dir);
+            }
+        }
+
+        return new PartitionedIteration(dir, partitions,
+                sources.size() == 1 ? null : sources.get(sources.size() - 1));
+    }
+
+    private int partition(final byte[] key) {
+        // ByteBuffer's hash is also what the in memory tables use, so mix it before taking the modulus.
+        final int hash = ByteBuffer.wrap(key).hashCode() * 0x9E3779B9;
+        return (hash >>> 1) % numPartitions;
+    }
+
+    private static Set<ByteBuffer> readPartition(final File file, final Set<ByteBuffer> filter) throws IOException {
+        final Set<ByteBuffer> keys = new HashSet<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] key;
+            while ((key = readKey(in)) != null) {
+                final ByteBuffer wrapped = ByteBuffer.wrap(key);
+                if (filter == null || filter.contains(wrapped)) {
+                    keys.add(wrapped);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static byte[] readKey(final DataInputStream in) throws IOException {
+        final int length;
+        try {
+            length = in.readInt();
+        } catch (final EOFException e) {
+            return null;
+        }
+        final byte[] key = new byte[length];
+        in.readFully(key);
+        return key;
+    }
+
+    private static void deleteQuietly(final File dir) {
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                if (!file.delete()) {
+                    log.warn("Could not delete hash join spill file {}", file);
+                }
+            }
+        }
+        if (!dir.delete()) {
+            log.warn("Could not delete hash join spill directory {}", dir);
+        }
+    }
+
+    /**
+     * Writes the keys of a single source into hash partitioned spill files.
+     */
+    private class PartitionWriter implements AutoCloseable {
+        private final DataOutputStream[] outs = new DataOutputStream[numPartitions];
+
+        PartitionWriter(final File dir, final int source, final File[] files) throws IOException {
+            for (int p = 0; p < numPartitions; p++) {
+                files[p] = new File(dir, "source-" + source + "-part-" + p);
+                outs[p] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(files[p])));
+            }
+        }
+
+        void write(final byte[] key) throws IOException {
+            final DataOutputStream out = outs[partition(key)];
+            out.writeInt(key.length);
+            out.write(key);
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (final DataOutputStream out : outs) {
+                if (out != null) {
+                    try {
+                        out.close();
+                    } catch (final IOException e) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Iterates the keys of an already complete intersection.
+     */
+    private static class SetIteration implements CloseableIteration<byte[], RyaDAOException> {
+        private final Iterator<ByteBuffer> keys;
+
+        SetIteration(final Set<ByteBuffer> keys) {
+            this.keys = keys.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return keys.hasNext();
+        }
+
+        @Override
+        public byte[] next() {
+            return keys.next().array();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Streams the probe side, emitting each key the first time it is found in the hash table.
+     */
+    private static class ProbeIteration implements CloseableIteration<byte[], RyaDAOException> {
+        private final Set<ByteBuffer> table;
+        private final CloseableIteration<byte[], RyaDAOException> probe;
+        private byte[] next;
+
+        ProbeIteration(final Set<ByteBuffer> table, final CloseableIteration<byte[], RyaDAOException> probe) {
+            this.table = table;
+            this.probe = probe;
+        }
+
+        @Override
+        public boolean hasNext() throws RyaDAOException {
+            while (next == null && !table.isEmpty() && probe.hasNext()) {
+                final byte[] candidate = probe.next();
+                // Removing the key guarantees every joined key is only emitted once.
+                if (table.remove(ByteBuffer.wrap(candidate))) {
+                    next = candidate;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public byte[] next() throws RyaDAOException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final byte[] result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws RyaDAOException {
+            table.clear();
+            probe.close();
+        }
+    }
+
+    /**
+     * Joins the spilled build partitions a memory budget at a time. The probe side is opened again
+     * for every load and only the keys of the partitions in memory are looked up.
+     */
+    private class PartitionedIteration implements CloseableIteration<byte[], RyaDAOException> {
+        private final File dir;
+        private final File[][] partitions;
+        private final KeySource probeSource;
+        private int partition = 0;
+        private Iterator<ByteBuffer> current;
+        private CloseableIteration<byte[], RyaDAOException> probe;
+        private Set<ByteBuffer> table;
+        private byte[] next;
+        private boolean closed = false;
+
+        /**
+         * @param dir - The directory holding the spill files. (not null)
+         * @param partitions - The spill files of the build side sources, by source and partition. (not null)
+         * @param probeSource - The probe side, or {@code null} if the build side is the only source.
+         */
+        PartitionedIteration(final File dir, final File[][] partitions, final KeySource probeSource) {
+            this.dir = dir;
+            this.partitions = partitions;
+            this.probeSource = probeSource;
+        }
+
+        @Override
+        public boolean hasNext() throws RyaDAOException {
+            try {
+                while (next == null && !closed) {
+                    if (current != null && current.hasNext()) {
+                        next = current.next().array();
+                    } else if (probe != null) {
+                        if (table.isEmpty() || !probe.hasNext()) {
+                            closeProbe();
+                        } else {
+                            final byte[] candidate = probe.next();
+                            if (table.remove(ByteBuffer.wrap(candidate))) {
+                                next = candidate;
+                            }
+                        }
+                    } else if (!loadNextPartitions()) {
+                        close();
+                    }
+                }
+            } catch (final IOException e) {
+                close();
+                throw new RyaDAOException("Could not read the hash join spill files in " + dir, e);
+            } catch (final RyaDAOException e) {
+                close();
+                throw e;
+            }
+            return next != null;
+        }
+
+        /**
+         * Loads the next partitions of the build side that fit in the memory budget, always at least one.
+         *
+         * @return {@code false} if every partition has been joined.
+         */
+        private boolean loadNextPartitions() throws IOException, RyaDAOException {
+            current = null;
+            final Set<ByteBuffer> keys = new HashSet<>();
+            long used = 0;
+            while (partition < numPartitions && (keys.isEmpty() || used < memoryBudget)) {
+                Set<ByteBuffer> partitionKeys = readPartition(partitions[0][partition], null);
+                for (int i = 1; i < partitions.length && !partitionKeys.isEmpty(); i++) {
+                    partitionKeys = readPartition(partitions[i][partition], partitionKeys);
+                }
+                for (final ByteBuffer key : partitionKeys) {
+                    used += key.capacity() + ENTRY_OVERHEAD;
+                }
+                keys.addAll(partitionKeys);
+                partition++;
+            }
+            if (!keys.isEmpty()) {
+                if (probeSource == null) {
+                    current = keys.iterator();
+                } else {
+                    table = keys;
+                    probe = probeSource.open();
+                }
+            }
+            return !keys.isEmpty();
+        }
+
+        private void closeProbe() throws RyaDAOException {
+            table = null;
+            if (probe != null) {
+                try {
+                    probe.close();
+                } finally {
+                    probe = null;
+                }
+            }
+        }
+
+        @Override
+        public byte[] next() throws RyaDAOException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final byte[] result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws RyaDAOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            current = null;
+            try {
+                closeProbe();
+            } catch (final RyaDAOException e) {
+                log.warn("Could not close the hash join probe side", e);
+            } finally {
+                deleteQuietly(dir);
+            }
+        }
+    }
+}
@@ -29,6 +29,8 @@ import org.apache.rya.api.RdfCloudTripleStoreUtils;
 import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.persist.RyaDAO;
 import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.index.TransitiveClosureIndex;
+import org.apache.rya.api.persist.query.BindingBatch;
 import org.apache.rya.api.resolver.RdfToRyaConversions;
 import org.apache.rya.api.resolver.RyaToRdfConversions;
 import org.apache.rya.api.utils.NullableStatementImpl;
@@ -59,6 +61,32 @@ public class RyaDAOHelper {
             throw new QueryEvaluationException(e);
         }
         //TODO: only support one context for now
+        return toStatements(query);
+    }
+
+    /**
+     * Queries a transitive closure index.
+     *
+     * @param index - The index to query. (not null)
+     * @param subject - The subject to match, or {@code null} to match any subject.
+     * @param predicate - An indexed transitive property. (not null)
+     * @param object - The object to match, or {@code null} to match any object.
+     * @param conf - Provides the authorizations of the query. (not null)
+     * @return The statements implied by the transitivity of {@code predicate}.
+     */
+    public static CloseableIteration<Statement, QueryEvaluationException> queryClosure(TransitiveClosureIndex index, Resource subject, IRI predicate, Value object, RdfCloudTripleStoreConfiguration conf) throws QueryEvaluationException {
+        final CloseableIteration<RyaStatement, RyaDAOException> query;
+        try {
+            query = index.queryClosure(RdfToRyaConversions.convertStatement(
+                    new NullableStatementImpl(subject, predicate, object)), conf);
+        } catch (RyaDAOException e) {
+            throw new QueryEvaluationException(e);
+        }
+        return toStatements(query);
+    }
+
+    private static CloseableIteration<Statement, QueryEvaluationException> toStatements(
+            final CloseableIteration<RyaStatement, RyaDAOException> query) {
         return new CloseableIteration<Statement, QueryEvaluationException>() {   //TODO: Create a new class struct for this
 
             private boolean isClosed = false;
@@ -121,6 +149,21 @@ public class RyaDAOHelper {
         } catch (RyaDAOException e) {
             throw new QueryEvaluationException(e);
         }
+        return toStatementEntries(query);
+    }
+
+    public static CloseableIteration<? extends Map.Entry<Statement, BindingSet>, QueryEvaluationException> query(RyaDAO ryaDAO, BindingBatch batch, RdfCloudTripleStoreConfiguration conf) throws QueryEvaluationException {
+        final CloseableIteration<? extends Map.Entry<RyaStatement, BindingSet>, RyaDAOException> query;
+        try {
+            query = ryaDAO.getQueryEngine().queryWithBindingBatch(batch, conf);
+        } catch (RyaDAOException e) {
+            throw new QueryEvaluationException(e);
+        }
+        return toStatementEntries(query);
+    }
+
+    private static CloseableIteration<? extends Map.Entry<Statement, BindingSet>, QueryEvaluationException> toStatementEntries(
+            final CloseableIteration<? extends Map.Entry<RyaStatement, BindingSet>, RyaDAOException> query) {
         return new CloseableIteration<Map.Entry<Statement, BindingSet>, QueryEvaluationException>() {   //TODO: Create a new class struct for this
             private boolean isClosed = false;
 
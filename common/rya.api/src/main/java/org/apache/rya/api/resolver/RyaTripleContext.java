@@ -41,9 +41,14 @@ import org.apache.rya.api.query.strategy.wholerow.SpoWholeRowTriplePatternStrate
 import org.apache.rya.api.resolver.triple.TripleRow;
 import org.apache.rya.api.resolver.triple.TripleRowResolver;
 import org.apache.rya.api.resolver.triple.TripleRowResolverException;
+import org.apache.rya.api.resolver.triple.dictionary.DictionaryTriplePatternStrategy;
+import org.apache.rya.api.resolver.triple.dictionary.DictionaryTripleResolver;
+import org.apache.rya.api.resolver.triple.dictionary.TermDictionary;
 import org.apache.rya.api.resolver.triple.impl.WholeRowHashedTripleResolver;
 import org.apache.rya.api.resolver.triple.impl.WholeRowTripleResolver;
 
+import com.google.common.base.Preconditions;
+
 /**
  * Date: 7/16/12
  * Time: 12:04 PM
@@ -55,13 +60,35 @@ public class RyaTripleContext {
     private final List<TriplePatternStrategy> triplePatternStrategyList = new ArrayList<TriplePatternStrategy>();
 
     public RyaTripleContext(final boolean addPrefixHash) {
+        this(addPrefixHash, false);
+    }
+
+    /**
+     * @param addPrefixHash - {@code true} if rows are prefixed with a hash.
+     * @param lazyDeserialization - {@code true} if unhashed rows should be deserialized lazily.
+     */
+    public RyaTripleContext(final boolean addPrefixHash, final boolean lazyDeserialization) {
         addDefaultTriplePatternStrategies(addPrefixHash);
         if (addPrefixHash){
         	tripleResolver = new WholeRowHashedTripleResolver();
         }
         else {
-        	tripleResolver = new WholeRowTripleResolver();
+        	tripleResolver = new WholeRowTripleResolver(lazyDeserialization);
+        }
+    }
+
+    /**
+     * Creates a context whose rows hold the IDs of the terms instead of the terms themselves.
+     *
+     * @param dictionary - Maps the terms to and from their IDs. (not null)
+     */
+    public RyaTripleContext(final TermDictionary dictionary) {
+        Preconditions.checkNotNull(dictionary);
+        addDefaultTriplePatternStrategies(false);
+        for (int i = 0; i < triplePatternStrategyList.size(); i++) {
+            triplePatternStrategyList.set(i, new DictionaryTriplePatternStrategy(triplePatternStrategyList.get(i)));
         }
+        tripleResolver = new DictionaryTripleResolver(dictionary);
     }
 
 
@@ -69,12 +96,16 @@ public class RyaTripleContext {
     	// TODO want to be able to support more variability in configuration here
         public static final RyaTripleContext INSTANCE = new RyaTripleContext(false);
         public static final RyaTripleContext HASHED_INSTANCE = new RyaTripleContext(true);
+        public static final RyaTripleContext LAZY_INSTANCE = new RyaTripleContext(false, true);
     }
 
     public synchronized static RyaTripleContext getInstance(final RdfCloudTripleStoreConfiguration conf) {
     	if (conf.isPrefixRowsWithHash()){
     		return RyaTripleContextHolder.HASHED_INSTANCE;
     	}
+    	if (conf.isLazyDeserialization()) {
+    	    return RyaTripleContextHolder.LAZY_INSTANCE;
+    	}
         return RyaTripleContextHolder.INSTANCE;
     }
 
@@ -83,6 +114,20 @@ public class RyaTripleContext {
         return getTripleResolver().serialize(statement);
     }
 
+    /**
+     * @param statement - The statement to serialize. (not null)
+     * @param register - {@code false} if the rows are only used to find or delete stored rows, so the
+     *   terms of a dictionary encoded statement are not registered.
+     * @return The rows of the statement in each table.
+     * @throws TripleRowResolverException The statement could not be serialized.
+     */
+    public Map<RdfCloudTripleStoreConstants.TABLE_LAYOUT, TripleRow> serializeTriple(final RyaStatement statement, final boolean register) throws TripleRowResolverException {
+        if (tripleResolver instanceof DictionaryTripleResolver) {
+            return ((DictionaryTripleResolver) tripleResolver).serialize(statement, register);
+        }
+        return getTripleResolver().serialize(statement);
+    }
+
     public RyaStatement deserializeTriple(final RdfCloudTripleStoreConstants.TABLE_LAYOUT table_layout, final TripleRow tripleRow) throws TripleRowResolverException {
         return getTripleResolver().deserialize(table_layout, tripleRow);
     }
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.resolver.triple.dictionary;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.resolver.RyaContext;
+import org.apache.rya.api.resolver.RyaTypeResolverException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A {@link TermDictionary} that keeps recently used terms in memory so that the write path
+ * only stores a term the first time it sees it and the read path only looks up the IDs it
+ * has not resolved recently.
+ */
+@DefaultAnnotation(NonNull.class)
+public abstract class AbstractTermDictionary implements TermDictionary {
+
+    /**
+     * The IDs that have been written with a specific visibility, keyed by ID and visibility.
+     */
+    private final Cache<String, Boolean> registered;
+
+    /**
+     * The terms that have been written or read, keyed by ID.
+     */
+    private final Cache<String, RyaType> terms;
+
+    /**
+     * @param cacheSize - The maximum number of entries each of the caches holds. (> 0)
+     */
+    protected AbstractTermDictionary(final long cacheSize) {
+        registered = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+        terms = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+    }
+
+    /**
+     * Stores the serialized form of terms.
+     *
+     * @param serializedTerms - The serialized terms keyed by their IDs. (not null)
+     * @param columnVisibility - The visibility the terms are written with. (not null)
+     * @throws TermDictionaryException The terms could not be written.
+     */
+    protected abstract void writeTerms(Map<String, byte[]> serializedTerms, byte[] columnVisibility) throws TermDictionaryException;
+
+    /**
+     * Reads the serialized form of terms.
+     *
+     * @param ids - The IDs to look up. (not null)
+     * @return The serialized terms that were found, keyed by their IDs.
+     * @throws TermDictionaryException The terms could not be read.
+     */
+    protected abstract Map<String, byte[]> readTerms(Collection<String> ids) throws TermDictionaryException;
+
+    @Override
+    public void register(final Collection<RyaType> newTerms, final byte[] columnVisibility) throws TermDictionaryException {
+        requireNonNull(newTerms);
+        requireNonNull(columnVisibility);
+
+        final String visibility = Arrays.toString(columnVisibility);
+        final Map<String, byte[]> toWrite = new HashMap<>();
+        final Map<String, RyaType> written = new HashMap<>();
+        try {
+            for (final RyaType term : newTerms) {
+                final String id = TermIds.idOf(term);
+                if (registered.getIfPresent(id + visibility) == null && !toWrite.containsKey(id)) {
+                    toWrite.put(id, RyaContext.getInstance().serialize(term));
+                    written.put(id, term);
+                }
+            }
+        } catch (final RyaTypeResolverException e) {
+            throw new TermDictionaryException("Could not serialize the terms " + newTerms, e);
+        }
+
+        if (!toWrite.isEmpty()) {
+            writeTerms(toWrite, columnVisibility);
+            for (final Entry<String, RyaType> entry : written.entrySet()) {
+                registered.put(entry.getKey() + visibility, Boolean.TRUE);
+                terms.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public Map<String, RyaType> resolve(final Collection<String> ids) throws TermDictionaryException {
+        requireNonNull(ids);
+
+        final Map<String, RyaType> resolved = new HashMap<>();
+        final Set<String> missing = new HashSet<>();
+        for (final String id : ids) {
+            final RyaType term = terms.getIfPresent(id);
+            if (term != null) {
+                resolved.put(id, term);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            try {
+                for (final Entry<String, byte[]> entry : readTerms(missing).entrySet()) {
+                    final RyaType term = RyaContext.getInstance().deserialize(entry.getValue());
+                    terms.put(entry.getKey(), term);
+                    resolved.put(entry.getKey(), term);
+                }
+            } catch (final RyaTypeResolverException e) {
+                throw new TermDictionaryException("Could not deserialize the terms of " + missing, e);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * @return Hit and miss statistics of the cache used to skip writing known terms.
+     */
+    public CacheStats getWriteCacheStats() {
+        return registered.stats();
+    }
+
+    /**
+     * @return Hit and miss statistics of the cache used to resolve IDs.
+     */
+    public CacheStats getReadCacheStats() {
+        return terms.stats();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.resolver.triple.dictionary;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.RdfCloudTripleStoreConstants.TABLE_LAYOUT;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaRange;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.query.strategy.ByteRange;
+import org.apache.rya.api.query.strategy.TriplePatternStrategy;
+import org.apache.rya.api.resolver.triple.TripleRowRegex;
+import org.apache.rya.api.resolver.triple.TripleRowResolverException;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Defines the ranges of dictionary encoded tables by replacing the terms of a triple pattern
+ * with their IDs before handing them to a whole row {@link TriplePatternStrategy}.
+ * <p>
+ * IDs do not preserve the ordering of the terms, so only ranges over inlined literals are
+ * supported. Regular expressions over the terms can not be evaluated against the rows, so they
+ * are left out of the row regex and the caller has to filter the decoded statements instead.
+ */
+@DefaultAnnotation(NonNull.class)
+public class DictionaryTriplePatternStrategy implements TriplePatternStrategy {
+
+    private final TriplePatternStrategy strategy;
+
+    /**
+     * @param strategy - The whole row strategy that defines the ranges over the IDs. (not null)
+     */
+    public DictionaryTriplePatternStrategy(final TriplePatternStrategy strategy) {
+        this.strategy = requireNonNull(strategy);
+    }
+
+    @Override
+    public Map.Entry<TABLE_LAYOUT, ByteRange> defineRange(final RyaIRI subject, final RyaIRI predicate, final RyaType object,
+            final RyaIRI context, final RdfCloudTripleStoreConfiguration conf) throws IOException {
+        if (subject instanceof RyaRange || predicate instanceof RyaRange) {
+            throw new IOException("Ranges over dictionary encoded subjects and predicates are not supported.");
+        }
+        if (object instanceof RyaRange && !TermIds.isInlined(object)) {
+            throw new IOException("Ranges over dictionary encoded objects are not supported.");
+        }
+
+        try {
+            return strategy.defineRange(
+                    DictionaryTripleResolver.encodeIRI(subject),
+                    DictionaryTripleResolver.encodeIRI(predicate),
+                    DictionaryTripleResolver.encodeObject(object),
+                    context, conf);
+        } catch (final TripleRowResolverException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public TABLE_LAYOUT getLayout() {
+        return strategy.getLayout();
+    }
+
+    @Override
+    public boolean handles(final RyaIRI subject, final RyaIRI predicate, final RyaType object, final RyaIRI context) {
+        return strategy.handles(subject, predicate, object, context);
+    }
+
+    @Override
+    public TripleRowRegex buildRegex(final String subject, final String predicate, final String object, final String context, final byte[] objectTypeInfo) {
+        // The terms are only known once the rows are decoded, so their regular expressions are not part of the row regex.
+        // The type information of the pattern's object does not match the type of an ID, so it can not be used.
+        return strategy.buildRegex(null, null, null, context, null);
+    }
+}
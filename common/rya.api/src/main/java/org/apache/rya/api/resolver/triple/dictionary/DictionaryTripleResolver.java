@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.resolver.triple.dictionary;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.rya.api.RdfCloudTripleStoreConstants.TABLE_LAYOUT;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.resolver.RyaTypeResolverException;
+import org.apache.rya.api.resolver.triple.TripleRow;
+import org.apache.rya.api.resolver.triple.TripleRowResolver;
+import org.apache.rya.api.resolver.triple.TripleRowResolverException;
+import org.apache.rya.api.resolver.triple.impl.WholeRowTripleResolver;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Stores triples in spo, po, osp using the whole row layout, but with every IRI and every
+ * literal that does not have an order preserving encoding replaced by its {@link TermIds ID}.
+ * The terms are registered with a {@link TermDictionary} when statements are added and resolved
+ * through it on the read path. Deletes do not remove terms, so a term may outlive the last
+ * statement that used it.
+ */
+@DefaultAnnotation(NonNull.class)
+public class DictionaryTripleResolver implements TripleRowResolver {
+
+    private static final byte[] EMPTY_VISIBILITY = new byte[0];
+
+    private final WholeRowTripleResolver rowResolver = new WholeRowTripleResolver();
+    private final TermDictionary dictionary;
+
+    /**
+     * @param dictionary - Maps the terms to and from their IDs. (not null)
+     */
+    public DictionaryTripleResolver(final TermDictionary dictionary) {
+        this.dictionary = requireNonNull(dictionary);
+    }
+
+    /**
+     * @return Maps the terms to and from their IDs.
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public Map<TABLE_LAYOUT, TripleRow> serialize(final RyaStatement statement) throws TripleRowResolverException {
+        return serialize(statement, true);
+    }
+
+    /**
+     * @param statement - The statement to serialize. (not null)
+     * @param register - {@code true} if the statement is written and its terms must be registered
+     *   with the dictionary; {@code false} if the rows are only used to find or delete stored rows.
+     * @return The rows of the statement in each table.
+     * @throws TripleRowResolverException The statement could not be serialized or its terms registered.
+     */
+    public Map<TABLE_LAYOUT, TripleRow> serialize(final RyaStatement statement, final boolean register) throws TripleRowResolverException {
+        if (!register) {
+            return rowResolver.serialize(encode(statement));
+        }
+
+        final List<RyaType> terms = new ArrayList<>(3);
+        terms.add(statement.getSubject());
+        terms.add(statement.getPredicate());
+        if (!TermIds.isInlined(statement.getObject())) {
+            terms.add(statement.getObject());
+        }
+
+        final byte[] columnVisibility = statement.getColumnVisibility();
+        try {
+            dictionary.register(terms, columnVisibility == null ? EMPTY_VISIBILITY : columnVisibility);
+        } catch (final TermDictionaryException e) {
+            throw new TripleRowResolverException(e);
+        }
+        return rowResolver.serialize(encode(statement));
+    }
+
+    @Override
+    public RyaStatement deserialize(final TABLE_LAYOUT layout, final TripleRow tripleRow) throws TripleRowResolverException {
+        return decode(Collections.singletonList(rowResolver.deserialize(layout, tripleRow))).get(0);
+    }
+
+    /**
+     * Deserializes many rows using a single dictionary lookup for all of their IDs.
+     *
+     * @param layout - The table the rows were read from. (not null)
+     * @param tripleRows - The rows to deserialize. (not null)
+     * @return The statements in the same order as the rows.
+     * @throws TripleRowResolverException The rows could not be deserialized.
+     */
+    public List<RyaStatement> deserialize(final TABLE_LAYOUT layout, final Collection<TripleRow> tripleRows) throws TripleRowResolverException {
+        final List<RyaStatement> encoded = new ArrayList<>(tripleRows.size());
+        for (final TripleRow tripleRow : tripleRows) {
+            encoded.add(rowResolver.deserialize(layout, tripleRow));
+        }
+        return decode(encoded);
+    }
+
+    /**
+     * @param statement - The statement to encode. (not null)
+     * @return A copy of the statement with its terms replaced by their IDs.
+     * @throws TripleRowResolverException The terms could not be serialized.
+     */
+    @SuppressWarnings("deprecation")
+    public static RyaStatement encode(final RyaStatement statement) throws TripleRowResolverException {
+        return new RyaStatement(
+                encodeIRI(statement.getSubject()),
+                encodeIRI(statement.getPredicate()),
+                encodeObject(statement.getObject()),
+                statement.getContext(),
+                statement.getQualifer(),
+                statement.getColumnVisibility(),
+                statement.getValue(),
+                statement.getTimestamp());
+    }
+
+    /**
+     * @param iri - The IRI to encode.
+     * @return The IRI holding the ID of {@code iri}, or {@code null} if it was {@code null}.
+     * @throws TripleRowResolverException The IRI could not be serialized.
+     */
+    public static RyaIRI encodeIRI(final RyaIRI iri) throws TripleRowResolverException {
+        if (iri == null) {
+            return null;
+        }
+        try {
+            return new RyaIRI(TermIds.idOf(iri));
+        } catch (final RyaTypeResolverException e) {
+            throw new TripleRowResolverException(e);
+        }
+    }
+
+    /**
+     * @param object - The object to encode.
+     * @return The object if it is inlined, otherwise an IRI holding its ID.
+     * @throws TripleRowResolverException The object could not be serialized.
+     */
+    public static RyaType encodeObject(final RyaType object) throws TripleRowResolverException {
+        if (object == null || TermIds.isInlined(object)) {
+            return object;
+        }
+        try {
+            return new RyaIRI(TermIds.idOf(object));
+        } catch (final RyaTypeResolverException e) {
+            throw new TripleRowResolverException(e);
+        }
+    }
+
+    private List<RyaStatement> decode(final List<RyaStatement> encoded) throws TripleRowResolverException {
+        final Set<String> ids = new HashSet<>();
+        for (final RyaStatement statement : encoded) {
+            ids.add(statement.getSubject().getData());
+            ids.add(statement.getPredicate().getData());
+            if (statement.getObject() instanceof RyaIRI) {
+                ids.add(statement.getObject().getData());
+            }
+        }
+
+        final Map<String, RyaType> terms;
+        try {
+            terms = dictionary.resolve(ids);
+        } catch (final TermDictionaryException e) {
+            throw new TripleRowResolverException(e);
+        }
+
+        for (final RyaStatement statement : encoded) {
+            statement.setSubject((RyaIRI) lookup(terms, statement.getSubject()));
+            statement.setPredicate((RyaIRI) lookup(terms, statement.getPredicate()));
+            if (statement.getObject() instanceof RyaIRI) {
+                statement.setObject(lookup(terms, statement.getObject()));
+            }
+        }
+        return encoded;
+    }
+
+    private static RyaType lookup(final Map<String, RyaType> terms, final RyaType encoded) throws TripleRowResolverException {
+        final RyaType term = terms.get(encoded.getData());
+        if (term == null) {
+            throw new TripleRowResolverException("The term with ID " + encoded.getData() + " is not in the dictionary");
+        }
+        return term;
+    }
+}
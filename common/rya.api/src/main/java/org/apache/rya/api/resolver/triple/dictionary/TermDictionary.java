@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.resolver.triple.dictionary;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.rya.api.domain.RyaType;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Maps the terms of dictionary encoded statements to and from their IDs.
+ * <p>
+ * IDs are derived from the terms themselves by {@link TermIds#idOf(RyaType)}, so writers
+ * never have to coordinate to allocate one. The dictionary only has to remember the
+ * reverse mapping so that IDs read from the triple tables can be turned back into terms.
+ */
+@DefaultAnnotation(NonNull.class)
+public interface TermDictionary extends AutoCloseable {
+
+    /**
+     * Makes sure the terms may be resolved from their IDs.
+     *
+     * @param terms - The terms that are about to be written. (not null)
+     * @param columnVisibility - The visibility of the statement the terms belong to. (not null)
+     * @throws TermDictionaryException The terms could not be stored.
+     */
+    public void register(Collection<RyaType> terms, byte[] columnVisibility) throws TermDictionaryException;
+
+    /**
+     * Resolves many IDs at once.
+     *
+     * @param ids - The IDs to resolve. (not null)
+     * @return The terms that were found, keyed by their IDs.
+     * @throws TermDictionaryException The terms could not be read.
+     */
+    public Map<String, RyaType> resolve(Collection<String> ids) throws TermDictionaryException;
+
+    /**
+     * Writes any registered terms that have been buffered.
+     *
+     * @throws TermDictionaryException The terms could not be written.
+     */
+    public void flush() throws TermDictionaryException;
+
+    @Override
+    public void close() throws TermDictionaryException;
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.resolver.triple.dictionary;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaRange;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.resolver.RyaContext;
+import org.apache.rya.api.resolver.RyaTypeResolverException;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+
+import com.google.common.collect.ImmutableSet;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Computes the fixed width IDs that dictionary encoded statements store in place of their terms.
+ * <p>
+ * An ID is the first 96 bits of the SHA-256 hash of the term's serialized form, encoded as
+ * URL safe Base64. That keeps the IDs free of the row delimiters and short enough that an
+ * IRI is typically stored in a fraction of its original size. Literals whose datatype has an
+ * order preserving encoding are never replaced so that range scans over them keep working.
+ */
+@DefaultAnnotation(NonNull.class)
+public final class TermIds {
+
+    /**
+     * Prefixes every ID so it may be held by a {@link RyaIRI}.
+     */
+    public static final String ID_PREFIX = "t:";
+
+    /**
+     * The number of hash bytes an ID holds.
+     */
+    public static final int ID_BYTES = 12;
+
+    /**
+     * The datatypes that are stored as is because their encoding preserves their ordering.
+     */
+    public static final Set<IRI> INLINED_DATATYPES = ImmutableSet.of(
+            XMLSchema.INTEGER, XMLSchema.INT, XMLSchema.LONG, XMLSchema.SHORT, XMLSchema.BYTE,
+            XMLSchema.DOUBLE, XMLSchema.FLOAT, XMLSchema.DATETIME, XMLSchema.BOOLEAN);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private TermIds() { }
+
+    /**
+     * @param term - The term to check. (not null)
+     * @return {@code true} if the term is written to the triple tables as is instead of as an ID.
+     */
+    public static boolean isInlined(final RyaType term) {
+        if (term instanceof RyaIRI) {
+            return false;
+        }
+        if (term instanceof RyaRange) {
+            return isInlined(((RyaRange) term).getStart());
+        }
+        return INLINED_DATATYPES.contains(term.getDataType());
+    }
+
+    /**
+     * @param term - The term to compute the ID of. (not null)
+     * @return The ID of the term.
+     * @throws RyaTypeResolverException The term could not be serialized.
+     */
+    public static String idOf(final RyaType term) throws RyaTypeResolverException {
+        final byte[] serialized = RyaContext.getInstance().serialize(term);
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(serialized);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        return ID_PREFIX + ENCODER.encodeToString(Arrays.copyOf(hash, ID_BYTES));
+    }
+}
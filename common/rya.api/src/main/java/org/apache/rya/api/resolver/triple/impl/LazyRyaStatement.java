@@ -0,0 +1,222 @@
+package org.apache.rya.api.resolver.triple.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.rya.api.RdfCloudTripleStoreConstants.TABLE_LAYOUT;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.resolver.RyaContext;
+import org.apache.rya.api.resolver.RyaTypeResolverException;
+
+/**
+ * A {@link RyaStatement} that is a view over a whole row produced by {@link WholeRowTripleResolver}.
+ * <p/>
+ * Only the offsets of the subject, predicate, and object are computed when the row is read.
+ * Each of them is decoded from the original row buffer the first time it is requested, so terms
+ * that are never read by the evaluation strategy are never turned into Strings. The row buffer
+ * is released once all three terms have been decoded.
+ * <p/>
+ * A view is equal to any {@link RyaStatement} that holds the same values, and comparing or hashing it
+ * decodes all of its terms. The terms are decoded while holding the view's lock, so a view may be read
+ * by many threads.
+ */
+public class LazyRyaStatement extends RyaStatement {
+
+    private byte[] row;
+    private final int subjectSegment;
+    private final int predicateSegment;
+    private final int objectSegment;
+    private final int firstIndex;
+    private final int secondIndex;
+    private final int typeIndex;
+
+    private boolean subjectDecoded = false;
+    private boolean predicateDecoded = false;
+    private boolean objectDecoded = false;
+
+    /**
+     * @param layout - The table the row was read from.
+     * @param row - The row that holds the three terms.
+     * @param firstIndex - The index of the first {@code DELIM_BYTE} in the row.
+     * @param secondIndex - The index of the last {@code DELIM_BYTE} in the row.
+     * @param typeIndex - The index of the {@code TYPE_DELIM_BYTE} in the row.
+     */
+    @SuppressWarnings("deprecation")
+    LazyRyaStatement(final TABLE_LAYOUT layout, final byte[] row, final int firstIndex, final int secondIndex, final int typeIndex,
+            final RyaIRI context, final String qualifier, final byte[] columnVisibility, final byte[] value, final Long timestamp) {
+        super(null, null, null, context, qualifier, columnVisibility, value, timestamp);
+        this.row = row;
+        this.firstIndex = firstIndex;
+        this.secondIndex = secondIndex;
+        this.typeIndex = typeIndex;
+        switch (layout) {
+            case SPO:
+                subjectSegment = 0;
+                predicateSegment = 1;
+                objectSegment = 2;
+                break;
+            case PO:
+                predicateSegment = 0;
+                objectSegment = 1;
+                subjectSegment = 2;
+                break;
+            case OSP:
+                objectSegment = 0;
+                subjectSegment = 1;
+                predicateSegment = 2;
+                break;
+            default:
+                throw new IllegalArgumentException("Table layout[" + layout + "] is not supported");
+        }
+    }
+
+    @Override
+    public synchronized RyaIRI getSubject() {
+        if (!subjectDecoded) {
+            super.setSubject(decodeIRI(subjectSegment));
+            subjectDecoded = true;
+            releaseRow();
+        }
+        return super.getSubject();
+    }
+
+    @Override
+    public synchronized void setSubject(final RyaIRI subject) {
+        super.setSubject(subject);
+        subjectDecoded = true;
+        releaseRow();
+    }
+
+    @Override
+    public synchronized RyaIRI getPredicate() {
+        if (!predicateDecoded) {
+            super.setPredicate(decodeIRI(predicateSegment));
+            predicateDecoded = true;
+            releaseRow();
+        }
+        return super.getPredicate();
+    }
+
+    @Override
+    public synchronized void setPredicate(final RyaIRI predicate) {
+        super.setPredicate(predicate);
+        predicateDecoded = true;
+        releaseRow();
+    }
+
+    /**
+     * @throws IllegalStateException The object's bytes could not be deserialized.
+     */
+    @Override
+    public synchronized RyaType getObject() {
+        if (!objectDecoded) {
+            super.setObject(decodeObject());
+            objectDecoded = true;
+            releaseRow();
+        }
+        return super.getObject();
+    }
+
+    @Override
+    public synchronized void setObject(final RyaType object) {
+        super.setObject(object);
+        objectDecoded = true;
+        releaseRow();
+    }
+
+    /**
+     * @return A plain {@link RyaStatement} holding the decoded values of this view.
+     */
+    @SuppressWarnings("deprecation")
+    public RyaStatement toRyaStatement() {
+        return new RyaStatement(getSubject(), getPredicate(), getObject(), getContext(), getQualifer(),
+                getColumnVisibility(), getValue(), getTimestamp());
+    }
+
+    @Override
+    public synchronized String toString() {
+        decodeAll();
+        return super.toString();
+    }
+
+    private void decodeAll() {
+        getSubject();
+        getPredicate();
+        getObject();
+    }
+
+    private void releaseRow() {
+        if (subjectDecoded && predicateDecoded && objectDecoded) {
+            row = null;
+        }
+    }
+
+    private int segmentStart(final int segment) {
+        switch (segment) {
+            case 0:
+                return 0;
+            case 1:
+                return firstIndex + 1;
+            default:
+                return secondIndex + 1;
+        }
+    }
+
+    private int segmentEnd(final int segment) {
+        switch (segment) {
+            case 0:
+                return firstIndex;
+            case 1:
+                return secondIndex;
+            default:
+                return typeIndex;
+        }
+    }
+
+    private RyaIRI decodeIRI(final int segment) {
+        final int start = segmentStart(segment);
+        return new RyaIRI(new String(row, start, segmentEnd(segment) - start, StandardCharsets.UTF_8));
+    }
+
+    private RyaType decodeObject() {
+        final int start = segmentStart(objectSegment);
+        final int end = segmentEnd(objectSegment);
+        final byte[] obj;
+        if (end == typeIndex) {
+            // The object's value and type are already adjacent in the row.
+            obj = new byte[row.length - start];
+            System.arraycopy(row, start, obj, 0, obj.length);
+        } else {
+            final int typeLength = row.length - typeIndex;
+            obj = new byte[end - start + typeLength];
+            System.arraycopy(row, start, obj, 0, end - start);
+            System.arraycopy(row, typeIndex, obj, end - start, typeLength);
+        }
+
+        try {
+            return RyaContext.getInstance().deserialize(obj);
+        } catch (final RyaTypeResolverException e) {
+            throw new IllegalStateException("Could not deserialize the object of the row", e);
+        }
+    }
+}
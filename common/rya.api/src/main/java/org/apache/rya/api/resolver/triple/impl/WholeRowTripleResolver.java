@@ -42,11 +42,35 @@ import com.google.common.primitives.Bytes;
 
 /**
  * Will store triple in spo, po, osp. Storing everything in the whole row.
+ * <p/>
+ * When created with lazy deserialization enabled, {@link #deserialize(TABLE_LAYOUT, TripleRow)}
+ * only locates the terms within the row and returns a {@link LazyRyaStatement} that decodes
+ * each term the first time it is read.
  * Date: 7/13/12
  * Time: 8:51 AM
  */
 public class WholeRowTripleResolver implements TripleRowResolver {
 
+    private final boolean lazy;
+
+    public WholeRowTripleResolver() {
+        this(false);
+    }
+
+    /**
+     * @param lazy - {@code true} if rows should be deserialized into {@link LazyRyaStatement}s.
+     */
+    public WholeRowTripleResolver(final boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * @return {@code true} if rows are deserialized into {@link LazyRyaStatement}s.
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
     @Override
     public Map<TABLE_LAYOUT, TripleRow> serialize(final RyaStatement stmt) throws TripleRowResolverException {
         try {
@@ -94,10 +118,6 @@ public class WholeRowTripleResolver implements TripleRowResolver {
             final int firstIndex = Bytes.indexOf(row, DELIM_BYTE);
             final int secondIndex = Bytes.lastIndexOf(row, DELIM_BYTE);
             final int typeIndex = Bytes.indexOf(row, TYPE_DELIM_BYTE);
-            final byte[] first = Arrays.copyOf(row, firstIndex);
-            final byte[] second = Arrays.copyOfRange(row, firstIndex + 1, secondIndex);
-            final byte[] third = Arrays.copyOfRange(row, secondIndex + 1, typeIndex);
-            final byte[] type = Arrays.copyOfRange(row, typeIndex, row.length);
             final byte[] columnFamily = tripleRow.getColumnFamily();
             final boolean contextExists = columnFamily != null && columnFamily.length > 0;
             final RyaIRI context = (contextExists) ? (new RyaIRI(new String(columnFamily, StandardCharsets.UTF_8))) : null;
@@ -107,6 +127,19 @@ public class WholeRowTripleResolver implements TripleRowResolver {
             final byte[] columnVisibility = tripleRow.getColumnVisibility();
             final byte[] value = tripleRow.getValue();
 
+            if (lazy) {
+                if (firstIndex < 0 || secondIndex <= firstIndex || typeIndex <= secondIndex) {
+                    throw new TripleRowResolverException("TripleRow[" + tripleRow + "] with Table layout[" + table_layout + "] is not deserializable");
+                }
+                return new LazyRyaStatement(table_layout, row, firstIndex, secondIndex, typeIndex,
+                        context, qualifier, columnVisibility, value, timestamp);
+            }
+
+            final byte[] first = Arrays.copyOf(row, firstIndex);
+            final byte[] second = Arrays.copyOfRange(row, firstIndex + 1, secondIndex);
+            final byte[] third = Arrays.copyOfRange(row, secondIndex + 1, typeIndex);
+            final byte[] type = Arrays.copyOfRange(row, typeIndex, row.length);
+
             switch (table_layout) {
                 case SPO: {
                     final byte[] obj = Bytes.concat(third, type);
@@ -0,0 +1,119 @@
+package org.apache.rya.api.persist;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.persist.RdfEvalStatsDAO.CARDINALITY_OF;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests the methods of {@link CachingRdfEvalStatsDAO}.
+ */
+public class CachingRdfEvalStatsDAOTest {
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+    private final List<Value> alice = Arrays.asList(VF.createIRI("urn:Alice"));
+    private final List<Value> bob = Arrays.asList(VF.createIRI("urn:Bob"));
+
+    private RdfEvalStatsDAO<RdfCloudTripleStoreConfiguration> delegate;
+    private RdfCloudTripleStoreConfiguration conf;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setup() {
+        delegate = mock(RdfEvalStatsDAO.class);
+        conf = mock(RdfCloudTripleStoreConfiguration.class);
+        when(conf.getAuths()).thenReturn(new String[] { "U" });
+    }
+
+    @Test
+    public void getCardinality_cached() throws Exception {
+        when(delegate.getCardinality(conf, CARDINALITY_OF.SUBJECT, alice, null)).thenReturn(5.0);
+        final CachingRdfEvalStatsDAO<RdfCloudTripleStoreConfiguration> dao = new CachingRdfEvalStatsDAO<>(delegate, 60000, 100);
+
+        assertEquals(5.0, dao.getCardinality(conf, CARDINALITY_OF.SUBJECT, alice), 0.0);
+        assertEquals(5.0, dao.getCardinality(conf, CARDINALITY_OF.SUBJECT, alice), 0.0);
+
+        verify(delegate, times(1)).getCardinality(conf, CARDINALITY_OF.SUBJECT, alice, null);
+        assertEquals(1, dao.getHitCount());
+        assertEquals(1, dao.getMissCount());
+        assertEquals(1, dao.getLookupCount());
+    }
+
+    @Test
+    public void getCardinality_cachedPerAuthorizations() throws Exception {
+        final RdfCloudTripleStoreConfiguration otherConf = mock(RdfCloudTripleStoreConfiguration.class);
+        when(otherConf.getAuths()).thenReturn(new String[] { "U", "FOUO" });
+        when(delegate.getCardinality(conf, CARDINALITY_OF.SUBJECT, alice, null)).thenReturn(5.0);
+        when(delegate.getCardinality(otherConf, CARDINALITY_OF.SUBJECT, alice, null)).thenReturn(7.0);
+        final CachingRdfEvalStatsDAO<RdfCloudTripleStoreConfiguration> dao = new CachingRdfEvalStatsDAO<>(delegate, 60000, 100);
+
+        assertEquals(5.0, dao.getCardinality(conf, CARDINALITY_OF.SUBJECT, alice), 0.0);
+        assertEquals(7.0, dao.getCardinality(otherConf, CARDINALITY_OF.SUBJECT, alice), 0.0);
+        assertEquals(2, dao.getMissCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getCardinalities_onlyMissesAreBatched() throws Exception {
+        final CardinalityKey aliceKey = new CardinalityKey(CARDINALITY_OF.SUBJECT, alice, null);
+        final CardinalityKey bobKey = new CardinalityKey(CARDINALITY_OF.SUBJECT, bob, null);
+        when(delegate.getCardinality(conf, CARDINALITY_OF.SUBJECT, alice, null)).thenReturn(5.0);
+        final Map<CardinalityKey, Double> batch = new HashMap<>();
+        batch.put(bobKey, 3.0);
+        when(delegate.getCardinalities(eq(conf), any(Collection.class))).thenReturn(batch);
+        final CachingRdfEvalStatsDAO<RdfCloudTripleStoreConfiguration> dao = new CachingRdfEvalStatsDAO<>(delegate, 60000, 100);
+
+        dao.getCardinality(conf, CARDINALITY_OF.SUBJECT, alice);
+        final Map<CardinalityKey, Double> cardinalities = dao.getCardinalities(conf, Arrays.asList(aliceKey, bobKey));
+
+        assertEquals(5.0, cardinalities.get(aliceKey), 0.0);
+        assertEquals(3.0, cardinalities.get(bobKey), 0.0);
+
+        final ArgumentCaptor<Collection> requested = ArgumentCaptor.forClass(Collection.class);
+        verify(delegate, times(1)).getCardinalities(eq(conf), requested.capture());
+        assertEquals(Collections.singletonList(bobKey), requested.getValue());
+        assertEquals(2, dao.getLookupCount());
+
+        // Everything is cached now.
+        dao.getCardinalities(conf, Arrays.asList(aliceKey, bobKey));
+        assertEquals(2, dao.getLookupCount());
+    }
+}
@@ -0,0 +1,128 @@
+package org.apache.rya.api.persist.joinselect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link CachingSelectivityEvalDAO}.
+ */
+public class CachingSelectivityEvalDAOTest {
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+    private SelectivityEvalDAO<RdfCloudTripleStoreConfiguration> delegate;
+    private RdfCloudTripleStoreConfiguration conf;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setup() {
+        delegate = mock(SelectivityEvalDAO.class);
+        conf = mock(RdfCloudTripleStoreConfiguration.class);
+        when(conf.getAuths()).thenReturn(new String[] { "U" });
+    }
+
+    @Test
+    public void getJoinSelect_cached() throws Exception {
+        when(delegate.getJoinSelect(eq(conf), any(TupleExpr.class), any(TupleExpr.class))).thenReturn(0.25);
+        final CachingSelectivityEvalDAO<RdfCloudTripleStoreConfiguration> dao = new CachingSelectivityEvalDAO<>(delegate, 60000, 100);
+
+        // Equal patterns that are different objects share the cached selectivity.
+        assertEquals(0.25, dao.getJoinSelect(conf, pattern("urn:worksAt"), pattern("urn:livesIn")), 0.0);
+        assertEquals(0.25, dao.getJoinSelect(conf, pattern("urn:worksAt"), pattern("urn:livesIn")), 0.0);
+
+        verify(delegate, times(1)).getJoinSelect(eq(conf), any(TupleExpr.class), any(TupleExpr.class));
+    }
+
+    @Test
+    public void getJoinSelect_differentPairs() throws Exception {
+        when(delegate.getJoinSelect(eq(conf), any(TupleExpr.class), any(TupleExpr.class))).thenReturn(0.25);
+        final CachingSelectivityEvalDAO<RdfCloudTripleStoreConfiguration> dao = new CachingSelectivityEvalDAO<>(delegate, 60000, 100);
+
+        dao.getJoinSelect(conf, pattern("urn:worksAt"), pattern("urn:livesIn"));
+        dao.getJoinSelect(conf, pattern("urn:livesIn"), pattern("urn:worksAt"));
+
+        verify(delegate, times(2)).getJoinSelect(eq(conf), any(TupleExpr.class), any(TupleExpr.class));
+    }
+
+    @Test
+    public void getJoinSelect_perAuthorizations() throws Exception {
+        final RdfCloudTripleStoreConfiguration otherConf = mock(RdfCloudTripleStoreConfiguration.class);
+        when(otherConf.getAuths()).thenReturn(new String[] { "V" });
+        when(delegate.getJoinSelect(eq(conf), any(TupleExpr.class), any(TupleExpr.class))).thenReturn(0.25);
+        when(delegate.getJoinSelect(eq(otherConf), any(TupleExpr.class), any(TupleExpr.class))).thenReturn(0.5);
+        final CachingSelectivityEvalDAO<RdfCloudTripleStoreConfiguration> dao = new CachingSelectivityEvalDAO<>(delegate, 60000, 100);
+
+        assertEquals(0.25, dao.getJoinSelect(conf, pattern("urn:worksAt"), pattern("urn:livesIn")), 0.0);
+        assertEquals(0.5, dao.getJoinSelect(otherConf, pattern("urn:worksAt"), pattern("urn:livesIn")), 0.0);
+    }
+
+    @Test
+    public void getCardinalityAndTableSize_cached() throws Exception {
+        when(delegate.getCardinality(eq(conf), any(StatementPattern.class))).thenReturn(42L);
+        when(delegate.getTableSize(conf)).thenReturn(1000);
+        final CachingSelectivityEvalDAO<RdfCloudTripleStoreConfiguration> dao = new CachingSelectivityEvalDAO<>(delegate, 60000, 100);
+
+        assertEquals(42L, dao.getCardinality(conf, pattern("urn:worksAt")));
+        assertEquals(42L, dao.getCardinality(conf, pattern("urn:worksAt")));
+        assertEquals(1000, dao.getTableSize(conf));
+        assertEquals(1000, dao.getTableSize(conf));
+
+        verify(delegate, times(1)).getCardinality(eq(conf), any(StatementPattern.class));
+        verify(delegate, times(1)).getTableSize(conf);
+    }
+
+    @Test
+    public void invalidateAll() throws Exception {
+        when(delegate.getTableSize(conf)).thenReturn(1000);
+        final CachingSelectivityEvalDAO<RdfCloudTripleStoreConfiguration> dao = new CachingSelectivityEvalDAO<>(delegate, 60000, 100);
+
+        dao.getTableSize(conf);
+        dao.invalidateAll();
+        dao.getTableSize(conf);
+
+        verify(delegate, times(2)).getTableSize(conf);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failuresAreRethrown() throws Exception {
+        when(delegate.getTableSize(conf)).thenThrow(new IllegalStateException("no table"));
+        final CachingSelectivityEvalDAO<RdfCloudTripleStoreConfiguration> dao = new CachingSelectivityEvalDAO<>(delegate, 60000, 100);
+        dao.getTableSize(conf);
+    }
+
+    private static StatementPattern pattern(final String predicate) {
+        return new StatementPattern(new Var("s"), new Var("p", VF.createIRI(predicate)), new Var("o"));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.persist.query;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link BindingBatch}.
+ */
+public class BindingBatchTest {
+
+    @Test
+    public void mergesBindingsOfTheSameProbe() {
+        final RyaIRI predicate = new RyaIRI("urn:test#pred");
+        final BindingSet bs1 = binding("1");
+        final BindingSet bs2 = binding("2");
+        final BindingSet bs3 = binding("3");
+
+        final BindingBatch batch = BindingBatch.builder()
+                .add(new RyaStatement(new RyaIRI("urn:test#a"), predicate, null), bs1)
+                .add(new RyaStatement(new RyaIRI("urn:test#b"), predicate, null), bs2)
+                // a different timestamp does not make a different probe
+                .add(new RyaStatement(new RyaIRI("urn:test#a"), predicate, null), bs3)
+                .build();
+
+        assertEquals(2, batch.size());
+        assertEquals(3, batch.getNumBindings());
+        assertEquals(new RyaIRI("urn:test#a"), batch.getProbe(0).getSubject());
+        assertEquals(Arrays.asList(bs1, bs3), batch.getBindings(0));
+        assertEquals(Arrays.asList(bs2), batch.getBindings(1));
+        assertEquals(3, batch.toEntries().size());
+    }
+
+    private static BindingSet binding(final String value) {
+        final MapBindingSet bs = new MapBindingSet();
+        bs.addBinding("x", SimpleValueFactory.getInstance().createLiteral(value));
+        return bs;
+    }
+}
@@ -0,0 +1,182 @@
+package org.apache.rya.api.persist.query.join;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.query.RyaQueryEngine;
+import org.apache.rya.api.query.strategy.wholerow.MockRdfConfiguration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the methods of {@link HashJoin}.
+ */
+public class HashJoinTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final RyaIRI PRED_1 = new RyaIRI("urn:pred1");
+    private static final RyaIRI PRED_2 = new RyaIRI("urn:pred2");
+    private static final RyaIRI PRED_3 = new RyaIRI("urn:pred3");
+
+    private RyaQueryEngine<RdfCloudTripleStoreConfiguration> queryEngine;
+    private MockRdfConfiguration conf;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        queryEngine = mock(RyaQueryEngine.class);
+        conf = new MockRdfConfiguration();
+        conf.set(HashJoin.CONF_SPILL_DIR, tempFolder.getRoot().getAbsolutePath());
+
+        final List<RyaStatement> statements = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final RyaIRI subject = new RyaIRI("urn:subj" + i);
+            final RyaType object = new RyaType("obj" + i);
+            statements.add(new RyaStatement(subject, PRED_1, object));
+            if (i % 2 == 0) {
+                statements.add(new RyaStatement(subject, PRED_2, object));
+            }
+            if (i % 3 == 0) {
+                statements.add(new RyaStatement(subject, PRED_3, object));
+            }
+        }
+
+        // Answer every query with the statements that match its predicate and optional object.
+        when(queryEngine.query(any(RyaStatement.class), any(RdfCloudTripleStoreConfiguration.class))).thenAnswer(invocation -> {
+            final RyaStatement query = (RyaStatement) invocation.getArguments()[0];
+            final List<RyaStatement> results = new ArrayList<>();
+            for (final RyaStatement statement : statements) {
+                if (statement.getPredicate().equals(query.getPredicate())
+                        && (query.getObject() == null || statement.getObject().equals(query.getObject()))) {
+                    results.add(statement);
+                }
+            }
+            return new CloseableIteratorIteration<RyaStatement, RyaDAOException>(results.iterator());
+        });
+    }
+
+    @Test
+    public void joinPredicates_inMemory() throws Exception {
+        final HashJoin<RdfCloudTripleStoreConfiguration> join = new HashJoin<>(queryEngine);
+        final Set<Map.Entry<RyaIRI, RyaType>> results = new HashSet<>();
+        for (final RyaStatement statement : collect(join.join(conf, PRED_1, PRED_2, PRED_3))) {
+            results.add(new AbstractMap.SimpleEntry<>(statement.getSubject(), statement.getObject()));
+        }
+
+        final Set<Map.Entry<RyaIRI, RyaType>> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i += 6) {
+            expected.add(new AbstractMap.SimpleEntry<>(new RyaIRI("urn:subj" + i), new RyaType("obj" + i)));
+        }
+        assertEquals(expected, results);
+    }
+
+    @Test
+    public void joinPredicates_spillToDisk() throws Exception {
+        conf.setLong(HashJoin.CONF_MEMORY_BUDGET, 1024);
+        conf.setInt(HashJoin.CONF_SPILL_PARTITIONS, 4);
+
+        final HashJoin<RdfCloudTripleStoreConfiguration> join = new HashJoin<>(queryEngine);
+        final Set<Map.Entry<RyaIRI, RyaType>> results = new HashSet<>();
+        for (final RyaStatement statement : collect(join.join(conf, PRED_1, PRED_2, PRED_3))) {
+            results.add(new AbstractMap.SimpleEntry<>(statement.getSubject(), statement.getObject()));
+        }
+
+        final Set<Map.Entry<RyaIRI, RyaType>> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i += 6) {
+            expected.add(new AbstractMap.SimpleEntry<>(new RyaIRI("urn:subj" + i), new RyaType("obj" + i)));
+        }
+        assertEquals(expected, results);
+
+        // The spill files are removed once the results have been read.
+        assertEquals(0, tempFolder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void joinPredicates_spillStreamsProbeSide() throws Exception {
+        conf.setLong(HashJoin.CONF_MEMORY_BUDGET, 1024);
+        conf.setInt(HashJoin.CONF_SPILL_PARTITIONS, 4);
+
+        final HashJoin<RdfCloudTripleStoreConfiguration> join = new HashJoin<>(queryEngine);
+        final CloseableIteration<RyaStatement, RyaDAOException> results = join.join(conf, PRED_1, PRED_2, PRED_3);
+        try {
+            assertTrue(results.hasNext());
+
+            // Only the build side sources are spilled, the probe side is the third one.
+            final File[] spillDirs = tempFolder.getRoot().listFiles();
+            assertEquals(1, spillDirs.length);
+            final Set<String> sources = new HashSet<>();
+            for (final File file : spillDirs[0].listFiles()) {
+                sources.add(file.getName().substring(0, file.getName().indexOf("-part-")));
+            }
+            assertEquals(new HashSet<>(Arrays.asList("source-0", "source-1")), sources);
+        } finally {
+            results.close();
+        }
+        assertEquals(0, tempFolder.getRoot().listFiles().length);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void joinPredicateObjects() throws Exception {
+        final HashJoin<RdfCloudTripleStoreConfiguration> join = new HashJoin<>(queryEngine);
+        final Map.Entry<RyaIRI, RyaType> predObj1 = new AbstractMap.SimpleEntry<>(PRED_1, new RyaType("obj0"));
+        final Map.Entry<RyaIRI, RyaType> predObj2 = new AbstractMap.SimpleEntry<>(PRED_2, new RyaType("obj0"));
+
+        final List<RyaIRI> results = collect(join.join(conf, predObj1, predObj2));
+        assertEquals(Arrays.asList(new RyaIRI("urn:subj0")), results);
+    }
+
+    private static <T> List<T> collect(final CloseableIteration<T, RyaDAOException> iteration) throws RyaDAOException {
+        final List<T> results = new ArrayList<>();
+        try {
+            while (iteration.hasNext()) {
+                results.add(iteration.next());
+            }
+        } finally {
+            iteration.close();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.api.resolver.triple.dictionary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.rya.api.RdfCloudTripleStoreConstants.TABLE_LAYOUT;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.resolver.triple.TripleRow;
+import org.apache.rya.api.resolver.triple.TripleRowResolverException;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link DictionaryTripleResolver}.
+ */
+public class DictionaryTripleResolverTest {
+
+    private final RyaIRI subject = new RyaIRI("urn:test#subject");
+    private final RyaIRI predicate = new RyaIRI("urn:test#predicate");
+    private final RyaIRI context = new RyaIRI("urn:test#context");
+
+    @Test
+    public void serializeAndDeserialize() throws Exception {
+        final InMemoryTermDictionary dictionary = new InMemoryTermDictionary();
+        final DictionaryTripleResolver resolver = new DictionaryTripleResolver(dictionary);
+        final RyaStatement statement = statement(new RyaType("a plain literal"));
+
+        final Map<TABLE_LAYOUT, TripleRow> rows = resolver.serialize(statement);
+        for (final TABLE_LAYOUT layout : Arrays.asList(TABLE_LAYOUT.SPO, TABLE_LAYOUT.PO, TABLE_LAYOUT.OSP)) {
+            final RyaStatement deserialized = resolver.deserialize(layout, rows.get(layout));
+            assertEquals(statement, deserialized);
+        }
+
+        // The rows only hold the IDs of the terms.
+        final String spoRow = new String(rows.get(TABLE_LAYOUT.SPO).getRow(), StandardCharsets.UTF_8);
+        assertFalse(spoRow.contains("urn:test#subject"));
+        assertTrue(spoRow.startsWith(TermIds.idOf(subject)));
+        assertEquals(3, dictionary.stored.size());
+    }
+
+    @Test
+    public void inlinedObjectIsNotRegistered() throws Exception {
+        final InMemoryTermDictionary dictionary = new InMemoryTermDictionary();
+        final DictionaryTripleResolver resolver = new DictionaryTripleResolver(dictionary);
+        final RyaStatement statement = statement(new RyaType(XMLSchema.INTEGER, "42"));
+
+        final Map<TABLE_LAYOUT, TripleRow> rows = resolver.serialize(statement);
+        assertEquals(statement, resolver.deserialize(TABLE_LAYOUT.OSP, rows.get(TABLE_LAYOUT.OSP)));
+        assertEquals(2, dictionary.stored.size());
+    }
+
+    @Test
+    public void batchDeserializeResolvesOnce() throws Exception {
+        final InMemoryTermDictionary dictionary = new InMemoryTermDictionary(0);
+        final DictionaryTripleResolver resolver = new DictionaryTripleResolver(dictionary);
+
+        final List<RyaStatement> statements = new ArrayList<>();
+        final List<TripleRow> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final RyaStatement statement = statement(new RyaIRI("urn:test#object" + i));
+            statements.add(statement);
+            rows.add(resolver.serialize(statement).get(TABLE_LAYOUT.PO));
+        }
+
+        dictionary.reads = 0;
+        assertEquals(statements, resolver.deserialize(TABLE_LAYOUT.PO, rows));
+        assertEquals(1, dictionary.reads);
+    }
+
+    @Test(expected = TripleRowResolverException.class)
+    public void missingTerm() throws Exception {
+        final InMemoryTermDictionary dictionary = new InMemoryTermDictionary(0);
+        final DictionaryTripleResolver resolver = new DictionaryTripleResolver(dictionary);
+        final TripleRow row = resolver.serialize(statement(new RyaType("literal"))).get(TABLE_LAYOUT.SPO);
+
+        dictionary.stored.clear();
+        resolver.deserialize(TABLE_LAYOUT.SPO, row);
+    }
+
+    @Test
+    public void idsAreStable() throws Exception {
+        assertEquals(TermIds.idOf(new RyaIRI("urn:test#subject")), TermIds.idOf(subject));
+        assertFalse(TermIds.idOf(new RyaType("urn:test#subject")).equals(TermIds.idOf(subject)));
+        assertTrue(TermIds.isInlined(new RyaType(XMLSchema.DOUBLE, "1.5")));
+        assertFalse(TermIds.isInlined(new RyaType(XMLSchema.STRING, "1.5")));
+    }
+
+    @SuppressWarnings("deprecation")
+    private RyaStatement statement(final RyaType object) {
+        return new RyaStatement(subject, predicate, object, context, null, new byte[0], null, 100L);
+    }
+
+    /**
+     * Keeps the serialized terms in a map and counts how often it is read.
+     */
+    private static class InMemoryTermDictionary extends AbstractTermDictionary {
+        private final Map<String, byte[]> stored = new HashMap<>();
+        private int reads = 0;
+
+        public InMemoryTermDictionary() {
+            this(1000);
+        }
+
+        public InMemoryTermDictionary(final long cacheSize) {
+            super(cacheSize);
+        }
+
+        @Override
+        protected void writeTerms(final Map<String, byte[]> serializedTerms, final byte[] columnVisibility) {
+            assertArrayEquals(new byte[0], columnVisibility);
+            stored.putAll(serializedTerms);
+        }
+
+        @Override
+        protected Map<String, byte[]> readTerms(final Collection<String> ids) {
+            reads++;
+            final Map<String, byte[]> found = new HashMap<>();
+            for (final String id : ids) {
+                if (stored.containsKey(id)) {
+                    found.put(id, stored.get(id));
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
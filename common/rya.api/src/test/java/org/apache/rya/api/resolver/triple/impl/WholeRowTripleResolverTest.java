@@ -25,8 +25,10 @@ import junit.framework.TestCase;
 import org.apache.rya.api.RdfCloudTripleStoreConstants;
 import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaType;
 import org.apache.rya.api.resolver.triple.TripleRow;
 import org.apache.rya.api.resolver.triple.TripleRowRegex;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
 
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -124,4 +126,42 @@ public class WholeRowTripleResolverTest extends TestCase {
         assertEquals(stmtContext, deserialize);
     }
 
+    public void testLazyDeserialize() throws Exception {
+        final WholeRowTripleResolver lazyResolver = new WholeRowTripleResolver(true);
+        RyaIRI subj = new RyaIRI("urn:test#1234");
+        RyaIRI pred = new RyaIRI("urn:test#pred");
+        RyaType obj = new RyaType(XMLSchema.INTEGER, "10");
+        RyaIRI cntxt = new RyaIRI("urn:test#cntxt");
+        final RyaStatement stmt = new RyaStatement(subj, pred, obj, cntxt, null, null, null, 100l);
+
+        Map<RdfCloudTripleStoreConstants.TABLE_LAYOUT, TripleRow> serialize = lazyResolver.serialize(stmt);
+        for (RdfCloudTripleStoreConstants.TABLE_LAYOUT layout : RdfCloudTripleStoreConstants.TABLE_LAYOUT.values()) {
+            RyaStatement deserialize = lazyResolver.deserialize(layout, serialize.get(layout));
+            assertTrue(deserialize instanceof LazyRyaStatement);
+            assertEquals(subj, deserialize.getSubject());
+            assertEquals(pred, deserialize.getPredicate());
+            assertEquals(obj, deserialize.getObject());
+            assertEquals(stmt, ((LazyRyaStatement) deserialize).toRyaStatement());
+            assertEquals(tripleResolver.deserialize(layout, serialize.get(layout)), ((LazyRyaStatement) deserialize).toRyaStatement());
+        }
+    }
+
+    public void testLazyEqualsEager() throws Exception {
+        final WholeRowTripleResolver lazyResolver = new WholeRowTripleResolver(true);
+        final RyaStatement stmt = new RyaStatement(new RyaIRI("urn:test#1234"), new RyaIRI("urn:test#pred"),
+                new RyaType(XMLSchema.INTEGER, "10"), new RyaIRI("urn:test#cntxt"), null, null, null, 100l);
+
+        Map<RdfCloudTripleStoreConstants.TABLE_LAYOUT, TripleRow> serialize = lazyResolver.serialize(stmt);
+        for (RdfCloudTripleStoreConstants.TABLE_LAYOUT layout : RdfCloudTripleStoreConstants.TABLE_LAYOUT.values()) {
+            // Nothing has been decoded before the comparisons.
+            RyaStatement lazy = lazyResolver.deserialize(layout, serialize.get(layout));
+            assertEquals(stmt, lazy);
+            lazy = lazyResolver.deserialize(layout, serialize.get(layout));
+            assertEquals(lazy, stmt);
+            lazy = lazyResolver.deserialize(layout, serialize.get(layout));
+            assertEquals(stmt.hashCode(), lazy.hashCode());
+            assertEquals(lazy, lazyResolver.deserialize(layout, serialize.get(layout)));
+        }
+    }
+
 }
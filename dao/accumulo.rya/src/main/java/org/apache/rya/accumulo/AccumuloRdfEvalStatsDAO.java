@@ -21,6 +21,7 @@ package org.apache.rya.accumulo;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.rya.api.RdfCloudTripleStoreConstants.DELIM;
 import static org.apache.rya.api.RdfCloudTripleStoreConstants.EMPTY_TEXT;
+import static org.apache.rya.api.RdfCloudTripleStoreConstants.OBJ_CF_TXT;
 import static org.apache.rya.api.RdfCloudTripleStoreConstants.PREDOBJECT_CF_TXT;
 import static org.apache.rya.api.RdfCloudTripleStoreConstants.PRED_CF_TXT;
 import static org.apache.rya.api.RdfCloudTripleStoreConstants.SUBJECTOBJECT_CF_TXT;
@@ -28,11 +29,17 @@ import static org.apache.rya.api.RdfCloudTripleStoreConstants.SUBJECTPRED_CF_TXT
 import static org.apache.rya.api.RdfCloudTripleStoreConstants.SUBJECT_CF_TXT;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.Connector;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.admin.TableOperations;
@@ -41,6 +48,7 @@ import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.hadoop.io.Text;
 import org.apache.rya.api.layout.TableLayoutStrategy;
+import org.apache.rya.api.persist.CardinalityKey;
 import org.apache.rya.api.persist.RdfDAOException;
 import org.apache.rya.api.persist.RdfEvalStatsDAO;
 import org.eclipse.rdf4j.model.Resource;
@@ -120,36 +128,14 @@ public class AccumuloRdfEvalStatsDAO implements RdfEvalStatsDAO<AccumuloRdfConfi
             final RdfEvalStatsDAO.CARDINALITY_OF card, final List<Value> val,
             final Resource context) throws RdfDAOException {
         try {
-            final Authorizations authorizations = conf.getAuthorizations();
-            final Scanner scanner = connector.createScanner(tableLayoutStrategy.getEval(), authorizations);
-            Text cfTxt = null;
-            if (CARDINALITY_OF.SUBJECT.equals(card)) {
-                cfTxt = SUBJECT_CF_TXT;
-            } else if (CARDINALITY_OF.PREDICATE.equals(card)) {
-                cfTxt = PRED_CF_TXT;
-            } else if (CARDINALITY_OF.OBJECT.equals(card)) {
-//                cfTxt = OBJ_CF_TXT;     //TODO: How do we do object cardinality
+            final Text cfTxt = getColumnFamily(card);
+            if (cfTxt == null) {
                 return Double.MAX_VALUE;
-            } else if (CARDINALITY_OF.SUBJECTOBJECT.equals(card)) {
-                cfTxt = SUBJECTOBJECT_CF_TXT;
-            } else if (CARDINALITY_OF.SUBJECTPREDICATE.equals(card)) {
-                cfTxt = SUBJECTPRED_CF_TXT;
-            } else if (CARDINALITY_OF.PREDICATEOBJECT.equals(card)) {
-                cfTxt = PREDOBJECT_CF_TXT;
-            } else {
-                throw new IllegalArgumentException("Not right Cardinality[" + card + "]");
-            }
-            Text cq = EMPTY_TEXT;
-            if (context != null) {
-                cq = new Text(context.stringValue().getBytes(StandardCharsets.UTF_8));
-            }
-            scanner.fetchColumn(cfTxt, cq);
-            final Iterator<Value> vals = val.iterator();
-            String compositeIndex = vals.next().stringValue();
-            while (vals.hasNext()){
-                compositeIndex += DELIM + vals.next().stringValue();
             }
-            scanner.setRange(new Range(new Text(compositeIndex.getBytes(StandardCharsets.UTF_8))));
+            final Authorizations authorizations = conf.getAuthorizations();
+            final Scanner scanner = connector.createScanner(tableLayoutStrategy.getEval(), authorizations);
+            scanner.fetchColumn(cfTxt, getColumnQualifier(context));
+            scanner.setRange(new Range(getRow(val)));
             final Iterator<Map.Entry<Key, org.apache.accumulo.core.data.Value>> iter = scanner.iterator();
             if (iter.hasNext()) {
                 return Double.parseDouble(new String(iter.next().getValue().get(), StandardCharsets.UTF_8));
@@ -159,7 +145,108 @@ public class AccumuloRdfEvalStatsDAO implements RdfEvalStatsDAO<AccumuloRdfConfi
         }
 
         //default
-        return -1;
+        return getMissingCardinality(card);
+    }
+
+    /**
+     * Reads all of the requested cardinalities from the eval table with a single {@link BatchScanner}.
+     */
+    @Override
+    public Map<CardinalityKey, Double> getCardinalities(final AccumuloRdfConfiguration conf,
+            final Collection<CardinalityKey> keys) throws RdfDAOException {
+        final Map<CardinalityKey, Double> cardinalities = new HashMap<>();
+        final Map<Key, List<CardinalityKey>> lookups = new HashMap<>();
+        final Set<Range> ranges = new HashSet<>();
+        for (final CardinalityKey key : keys) {
+            final Text cfTxt = getColumnFamily(key.getCard());
+            if (cfTxt == null) {
+                cardinalities.put(key, Double.MAX_VALUE);
+                continue;
+            }
+            // The missing value unless it is found below.
+            cardinalities.put(key, getMissingCardinality(key.getCard()));
+            final Text row = getRow(key.getValues());
+            final Key column = new Key(row, cfTxt, getColumnQualifier(key.getContext()));
+            lookups.computeIfAbsent(column, k -> new ArrayList<>()).add(key);
+            ranges.add(new Range(row));
+        }
+        if (ranges.isEmpty()) {
+            return cardinalities;
+        }
+
+        BatchScanner scanner = null;
+        try {
+            scanner = connector.createBatchScanner(tableLayoutStrategy.getEval(), conf.getAuthorizations(), conf.getNumThreads());
+            for (final Key column : lookups.keySet()) {
+                scanner.fetchColumn(column.getColumnFamily(), column.getColumnQualifier());
+            }
+            scanner.setRanges(ranges);
+            for (final Map.Entry<Key, org.apache.accumulo.core.data.Value> entry : scanner) {
+                final Key found = entry.getKey();
+                final List<CardinalityKey> matches = lookups.remove(
+                        new Key(found.getRow(), found.getColumnFamily(), found.getColumnQualifier()));
+                if (matches != null) {
+                    final double cardinality = Double.parseDouble(new String(entry.getValue().get(), StandardCharsets.UTF_8));
+                    for (final CardinalityKey match : matches) {
+                        cardinalities.put(match, cardinality);
+                    }
+                }
+            }
+        } catch (final Exception e) {
+            throw new RdfDAOException(e);
+        } finally {
+            if (scanner != null) {
+                scanner.close();
+            }
+        }
+        return cardinalities;
+    }
+
+    /**
+     * @return The column family a cardinality is stored under, or {@code null} if the
+     *   eval table does not hold that cardinality.
+     */
+    private static Text getColumnFamily(final CARDINALITY_OF card) {
+        if (CARDINALITY_OF.SUBJECT.equals(card)) {
+            return SUBJECT_CF_TXT;
+        } else if (CARDINALITY_OF.PREDICATE.equals(card)) {
+            return PRED_CF_TXT;
+        } else if (CARDINALITY_OF.OBJECT.equals(card)) {
+            return OBJ_CF_TXT;
+        } else if (CARDINALITY_OF.SUBJECTOBJECT.equals(card)) {
+            return SUBJECTOBJECT_CF_TXT;
+        } else if (CARDINALITY_OF.SUBJECTPREDICATE.equals(card)) {
+            return SUBJECTPRED_CF_TXT;
+        } else if (CARDINALITY_OF.PREDICATEOBJECT.equals(card)) {
+            return PREDOBJECT_CF_TXT;
+        }
+        throw new IllegalArgumentException("Not right Cardinality[" + card + "]");
+    }
+
+    /**
+     * Object counts are only present in eval tables that were written by a count job that
+     * counts objects, so a missing object row means the count is unknown rather than small.
+     *
+     * @return The cardinality reported when the eval table holds no row for a lookup.
+     */
+    private static double getMissingCardinality(final CARDINALITY_OF card) {
+        return CARDINALITY_OF.OBJECT.equals(card) ? Double.MAX_VALUE : -1;
+    }
+
+    private static Text getColumnQualifier(final Resource context) {
+        if (context != null) {
+            return new Text(context.stringValue().getBytes(StandardCharsets.UTF_8));
+        }
+        return EMPTY_TEXT;
+    }
+
+    private static Text getRow(final List<Value> val) {
+        final Iterator<Value> vals = val.iterator();
+        final StringBuilder compositeIndex = new StringBuilder(vals.next().stringValue());
+        while (vals.hasNext()){
+            compositeIndex.append(DELIM).append(vals.next().stringValue());
+        }
+        return new Text(compositeIndex.toString().getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
@@ -58,12 +58,14 @@ import org.apache.accumulo.core.security.Authorizations;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.io.Text;
+import org.apache.rya.accumulo.dictionary.AccumuloTermDictionary;
 import org.apache.rya.accumulo.experimental.AccumuloIndexer;
 import org.apache.rya.accumulo.query.AccumuloRyaQueryEngine;
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
 import org.apache.rya.api.RdfCloudTripleStoreConstants.TABLE_LAYOUT;
 import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.layout.DictionaryTableLayoutStrategy;
 import org.apache.rya.api.layout.TableLayoutStrategy;
 import org.apache.rya.api.persist.RyaDAO;
 import org.apache.rya.api.persist.RyaDAOException;
@@ -121,9 +123,10 @@ public class AccumuloRyaDAO implements RyaDAO<AccumuloRdfConfiguration>, RyaName
                 batchWriterConfig.setMaxWriteThreads(NUM_THREADS);
             }
 
+            if (conf.isDictionaryEncoding() && !(conf.getTableLayoutStrategy() instanceof DictionaryTableLayoutStrategy)) {
+                conf.setTableLayoutStrategy(new DictionaryTableLayoutStrategy(conf.getTablePrefix()));
+            }
             tableLayoutStrategy = conf.getTableLayoutStrategy();
-            ryaContext = RyaTripleContext.getInstance(conf);
-            ryaTableMutationsFactory = new RyaTableMutationsFactory(ryaContext);
 
             secondaryIndexers = conf.getAdditionalIndexers();
 
@@ -134,6 +137,9 @@ public class AccumuloRyaDAO implements RyaDAO<AccumuloRdfConfiguration>, RyaName
             AccumuloRdfUtils.createTableIfNotExist(tableOperations, tableLayoutStrategy.getPo());
             AccumuloRdfUtils.createTableIfNotExist(tableOperations, tableLayoutStrategy.getOsp());
             AccumuloRdfUtils.createTableIfNotExist(tableOperations, tableLayoutStrategy.getNs());
+            if (conf.isDictionaryEncoding()) {
+                AccumuloRdfUtils.createTableIfNotExist(tableOperations, ((DictionaryTableLayoutStrategy) tableLayoutStrategy).getTerms());
+            }
 
             for (final AccumuloIndexer index : secondaryIndexers) {
                 index.setConf(conf);
@@ -148,13 +154,22 @@ public class AccumuloRyaDAO implements RyaDAO<AccumuloRdfConfiguration>, RyaName
 
             bw_ns = mt_bw.getBatchWriter(tableLayoutStrategy.getNs());
 
+            if (conf.isDictionaryEncoding()) {
+                final String termsTable = ((DictionaryTableLayoutStrategy) tableLayoutStrategy).getTerms();
+                ryaContext = new RyaTripleContext(new AccumuloTermDictionary(connector, termsTable, conf.getAuthorizations(),
+                        conf.getNumThreads(), mt_bw.getBatchWriter(termsTable), conf.getDictionaryCacheSize()));
+            } else {
+                ryaContext = RyaTripleContext.getInstance(conf);
+            }
+            ryaTableMutationsFactory = new RyaTableMutationsFactory(ryaContext);
+
             for (final AccumuloIndexer index : secondaryIndexers) {
                index.setConnector(connector);
                index.setMultiTableBatchWriter(mt_bw);
                index.init();
             }
 
-            queryEngine = new AccumuloRyaQueryEngine(connector, conf);
+            queryEngine = new AccumuloRyaQueryEngine(connector, conf, ryaContext);
 
             checkVersion();
 
@@ -199,7 +214,11 @@ public class AccumuloRyaDAO implements RyaDAO<AccumuloRdfConfiguration>, RyaName
                 //query first
                 final CloseableIteration<RyaStatement, RyaDAOException> query = this.queryEngine.query(stmt, conf);
                 while (query.hasNext()) {
-                    deleteSingleRyaStatement(query.next());
+                    final RyaStatement stored = query.next();
+                    deleteSingleRyaStatement(stored);
+                    for (final AccumuloIndexer index : secondaryIndexers) {
+                        index.deleteStoredStatement(stored);
+                    }
                 }
 
                 for (final AccumuloIndexer index : secondaryIndexers) {
@@ -239,10 +258,9 @@ public class AccumuloRyaDAO implements RyaDAO<AccumuloRdfConfiguration>, RyaName
             bd_po.delete();
             bd_osp.delete();
 
-            //TODO indexers do not support delete-UnsupportedOperation Exception will be thrown
-//            for (AccumuloIndex index : secondaryIndexers) {
-//                index.dropGraph(graphs);
-//            }
+            for (final AccumuloIndexer index : secondaryIndexers) {
+                index.dropGraph(graphs);
+            }
 
         } catch (final Exception e) {
             throw new RyaDAOException(e);
@@ -303,6 +321,8 @@ public class AccumuloRyaDAO implements RyaDAO<AccumuloRdfConfiguration>, RyaName
         try {
             isInitialized.set(false);
             mt_bw.flush();
+            // indexers may read the triple tables while they flush, so they go before the writer is closed
+            flushIndexers();
 
             mt_bw.close();
         } catch (final Exception e) {
@@ -478,6 +498,11 @@ public class AccumuloRyaDAO implements RyaDAO<AccumuloRdfConfiguration>, RyaName
         this.queryEngine = queryEngine;
     }
 
+    @Override
+    public List<AccumuloIndexer> getSecondaryIndexers() {
+        return secondaryIndexers == null ? Collections.emptyList() : Collections.unmodifiableList(secondaryIndexers);
+    }
+
     @Override
     public void flush() throws RyaDAOException {
         try {
@@ -506,6 +531,9 @@ public class AccumuloRyaDAO implements RyaDAO<AccumuloRdfConfiguration>, RyaName
                 tableLayoutStrategy.getOsp(),
                 tableLayoutStrategy.getNs(),
                 tableLayoutStrategy.getEval());
+        if (tableLayoutStrategy instanceof DictionaryTableLayoutStrategy) {
+            tableNames.add(((DictionaryTableLayoutStrategy) tableLayoutStrategy).getTerms());
+        }
 
         // Additional Tables
         for (final AccumuloIndexer index : secondaryIndexers) {
@@ -91,7 +91,7 @@ public class RyaTableMutationsFactory {
          * as the named graphs?
          */
         try {
-            Map<TABLE_LAYOUT, TripleRow> rowMap = ryaContext.serializeTriple(stmt);
+            Map<TABLE_LAYOUT, TripleRow> rowMap = ryaContext.serializeTriple(stmt, false);
             TripleRow tripleRow = rowMap.get(TABLE_LAYOUT.SPO);
             spo_muts.add(deleteMutation(tripleRow));
             tripleRow = rowMap.get(TABLE_LAYOUT.PO);
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.dictionary;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+import org.apache.rya.api.resolver.triple.dictionary.AbstractTermDictionary;
+import org.apache.rya.api.resolver.triple.dictionary.TermDictionaryException;
+
+/**
+ * A term dictionary stored in an Accumulo table. Each term is a row keyed by its ID with the
+ * serialized term as the value. A term is written once for every visibility of the statements
+ * it appears in, so a user who may read a statement may also resolve its terms.
+ */
+public class AccumuloTermDictionary extends AbstractTermDictionary {
+
+    private static final Text TERM_COLUMN_FAMILY = new Text("term");
+    private static final Text EMPTY = new Text();
+
+    private final Connector connector;
+    private final String tableName;
+    private final Authorizations authorizations;
+    private final int numThreads;
+    private final BatchWriter writer;
+
+    /**
+     * @param connector - Connects to the Accumulo instance that holds the terms table. (not null)
+     * @param tableName - The name of the terms table. (not null)
+     * @param authorizations - The authorizations used to read terms. (not null)
+     * @param numThreads - The number of threads used to read terms. (> 0)
+     * @param writer - Writes to the terms table, or {@code null} if the dictionary is only read.
+     *   The writer is owned by the caller, which is also responsible for flushing it.
+     * @param cacheSize - The maximum number of terms that are cached. (> 0)
+     */
+    public AccumuloTermDictionary(final Connector connector, final String tableName, final Authorizations authorizations,
+            final int numThreads, final BatchWriter writer, final long cacheSize) {
+        super(cacheSize);
+        this.connector = requireNonNull(connector);
+        this.tableName = requireNonNull(tableName);
+        this.authorizations = requireNonNull(authorizations);
+        this.numThreads = numThreads;
+        this.writer = writer;
+    }
+
+    @Override
+    protected void writeTerms(final Map<String, byte[]> serializedTerms, final byte[] columnVisibility) throws TermDictionaryException {
+        if (writer == null) {
+            throw new TermDictionaryException("The term dictionary " + tableName + " is read only.");
+        }
+
+        final ColumnVisibility visibility = new ColumnVisibility(columnVisibility);
+        final List<Mutation> mutations = new ArrayList<>(serializedTerms.size());
+        for (final Map.Entry<String, byte[]> entry : serializedTerms.entrySet()) {
+            final Mutation mutation = new Mutation(entry.getKey());
+            mutation.put(TERM_COLUMN_FAMILY, EMPTY, visibility, new Value(entry.getValue()));
+            mutations.add(mutation);
+        }
+
+        try {
+            writer.addMutations(mutations);
+        } catch (final MutationsRejectedException e) {
+            throw new TermDictionaryException("Could not write the terms to " + tableName, e);
+        }
+    }
+
+    @Override
+    protected Map<String, byte[]> readTerms(final Collection<String> ids) throws TermDictionaryException {
+        final List<Range> ranges = new ArrayList<>(ids.size());
+        for (final String id : ids) {
+            ranges.add(Range.exact(id));
+        }
+
+        final Map<String, byte[]> serializedTerms = new HashMap<>();
+        BatchScanner scanner = null;
+        try {
+            scanner = connector.createBatchScanner(tableName, authorizations, numThreads);
+            scanner.setRanges(ranges);
+            scanner.fetchColumnFamily(TERM_COLUMN_FAMILY);
+            for (final Map.Entry<Key, Value> entry : scanner) {
+                serializedTerms.put(new String(entry.getKey().getRowData().toArray(), StandardCharsets.UTF_8), entry.getValue().get());
+            }
+        } catch (final TableNotFoundException e) {
+            throw new TermDictionaryException("Could not read the terms from " + tableName, e);
+        } finally {
+            if (scanner != null) {
+                scanner.close();
+            }
+        }
+        return serializedTerms;
+    }
+
+    @Override
+    public void flush() throws TermDictionaryException {
+        // The writer is shared with the triple tables and flushed along with them.
+    }
+
+    @Override
+    public void close() throws TermDictionaryException {
+        // Nothing to release, the writer is owned by the caller.
+    }
+}
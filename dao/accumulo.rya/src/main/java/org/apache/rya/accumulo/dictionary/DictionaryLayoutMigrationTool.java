@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.dictionary;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.rya.accumulo.AccumuloRdfConfiguration;
+import org.apache.rya.accumulo.AccumuloRyaDAO;
+import org.apache.rya.accumulo.query.AccumuloRyaQueryEngine;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.layout.DictionaryTableLayoutStrategy;
+import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.query.RyaQuery;
+import org.apache.rya.api.resolver.RyaContext;
+import org.apache.rya.api.resolver.RyaTypeResolverException;
+import org.calrissian.mango.collect.CloseableIterable;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+
+/**
+ * Copies the statements of a Rya instance from the whole row tables into the dictionary encoded
+ * tables that share the same table prefix. The whole row tables are left untouched, so they may
+ * be dropped once the migrated instance has been verified.
+ * <p>
+ * Statements the scan may not see would silently be left behind, so the tool refuses to run unless
+ * the configured authorizations are every authorization of the connecting user. The user itself
+ * must be granted every visibility label used by the instance.
+ * <p>
+ * Deleting statements never removes terms from the dictionary, so the tool can also delete the
+ * terms that no statement of the dictionary encoded tables uses any more.
+ */
+public class DictionaryLayoutMigrationTool {
+    private static final Log log = LogFactory.getLog(DictionaryLayoutMigrationTool.class);
+
+    private final Connector connector;
+    private final AccumuloRdfConfiguration conf;
+    private final int batchSize;
+
+    /**
+     * @param connector - Connects to the Accumulo instance that holds the Rya instance. (not null)
+     * @param conf - Configures the Rya instance that is migrated. (not null)
+     * @param batchSize - The number of statements written at a time. (> 0)
+     */
+    public DictionaryLayoutMigrationTool(final Connector connector, final AccumuloRdfConfiguration conf, final int batchSize) {
+        this.connector = requireNonNull(connector);
+        this.conf = requireNonNull(conf);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Copies every statement of the whole row spo table into the dictionary encoded tables.
+     *
+     * @return The number of statements that were copied.
+     * @throws RyaDAOException The statements could not be read or written, or the configured
+     *   authorizations do not include every authorization of the connecting user.
+     */
+    public long migrate() throws RyaDAOException {
+        checkAuthorizations();
+
+        final AccumuloRdfConfiguration sourceConf = new AccumuloRdfConfiguration(conf);
+        sourceConf.setDictionaryEncoding(false);
+        final AccumuloRdfConfiguration targetConf = new AccumuloRdfConfiguration(conf);
+        targetConf.setDictionaryEncoding(true);
+        targetConf.setAdditionalIndexers();
+        targetConf.setFlush(false);
+
+        final AccumuloRyaQueryEngine source = new AccumuloRyaQueryEngine(connector, sourceConf);
+        final AccumuloRyaDAO target = new AccumuloRyaDAO();
+        target.setConnector(connector);
+        target.setConf(targetConf);
+        target.init();
+
+        long count = 0;
+        try (CloseableIterable<RyaStatement> statements = source.query(RyaQuery.builder(new RyaStatement()).load(sourceConf).build())) {
+            final List<RyaStatement> batch = new ArrayList<>(batchSize);
+            for (final RyaStatement statement : statements) {
+                batch.add(statement);
+                if (batch.size() == batchSize) {
+                    count += write(target, batch);
+                    log.info("Migrated " + count + " statements to the dictionary encoded tables.");
+                }
+            }
+            count += write(target, batch);
+            target.flush();
+        } catch (final IOException e) {
+            throw new RyaDAOException(e);
+        } finally {
+            target.destroy();
+        }
+        return count;
+    }
+
+    /**
+     * Deletes the terms of the dictionary that no statement of the dictionary encoded tables uses.
+     * Every term is looked up in the triple tables, so this is meant to be run occasionally and while
+     * nothing writes to the instance: a running writer remembers the terms it has already written and
+     * would not write a deleted term again.
+     *
+     * @return The number of terms that were deleted.
+     * @throws RyaDAOException The tables could not be read or written, or the configured
+     *   authorizations do not include every authorization of the connecting user.
+     */
+    public long deleteUnreferencedTerms() throws RyaDAOException {
+        checkAuthorizations();
+
+        final AccumuloRdfConfiguration dictionaryConf = new AccumuloRdfConfiguration(conf);
+        dictionaryConf.setDictionaryEncoding(true);
+        dictionaryConf.setTableLayoutStrategy(new DictionaryTableLayoutStrategy(conf.getTablePrefix()));
+        final String termsTable = ((DictionaryTableLayoutStrategy) dictionaryConf.getTableLayoutStrategy()).getTerms();
+        final AccumuloRyaQueryEngine triples = new AccumuloRyaQueryEngine(connector, dictionaryConf);
+
+        long deleted = 0;
+        BatchWriter writer = null;
+        try {
+            writer = connector.createBatchWriter(termsTable, new BatchWriterConfig());
+            final Scanner scanner = connector.createScanner(termsTable, conf.getAuthorizations());
+            String unreferenced = null;
+            String checked = null;
+            for (final Map.Entry<Key, Value> entry : scanner) {
+                // a term has one entry for every visibility it was written with
+                final Key key = entry.getKey();
+                final String id = key.getRow().toString();
+                if (!id.equals(checked)) {
+                    checked = id;
+                    if (isReferenced(triples, dictionaryConf, RyaContext.getInstance().deserialize(entry.getValue().get()))) {
+                        unreferenced = null;
+                    } else {
+                        unreferenced = id;
+                        deleted++;
+                    }
+                }
+                if (id.equals(unreferenced)) {
+                    final Mutation mutation = new Mutation(key.getRow());
+                    mutation.putDelete(key.getColumnFamily(), key.getColumnQualifier(), key.getColumnVisibilityParsed());
+                    writer.addMutation(mutation);
+                }
+            }
+        } catch (final TableNotFoundException | MutationsRejectedException | RyaTypeResolverException e) {
+            throw new RyaDAOException("Could not delete the unreferenced terms of " + termsTable, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (final MutationsRejectedException e) {
+                    throw new RyaDAOException("Could not delete the unreferenced terms of " + termsTable, e);
+                }
+            }
+        }
+        log.info("Deleted " + deleted + " unreferenced terms from " + termsTable);
+        return deleted;
+    }
+
+    private static boolean isReferenced(final AccumuloRyaQueryEngine triples, final AccumuloRdfConfiguration conf,
+            final RyaType term) throws RyaDAOException {
+        final List<RyaStatement> patterns = new ArrayList<>(3);
+        if (term instanceof RyaIRI) {
+            patterns.add(new RyaStatement((RyaIRI) term, null, null));
+            patterns.add(new RyaStatement(null, (RyaIRI) term, null));
+        }
+        patterns.add(new RyaStatement(null, null, term));
+        for (final RyaStatement pattern : patterns) {
+            final CloseableIteration<RyaStatement, RyaDAOException> statements = triples.query(pattern, conf);
+            try {
+                if (statements.hasNext()) {
+                    return true;
+                }
+            } finally {
+                statements.close();
+            }
+        }
+        return false;
+    }
+
+    private void checkAuthorizations() throws RyaDAOException {
+        final Authorizations userAuths;
+        try {
+            userAuths = connector.securityOperations().getUserAuthorizations(connector.whoami());
+        } catch (AccumuloException | AccumuloSecurityException e) {
+            throw new RyaDAOException("Could not read the authorizations of " + connector.whoami(), e);
+        }
+
+        final Authorizations configuredAuths = conf.getAuthorizations();
+        final List<String> missing = new ArrayList<>();
+        for (final byte[] auth : userAuths) {
+            if (!configuredAuths.contains(auth)) {
+                missing.add(new String(auth, StandardCharsets.UTF_8));
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new RyaDAOException("The migration must scan with every authorization of " + connector.whoami()
+                    + " so that no statements are left behind, but " + missing + " are not configured.");
+        }
+    }
+
+    private static int write(final AccumuloRyaDAO target, final List<RyaStatement> batch) throws RyaDAOException {
+        final int size = batch.size();
+        if (size > 0) {
+            target.add(batch.iterator());
+            batch.clear();
+        }
+        return size;
+    }
+}
@@ -24,6 +24,7 @@ import java.io.IOException;
 import org.apache.accumulo.core.client.Connector;
 import org.apache.accumulo.core.client.MultiTableBatchWriter;
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.persist.index.RyaSecondaryIndexer;
 
 public interface AccumuloIndexer extends RyaSecondaryIndexer {
@@ -32,4 +33,15 @@ public interface AccumuloIndexer extends RyaSecondaryIndexer {
     public void destroy();
     public void purge(RdfCloudTripleStoreConfiguration configuration);
     public void dropAndDestroy();
+
+    /**
+     * Called with each stored statement, including its visibility, that a delete removes.
+     * {@link #deleteStatement(RyaStatement)} is still called with the pattern the delete was
+     * requested with. Does nothing by default.
+     *
+     * @param statement - A statement that was removed from the triple tables. (not null)
+     * @throws IOException The index could not be updated.
+     */
+    public default void deleteStoredStatement(final RyaStatement statement) throws IOException {
+    }
 }
@@ -22,11 +22,18 @@ package org.apache.rya.accumulo.query;
 import static org.apache.rya.api.RdfCloudTripleStoreUtils.layoutToTable;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.Connector;
@@ -42,6 +49,7 @@ import org.apache.accumulo.core.iterators.user.TimestampFilter;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.hadoop.io.Text;
 import org.apache.rya.accumulo.AccumuloRdfConfiguration;
+import org.apache.rya.accumulo.dictionary.AccumuloTermDictionary;
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
 import org.apache.rya.api.RdfCloudTripleStoreConstants;
 import org.apache.rya.api.RdfCloudTripleStoreConstants.TABLE_LAYOUT;
@@ -49,9 +57,11 @@ import org.apache.rya.api.domain.RyaRange;
 import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.domain.RyaType;
 import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.layout.DictionaryTableLayoutStrategy;
 import org.apache.rya.api.layout.TableLayoutStrategy;
 import org.apache.rya.api.persist.RyaDAOException;
 import org.apache.rya.api.persist.query.BatchRyaQuery;
+import org.apache.rya.api.persist.query.BindingBatch;
 import org.apache.rya.api.persist.query.RyaQuery;
 import org.apache.rya.api.persist.query.RyaQueryEngine;
 import org.apache.rya.api.query.strategy.ByteRange;
@@ -59,17 +69,21 @@ import org.apache.rya.api.query.strategy.TriplePatternStrategy;
 import org.apache.rya.api.resolver.RyaContext;
 import org.apache.rya.api.resolver.RyaTripleContext;
 import org.apache.rya.api.resolver.triple.TripleRowRegex;
+import org.apache.rya.api.resolver.triple.dictionary.DictionaryTripleResolver;
 import org.apache.rya.api.utils.CloseableIterableIteration;
+import org.calrissian.mango.collect.AbstractCloseableIterable;
 import org.calrissian.mango.collect.CloseableIterable;
-import org.calrissian.mango.collect.CloseableIterables;
 import org.calrissian.mango.collect.FluentCloseableIterable;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.common.iteration.FilterIteration;
+import org.eclipse.rdf4j.common.iteration.LimitIteration;
+import org.eclipse.rdf4j.common.iteration.UnionIteration;
 import org.eclipse.rdf4j.query.BindingSet;
 
-import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.Iterators;
+import com.google.common.collect.Iterables;
+import com.google.common.primitives.Ints;
 
 /**
  * Date: 7/17/12 Time: 9:28 AM
@@ -86,14 +100,54 @@ public class AccumuloRyaQueryEngine implements RyaQueryEngine<AccumuloRdfConfigu
     }
 
     public AccumuloRyaQueryEngine(Connector connector, AccumuloRdfConfiguration conf) {
+        this(connector, conf, createTripleContext(connector, conf));
+    }
+
+    /**
+     * @param connector - Connects to the Accumulo instance that holds the triple tables.
+     * @param conf - Configures the queries.
+     * @param ryaContext - Deserializes the rows read from the triple tables.
+     */
+    public AccumuloRyaQueryEngine(Connector connector, AccumuloRdfConfiguration conf, RyaTripleContext ryaContext) {
         this.connector = connector;
         this.configuration = conf;
-        ryaContext = RyaTripleContext.getInstance(conf);
+        this.ryaContext = ryaContext;
         keyValueToRyaStatementFunctionMap.put(TABLE_LAYOUT.SPO, new KeyValueToRyaStatementFunction(TABLE_LAYOUT.SPO, ryaContext));
         keyValueToRyaStatementFunctionMap.put(TABLE_LAYOUT.PO, new KeyValueToRyaStatementFunction(TABLE_LAYOUT.PO, ryaContext));
         keyValueToRyaStatementFunctionMap.put(TABLE_LAYOUT.OSP, new KeyValueToRyaStatementFunction(TABLE_LAYOUT.OSP, ryaContext));
     }
 
+    private static RyaTripleContext createTripleContext(Connector connector, AccumuloRdfConfiguration conf) {
+        if (!conf.isDictionaryEncoding()) {
+            return RyaTripleContext.getInstance(conf);
+        }
+        if (!(conf.getTableLayoutStrategy() instanceof DictionaryTableLayoutStrategy)) {
+            conf.setTableLayoutStrategy(new DictionaryTableLayoutStrategy(conf.getTablePrefix()));
+        }
+        String termsTable = ((DictionaryTableLayoutStrategy) conf.getTableLayoutStrategy()).getTerms();
+        return new RyaTripleContext(new AccumuloTermDictionary(connector, termsTable, conf.getAuthorizations(),
+                conf.getNumThreads(), null, conf.getDictionaryCacheSize()));
+    }
+
+    /**
+     * Turns the scanned rows into statements. Rows of dictionary encoded tables are decoded in batches
+     * so the terms of many rows are resolved together, and the term regular expressions the scanners could
+     * not evaluate are applied to the decoded statements.
+     */
+    private FluentCloseableIterable<RyaStatement> toStatements(CloseableIterable<Map.Entry<Key, Value>> keyValues, TABLE_LAYOUT layout,
+            TermRegexFilter regexFilter) {
+        if (isDictionaryEncoded()) {
+            FluentCloseableIterable<RyaStatement> statements = FluentCloseableIterable.from(new BatchDecodingCloseableIterable(keyValues,
+                    layout, (DictionaryTripleResolver) ryaContext.getTripleResolver(), BatchDecodingCloseableIterable.DEFAULT_BATCH_SIZE));
+            return regexFilter != null ? statements.filter(regexFilter) : statements;
+        }
+        return FluentCloseableIterable.from(keyValues).transform(keyValueToRyaStatementFunctionMap.get(layout));
+    }
+
+    private boolean isDictionaryEncoded() {
+        return ryaContext.getTripleResolver() instanceof DictionaryTripleResolver;
+    }
+
     @Override
     public CloseableIteration<RyaStatement, RyaDAOException> query(RyaStatement stmt, AccumuloRdfConfiguration conf)
             throws RyaDAOException {
@@ -114,6 +168,12 @@ public class AccumuloRyaQueryEngine implements RyaQueryEngine<AccumuloRdfConfigu
     @Override
     public CloseableIteration<? extends Map.Entry<RyaStatement, BindingSet>, RyaDAOException> queryWithBindingSet(
             Collection<Map.Entry<RyaStatement, BindingSet>> stmts, AccumuloRdfConfiguration conf) throws RyaDAOException {
+        return queryWithBindingBatch(BindingBatch.fromEntries(stmts), conf);
+    }
+
+    @Override
+    public CloseableIteration<? extends Map.Entry<RyaStatement, BindingSet>, RyaDAOException> queryWithBindingBatch(
+            BindingBatch batch, AccumuloRdfConfiguration conf) throws RyaDAOException {
         if (conf == null) {
             conf = configuration;
         }
@@ -123,114 +183,106 @@ public class AccumuloRyaQueryEngine implements RyaQueryEngine<AccumuloRdfConfigu
         Long maxResults = conf.getLimit();
         Integer maxRanges = conf.getMaxRangesForScanner();
         Integer numThreads = conf.getNumThreads();
+        Integer batchSize = conf.getBatchSize();
 
-        // TODO: cannot span multiple tables here
         try {
-            Collection<Range> ranges = new HashSet<Range>();
-            RangeBindingSetEntries rangeMap = new RangeBindingSetEntries();
-            TABLE_LAYOUT layout = null;
-            RyaIRI context = null;
-            TriplePatternStrategy strategy = null;
-            RyaIRI columnFamily = null;
-            boolean columnFamilySet = false;
-            for (Map.Entry<RyaStatement, BindingSet> stmtbs : stmts) {
-                RyaStatement stmt = stmtbs.getKey();
-                context = stmt.getContext();
-                // if all RyaStatements for this query have the same context,
-                // then set the columnFamily to be that value so that Scanner can fetch
-                // only that ColumnFamily. Otherwise set columnFamily to null so that
-                // Scanner will fetch all ColumnFamilies.
-                if (!columnFamilySet) {
-                    columnFamily = context;
-                    columnFamilySet = true;
-                } else if (columnFamily != null && !columnFamily.equals(context)) {
-                    columnFamily = null;
-                }
-                BindingSet bs = stmtbs.getValue();
-                strategy = ryaContext.retrieveStrategy(stmt);
+            // probes that resolve to different layouts are scanned from their own tables
+            Map<TABLE_LAYOUT, LayoutProbes> layoutProbes = new LinkedHashMap<TABLE_LAYOUT, LayoutProbes>();
+            for (int i = 0; i < batch.size(); i++) {
+                RyaStatement stmt = batch.getProbe(i);
+                RyaIRI context = stmt.getContext();
+                TriplePatternStrategy strategy = ryaContext.retrieveStrategy(stmt);
                 if (strategy == null) {
                     throw new IllegalArgumentException("TriplePattern[" + stmt + "] not supported");
                 }
 
                 Map.Entry<RdfCloudTripleStoreConstants.TABLE_LAYOUT, ByteRange> entry = strategy.defineRange(stmt.getSubject(),
-                        stmt.getPredicate(), stmt.getObject(), stmt.getContext(), conf);
+                        stmt.getPredicate(), stmt.getObject(), context, conf);
+                LayoutProbes group = layoutProbes.get(entry.getKey());
+                if (group == null) {
+                    group = new LayoutProbes(strategy);
+                    layoutProbes.put(entry.getKey(), group);
+                }
 
                 // use range to set scanner
                 // populate scanner based on authorizations, ttl
-                layout = entry.getKey();
                 ByteRange byteRange = entry.getValue();
                 Range range = new Range(new Text(byteRange.getStart()), new Text(byteRange.getEnd()));
-                Range rangeMapRange = range;
-                // if context != null, bind context info to Range so that
-                // ColumnFamily Keys returned by Scanner
-                // can be compared to ColumnFamily of start and stop Keys of
-                // Range -- important when querying for named
-                // graphs by requiring that Statements have same context Value
-                // as the Value specified in the BindingSet
+                Range routedRange = range;
+                // if context != null, bind context info to the Range used to route results so that
+                // the ColumnFamily of scanned Keys can be compared to the context of the probe -- important
+                // when querying for named graphs by requiring that Statements have same context Value
+                // as the Value specified in the BindingSet. The scanned Range has no Column bounds so that
+                // probes that only differ in their context do not scan the same rows twice.
                 if (context != null) {
                     byte[] contextBytes = context.getData().getBytes("UTF-8");
-                    rangeMapRange = range.bound(new Column(contextBytes, new byte[] { (byte) 0x00 }, new byte[] { (byte) 0x00 }),
+                    routedRange = range.bound(new Column(contextBytes, new byte[] { (byte) 0x00 }, new byte[] { (byte) 0x00 }),
                             new Column(contextBytes, new byte[] { (byte) 0xff }, new byte[] { (byte) 0xff }));
                 }
-                // ranges gets a Range that has no Column bounds, but
-                // rangeMap gets a Range that does have Column bounds
-                // If we inserted multiple Ranges with the same Row (but
-                // distinct Column bounds) into the Set ranges, we would get
-                // duplicate
-                // results when the Row is not exact. So RyaStatements that
-                // differ only in their context are all mapped to the same
-                // Range (with no Column bounds) for scanning purposes.
-                // However, context information is included in a Column that
-                // bounds the Range inserted into rangeMap. This is because
-                // in the class {@link RyaStatementBindingSetKeyValueIterator},
-                // the rangeMap is
-                // used to join the scan results with the BindingSets to produce
-                // the query results. The additional ColumnFamily info is
-                // required in this join
-                // process to allow for the Statement contexts to be compared
-                // with the BindingSet contexts
-                // See {@link RangeBindingSetEntries#containsKey}.
-                ranges.add(range);
-                rangeMap.put(rangeMapRange, bs);
+                group.add(i, range, routedRange, context);
             }
-            // no ranges. if strategy alone is null, it would be thrown in the loop above.
-            if (layout == null || strategy == null) {
-                return null;
+            if (layoutProbes.isEmpty()) {
+                return new EmptyIteration<Map.Entry<RyaStatement, BindingSet>, RyaDAOException>();
             }
+
             String regexSubject = conf.getRegexSubject();
             String regexPredicate = conf.getRegexPredicate();
             String regexObject = conf.getRegexObject();
-            TripleRowRegex tripleRowRegex = strategy.buildRegex(regexSubject, regexPredicate, regexObject, null, null);
-
-            String table = layoutToTable(layout, conf);
-            boolean useBatchScanner = ranges.size() > maxRanges;
-            RyaStatementBindingSetKeyValueIterator iterator = null;
-            if (useBatchScanner) {
-                ScannerBase scanner = connector.createBatchScanner(table, authorizations, numThreads);
-                ((BatchScanner) scanner).setRanges(ranges);
-                fillScanner(scanner, columnFamily, null, ttl, null, tripleRowRegex, conf);
-                iterator = new RyaStatementBindingSetKeyValueIterator(layout, ryaContext, scanner, rangeMap);
-            } else {
-                Scanner scannerBase = null;
-                Iterator<Map.Entry<Key, Value>>[] iters = new Iterator[ranges.size()];
-                int i = 0;
-                for (Range range : ranges) {
-                    scannerBase = connector.createScanner(table, authorizations);
-                    scannerBase.setRange(range);
-                    fillScanner(scannerBase, columnFamily, null, ttl, null, tripleRowRegex, conf);
-                    iters[i] = scannerBase.iterator();
-                    i++;
+            final TermRegexFilter regexFilter = isDictionaryEncoded() ? TermRegexFilter.create(regexSubject, regexPredicate, regexObject) : null;
+
+            List<CloseableIteration<Map.Entry<RyaStatement, BindingSet>, RyaDAOException>> iterators =
+                    new ArrayList<CloseableIteration<Map.Entry<RyaStatement, BindingSet>, RyaDAOException>>();
+            for (Map.Entry<TABLE_LAYOUT, LayoutProbes> entry : layoutProbes.entrySet()) {
+                final TABLE_LAYOUT layout = entry.getKey();
+                final LayoutProbes group = entry.getValue();
+                final TripleRowRegex tripleRowRegex = group.strategy.buildRegex(regexSubject, regexPredicate, regexObject, null, null);
+                final String table = layoutToTable(layout, conf);
+                final RyaIRI columnFamily = group.columnFamily;
+                final AccumuloRdfConfiguration fconf = conf;
+                final Long fttl = ttl;
+                final Authorizations fauths = authorizations;
+
+                // scanning the ranges in sorted order lets the router follow the scanned keys with a cursor
+                List<Range> ranges = new ArrayList<Range>(new TreeSet<Range>(group.ranges));
+                CloseableIterable<Map.Entry<Key, Value>> keyValues;
+                if (ranges.size() > maxRanges) {
+                    BatchScanner scanner = connector.createBatchScanner(table, authorizations, numThreads);
+                    scanner.setRanges(ranges);
+                    fillScanner(scanner, columnFamily, null, ttl, null, tripleRowRegex, conf);
+                    keyValues = new ScannerBaseCloseableIterable(scanner);
+                } else {
+                    keyValues = new ParallelRangeScanner(ranges, new ParallelRangeScanner.ScannerFactory() {
+                        @Override
+                        public Scanner createScanner(Range range) throws Exception {
+                            Scanner scanner = connector.createScanner(table, fauths);
+                            scanner.setRange(range);
+                            fillScanner(scanner, columnFamily, null, fttl, null, tripleRowRegex, fconf);
+                            return scanner;
+                        }
+                    }, numThreads, batchSize != null ? batchSize : 1000, true);
+                }
+                CloseableIteration<Map.Entry<RyaStatement, BindingSet>, RyaDAOException> results = new BindingBatchKeyValueIterator(layout,
+                        keyValues, new RangeRouter(group.routedRanges), Ints.toArray(group.probes), batch, ryaContext);
+                if (regexFilter != null) {
+                    results = new FilterIteration<Map.Entry<RyaStatement, BindingSet>, RyaDAOException>(results) {
+                        @Override
+                        protected boolean accept(Map.Entry<RyaStatement, BindingSet> result) {
+                            return regexFilter.apply(result.getKey());
+                        }
+                    };
                 }
-                iterator = new RyaStatementBindingSetKeyValueIterator(layout, Iterators.concat(iters), rangeMap, ryaContext);
+                iterators.add(results);
             }
+
+            CloseableIteration<Map.Entry<RyaStatement, BindingSet>, RyaDAOException> iterator = iterators.size() == 1 ?
+                    iterators.get(0) : new UnionIteration<Map.Entry<RyaStatement, BindingSet>, RyaDAOException>(iterators);
             if (maxResults != null) {
-                iterator.setMaxResults(maxResults);
+                iterator = new LimitIteration<Map.Entry<RyaStatement, BindingSet>, RyaDAOException>(iterator, maxResults);
             }
             return iterator;
         } catch (Exception e) {
             throw new RyaDAOException(e);
         }
-
     }
 
     @Override
@@ -311,8 +363,8 @@ public class AccumuloRyaQueryEngine implements RyaQueryEngine<AccumuloRdfConfigu
             }
             fillScanner(scanner, context, qualifier, ttl, currentTime, tripleRowRegex, ryaQuery.getConf());
 
-            FluentCloseableIterable<RyaStatement> results = FluentCloseableIterable.from(new ScannerBaseCloseableIterable(scanner))
-                    .transform(keyValueToRyaStatementFunctionMap.get(layout));
+            FluentCloseableIterable<RyaStatement> results = toStatements(new ScannerBaseCloseableIterable(scanner), layout,
+                    TermRegexFilter.create(regexSubject, regexPredicate, regexObject));
             if (maxResults != null) {
                 results = results.limit(maxResults.intValue());
             }
@@ -333,7 +385,6 @@ public class AccumuloRyaQueryEngine implements RyaQueryEngine<AccumuloRdfConfigu
         String[] auths = ryaQuery.getAuths();
         final Authorizations authorizations = auths != null ? new Authorizations(auths) : configuration.getAuthorizations();
         final Long ttl = ryaQuery.getTtl();
-        Long currentTime = ryaQuery.getCurrentTime();
         Long maxResults = ryaQuery.getMaxResults();
         Integer batchSize = ryaQuery.getBatchSize();
         Integer numQueryThreads = ryaQuery.getNumQueryThreads();
@@ -342,16 +393,14 @@ public class AccumuloRyaQueryEngine implements RyaQueryEngine<AccumuloRdfConfigu
         String regexObject = ryaQuery.getRegexObject();
         TableLayoutStrategy tableLayoutStrategy = configuration.getTableLayoutStrategy();
         int maxRanges = ryaQuery.getMaxRanges();
+        boolean preserveRangeOrder = ryaQuery.isPreserveRangeOrder();
 
-        // TODO: cannot span multiple tables here
         try {
-            Collection<Range> ranges = new HashSet<Range>();
-            TABLE_LAYOUT layout = null;
-            RyaIRI context = null;
-            TriplePatternStrategy strategy = null;
+            // statements that resolve to different layouts are scanned from their own tables, and statements
+            // with different contexts fetch their own column families
+            Map<List<Object>, LayoutRanges> layoutRanges = new LinkedHashMap<List<Object>, LayoutRanges>();
             for (RyaStatement stmt : stmts) {
-                context = stmt.getContext(); // TODO: This will be overwritten
-                strategy = ryaContext.retrieveStrategy(stmt);
+                TriplePatternStrategy strategy = ryaContext.retrieveStrategy(stmt);
                 if (strategy == null) {
                     throw new IllegalArgumentException("TriplePattern[" + stmt + "] not supported");
                 }
@@ -361,46 +410,62 @@ public class AccumuloRyaQueryEngine implements RyaQueryEngine<AccumuloRdfConfigu
 
                 // use range to set scanner
                 // populate scanner based on authorizations, ttl
-                layout = entry.getKey();
-                ByteRange byteRange = entry.getValue();
-                Range range = new Range(new Text(byteRange.getStart()), new Text(byteRange.getEnd()));
-                ranges.add(range);
+                TABLE_LAYOUT layout = entry.getKey();
+                List<Object> groupKey = Arrays.<Object>asList(layout, stmt.getContext());
+                LayoutRanges group = layoutRanges.get(groupKey);
+                if (group == null) {
+                    group = new LayoutRanges(layout, strategy, stmt.getContext());
+                    layoutRanges.put(groupKey, group);
+                }
+                group.add(entry.getValue());
             }
             // no ranges
-            if (layout == null || strategy == null)
+            if (layoutRanges.isEmpty())
                 throw new IllegalArgumentException("No table layout specified, or no statements.");
 
-            final TripleRowRegex tripleRowRegex = strategy.buildRegex(regexSubject, regexPredicate, regexObject, null, null);
-
-            final String table = layoutToTable(layout, tableLayoutStrategy);
-            boolean useBatchScanner = ranges.size() > maxRanges;
-            FluentCloseableIterable<RyaStatement> results = null;
-            if (useBatchScanner) {
-                BatchScanner scanner = connector.createBatchScanner(table, authorizations, numQueryThreads);
-                scanner.setRanges(ranges);
-                fillScanner(scanner, context, null, ttl, null, tripleRowRegex, ryaQuery.getConf());
-                results = FluentCloseableIterable.from(new ScannerBaseCloseableIterable(scanner))
-                        .transform(keyValueToRyaStatementFunctionMap.get(layout));
-            } else {
-                final RyaIRI fcontext = context;
+            final List<CloseableIterable<RyaStatement>> tableResults = new ArrayList<CloseableIterable<RyaStatement>>();
+            for (final LayoutRanges group : layoutRanges.values()) {
+                final TABLE_LAYOUT layout = group.layout;
+                final List<Range> ranges = new ArrayList<Range>(group.ranges);
+                final RyaIRI context = group.context;
                 final RdfCloudTripleStoreConfiguration fconf = ryaQuery.getConf();
-                FluentIterable<RyaStatement> fluent = FluentIterable.from(ranges)
-                        .transformAndConcat(new Function<Range, Iterable<Map.Entry<Key, Value>>>() {
-                            @Override
-                            public Iterable<Map.Entry<Key, Value>> apply(Range range) {
-                                try {
-                                    Scanner scanner = connector.createScanner(table, authorizations);
-                                    scanner.setRange(range);
-                                    fillScanner(scanner, fcontext, null, ttl, null, tripleRowRegex, fconf);
-                                    return scanner;
-                                } catch (Exception e) {
-                                    throw new RuntimeException(e);
-                                }
+                final TripleRowRegex tripleRowRegex = group.strategy.buildRegex(regexSubject, regexPredicate, regexObject, null, null);
+                final String table = layoutToTable(layout, tableLayoutStrategy);
+
+                CloseableIterable<Map.Entry<Key, Value>> keyValues;
+                if (useBatchScanner(ranges.size(), maxRanges, group.allNarrow, preserveRangeOrder)) {
+                    BatchScanner scanner = connector.createBatchScanner(table, authorizations, numQueryThreads);
+                    scanner.setRanges(ranges);
+                    fillScanner(scanner, context, null, ttl, null, tripleRowRegex, fconf);
+                    keyValues = new ScannerBaseCloseableIterable(scanner);
+                } else if (ranges.size() == 1) {
+                    Scanner scanner = connector.createScanner(table, authorizations);
+                    scanner.setRange(ranges.get(0));
+                    if (batchSize != null) {
+                        scanner.setBatchSize(batchSize);
+                    }
+                    fillScanner(scanner, context, null, ttl, null, tripleRowRegex, fconf);
+                    keyValues = new ScannerBaseCloseableIterable(scanner);
+                } else {
+                    final Integer scannerBatchSize = batchSize;
+                    keyValues = new ParallelRangeScanner(ranges, new ParallelRangeScanner.ScannerFactory() {
+                        @Override
+                        public Scanner createScanner(Range range) throws Exception {
+                            Scanner scanner = connector.createScanner(table, authorizations);
+                            scanner.setRange(range);
+                            if (scannerBatchSize != null) {
+                                scanner.setBatchSize(scannerBatchSize);
                             }
-                        }).transform(keyValueToRyaStatementFunctionMap.get(layout));
-
-                results = FluentCloseableIterable.from(CloseableIterables.wrap(fluent));
+                            fillScanner(scanner, context, null, ttl, null, tripleRowRegex, fconf);
+                            return scanner;
+                        }
+                    }, numQueryThreads != null ? numQueryThreads : 1, batchSize != null ? batchSize : 1000, preserveRangeOrder);
+                }
+                tableResults.add(toStatements(keyValues, layout, TermRegexFilter.create(regexSubject, regexPredicate, regexObject)));
             }
+
+            FluentCloseableIterable<RyaStatement> results = tableResults.size() == 1 ?
+                    FluentCloseableIterable.from(tableResults.get(0)) : FluentCloseableIterable.from(concat(tableResults));
             if (maxResults != null) {
                 results = results.limit(maxResults.intValue());
             }
@@ -410,6 +475,111 @@ public class AccumuloRyaQueryEngine implements RyaQueryEngine<AccumuloRdfConfigu
         }
     }
 
+    /**
+     * A {@link BatchScanner} fetches all of the ranges hosted by a tablet server in a single request, so it is
+     * cheaper than one {@link Scanner} per range when there are many ranges or when each range only holds a few
+     * rows. It returns results in no particular order, so it is never used when the range order must be preserved.
+     */
+    static boolean useBatchScanner(int numRanges, int maxRanges, boolean allNarrow, boolean preserveRangeOrder) {
+        if (preserveRangeOrder || numRanges <= 1) {
+            return false;
+        }
+        return numRanges > maxRanges || allNarrow;
+    }
+
+    /**
+     * Estimates whether a range only covers a few rows. A range whose start and end share two terms, such as
+     * the subject and predicate of a spo row, only differs in its last term.
+     */
+    static boolean isNarrow(ByteRange byteRange) {
+        byte[] start = byteRange.getStart();
+        byte[] end = byteRange.getEnd();
+        int sharedTerms = 0;
+        for (int i = 0; i < start.length && i < end.length && start[i] == end[i]; i++) {
+            if (start[i] == RdfCloudTripleStoreConstants.DELIM_BYTE) {
+                sharedTerms++;
+            }
+        }
+        return sharedTerms >= 2;
+    }
+
+    private static <T> CloseableIterable<T> concat(final List<CloseableIterable<T>> iterables) {
+        return new AbstractCloseableIterable<T>() {
+            @Override
+            protected void doClose() throws IOException {
+                IOException failure = null;
+                for (CloseableIterable<T> iterable : iterables) {
+                    try {
+                        iterable.close();
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+
+            @Override
+            protected Iterator<T> retrieveIterator() {
+                return Iterables.concat(iterables).iterator();
+            }
+        };
+    }
+
+    /**
+     * The probes of a binding batch that are scanned from the same table.
+     */
+    private static class LayoutProbes {
+        private final TriplePatternStrategy strategy;
+        private final Set<Range> ranges = new HashSet<Range>();
+        private final List<Range> routedRanges = new ArrayList<Range>();
+        private final List<Integer> probes = new ArrayList<Integer>();
+        private RyaIRI columnFamily = null;
+        private boolean columnFamilySet = false;
+
+        private LayoutProbes(TriplePatternStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        private void add(int probe, Range range, Range routedRange, RyaIRI context) {
+            // if all probes of this table have the same context, then only that ColumnFamily is fetched.
+            // Otherwise every ColumnFamily is fetched and the router compares the contexts.
+            if (!columnFamilySet) {
+                columnFamily = context;
+                columnFamilySet = true;
+            } else if (columnFamily != null && !columnFamily.equals(context)) {
+                columnFamily = null;
+            }
+            ranges.add(range);
+            routedRanges.add(routedRange);
+            probes.add(probe);
+        }
+    }
+
+    /**
+     * The ranges of a batch query that are scanned from the same table within the same context.
+     */
+    private static class LayoutRanges {
+        private final TABLE_LAYOUT layout;
+        private final TriplePatternStrategy strategy;
+        private final RyaIRI context;
+        // ordered so that results may be returned in the order the statements were given
+        private final Set<Range> ranges = new LinkedHashSet<Range>();
+        private boolean allNarrow = true;
+
+        private LayoutRanges(TABLE_LAYOUT layout, TriplePatternStrategy strategy, RyaIRI context) {
+            this.layout = layout;
+            this.strategy = strategy;
+            this.context = context;
+        }
+
+        private void add(ByteRange byteRange) {
+            ranges.add(new Range(new Text(byteRange.getStart()), new Text(byteRange.getEnd())));
+            allNarrow &= isNarrow(byteRange);
+        }
+    }
+
     protected void fillScanner(ScannerBase scanner, RyaIRI context, String qualifier, Long ttl, Long currentTime,
             TripleRowRegex tripleRowRegex, RdfCloudTripleStoreConfiguration conf) throws IOException {
         if (context != null && qualifier != null) {
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.rya.api.RdfCloudTripleStoreConstants.TABLE_LAYOUT;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.resolver.triple.TripleRow;
+import org.apache.rya.api.resolver.triple.TripleRowResolverException;
+import org.apache.rya.api.resolver.triple.dictionary.DictionaryTripleResolver;
+import org.calrissian.mango.collect.AbstractCloseableIterable;
+import org.calrissian.mango.collect.CloseableIterable;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
+
+/**
+ * Deserializes the rows of a dictionary encoded table in batches, so the terms of a whole
+ * batch are resolved with a single lookup against the term dictionary.
+ */
+public class BatchDecodingCloseableIterable extends AbstractCloseableIterable<RyaStatement> {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final CloseableIterable<Map.Entry<Key, Value>> keyValues;
+    private final TABLE_LAYOUT layout;
+    private final DictionaryTripleResolver resolver;
+    private final int batchSize;
+
+    public BatchDecodingCloseableIterable(final CloseableIterable<Map.Entry<Key, Value>> keyValues, final TABLE_LAYOUT layout,
+            final DictionaryTripleResolver resolver, final int batchSize) {
+        Preconditions.checkArgument(batchSize > 0, "The batch size must be positive.");
+        this.keyValues = Preconditions.checkNotNull(keyValues);
+        this.layout = Preconditions.checkNotNull(layout);
+        this.resolver = Preconditions.checkNotNull(resolver);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        keyValues.close();
+    }
+
+    @Override
+    protected Iterator<RyaStatement> retrieveIterator() {
+        final Iterator<List<Map.Entry<Key, Value>>> batches = Iterators.partition(keyValues.iterator(), batchSize);
+        return Iterators.concat(Iterators.transform(batches, new Function<List<Map.Entry<Key, Value>>, Iterator<RyaStatement>>() {
+            @Override
+            public Iterator<RyaStatement> apply(final List<Map.Entry<Key, Value>> batch) {
+                final List<TripleRow> rows = new ArrayList<>(batch.size());
+                for (final Map.Entry<Key, Value> entry : batch) {
+                    final Key key = entry.getKey();
+                    final Value value = entry.getValue();
+                    rows.add(new TripleRow(key.getRowData().toArray(),
+                            key.getColumnFamilyData().toArray(),
+                            key.getColumnQualifierData().toArray(),
+                            key.getTimestamp(),
+                            key.getColumnVisibilityData().toArray(),
+                            (value != null) ? value.get() : null));
+                }
+                try {
+                    return resolver.deserialize(layout, rows).iterator();
+                } catch (final TripleRowResolverException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.rya.api.RdfCloudTripleStoreConstants.TABLE_LAYOUT;
+import org.apache.rya.api.RdfCloudTripleStoreUtils;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.query.BindingBatch;
+import org.apache.rya.api.resolver.RyaTripleContext;
+import org.apache.rya.api.resolver.triple.TripleRow;
+import org.apache.rya.api.resolver.triple.TripleRowResolverException;
+import org.apache.rya.api.resolver.triple.dictionary.DictionaryTripleResolver;
+import org.calrissian.mango.collect.CloseableIterable;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.query.BindingSet;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Pairs the statements scanned for a {@link BindingBatch} with the bindings of the probes they matched.
+ * Each scanned key is routed to its probes by a {@link RangeRouter} and deserialized once, no matter
+ * how many bindings share those probes. The rows of dictionary encoded tables are deserialized in batches,
+ * so the terms of many rows are resolved with a single lookup against the term dictionary.
+ */
+public class BindingBatchKeyValueIterator implements CloseableIteration<Map.Entry<RyaStatement, BindingSet>, RyaDAOException> {
+    private final CloseableIterable<Map.Entry<Key, Value>> keyValues;
+    private Iterator<Map.Entry<Key, Value>> dataIterator;
+    private final TABLE_LAYOUT tableLayout;
+    private final RyaTripleContext ryaContext;
+    private final RangeRouter router;
+    private final int[] probes;
+    private final BindingBatch batch;
+    private final DictionaryTripleResolver dictionaryResolver;
+    private final int decodeBatchSize;
+
+    // the statements of the last batch of routed rows, and the ranges each of them was routed to
+    private final List<RyaStatement> decoded = new ArrayList<>();
+    private final List<int[]> decodedRoutes = new ArrayList<>();
+    private int decodedIndex;
+
+    private RyaStatement statement;
+    private int[] routed;
+    private int routedIndex;
+    private List<BindingSet> bindings;
+    private int bindingIndex;
+
+    /**
+     * @param tableLayout - The table that is scanned. (not null)
+     * @param keyValues - The scanned entries. (not null)
+     * @param router - Routes keys to the ranges it was built with. (not null)
+     * @param probes - The index within {@code batch} of the probe of each range the router was built with. (not null)
+     * @param batch - The probes and their bindings. (not null)
+     * @param ryaContext - Deserializes the scanned rows. (not null)
+     */
+    public BindingBatchKeyValueIterator(TABLE_LAYOUT tableLayout, CloseableIterable<Map.Entry<Key, Value>> keyValues, RangeRouter router,
+            int[] probes, BindingBatch batch, RyaTripleContext ryaContext) {
+        this.tableLayout = Preconditions.checkNotNull(tableLayout);
+        this.keyValues = Preconditions.checkNotNull(keyValues);
+        this.router = Preconditions.checkNotNull(router);
+        this.probes = Preconditions.checkNotNull(probes);
+        this.batch = Preconditions.checkNotNull(batch);
+        this.ryaContext = Preconditions.checkNotNull(ryaContext);
+        if (ryaContext.getTripleResolver() instanceof DictionaryTripleResolver) {
+            this.dictionaryResolver = (DictionaryTripleResolver) ryaContext.getTripleResolver();
+            this.decodeBatchSize = BatchDecodingCloseableIterable.DEFAULT_BATCH_SIZE;
+        } else {
+            this.dictionaryResolver = null;
+            this.decodeBatchSize = 1;
+        }
+        this.dataIterator = keyValues.iterator();
+    }
+
+    @Override
+    public boolean hasNext() throws RyaDAOException {
+        if (dataIterator == null) {
+            return false;
+        }
+        try {
+            while (true) {
+                if (bindings != null && bindingIndex < bindings.size()) {
+                    return true;
+                }
+                if (routed != null && routedIndex < routed.length) {
+                    bindings = batch.getBindings(probes[routed[routedIndex++]]);
+                    bindingIndex = 0;
+                    continue;
+                }
+                if (decodedIndex < decoded.size()) {
+                    statement = decoded.get(decodedIndex);
+                    routed = decodedRoutes.get(decodedIndex++);
+                    routedIndex = 0;
+                    bindings = null;
+                    continue;
+                }
+                if (!decodeNextBatch()) {
+                    return false;
+                }
+            }
+        } catch (TripleRowResolverException e) {
+            throw new RyaDAOException(e);
+        }
+    }
+
+    /**
+     * Deserializes the next rows that are routed to at least one probe.
+     *
+     * @return {@code false} if there are no more rows.
+     */
+    private boolean decodeNextBatch() throws TripleRowResolverException {
+        decoded.clear();
+        decodedRoutes.clear();
+        decodedIndex = 0;
+
+        List<TripleRow> rows = new ArrayList<TripleRow>();
+        while (rows.size() < decodeBatchSize && dataIterator.hasNext()) {
+            Map.Entry<Key, Value> next = dataIterator.next();
+            Key key = next.getKey();
+            int[] route = router.route(key);
+            if (route.length > 0) {
+                Value value = next.getValue();
+                rows.add(new TripleRow(key.getRowData().toArray(), key.getColumnFamilyData().toArray(), key.getColumnQualifierData().toArray(),
+                        key.getTimestamp(), key.getColumnVisibilityData().toArray(), value != null ? value.get() : null));
+                decodedRoutes.add(route);
+            }
+        }
+        if (rows.isEmpty()) {
+            return false;
+        }
+
+        if (dictionaryResolver != null) {
+            decoded.addAll(dictionaryResolver.deserialize(tableLayout, rows));
+        } else {
+            for (TripleRow row : rows) {
+                decoded.add(ryaContext.deserializeTriple(tableLayout, row));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Map.Entry<RyaStatement, BindingSet> next() throws RyaDAOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return new RdfCloudTripleStoreUtils.CustomEntry<RyaStatement, BindingSet>(statement, bindings.get(bindingIndex++));
+    }
+
+    @Override
+    public void remove() throws RyaDAOException {
+        throw new UnsupportedOperationException("Remove not implemented");
+    }
+
+    @Override
+    public void close() throws RyaDAOException {
+        dataIterator = null;
+        try {
+            keyValues.close();
+        } catch (IOException e) {
+            throw new RyaDAOException(e);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.query;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.calrissian.mango.collect.AbstractCloseableIterable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Scans many ranges of a table with a bounded number of {@link Scanner}s running at the same time.
+ * Each scanner reads ahead into a bounded buffer, so slow consumers apply backpressure instead of
+ * letting the buffered results grow without limit.
+ * <p>
+ * When the range order is preserved, the results of each range are returned contiguously and in
+ * the order the ranges were given, the same as scanning them one after another. Otherwise results
+ * are returned as soon as any scanner produces them.
+ * <p>
+ * The scans of every query run on one shared pool of at most {@link #DEFAULT_MAX_THREADS} threads.
+ * A query only starts scanners on threads that are free right away. If none are, its ranges are
+ * scanned one after another by the thread that reads the results, so a query never waits for the
+ * threads of another query whose results are only read after its own, as a bind join does.
+ * <p>
+ * A scanner stops once the scan is closed, or once its results are no longer referenced because
+ * they were abandoned without being closed, so it never holds a shared thread for a reader that
+ * is gone.
+ */
+public class ParallelRangeScanner extends AbstractCloseableIterable<Map.Entry<Key, Value>> {
+
+    /**
+     * Creates a configured {@link Scanner} over a single range.
+     */
+    public interface ScannerFactory {
+        public Scanner createScanner(Range range) throws Exception;
+    }
+
+    /**
+     * The maximum number of threads of the pool that is shared by all scans.
+     */
+    public static final int DEFAULT_MAX_THREADS = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+    /**
+     * Marks the end of a range's results in a buffer.
+     */
+    private static final Object END_OF_RANGE = new Object();
+
+    /**
+     * How long a scanner waits for room in a buffer before checking whether its results are still read.
+     */
+    static final long OFFER_TIMEOUT_MILLIS = 1000;
+
+    private final List<Range> ranges;
+    private final ScannerFactory scannerFactory;
+    private final int numThreads;
+    private final int readAhead;
+    private final boolean preserveRangeOrder;
+    private final ExecutorService executor;
+
+    // The index of the next range that no worker has started to scan.
+    private final AtomicInteger nextRange = new AtomicInteger();
+    private final List<Future<?>> workers = new ArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private boolean scanned = false;
+    private Scanner sequentialScanner;
+
+    /**
+     * @param ranges - The ranges to scan. (not null)
+     * @param scannerFactory - Creates the scanner of each range. (not null)
+     * @param numThreads - The maximum number of ranges scanned at the same time. (> 0)
+     * @param readAhead - The maximum number of entries buffered for each range, or in total when
+     *   the range order is not preserved. (> 0)
+     * @param preserveRangeOrder - {@code true} if the results of each range should be returned
+     *   contiguously and in the order of {@code ranges}.
+     */
+    public ParallelRangeScanner(final List<Range> ranges, final ScannerFactory scannerFactory, final int numThreads,
+            final int readAhead, final boolean preserveRangeOrder) {
+        this(ranges, scannerFactory, numThreads, readAhead, preserveRangeOrder, SharedExecutorHolder.INSTANCE);
+    }
+
+    /**
+     * @param executor - Runs the scanners. It must reject the scanners it can not start right away,
+     *   like the pools made by {@link #createExecutor(int)}. (not null)
+     */
+    ParallelRangeScanner(final List<Range> ranges, final ScannerFactory scannerFactory, final int numThreads,
+            final int readAhead, final boolean preserveRangeOrder, final ExecutorService executor) {
+        Preconditions.checkArgument(numThreads > 0, "The number of threads must be positive.");
+        Preconditions.checkArgument(readAhead > 0, "The read ahead must be positive.");
+        this.ranges = new ArrayList<>(Preconditions.checkNotNull(ranges));
+        this.scannerFactory = Preconditions.checkNotNull(scannerFactory);
+        this.numThreads = numThreads;
+        this.readAhead = readAhead;
+        this.preserveRangeOrder = preserveRangeOrder;
+        this.executor = Preconditions.checkNotNull(executor);
+    }
+
+    /**
+     * @param maxThreads - The maximum number of threads in the pool. (> 0)
+     * @return A pool of daemon threads that rejects work when all of its threads are busy, and
+     *   releases its threads while it is idle.
+     */
+    static ExecutorService createExecutor(final int maxThreads) {
+        Preconditions.checkArgument(maxThreads > 0, "The number of threads must be positive.");
+        return new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("rya-range-scanner-%d").setDaemon(true).build());
+    }
+
+    private static class SharedExecutorHolder {
+        private static final ExecutorService INSTANCE = createExecutor(DEFAULT_MAX_THREADS);
+    }
+
+    @Override
+    protected synchronized Iterator<Map.Entry<Key, Value>> retrieveIterator() {
+        Preconditions.checkState(!scanned, "The ranges may only be scanned once.");
+        scanned = true;
+
+        final List<BlockingQueue<Object>> buffers = new ArrayList<>(ranges.size());
+        final BlockingQueue<Object> shared = preserveRangeOrder ? null : new ArrayBlockingQueue<>(readAhead);
+        for (int i = 0; i < ranges.size(); i++) {
+            buffers.add(preserveRangeOrder ? new ArrayBlockingQueue<>(readAhead) : shared);
+        }
+
+        // Workers take the ranges in order, so a range is only left waiting while the earlier ones are being scanned.
+        final BufferIterator reader = new BufferIterator(preserveRangeOrder ? buffers : null, shared, ranges.size());
+        final int numWorkers = Math.min(numThreads, ranges.size());
+        for (int i = 0; i < numWorkers; i++) {
+            try {
+                workers.add(executor.submit(new RangeWorker(this, buffers, reader)));
+            } catch (final RejectedExecutionException e) {
+                break;
+            }
+        }
+
+        if (workers.isEmpty()) {
+            return new SequentialIterator();
+        }
+        return reader;
+    }
+
+    @Override
+    protected synchronized void doClose() throws IOException {
+        closed.set(true);
+        for (final Future<?> worker : workers) {
+            worker.cancel(true);
+        }
+        closeSequentialScanner();
+    }
+
+    private synchronized void closeSequentialScanner() {
+        if (sequentialScanner != null) {
+            sequentialScanner.close();
+            sequentialScanner = null;
+        }
+    }
+
+    private synchronized Iterator<Map.Entry<Key, Value>> openSequentialScanner(final Range range) throws Exception {
+        closeSequentialScanner();
+        sequentialScanner = scannerFactory.createScanner(range);
+        return sequentialScanner.iterator();
+    }
+
+    /**
+     * Holds the failure of a range's scan until the consumer reaches it.
+     */
+    private static class Failure {
+        private final Exception cause;
+
+        private Failure(final Exception cause) {
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Scans the ranges no other worker has started yet, one after another, into their buffers.
+     * <p>
+     * The worker does not reference the scan, and only weakly references the iterator that reads the
+     * buffers, so an abandoned scan can be collected and its workers then stop.
+     */
+    private static class RangeWorker implements Runnable {
+        private final List<Range> ranges;
+        private final ScannerFactory scannerFactory;
+        private final AtomicInteger nextRange;
+        private final AtomicBoolean closed;
+        private final List<BlockingQueue<Object>> buffers;
+        private final WeakReference<BufferIterator> reader;
+
+        private RangeWorker(final ParallelRangeScanner scan, final List<BlockingQueue<Object>> buffers,
+                final BufferIterator reader) {
+            ranges = scan.ranges;
+            scannerFactory = scan.scannerFactory;
+            nextRange = scan.nextRange;
+            closed = scan.closed;
+            this.buffers = buffers;
+            this.reader = new WeakReference<>(reader);
+        }
+
+        @Override
+        public void run() {
+            int index;
+            while (!closed.get() && (index = nextRange.getAndIncrement()) < ranges.size()) {
+                if (!scan(ranges.get(index), buffers.get(index))) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return {@code true} if the whole range was scanned.
+         */
+        private boolean scan(final Range range, final BlockingQueue<Object> buffer) {
+            Scanner scanner = null;
+            try {
+                scanner = scannerFactory.createScanner(range);
+                for (final Map.Entry<Key, Value> entry : scanner) {
+                    if (!hand(buffer, entry)) {
+                        return false;
+                    }
+                }
+                return hand(buffer, END_OF_RANGE);
+            } catch (final InterruptedException e) {
+                // The scan was closed before all results were read.
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (final Exception e) {
+                try {
+                    hand(buffer, new Failure(e));
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            } finally {
+                if (scanner != null) {
+                    scanner.close();
+                }
+            }
+        }
+
+        /**
+         * Waits for room in a buffer for as long as its results are still read.
+         *
+         * @return {@code true} if the item was buffered; {@code false} if the scan was closed or abandoned.
+         */
+        private boolean hand(final BlockingQueue<Object> buffer, final Object item) throws InterruptedException {
+            while (!buffer.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed.get() || reader.get() == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Scans the ranges one after another on the consumer's thread when no shared thread was free.
+     */
+    private class SequentialIterator extends AbstractIterator<Map.Entry<Key, Value>> {
+        private int current = 0;
+        private Iterator<Map.Entry<Key, Value>> entries = Collections.emptyIterator();
+
+        @Override
+        protected Map.Entry<Key, Value> computeNext() {
+            while (!entries.hasNext()) {
+                closeSequentialScanner();
+                if (closed.get() || current >= ranges.size()) {
+                    return endOfData();
+                }
+                try {
+                    entries = openSequentialScanner(ranges.get(current++));
+                } catch (final Exception e) {
+                    throw new RuntimeException("Could not scan a range.", e);
+                }
+            }
+            return entries.next();
+        }
+    }
+
+    /**
+     * Drains the buffers, either one range after another or from the shared buffer.
+     */
+    private static class BufferIterator implements Iterator<Map.Entry<Key, Value>> {
+        private final List<BlockingQueue<Object>> buffers;
+        private final BlockingQueue<Object> shared;
+        private int remainingRanges;
+        private int current = 0;
+        private Map.Entry<Key, Value> next;
+
+        private BufferIterator(final List<BlockingQueue<Object>> buffers, final BlockingQueue<Object> shared, final int numRanges) {
+            this.buffers = buffers;
+            this.shared = shared;
+            this.remainingRanges = numRanges;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            while (next == null && remainingRanges > 0) {
+                final BlockingQueue<Object> buffer = buffers != null ? buffers.get(current) : shared;
+                final Object taken;
+                try {
+                    taken = buffer.take();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for the results of a range.", e);
+                }
+
+                if (taken == END_OF_RANGE) {
+                    remainingRanges--;
+                    current++;
+                } else if (taken instanceof Failure) {
+                    remainingRanges = 0;
+                    throw new RuntimeException("Could not scan a range.", ((Failure) taken).cause);
+                } else {
+                    next = (Map.Entry<Key, Value>) taken;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<Key, Value> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<Key, Value> result = next;
+            next = null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Routes scanned keys back to the probes whose ranges contain them.
+ * <p>
+ * The ranges are sorted by their start keys once. Each key is located with a binary search, and keys that
+ * arrive in ascending order, as they do from a {@link org.apache.accumulo.core.client.Scanner}, usually
+ * only move a cursor forward. Only the ranges that start at or before the key and may still reach it are
+ * tested for containment, rather than every range of the batch.
+ */
+public class RangeRouter {
+    private static final int[] NO_PROBES = new int[0];
+
+    private final Range[] ranges;
+    private final int[] probes;
+    /**
+     * The largest end key of the ranges up to and including each index, or {@code null} if one of them is unbounded.
+     */
+    private final Key[] maxEnds;
+
+    private int cursor = -1;
+    private final List<Integer> matches = new ArrayList<>();
+
+    /**
+     * @param ranges - The range of each probe, bounded by the probe's context if it has one. (not null)
+     */
+    public RangeRouter(final List<Range> ranges) {
+        Preconditions.checkNotNull(ranges);
+        final Integer[] order = new Integer[ranges.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                return ranges.get(a).compareTo(ranges.get(b));
+            }
+        });
+
+        this.ranges = new Range[order.length];
+        this.probes = new int[order.length];
+        this.maxEnds = new Key[order.length];
+        Key maxEnd = null;
+        boolean unbounded = false;
+        for (int i = 0; i < order.length; i++) {
+            final Range range = ranges.get(order[i]);
+            this.ranges[i] = range;
+            this.probes[i] = order[i];
+            if (range.isInfiniteStopKey()) {
+                unbounded = true;
+            } else if (maxEnd == null || range.getEndKey().compareTo(maxEnd) > 0) {
+                maxEnd = range.getEndKey();
+            }
+            maxEnds[i] = unbounded ? null : maxEnd;
+        }
+    }
+
+    /**
+     * @param key - A scanned key. (not null)
+     * @return The indexes of the probes whose ranges contain the key, in ascending order.
+     */
+    public int[] route(final Key key) {
+        final int last = locate(key);
+        if (last < 0) {
+            return NO_PROBES;
+        }
+
+        matches.clear();
+        for (int i = last; i >= 0; i--) {
+            if (maxEnds[i] != null && maxEnds[i].compareTo(key) < 0) {
+                // no range at or before i reaches the key
+                break;
+            }
+            final Range range = ranges[i];
+            if (range.contains(key) && validateContext(key.getColumnFamily(), range.getStartKey(), range.getEndKey())) {
+                matches.add(probes[i]);
+            }
+        }
+        if (matches.isEmpty()) {
+            return NO_PROBES;
+        }
+
+        final int[] routed = new int[matches.size()];
+        for (int i = 0; i < routed.length; i++) {
+            routed[i] = matches.get(i);
+        }
+        Arrays.sort(routed);
+        return routed;
+    }
+
+    /**
+     * @return The index of the last range whose start is at or before the key, or -1 if there is none.
+     */
+    private int locate(final Key key) {
+        int low = 0;
+        if (cursor >= 0 && startsAtOrBefore(cursor, key)) {
+            // keys usually arrive in order, so step forward a few ranges before searching
+            for (int step = 0; step < 8; step++) {
+                if (cursor + 1 >= ranges.length || !startsAtOrBefore(cursor + 1, key)) {
+                    return cursor;
+                }
+                cursor++;
+            }
+            low = cursor;
+        }
+
+        int high = ranges.length - 1;
+        int found = low > 0 ? low : -1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (startsAtOrBefore(mid, key)) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        cursor = found;
+        return found;
+    }
+
+    private boolean startsAtOrBefore(final int index, final Key key) {
+        final Range range = ranges[index];
+        return range.isInfiniteStartKey() || range.getStartKey().compareTo(key) <= 0;
+    }
+
+    /**
+     * @return true if the column family lies between the column families of the range's start and end keys,
+     *   or if the range is not bounded by a column family.
+     */
+    private static boolean validateContext(final Text colFamily, final Key start, final Key stop) {
+        if (start == null || stop == null) {
+            return true;
+        }
+        final byte[] cfBytes = colFamily.getBytes();
+        final byte[] startCf = start.getColumnFamilyData().toArray();
+        final byte[] stopCf = stop.getColumnFamilyData().toArray();
+        // range has empty column family, so all Keys falling with Range Row constraints should match
+        if (startCf.length == 0 && stopCf.length == 0) {
+            return true;
+        }
+        final int cfLength = colFamily.getLength();
+        return WritableComparator.compareBytes(cfBytes, 0, cfLength, startCf, 0, startCf.length) >= 0
+                && WritableComparator.compareBytes(cfBytes, 0, cfLength, stopCf, 0, stopCf.length) <= 0;
+    }
+}
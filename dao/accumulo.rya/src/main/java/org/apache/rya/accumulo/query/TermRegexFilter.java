@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.query;
+
+import java.util.regex.Pattern;
+
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+
+import com.google.common.base.Predicate;
+
+/**
+ * Evaluates the subject, predicate and object regular expressions of a query against decoded
+ * statements. Rows of dictionary encoded tables only hold the IDs of the terms, so the regular
+ * expressions can not be pushed down to the tablet servers the way they are for whole row tables.
+ * Like the row regex, each expression has to match the whole value of its term.
+ */
+class TermRegexFilter implements Predicate<RyaStatement> {
+
+    private final Pattern subject;
+    private final Pattern predicate;
+    private final Pattern object;
+
+    private TermRegexFilter(String subject, String predicate, String object) {
+        this.subject = subject != null ? Pattern.compile(subject) : null;
+        this.predicate = predicate != null ? Pattern.compile(predicate) : null;
+        this.object = object != null ? Pattern.compile(object) : null;
+    }
+
+    /**
+     * @return A filter for the regular expressions, or {@code null} if none of them are set.
+     */
+    static TermRegexFilter create(String subject, String predicate, String object) {
+        if (subject == null && predicate == null && object == null) {
+            return null;
+        }
+        return new TermRegexFilter(subject, predicate, object);
+    }
+
+    @Override
+    public boolean apply(RyaStatement statement) {
+        return matches(subject, statement.getSubject())
+                && matches(predicate, statement.getPredicate())
+                && matches(object, statement.getObject());
+    }
+
+    private static boolean matches(Pattern pattern, RyaType term) {
+        if (pattern == null) {
+            return true;
+        }
+        return term != null && term.getData() != null && pattern.matcher(term.getData()).matches();
+    }
+}
@@ -0,0 +1,644 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.transitive;
+
+import static org.apache.rya.api.RdfCloudTripleStoreConstants.DELIM_BYTES;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchDeleter;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.MultiTableBatchWriter;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableExistsException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.rya.accumulo.AccumuloRdfConfiguration;
+import org.apache.rya.accumulo.AccumuloRdfConstants;
+import org.apache.rya.accumulo.AccumuloRdfUtils;
+import org.apache.rya.accumulo.experimental.AbstractAccumuloIndexer;
+import org.apache.rya.accumulo.query.AccumuloRyaQueryEngine;
+import org.apache.rya.accumulo.utils.VisibilitySimplifier;
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.index.TransitiveClosureIndex;
+import org.apache.rya.api.resolver.RyaContext;
+import org.apache.rya.api.resolver.RyaTypeResolverException;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.OWL;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Bytes;
+
+/**
+ * Materializes the transitive closure of every property that is declared an owl:TransitiveProperty so
+ * transitive patterns are answered with a single scan, including patterns whose subject and object are
+ * both unbound.
+ * <p>
+ * For each pair of nodes x and y such that x reaches y through the property p, the table holds
+ * <pre>
+ *     row: p \0 x    cf: f    cq: y
+ *     row: p \0 y    cf: b    cq: x
+ * </pre>
+ * where nodes are serialized the way the triple tables serialize objects. A row's visibility is the
+ * conjunction of the visibilities of the statements on the path that produced it; the same pair reached
+ * through paths with different visibilities is written once per visibility, leaving out a path whose
+ * visibilities include all of another path's. The declared properties are listed in their own row.
+ * <p>
+ * Inserting an edge of a declared property joins the edge's subject and its ancestors with the edge's
+ * object and its descendants, so the cost of an insert is the product of those sets. The pairs an insert
+ * writes are kept in memory until the index is flushed, or queried, so the next insert can read them without
+ * a flush per statement. Declaring a property rebuilds the property's closure from the triple tables.
+ * Deleting a stored statement of a property marks its closure stale, and the stale closures are rebuilt
+ * once when the index is flushed, or queried, so a batch of deletes costs one rebuild per property; a
+ * delete that removes nothing leaves the closure alone. Dropping a graph rebuilds every closure. Updates
+ * to the closure are serialized.
+ * <p>
+ * The index reads its own table while it is maintained, so it must be configured with authorizations that
+ * can see every statement of the indexed properties.
+ */
+public class AccumuloTransitiveClosureIndexer extends AbstractAccumuloIndexer implements TransitiveClosureIndex {
+    private static final Log logger = LogFactory.getLog(AccumuloTransitiveClosureIndexer.class);
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+    public static final String TABLE_SUFFIX = "transitive_closure";
+
+    private static final Text FORWARD = new Text("f");
+    private static final Text BACKWARD = new Text("b");
+    private static final Text PROPERTIES_ROW = new Text(Bytes.concat(DELIM_BYTES,
+            "properties".getBytes(StandardCharsets.UTF_8)));
+    private static final Text PROPERTIES_CF = new Text("p");
+
+    /**
+     * The number of unflushed pairs held for inserts before the writer is flushed anyway.
+     */
+    private static final int MAX_PENDING_PAIRS = 10_000;
+
+    private AccumuloRdfConfiguration conf;
+    private Connector connector;
+    private MultiTableBatchWriter tripleWriter;
+    private BatchWriter writer;
+    private final Set<String> indexed = ConcurrentHashMap.newKeySet();
+
+    // guarded by this: pairs written by inserts since the last flush, by row and direction
+    private final Map<ByteSequence, List<Map.Entry<ByteSequence, String>>> pendingForward = new HashMap<>();
+    private final Map<ByteSequence, List<Map.Entry<ByteSequence, String>>> pendingBackward = new HashMap<>();
+    private int pendingPairs = 0;
+
+    // guarded by this: properties whose declaration a delete in progress has removed
+    private final Set<String> undeclared = new HashSet<>();
+    // guarded by this: properties whose edges were deleted since their closure was last rebuilt
+    private final Set<String> stale = new HashSet<>();
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    @Override
+    public void setConf(final Configuration conf) {
+        if (conf instanceof AccumuloRdfConfiguration) {
+            this.conf = (AccumuloRdfConfiguration) conf;
+        } else {
+            this.conf = new AccumuloRdfConfiguration(conf);
+        }
+    }
+
+    @Override
+    public String getTableName() {
+        return makeTableName(conf.getTablePrefix());
+    }
+
+    /**
+     * @param tablePrefix - The table prefix of the Rya instance. (not null)
+     * @return The name of the table the closure of that instance is stored in.
+     */
+    public static String makeTableName(final String tablePrefix) {
+        Preconditions.checkNotNull(tablePrefix);
+        return tablePrefix + TABLE_SUFFIX;
+    }
+
+    @Override
+    public void setConnector(final Connector connector) {
+        this.connector = connector;
+    }
+
+    @Override
+    public void setMultiTableBatchWriter(final MultiTableBatchWriter writer) throws IOException {
+        // the triple tables are flushed before a closure is rebuilt from them
+        this.tripleWriter = writer;
+    }
+
+    @Override
+    public void init() {
+        Preconditions.checkNotNull(connector, "Connector not set");
+        try {
+            AccumuloRdfUtils.createTableIfNotExist(connector.tableOperations(), getTableName());
+            writer = connector.createBatchWriter(getTableName(), new BatchWriterConfig());
+            final Scanner scanner = connector.createScanner(getTableName(), conf.getAuthorizations());
+            scanner.setRange(Range.exact(PROPERTIES_ROW, PROPERTIES_CF));
+            for (final Map.Entry<Key, Value> entry : scanner) {
+                indexed.add(entry.getKey().getColumnQualifier().toString());
+            }
+        } catch (final AccumuloException | AccumuloSecurityException | TableExistsException | TableNotFoundException e) {
+            throw new RuntimeException("Unable to initialize the transitive closure index.", e);
+        }
+    }
+
+    @Override
+    public boolean isIndexed(final RyaIRI property) {
+        return property != null && indexed.contains(property.getData());
+    }
+
+    @Override
+    public Set<IRI> getIndexablePredicates() {
+        final Set<IRI> predicates = new HashSet<>();
+        for (final String property : indexed) {
+            predicates.add(VF.createIRI(property));
+        }
+        return predicates;
+    }
+
+    @Override
+    public synchronized void storeStatement(final RyaStatement statement) throws IOException {
+        try {
+            if (isDeclaration(statement)) {
+                if (!indexed.contains(statement.getSubject().getData())) {
+                    rebuild(statement.getSubject().getData());
+                }
+            } else if (isIndexed(statement.getPredicate())) {
+                addEdge(statement);
+            }
+        } catch (final RyaDAOException | RyaTypeResolverException | MutationsRejectedException | TableNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void deleteStoredStatement(final RyaStatement statement) throws IOException {
+        if (isDeclaration(statement)) {
+            if (indexed.contains(statement.getSubject().getData())) {
+                undeclared.add(statement.getSubject().getData());
+            }
+        } else if (isIndexed(statement.getPredicate())) {
+            stale.add(statement.getPredicate().getData());
+        }
+    }
+
+    /**
+     * Drops the closures of the properties whose declaration was removed by the delete, which
+     * {@link #deleteStoredStatement(RyaStatement)} was called with. The closures of properties that lost
+     * an edge are rebuilt on the next flush or query. The pattern itself is not used, so a pattern that
+     * matched nothing does not touch the index.
+     */
+    @Override
+    public synchronized void deleteStatement(final RyaStatement pattern) throws IOException {
+        try {
+            for (final String property : undeclared) {
+                drop(property);
+            }
+            stale.removeAll(undeclared);
+        } catch (final MutationsRejectedException | TableNotFoundException e) {
+            throw new IOException(e);
+        } finally {
+            undeclared.clear();
+        }
+    }
+
+    @Override
+    public synchronized void dropGraph(final RyaIRI... graphs) {
+        // the closure spans graphs, so every property is rebuilt from what remains
+        try {
+            for (final String property : new ArrayList<>(indexed)) {
+                rebuild(property);
+            }
+            stale.clear();
+        } catch (final RyaDAOException | RyaTypeResolverException | MutationsRejectedException | TableNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public CloseableIteration<RyaStatement, RyaDAOException> queryClosure(final RyaStatement pattern,
+            final RdfCloudTripleStoreConfiguration queryConf) throws RyaDAOException {
+        Preconditions.checkNotNull(pattern);
+        final RyaIRI predicate = Preconditions.checkNotNull(pattern.getPredicate());
+        final RyaIRI subject = pattern.getSubject();
+        final RyaType object = pattern.getObject();
+        final String[] auths = queryConf == null ? null : queryConf.getAuths();
+        final Authorizations authorizations = auths != null ? new Authorizations(auths) : conf.getAuthorizations();
+        try {
+            synchronized (this) {
+                // make earlier deletes and the pairs of earlier inserts visible to the scan
+                rebuildStale();
+                if (pendingPairs > 0) {
+                    flushWriter();
+                }
+            }
+            final Scanner scanner = connector.createScanner(getTableName(), authorizations);
+            final byte[] prefix = rowPrefix(predicate.getData());
+            if (subject != null) {
+                final Text row = new Text(Bytes.concat(prefix, serialize(subject)));
+                if (object != null) {
+                    scanner.setRange(Range.exact(row, FORWARD, new Text(serialize(object))));
+                } else {
+                    scanner.setRange(Range.exact(row, FORWARD));
+                }
+            } else if (object != null) {
+                scanner.setRange(Range.exact(new Text(Bytes.concat(prefix, serialize(object))), BACKWARD));
+            } else {
+                scanner.setRange(Range.prefix(new Text(prefix)));
+                scanner.fetchColumnFamily(FORWARD);
+            }
+            return new ClosureIteration(scanner.iterator(), prefix.length, predicate, subject, object);
+        } catch (final TableNotFoundException | RyaTypeResolverException | MutationsRejectedException e) {
+            throw new RyaDAOException(e);
+        }
+    }
+
+    /**
+     * Adds the pairs that a new edge connects: the edge's subject and everything that reaches it, to the
+     * edge's object and everything it reaches.
+     */
+    private void addEdge(final RyaStatement edge) throws RyaTypeResolverException, MutationsRejectedException, TableNotFoundException {
+        final String property = edge.getPredicate().getData();
+        final byte[] prefix = rowPrefix(property);
+        final ByteSequence subject = new ArrayByteSequence(serialize(edge.getSubject()));
+        final ByteSequence object = new ArrayByteSequence(serialize(edge.getObject()));
+        final String visibility = visibility(edge);
+
+        final List<Map.Entry<ByteSequence, String>> ancestors = scanNodes(prefix, subject, BACKWARD);
+        ancestors.add(new AbstractMap.SimpleImmutableEntry<>(subject, ""));
+        final List<Map.Entry<ByteSequence, String>> descendants = scanNodes(prefix, object, FORWARD);
+        descendants.add(new AbstractMap.SimpleImmutableEntry<>(object, ""));
+
+        for (final Map.Entry<ByteSequence, String> ancestor : ancestors) {
+            final String left = VisibilitySimplifier.unionAndSimplify(ancestor.getValue(), visibility);
+            for (final Map.Entry<ByteSequence, String> descendant : descendants) {
+                final String pairVisibility = VisibilitySimplifier.unionAndSimplify(left, descendant.getValue());
+                writePair(prefix, ancestor.getKey(), descendant.getKey(), pairVisibility);
+                // the next edge reads the pairs this one wrote before they are flushed
+                pendingForward.computeIfAbsent(row(prefix, ancestor.getKey()), k -> new ArrayList<>())
+                        .add(new AbstractMap.SimpleImmutableEntry<>(descendant.getKey(), pairVisibility));
+                pendingBackward.computeIfAbsent(row(prefix, descendant.getKey()), k -> new ArrayList<>())
+                        .add(new AbstractMap.SimpleImmutableEntry<>(ancestor.getKey(), pairVisibility));
+                pendingPairs++;
+            }
+        }
+        if (pendingPairs >= MAX_PENDING_PAIRS) {
+            flushWriter();
+        }
+    }
+
+    private List<Map.Entry<ByteSequence, String>> scanNodes(final byte[] prefix, final ByteSequence node, final Text direction)
+            throws TableNotFoundException {
+        final ByteSequence row = row(prefix, node);
+        final Map<ByteSequence, List<Map.Entry<ByteSequence, String>>> pending =
+                direction == FORWARD ? pendingForward : pendingBackward;
+        final List<Map.Entry<ByteSequence, String>> nodes = new ArrayList<>(
+                pending.getOrDefault(row, Collections.emptyList()));
+        final Scanner scanner = connector.createScanner(getTableName(), conf.getAuthorizations());
+        scanner.setRange(Range.exact(new Text(row.toArray()), direction));
+        for (final Map.Entry<Key, Value> entry : scanner) {
+            final Key key = entry.getKey();
+            nodes.add(new AbstractMap.SimpleImmutableEntry<>(
+                    new ArrayByteSequence(key.getColumnQualifierData().toArray()),
+                    key.getColumnVisibility().toString()));
+        }
+        return nodes;
+    }
+
+    /**
+     * Replaces the closure of a property with one computed from the property's statements in the triple tables.
+     */
+    private void rebuild(final String property) throws RyaDAOException, RyaTypeResolverException,
+            MutationsRejectedException, TableNotFoundException {
+        final long start = System.currentTimeMillis();
+        if (tripleWriter != null) {
+            tripleWriter.flush();
+        }
+        deleteRows(property);
+
+        // read the property's edges, with every visibility each edge is stored with
+        final Map<ByteSequence, Map<ByteSequence, Set<String>>> successors = new HashMap<>();
+        final AccumuloRyaQueryEngine queryEngine = new AccumuloRyaQueryEngine(connector, conf);
+        final CloseableIteration<RyaStatement, RyaDAOException> edges = queryEngine.query(
+                new RyaStatement(null, new RyaIRI(property), null), conf);
+        try {
+            while (edges.hasNext()) {
+                final RyaStatement edge = edges.next();
+                successors.computeIfAbsent(new ArrayByteSequence(serialize(edge.getSubject())), k -> new HashMap<>())
+                        .computeIfAbsent(new ArrayByteSequence(serialize(edge.getObject())), k -> new HashSet<>())
+                        .add(visibility(edge));
+            }
+        } finally {
+            edges.close();
+        }
+
+        // walk from every node, keeping for each node it reaches the visibilities of the paths that reach
+        // it; a path is described by the set of its edges' visibilities, and a path whose set includes all
+        // of another's is never visible when the other is not, so it is left out
+        final byte[] prefix = rowPrefix(property);
+        long pairs = 0;
+        for (final ByteSequence origin : successors.keySet()) {
+            final Map<ByteSequence, List<Set<String>>> reached = new HashMap<>();
+            final Deque<Map.Entry<ByteSequence, Set<String>>> frontier = new ArrayDeque<>();
+            frontier.add(new AbstractMap.SimpleImmutableEntry<>(origin, Collections.<String>emptySet()));
+            while (!frontier.isEmpty()) {
+                final Map.Entry<ByteSequence, Set<String>> path = frontier.poll();
+                for (final Map.Entry<ByteSequence, Set<String>> next : successors.getOrDefault(path.getKey(), Collections.emptyMap()).entrySet()) {
+                    for (final String edgeVisibility : next.getValue()) {
+                        final Set<String> pathVisibilities = new HashSet<>(path.getValue());
+                        if (!edgeVisibility.isEmpty()) {
+                            pathVisibilities.add(edgeVisibility);
+                        }
+                        if (addPath(reached.computeIfAbsent(next.getKey(), k -> new ArrayList<>()), pathVisibilities)) {
+                            frontier.add(new AbstractMap.SimpleImmutableEntry<>(next.getKey(), pathVisibilities));
+                        }
+                    }
+                }
+            }
+            for (final Map.Entry<ByteSequence, List<Set<String>>> target : reached.entrySet()) {
+                for (final Set<String> pathVisibilities : target.getValue()) {
+                    String visibility = "";
+                    for (final String edgeVisibility : pathVisibilities) {
+                        visibility = VisibilitySimplifier.unionAndSimplify(visibility, edgeVisibility);
+                    }
+                    writePair(prefix, origin, target.getKey(), visibility);
+                    pairs++;
+                }
+            }
+        }
+
+        final Mutation declaration = new Mutation(PROPERTIES_ROW);
+        declaration.put(PROPERTIES_CF, new Text(property), AccumuloRdfConstants.EMPTY_VALUE);
+        writer.addMutation(declaration);
+        flushWriter();
+        indexed.add(property);
+        logger.info("Indexed " + pairs + " transitive pairs of " + property + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Adds a path's visibilities to those of the other paths that reach the same node, unless one of them
+     * needs no more visibilities than the new path does.
+     *
+     * @return {@code true} if the path was added and has to be walked further.
+     */
+    private static boolean addPath(final List<Set<String>> paths, final Set<String> path) {
+        for (final Set<String> other : paths) {
+            if (path.containsAll(other)) {
+                return false;
+            }
+        }
+        paths.removeIf(other -> other.containsAll(path));
+        paths.add(path);
+        return true;
+    }
+
+    /**
+     * Rebuilds the closures that deletes have made stale.
+     */
+    private void rebuildStale() throws RyaDAOException, RyaTypeResolverException, MutationsRejectedException,
+            TableNotFoundException {
+        for (final String property : new ArrayList<>(stale)) {
+            if (indexed.contains(property)) {
+                rebuild(property);
+            }
+            stale.remove(property);
+        }
+    }
+
+    private void drop(final String property) throws MutationsRejectedException, TableNotFoundException {
+        indexed.remove(property);
+        deleteRows(property);
+        final Mutation declaration = new Mutation(PROPERTIES_ROW);
+        declaration.putDelete(PROPERTIES_CF, new Text(property));
+        writer.addMutation(declaration);
+        flushWriter();
+    }
+
+    private void deleteRows(final String property) throws MutationsRejectedException, TableNotFoundException {
+        flushWriter();
+        final BatchDeleter deleter = connector.createBatchDeleter(getTableName(), conf.getAuthorizations(),
+                conf.getNumThreads(), new BatchWriterConfig());
+        try {
+            deleter.setRanges(Collections.singleton(Range.prefix(new Text(rowPrefix(property)))));
+            deleter.delete();
+        } finally {
+            deleter.close();
+        }
+    }
+
+    private void writePair(final byte[] prefix, final ByteSequence from, final ByteSequence to, final String visibility)
+            throws MutationsRejectedException {
+        final ColumnVisibility cv = visibility.isEmpty() ? AccumuloRdfConstants.EMPTY_CV : new ColumnVisibility(visibility);
+        final Mutation forward = new Mutation(Bytes.concat(prefix, from.toArray()));
+        forward.put(FORWARD, new Text(to.toArray()), cv, AccumuloRdfConstants.EMPTY_VALUE);
+        final Mutation backward = new Mutation(Bytes.concat(prefix, to.toArray()));
+        backward.put(BACKWARD, new Text(from.toArray()), cv, AccumuloRdfConstants.EMPTY_VALUE);
+        writer.addMutation(forward);
+        writer.addMutation(backward);
+    }
+
+    private void flushWriter() throws MutationsRejectedException {
+        writer.flush();
+        pendingForward.clear();
+        pendingBackward.clear();
+        pendingPairs = 0;
+    }
+
+    private static ByteSequence row(final byte[] prefix, final ByteSequence node) {
+        return new ArrayByteSequence(Bytes.concat(prefix, node.toArray()));
+    }
+
+    private static boolean isDeclaration(final RyaStatement statement) {
+        return statement.getSubject() != null && statement.getPredicate() != null && statement.getObject() != null
+                && RDF.TYPE.stringValue().equals(statement.getPredicate().getData())
+                && OWL.TRANSITIVEPROPERTY.stringValue().equals(statement.getObject().getData());
+    }
+
+    private static String visibility(final RyaStatement statement) {
+        final byte[] cv = statement.getColumnVisibility();
+        return cv == null ? "" : new String(cv, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] rowPrefix(final String property) {
+        return Bytes.concat(property.getBytes(StandardCharsets.UTF_8), DELIM_BYTES);
+    }
+
+    private static byte[] serialize(final RyaType node) throws RyaTypeResolverException {
+        final byte[][] bytes = RyaContext.getInstance().serializeType(node);
+        return Bytes.concat(bytes[0], bytes[1]);
+    }
+
+    private static RyaType deserialize(final byte[] bytes) throws RyaTypeResolverException {
+        return RyaContext.getInstance().deserialize(bytes);
+    }
+
+    private static RyaIRI toResource(final RyaType node) {
+        return node instanceof RyaIRI ? (RyaIRI) node : new RyaIRI(node.getData());
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        try {
+            if (writer != null) {
+                rebuildStale();
+                flushWriter();
+            }
+        } catch (final RyaDAOException | RyaTypeResolverException | MutationsRejectedException | TableNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        } catch (final MutationsRejectedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            close();
+        } catch (final IOException e) {
+            logger.warn("Unable to close the transitive closure index writer", e);
+        }
+    }
+
+    @Override
+    public void purge(final RdfCloudTripleStoreConfiguration configuration) {
+        try {
+            for (final String property : new ArrayList<>(indexed)) {
+                drop(property);
+            }
+        } catch (final MutationsRejectedException | TableNotFoundException e) {
+            logger.error("Unable to purge the transitive closure index", e);
+        }
+    }
+
+    @Override
+    public void dropAndDestroy() {
+        destroy();
+        try {
+            if (connector.tableOperations().exists(getTableName())) {
+                connector.tableOperations().delete(getTableName());
+            }
+            indexed.clear();
+        } catch (final AccumuloException | AccumuloSecurityException | TableNotFoundException e) {
+            logger.error("Unable to drop the transitive closure index", e);
+        }
+    }
+
+    /**
+     * Streams the pairs of a closure scan as statements, skipping the repeats of a pair that was reached
+     * through paths with different visibilities.
+     */
+    private static class ClosureIteration extends LookAheadIteration<RyaStatement, RyaDAOException> {
+        private final Iterator<Map.Entry<Key, Value>> entries;
+        private final int prefixLength;
+        private final RyaIRI predicate;
+        private final RyaIRI subject;
+        private final RyaType object;
+        private byte[] lastRow;
+        private byte[] lastQualifier;
+
+        private ClosureIteration(final Iterator<Map.Entry<Key, Value>> entries, final int prefixLength,
+                final RyaIRI predicate, final RyaIRI subject, final RyaType object) {
+            this.entries = entries;
+            this.prefixLength = prefixLength;
+            this.predicate = predicate;
+            this.subject = subject;
+            this.object = object;
+        }
+
+        @Override
+        protected RyaStatement getNextElement() throws RyaDAOException {
+            while (entries.hasNext()) {
+                final Key key = entries.next().getKey();
+                final byte[] row = key.getRowData().toArray();
+                final byte[] qualifier = key.getColumnQualifierData().toArray();
+                if (Arrays.equals(row, lastRow) && Arrays.equals(qualifier, lastQualifier)) {
+                    continue;
+                }
+                lastRow = row;
+                lastQualifier = qualifier;
+                try {
+                    final RyaType other = deserialize(qualifier);
+                    if (subject != null) {
+                        return new RyaStatement(subject, predicate, other);
+                    } else if (object != null) {
+                        return new RyaStatement(toResource(other), predicate, object);
+                    } else {
+                        final RyaType node = deserialize(Arrays.copyOfRange(row, prefixLength, row.length));
+                        return new RyaStatement(toResource(node), predicate, other);
+                    }
+                } catch (final RyaTypeResolverException e) {
+                    throw new RyaDAOException(e);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -41,9 +42,11 @@ import org.apache.rya.api.domain.RyaType;
 import org.apache.rya.api.domain.RyaIRI;
 import org.apache.rya.api.domain.StatementMetadata;
 import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.query.BatchRyaQuery;
 import org.apache.rya.api.persist.query.RyaQuery;
 import org.apache.rya.api.resolver.RdfToRyaConversions;
 import org.apache.rya.api.resolver.RyaContext;
+import org.calrissian.mango.collect.CloseableIterable;
 import org.calrissian.mango.collect.FluentCloseableIterable;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.model.ValueFactory;
@@ -407,6 +410,90 @@ public class AccumuloRyaDAOTest {
         assertEquals(4, count);
     }
 
+    @Test
+    public void testBatchQuerySpansTables() throws Exception {
+        RyaIRI cpu = new RyaIRI(litdupsNS + "cpu");
+        RyaIRI mem = new RyaIRI(litdupsNS + "mem");
+        RyaIRI loadPerc = new RyaIRI(litdupsNS + "loadPerc");
+        RyaIRI uri1 = new RyaIRI(litdupsNS + "uri1");
+        RyaIRI uri2 = new RyaIRI(litdupsNS + "uri2");
+        dao.add(new RyaStatement(cpu, loadPerc, uri1));
+        dao.add(new RyaStatement(mem, loadPerc, uri2));
+
+        AccumuloRyaQueryEngine queryEngine = dao.getQueryEngine();
+
+        // spo, po, and osp ranges in the same batch
+        Collection<RyaStatement> coll = new ArrayList<>();
+        coll.add(new RyaStatement(cpu, null, null));
+        coll.add(new RyaStatement(null, loadPerc, uri2));
+        coll.add(new RyaStatement(null, null, uri1));
+        CloseableIteration<RyaStatement, RyaDAOException> iter = queryEngine.batchQuery(coll, conf);
+        List<RyaIRI> subjects = new ArrayList<>();
+        while (iter.hasNext()) {
+            subjects.add(iter.next().getSubject());
+        }
+        iter.close();
+        assertEquals(3, subjects.size());
+        assertEquals(2, Collections.frequency(subjects, cpu));
+        assertTrue(subjects.contains(mem));
+    }
+
+    @Test
+    public void testBatchQueryPreservesRangeOrder() throws Exception {
+        RyaIRI loadPerc = new RyaIRI(litdupsNS + "loadPerc");
+        List<RyaStatement> coll = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            RyaIRI subject = new RyaIRI(litdupsNS + "cpu" + i);
+            for (int j = 0; j < 5; j++) {
+                dao.add(new RyaStatement(subject, loadPerc, new RyaIRI(litdupsNS + "uri" + j)));
+            }
+            coll.add(new RyaStatement(subject, null, null));
+        }
+        // query the subjects in the reverse of their key order
+        Collections.reverse(coll);
+
+        BatchRyaQuery query = BatchRyaQuery.builder(coll).load(conf).setNumQueryThreads(4).setBatchSize(2)
+                .setMaxRanges(100).setPreserveRangeOrder(true).build();
+        try (CloseableIterable<RyaStatement> results = dao.getQueryEngine().query(query)) {
+            int count = 0;
+            for (RyaStatement statement : results) {
+                assertEquals(coll.get(count / 5).getSubject(), statement.getSubject());
+                assertEquals(new RyaIRI(litdupsNS + "uri" + (count % 5)), statement.getObject());
+                count++;
+            }
+            assertEquals(100, count);
+        }
+    }
+
+    @Test
+    public void testBatchQueryMixedContexts() throws Exception {
+        RyaIRI cpu = new RyaIRI(litdupsNS + "cpu");
+        RyaIRI mem = new RyaIRI(litdupsNS + "mem");
+        RyaIRI loadPerc = new RyaIRI(litdupsNS + "loadPerc");
+        RyaIRI uri1 = new RyaIRI(litdupsNS + "uri1");
+        RyaIRI graph1 = new RyaIRI(litdupsNS + "graph1");
+        RyaIRI graph2 = new RyaIRI(litdupsNS + "graph2");
+        dao.add(new RyaStatement(cpu, loadPerc, uri1, graph1));
+        dao.add(new RyaStatement(cpu, loadPerc, uri1, graph2));
+        dao.add(new RyaStatement(mem, loadPerc, uri1, graph1));
+        dao.add(new RyaStatement(mem, loadPerc, uri1, graph2));
+
+        // both statements use the spo layout, but each one only matches its own context
+        Collection<RyaStatement> coll = new ArrayList<>();
+        coll.add(new RyaStatement(cpu, loadPerc, null, graph1));
+        coll.add(new RyaStatement(mem, loadPerc, null, graph2));
+        CloseableIteration<RyaStatement, RyaDAOException> iter = dao.getQueryEngine().batchQuery(coll, conf);
+        List<RyaStatement> results = new ArrayList<>();
+        while (iter.hasNext()) {
+            results.add(iter.next());
+        }
+        iter.close();
+        assertEquals(2, results.size());
+        for (RyaStatement result : results) {
+            assertEquals(result.getSubject().equals(cpu) ? graph1 : graph2, result.getContext());
+        }
+    }
+
 	@Test
 	public void testQueryDates() throws Exception {
 	    RyaIRI cpu = new RyaIRI(litdupsNS + "cpu");
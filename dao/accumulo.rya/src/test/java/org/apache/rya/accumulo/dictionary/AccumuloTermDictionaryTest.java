@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.dictionary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.resolver.triple.dictionary.TermDictionaryException;
+import org.apache.rya.api.resolver.triple.dictionary.TermIds;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link AccumuloTermDictionary}.
+ */
+public class AccumuloTermDictionaryTest {
+
+    private static final String TABLE = "rya_terms";
+
+    private final RyaIRI iri = new RyaIRI("urn:test#subject");
+    private final RyaType literal = new RyaType("a plain literal");
+
+    private Connector connector;
+
+    @Before
+    public void setUp() throws Exception {
+        connector = new MockInstance("AccumuloTermDictionaryTest").getConnector("root", new byte[0]);
+        if (connector.tableOperations().exists(TABLE)) {
+            connector.tableOperations().delete(TABLE);
+        }
+        connector.tableOperations().create(TABLE);
+        connector.securityOperations().changeUserAuthorizations("root", new Authorizations("A", "B"));
+    }
+
+    @Test
+    public void registerAndResolve() throws Exception {
+        final BatchWriter writer = connector.createBatchWriter(TABLE, new BatchWriterConfig());
+        final AccumuloTermDictionary writing = new AccumuloTermDictionary(connector, TABLE, new Authorizations(), 1, writer, 100);
+        writing.register(Arrays.asList(iri, literal), new byte[0]);
+        writer.flush();
+
+        // A new dictionary has nothing cached, so the terms are read from the table.
+        final AccumuloTermDictionary reading = new AccumuloTermDictionary(connector, TABLE, new Authorizations(), 1, null, 100);
+        final String iriId = TermIds.idOf(iri);
+        final String literalId = TermIds.idOf(literal);
+        final Map<String, RyaType> resolved = reading.resolve(Arrays.asList(iriId, literalId));
+        assertEquals(2, resolved.size());
+        assertEquals(iri, resolved.get(iriId));
+        assertEquals(literal, resolved.get(literalId));
+        writer.close();
+    }
+
+    @Test
+    public void resolveUnknownId() throws Exception {
+        final AccumuloTermDictionary reading = new AccumuloTermDictionary(connector, TABLE, new Authorizations(), 1, null, 100);
+        assertTrue(reading.resolve(Collections.singleton(TermIds.idOf(iri))).isEmpty());
+    }
+
+    @Test
+    public void resolveRespectsVisibility() throws Exception {
+        final BatchWriter writer = connector.createBatchWriter(TABLE, new BatchWriterConfig());
+        final AccumuloTermDictionary writing = new AccumuloTermDictionary(connector, TABLE, new Authorizations(), 1, writer, 100);
+        writing.register(Collections.<RyaType>singleton(iri), "A".getBytes(StandardCharsets.UTF_8));
+        writer.flush();
+
+        final String id = TermIds.idOf(iri);
+        final AccumuloTermDictionary unauthorized = new AccumuloTermDictionary(connector, TABLE, new Authorizations("B"), 1, null, 100);
+        assertTrue(unauthorized.resolve(Collections.singleton(id)).isEmpty());
+
+        final AccumuloTermDictionary authorized = new AccumuloTermDictionary(connector, TABLE, new Authorizations("A"), 1, null, 100);
+        assertEquals(iri, authorized.resolve(Collections.singleton(id)).get(id));
+        writer.close();
+    }
+
+    @Test
+    public void termIsWrittenForEveryVisibility() throws Exception {
+        final BatchWriter writer = connector.createBatchWriter(TABLE, new BatchWriterConfig());
+        final AccumuloTermDictionary writing = new AccumuloTermDictionary(connector, TABLE, new Authorizations(), 1, writer, 100);
+        writing.register(Collections.<RyaType>singleton(iri), "A".getBytes(StandardCharsets.UTF_8));
+        writing.register(Collections.<RyaType>singleton(iri), "B".getBytes(StandardCharsets.UTF_8));
+        writer.flush();
+
+        final String id = TermIds.idOf(iri);
+        final AccumuloTermDictionary reading = new AccumuloTermDictionary(connector, TABLE, new Authorizations("B"), 1, null, 100);
+        assertEquals(iri, reading.resolve(Collections.singleton(id)).get(id));
+        writer.close();
+    }
+
+    @Test(expected = TermDictionaryException.class)
+    public void registerWithoutWriter() throws Exception {
+        final AccumuloTermDictionary reading = new AccumuloTermDictionary(connector, TABLE, new Authorizations(), 1, null, 100);
+        reading.register(Collections.<RyaType>singleton(iri), new byte[0]);
+    }
+}
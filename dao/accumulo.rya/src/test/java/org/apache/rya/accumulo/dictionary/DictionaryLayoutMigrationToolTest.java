@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.dictionary;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.rya.accumulo.AccumuloRdfConfiguration;
+import org.apache.rya.accumulo.AccumuloRyaDAO;
+import org.apache.rya.accumulo.query.AccumuloRyaQueryEngine;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.layout.DictionaryTableLayoutStrategy;
+import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.query.BindingBatch;
+import org.apache.rya.api.persist.query.RyaQuery;
+import org.calrissian.mango.collect.CloseableIterable;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link DictionaryLayoutMigrationTool}.
+ */
+public class DictionaryLayoutMigrationToolTest {
+
+    private static final String NS = "urn:test#";
+    private static final String PREFIX = "migration_";
+
+    private Connector connector;
+    private AccumuloRyaDAO dao;
+
+    @Before
+    public void setUp() throws Exception {
+        connector = new MockInstance("DictionaryLayoutMigrationToolTest").getConnector("root", new byte[0]);
+        connector.securityOperations().changeUserAuthorizations("root", new Authorizations("A"));
+
+        dao = new AccumuloRyaDAO();
+        dao.setConnector(connector);
+        dao.setConf(conf(false));
+        dao.init();
+
+        final RyaStatement labeled = new RyaStatement(new RyaIRI(NS + "alice"), new RyaIRI(NS + "secret"), new RyaType("labeled"));
+        labeled.setColumnVisibility("A".getBytes(StandardCharsets.UTF_8));
+        dao.add(labeled);
+        dao.add(new RyaStatement(new RyaIRI(NS + "alice"), new RyaIRI(NS + "knows"), new RyaIRI(NS + "bob")));
+        dao.add(new RyaStatement(new RyaIRI(NS + "bob"), new RyaIRI(NS + "knows"), new RyaIRI(NS + "carol")));
+        dao.add(new RyaStatement(new RyaIRI(NS + "bob"), new RyaIRI(NS + "name"), new RyaType("Bob")));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dao.destroy();
+        // The whole row and the dictionary encoded tables share the prefix.
+        for (final String table : connector.tableOperations().list()) {
+            if (table.startsWith(PREFIX)) {
+                connector.tableOperations().delete(table);
+            }
+        }
+    }
+
+    @Test
+    public void migrate() throws Exception {
+        final AccumuloRdfConfiguration conf = conf(false);
+        conf.setAuths("A");
+        assertEquals(4, new DictionaryLayoutMigrationTool(connector, conf, 3).migrate());
+
+        final AccumuloRdfConfiguration dictionaryConf = conf(true);
+        dictionaryConf.setAuths("A");
+        assertEquals(4, query(dictionaryConf, new RyaStatement()).size());
+        assertEquals(2, query(dictionaryConf, new RyaStatement(null, new RyaIRI(NS + "knows"), null)).size());
+    }
+
+    @Test
+    public void regexOverDictionaryEncodedTerms() throws Exception {
+        final AccumuloRdfConfiguration conf = conf(false);
+        conf.setAuths("A");
+        new DictionaryLayoutMigrationTool(connector, conf, 10).migrate();
+
+        final AccumuloRdfConfiguration dictionaryConf = conf(true);
+        dictionaryConf.setAuths("A");
+        dictionaryConf.setRegexSubject(NS + "b.*");
+        final Set<RyaStatement> results = query(dictionaryConf, new RyaStatement(null, new RyaIRI(NS + "knows"), null));
+        assertEquals(1, results.size());
+        assertEquals(new RyaIRI(NS + "bob"), results.iterator().next().getSubject());
+    }
+
+    @Test
+    public void bindingBatchOverDictionaryEncodedTerms() throws Exception {
+        final AccumuloRdfConfiguration conf = conf(false);
+        conf.setAuths("A");
+        new DictionaryLayoutMigrationTool(connector, conf, 10).migrate();
+
+        final AccumuloRdfConfiguration dictionaryConf = conf(true);
+        dictionaryConf.setAuths("A");
+        final MapBindingSet aliceBindings = new MapBindingSet();
+        aliceBindings.addBinding("person", SimpleValueFactory.getInstance().createLiteral("alice"));
+        final MapBindingSet bobBindings = new MapBindingSet();
+        bobBindings.addBinding("person", SimpleValueFactory.getInstance().createLiteral("bob"));
+        final List<Map.Entry<RyaStatement, BindingSet>> probes = new ArrayList<>();
+        probes.add(new AbstractMap.SimpleEntry<RyaStatement, BindingSet>(
+                new RyaStatement(new RyaIRI(NS + "alice"), new RyaIRI(NS + "knows"), null), aliceBindings));
+        probes.add(new AbstractMap.SimpleEntry<RyaStatement, BindingSet>(
+                new RyaStatement(new RyaIRI(NS + "bob"), null, null), bobBindings));
+
+        final AccumuloRyaQueryEngine engine = new AccumuloRyaQueryEngine(connector, dictionaryConf);
+        final Set<String> results = new HashSet<>();
+        final CloseableIteration<? extends Map.Entry<RyaStatement, BindingSet>, RyaDAOException> iteration =
+                engine.queryWithBindingBatch(BindingBatch.fromEntries(probes), dictionaryConf);
+        try {
+            while (iteration.hasNext()) {
+                final Map.Entry<RyaStatement, BindingSet> result = iteration.next();
+                results.add(result.getValue().getValue("person").stringValue() + " " + result.getKey().getObject().getData());
+            }
+        } finally {
+            iteration.close();
+        }
+
+        final Set<String> expected = new HashSet<>();
+        expected.add("alice " + NS + "bob");
+        expected.add("bob " + NS + "carol");
+        expected.add("bob Bob");
+        assertEquals(expected, results);
+    }
+
+    @Test
+    public void deleteDoesNotRegisterTerms() throws Exception {
+        final AccumuloRdfConfiguration conf = conf(false);
+        conf.setAuths("A");
+        new DictionaryLayoutMigrationTool(connector, conf, 10).migrate();
+        final int terms = countTerms();
+
+        final AccumuloRdfConfiguration dictionaryConf = conf(true);
+        dictionaryConf.setAuths("A");
+        final AccumuloRyaDAO dictionaryDao = new AccumuloRyaDAO();
+        dictionaryDao.setConnector(connector);
+        dictionaryDao.setConf(dictionaryConf);
+        dictionaryDao.init();
+        try {
+            dictionaryDao.delete(new RyaStatement(new RyaIRI(NS + "dave"), new RyaIRI(NS + "knows"), new RyaIRI(NS + "erin")),
+                    dictionaryConf);
+            dictionaryDao.flush();
+        } finally {
+            dictionaryDao.destroy();
+        }
+        assertEquals(terms, countTerms());
+    }
+
+    @Test
+    public void deleteUnreferencedTerms() throws Exception {
+        final AccumuloRdfConfiguration conf = conf(false);
+        conf.setAuths("A");
+        new DictionaryLayoutMigrationTool(connector, conf, 10).migrate();
+
+        final AccumuloRdfConfiguration dictionaryConf = conf(true);
+        dictionaryConf.setAuths("A");
+        final AccumuloRyaDAO dictionaryDao = new AccumuloRyaDAO();
+        dictionaryDao.setConnector(connector);
+        dictionaryDao.setConf(dictionaryConf);
+        dictionaryDao.init();
+        try {
+            dictionaryDao.delete(new RyaStatement(new RyaIRI(NS + "bob"), new RyaIRI(NS + "name"), new RyaType("Bob")),
+                    dictionaryConf);
+            dictionaryDao.flush();
+        } finally {
+            dictionaryDao.destroy();
+        }
+        final int terms = countTerms();
+
+        // The predicate and the literal of the deleted statement are no longer used, bob still is.
+        assertEquals(2, new DictionaryLayoutMigrationTool(connector, conf, 10).deleteUnreferencedTerms());
+        assertEquals(terms - 2, countTerms());
+        assertEquals(3, query(dictionaryConf, new RyaStatement()).size());
+    }
+
+    @Test(expected = RyaDAOException.class)
+    public void missingAuthorizationsFail() throws Exception {
+        // Without the "A" authorization the labeled statement would be left behind.
+        new DictionaryLayoutMigrationTool(connector, conf(false), 10).migrate();
+    }
+
+    private static AccumuloRdfConfiguration conf(final boolean dictionaryEncoding) {
+        final AccumuloRdfConfiguration conf = new AccumuloRdfConfiguration();
+        conf.setTablePrefix(PREFIX);
+        conf.setDictionaryEncoding(dictionaryEncoding);
+        return conf;
+    }
+
+    private int countTerms() throws Exception {
+        final String termsTable = new DictionaryTableLayoutStrategy(PREFIX).getTerms();
+        final Set<String> ids = new HashSet<>();
+        for (final Map.Entry<Key, Value> entry : connector.createScanner(termsTable, new Authorizations("A"))) {
+            ids.add(entry.getKey().getRow().toString());
+        }
+        return ids.size();
+    }
+
+    private Set<RyaStatement> query(final AccumuloRdfConfiguration conf, final RyaStatement pattern) throws Exception {
+        final AccumuloRyaQueryEngine engine = new AccumuloRyaQueryEngine(connector, conf);
+        final Set<RyaStatement> results = new HashSet<>();
+        try (CloseableIterable<RyaStatement> statements = engine.query(RyaQuery.builder(pattern).load(conf).build())) {
+            for (final RyaStatement statement : statements) {
+                results.add(statement);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link ParallelRangeScanner}.
+ */
+public class ParallelRangeScannerTest {
+    private static final String TABLE = "parallel_range_scanner";
+
+    private Connector connector;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        connector = new MockInstance("parallel_range_scanner").getConnector("root", new byte[0]);
+        if (connector.tableOperations().exists(TABLE)) {
+            connector.tableOperations().delete(TABLE);
+        }
+        connector.tableOperations().create(TABLE);
+        final BatchWriter writer = connector.createBatchWriter(TABLE, new BatchWriterConfig());
+        for (int row = 0; row < 10; row++) {
+            for (int column = 0; column < 5; column++) {
+                final Mutation mutation = new Mutation("row" + row);
+                mutation.put("cf", "cq" + column, new Value(new byte[0]));
+                writer.addMutation(mutation);
+            }
+        }
+        writer.close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        connector.tableOperations().delete(TABLE);
+    }
+
+    @Test
+    public void preservesRangeOrder() throws Exception {
+        executor = ParallelRangeScanner.createExecutor(3);
+        final List<Range> ranges = reversedRows();
+
+        assertEquals(expectedRows(ranges), scanRows(ranges, executor));
+    }
+
+    @Test
+    public void scansOnConsumerThreadWhenNoThreadIsFree() throws Exception {
+        executor = ParallelRangeScanner.createExecutor(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        try {
+            final List<Range> ranges = reversedRows();
+            assertEquals(expectedRows(ranges), scanRows(ranges, executor));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void nestedScansShareThreads() throws Exception {
+        // the outer scan holds the only thread while the inner scans are read, like a bind join
+        executor = ParallelRangeScanner.createExecutor(1);
+        final List<Range> ranges = reversedRows();
+
+        int innerResults = 0;
+        try (ParallelRangeScanner outer = new ParallelRangeScanner(ranges, scannerFactory(), 2, 1, true, executor)) {
+            for (final Map.Entry<Key, Value> entry : outer) {
+                innerResults += scanRows(ranges, executor).size();
+            }
+        }
+        assertEquals(50 * 50, innerResults);
+    }
+
+    @Test(timeout = 60000)
+    public void abandonedScanReleasesThreads() throws Exception {
+        executor = ParallelRangeScanner.createExecutor(2);
+        startAbandonedScan();
+
+        // the workers notice that nobody reads their buffers once the iterator has been collected
+        final ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        while (pool.getActiveCount() > 0) {
+            System.gc();
+            Thread.sleep(100);
+        }
+    }
+
+    private void startAbandonedScan() {
+        final ParallelRangeScanner scanner = new ParallelRangeScanner(reversedRows(), scannerFactory(), 2, 1, true, executor);
+        final Iterator<Map.Entry<Key, Value>> entries = scanner.iterator();
+        assertTrue(entries.hasNext());
+        // neither the scanner nor its iterator are closed
+    }
+
+    private List<String> scanRows(final List<Range> ranges, final ExecutorService executor) throws Exception {
+        final List<String> rows = new ArrayList<>();
+        try (ParallelRangeScanner scanner = new ParallelRangeScanner(ranges, scannerFactory(), 2, 2, true, executor)) {
+            for (final Map.Entry<Key, Value> entry : scanner) {
+                rows.add(entry.getKey().getRow().toString());
+            }
+        }
+        return rows;
+    }
+
+    private ParallelRangeScanner.ScannerFactory scannerFactory() {
+        return new ParallelRangeScanner.ScannerFactory() {
+            @Override
+            public Scanner createScanner(final Range range) throws Exception {
+                final Scanner scanner = connector.createScanner(TABLE, new Authorizations());
+                scanner.setRange(range);
+                return scanner;
+            }
+        };
+    }
+
+    private static List<Range> reversedRows() {
+        final List<Range> ranges = new ArrayList<>();
+        for (int row = 9; row >= 0; row--) {
+            ranges.add(Range.exact("row" + row));
+        }
+        return ranges;
+    }
+
+    private static List<String> expectedRows(final List<Range> ranges) {
+        final List<String> rows = new ArrayList<>();
+        for (final Range range : ranges) {
+            for (int column = 0; column < 5; column++) {
+                rows.add(range.getStartKey().getRow().toString());
+            }
+        }
+        return rows;
+    }
+}
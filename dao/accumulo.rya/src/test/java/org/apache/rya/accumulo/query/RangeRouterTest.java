@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.query;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+
+import org.apache.accumulo.core.data.Column;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link RangeRouter}.
+ */
+public class RangeRouterTest {
+
+    @Test
+    public void routesToContainingRanges() {
+        final RangeRouter router = new RangeRouter(Arrays.asList(
+                Range.prefix("c"),
+                Range.prefix("a"),
+                Range.prefix("ab"),
+                Range.exact("b")));
+
+        assertArrayEquals(new int[] {1}, router.route(new Key("aa")));
+        assertArrayEquals(new int[] {1, 2}, router.route(new Key("abc")));
+        assertArrayEquals(new int[] {3}, router.route(new Key("b")));
+        assertArrayEquals(new int[0], router.route(new Key("ba")));
+        assertArrayEquals(new int[] {0}, router.route(new Key("cz")));
+        // keys that arrive out of order are still routed
+        assertArrayEquals(new int[] {1}, router.route(new Key("a")));
+        assertArrayEquals(new int[0], router.route(new Key("0")));
+    }
+
+    @Test
+    public void comparesContexts() {
+        // the same kind of range the query engine builds for a triple pattern
+        final Range range = new Range(new Text("a"), new Text("a\u00ff"));
+        final RangeRouter router = new RangeRouter(Arrays.asList(
+                bound(range, "urn:graph1"),
+                bound(range, "urn:graph2"),
+                range));
+
+        assertArrayEquals(new int[] {0, 2}, router.route(new Key(new Text("ab"), new Text("urn:graph1"))));
+        assertArrayEquals(new int[] {1, 2}, router.route(new Key(new Text("ab"), new Text("urn:graph2"))));
+        assertArrayEquals(new int[] {2}, router.route(new Key(new Text("ab"), new Text("urn:graph3"))));
+    }
+
+    private static Range bound(final Range range, final String context) {
+        final byte[] contextBytes = context.getBytes();
+        return range.bound(new Column(contextBytes, new byte[] { (byte) 0x00 }, new byte[] { (byte) 0x00 }),
+                new Column(contextBytes, new byte[] { (byte) 0xff }, new byte[] { (byte) 0xff }));
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.accumulo.transitive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.rya.accumulo.AccumuloRdfConfiguration;
+import org.apache.rya.accumulo.AccumuloRyaDAO;
+import org.apache.rya.accumulo.experimental.AccumuloIndexer;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.index.TransitiveClosureIndex;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.vocabulary.OWL;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AccumuloTransitiveClosureIndexerTest {
+    private static final String NS = "urn:test:transitive#";
+    private static final RyaIRI PART_OF = new RyaIRI(NS + "partOf");
+
+    private AccumuloRyaDAO dao;
+    private AccumuloRdfConfiguration conf;
+    private TransitiveClosureIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        final Connector connector = new MockInstance().getConnector("root", new PasswordToken(""));
+        connector.securityOperations().changeUserAuthorizations("root", new Authorizations("A"));
+        conf = new AccumuloRdfConfiguration();
+        conf.setAuths("A");
+        conf.setAdditionalIndexers(AccumuloTransitiveClosureIndexer.class);
+        dao = new AccumuloRyaDAO();
+        dao.setConnector(connector);
+        dao.setConf(conf);
+        dao.init();
+        index = (TransitiveClosureIndex) dao.getSecondaryIndexers().get(0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dao.dropAndDestroy();
+    }
+
+    @Test
+    public void declarationBuildsClosure() throws Exception {
+        dao.add(edge("a", "b"));
+        dao.add(edge("b", "c"));
+        assertFalse(index.isIndexed(PART_OF));
+
+        dao.add(new RyaStatement(PART_OF, new RyaIRI(RDF.TYPE.stringValue()), new RyaIRI(OWL.TRANSITIVEPROPERTY.stringValue())));
+
+        assertTrue(index.isIndexed(PART_OF));
+        assertEquals(set("b", "c"), objects("a"));
+    }
+
+    @Test
+    public void insertsExtendClosure() throws Exception {
+        declare();
+        dao.add(edge("a", "b"));
+        dao.add(edge("c", "d"));
+        dao.add(edge("b", "c"));
+
+        assertEquals(set("b", "c", "d"), objects("a"));
+        assertEquals(set("a", "b", "c"), subjects("d"));
+        assertEquals(6, query(new RyaStatement(null, PART_OF, null)).size());
+        assertEquals(1, query(new RyaStatement(new RyaIRI(NS + "a"), PART_OF, new RyaIRI(NS + "d"))).size());
+    }
+
+    @Test
+    public void deleteRebuildsClosure() throws Exception {
+        declare();
+        dao.add(edge("a", "b"));
+        dao.add(edge("b", "c"));
+        dao.add(edge("c", "d"));
+
+        dao.delete(edge("b", "c"), conf);
+
+        assertEquals(set("b"), objects("a"));
+        assertEquals(set("c"), subjects("d"));
+    }
+
+    @Test
+    public void deleteMatchingNothingKeepsClosure() throws Exception {
+        declare();
+        dao.add(edge("a", "b"));
+        // only in the closure, so a rebuild from the triple tables would remove it
+        ((AccumuloIndexer) index).storeStatement(edge("x", "y"));
+
+        dao.delete(edge("a", "z"), conf);
+        dao.delete(new RyaStatement(null, null, new RyaIRI(NS + "z")), conf);
+
+        assertEquals(set("y"), objects("x"));
+        assertEquals(set("b"), objects("a"));
+    }
+
+    @Test
+    public void concurrentInsertsExtendClosure() throws Exception {
+        declare();
+        final int length = 20;
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < length; i++) {
+                final RyaStatement edge = edge("n" + i, "n" + (i + 1));
+                futures.add(executor.submit(() -> {
+                    dao.add(edge);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Set<String> expected = new HashSet<>();
+        for (int i = 1; i <= length; i++) {
+            expected.add(NS + "n" + i);
+        }
+        assertEquals(expected, objects("n0"));
+        assertEquals((length + 1) * length / 2, query(new RyaStatement(null, PART_OF, null)).size());
+    }
+
+    @Test
+    public void rebuildKeepsEveryPathVisibility() throws Exception {
+        declare();
+        // c is reached first through a restricted path, then through a longer public one
+        dao.add(edge("a", "d", "A"));
+        dao.add(edge("d", "c", "A"));
+        dao.add(edge("a", "p"));
+        dao.add(edge("p", "q"));
+        dao.add(edge("q", "c"));
+        dao.add(edge("x", "y"));
+
+        dao.delete(edge("x", "y"), conf);
+
+        assertEquals(set("c", "d", "p", "q"), objects("a", conf));
+        assertEquals(set("c", "p", "q"), objects("a", new AccumuloRdfConfiguration()));
+    }
+
+    @Test
+    public void dropGraphRebuildsClosure() throws Exception {
+        declare();
+        final RyaIRI graph = new RyaIRI(NS + "graph");
+        final RyaStatement inGraph = edge("b", "c");
+        inGraph.setContext(graph);
+        dao.add(edge("a", "b"));
+        dao.add(inGraph);
+        dao.add(edge("c", "d"));
+        assertEquals(set("b", "c", "d"), objects("a"));
+
+        dao.dropGraph(conf, graph);
+
+        assertEquals(set("b"), objects("a"));
+        assertEquals(set("c"), subjects("d"));
+    }
+
+    @Test
+    public void undeclareDropsClosure() throws Exception {
+        declare();
+        dao.add(edge("a", "b"));
+
+        dao.delete(new RyaStatement(PART_OF, new RyaIRI(RDF.TYPE.stringValue()), null), conf);
+
+        assertFalse(index.isIndexed(PART_OF));
+        assertTrue(query(new RyaStatement(null, PART_OF, null)).isEmpty());
+    }
+
+    private void declare() throws RyaDAOException {
+        dao.add(new RyaStatement(PART_OF, new RyaIRI(RDF.TYPE.stringValue()), new RyaIRI(OWL.TRANSITIVEPROPERTY.stringValue())));
+    }
+
+    private static RyaStatement edge(final String subject, final String object) {
+        return new RyaStatement(new RyaIRI(NS + subject), PART_OF, new RyaIRI(NS + object));
+    }
+
+    private static RyaStatement edge(final String subject, final String object, final String visibility) {
+        final RyaStatement edge = edge(subject, object);
+        edge.setColumnVisibility(visibility.getBytes(StandardCharsets.UTF_8));
+        return edge;
+    }
+
+    private static Set<String> set(final String... names) {
+        final Set<String> set = new HashSet<>();
+        for (final String name : names) {
+            set.add(NS + name);
+        }
+        return set;
+    }
+
+    private Set<String> objects(final String subject) throws RyaDAOException {
+        return objects(subject, conf);
+    }
+
+    private Set<String> objects(final String subject, final AccumuloRdfConfiguration queryConf) throws RyaDAOException {
+        final Set<String> objects = new HashSet<>();
+        for (final RyaStatement statement : query(new RyaStatement(new RyaIRI(NS + subject), PART_OF, null), queryConf)) {
+            objects.add(statement.getObject().getData());
+        }
+        return objects;
+    }
+
+    private Set<String> subjects(final String object) throws RyaDAOException {
+        final Set<String> subjects = new HashSet<>();
+        for (final RyaStatement statement : query(new RyaStatement(null, PART_OF, new RyaIRI(NS + object)))) {
+            subjects.add(statement.getSubject().getData());
+        }
+        return subjects;
+    }
+
+    private Set<RyaStatement> query(final RyaStatement pattern) throws RyaDAOException {
+        return query(pattern, conf);
+    }
+
+    private Set<RyaStatement> query(final RyaStatement pattern, final AccumuloRdfConfiguration queryConf) throws RyaDAOException {
+        final Set<RyaStatement> statements = new HashSet<>();
+        final CloseableIteration<RyaStatement, RyaDAOException> iter = index.queryClosure(pattern, queryConf);
+        try {
+            while (iter.hasNext()) {
+                statements.add(iter.next());
+            }
+        } finally {
+            iter.close();
+        }
+        return statements;
+    }
+}
@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.persist.RyaDAOException;
@@ -48,6 +50,7 @@ import org.eclipse.rdf4j.query.impl.MapBindingSet;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 
@@ -58,11 +61,21 @@ import com.mongodb.client.MongoDatabase;
 public class MongoDBQueryEngine implements RyaQueryEngine<StatefulMongoDBRdfConfiguration> {
 
     private StatefulMongoDBRdfConfiguration configuration;
-    private final MongoDBStorageStrategy<RyaStatement> strategy = new SimpleMongoDBStorageStrategy();
+    private MongoDBStorageStrategy<RyaStatement> strategy = new SimpleMongoDBStorageStrategy();
+    private ExecutorService executor;
 
     @Override
     public void setConf(final StatefulMongoDBRdfConfiguration conf) {
         configuration = conf;
+        strategy = conf.getStorageStrategy();
+    }
+
+    /**
+     * @param strategy - The layout the statements are read with, in place of the one
+     *   {@link #setConf(StatefulMongoDBRdfConfiguration)} creates. (not null)
+     */
+    public void setStorageStrategy(final MongoDBStorageStrategy<RyaStatement> strategy) {
+        this.strategy = checkNotNull(strategy);
     }
 
     @Override
@@ -102,7 +115,8 @@ public class MongoDBQueryEngine implements RyaQueryEngine<StatefulMongoDBRdfConf
 
             // TODO not sure what to do about regex ranges?
             final RyaStatementBindingSetCursorIterator iterator = new RyaStatementBindingSetCursorIterator(
-                    getCollection(conf), rangeMap, strategy, conf.getAuthorizations());
+                    getCollection(conf), rangeMap, strategy, conf.getAuthorizations(), conf.getQueryBatchSize(),
+                    conf.getQueryConcurrentBatches(), conf.getQueryPrefetch(), getExecutor());
 
             return iterator;
         } catch (final Exception e) {
@@ -151,7 +165,26 @@ public class MongoDBQueryEngine implements RyaQueryEngine<StatefulMongoDBRdfConf
         return db.getCollection(conf.getTriplesCollectionName());
     }
 
+    /**
+     * @return The pool the aggregations of this engine's queries run on. Each query bounds how many
+     *   of its aggregations run at once, so the pool grows with the number of open queries instead
+     *   of making one query's aggregations wait for another query to be read.
+     */
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                    .setNameFormat("rya-mongodb-query-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+        return executor;
+    }
+
     @Override
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
     }
 }
\ No newline at end of file
@@ -18,6 +18,7 @@
  */
 package org.apache.rya.mongodb;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 import java.util.List;
@@ -27,6 +28,8 @@ import org.apache.accumulo.core.security.Authorizations;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
 import org.apache.rya.mongodb.aggregation.AggregationPipelineQueryOptimizer;
+import org.apache.rya.mongodb.dao.BinaryMongoDBStorageStrategy;
+import org.apache.rya.mongodb.dao.SimpleMongoDBStorageStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryOptimizer;
 
 import edu.umd.cs.findbugs.annotations.Nullable;
@@ -56,6 +59,14 @@ public class MongoDBRdfConfiguration extends RdfCloudTripleStoreConfiguration {
 
     public static final String USE_AGGREGATION_PIPELINE = "rya.mongodb.query.pipeline";
 
+    public static final String QUERY_BATCH_SIZE = "rya.mongodb.query.batchsize";
+    public static final String QUERY_CONCURRENT_BATCHES = "rya.mongodb.query.concurrentbatches";
+    public static final String QUERY_PREFETCH = "rya.mongodb.query.prefetch";
+
+    public static final String STORAGE_VERSION = "rya.mongodb.storage.version";
+    public static final String MIGRATE_STORAGE = "rya.mongodb.storage.migrate";
+    public static final String MIGRATION_BATCH_SIZE = "rya.mongodb.storage.migrate.batchsize";
+
     /**
      * Constructs an empty instance of {@link MongoDBRdfConfiguration}.
      */
@@ -258,11 +269,12 @@ public class MongoDBRdfConfiguration extends RdfCloudTripleStoreConfiguration {
     }
 
     /**
-     * Whether aggregation pipeline optimization is enabled.
+     * Whether aggregation pipeline optimization is enabled. The pipeline only understands
+     * the version 1 storage layout, so it is never used with later versions.
      * @return true if queries will be evaluated using MongoDB aggregation.
      */
     public boolean getUseAggregationPipeline() {
-        return getBoolean(USE_AGGREGATION_PIPELINE, false);
+        return getBoolean(USE_AGGREGATION_PIPELINE, false) && getStorageVersion() == 1;
     }
 
     /**
@@ -278,6 +290,104 @@ public class MongoDBRdfConfiguration extends RdfCloudTripleStoreConfiguration {
         setBoolean(USE_AGGREGATION_PIPELINE, value);
     }
 
+    /**
+     * @return The number of statement patterns evaluated by a single aggregation. (default: 50)
+     */
+    public int getQueryBatchSize() {
+        return getInt(QUERY_BATCH_SIZE, 50);
+    }
+
+    /**
+     * @param batchSize - The number of statement patterns evaluated by a single aggregation.
+     */
+    public void setQueryBatchSize(final int batchSize) {
+        setInt(QUERY_BATCH_SIZE, batchSize);
+    }
+
+    /**
+     * @return The number of aggregations a query keeps running at once. (default: 4)
+     */
+    public int getQueryConcurrentBatches() {
+        return getInt(QUERY_CONCURRENT_BATCHES, 4);
+    }
+
+    /**
+     * @param batches - The number of aggregations a query keeps running at once.
+     */
+    public void setQueryConcurrentBatches(final int batches) {
+        setInt(QUERY_CONCURRENT_BATCHES, batches);
+    }
+
+    /**
+     * @return The number of results each running aggregation may buffer before
+     *   it waits for the query to read them. (default: 1000)
+     */
+    public int getQueryPrefetch() {
+        return getInt(QUERY_PREFETCH, 1000);
+    }
+
+    /**
+     * @param prefetch - The number of results each running aggregation may buffer.
+     */
+    public void setQueryPrefetch(final int prefetch) {
+        setInt(QUERY_PREFETCH, prefetch);
+    }
+
+    /**
+     * @return The version of the layout triples are stored with: 1 for
+     *   {@link SimpleMongoDBStorageStrategy}, 2 for {@link BinaryMongoDBStorageStrategy}. (default: 1)
+     */
+    public int getStorageVersion() {
+        return getInt(STORAGE_VERSION, 1);
+    }
+
+    /**
+     * @param version - The version of the layout triples are stored with, either 1 or 2.
+     */
+    public void setStorageVersion(final int version) {
+        checkArgument(version == 1 || version == BinaryMongoDBStorageStrategy.VERSION,
+                "Unknown storage version: " + version);
+        setInt(STORAGE_VERSION, version);
+    }
+
+    /**
+     * @return The strategy of the configured storage version.
+     */
+    public SimpleMongoDBStorageStrategy getStorageStrategy() {
+        return getStorageVersion() == BinaryMongoDBStorageStrategy.VERSION
+                ? new BinaryMongoDBStorageStrategy() : new SimpleMongoDBStorageStrategy();
+    }
+
+    /**
+     * Whether documents stored in an older layout are rewritten in the background
+     * when the DAO is initialized with a later storage version.
+     * @return {@code true} if the triples are migrated. (default: true)
+     */
+    public boolean isMigrateStorage() {
+        return getBoolean(MIGRATE_STORAGE, true);
+    }
+
+    /**
+     * @param migrate - {@code true} if documents stored in an older layout are migrated.
+     */
+    public void setMigrateStorage(final boolean migrate) {
+        setBoolean(MIGRATE_STORAGE, migrate);
+    }
+
+    /**
+     * @return The number of documents a storage migration reads at a time. (default: 1000)
+     */
+    public int getMigrationBatchSize() {
+        return getInt(MIGRATION_BATCH_SIZE, 1000);
+    }
+
+    /**
+     * @param batchSize - The number of documents a storage migration reads at a time.
+     */
+    public void setMigrationBatchSize(final int batchSize) {
+        setInt(MIGRATION_BATCH_SIZE, batchSize);
+    }
+
     @Override
     public List<Class<QueryOptimizer>> getOptimizers() {
         final List<Class<QueryOptimizer>> optimizers = super.getOptimizers();
@@ -42,7 +42,9 @@ import org.apache.rya.mongodb.batch.MongoDbBatchWriterConfig;
 import org.apache.rya.mongodb.batch.MongoDbBatchWriterException;
 import org.apache.rya.mongodb.batch.MongoDbBatchWriterUtils;
 import org.apache.rya.mongodb.batch.collection.DbCollectionType;
+import org.apache.rya.mongodb.dao.BinaryMongoDBStorageStrategy;
 import org.apache.rya.mongodb.dao.MongoDBNamespaceManager;
+import org.apache.rya.mongodb.dao.MongoDBStorageMigration;
 import org.apache.rya.mongodb.dao.MongoDBStorageStrategy;
 import org.apache.rya.mongodb.dao.SimpleMongoDBNamespaceManager;
 import org.apache.rya.mongodb.dao.SimpleMongoDBStorageStrategy;
@@ -69,6 +71,7 @@ public final class MongoDBRyaDAO implements RyaDAO<StatefulMongoDBRdfConfigurati
     private MongoDBQueryEngine queryEngine;
     private MongoDBStorageStrategy<RyaStatement> storageStrategy;
     private MongoDBNamespaceManager nameSpaceManager;
+    private MongoDBStorageMigration migration;
 
     private List<MongoSecondaryIndex> secondaryIndexers;
     private Authorizations auths;
@@ -110,10 +113,26 @@ public final class MongoDBRyaDAO implements RyaDAO<StatefulMongoDBRdfConfigurati
         db = mongoClient.getDB(conf.get(MongoDBRdfConfiguration.MONGO_DB_NAME));
         coll = db.getCollection(conf.getTriplesCollectionName());
         nameSpaceManager = new SimpleMongoDBNamespaceManager(db.getCollection(conf.getNameSpacesCollectionName()));
+        final SimpleMongoDBStorageStrategy strategy = conf.getStorageStrategy();
+        storageStrategy = strategy;
+        storageStrategy.createIndices(coll);
+        if (strategy instanceof BinaryMongoDBStorageStrategy) {
+            final boolean version1 = MongoDBStorageMigration.hasVersion1Documents(coll);
+            if (conf.isMigrateStorage()) {
+                migration = new MongoDBStorageMigration(coll, new SimpleMongoDBStorageStrategy(), strategy,
+                        conf.getMigrationBatchSize());
+                final Thread migrationThread = new Thread(migration, "rya-mongodb-migration");
+                migrationThread.setDaemon(true);
+                migrationThread.start();
+            }
+            // reads and deletes match the version 1 documents until they are migrated
+            final MongoDBStorageMigration started = migration;
+            ((BinaryMongoDBStorageStrategy) strategy).setMatchVersion1(
+                    () -> version1 && (started == null || !started.isFinished()));
+        }
         queryEngine = new MongoDBQueryEngine();
         queryEngine.setConf(conf);
-        storageStrategy = new SimpleMongoDBStorageStrategy();
-        storageStrategy.createIndices(coll);
+        queryEngine.setStorageStrategy(storageStrategy);
         for(final MongoSecondaryIndex index: secondaryIndexers) {
             index.init();
         }
@@ -139,6 +158,9 @@ public final class MongoDBRyaDAO implements RyaDAO<StatefulMongoDBRdfConfigurati
             return;
         }
         isInitialized.set(false);
+        if (migration != null) {
+            migration.stop();
+        }
         flush();
         try {
             mongoDbBatchWriter.shutdown();
@@ -222,7 +244,7 @@ public final class MongoDBRyaDAO implements RyaDAO<StatefulMongoDBRdfConfigurati
             throws RyaDAOException {
         final boolean canDelete = DocumentVisibilityUtil.doesUserHaveDocumentAccess(auths, statement.getColumnVisibility());
         if (canDelete) {
-            final DBObject obj = storageStrategy.getQuery(statement);
+            final DBObject obj = getDeleteQuery(statement);
             coll.remove(obj);
             for (final RyaSecondaryIndexer index : secondaryIndexers) {
                 try {
@@ -249,7 +271,7 @@ public final class MongoDBRyaDAO implements RyaDAO<StatefulMongoDBRdfConfigurati
             final RyaStatement ryaStatement = statements.next();
             final boolean canDelete = DocumentVisibilityUtil.doesUserHaveDocumentAccess(auths, ryaStatement.getColumnVisibility());
             if (canDelete) {
-                coll.remove(storageStrategy.getQuery(ryaStatement));
+                coll.remove(getDeleteQuery(ryaStatement));
                 for (final RyaSecondaryIndexer index : secondaryIndexers) {
                     try {
                         index.deleteStatement(ryaStatement);
@@ -263,6 +285,15 @@ public final class MongoDBRyaDAO implements RyaDAO<StatefulMongoDBRdfConfigurati
         }
     }
 
+    /**
+     * Matches the documents of a statement. Version 1 documents of the statement are matched as well
+     * until the migration to the binary layout has finished, so a deleted statement is not brought
+     * back when its old document is migrated.
+     */
+    private DBObject getDeleteQuery(final RyaStatement statement) {
+        return storageStrategy.getQuery(statement);
+    }
+
     @Override
     public String getVersion() throws RyaDAOException {
         return "1.0";
@@ -283,6 +314,14 @@ public final class MongoDBRyaDAO implements RyaDAO<StatefulMongoDBRdfConfigurati
 
     }
 
+    /**
+     * @return The migration of documents stored in an older layout, or {@code null}
+     *   if none was started.
+     */
+    public MongoDBStorageMigration getStorageMigration() {
+        return migration;
+    }
+
     @Override
     public void dropAndDestroy() throws RyaDAOException {
         db.dropDatabase(); // this is dangerous!
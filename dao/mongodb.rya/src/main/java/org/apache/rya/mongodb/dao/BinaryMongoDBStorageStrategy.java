@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.mongodb.dao;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.domain.StatementMetadata;
+import org.apache.rya.api.utils.LiteralLanguageUtils;
+import org.apache.rya.mongodb.document.visibility.DocumentVisibilityAdapter;
+import org.bson.types.Binary;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Version 2 of the layout {@link RyaStatement}s are stored with in MongoDB.
+ * <p>
+ * The fields are named as in {@link SimpleMongoDBStorageStrategy}, but the term hashes are
+ * the first 8 bytes of their SHA-256 digest and the {@code _id} the first 16 bytes of the
+ * digest of the statement, all stored as binary instead of hex strings. Empty contexts,
+ * languages and statement metadata are left out of the document.
+ * <p>
+ * The compound indices lead with the term hashes and hold every field a triple pattern is
+ * matched on, so a lookup is bounded by the index alone. Since truncated hashes can collide,
+ * queries also match the bound terms themselves, which only costs a comparison on the
+ * documents that are fetched anyway.
+ * <p>
+ * While a collection still holds version 1 documents, see {@link #setMatchVersion1(BooleanSupplier)},
+ * queries match them as well with an {@code $or} of both layouts.
+ * <p>
+ * This layout can not be evaluated with the aggregation pipeline, which writes and joins on
+ * the version 1 hashes.
+ */
+public class BinaryMongoDBStorageStrategy extends SimpleMongoDBStorageStrategy {
+    public static final int VERSION = 2;
+
+    private static final int TERM_HASH_LENGTH = 8;
+    private static final int ID_HASH_LENGTH = 16;
+
+    private volatile BooleanSupplier matchVersion1 = () -> false;
+
+    /**
+     * Generate the hash that will be used to index and retrieve a given value.
+     * @param value  A value to be stored or accessed (e.g. a IRI or literal).
+     * @return the hash associated with that value in MongoDB.
+     */
+    public static Binary binaryHash(final String value) {
+        return new Binary(Arrays.copyOf(DigestUtils.sha256(value), TERM_HASH_LENGTH));
+    }
+
+    @Override
+    public List<DBObject> getIndices() {
+        final List<DBObject> indices = new ArrayList<>();
+        indices.add(new BasicDBObject(SUBJECT_HASH, 1)
+                .append(PREDICATE_HASH, 1)
+                .append(OBJECT_HASH, 1)
+                .append(OBJECT_TYPE, 1)
+                .append(OBJECT_LANGUAGE, 1)
+                .append(CONTEXT, 1));
+        indices.add(new BasicDBObject(PREDICATE_HASH, 1)
+                .append(OBJECT_HASH, 1)
+                .append(OBJECT_TYPE, 1)
+                .append(OBJECT_LANGUAGE, 1)
+                .append(SUBJECT_HASH, 1)
+                .append(CONTEXT, 1));
+        indices.add(new BasicDBObject(OBJECT_HASH, 1)
+                .append(OBJECT_TYPE, 1)
+                .append(OBJECT_LANGUAGE, 1)
+                .append(SUBJECT_HASH, 1)
+                .append(PREDICATE_HASH, 1)
+                .append(CONTEXT, 1));
+        return indices;
+    }
+
+    /**
+     * Makes queries match the version 1 documents of their statements as well for as long as
+     * {@code matchVersion1} holds, so statements stay visible until they are migrated.
+     *
+     * @param matchVersion1 - Whether the collection may still hold version 1 documents. (not null)
+     */
+    public void setMatchVersion1(final BooleanSupplier matchVersion1) {
+        this.matchVersion1 = requireNonNull(matchVersion1);
+    }
+
+    @Override
+    public DBObject getQuery(final RyaStatement stmt) {
+        final DBObject query = getBinaryQuery(stmt);
+        if (!matchVersion1.getAsBoolean()) {
+            return query;
+        }
+        return new BasicDBObject("$or", Arrays.asList(query, super.getQuery(stmt)));
+    }
+
+    private DBObject getBinaryQuery(final RyaStatement stmt) {
+        final RyaIRI subject = stmt.getSubject();
+        final RyaIRI predicate = stmt.getPredicate();
+        final RyaType object = stmt.getObject();
+        final RyaIRI context = stmt.getContext();
+        final BasicDBObject query = new BasicDBObject();
+        if (subject != null){
+            query.append(SUBJECT_HASH, binaryHash(subject.getData()));
+        }
+        if (object != null){
+            query.append(OBJECT_HASH, binaryHash(object.getData()));
+            query.append(OBJECT_TYPE, object.getDataType().toString());
+            query.append(OBJECT_LANGUAGE, object.getLanguage());
+        }
+        if (predicate != null){
+            query.append(PREDICATE_HASH, binaryHash(predicate.getData()));
+        }
+        if (context != null){
+            query.append(CONTEXT, context.getData());
+        }
+        // resolves hash collisions on the fetched documents
+        if (subject != null){
+            query.append(SUBJECT, subject.getData());
+        }
+        if (object != null){
+            query.append(OBJECT, object.getData());
+        }
+        if (predicate != null){
+            query.append(PREDICATE, predicate.getData());
+        }
+        return query;
+    }
+
+    @Override
+    public BasicDBObject serializeInternal(final RyaStatement statement){
+        final String context = statement.getContext() != null ? statement.getContext().getData() : "";
+        final String validatedLanguage = LiteralLanguageUtils.validateLanguage(statement.getObject().getLanguage(), statement.getObject().getDataType());
+        final String id = statement.getSubject().getData() + " " +
+                statement.getPredicate().getData() + " " +  statement.getObject().getData() + (validatedLanguage != null ? " " + validatedLanguage : "") + " " + context;
+        final byte[] digest = DigestUtils.sha256(id.getBytes(StandardCharsets.UTF_8));
+
+        final BasicDBObject doc = new BasicDBObject(ID, new Binary(Arrays.copyOf(digest, ID_HASH_LENGTH)))
+        .append(SUBJECT, statement.getSubject().getData())
+        .append(SUBJECT_HASH, binaryHash(statement.getSubject().getData()))
+        .append(PREDICATE, statement.getPredicate().getData())
+        .append(PREDICATE_HASH, binaryHash(statement.getPredicate().getData()))
+        .append(OBJECT, statement.getObject().getData())
+        .append(OBJECT_HASH, binaryHash(statement.getObject().getData()))
+        .append(OBJECT_TYPE, statement.getObject().getDataType().toString());
+        if (statement.getObject().getLanguage() != null) {
+            doc.append(OBJECT_LANGUAGE, statement.getObject().getLanguage());
+        }
+        if (!context.isEmpty()) {
+            doc.append(CONTEXT, context);
+        }
+        final StatementMetadata metadata = statement.getMetadata();
+        if (metadata != null && !metadata.getMetadata().isEmpty()) {
+            doc.append(STATEMENT_METADATA, metadata.toString());
+        }
+        doc.append(DOCUMENT_VISIBILITY, DocumentVisibilityAdapter.toDBObject(statement.getColumnVisibility()).get(DOCUMENT_VISIBILITY))
+        .append(TIMESTAMP, statement.getTimestamp());
+        return doc;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.mongodb.dao;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.apache.rya.api.domain.RyaStatement;
+import org.bson.BsonType;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.MongoException;
+import com.mongodb.WriteResult;
+
+/**
+ * Rewrites the triple documents of one storage layout into another, a batch at a time,
+ * so a collection written with {@link SimpleMongoDBStorageStrategy} can be moved to
+ * {@link BinaryMongoDBStorageStrategy} while it is in use.
+ * <p>
+ * Version 1 documents are recognized by their string {@code _id}. Each one is decoded,
+ * written in the new layout and then removed, so a document that is migrated twice by
+ * concurrent runs is only stored once. Queries of the new layout match the old documents
+ * as well until {@link #isFinished()}, see {@link BinaryMongoDBStorageStrategy#setMatchVersion1}.
+ * Once no version 1 documents remain, the indices of the old layout are dropped.
+ * <p>
+ * Deletes must remove both forms of a statement until {@link #isFinished()}. A document
+ * deleted after it was read by a batch is detected when its removal finds nothing, and
+ * the copy written in the new layout is removed again so the statement stays deleted.
+ */
+public class MongoDBStorageMigration implements Runnable {
+    private static final Logger log = Logger.getLogger(MongoDBStorageMigration.class);
+
+    private static final DBObject VERSION_1_DOCUMENTS = new BasicDBObject(SimpleMongoDBStorageStrategy.ID,
+            new BasicDBObject("$type", BsonType.STRING.getValue()));
+
+    private final DBCollection coll;
+    private final SimpleMongoDBStorageStrategy from;
+    private final SimpleMongoDBStorageStrategy to;
+    private final int batchSize;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final AtomicLong migrated = new AtomicLong();
+    private volatile boolean finished = false;
+
+    /**
+     * @param coll - The triples collection. (not null)
+     * @param from - The layout the documents are stored in. (not null)
+     * @param to - The layout the documents are rewritten in. (not null)
+     * @param batchSize - The number of documents read at a time.
+     */
+    public MongoDBStorageMigration(final DBCollection coll, final SimpleMongoDBStorageStrategy from,
+            final SimpleMongoDBStorageStrategy to, final int batchSize) {
+        this.coll = requireNonNull(coll);
+        this.from = requireNonNull(from);
+        this.to = requireNonNull(to);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run() {
+        try {
+            migrate();
+        } catch (final MongoException e) {
+            log.error("Migration of " + coll.getFullName() + " failed after " + migrated.get() + " documents.", e);
+        }
+    }
+
+    /**
+     * Migrates the documents of the old layout until there are none left or {@link #stop()} is called.
+     * @return The number of documents migrated by this call.
+     */
+    public long migrate() {
+        final long start = migrated.get();
+        while (!stopped.get()) {
+            final List<DBObject> batch = new ArrayList<>(batchSize);
+            try (DBCursor cursor = coll.find(VERSION_1_DOCUMENTS).limit(batchSize)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                }
+            }
+            if (batch.isEmpty()) {
+                finished = true;
+                dropIndices();
+                log.info("Migrated " + migrated.get() + " documents of " + coll.getFullName() + ".");
+                break;
+            }
+            for (final DBObject document : batch) {
+                final RyaStatement statement = from.deserializeDBObject(document);
+                final DBObject migratedDocument = to.serialize(statement);
+                boolean inserted = false;
+                try {
+                    coll.insert(migratedDocument);
+                    inserted = true;
+                } catch (final DuplicateKeyException e) {
+                    // already written in the new layout
+                }
+                final WriteResult removed = coll.remove(new BasicDBObject(SimpleMongoDBStorageStrategy.ID,
+                        document.get(SimpleMongoDBStorageStrategy.ID)));
+                if (inserted && removed.getN() == 0) {
+                    // The statement was deleted after this batch read it
+                    coll.remove(new BasicDBObject(SimpleMongoDBStorageStrategy.ID,
+                            migratedDocument.get(SimpleMongoDBStorageStrategy.ID)));
+                }
+                migrated.incrementAndGet();
+            }
+        }
+        return migrated.get() - start;
+    }
+
+    private void dropIndices() {
+        final List<DBObject> kept = to.getIndices();
+        for (final DBObject index : from.getIndices()) {
+            if (!kept.contains(index)) {
+                try {
+                    coll.dropIndex(index);
+                } catch (final MongoException e) {
+                    log.debug("Index " + index + " was already dropped.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param coll - The triples collection. (not null)
+     * @return {@code true} if the collection holds documents of the version 1 layout.
+     */
+    public static boolean hasVersion1Documents(final DBCollection coll) {
+        return coll.findOne(VERSION_1_DOCUMENTS) != null;
+    }
+
+    /**
+     * Stops the migration once the batch being migrated is done.
+     */
+    public void stop() {
+        stopped.set(true);
+    }
+
+    /**
+     * @return {@code true} once no documents of the old layout are left.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return The number of documents migrated so far.
+     */
+    public long getMigratedCount() {
+        return migrated.get();
+    }
+}
@@ -25,6 +25,7 @@ import com.mongodb.DBObject;
 
 import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.persist.query.RyaQuery;
+import org.bson.Document;
 
 /**
  * Defines how objects are stored in MongoDB.
@@ -36,6 +37,12 @@ public interface MongoDBStorageStrategy<T> {
 
 	public RyaStatement deserializeDBObject(DBObject queryResult);
 
+	/**
+	 * Decodes a result of the {@link com.mongodb.client.MongoCollection} API without
+	 * first converting it to a {@link DBObject}.
+	 */
+	public RyaStatement deserializeDocument(Document queryResult);
+
 	public DBObject serialize(T statement);
 
 	public DBObject getQuery(RyaQuery ryaQuery);
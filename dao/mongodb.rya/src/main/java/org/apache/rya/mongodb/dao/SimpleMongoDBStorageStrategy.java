@@ -23,6 +23,8 @@ import static org.eclipse.rdf4j.model.vocabulary.XMLSchema.ANYURI;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.codec.binary.Hex;
@@ -37,6 +39,7 @@ import org.apache.rya.api.utils.LiteralLanguageUtils;
 import org.apache.rya.mongodb.document.visibility.DocumentVisibility;
 import org.apache.rya.mongodb.document.visibility.DocumentVisibilityAdapter;
 import org.apache.rya.mongodb.document.visibility.DocumentVisibilityAdapter.MalformedDocumentVisibilityException;
+import org.bson.Document;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
 
@@ -78,23 +81,34 @@ public class SimpleMongoDBStorageStrategy implements MongoDBStorageStrategy<RyaS
 
     @Override
     public void createIndices(final DBCollection coll){
+        for (final DBObject index : getIndices()) {
+            coll.createIndex(index);
+        }
+    }
+
+    /**
+     * @return The key patterns of the indices {@link #createIndices(DBCollection)} creates.
+     */
+    public List<DBObject> getIndices() {
+        final List<DBObject> indices = new ArrayList<>();
         BasicDBObject doc = new BasicDBObject();
         doc.put(SUBJECT_HASH, 1);
         doc.put(PREDICATE_HASH, 1);
         doc.put(OBJECT_HASH, 1);
         doc.put(OBJECT_TYPE, 1);
         doc.put(OBJECT_LANGUAGE, 1);
-        coll.createIndex(doc);
+        indices.add(doc);
         doc = new BasicDBObject(PREDICATE_HASH, 1);
         doc.put(OBJECT_HASH, 1);
         doc.put(OBJECT_TYPE, 1);
         doc.put(OBJECT_LANGUAGE, 1);
-        coll.createIndex(doc);
+        indices.add(doc);
         doc = new BasicDBObject(OBJECT_HASH, 1);
         doc.put(OBJECT_TYPE, 1);
         doc.put(OBJECT_LANGUAGE, 1);
         doc.put(SUBJECT_HASH, 1);
-        coll.createIndex(doc);
+        indices.add(doc);
+        return indices;
     }
 
     @Override
@@ -123,20 +137,40 @@ public class SimpleMongoDBStorageStrategy implements MongoDBStorageStrategy<RyaS
 
     @Override
     public RyaStatement deserializeDBObject(final DBObject queryResult) {
-        final Map<?, ?> result = queryResult.toMap();
-        final String subject = (String) result.get(SUBJECT);
-        final String object = (String) result.get(OBJECT);
-        final String objectType = (String) result.get(OBJECT_TYPE);
-        final String objectLanguage = (String) result.get(OBJECT_LANGUAGE);
-        final String predicate = (String) result.get(PREDICATE);
-        final String context = (String) result.get(CONTEXT);
         DocumentVisibility documentVisibility = null;
         try {
             documentVisibility = DocumentVisibilityAdapter.toDocumentVisibility(queryResult);
         } catch (final MalformedDocumentVisibilityException e) {
             throw new RuntimeException("Unable to convert document visibility", e);
         }
-        final Long timestamp = (Long) result.get(TIMESTAMP);
+        return deserialize(queryResult.toMap(), documentVisibility);
+    }
+
+    @Override
+    public RyaStatement deserializeDocument(final Document queryResult) {
+        DocumentVisibility documentVisibility = null;
+        try {
+            documentVisibility = DocumentVisibilityAdapter.toDocumentVisibility(queryResult);
+        } catch (final MalformedDocumentVisibilityException e) {
+            throw new RuntimeException("Unable to convert document visibility", e);
+        }
+        return deserialize(queryResult, documentVisibility);
+    }
+
+    /**
+     * Builds a statement from the fields of a stored document.
+     * @param result - The fields of the document. (not null)
+     * @param documentVisibility - The visibility read from the document. (not null)
+     * @return The statement the document stores.
+     */
+    protected RyaStatement deserialize(final Map<?, ?> result, final DocumentVisibility documentVisibility) {
+        final String subject = (String) result.get(SUBJECT);
+        final String object = (String) result.get(OBJECT);
+        final String objectType = (String) result.get(OBJECT_TYPE);
+        final String objectLanguage = (String) result.get(OBJECT_LANGUAGE);
+        final String predicate = (String) result.get(PREDICATE);
+        final String context = (String) result.get(CONTEXT);
+        final Number timestamp = (Number) result.get(TIMESTAMP);
         final String statementMetadata = (String) result.get(STATEMENT_METADATA);
         RyaType objectRya = null;
         final String validatedLanguage = LiteralLanguageUtils.validateLanguage(objectLanguage, factory.createIRI(objectType));
@@ -149,7 +183,7 @@ public class SimpleMongoDBStorageStrategy implements MongoDBStorageStrategy<RyaS
         }
 
         final RyaStatement statement;
-        if (!context.isEmpty()){
+        if (context != null && !context.isEmpty()){
             statement = new RyaStatement(new RyaIRI(subject), new RyaIRI(predicate), objectRya,
                     new RyaIRI(context));
         } else {
@@ -158,7 +192,7 @@ public class SimpleMongoDBStorageStrategy implements MongoDBStorageStrategy<RyaS
 
         statement.setColumnVisibility(documentVisibility.flatten());
         if(timestamp != null) {
-            statement.setTimestamp(timestamp);
+            statement.setTimestamp(timestamp.longValue());
         }
         if(statementMetadata != null) {
             try {
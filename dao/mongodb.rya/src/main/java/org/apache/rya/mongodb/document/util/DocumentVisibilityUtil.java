@@ -21,19 +21,26 @@ package org.apache.rya.mongodb.document.util;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.security.ColumnVisibility.Node;
 import org.apache.accumulo.core.security.ColumnVisibility.NodeType;
-import org.apache.accumulo.core.security.VisibilityEvaluator;
-import org.apache.accumulo.core.security.VisibilityParseException;
 import org.apache.log4j.Logger;
+import org.apache.rya.api.model.visibility.BadArgumentException;
+import org.apache.rya.api.model.visibility.CompiledAuthorizations;
+import org.apache.rya.api.model.visibility.CompiledVisibility;
+import org.apache.rya.api.model.visibility.VisibilityCache;
 import org.apache.rya.mongodb.MongoDbRdfConstants;
 import org.apache.rya.mongodb.document.visibility.DocumentVisibility;
 
 import com.google.common.base.Charsets;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 import com.mongodb.BasicDBList;
 
@@ -45,6 +52,19 @@ import com.mongodb.BasicDBList;
 public final class DocumentVisibilityUtil {
     private static final Logger log = Logger.getLogger(DocumentVisibilityUtil.class);
 
+    private static final LoadingCache<Authorizations, CompiledAuthorizations> COMPILED_AUTHORIZATIONS = CacheBuilder.newBuilder()
+            .maximumSize(VisibilityCache.MAX_CACHED_AUTHORIZATIONS)
+            .build(new CacheLoader<Authorizations, CompiledAuthorizations>() {
+                @Override
+                public CompiledAuthorizations load(final Authorizations authorizations) {
+                    final Set<String> auths = new HashSet<>();
+                    for (final byte[] auth : authorizations.getAuthorizations()) {
+                        auths.add(new String(auth, Charsets.UTF_8));
+                    }
+                    return VisibilityCache.compileAuthorizations(auths);
+                }
+            });
+
     /**
      * Private constructor to prevent instantiation.
      */
@@ -268,8 +288,7 @@ public final class DocumentVisibilityUtil {
      */
     public static boolean doesUserHaveDocumentAccess(final Authorizations authorizations, final byte[] documentVisibilityExpression) {
         final byte[] expression = documentVisibilityExpression != null ? documentVisibilityExpression : MongoDbRdfConstants.EMPTY_DV.getExpression();
-        final DocumentVisibility documentVisibility = new DocumentVisibility(expression);
-        return doesUserHaveDocumentAccess(authorizations, documentVisibility);
+        return doesUserHaveDocumentAccess(authorizations, expression, true);
     }
 
     /**
@@ -295,15 +314,32 @@ public final class DocumentVisibilityUtil {
      * {@code false} otherwise.
      */
     public static boolean doesUserHaveDocumentAccess(final Authorizations authorizations, final DocumentVisibility documentVisibility, final boolean doesEmptyAccessPass) {
+        return doesUserHaveDocumentAccess(authorizations, documentVisibility.getExpression(), doesEmptyAccessPass);
+    }
+
+    /**
+     * Checks if the user's authorizations allows them to have access to the
+     * provided document based on its document visibility. The expression and
+     * the authorizations are compiled once and cached by the
+     * {@link VisibilityCache}.
+     * @param authorizations the {@link Authorizations}.
+     * @param documentVisibilityExpression the document visibility byte expression.
+     * (not {@code null})
+     * @param doesEmptyAccessPass {@code true} if an empty authorization pass
+     * allows access to everything. {@code false} otherwise.
+     * @return {@code true} if the user has access to the document.
+     * {@code false} otherwise.
+     */
+    private static boolean doesUserHaveDocumentAccess(final Authorizations authorizations, final byte[] documentVisibilityExpression, final boolean doesEmptyAccessPass) {
         final Authorizations userAuths = authorizations != null ? authorizations : MongoDbRdfConstants.ALL_AUTHORIZATIONS;
-        final VisibilityEvaluator visibilityEvaluator = new VisibilityEvaluator(userAuths);
         boolean accept = false;
         if (doesEmptyAccessPass && MongoDbRdfConstants.ALL_AUTHORIZATIONS.equals(userAuths)) {
             accept = true;
         } else {
             try {
-                accept = visibilityEvaluator.evaluate(documentVisibility);
-            } catch (final VisibilityParseException e) {
+                final CompiledVisibility visibility = VisibilityCache.compile(documentVisibilityExpression);
+                accept = visibility.evaluate(COMPILED_AUTHORIZATIONS.getUnchecked(userAuths));
+            } catch (final BadArgumentException e) {
                 log.error("Could not parse document visibility.");
             }
         }
@@ -317,11 +353,20 @@ public final class DocumentVisibilityUtil {
      * @return the array of {@link Object}s.
      */
     public static Object[] convertBasicDBListToObjectArray(final BasicDBList basicDbList) {
+        return convertListToObjectArray(basicDbList);
+    }
+
+    /**
+     * Converts a {@link List}, such as the arrays of a decoded
+     * {@link org.bson.Document}, into an array of {@link Object}s.
+     * @param values the {@link List} to convert.
+     * @return the array of {@link Object}s.
+     */
+    public static Object[] convertListToObjectArray(final List<?> values) {
         final List<Object> list = new ArrayList<>();
-        final Object[] array = basicDbList.toArray();
-        for (final Object child : array) {
-            if (child instanceof BasicDBList) {
-                list.add(convertBasicDBListToObjectArray((BasicDBList)child));
+        for (final Object child : values) {
+            if (child instanceof List) {
+                list.add(convertListToObjectArray((List<?>) child));
             } else {
                 list.add(child);
             }
@@ -18,13 +18,15 @@
  */
 package org.apache.rya.mongodb.document.visibility;
 
+import java.util.List;
+
 import org.apache.log4j.Logger;
 import org.apache.rya.mongodb.MongoDbRdfConstants;
 import org.apache.rya.mongodb.dao.SimpleMongoDBStorageStrategy;
 import org.apache.rya.mongodb.document.util.DocumentVisibilityConversionException;
 import org.apache.rya.mongodb.document.util.DocumentVisibilityUtil;
+import org.bson.Document;
 
-import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.BasicDBObjectBuilder;
 import com.mongodb.DBObject;
@@ -104,15 +106,27 @@ public final class DocumentVisibilityAdapter {
      * @throws MalformedDocumentVisibilityException
      */
     public static DocumentVisibility toDocumentVisibility(final DBObject mongoObj) throws MalformedDocumentVisibilityException {
-        try {
-            final BasicDBObject basicObj = (BasicDBObject) mongoObj;
+        return toDocumentVisibility(mongoObj.get(DOCUMENT_VISIBILITY_KEY));
+    }
+
+    /**
+     * Deserializes the document visibility field of a MongoDB {@link Document}
+     * to a {@link DocumentVisibility}.
+     * @param document the {@link Document} to be deserialized.
+     * @return the {@link DocumentVisibility} object.
+     * @throws MalformedDocumentVisibilityException
+     */
+    public static DocumentVisibility toDocumentVisibility(final Document document) throws MalformedDocumentVisibilityException {
+        return toDocumentVisibility(document.get(DOCUMENT_VISIBILITY_KEY));
+    }
 
-            final Object documentVisibilityObject = basicObj.get(DOCUMENT_VISIBILITY_KEY);
+    private static DocumentVisibility toDocumentVisibility(final Object documentVisibilityObject) throws MalformedDocumentVisibilityException {
+        try {
             Object[] documentVisibilityArray = null;
             if (documentVisibilityObject instanceof Object[]) {
                 documentVisibilityArray = (Object[]) documentVisibilityObject;
-            } else if (documentVisibilityObject instanceof BasicDBList) {
-                documentVisibilityArray = DocumentVisibilityUtil.convertBasicDBListToObjectArray((BasicDBList) documentVisibilityObject);
+            } else if (documentVisibilityObject instanceof List) {
+                documentVisibilityArray = DocumentVisibilityUtil.convertListToObjectArray((List<?>) documentVisibilityObject);
             }
 
             final String documentVisibilityString = DocumentVisibilityUtil.multidimensionalArrayToBooleanString(documentVisibilityArray);
@@ -18,12 +18,26 @@
  */
 package org.apache.rya.mongodb.iter;
 
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.log4j.Logger;
@@ -37,41 +51,77 @@ import org.bson.Document;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.query.BindingSet;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Iterators;
 import com.google.common.collect.Multimap;
 import com.mongodb.DBObject;
-import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.MongoCollection;
-import com.mongodb.util.JSON;
+import com.mongodb.client.MongoCursor;
 
+/**
+ * Evaluates a set of statement patterns, each with the binding sets it was created for, as
+ * {@code $or} aggregations of up to {@code batchSize} patterns.
+ * <p>
+ * Up to {@code concurrentBatches} aggregations run at once on the query engine's executor.
+ * Each decodes its documents and buffers at most {@code prefetch} of them, so a slow reader
+ * holds the aggregations back instead of the results piling up in memory. Batches are read
+ * in the order they were submitted. An aggregation stops once the iterator is closed, or is no
+ * longer referenced because it was abandoned without being closed.
+ * <p>
+ * A result is routed to the binding sets of the patterns it matches through a hash lookup
+ * per combination of bound positions in its batch, rather than by comparing it with every
+ * pattern.
+ */
 public class RyaStatementBindingSetCursorIterator implements CloseableIteration<Entry<RyaStatement, BindingSet>, RyaDAOException> {
     private static final Logger log = Logger.getLogger(RyaStatementBindingSetCursorIterator.class);
 
-    private static final int QUERY_BATCH_SIZE = 50;
+    private static final Object END_OF_BATCH = new Object();
+
+    /**
+     * How long an aggregation waits for room in its buffer before checking whether it is still read.
+     */
+    private static final long OFFER_TIMEOUT_MILLIS = 1000;
 
     private final MongoCollection<Document> coll;
     private final Multimap<RyaStatement, BindingSet> rangeMap;
-    private final Multimap<RyaStatement, BindingSet> executedRangeMap = HashMultimap.create();
     private final Iterator<RyaStatement> queryIterator;
-    private Iterator<Document> batchQueryResultsIterator;
-    private RyaStatement currentResultStatement;
-    private Iterator<BindingSet> currentBindingSetIterator;
     private final MongoDBStorageStrategy<RyaStatement> strategy;
     private final Authorizations auths;
+    private final int batchSize;
+    private final int concurrentBatches;
+    private final int prefetch;
+    private final ExecutorService executor;
 
+    private final Deque<BatchFetch> inFlight = new ArrayDeque<>();
+    private RyaStatement currentResultStatement;
+    private Iterator<BindingSet> currentBindingSetIterator;
+    private volatile boolean closed = false;
+
+    /**
+     * @param coll - The triples collection. (not null)
+     * @param rangeMap - The patterns to evaluate and the binding sets of each. (not null)
+     * @param strategy - Builds the queries and decodes the results. (not null)
+     * @param auths - The authorizations the results are redacted with. (not null)
+     * @param batchSize - The number of patterns evaluated by one aggregation.
+     * @param concurrentBatches - The number of aggregations that run at once.
+     * @param prefetch - The number of results each running aggregation may buffer.
+     * @param executor - Runs the aggregations. (not null)
+     */
     public RyaStatementBindingSetCursorIterator(final MongoCollection<Document> coll,
             final Multimap<RyaStatement, BindingSet> rangeMap, final MongoDBStorageStrategy<RyaStatement> strategy,
-            final Authorizations auths) {
+            final Authorizations auths, final int batchSize, final int concurrentBatches, final int prefetch,
+            final ExecutorService executor) {
         this.coll = coll;
         this.rangeMap = rangeMap;
         queryIterator = rangeMap.keySet().iterator();
         this.strategy = strategy;
         this.auths = auths;
+        this.batchSize = Math.max(1, batchSize);
+        this.concurrentBatches = Math.max(1, concurrentBatches);
+        this.prefetch = Math.max(1, prefetch);
+        this.executor = executor;
     }
 
     @Override
-    public boolean hasNext() {
+    public boolean hasNext() throws RyaDAOException {
         if (!currentBindingSetIteratorIsValid()) {
             findNextResult();
         }
@@ -79,7 +129,7 @@ public class RyaStatementBindingSetCursorIterator implements CloseableIteration<
     }
 
     @Override
-    public Entry<RyaStatement, BindingSet> next() {
+    public Entry<RyaStatement, BindingSet> next() throws RyaDAOException {
         if (!currentBindingSetIteratorIsValid()) {
             findNextResult();
         }
@@ -94,85 +144,79 @@ public class RyaStatementBindingSetCursorIterator implements CloseableIteration<
         return (currentBindingSetIterator != null) && currentBindingSetIterator.hasNext();
     }
 
-    private void findNextResult() {
-        if (!currentBatchQueryResultCursorIsValid()) {
-            submitBatchQuery();
-        }
-
-        if (currentBatchQueryResultCursorIsValid()) {
-            // convert to Rya Statement
-            final Document queryResult = batchQueryResultsIterator.next();
-            final DBObject dbo = (DBObject) JSON.parse(queryResult.toJson());
-            currentResultStatement = strategy.deserializeDBObject(dbo);
+    @SuppressWarnings("unchecked")
+    private void findNextResult() throws RyaDAOException {
+        while (!closed) {
+            fillBatches();
+            final BatchFetch batch = inFlight.peek();
+            if (batch == null) {
+                return;
+            }
 
-            // Find all of the queries in the executed RangeMap that this result matches
-            // and collect all of those binding sets
-            final Set<BindingSet> bsList = new HashSet<>();
-            for (final RyaStatement executedQuery : executedRangeMap.keys()) {
-                if (isResultForQuery(executedQuery, currentResultStatement)) {
-                    bsList.addAll(executedRangeMap.get(executedQuery));
-                }
+            final Object result;
+            try {
+                result = batch.results.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RyaDAOException("Interrupted while waiting for query results.", e);
             }
-            currentBindingSetIterator = bsList.iterator();
-        }
 
-        // Handle case of invalid currentResultStatement or no binding sets returned
-        if ((currentBindingSetIterator == null || !currentBindingSetIterator.hasNext()) && (currentBatchQueryResultCursorIsValid() || queryIterator.hasNext())) {
-            findNextResult();
+            if (result == END_OF_BATCH) {
+                inFlight.poll();
+            } else if (result instanceof Failure) {
+                throw new RyaDAOException("Unable to evaluate a batch of queries.", ((Failure) result).cause);
+            } else {
+                final Entry<RyaStatement, Set<BindingSet>> routed = (Entry<RyaStatement, Set<BindingSet>>) result;
+                currentResultStatement = routed.getKey();
+                currentBindingSetIterator = routed.getValue().iterator();
+                return;
+            }
         }
     }
 
-    private static boolean isResultForQuery(final RyaStatement query, final RyaStatement result) {
-        return isResult(query.getSubject(), result.getSubject()) &&
-                isResult(query.getPredicate(), result.getPredicate()) &&
-                isResult(query.getObject(), result.getObject()) &&
-                isResult(query.getContext(), result.getContext());
-    }
-
-    private static boolean isResult(final RyaType query, final RyaType result) {
-        return (query == null) || query.equals(result);
+    private void fillBatches() throws RyaDAOException {
+        while (inFlight.size() < concurrentBatches && queryIterator.hasNext()) {
+            final BatchFetch batch = nextBatch();
+            try {
+                batch.future = executor.submit(batch);
+            } catch (final RejectedExecutionException e) {
+                throw new RyaDAOException("The query engine has been closed.", e);
+            }
+            inFlight.add(batch);
+        }
     }
 
-    private void submitBatchQuery() {
-        int count = 0;
-        executedRangeMap.clear();
-        final List<Document> pipeline = new ArrayList<>();
+    private BatchFetch nextBatch() {
+        final BindingRouter router = new BindingRouter();
         final List<DBObject> match = new ArrayList<>();
-
-        while (queryIterator.hasNext() && count < QUERY_BATCH_SIZE){
-            count++;
+        while (queryIterator.hasNext() && match.size() < batchSize) {
             final RyaStatement query = queryIterator.next();
-            executedRangeMap.putAll(query, rangeMap.get(query));
-            final DBObject currentQuery = strategy.getQuery(query);
-            match.add(currentQuery);
+            router.add(query, rangeMap.get(query));
+            match.add(strategy.getQuery(query));
         }
 
+        final List<Document> pipeline = new ArrayList<>();
         if (match.size() > 1) {
             pipeline.add(new Document("$match", new Document("$or", match)));
-        } else if (match.size() == 1) {
-            pipeline.add(new Document("$match", match.get(0)));
         } else {
-            batchQueryResultsIterator = Iterators.emptyIterator();
-            return;
+            pipeline.add(new Document("$match", match.get(0)));
         }
 
         // Executing redact aggregation to only return documents the user has access to.
         pipeline.addAll(AggregationUtil.createRedactPipeline(auths));
         log.trace(pipeline);
-
-        final AggregateIterable<Document> aggIter = coll.aggregate(pipeline);
-        aggIter.batchSize(1000);
-        batchQueryResultsIterator = aggIter.iterator();
+        return new BatchFetch(this, pipeline, router);
     }
 
-    private boolean currentBatchQueryResultCursorIsValid() {
-        return (batchQueryResultsIterator != null) && batchQueryResultsIterator.hasNext();
-    }
-
-
     @Override
     public void close() throws RyaDAOException {
-        // TODO don't know what to do here
+        closed = true;
+        for (final BatchFetch batch : inFlight) {
+            if (batch.future != null) {
+                batch.future.cancel(true);
+            }
+        }
+        inFlight.clear();
     }
 
     @Override
@@ -180,4 +224,143 @@ public class RyaStatementBindingSetCursorIterator implements CloseableIteration<
         next();
     }
 
+    /**
+     * Runs one aggregation, handing its routed results to the reader through a bounded queue.
+     * <p>
+     * The reader is only weakly referenced, so an abandoned iterator can be collected and the
+     * aggregation then stops instead of waiting on its full buffer forever.
+     */
+    private static class BatchFetch implements Runnable {
+        private final WeakReference<RyaStatementBindingSetCursorIterator> reader;
+        private final MongoCollection<Document> coll;
+        private final MongoDBStorageStrategy<RyaStatement> strategy;
+        private final int prefetch;
+        private final List<Document> pipeline;
+        private final BindingRouter router;
+        private final BlockingQueue<Object> results;
+        private Future<?> future;
+
+        private BatchFetch(final RyaStatementBindingSetCursorIterator reader, final List<Document> pipeline,
+                final BindingRouter router) {
+            this.reader = new WeakReference<>(reader);
+            coll = reader.coll;
+            strategy = reader.strategy;
+            prefetch = reader.prefetch;
+            this.pipeline = pipeline;
+            this.router = router;
+            results = new LinkedBlockingQueue<>(prefetch);
+        }
+
+        @Override
+        public void run() {
+            try {
+                try (MongoCursor<Document> cursor = coll.aggregate(pipeline).batchSize(prefetch).iterator()) {
+                    while (cursor.hasNext()) {
+                        final RyaStatement statement = strategy.deserializeDocument(cursor.next());
+                        final Set<BindingSet> bindings = router.route(statement);
+                        if (!bindings.isEmpty() && !hand(new AbstractMap.SimpleImmutableEntry<>(statement, bindings))) {
+                            return;
+                        }
+                    }
+                }
+                hand(END_OF_BATCH);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final RuntimeException e) {
+                try {
+                    hand(new Failure(e));
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Waits for room in the buffer for as long as the result is still read.
+         *
+         * @param result - The result to hand to the reader. (not null)
+         * @return {@code true} if the result was buffered; {@code false} if the reader was closed or abandoned.
+         */
+        private boolean hand(final Object result) throws InterruptedException {
+            while (!results.offer(result, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                final RyaStatementBindingSetCursorIterator current = reader.get();
+                if (current == null || current.closed) {
+                    log.debug("Stopping a batch of queries whose results are no longer read.");
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Failure {
+        private final Exception cause;
+
+        private Failure(final Exception cause) {
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Indexes the binding sets of a batch's patterns by the values of their bound positions.
+     */
+    static class BindingRouter {
+        private final Map<Integer, Map<List<RyaType>, Set<BindingSet>>> byShape = new HashMap<>();
+
+        void add(final RyaStatement query, final Collection<BindingSet> bindings) {
+            final int shape = shape(query);
+            byShape.computeIfAbsent(shape, k -> new HashMap<>())
+                    .computeIfAbsent(key(query, shape), k -> new HashSet<>())
+                    .addAll(bindings);
+        }
+
+        /**
+         * @param result - A statement returned by the batch. (not null)
+         * @return The binding sets of every pattern the statement matches.
+         */
+        Set<BindingSet> route(final RyaStatement result) {
+            Set<BindingSet> routed = Collections.emptySet();
+            boolean copied = false;
+            for (final Map.Entry<Integer, Map<List<RyaType>, Set<BindingSet>>> shape : byShape.entrySet()) {
+                final Set<BindingSet> bindings = shape.getValue().get(key(result, shape.getKey()));
+                if (bindings == null) {
+                    continue;
+                }
+                if (routed.isEmpty()) {
+                    routed = bindings;
+                } else {
+                    if (!copied) {
+                        routed = new HashSet<>(routed);
+                        copied = true;
+                    }
+                    routed.addAll(bindings);
+                }
+            }
+            return routed;
+        }
+
+        private static int shape(final RyaStatement query) {
+            return (query.getSubject() != null ? 1 : 0)
+                    | (query.getPredicate() != null ? 2 : 0)
+                    | (query.getObject() != null ? 4 : 0)
+                    | (query.getContext() != null ? 8 : 0);
+        }
+
+        private static List<RyaType> key(final RyaStatement statement, final int shape) {
+            final List<RyaType> key = new ArrayList<>(4);
+            if ((shape & 1) != 0) {
+                key.add(statement.getSubject());
+            }
+            if ((shape & 2) != 0) {
+                key.add(statement.getPredicate());
+            }
+            if ((shape & 4) != 0) {
+                key.add(statement.getObject());
+            }
+            if ((shape & 8) != 0) {
+                key.add(statement.getContext());
+            }
+            return key;
+        }
+    }
 }
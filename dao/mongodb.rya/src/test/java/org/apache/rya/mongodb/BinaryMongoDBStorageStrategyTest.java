@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.mongodb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaStatement.RyaStatementBuilder;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.mongodb.dao.BinaryMongoDBStorageStrategy;
+import org.apache.rya.mongodb.dao.SimpleMongoDBStorageStrategy;
+import org.apache.rya.mongodb.document.visibility.DocumentVisibility;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+public class BinaryMongoDBStorageStrategyTest {
+    private static final String SUBJECT = "http://subject.com";
+    private static final String PREDICATE = "http://temp.com";
+    private static final String OBJECT = "http://object.com";
+    private static final String CONTEXT = "http://context.com";
+
+    private final BinaryMongoDBStorageStrategy storageStrategy = new BinaryMongoDBStorageStrategy();
+
+    @Test
+    public void testSerializeUsesBinaryHashes() {
+        final DBObject dbo = storageStrategy.serialize(statement(new RyaIRI(OBJECT), null));
+
+        final Binary subjectHash = (Binary) dbo.get(SimpleMongoDBStorageStrategy.SUBJECT_HASH);
+        assertArrayEquals(Arrays.copyOf(DigestUtils.sha256(SUBJECT), 8), subjectHash.getData());
+        assertEquals(16, ((Binary) dbo.get(SimpleMongoDBStorageStrategy.ID)).getData().length);
+        assertFalse(dbo.containsField(SimpleMongoDBStorageStrategy.CONTEXT));
+        assertFalse(dbo.containsField(SimpleMongoDBStorageStrategy.OBJECT_LANGUAGE));
+        assertFalse(dbo.containsField(SimpleMongoDBStorageStrategy.STATEMENT_METADATA));
+    }
+
+    @Test
+    public void testDeserializeDocument() {
+        final RyaStatement statement = statement(new RyaType(RDF.LANGSTRING, OBJECT, "en-US"), CONTEXT);
+        final Document document = new Document(storageStrategy.serialize(statement).toMap());
+
+        final RyaStatement decoded = storageStrategy.deserializeDocument(document);
+        decoded.setTimestamp(null);
+        assertEquals(statement, decoded);
+    }
+
+    @Test
+    public void testDeserializeDBObject() {
+        final RyaStatement statement = statement(new RyaIRI(OBJECT), null);
+
+        final RyaStatement decoded = storageStrategy.deserializeDBObject(storageStrategy.serialize(statement));
+        decoded.setTimestamp(null);
+        assertEquals(statement, decoded);
+    }
+
+    @Test
+    public void testQueryMatchesHashesAndTerms() {
+        final DBObject query = storageStrategy.getQuery(new RyaStatement(new RyaIRI(SUBJECT), new RyaIRI(PREDICATE), null));
+
+        final BasicDBObject expected = new BasicDBObject(SimpleMongoDBStorageStrategy.SUBJECT_HASH, BinaryMongoDBStorageStrategy.binaryHash(SUBJECT))
+                .append(SimpleMongoDBStorageStrategy.PREDICATE_HASH, BinaryMongoDBStorageStrategy.binaryHash(PREDICATE))
+                .append(SimpleMongoDBStorageStrategy.SUBJECT, SUBJECT)
+                .append(SimpleMongoDBStorageStrategy.PREDICATE, PREDICATE);
+        assertEquals(expected, query);
+    }
+
+    @Test
+    public void testQueryMatchesVersion1Documents() {
+        final BinaryMongoDBStorageStrategy migrating = new BinaryMongoDBStorageStrategy();
+        migrating.setMatchVersion1(() -> true);
+        final RyaStatement pattern = new RyaStatement(new RyaIRI(SUBJECT), new RyaIRI(PREDICATE), null);
+
+        final BasicDBObject expected = new BasicDBObject("$or", Arrays.asList(storageStrategy.getQuery(pattern),
+                new SimpleMongoDBStorageStrategy().getQuery(pattern)));
+        assertEquals(expected, migrating.getQuery(pattern));
+    }
+
+    @Test
+    public void testIndicesEndWithContext() {
+        for (final DBObject index : storageStrategy.getIndices()) {
+            assertTrue(index.containsField(SimpleMongoDBStorageStrategy.CONTEXT));
+        }
+    }
+
+    private static RyaStatement statement(final RyaType object, final String context) {
+        final RyaStatementBuilder builder = new RyaStatementBuilder();
+        builder.setSubject(new RyaIRI(SUBJECT));
+        builder.setPredicate(new RyaIRI(PREDICATE));
+        builder.setObject(object);
+        if (context != null) {
+            builder.setContext(new RyaIRI(context));
+        }
+        builder.setColumnVisibility(new DocumentVisibility("A&B").flatten());
+        builder.setTimestamp(null);
+        return builder.build();
+    }
+}
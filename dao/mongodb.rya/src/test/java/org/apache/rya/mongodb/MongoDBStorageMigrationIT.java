@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.mongodb.dao.BinaryMongoDBStorageStrategy;
+import org.apache.rya.mongodb.dao.MongoDBStorageMigration;
+import org.apache.rya.mongodb.dao.SimpleMongoDBStorageStrategy;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.junit.Test;
+
+import com.mongodb.DBCollection;
+
+/**
+ * Integration tests the methods of {@link MongoDBStorageMigration}.
+ */
+public class MongoDBStorageMigrationIT extends MongoRyaITBase {
+
+    @Override
+    protected void updateConfiguration(final MongoDBRdfConfiguration conf) {
+        conf.setStorageVersion(BinaryMongoDBStorageStrategy.VERSION);
+        conf.setMigrateStorage(false);
+    }
+
+    @Test
+    public void migratesVersion1Documents() throws RyaDAOException {
+        final DBCollection coll = getRyaDbCollection();
+        final SimpleMongoDBStorageStrategy v1 = new SimpleMongoDBStorageStrategy();
+        v1.createIndices(coll);
+        for (int i = 0; i < 25; i++) {
+            coll.insert(v1.serialize(statement(i)));
+        }
+
+        final MongoDBRyaDAO dao = new MongoDBRyaDAO();
+        try {
+            dao.setConf(conf);
+            dao.init();
+
+            final MongoDBStorageMigration migration = new MongoDBStorageMigration(coll, v1,
+                    new BinaryMongoDBStorageStrategy(), 10);
+            assertEquals(25, migration.migrate());
+
+            assertEquals(25, getRyaCollection().count());
+            for (final Document document : getRyaCollection().find()) {
+                assertTrue(document.get(SimpleMongoDBStorageStrategy.ID) instanceof Binary);
+            }
+
+            final CloseableIteration<RyaStatement, RyaDAOException> results = dao.getQueryEngine().query(
+                    new RyaStatement(new RyaIRI("urn:subject:3"), null, null), conf);
+            try {
+                assertTrue(results.hasNext());
+                assertEquals(new RyaIRI("urn:object:3"), results.next().getObject());
+            } finally {
+                results.close();
+            }
+        } finally {
+            dao.destroy();
+        }
+    }
+
+    @Test
+    public void readsUnmigratedVersion1Documents() throws RyaDAOException {
+        final DBCollection coll = getRyaDbCollection();
+        final SimpleMongoDBStorageStrategy v1 = new SimpleMongoDBStorageStrategy();
+        v1.createIndices(coll);
+        coll.insert(v1.serialize(statement(1)));
+
+        final MongoDBRyaDAO dao = new MongoDBRyaDAO();
+        try {
+            dao.setConf(conf);
+            dao.init();
+            dao.add(statement(2));
+
+            for (final int stored : new int[] {1, 2}) {
+                final CloseableIteration<RyaStatement, RyaDAOException> results = dao.getQueryEngine().query(
+                        new RyaStatement(null, new RyaIRI("urn:predicate"), new RyaIRI("urn:object:" + stored)), conf);
+                try {
+                    assertTrue(results.hasNext());
+                    assertEquals(new RyaIRI("urn:subject:" + stored), results.next().getSubject());
+                    assertFalse(results.hasNext());
+                } finally {
+                    results.close();
+                }
+            }
+        } finally {
+            dao.destroy();
+        }
+    }
+
+    @Test
+    public void deleteDuringMigrationRemovesVersion1Document() throws RyaDAOException {
+        final DBCollection coll = getRyaDbCollection();
+        final SimpleMongoDBStorageStrategy v1 = new SimpleMongoDBStorageStrategy();
+        v1.createIndices(coll);
+        for (int i = 0; i < 5; i++) {
+            coll.insert(v1.serialize(statement(i)));
+        }
+
+        final MongoDBRyaDAO dao = new MongoDBRyaDAO();
+        try {
+            dao.setConf(conf);
+            dao.init();
+            // One statement is already migrated, the other is still stored in the old layout
+            final MongoDBStorageMigration migration = new MongoDBStorageMigration(coll, v1,
+                    new BinaryMongoDBStorageStrategy(), 10);
+            coll.insert(new BinaryMongoDBStorageStrategy().serialize(statement(1)));
+            coll.remove(v1.getQuery(statement(1)));
+
+            dao.delete(statement(1), conf);
+            dao.delete(statement(3), conf);
+            assertEquals(3, getRyaCollection().count());
+
+            assertEquals(3, migration.migrate());
+            assertTrue(migration.isFinished());
+            assertEquals(3, getRyaCollection().count());
+            for (final int deleted : new int[] {1, 3}) {
+                final CloseableIteration<RyaStatement, RyaDAOException> results = dao.getQueryEngine().query(
+                        new RyaStatement(new RyaIRI("urn:subject:" + deleted), null, null), conf);
+                try {
+                    assertFalse(results.hasNext());
+                } finally {
+                    results.close();
+                }
+            }
+        } finally {
+            dao.destroy();
+        }
+    }
+
+    private static RyaStatement statement(final int i) {
+        return new RyaStatement(new RyaIRI("urn:subject:" + i), new RyaIRI("urn:predicate"), new RyaIRI("urn:object:" + i));
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.rya.mongodb.dao.SimpleMongoDBStorageStrategy;
 import org.apache.rya.mongodb.document.util.DocumentVisibilityConversionException;
 import org.apache.rya.mongodb.document.util.DocumentVisibilityUtil;
 import org.apache.rya.mongodb.document.visibility.DocumentVisibility;
+import org.bson.Document;
 import org.eclipse.rdf4j.model.vocabulary.RDF;
 import org.junit.Test;
 
@@ -144,4 +145,11 @@ public class SimpleMongoDBStorageStrategyTest {
         statement.setTimestamp(null);
         assertEquals(testStatement2, statement);
     }
+
+    @Test
+    public void testDeSerializeStatementFromDocument() throws RyaDAOException, MongoException, IOException {
+        final RyaStatement statement = storageStrategy.deserializeDocument(new Document(testDBO2.toMap()));
+        statement.setTimestamp(null);
+        assertEquals(testStatement2, statement);
+    }
 }
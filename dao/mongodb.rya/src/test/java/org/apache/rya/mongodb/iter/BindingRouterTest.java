@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.mongodb.iter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.mongodb.iter.RyaStatementBindingSetCursorIterator.BindingRouter;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the methods of {@link BindingRouter}.
+ */
+public class BindingRouterTest {
+    private static final RyaIRI ALICE = new RyaIRI("urn:alice");
+    private static final RyaIRI BOB = new RyaIRI("urn:bob");
+    private static final RyaIRI KNOWS = new RyaIRI("urn:knows");
+    private static final RyaIRI LIKES = new RyaIRI("urn:likes");
+
+    @Test
+    public void routesByBoundPositions() {
+        final BindingSet first = bindings("x", "1");
+        final BindingSet second = bindings("x", "2");
+        final BindingSet third = bindings("x", "3");
+
+        final BindingRouter router = new BindingRouter();
+        router.add(new RyaStatement(ALICE, KNOWS, null), Collections.singleton(first));
+        router.add(new RyaStatement(BOB, KNOWS, null), Collections.singleton(second));
+        router.add(new RyaStatement(null, KNOWS, BOB), Collections.singleton(third));
+
+        assertEquals(Sets.newHashSet(first, third), router.route(new RyaStatement(ALICE, KNOWS, BOB)));
+        assertEquals(Collections.singleton(second), router.route(new RyaStatement(BOB, KNOWS, ALICE)));
+        assertTrue(router.route(new RyaStatement(ALICE, LIKES, BOB)).isEmpty());
+    }
+
+    @Test
+    public void matchesObjectTypes() {
+        final BindingSet binding = bindings("x", "1");
+        final BindingRouter router = new BindingRouter();
+        router.add(new RyaStatement(null, LIKES, new RyaType("1")), new HashSet<>(Collections.singleton(binding)));
+
+        assertEquals(Collections.singleton(binding), router.route(new RyaStatement(ALICE, LIKES, new RyaType("1"))));
+        assertTrue(router.route(new RyaStatement(ALICE, LIKES, new RyaIRI("urn:1"))).isEmpty());
+    }
+
+    private static BindingSet bindings(final String name, final String value) {
+        final MapBindingSet bindings = new MapBindingSet();
+        bindings.addBinding(name, SimpleValueFactory.getInstance().createLiteral(value));
+        return bindings;
+    }
+}
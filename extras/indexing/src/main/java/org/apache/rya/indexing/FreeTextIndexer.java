@@ -41,4 +41,23 @@ public interface FreeTextIndexer extends RyaSecondaryIndexer {
      * @throws IOException
      */
     public CloseableIteration<Statement, QueryEvaluationException> queryText(String query, StatementConstraints contraints) throws IOException;
+
+    /**
+     * Query the Free Text Index with specific constraints and rank the results by relevance. A <code>null</code> or empty parameters
+     * imply no constraint.
+     *
+     * @param query
+     *            the query to perform
+     * @param contraints
+     *            the constraints on the statements returned
+     * @param limit
+     *            the maximum number of statements to return, best first, or 0 to score every statement that meets the query in no
+     *            particular order
+     * @return the statements that meet the query and other constraints, along with their scores.
+     * @throws IOException
+     */
+    public default CloseableIteration<ScoredStatement, QueryEvaluationException> queryRankedText(String query, StatementConstraints contraints,
+            int limit) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support ranked free text queries.");
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.indexing;
+
+import static java.util.Objects.requireNonNull;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+
+/**
+ * A {@link Statement} returned by a ranked index query, along with how well it matched the query.
+ * Equality is that of the wrapped {@link Statement}; the score is not considered.
+ */
+public class ScoredStatement implements Statement {
+    private static final long serialVersionUID = 1L;
+
+    private final Statement statement;
+    private final double score;
+
+    /**
+     * Constructs an instance of {@link ScoredStatement}.
+     *
+     * @param statement - The Statement that matched the query. (not null)
+     * @param score - How well the Statement matched the query. Higher is better.
+     */
+    public ScoredStatement(final Statement statement, final double score) {
+        this.statement = requireNonNull(statement);
+        this.score = score;
+    }
+
+    /**
+     * @return The Statement that matched the query.
+     */
+    public Statement getStatement() {
+        return statement;
+    }
+
+    /**
+     * @return How well the Statement matched the query. Higher is better.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public Resource getSubject() {
+        return statement.getSubject();
+    }
+
+    @Override
+    public IRI getPredicate() {
+        return statement.getPredicate();
+    }
+
+    @Override
+    public Value getObject() {
+        return statement.getObject();
+    }
+
+    @Override
+    public Resource getContext() {
+        return statement.getContext();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return statement.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return statement.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return statement + " score: " + score;
+    }
+}
@@ -25,13 +25,17 @@ import java.io.IOException;
 import java.nio.charset.CharacterCodingException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.SortedSet;
+import java.util.SortedMap;
 import java.util.TreeSet;
 
 import org.apache.accumulo.core.client.AccumuloException;
@@ -50,7 +54,11 @@ import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.keyfunctor.ColumnFamilyFunctor;
+import org.apache.accumulo.core.iterators.Combiner;
+import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
+import org.apache.accumulo.core.iterators.LongCombiner;
 import org.apache.accumulo.core.iterators.user.IntersectingIterator;
+import org.apache.accumulo.core.iterators.user.SummingCombiner;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.apache.hadoop.conf.Configuration;
@@ -62,10 +70,14 @@ import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.resolver.RyaToRdfConversions;
 import org.apache.rya.indexing.FreeTextIndexer;
 import org.apache.rya.indexing.Md5Hash;
+import org.apache.rya.indexing.ScoredStatement;
 import org.apache.rya.indexing.StatementConstraints;
 import org.apache.rya.indexing.StatementSerializer;
 import org.apache.rya.indexing.accumulo.ConfigUtils;
 import org.apache.rya.indexing.accumulo.freetext.iterators.BooleanTreeIterator;
+import org.apache.rya.indexing.accumulo.freetext.iterators.PositiveCountFilter;
+import org.apache.rya.indexing.accumulo.freetext.iterators.RankingIterator;
+import org.apache.rya.indexing.accumulo.freetext.iterators.TermCountEncoder;
 import org.apache.rya.indexing.accumulo.freetext.query.ASTExpression;
 import org.apache.rya.indexing.accumulo.freetext.query.ASTNodeUtils;
 import org.apache.rya.indexing.accumulo.freetext.query.ASTSimpleNode;
@@ -76,6 +88,7 @@ import org.apache.rya.indexing.accumulo.freetext.query.QueryParserTreeConstants;
 import org.apache.rya.indexing.accumulo.freetext.query.SimpleNode;
 import org.apache.rya.indexing.accumulo.freetext.query.TokenMgrError;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Statement;
@@ -103,21 +116,38 @@ import com.google.common.collect.Lists;
  * shardID         | p\x00Predicate | documentHash     | (empty)
  * shardID         | o\x00Object    | documentHash     | (empty)
  * shardID         | c\x00Context   | documentHash     | (empty)
- * shardID         | t\x00token     | documentHash     | (empty)
+ * shardID         | t\x00token     | documentHash     | term frequency
+ * shardID         | n\x00          | documentHash     | document length
  * </pre>
  * <p>
  * Note: documentHash is a sha256 Hash of the Document's Content
  * <p>
+ * Each shard also keeps the statistics used to rank the documents by relevance. A {@link SummingCombiner} adds up the changes
+ * written as documents are stored and deleted. The statistics are estimates: a document that is stored twice is counted twice.
+ *
+ * <pre>
+ * Row (partition) | Column Family  | Column Qualifier | Value
+ * ================+================+==================+==========
+ * shardID         | f\x00          | docs             | number of documents
+ * shardID         | f\x00          | length           | total length of the documents
+ * shardID         | f\x00          | df\x00token      | number of documents containing the token
+ * </pre>
+ * <p>
  * The terms table is used for expanding wildcard search terms. For each token in the document table, the table will store the following
  * information:
  *
  * <pre>
- * Row (partition)   | CF/CQ/Value
- * ==================+=============
- * l\x00token        | (empty)
- * r\x00Reversetoken | (empty)
+ * Row (partition)   | CF/CQ | Value
+ * ==================+=======+====================
+ * l\x00token        | empty | number of documents
+ * r\x00Reversetoken | empty | number of documents
  * </pre>
  * <p>
+ * A {@link SummingCombiner} keeps the number of documents that contain each token as documents are stored and deleted, and a
+ * {@link PositiveCountFilter} removes the token once no document contains it. Deleting a document does not have to scan for the
+ * other documents that contain its tokens. A term table written before the terms were counted is recounted with
+ * {@link FreeTextTermRecountTool}.
+ * <p>
  * There are two prefixes in the table, "token list" (keys with an "l" prefix) and "reverse token list" (keys with a "r" prefix). This table
  * is uses the "token list" to expand foo* into terms like food, foot, and football. This table uses the "reverse token list" to expand *ar
  * into car, bar, and far.
@@ -142,45 +172,48 @@ import com.google.common.collect.Lists;
  * 000000          | p\x00rdfs:label                 | 08b3d233a        | (empty)
  * 000000          | o\x00"paul smith"@en            | 08b3d233a        | (empty)
  * 000000          | c\x00uri:graph1                 | 08b3d233a        | (empty)
- * 000000          | t\x00paul                       | 08b3d233a        | (empty)
- * 000000          | t\x00smith                      | 08b3d233a        | (empty)
+ * 000000          | t\x00paul                       | 08b3d233a        | 1
+ * 000000          | t\x00smith                      | 08b3d233a        | 1
+ * 000000          | n\x00                           | 08b3d233a        | 2
  *
  * 000000          | d\x00                           | 3a575534b        | uri:graph1x00uri:steve\x00rdfs:label\x00"steven anthony miller"@en
  * 000000          | s\x00uri:steve                  | 3a575534b        | (empty)
  * 000000          | p\x00rdfs:label                 | 3a575534b        | (empty)
  * 000000          | o\x00"steven anthony miller"@en | 3a575534b        | (empty)
  * 000000          | c\x00uri:graph1                 | 3a575534b        | (empty)
- * 000000          | t\x00steven                     | 3a575534b        | (empty)
- * 000000          | t\x00anthony                    | 3a575534b        | (empty)
- * 000000          | t\x00miller                     | 3a575534b        | (empty)
+ * 000000          | t\x00steven                     | 3a575534b        | 1
+ * 000000          | t\x00anthony                    | 3a575534b        | 1
+ * 000000          | t\x00miller                     | 3a575534b        | 1
+ * 000000          | n\x00                           | 3a575534b        | 3
  *
  * 000001          | d\x00                           | 7bf670d06        | uri:graph1x00uri:steve\x00rdfs:label\x00"steve miller"@en
  * 000001          | s\x00uri:steve                  | 7bf670d06        | (empty)
  * 000001          | p\x00rdfs:label                 | 7bf670d06        | (empty)
  * 000001          | o\x00"steve miller"@en          | 7bf670d06        | (empty)
  * 000001          | c\x00uri:graph1                 | 7bf670d06        | (empty)
- * 000001          | t\x00steve                      | 7bf670d06        | (empty)
- * 000001          | t\x00miller                     | 7bf670d06        | (empty)
+ * 000001          | t\x00steve                      | 7bf670d06        | 1
+ * 000001          | t\x00miller                     | 7bf670d06        | 1
+ * 000001          | n\x00                           | 7bf670d06        | 2
  * </pre>
  * <p>
  * triplestore_terms
  * <p>
  *
  * <pre>
- * Row (partition)   | CF/CQ/Value
- * ==================+=============
- * l\x00paul         | (empty)
- * l\x00smith        | (empty)
- * l\x00steven       | (empty)
- * l\x00anthony      | (empty)
- * l\x00miller       | (empty)
- * l\x00steve        | (empty)
- * r\x00luap         | (empty)
- * r\x00htims        | (empty)
- * r\x00nevets       | (empty)
- * r\x00ynohtna      | (empty)
- * r\x00rellim       | (empty)
- * r\x00evets        | (empty)
+ * Row (partition)   | CF/CQ | Value
+ * ==================+=======+======
+ * l\x00paul         | empty | 1
+ * l\x00smith        | empty | 1
+ * l\x00steven       | empty | 1
+ * l\x00anthony      | empty | 1
+ * l\x00miller       | empty | 2
+ * l\x00steve        | empty | 1
+ * r\x00luap         | empty | 1
+ * r\x00htims        | empty | 1
+ * r\x00nevets       | empty | 1
+ * r\x00ynohtna      | empty | 1
+ * r\x00rellim       | empty | 2
+ * r\x00evets        | empty | 1
  *
  * <pre>
  */
@@ -191,12 +224,28 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
 
     private static final Logger logger = Logger.getLogger(AccumuloFreeTextIndexer.class);
 
-    private static final boolean IS_TERM_TABLE_TOKEN_DELETION_ENABLED = true;
-
     private static final byte[] EMPTY_BYTES = new byte[] {};
     private static final Text EMPTY_TEXT = new Text(EMPTY_BYTES);
     private static final Value EMPTY_VALUE = new Value(EMPTY_BYTES);
 
+    private static final String STATS_COMBINER_NAME = "freeTextStats";
+    private static final int STATS_COMBINER_PRIORITY = 10;
+
+    private static final String TERM_COUNT_COMBINER_NAME = "termCounts";
+    private static final int TERM_COUNT_COMBINER_PRIORITY = 10;
+    private static final String TERM_COUNT_FILTER_NAME = "positiveTermCounts";
+    private static final int TERM_COUNT_FILTER_PRIORITY = 11;
+
+    private static final Value INCREMENT = longValue(1);
+    private static final Value DECREMENT = longValue(-1);
+
+    private static final Comparator<ScoredStatement> BY_SCORE = new Comparator<ScoredStatement>() {
+        @Override
+        public int compare(final ScoredStatement s1, final ScoredStatement s2) {
+            return Double.compare(s1.getScore(), s2.getScore());
+        }
+    };
+
     private Tokenizer tokenizer;
 
     private BatchWriter docTableBw;
@@ -255,6 +304,18 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
             tableOps.addSplits(termtable, splits);
         }
 
+        // Count the documents that contain each term and hide the terms that are no longer in any document
+        final Map<String, EnumSet<IteratorScope>> termTableIterators = tableOps.listIterators(termtable);
+        if (!termTableIterators.containsKey(TERM_COUNT_COMBINER_NAME)) {
+            final IteratorSetting setting = new IteratorSetting(TERM_COUNT_COMBINER_PRIORITY, TERM_COUNT_COMBINER_NAME, SummingCombiner.class);
+            LongCombiner.setEncodingType(setting, TermCountEncoder.class);
+            Combiner.setCombineAllColumns(setting, true);
+            tableOps.attachIterator(termtable, setting);
+        }
+        if (!termTableIterators.containsKey(TERM_COUNT_FILTER_NAME)) {
+            tableOps.attachIterator(termtable, new IteratorSetting(TERM_COUNT_FILTER_PRIORITY, TERM_COUNT_FILTER_NAME, PositiveCountFilter.class));
+        }
+
         // Create document (text) table partitions
         final boolean createdDocTable = ConfigUtils.createTableIfNotExists(conf, doctable);
         if (createdDocTable && !ConfigUtils.useMockInstance(conf)) {
@@ -270,6 +331,14 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
             tableOps.setProperty(doctable, "table.bloom.enabled", Boolean.TRUE.toString());
         }
 
+        // Sum up the changes to the ranking statistics
+        if (!tableOps.listIterators(doctable).containsKey(STATS_COMBINER_NAME)) {
+            final IteratorSetting setting = new IteratorSetting(STATS_COMBINER_PRIORITY, STATS_COMBINER_NAME, SummingCombiner.class);
+            LongCombiner.setEncodingType(setting, LongCombiner.Type.STRING);
+            Combiner.setColumns(setting, Collections.singletonList(new IteratorSetting.Column(ColumnPrefixes.STATS_CF_PREFIX)));
+            tableOps.attachIterator(doctable, setting);
+        }
+
         // Set mtbw by calling setMultiTableBatchWriter().  The DAO does this and manages flushing.
         // If you create it here, tests work, but a real Accumulo may lose writes due to unmanaged flushing.
         if (mtbw != null) {
@@ -320,7 +389,7 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
 
             // Get the tokens
             final String text = statement.getObject().stringValue().toLowerCase();
-            final SortedSet<String> tokens = tokenizer.tokenize(text);
+            final SortedMap<String, Integer> tokens = tokenizer.tokenizeWithFrequencies(text);
 
             if (!tokens.isEmpty()) {
                 // Get Document Data
@@ -335,6 +404,7 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
                 final List<Mutation> termTableMutations = new ArrayList<Mutation>();
 
                 final Text docIdText = new Text(docId);
+                final long docLength = getDocLength(tokens);
 
                 // Store the Document Data
                 docTableMut.put(ColumnPrefixes.DOCS_CF_PREFIX, docIdText, new Value(docContent.getBytes(Charsets.UTF_8)));
@@ -345,14 +415,22 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
                 docTableMut.put(ColumnPrefixes.getObjColFam(statement), docIdText, EMPTY_VALUE);
                 docTableMut.put(ColumnPrefixes.getContextColFam(statement), docIdText, EMPTY_VALUE);
 
+                // store the document length and count the document in the shard statistics
+                docTableMut.put(ColumnPrefixes.DOC_LENGTH_CF_PREFIX, docIdText, longValue(docLength));
+                docTableMut.put(ColumnPrefixes.STATS_CF_PREFIX, ColumnPrefixes.STATS_DOC_COUNT_CQ, INCREMENT);
+                docTableMut.put(ColumnPrefixes.STATS_CF_PREFIX, ColumnPrefixes.STATS_DOC_LENGTH_CQ, longValue(docLength));
+
                 // index the statement terms
-                for (final String token : tokens) {
+                for (final Entry<String, Integer> tokenFrequency : tokens.entrySet()) {
+                    final String token = tokenFrequency.getKey();
+
                     // tie the token to the document
-                    docTableMut.put(ColumnPrefixes.getTermColFam(token), docIdText, EMPTY_VALUE);
+                    docTableMut.put(ColumnPrefixes.getTermColFam(token), docIdText, longValue(tokenFrequency.getValue()));
+                    docTableMut.put(ColumnPrefixes.STATS_CF_PREFIX, ColumnPrefixes.getDocFreqColQual(token), INCREMENT);
 
                     // store the term in the term table (useful for wildcard searches)
-                    termTableMutations.add(createEmptyPutMutation(ColumnPrefixes.getTermListColFam(token)));
-                    termTableMutations.add(createEmptyPutMutation(ColumnPrefixes.getRevTermListColFam(token)));
+                    termTableMutations.add(createTermCountMutation(ColumnPrefixes.getTermListColFam(token), INCREMENT));
+                    termTableMutations.add(createTermCountMutation(ColumnPrefixes.getRevTermListColFam(token), INCREMENT));
                 }
 
                 // write the mutations
@@ -374,15 +452,21 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
         storeStatement(RyaToRdfConversions.convertStatement(statement));
     }
 
-    private static Mutation createEmptyPutMutation(final Text row) {
-        final Mutation m = new Mutation(row);
-        m.put(EMPTY_TEXT, EMPTY_TEXT, EMPTY_VALUE);
-        return m;
+    private static long getDocLength(final SortedMap<String, Integer> tokens) {
+        long length = 0;
+        for (final int frequency : tokens.values()) {
+            length += frequency;
+        }
+        return length;
     }
 
-    private static Mutation createEmptyPutDeleteMutation(final Text row) {
+    private static Value longValue(final long value) {
+        return new Value(Long.toString(value).getBytes(Charsets.UTF_8));
+    }
+
+    private static Mutation createTermCountMutation(final Text row, final Value change) {
         final Mutation m = new Mutation(row);
-        m.putDelete(EMPTY_TEXT, EMPTY_TEXT);
+        m.put(EMPTY_TEXT, EMPTY_TEXT, change);
         return m;
     }
 
@@ -506,7 +590,81 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
     public CloseableIteration<Statement, QueryEvaluationException> queryText(final String query, final StatementConstraints contraints)
             throws IOException {
         final Scanner docTableScan = getScanner(getFreeTextDocTablename(conf));
+        final String constrainedQuery = createConstrainedQuery(query, contraints);
+
+        // perform query
+        docTableScan.clearScanIterators();
+        docTableScan.clearColumns();
+
+        final int iteratorPriority = 20;
+        final String iteratorName = "booleanTree";
+        final IteratorSetting ii = new IteratorSetting(iteratorPriority, iteratorName, BooleanTreeIterator.class);
+        BooleanTreeIterator.setQuery(ii, constrainedQuery);
+        docTableScan.addScanIterator(ii);
+        docTableScan.setRange(new Range());
+
+        return getIteratorWrapper(docTableScan);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The statements are scored with BM25 on the tablet servers. When a limit is set, each tablet only returns its best statements
+     * and the best of those are returned.
+     */
+    @Override
+    public CloseableIteration<ScoredStatement, QueryEvaluationException> queryRankedText(final String query,
+            final StatementConstraints contraints, final int limit) throws IOException {
+        Validate.isTrue(limit >= 0, "limit must not be negative");
+
+        final Scanner docTableScan = getScanner(getFreeTextDocTablename(conf));
+        final String constrainedQuery = createConstrainedQuery(query, contraints);
+
+        // perform query
+        docTableScan.clearScanIterators();
+        docTableScan.clearColumns();
+
+        final int iteratorPriority = 20;
+        final String iteratorName = "ranking";
+        final IteratorSetting ii = new IteratorSetting(iteratorPriority, iteratorName, RankingIterator.class);
+        RankingIterator.setQuery(ii, constrainedQuery);
+        RankingIterator.setLimit(ii, limit);
+        docTableScan.addScanIterator(ii);
+        docTableScan.setRange(new Range());
+
+        final CloseableIteration<ScoredStatement, QueryEvaluationException> hits = getRankedIteratorWrapper(docTableScan);
+        if (limit == 0) {
+            return hits;
+        }
+
+        // keep the best hits of all of the tablets
+        final PriorityQueue<ScoredStatement> best = new PriorityQueue<ScoredStatement>(limit, BY_SCORE);
+        try {
+            while (hits.hasNext()) {
+                best.add(hits.next());
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        } catch (final QueryEvaluationException e) {
+            throw new IOException(e);
+        } finally {
+            try {
+                hits.close();
+            } catch (final QueryEvaluationException e) {
+                logger.warn("Error closing the ranked free text scanner", e);
+            }
+        }
+
+        final List<ScoredStatement> ranked = new ArrayList<ScoredStatement>(best);
+        Collections.sort(ranked, Collections.reverseOrder(BY_SCORE));
+        return new CloseableIteratorIteration<ScoredStatement, QueryEvaluationException>(ranked.iterator());
+    }
 
+    /**
+     * Unrolls the wildcards of a query and adds the S P O C constraints to it.
+     */
+    private String createConstrainedQuery(final String query, final StatementConstraints contraints) throws IOException {
         // test the query to see if it's parses correctly.
         SimpleNode root = parseQuery(query);
 
@@ -544,18 +702,7 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
             throw new IOException("Query contains too many terms.  Term limit: " + queryTermLimit + ".  Term Count: " + termCount);
         }
 
-        // perform query
-        docTableScan.clearScanIterators();
-        docTableScan.clearColumns();
-
-        final int iteratorPriority = 20;
-        final String iteratorName = "booleanTree";
-        final IteratorSetting ii = new IteratorSetting(iteratorPriority, iteratorName, BooleanTreeIterator.class);
-        BooleanTreeIterator.setQuery(ii, constrainedQuery.toString());
-        docTableScan.addScanIterator(ii);
-        docTableScan.setRange(new Range());
-
-        return getIteratorWrapper(docTableScan);
+        return constrainedQuery.toString();
     }
 
     private static CloseableIteration<Statement, QueryEvaluationException> getIteratorWrapper(final Scanner s) {
@@ -599,6 +746,46 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
         };
     }
 
+    private static CloseableIteration<ScoredStatement, QueryEvaluationException> getRankedIteratorWrapper(final Scanner s) {
+
+        final Iterator<Entry<Key, Value>> i = s.iterator();
+
+        return new CloseableIteration<ScoredStatement, QueryEvaluationException>() {
+            @Override
+            public boolean hasNext() {
+                return i.hasNext();
+            }
+
+            @Override
+            public ScoredStatement next() throws QueryEvaluationException {
+                final Entry<Key, Value> entry = i.next();
+                final Value v = entry.getValue();
+                try {
+                    final Statement s = StatementSerializer.readStatement(RankingIterator.decodeDocument(v));
+                    return new ScoredStatement(s, RankingIterator.decodeScore(v));
+                } catch (final CharacterCodingException e) {
+                    logger.error("Error decoding value", e);
+                    throw new QueryEvaluationException(e);
+                } catch (final IOException e) {
+                    logger.error("Error deserializing statement", e);
+                    throw new QueryEvaluationException(e);
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Remove not implemented");
+            }
+
+            @Override
+            public void close() throws QueryEvaluationException {
+                if (s != null) {
+                    s.close();
+                }
+            }
+        };
+    }
+
     /**
      * Simple adapter that parses the query using {@link QueryParser}. Note: any checked exceptions thrown by {@link QueryParser} are
      * re-thrown as {@link IOException}s.
@@ -708,7 +895,12 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
         return ryaInstanceName + TABLE_SUFFIX_TERM;
     }
 
-    private void deleteStatement(final Statement statement) throws IOException {
+    /**
+     * @param statement - The statement whose document is deleted. (not null)
+     * @param stored - {@code true} if the statement was removed from the triple tables, so its document stops being counted.
+     *   Otherwise only the idempotent deletes are written, since the statement may never have been stored or already be deleted.
+     */
+    private void deleteStatement(final Statement statement, final boolean stored) throws IOException {
         Objects.requireNonNull(mtbw, "Freetext indexer attempting to delete, but setMultiTableBatchWriter() was not set.");
 
         // if the predicate list is empty, accept all predicates.
@@ -719,7 +911,8 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
 
             // Get the tokens
             final String text = statement.getObject().stringValue().toLowerCase();
-            final SortedSet<String> tokens = tokenizer.tokenize(text);
+            final SortedMap<String, Integer> tokenFrequencies = tokenizer.tokenizeWithFrequencies(text);
+            final Set<String> tokens = tokenFrequencies.keySet();
 
             if (!tokens.isEmpty()) {
                 // Get Document Data
@@ -734,6 +927,7 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
                 final List<Mutation> termTableMutations = new ArrayList<Mutation>();
 
                 final Text docIdText = new Text(docId);
+                final long docLength = getDocLength(tokenFrequencies);
 
                 // Delete the Document Data
                 docTableMut.putDelete(ColumnPrefixes.DOCS_CF_PREFIX, docIdText);
@@ -744,22 +938,26 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
                 docTableMut.putDelete(ColumnPrefixes.getObjColFam(statement), docIdText);
                 docTableMut.putDelete(ColumnPrefixes.getContextColFam(statement), docIdText);
 
+                // Delete the document length and remove the document from the shard statistics
+                docTableMut.putDelete(ColumnPrefixes.DOC_LENGTH_CF_PREFIX, docIdText);
+                if (stored) {
+                    docTableMut.put(ColumnPrefixes.STATS_CF_PREFIX, ColumnPrefixes.STATS_DOC_COUNT_CQ, DECREMENT);
+                    docTableMut.put(ColumnPrefixes.STATS_CF_PREFIX, ColumnPrefixes.STATS_DOC_LENGTH_CQ, longValue(-docLength));
+                }
 
                 // Delete the statement terms in index
                 for (final String token : tokens) {
-                    if (IS_TERM_TABLE_TOKEN_DELETION_ENABLED) {
-                        final int rowId = Integer.parseInt(partition.toString());
-                        final boolean doesTermExistInOtherDocs = doesTermExistInOtherDocs(token, rowId, docIdText);
-                        // Only delete the term from the term table if it doesn't appear in other docs
-                        if (!doesTermExistInOtherDocs) {
-                            // Delete the term in the term table
-                            termTableMutations.add(createEmptyPutDeleteMutation(ColumnPrefixes.getTermListColFam(token)));
-                            termTableMutations.add(createEmptyPutDeleteMutation(ColumnPrefixes.getRevTermListColFam(token)));
-                        }
+                    if (stored) {
+                        // Stop counting the document for the term.  The term is removed once no document contains it.
+                        termTableMutations.add(createTermCountMutation(ColumnPrefixes.getTermListColFam(token), DECREMENT));
+                        termTableMutations.add(createTermCountMutation(ColumnPrefixes.getRevTermListColFam(token), DECREMENT));
                     }
 
                     // Un-tie the token to the document
                     docTableMut.putDelete(ColumnPrefixes.getTermColFam(token), docIdText);
+                    if (stored) {
+                        docTableMut.put(ColumnPrefixes.STATS_CF_PREFIX, ColumnPrefixes.getDocFreqColQual(token), DECREMENT);
+                    }
                 }
 
                 // write the mutations
@@ -777,51 +975,18 @@ public class AccumuloFreeTextIndexer extends AbstractAccumuloIndexer implements
 
     @Override
     public void deleteStatement(final RyaStatement statement) throws IOException {
-        deleteStatement(RyaToRdfConversions.convertStatement(statement));
+        deleteStatement(RyaToRdfConversions.convertStatement(statement), false);
     }
 
     /**
-     * Checks to see if the provided term appears in other documents.
-     * @param term the term to search for.
-     * @param currentDocId the current document ID that the search term exists in.
-     * @return {@code true} if the term was found in other documents. {@code false} otherwise.
+     * Called by the DAO for each statement a delete removed from the triple tables, so the terms and the ranking statistics
+     * of its document are counted down exactly once, even when the delete pattern matched nothing or was repeated.
      */
-    private boolean doesTermExistInOtherDocs(final String term, final int currentDocId, final Text docIdText) {
-        try {
-            final String freeTextDocTableName = getFreeTextDocTablename(conf);
-            final Scanner scanner = getScanner(freeTextDocTableName);
-
-            final String t = StringUtils.removeEnd(term, "*").toLowerCase();
-            final Text queryTerm = ColumnPrefixes.getTermColFam(t);
-
-            // perform query and read results
-            scanner.fetchColumnFamily(queryTerm);
-
-            for (final Entry<Key, Value> entry : scanner) {
-                final Key key = entry.getKey();
-                final Text row = key.getRow();
-                final int rowId = Integer.parseInt(row.toString());
-                // We only want to check other documents from the one we're deleting
-                if (rowId != currentDocId) {
-                    final Text columnFamily = key.getColumnFamily();
-                    final String columnFamilyValue = columnFamily.toString();
-                    // Check that the value has the term prefix
-                    if (columnFamilyValue.startsWith(ColumnPrefixes.TERM_CF_PREFIX.toString())) {
-                        final Text text = ColumnPrefixes.removePrefix(columnFamily);
-                        final String value = text.toString();
-                        if (value.equals(term)) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        } catch (final IOException e) {
-            logger.error("Error searching for the existance of the term in other documents", e);
-        }
-        return false;
+    @Override
+    public void deleteStoredStatement(final RyaStatement statement) throws IOException {
+        deleteStatement(RyaToRdfConversions.convertStatement(statement), true);
     }
 
-
 	/** 
 	 * called by the DAO after setting the mtbw.
 	 * The rest of the initilization is done by setConf()
@@ -31,6 +31,10 @@ import org.eclipse.rdf4j.model.Statement;
  * Row ID: shardId
  * <p>
  * CF: CF Prefix + Term
+ * <p>
+ * Each shard also holds the statistics used to rank documents: the length of each document (CF: {@link #DOC_LENGTH_CF_PREFIX},
+ * CQ: docId) and the shard's document count, total document length and per term document frequencies (CF:
+ * {@link #STATS_CF_PREFIX}).
  */
 public class ColumnPrefixes {
 	public static final Text DOCS_CF_PREFIX = new Text("d\0");
@@ -43,6 +47,13 @@ public class ColumnPrefixes {
 	public static final Text OBJECT_CF_PREFIX = new Text("o\0");
 	public static final Text CONTEXT_CF_PREFIX = new Text("c\0");
 
+	public static final Text DOC_LENGTH_CF_PREFIX = new Text("n\0");
+	public static final Text STATS_CF_PREFIX = new Text("f\0");
+
+	public static final Text STATS_DOC_COUNT_CQ = new Text("docs");
+	public static final Text STATS_DOC_LENGTH_CQ = new Text("length");
+	public static final Text STATS_DOC_FREQ_CQ_PREFIX = new Text("df\0");
+
 	private static Text concat(Text prefix, String str) {
 		Text temp = new Text(prefix);
 
@@ -108,6 +119,10 @@ public class ColumnPrefixes {
 		return getContextColFam(cont);
 	}
 
+	public static Text getDocFreqColQual(String term) {
+		return concat(STATS_DOC_FREQ_CQ_PREFIX, term);
+	}
+
 	public static Text removePrefix(Text termWithPrefix) {
 		Text temp = new Text();
 		temp.set(termWithPrefix.getBytes(), 2, termWithPrefix.getLength() - 2);
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.indexing.accumulo.freetext;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+import org.apache.rya.indexing.accumulo.ConfigUtils;
+import org.apache.rya.indexing.accumulo.freetext.iterators.TermCountEncoder;
+
+/**
+ * Rewrites the free text term table with the number of documents of the document table that contain each term.
+ * <p>
+ * Term table entries written before the terms were counted have an empty value, which {@link TermCountEncoder} reads as a count of
+ * one, so on an upgraded index deleting one of several documents that share a term would hide the term from wildcard searches.
+ * Running the tool once after the upgrade replaces those entries with exact counts. The term table is cleared before it is rewritten,
+ * so the tool must be run while nothing writes to the index, and wildcard searches miss terms until it has finished.
+ */
+public class FreeTextTermRecountTool {
+    private static final Logger logger = Logger.getLogger(FreeTextTermRecountTool.class);
+
+    private static final Text EMPTY_TEXT = new Text();
+
+    private final Configuration conf;
+
+    /**
+     * @param conf - Configures the free text index that is recounted. (not null)
+     */
+    public FreeTextTermRecountTool(final Configuration conf) {
+        this.conf = requireNonNull(conf);
+    }
+
+    /**
+     * Counts the documents that contain each term and replaces the term table with those counts.
+     *
+     * @return The number of terms written to the term table.
+     * @throws AccumuloException The tables could not be read or written.
+     * @throws AccumuloSecurityException The user may not read or write the tables.
+     * @throws TableNotFoundException One of the tables of the index does not exist.
+     */
+    public long recount() throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
+        final Connector connector = ConfigUtils.getConnector(conf);
+        final String doctable = AccumuloFreeTextIndexer.getFreeTextDocTablename(conf);
+        final String termtable = AccumuloFreeTextIndexer.getFreeTextTermTablename(conf);
+
+        // each document has one term entry for every term it contains
+        final Map<String, Long> counts = new HashMap<>();
+        final Scanner scanner = connector.createScanner(doctable, ConfigUtils.getAuthorizations(conf));
+        final IteratorSetting termsOnly = new IteratorSetting(50, "termsOnly", RegExFilter.class);
+        RegExFilter.setRegexs(termsOnly, null, ColumnPrefixes.TERM_CF_PREFIX + ".*", null, null, false);
+        scanner.addScanIterator(termsOnly);
+        for (final Entry<Key, Value> entry : scanner) {
+            final String term = ColumnPrefixes.removePrefix(entry.getKey().getColumnFamily()).toString();
+            final Long count = counts.get(term);
+            counts.put(term, count == null ? 1L : count + 1);
+        }
+
+        connector.tableOperations().deleteRows(termtable, null, null);
+        final BatchWriter writer = connector.createBatchWriter(termtable, new BatchWriterConfig());
+        try {
+            for (final Entry<String, Long> count : counts.entrySet()) {
+                final Value value = new Value(Long.toString(count.getValue()).getBytes(StandardCharsets.UTF_8));
+                final Mutation term = new Mutation(ColumnPrefixes.getTermListColFam(count.getKey()));
+                term.put(EMPTY_TEXT, EMPTY_TEXT, value);
+                final Mutation reverseTerm = new Mutation(ColumnPrefixes.getRevTermListColFam(count.getKey()));
+                reverseTerm.put(EMPTY_TEXT, EMPTY_TEXT, value);
+                writer.addMutation(term);
+                writer.addMutation(reverseTerm);
+            }
+        } finally {
+            writer.close();
+        }
+        logger.info("Recounted the documents of " + counts.size() + " terms in " + termtable);
+        return counts.size();
+    }
+}
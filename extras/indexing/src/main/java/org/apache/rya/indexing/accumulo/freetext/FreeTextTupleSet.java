@@ -20,17 +20,21 @@ package org.apache.rya.indexing.accumulo.freetext;
  */
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Set;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.rya.indexing.FreeTextIndexer;
 import org.apache.rya.indexing.IndexingExpr;
 import org.apache.rya.indexing.IteratorFactory;
+import org.apache.rya.indexing.ScoredStatement;
 import org.apache.rya.indexing.SearchFunction;
 import org.apache.rya.indexing.StatementConstraints;
 import org.apache.rya.indexing.external.tupleSet.ExternalTupleSet;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.ConvertingIteration;
 import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.query.BindingSet;
@@ -41,7 +45,11 @@ import com.google.common.base.Joiner;
 
 
 //Indexing Node for freetext expressions to be inserted into execution plan 
-//to delegate freetext portion of query to free text index
+//to delegate freetext portion of query to free text index.
+//
+//fts:text(?o, "query") returns every match.  fts:text(?o, "query", n) returns the n most relevant
+//matches (0 ranks every match) and fts:text(?o, "query", n, "score") also binds the relevance of
+//each match to ?score.
 public class FreeTextTupleSet extends ExternalTupleSet {
     
     private Configuration conf;
@@ -60,7 +68,39 @@ public class FreeTextTupleSet extends ExternalTupleSet {
      */
     @Override
     public Set<String> getBindingNames() {
-        return filterInfo.getBindingNames();
+        final String scoreBinding = getScoreBinding();
+        if (scoreBinding == null) {
+            return filterInfo.getBindingNames();
+        }
+        final Set<String> bindingNames = new HashSet<String>(filterInfo.getBindingNames());
+        bindingNames.add(scoreBinding);
+        return bindingNames;
+    }
+
+    /**
+     * @return The maximum number of ranked matches to return, 0 to rank every match, or -1 if the matches are not ranked.
+     */
+    private int getLimit() {
+        final Object[] arguments = filterInfo.getArguments();
+        if (arguments.length < 2) {
+            return -1;
+        }
+        if (!(arguments[1] instanceof Literal)) {
+            throw new IllegalArgumentException("The number of free text matches must be an integer literal.");
+        }
+        final int limit = ((Literal) arguments[1]).intValue();
+        if (limit < 0) {
+            throw new IllegalArgumentException("The number of free text matches must not be negative.");
+        }
+        return limit;
+    }
+
+    /**
+     * @return The name of the variable the relevance of a match is bound to, or {@code null} if it is not bound.
+     */
+    private String getScoreBinding() {
+        final Object[] arguments = filterInfo.getArguments();
+        return arguments.length < 3 ? null : ((Value) arguments[2]).stringValue();
     }
 
     /**
@@ -147,13 +187,41 @@ public class FreeTextTupleSet extends ExternalTupleSet {
             }
         };
 
-        if (filterInfo.getArguments().length > 1) {
-            throw new IllegalArgumentException("Index functions do not support more than two arguments.");
+        if (filterInfo.getArguments().length > 3) {
+            throw new IllegalArgumentException("Free text functions do not support more than four arguments.");
         }
 
         String queryText = ((Value) filterInfo.getArguments()[0]).stringValue();
 
-        return IteratorFactory.getIterator(filterInfo.getSpConstraint(), bindings, queryText, searchFunction);
+        final int limit = getLimit();
+        if (limit >= 0) {
+            searchFunction = new SearchFunction() {
+
+                @Override
+                public CloseableIteration<Statement, QueryEvaluationException> performSearch(String queryText,
+                        StatementConstraints contraints) throws QueryEvaluationException {
+                    try {
+                        final CloseableIteration<ScoredStatement, QueryEvaluationException> statements = freeTextIndexer.queryRankedText(
+                                queryText, contraints, limit);
+                        return new ConvertingIteration<ScoredStatement, Statement, QueryEvaluationException>(statements) {
+                            @Override
+                            protected Statement convert(ScoredStatement statement) {
+                                return statement;
+                            }
+                        };
+                    } catch (IOException | UnsupportedOperationException e) {
+                        throw new QueryEvaluationException(e);
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return "RANKED TEXT";
+                }
+            };
+        }
+
+        return IteratorFactory.getIterator(filterInfo.getSpConstraint(), bindings, queryText, searchFunction, getScoreBinding());
     }
     
 }
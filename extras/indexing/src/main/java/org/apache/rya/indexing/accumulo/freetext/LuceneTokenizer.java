@@ -21,7 +21,9 @@ package org.apache.rya.indexing.accumulo.freetext;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -50,4 +52,20 @@ public class LuceneTokenizer implements Tokenizer {
 
 		return set;
 	}
+
+	@Override
+	public SortedMap<String, Integer> tokenizeWithFrequencies(String string) {
+		SortedMap<String, Integer> frequencies = new TreeMap<String, Integer>();
+		try (final TokenStream stream = ANALYZER.tokenStream(null, new StringReader(string))) {
+			stream.reset();
+			while (stream.incrementToken()) {
+				frequencies.merge(stream.getAttribute(CharTermAttribute.class).toString(), 1, Integer::sum);
+			}
+		} catch (IOException e) {
+			// not thrown b/c we're using a string reader...
+			throw new RuntimeException(e);
+		}
+
+		return frequencies;
+	}
 }
@@ -21,7 +21,9 @@ package org.apache.rya.indexing.accumulo.freetext;
 
 
 
+import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 /**
@@ -40,4 +42,16 @@ public class SimpleTokenizer implements Tokenizer {
 		}
 		return set;
 	}
+
+	@Override
+	public SortedMap<String, Integer> tokenizeWithFrequencies(String string) {
+		SortedMap<String, Integer> frequencies = new TreeMap<String, Integer>();
+		for (String token : string.split("\\s+")) {
+			String t = token.trim().toLowerCase();
+			if (!t.isEmpty()) {
+				frequencies.merge(t, 1, Integer::sum);
+			}
+		}
+		return frequencies;
+	}
 }
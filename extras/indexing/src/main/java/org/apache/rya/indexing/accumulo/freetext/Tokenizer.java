@@ -21,11 +21,28 @@ package org.apache.rya.indexing.accumulo.freetext;
 
 
 
+import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
 
 /**
  * A utility that splits a string into tokens.
  */
 public interface Tokenizer {
 	public SortedSet<String> tokenize(String sting);
+
+	/**
+	 * Splits a string into tokens and counts how many times each token occurs. The default implementation counts every token
+	 * returned by {@link #tokenize(String)} once.
+	 *
+	 * @param string the string to tokenize
+	 * @return the tokens of the string mapped to their number of occurrences.
+	 */
+	public default SortedMap<String, Integer> tokenizeWithFrequencies(String string) {
+		SortedMap<String, Integer> frequencies = new TreeMap<String, Integer>();
+		for (String token : tokenize(string)) {
+			frequencies.put(token, 1);
+		}
+		return frequencies;
+	}
 }
@@ -0,0 +1,64 @@
+package org.apache.rya.indexing.accumulo.freetext.iterators;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+
+/**
+ * Removes the terms of the term table whose document count has dropped to zero. It is meant to run after the combiner that sums the
+ * counts.
+ * <p>
+ * A minor or partial major compaction only sees some of the count changes of a term, so the filter only removes terms during scans and
+ * full major compactions.
+ */
+public class PositiveCountFilter extends Filter {
+    private final TermCountEncoder encoder = new TermCountEncoder();
+
+    private boolean hasAllCounts = true;
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        if (env != null) {
+            final IteratorScope scope = env.getIteratorScope();
+            hasAllCounts = scope == IteratorScope.scan || (scope == IteratorScope.majc && env.isFullMajorCompaction());
+        }
+    }
+
+    @Override
+    public boolean accept(Key k, Value v) {
+        return !hasAllCounts || encoder.decode(v.get()) > 0;
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        final PositiveCountFilter copy = (PositiveCountFilter) super.deepCopy(env);
+        copy.hasAllCounts = hasAllCounts;
+        return copy;
+    }
+}
@@ -0,0 +1,435 @@
+package org.apache.rya.indexing.accumulo.freetext.iterators;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.rya.indexing.accumulo.freetext.query.ASTNodeUtils.getNodeIterator;
+import static org.apache.rya.indexing.accumulo.freetext.query.ASTNodeUtils.isNotFlag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.OptionDescriber;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+import org.apache.rya.indexing.accumulo.freetext.ColumnPrefixes;
+import org.apache.rya.indexing.accumulo.freetext.query.ASTTerm;
+import org.apache.rya.indexing.accumulo.freetext.query.ParseException;
+import org.apache.rya.indexing.accumulo.freetext.query.QueryParser;
+import org.apache.rya.indexing.accumulo.freetext.query.SimpleNode;
+import org.apache.rya.indexing.accumulo.freetext.query.TokenMgrError;
+
+/**
+ * Scores the documents matched by a {@link BooleanTreeIterator} with Okapi BM25.
+ * <p>
+ * The term frequencies are read from the values of the term entries, the document length from the {@link ColumnPrefixes#DOC_LENGTH_CF_PREFIX}
+ * entries and the document count, total document length and document frequencies from the {@link ColumnPrefixes#STATS_CF_PREFIX} entries
+ * of the shard being scanned. Documents indexed before term frequencies were recorded score as if every term occurs once.
+ * <p>
+ * Every hit is returned with the key of the {@link BooleanTreeIterator} and a value holding the score followed by the document. See
+ * {@link #decodeScore(Value)} and {@link #decodeDocument(Value)}.
+ * <p>
+ * If a limit is set, only the best scoring hits within the seeked range are returned, in key order. Once the limit is reached, shards
+ * whose best possible score cannot beat the worst kept hit are skipped, and a document stops being scored as soon as its remaining terms
+ * cannot lift it above that hit. Note that a scan which is re-seeked part way through a range (e.g. after a tablet server fails) will
+ * return the best hits of the remainder of the range.
+ */
+public class RankingIterator implements SortedKeyValueIterator<Key, Value>, OptionDescriber {
+    private static Logger logger = Logger.getLogger(RankingIterator.class);
+
+    private static final String queryOptionName = "query";
+    private static final String limitOptionName = "limit";
+    private static final String k1OptionName = "k1";
+    private static final String bOptionName = "b";
+
+    public static final double DEFAULT_K1 = 1.2;
+    public static final double DEFAULT_B = 0.75;
+
+    private static final int SCORE_LENGTH = Double.BYTES;
+
+    private static final Comparator<Hit> BY_SCORE = new Comparator<Hit>() {
+        @Override
+        public int compare(Hit h1, Hit h2) {
+            return Double.compare(h1.score, h2.score);
+        }
+    };
+
+    private static final Comparator<Hit> BY_KEY = new Comparator<Hit>() {
+        @Override
+        public int compare(Hit h1, Hit h2) {
+            return h1.key.compareTo(h2.key);
+        }
+    };
+
+    private BooleanTreeIterator matches;
+    private SortedKeyValueIterator<Key, Value> statsSource;
+
+    private String[] terms;
+    private int limit;
+    private double k1;
+    private double b;
+
+    // statistics of the shard that is being scored
+    private Text currentRow;
+    private double[] idfs;
+    private int[] termOrder;
+    private double avgDocLength;
+    private double maxRowScore;
+
+    private Iterator<Hit> rankedHits;
+    private Hit top;
+
+    private static class Hit {
+        private final Key key;
+        private final Value value;
+        private final double score;
+
+        private Hit(Key key, Value value, double score) {
+            this.key = key;
+            this.value = value;
+            this.score = score;
+        }
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) throws IOException {
+        String query = options.get(queryOptionName);
+
+        SimpleNode root;
+        try {
+            root = QueryParser.parse(query);
+        } catch (ParseException e) {
+            // log and wrap in IOException
+            logger.error("ParseException encountered while parsing: " + query, e);
+            throw new IOException(e);
+        } catch (TokenMgrError e) {
+            // log and wrap in IOException
+            logger.error("TokenMgrError encountered while parsing: " + query, e);
+            throw new IOException(e);
+        }
+
+        Set<String> scoredTerms = new LinkedHashSet<String>();
+        collectScoredTerms((SimpleNode) root.jjtGetChild(0), false, scoredTerms);
+        terms = scoredTerms.toArray(new String[scoredTerms.size()]);
+
+        limit = options.containsKey(limitOptionName) ? Integer.parseInt(options.get(limitOptionName)) : 0;
+        k1 = options.containsKey(k1OptionName) ? Double.parseDouble(options.get(k1OptionName)) : DEFAULT_K1;
+        b = options.containsKey(bOptionName) ? Double.parseDouble(options.get(bOptionName)) : DEFAULT_B;
+
+        statsSource = source.deepCopy(env);
+        matches = new BooleanTreeIterator();
+        matches.init(source, options, env);
+    }
+
+    /**
+     * Collects the terms that contribute to the score: the terms that are not negated and are not S P O C constraints.
+     */
+    private static void collectScoredTerms(SimpleNode node, boolean negated, Set<String> scoredTerms) {
+        boolean isNegated = negated || isNotFlag(node);
+        if (node instanceof ASTTerm) {
+            String term = ((ASTTerm) node).getTerm();
+            if (!isNegated && term != null && !term.contains("\0")) {
+                scoredTerms.add(term.toLowerCase());
+            }
+            return;
+        }
+        for (SimpleNode child : getNodeIterator(node)) {
+            collectScoredTerms(child, isNegated, scoredTerms);
+        }
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        currentRow = null;
+        matches.seek(range, columnFamilies, inclusive);
+        if (limit > 0) {
+            rankedHits = collectBestHits(range, columnFamilies, inclusive).iterator();
+            top = rankedHits.hasNext() ? rankedHits.next() : null;
+        } else {
+            scoreTop();
+        }
+    }
+
+    @Override
+    public void next() throws IOException {
+        if (limit > 0) {
+            top = rankedHits.hasNext() ? rankedHits.next() : null;
+        } else {
+            matches.next();
+            scoreTop();
+        }
+    }
+
+    private void scoreTop() throws IOException {
+        if (matches.hasTop()) {
+            Key key = matches.getTopKey();
+            top = new Hit(new Key(key), matches.getTopValue(), score(key, Double.NEGATIVE_INFINITY));
+        } else {
+            top = null;
+        }
+    }
+
+    private List<Hit> collectBestHits(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        PriorityQueue<Hit> best = new PriorityQueue<Hit>(limit, BY_SCORE);
+
+        while (matches.hasTop()) {
+            Key key = matches.getTopKey();
+            boolean isFull = best.size() >= limit;
+            double threshold = isFull ? best.peek().score : Double.NEGATIVE_INFINITY;
+
+            loadRowStatistics(key.getRow());
+            if (isFull && maxRowScore <= threshold) {
+                // no document left in this shard can make the best hits
+                Key nextRow = key.followingKey(PartialKey.ROW);
+                if (range.afterEndKey(nextRow)) {
+                    break;
+                }
+                matches.seek(new Range(nextRow, true, range.getEndKey(), range.isEndKeyInclusive()), columnFamilies, inclusive);
+                continue;
+            }
+
+            double score = score(key, threshold);
+            if (score > threshold) {
+                Value value = matches.getTopValue();
+                best.add(new Hit(new Key(key), new Value(value.get(), 0, value.getSize()), score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            matches.next();
+        }
+
+        List<Hit> hits = new ArrayList<Hit>(best);
+        Collections.sort(hits, BY_KEY);
+        return hits;
+    }
+
+    /**
+     * Scores the document of the key.
+     *
+     * @param key the key of a hit. (RowID: shardID, CQ: docID)
+     * @param threshold scoring stops early if the document cannot score above this threshold.
+     * @return the score of the document, or {@link Double#NEGATIVE_INFINITY} if it cannot score above the threshold.
+     */
+    private double score(Key key, double threshold) throws IOException {
+        Text row = key.getRow();
+        Text docId = key.getColumnQualifier();
+        loadRowStatistics(row);
+
+        double docLength = readLong(row, ColumnPrefixes.DOC_LENGTH_CF_PREFIX, docId, -1);
+        if (docLength < 0) {
+            docLength = avgDocLength;
+        }
+        double norm = k1 * (1 - b + b * docLength / avgDocLength);
+
+        double score = 0;
+        double remaining = maxRowScore;
+        for (int i : termOrder) {
+            remaining -= idfs[i] * (k1 + 1);
+            long tf = readTermFrequency(row, terms[i], docId);
+            if (tf > 0) {
+                score += idfs[i] * tf * (k1 + 1) / (tf + norm);
+            }
+            if (score + remaining <= threshold) {
+                return Double.NEGATIVE_INFINITY;
+            }
+        }
+        return score;
+    }
+
+    private void loadRowStatistics(Text row) throws IOException {
+        if (row.equals(currentRow)) {
+            return;
+        }
+        currentRow = new Text(row);
+
+        long docCount = readLong(row, ColumnPrefixes.STATS_CF_PREFIX, ColumnPrefixes.STATS_DOC_COUNT_CQ, 0);
+        long totalLength = readLong(row, ColumnPrefixes.STATS_CF_PREFIX, ColumnPrefixes.STATS_DOC_LENGTH_CQ, 0);
+        avgDocLength = docCount > 0 && totalLength > 0 ? (double) totalLength / docCount : 1;
+
+        idfs = new double[terms.length];
+        maxRowScore = 0;
+        for (int i = 0; i < terms.length; i++) {
+            long docFreq = readLong(row, ColumnPrefixes.STATS_CF_PREFIX, ColumnPrefixes.getDocFreqColQual(terms[i]), 0);
+            long n = Math.max(docCount, docFreq);
+            idfs[i] = Math.log(1 + (n - docFreq + 0.5) / (docFreq + 0.5));
+            maxRowScore += idfs[i] * (k1 + 1);
+        }
+
+        // score the rarest terms first so that scoring can stop as early as possible
+        Integer[] order = new Integer[terms.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return Double.compare(idfs[i2], idfs[i1]);
+            }
+        });
+        termOrder = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            termOrder[i] = order[i];
+        }
+    }
+
+    private long readTermFrequency(Text row, String term, Text docId) throws IOException {
+        Key key = new Key(row, ColumnPrefixes.getTermColFam(term), docId);
+        Value value = readExact(key);
+        if (value == null) {
+            return 0;
+        }
+        // documents indexed before term frequencies were recorded have an empty value
+        return value.getSize() == 0 ? 1 : parseLong(value);
+    }
+
+    private long readLong(Text row, Text columnFamily, Text columnQualifier, long defaultValue) throws IOException {
+        Value value = readExact(new Key(row, columnFamily, columnQualifier));
+        return value == null || value.getSize() == 0 ? defaultValue : parseLong(value);
+    }
+
+    private Value readExact(Key key) throws IOException {
+        statsSource.seek(new Range(key, true, key.followingKey(PartialKey.ROW_COLFAM_COLQUAL), false),
+                Collections.<ByteSequence> emptyList(), false);
+        if (statsSource.hasTop() && statsSource.getTopKey().equals(key, PartialKey.ROW_COLFAM_COLQUAL)) {
+            return statsSource.getTopValue();
+        }
+        return null;
+    }
+
+    private static long parseLong(Value value) {
+        return Long.parseLong(new String(value.get(), 0, value.getSize(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean hasTop() {
+        return top != null;
+    }
+
+    @Override
+    public Key getTopKey() {
+        if (top == null) {
+            throw new NoSuchElementException();
+        }
+        return top.key;
+    }
+
+    @Override
+    public Value getTopValue() {
+        if (top == null) {
+            throw new NoSuchElementException();
+        }
+        return encodeHit(top.score, top.value);
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        throw new UnsupportedOperationException();
+    }
+
+    private static Value encodeHit(double score, Value document) {
+        ByteBuffer buffer = ByteBuffer.allocate(SCORE_LENGTH + document.getSize());
+        buffer.putDouble(score);
+        buffer.put(document.get(), 0, document.getSize());
+        return new Value(buffer.array());
+    }
+
+    /**
+     * @param hit a value returned by this iterator
+     * @return the score of the hit
+     */
+    public static double decodeScore(Value hit) {
+        return ByteBuffer.wrap(hit.get(), 0, SCORE_LENGTH).getDouble();
+    }
+
+    /**
+     * @param hit a value returned by this iterator
+     * @return the document of the hit
+     * @throws CharacterCodingException
+     */
+    public static String decodeDocument(Value hit) throws CharacterCodingException {
+        return Text.decode(hit.get(), SCORE_LENGTH, hit.getSize() - SCORE_LENGTH);
+    }
+
+    public static void setQuery(IteratorSetting cfg, String query) {
+        BooleanTreeIterator.setQuery(cfg, query);
+    }
+
+    /**
+     * @param cfg the iterator setting
+     * @param limit the maximum number of hits returned for each seeked range, or 0 to score every hit.
+     */
+    public static void setLimit(IteratorSetting cfg, int limit) {
+        cfg.addOption(limitOptionName, Integer.toString(limit));
+    }
+
+    /**
+     * @param cfg the iterator setting
+     * @param k1 the BM25 term frequency saturation
+     * @param b the BM25 document length normalization
+     */
+    public static void setParameters(IteratorSetting cfg, double k1, double b) {
+        cfg.addOption(k1OptionName, Double.toString(k1));
+        cfg.addOption(bOptionName, Double.toString(b));
+    }
+
+    @Override
+    public IteratorOptions describeOptions() {
+        Map<String, String> options = new HashMap<String, String>();
+        options.put(queryOptionName, "the free text query");
+        options.put(limitOptionName, "the maximum number of hits returned for each seeked range, or 0 to score every hit");
+        options.put(k1OptionName, "the BM25 term frequency saturation (default " + DEFAULT_K1 + ")");
+        options.put(bOptionName, "the BM25 document length normalization (default " + DEFAULT_B + ")");
+        return new IteratorOptions("FreeTextRanking", "Score the hits of a FreeText Query with BM25", options, null);
+    }
+
+    @Override
+    public boolean validateOptions(Map<String, String> options) {
+        String q = options.get(queryOptionName);
+        if (q == null || q.isEmpty())
+            throw new IllegalArgumentException(queryOptionName + " must not be empty");
+        if (options.containsKey(limitOptionName) && Integer.parseInt(options.get(limitOptionName)) < 0)
+            throw new IllegalArgumentException(limitOptionName + " must not be negative");
+        return true;
+    }
+
+}
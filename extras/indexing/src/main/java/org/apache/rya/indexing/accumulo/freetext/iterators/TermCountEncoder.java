@@ -0,0 +1,46 @@
+package org.apache.rya.indexing.accumulo.freetext.iterators;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.accumulo.core.client.lexicoder.Encoder;
+import org.apache.accumulo.core.iterators.LongCombiner;
+
+/**
+ * Encodes the number of documents that contain a term as a string, like {@link LongCombiner.Type#STRING}. Term table entries written
+ * before terms were counted have an empty value and are decoded as a count of one, until
+ * {@link org.apache.rya.indexing.accumulo.freetext.FreeTextTermRecountTool} replaces them with exact counts.
+ */
+public class TermCountEncoder implements Encoder<Long> {
+
+    @Override
+    public byte[] encode(Long count) {
+        return Long.toString(count).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Long decode(byte[] bytes) {
+        if (bytes.length == 0) {
+            return 1L;
+        }
+        return Long.parseLong(new String(bytes, StandardCharsets.UTF_8));
+    }
+}
@@ -18,26 +18,36 @@
  */
 package org.apache.rya.indexing.accumulo.freetext;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.TableExistsException;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.client.admin.TableOperations;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
 import org.apache.rya.accumulo.AccumuloRdfConfiguration;
 import org.apache.rya.api.domain.RyaStatement;
 import org.apache.rya.api.domain.RyaType;
 import org.apache.rya.api.domain.RyaIRI;
 import org.apache.rya.api.resolver.RdfToRyaConversions;
 import org.apache.rya.api.resolver.RyaToRdfConversions;
+import org.apache.rya.indexing.ScoredStatement;
 import org.apache.rya.indexing.StatementConstraints;
 import org.apache.rya.indexing.accumulo.ConfigUtils;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
@@ -51,6 +61,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 
@@ -181,6 +192,89 @@ public class AccumuloFreeTextIndexerTest {
         }
     }
 
+    @Test
+    public void testDeleteTermCounts() throws Exception {
+        try (AccumuloFreeTextIndexer f = new AccumuloFreeTextIndexer()) {
+            f.setConf(conf);
+            f.setMultiTableBatchWriter(ConfigUtils.createMultitableBatchWriter(conf));
+            f.init();
+
+            ValueFactory vf = SimpleValueFactory.getInstance();
+            Statement statement1 = vf.createStatement(vf.createIRI("foo:subj1"), RDFS.LABEL, vf.createLiteral("a new hat"));
+            Statement statement2 = vf.createStatement(vf.createIRI("foo:subj2"), RDFS.LABEL, vf.createLiteral("a new shoe"));
+            f.storeStatement(RdfToRyaConversions.convertStatement(statement1));
+            f.storeStatement(RdfToRyaConversions.convertStatement(statement2));
+            f.flush();
+
+            Assert.assertEquals(Long.valueOf(2), getTermCounts(conf).get("new"));
+            Assert.assertEquals(Long.valueOf(1), getTermCounts(conf).get("hat"));
+
+            // a delete pattern that matches no stored statement does not count the terms down
+            Statement neverStored = vf.createStatement(vf.createIRI("foo:subj3"), RDFS.LABEL, vf.createLiteral("a new coat"));
+            f.deleteStatement(RdfToRyaConversions.convertStatement(neverStored));
+            f.deleteStatement(RdfToRyaConversions.convertStatement(neverStored));
+            f.flush();
+            Assert.assertEquals(Long.valueOf(2), getTermCounts(conf).get("new"));
+
+            f.deleteStoredStatement(RdfToRyaConversions.convertStatement(statement1));
+            f.deleteStatement(RdfToRyaConversions.convertStatement(statement1));
+            f.flush();
+
+            // "new" is still in the second statement, "hat" is in no statement
+            Assert.assertEquals(Long.valueOf(1), getTermCounts(conf).get("new"));
+            Assert.assertFalse(getTermCounts(conf).containsKey("hat"));
+            Assert.assertEquals(Sets.newHashSet(statement2), getSet(f.queryText("ne*", EMPTY_CONSTRAINTS)));
+            Assert.assertEquals(Sets.newHashSet(), getSet(f.queryText("ha*", EMPTY_CONSTRAINTS)));
+
+            f.deleteStoredStatement(RdfToRyaConversions.convertStatement(statement2));
+            f.deleteStatement(RdfToRyaConversions.convertStatement(statement2));
+            f.flush();
+
+            Assert.assertEquals(new HashMap<String, Long>(), getTermCounts(conf));
+        }
+    }
+
+    @Test
+    public void testRecountLegacyTerms() throws Exception {
+        try (AccumuloFreeTextIndexer f = new AccumuloFreeTextIndexer()) {
+            f.setConf(conf);
+            f.setMultiTableBatchWriter(ConfigUtils.createMultitableBatchWriter(conf));
+            f.init();
+
+            ValueFactory vf = SimpleValueFactory.getInstance();
+            Statement statement1 = vf.createStatement(vf.createIRI("foo:subj1"), RDFS.LABEL, vf.createLiteral("a new hat"));
+            Statement statement2 = vf.createStatement(vf.createIRI("foo:subj2"), RDFS.LABEL, vf.createLiteral("a new shoe"));
+            f.storeStatement(RdfToRyaConversions.convertStatement(statement1));
+            f.storeStatement(RdfToRyaConversions.convertStatement(statement2));
+            f.flush();
+
+            // replace the counts with the empty values written before terms were counted
+            String termtable = AccumuloFreeTextIndexer.getFreeTextTermTablename(conf);
+            Connector connector = ConfigUtils.getConnector(conf);
+            connector.tableOperations().deleteRows(termtable, null, null);
+            BatchWriter writer = connector.createBatchWriter(termtable, new BatchWriterConfig());
+            for (String term : new String[] { "a", "new", "hat", "shoe" }) {
+                for (Text row : new Text[] { ColumnPrefixes.getTermListColFam(term), ColumnPrefixes.getRevTermListColFam(term) }) {
+                    Mutation m = new Mutation(row);
+                    m.put(new Text(), new Text(), new org.apache.accumulo.core.data.Value(new byte[0]));
+                    writer.addMutation(m);
+                }
+            }
+            writer.close();
+
+            Assert.assertEquals(4, new FreeTextTermRecountTool(conf).recount());
+            Assert.assertEquals(Long.valueOf(2), getTermCounts(conf).get("new"));
+            Assert.assertEquals(Long.valueOf(1), getTermCounts(conf).get("hat"));
+
+            // the shared term is still expanded once one of its documents is deleted
+            f.deleteStoredStatement(RdfToRyaConversions.convertStatement(statement1));
+            f.deleteStatement(RdfToRyaConversions.convertStatement(statement1));
+            f.flush();
+            Assert.assertEquals(Sets.newHashSet(statement2), getSet(f.queryText("ne*", EMPTY_CONSTRAINTS)));
+            Assert.assertEquals(Sets.newHashSet(statement2), getSet(f.queryText("*ew", EMPTY_CONSTRAINTS)));
+        }
+    }
+
     @Test
     public void testRestrictPredicatesSearch() throws Exception {
         conf.setStrings(ConfigUtils.FREETEXT_PREDICATES_LIST, "pred:1,pred:2");
@@ -244,6 +338,94 @@ public class AccumuloFreeTextIndexerTest {
         }
     }
 
+    @Test
+    public void testRankedSearch() throws Exception {
+        // keep all of the documents in one shard so they share the same statistics
+        conf.setInt(ConfigUtils.FREETEXT_DOC_NUM_PARTITIONS, 1);
+
+        try (AccumuloFreeTextIndexer f = new AccumuloFreeTextIndexer()) {
+            f.setConf(conf);
+            f.setMultiTableBatchWriter(ConfigUtils.createMultitableBatchWriter(conf));
+            f.init();
+
+            ValueFactory vf = SimpleValueFactory.getInstance();
+            IRI predicate = RDFS.LABEL;
+
+            Statement shortHat = vf.createStatement(vf.createIRI("foo:subj1"), predicate, vf.createLiteral("the hat of the hat maker"));
+            Statement longHat = vf.createStatement(vf.createIRI("foo:subj2"), predicate,
+                    vf.createLiteral("a very long sentence about a hat and many other unrelated words"));
+            Statement shoe = vf.createStatement(vf.createIRI("foo:subj3"), predicate, vf.createLiteral("a red shoe"));
+            f.storeStatement(RdfToRyaConversions.convertStatement(shortHat));
+            f.storeStatement(RdfToRyaConversions.convertStatement(longHat));
+            f.storeStatement(RdfToRyaConversions.convertStatement(shoe));
+            f.flush();
+
+            printTables(conf);
+
+            // the document that mentions "hat" more often in fewer words is more relevant
+            Map<Statement, Double> scores = new HashMap<Statement, Double>();
+            for (ScoredStatement hit : getList(f.queryRankedText("hat", EMPTY_CONSTRAINTS, 0))) {
+                scores.put(hit.getStatement(), hit.getScore());
+            }
+            Assert.assertEquals(Sets.newHashSet(shortHat, longHat), scores.keySet());
+            Assert.assertTrue(scores.get(shortHat) > scores.get(longHat));
+            Assert.assertTrue(scores.get(longHat) > 0);
+
+            // only the best hits are returned, best first
+            Assert.assertEquals(Lists.newArrayList(shortHat), getStatements(f.queryRankedText("hat", EMPTY_CONSTRAINTS, 1)));
+
+            // the rarer term weighs more
+            Assert.assertEquals(Lists.newArrayList(shoe, shortHat), getStatements(f.queryRankedText("hat | shoe", EMPTY_CONSTRAINTS, 2)));
+
+            // ranking respects the boolean query and the constraints
+            Assert.assertEquals(Lists.newArrayList(), getStatements(f.queryRankedText("hat & shoe", EMPTY_CONSTRAINTS, 2)));
+            Assert.assertEquals(Lists.newArrayList(longHat), getStatements(f.queryRankedText("hat & !maker", EMPTY_CONSTRAINTS, 2)));
+            Assert.assertEquals(Lists.newArrayList(longHat),
+                    getStatements(f.queryRankedText("hat", new StatementConstraints().setSubject(vf.createIRI("foo:subj2")), 2)));
+
+            // deleted documents are no longer ranked
+            f.deleteStoredStatement(RdfToRyaConversions.convertStatement(shortHat));
+            f.deleteStatement(RdfToRyaConversions.convertStatement(shortHat));
+            f.flush();
+            Assert.assertEquals(Lists.newArrayList(longHat), getStatements(f.queryRankedText("hat", EMPTY_CONSTRAINTS, 2)));
+        }
+    }
+
+    @Test
+    public void testDeleteStatistics() throws Exception {
+        try (AccumuloFreeTextIndexer f = new AccumuloFreeTextIndexer()) {
+            f.setConf(conf);
+            f.setMultiTableBatchWriter(ConfigUtils.createMultitableBatchWriter(conf));
+            f.init();
+
+            ValueFactory vf = SimpleValueFactory.getInstance();
+            Statement statement1 = vf.createStatement(vf.createIRI("foo:subj1"), RDFS.LABEL, vf.createLiteral("a new hat"));
+            Statement statement2 = vf.createStatement(vf.createIRI("foo:subj2"), RDFS.LABEL, vf.createLiteral("a new shoe"));
+            f.storeStatement(RdfToRyaConversions.convertStatement(statement1));
+            f.storeStatement(RdfToRyaConversions.convertStatement(statement2));
+            f.flush();
+
+            // a delete pattern that matches no stored statement leaves the statistics alone
+            Statement neverStored = vf.createStatement(vf.createIRI("foo:subj3"), RDFS.LABEL, vf.createLiteral("a new coat"));
+            f.deleteStatement(RdfToRyaConversions.convertStatement(neverStored));
+            f.deleteStatement(RdfToRyaConversions.convertStatement(neverStored));
+            f.flush();
+            Map<String, Long> statistics = getStatistics(conf);
+            Assert.assertEquals(Long.valueOf(2), statistics.get(ColumnPrefixes.STATS_DOC_COUNT_CQ.toString()));
+            Assert.assertEquals(Long.valueOf(6), statistics.get(ColumnPrefixes.STATS_DOC_LENGTH_CQ.toString()));
+            Assert.assertEquals(Long.valueOf(2), statistics.get(ColumnPrefixes.getDocFreqColQual("new").toString()));
+
+            f.deleteStoredStatement(RdfToRyaConversions.convertStatement(statement1));
+            f.deleteStatement(RdfToRyaConversions.convertStatement(statement1));
+            f.flush();
+            statistics = getStatistics(conf);
+            Assert.assertEquals(Long.valueOf(1), statistics.get(ColumnPrefixes.STATS_DOC_COUNT_CQ.toString()));
+            Assert.assertEquals(Long.valueOf(3), statistics.get(ColumnPrefixes.STATS_DOC_LENGTH_CQ.toString()));
+            Assert.assertEquals(Long.valueOf(1), statistics.get(ColumnPrefixes.getDocFreqColQual("new").toString()));
+            Assert.assertEquals(Long.valueOf(0), statistics.get(ColumnPrefixes.getDocFreqColQual("hat").toString()));
+        }
+    }
+
     public static void printTables(Configuration conf) throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
         TableOperations tops = ConfigUtils.getConnector(conf).tableOperations();
 
@@ -262,6 +444,46 @@ public class AccumuloFreeTextIndexerTest {
 
     }
 
+    private static Map<String, Long> getTermCounts(Configuration conf) throws Exception {
+        Map<String, Long> counts = new HashMap<String, Long>();
+        Scanner s = ConfigUtils.getConnector(conf).createScanner(AccumuloFreeTextIndexer.getFreeTextTermTablename(conf), Authorizations.EMPTY);
+        s.setRange(Range.prefix(ColumnPrefixes.TERM_LIST_CF_PREFIX));
+        for (Entry<Key, org.apache.accumulo.core.data.Value> entry : s) {
+            String term = ColumnPrefixes.removePrefix(entry.getKey().getRow()).toString();
+            counts.put(term, Long.parseLong(entry.getValue().toString()));
+        }
+        return counts;
+    }
+
+    private static Map<String, Long> getStatistics(Configuration conf) throws Exception {
+        Map<String, Long> statistics = new HashMap<String, Long>();
+        Scanner s = ConfigUtils.getConnector(conf).createScanner(AccumuloFreeTextIndexer.getFreeTextDocTablename(conf), Authorizations.EMPTY);
+        s.fetchColumnFamily(ColumnPrefixes.STATS_CF_PREFIX);
+        for (Entry<Key, org.apache.accumulo.core.data.Value> entry : s) {
+            String statistic = entry.getKey().getColumnQualifier().toString();
+            Long value = Long.parseLong(entry.getValue().toString());
+            Long sum = statistics.get(statistic);
+            statistics.put(statistic, sum == null ? value : sum + value);
+        }
+        return statistics;
+    }
+
+    private static <X> List<X> getList(CloseableIteration<X, ?> iter) throws Exception {
+        List<X> list = new ArrayList<X>();
+        while (iter.hasNext()) {
+            list.add(iter.next());
+        }
+        return list;
+    }
+
+    private static List<Statement> getStatements(CloseableIteration<ScoredStatement, ?> iter) throws Exception {
+        List<Statement> statements = new ArrayList<Statement>();
+        for (ScoredStatement statement : getList(iter)) {
+            statements.add(statement.getStatement());
+        }
+        return statements;
+    }
+
     private static <X> Set<X> getSet(CloseableIteration<X, ?> iter) throws Exception {
         Set<X> set = new HashSet<X>();
         while (iter.hasNext()) {
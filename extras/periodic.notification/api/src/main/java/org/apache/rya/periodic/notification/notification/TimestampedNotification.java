@@ -19,6 +19,7 @@
 package org.apache.rya.periodic.notification.notification;
 
 import java.util.Date;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -54,6 +55,16 @@ public class TimestampedNotification extends PeriodicNotification {
         date = new Date();
     }
 
+    /**
+     * Creates a TimestampedNotification
+     * @param notification - PeriodicNotification used to create this TimestampedNotification
+     * @param date - time at which this notification was due to be generated
+     */
+    public TimestampedNotification(PeriodicNotification notification, Date date) {
+        super(notification);
+        this.date = Objects.requireNonNull(date);
+    }
+
     /**
      * @return timestamp at which this notification was generated
      */
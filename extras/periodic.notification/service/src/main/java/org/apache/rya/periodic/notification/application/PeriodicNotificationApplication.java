@@ -28,7 +28,9 @@ import org.apache.rya.periodic.notification.api.BindingSetRecord;
 import org.apache.rya.periodic.notification.api.LifeCycle;
 import org.apache.rya.periodic.notification.api.NodeBin;
 import org.apache.rya.periodic.notification.api.NotificationCoordinatorExecutor;
+import org.apache.rya.periodic.notification.exporter.KafkaBinExporter;
 import org.apache.rya.periodic.notification.exporter.KafkaExporterExecutor;
+import org.apache.rya.periodic.notification.metrics.PeriodicNotificationMetrics;
 import org.apache.rya.periodic.notification.processor.NotificationProcessorExecutor;
 import org.apache.rya.periodic.notification.pruner.PeriodicQueryPrunerExecutor;
 import org.apache.rya.periodic.notification.registration.kafka.KafkaNotificationProvider;
@@ -53,7 +55,9 @@ import com.google.common.base.Preconditions;
  * <li>The processor processes the notifications by reading all of the query
  * results corresponding to the bin and query id indicated by the notification.
  * <li>After reading the results, the processor adds a {@link BindingSetRecord}
- * to a work queue monitored by the {@link KafkaExporterExecutor}.
+ * to a work queue monitored by the {@link KafkaExporterExecutor}, or, if
+ * streaming export is enabled, exports them directly to Kafka in batches using a
+ * {@link KafkaBinExporter}.
  * <li>The processor then adds a {@link NodeBin} to a workqueue monitored by the
  * {@link BinPruner}
  * <li>The exporter processes the BindingSetRecord by exporing the result to
@@ -61,6 +65,12 @@ import com.google.common.base.Preconditions;
  * <li>The BinPruner processes the NodeBin by cleaning up the results for the
  * indicated bin and query in Accumulo and Fluo. <br>
  * <br>
+ * The work queues are bounded, so a component that falls behind blocks the
+ * components that feed it instead of letting the queues grow without limit.
+ * Queue depths and processing lag are published through JMX by
+ * {@link PeriodicNotificationMetrics}.
+ * <br>
+ * <br>
  * The purpose of this Periodic Query Service is to facilitate the ability to
  * answer Periodic Queries using the Rya Fluo application, where a Periodic
  * Query is any query requesting periodic updates about events that occurred
@@ -93,6 +103,7 @@ public class PeriodicNotificationApplication implements LifeCycle {
     private final PeriodicQueryPrunerExecutor pruner;
     private final NotificationProcessorExecutor processor;
     private final KafkaExporterExecutor exporter;
+    private final Optional<PeriodicNotificationMetrics> metrics;
     private boolean running = false;
     private Optional<CompletableFuture<Void>> finished = Optional.empty();
 
@@ -107,6 +118,22 @@ public class PeriodicNotificationApplication implements LifeCycle {
      */
     public PeriodicNotificationApplication(final KafkaNotificationProvider provider, final NotificationCoordinatorExecutor coordinator,
             final NotificationProcessorExecutor processor, final KafkaExporterExecutor exporter, final PeriodicQueryPrunerExecutor pruner) {
+        this(provider, coordinator, processor, exporter, pruner, Optional.empty());
+    }
+
+    /**
+     * Creates a PeriodicNotificationApplication
+     * @param provider - {@link KafkaNotificationProvider} that retrieves new Notification requests from Kafka
+     * @param coordinator - {NotificationCoordinator} that manages PeriodicNotifications.
+     * @param processor - {@link NotificationProcessorExecutor} that processes PeriodicNotifications
+     * @param exporter - {@link KafkaExporterExecutor} that exports periodic results
+     * @param pruner - {@link PeriodicQueryPrunerExecutor} that cleans up old periodic bins
+     * @param metrics - {@link PeriodicNotificationMetrics} that is registered with JMX while the application runs
+     */
+    public PeriodicNotificationApplication(final KafkaNotificationProvider provider, final NotificationCoordinatorExecutor coordinator,
+            final NotificationProcessorExecutor processor, final KafkaExporterExecutor exporter, final PeriodicQueryPrunerExecutor pruner,
+            final Optional<PeriodicNotificationMetrics> metrics) {
+        this.metrics = Preconditions.checkNotNull(metrics);
         this.provider = Preconditions.checkNotNull(provider);
         this.coordinator = Preconditions.checkNotNull(coordinator);
         this.processor = Preconditions.checkNotNull(processor);
@@ -118,6 +145,7 @@ public class PeriodicNotificationApplication implements LifeCycle {
     public void start() {
         if (!running) {
             log.info("Starting PeriodicNotificationApplication.");
+            metrics.ifPresent(PeriodicNotificationMetrics::register);
             coordinator.start();
             provider.start();
             processor.start();
@@ -153,6 +181,7 @@ public class PeriodicNotificationApplication implements LifeCycle {
         processor.stop();
         pruner.stop();
         exporter.stop();
+        metrics.ifPresent(PeriodicNotificationMetrics::unregister);
         running = false;
         finished.get().complete(null);
     }
@@ -176,6 +205,7 @@ public class PeriodicNotificationApplication implements LifeCycle {
         private NotificationProcessorExecutor processor;
         private KafkaExporterExecutor exporter;
         private NotificationCoordinatorExecutor coordinator;
+        private Optional<PeriodicNotificationMetrics> metrics = Optional.empty();
 
         /**
          * Sets the PeriodicQueryPrunerExecutor.
@@ -222,12 +252,22 @@ public class PeriodicNotificationApplication implements LifeCycle {
             return this;
         }
 
+        /**
+         * Sets PeriodicNotificationMetrics
+         * @param metrics for reporting queue depths and processing lag through JMX
+         * @return this Builder for chaining method calls
+         */
+        public Builder setMetrics(final PeriodicNotificationMetrics metrics) {
+            this.metrics = Optional.ofNullable(metrics);
+            return this;
+        }
+
         /**
          * Creates a PeriodicNotificationApplication
          * @return PeriodicNotificationApplication for periodically polling Rya Fluo Application
          */
         public PeriodicNotificationApplication build() {
-            return new PeriodicNotificationApplication(provider, coordinator, processor, exporter, pruner);
+            return new PeriodicNotificationApplication(provider, coordinator, processor, exporter, pruner, metrics);
         }
 
     }
@@ -42,6 +42,16 @@ public class PeriodicNotificationApplicationConfiguration extends AccumuloRdfCon
     public static final String EXPORTER_THREADS = RYA_PERIODIC_PREFIX + "exporter.threads";
     public static final String PROCESSOR_THREADS = RYA_PERIODIC_PREFIX + "processor.threads";
     public static final String PRUNER_THREADS = RYA_PERIODIC_PREFIX + "pruner.threads";
+    public static final String NOTIFICATION_QUEUE_CAPACITY = RYA_PERIODIC_PREFIX + "notification.queue.capacity";
+    public static final String BIN_QUEUE_CAPACITY = RYA_PERIODIC_PREFIX + "bin.queue.capacity";
+    public static final String EXPORT_QUEUE_CAPACITY = RYA_PERIODIC_PREFIX + "export.queue.capacity";
+    public static final String EXPORT_BATCH_SIZE = RYA_PERIODIC_PREFIX + "export.batch.size";
+    public static final String EXPORT_STREAMING = RYA_PERIODIC_PREFIX + "export.streaming";
+    public static final String COORDINATOR_TICK_MILLIS = RYA_PERIODIC_PREFIX + "coordinator.tick.millis";
+    public static final String COORDINATOR_WHEEL_SIZE = RYA_PERIODIC_PREFIX + "coordinator.wheel.size";
+    public static final String PROCESSOR_BATCH_SIZE = RYA_PERIODIC_PREFIX + "processor.batch.size";
+    public static final String BIN_EXPIRY_MILLIS = RYA_PERIODIC_PREFIX + "bin.expiry.millis";
+    public static final String BIN_COMPACTION_INTERVAL_MILLIS = RYA_PERIODIC_PREFIX + "bin.compaction.interval.millis";
 
     public PeriodicNotificationApplicationConfiguration() {}
 
@@ -67,6 +77,20 @@ public class PeriodicNotificationApplicationConfiguration extends AccumuloRdfCon
      * <li>"rya.periodic.notification.exporter.threads" - Number of threads used by exporter.  Default is 1.
      * <li>"rya.periodic.notification.processor.threads" - Number of threads used by processor.  Default is 1.
      * <li>"rya.periodic.notification.pruner.threads" - Number of threads used by pruner.  Default is 1.
+     * <li>"rya.periodic.notification.notification.queue.capacity" - Maximum number of notifications waiting to be processed.  Default is 1000.
+     * <li>"rya.periodic.notification.bin.queue.capacity" - Maximum number of bins waiting to be pruned.  Default is 1000.
+     * <li>"rya.periodic.notification.export.queue.capacity" - Maximum number of results waiting to be exported.  Default is 10000.
+     * <li>"rya.periodic.notification.export.batch.size" - Maximum number of results sent to Kafka before waiting for acknowledgement.  Default is 500.
+     * <li>"rya.periodic.notification.export.streaming" - Whether the processor exports the results of a bin directly to Kafka
+     * instead of adding them to the export queue.  Default is true.
+     * <li>"rya.periodic.notification.coordinator.tick.millis" - Granularity in milliseconds of the coordinator's timing wheel.  Default is 100.
+     * <li>"rya.periodic.notification.coordinator.wheel.size" - Number of buckets in each level of the coordinator's timing wheel.  Default is 512.
+     * <li>"rya.periodic.notification.processor.batch.size" - Maximum number of notifications a processor thread handles together.  Default is 100.
+     * <li>"rya.periodic.notification.bin.expiry.millis" - If positive, bins are dropped by a server side filter once their bin id is
+     * this many milliseconds old, whether or not they have been exported, instead of being deleted from the PCJ table after export.
+     * Periodic queries whose window plus twice their period exceeds the expiry are rejected.  Default is 0 (disabled).
+     * <li>"rya.periodic.notification.bin.compaction.interval.millis" - If positive and bin expiry is enabled, the minimum time between
+     * compactions of the expired bins of a PCJ table.  Default is 0 (disabled).
      * </ul>
      * <br>
      * @param props - Properties file containing Accumulo specific configuration parameters
@@ -84,6 +108,16 @@ public class PeriodicNotificationApplicationConfiguration extends AccumuloRdfCon
        setExporterThreads(Integer.parseInt(props.getProperty(EXPORTER_THREADS, "1")));
        setPrunerThreads(Integer.parseInt(props.getProperty(PRUNER_THREADS, "1")));
        setCoordinatorThreads(Integer.parseInt(props.getProperty(COORDINATOR_THREADS, "1")));
+       setNotificationQueueCapacity(Integer.parseInt(props.getProperty(NOTIFICATION_QUEUE_CAPACITY, "1000")));
+       setBinQueueCapacity(Integer.parseInt(props.getProperty(BIN_QUEUE_CAPACITY, "1000")));
+       setExportQueueCapacity(Integer.parseInt(props.getProperty(EXPORT_QUEUE_CAPACITY, "10000")));
+       setExportBatchSize(Integer.parseInt(props.getProperty(EXPORT_BATCH_SIZE, "500")));
+       setExportStreaming(Boolean.parseBoolean(props.getProperty(EXPORT_STREAMING, "true")));
+       setCoordinatorTickMillis(Long.parseLong(props.getProperty(COORDINATOR_TICK_MILLIS, "100")));
+       setCoordinatorWheelSize(Integer.parseInt(props.getProperty(COORDINATOR_WHEEL_SIZE, "512")));
+       setProcessorBatchSize(Integer.parseInt(props.getProperty(PROCESSOR_BATCH_SIZE, "100")));
+       setBinExpiryMillis(Long.parseLong(props.getProperty(BIN_EXPIRY_MILLIS, "0")));
+       setBinCompactionIntervalMillis(Long.parseLong(props.getProperty(BIN_COMPACTION_INTERVAL_MILLIS, "0")));
     }
 
     /**
@@ -174,6 +208,86 @@ public class PeriodicNotificationApplicationConfiguration extends AccumuloRdfCon
         setInt(PROCESSOR_THREADS, threads);
     }
 
+    /**
+     * Sets the maximum number of notifications waiting to be processed
+     * @param capacity
+     */
+    public void setNotificationQueueCapacity(final int capacity) {
+        setInt(NOTIFICATION_QUEUE_CAPACITY, capacity);
+    }
+
+    /**
+     * Sets the maximum number of bins waiting to be pruned
+     * @param capacity
+     */
+    public void setBinQueueCapacity(final int capacity) {
+        setInt(BIN_QUEUE_CAPACITY, capacity);
+    }
+
+    /**
+     * Sets the maximum number of results waiting to be exported
+     * @param capacity
+     */
+    public void setExportQueueCapacity(final int capacity) {
+        setInt(EXPORT_QUEUE_CAPACITY, capacity);
+    }
+
+    /**
+     * Sets the maximum number of results sent to Kafka before waiting for acknowledgement
+     * @param batchSize
+     */
+    public void setExportBatchSize(final int batchSize) {
+        setInt(EXPORT_BATCH_SIZE, batchSize);
+    }
+
+    /**
+     * Sets whether the processor exports results directly to Kafka
+     * @param streaming
+     */
+    public void setExportStreaming(final boolean streaming) {
+        setBoolean(EXPORT_STREAMING, streaming);
+    }
+
+    /**
+     * Sets the granularity of the coordinator's timing wheel in milliseconds
+     * @param tickMillis
+     */
+    public void setCoordinatorTickMillis(final long tickMillis) {
+        setLong(COORDINATOR_TICK_MILLIS, tickMillis);
+    }
+
+    /**
+     * Sets the number of buckets in each level of the coordinator's timing wheel
+     * @param wheelSize
+     */
+    public void setCoordinatorWheelSize(final int wheelSize) {
+        setInt(COORDINATOR_WHEEL_SIZE, wheelSize);
+    }
+
+    /**
+     * Sets the maximum number of notifications a processor thread handles together
+     * @param batchSize
+     */
+    public void setProcessorBatchSize(final int batchSize) {
+        setInt(PROCESSOR_BATCH_SIZE, batchSize);
+    }
+
+    /**
+     * Sets how long after their bin id bins are dropped, whether or not they were exported, instead of deleted after export
+     * @param expiryMillis - 0 to delete processed bins
+     */
+    public void setBinExpiryMillis(final long expiryMillis) {
+        setLong(BIN_EXPIRY_MILLIS, expiryMillis);
+    }
+
+    /**
+     * Sets the minimum time between compactions of the expired bins of a PCJ table
+     * @param intervalMillis - 0 to disable compactions
+     */
+    public void setBinCompactionIntervalMillis(final long intervalMillis) {
+        setLong(BIN_COMPACTION_INTERVAL_MILLIS, intervalMillis);
+    }
+
     /**
      * @return name of the Fluo application
      */
@@ -251,4 +365,74 @@ public class PeriodicNotificationApplicationConfiguration extends AccumuloRdfCon
         return getInt(PROCESSOR_THREADS, 1);
     }
 
+    /**
+     * @return the maximum number of notifications waiting to be processed
+     */
+    public int getNotificationQueueCapacity() {
+        return getInt(NOTIFICATION_QUEUE_CAPACITY, 1000);
+    }
+
+    /**
+     * @return the maximum number of bins waiting to be pruned
+     */
+    public int getBinQueueCapacity() {
+        return getInt(BIN_QUEUE_CAPACITY, 1000);
+    }
+
+    /**
+     * @return the maximum number of results waiting to be exported
+     */
+    public int getExportQueueCapacity() {
+        return getInt(EXPORT_QUEUE_CAPACITY, 10000);
+    }
+
+    /**
+     * @return the maximum number of results sent to Kafka before waiting for acknowledgement
+     */
+    public int getExportBatchSize() {
+        return getInt(EXPORT_BATCH_SIZE, 500);
+    }
+
+    /**
+     * @return whether the processor exports results directly to Kafka
+     */
+    public boolean getExportStreaming() {
+        return getBoolean(EXPORT_STREAMING, true);
+    }
+
+    /**
+     * @return the granularity of the coordinator's timing wheel in milliseconds
+     */
+    public long getCoordinatorTickMillis() {
+        return getLong(COORDINATOR_TICK_MILLIS, 100);
+    }
+
+    /**
+     * @return the number of buckets in each level of the coordinator's timing wheel
+     */
+    public int getCoordinatorWheelSize() {
+        return getInt(COORDINATOR_WHEEL_SIZE, 512);
+    }
+
+    /**
+     * @return the maximum number of notifications a processor thread handles together
+     */
+    public int getProcessorBatchSize() {
+        return getInt(PROCESSOR_BATCH_SIZE, 100);
+    }
+
+    /**
+     * @return how long after their bin id bins are dropped, or 0 if they are deleted after export
+     */
+    public long getBinExpiryMillis() {
+        return getLong(BIN_EXPIRY_MILLIS, 0);
+    }
+
+    /**
+     * @return the minimum time between compactions of the expired bins of a PCJ table, or 0 if disabled
+     */
+    public long getBinCompactionIntervalMillis() {
+        return getLong(BIN_COMPACTION_INTERVAL_MILLIS, 0);
+    }
+
 }
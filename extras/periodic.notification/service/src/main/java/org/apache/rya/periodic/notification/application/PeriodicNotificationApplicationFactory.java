@@ -18,6 +18,7 @@
  */
 package org.apache.rya.periodic.notification.application;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.BlockingQueue;
@@ -43,7 +44,9 @@ import org.apache.rya.periodic.notification.api.BindingSetRecord;
 import org.apache.rya.periodic.notification.api.NodeBin;
 import org.apache.rya.periodic.notification.api.NotificationCoordinatorExecutor;
 import org.apache.rya.periodic.notification.coordinator.PeriodicNotificationCoordinatorExecutor;
+import org.apache.rya.periodic.notification.exporter.KafkaBinExporter;
 import org.apache.rya.periodic.notification.exporter.KafkaExporterExecutor;
+import org.apache.rya.periodic.notification.metrics.PeriodicNotificationMetrics;
 import org.apache.rya.periodic.notification.notification.TimestampedNotification;
 import org.apache.rya.periodic.notification.processor.NotificationProcessorExecutor;
 import org.apache.rya.periodic.notification.pruner.PeriodicQueryPrunerExecutor;
@@ -69,22 +72,28 @@ public class PeriodicNotificationApplicationFactory {
         final Properties kafkaConsumerProps = getKafkaConsumerProperties(conf);
         final Properties kafkaProducerProps = getKafkaProducerProperties(conf);
 
-        final BlockingQueue<TimestampedNotification> notifications = new LinkedBlockingQueue<>();
-        final BlockingQueue<NodeBin> bins = new LinkedBlockingQueue<>();
-        final BlockingQueue<BindingSetRecord> bindingSets = new LinkedBlockingQueue<>();
+        final BlockingQueue<TimestampedNotification> notifications = new LinkedBlockingQueue<>(conf.getNotificationQueueCapacity());
+        final BlockingQueue<NodeBin> bins = new LinkedBlockingQueue<>(conf.getBinQueueCapacity());
+        final BlockingQueue<BindingSetRecord> bindingSets = new LinkedBlockingQueue<>(conf.getExportQueueCapacity());
+        final PeriodicNotificationMetrics metrics = new PeriodicNotificationMetrics(notifications, bins, bindingSets);
 
         FluoClient fluo = null;
         try {
             final PeriodicQueryResultStorage storage = getPeriodicQueryResultStorage(conf);
             fluo = FluoClientFactory.getFluoClient(conf.getFluoAppName(), Optional.of(conf.getFluoTableName()), conf);
-            final NotificationCoordinatorExecutor coordinator = getCoordinator(conf.getCoordinatorThreads(), notifications);
+            final NotificationCoordinatorExecutor coordinator = getCoordinator(conf.getCoordinatorThreads(), notifications,
+                    conf.getCoordinatorTickMillis(), conf.getCoordinatorWheelSize());
             addRegisteredNotices(coordinator, fluo.newSnapshot());
-            final KafkaExporterExecutor exporter = getExporter(conf.getExporterThreads(), kafkaProducerProps, bindingSets);
+            final KafkaProducer<String, BindingSet> producer = new KafkaProducer<>(kafkaProducerProps, new StringSerializer(), new BindingSetSerDe());
+            final KafkaExporterExecutor exporter = getExporter(conf.getExporterThreads(), producer, bindingSets, conf.getExportBatchSize(), metrics);
             final PeriodicQueryPrunerExecutor pruner = getPruner(storage, fluo, conf.getPrunerThreads(), bins);
-            final NotificationProcessorExecutor processor = getProcessor(storage, notifications, bins, bindingSets, conf.getProcessorThreads());
+            final Optional<KafkaBinExporter> binExporter = conf.getExportStreaming()
+                    ? Optional.of(new KafkaBinExporter(producer, conf.getExportBatchSize(), metrics)) : Optional.empty();
+            final NotificationProcessorExecutor processor = getProcessor(storage, notifications, bins, bindingSets, conf.getProcessorThreads(),
+                    binExporter, metrics, conf.getProcessorBatchSize());
             final KafkaNotificationProvider provider = getProvider(conf.getProducerThreads(), conf.getNotificationTopic(), coordinator, kafkaConsumerProps);
             return PeriodicNotificationApplication.builder().setCoordinator(coordinator).setProvider(provider).setExporter(exporter)
-                    .setProcessor(processor).setPruner(pruner).build();
+                    .setProcessor(processor).setPruner(pruner).setMetrics(metrics).build();
         } catch (AccumuloException | AccumuloSecurityException e) {
             throw new PeriodicApplicationException(e.getMessage());
         }
@@ -96,13 +105,14 @@ public class PeriodicNotificationApplicationFactory {
         provider.processRegisteredNotifications(coord, sx);
     }
 
-    private static NotificationCoordinatorExecutor getCoordinator(final int numThreads, final BlockingQueue<TimestampedNotification> notifications) {
-        return new PeriodicNotificationCoordinatorExecutor(numThreads, notifications);
+    private static NotificationCoordinatorExecutor getCoordinator(final int numThreads, final BlockingQueue<TimestampedNotification> notifications,
+            final long tickMillis, final int wheelSize) {
+        return new PeriodicNotificationCoordinatorExecutor(numThreads, notifications, tickMillis, wheelSize);
     }
 
-    private static KafkaExporterExecutor getExporter(final int numThreads, final Properties props, final BlockingQueue<BindingSetRecord> bindingSets) {
-        final KafkaProducer<String, BindingSet> producer = new KafkaProducer<>(props, new StringSerializer(), new BindingSetSerDe());
-        return new KafkaExporterExecutor(producer, numThreads, bindingSets);
+    private static KafkaExporterExecutor getExporter(final int numThreads, final KafkaProducer<String, BindingSet> producer,
+            final BlockingQueue<BindingSetRecord> bindingSets, final int batchSize, final PeriodicNotificationMetrics metrics) {
+        return new KafkaExporterExecutor(producer, numThreads, bindingSets, batchSize, metrics);
     }
 
     private static PeriodicQueryPrunerExecutor getPruner(final PeriodicQueryResultStorage storage, final FluoClient fluo, final int numThreads,
@@ -112,8 +122,8 @@ public class PeriodicNotificationApplicationFactory {
 
     private static NotificationProcessorExecutor getProcessor(final PeriodicQueryResultStorage periodicStorage,
             final BlockingQueue<TimestampedNotification> notifications, final BlockingQueue<NodeBin> bins, final BlockingQueue<BindingSetRecord> bindingSets,
-            final int numThreads) {
-        return new NotificationProcessorExecutor(periodicStorage, notifications, bins, bindingSets, numThreads);
+            final int numThreads, final Optional<KafkaBinExporter> binExporter, final PeriodicNotificationMetrics metrics, final int batchSize) {
+        return new NotificationProcessorExecutor(periodicStorage, notifications, bins, bindingSets, numThreads, binExporter, metrics, batchSize);
     }
 
     private static KafkaNotificationProvider getProvider(final int numThreads, final String topic, final NotificationCoordinatorExecutor coord,
@@ -127,7 +137,10 @@ public class PeriodicNotificationApplicationFactory {
         final Instance instance = new ZooKeeperInstance(conf.getAccumuloInstance(), conf.getAccumuloZookeepers());
         final Connector conn = instance.getConnector(conf.getAccumuloUser(), new PasswordToken(conf.getAccumuloPassword()));
         final String ryaInstance = conf.getTablePrefix();
-        return new AccumuloPeriodicQueryResultStorage(conn, ryaInstance);
+        final Optional<Duration> binExpiry = conf.getBinExpiryMillis() > 0 ? Optional.of(Duration.ofMillis(conf.getBinExpiryMillis())) : Optional.empty();
+        final Optional<Duration> compactionInterval = conf.getBinCompactionIntervalMillis() > 0
+                ? Optional.of(Duration.ofMillis(conf.getBinCompactionIntervalMillis())) : Optional.empty();
+        return new AccumuloPeriodicQueryResultStorage(conn, ryaInstance, binExpiry, compactionInterval);
     }
 
     private static Properties getKafkaConsumerProperties(final PeriodicNotificationApplicationConfiguration conf) {
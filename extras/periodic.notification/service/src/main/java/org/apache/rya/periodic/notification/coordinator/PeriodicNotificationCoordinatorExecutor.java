@@ -18,12 +18,16 @@
  */
 package org.apache.rya.periodic.notification.coordinator;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -43,21 +47,49 @@ import com.google.common.base.Preconditions;
  * Implementation of {@link NotificationCoordinatorExecutor} that generates regular notifications
  * as indicated by {@link PeriodicNotification}s that are registered with this Object. When notifications
  * are generated they are placed on a work queue to be processed by the {@link NotificationProcessor}.
+ * <p>
+ * Notifications are scheduled on a single {@link TimingWheel} that is advanced by one thread every tick,
+ * rather than as a separate scheduled task per notification. Notifications with the same period whose
+ * first notification falls on the same phase of that period share a single timer, and all of the
+ * notifications that are due in a tick are placed on the work queue together with the time that they
+ * were due as their timestamp.
  *
  */
 public class PeriodicNotificationCoordinatorExecutor implements NotificationCoordinatorExecutor {
 
     private static final Logger LOG = LoggerFactory.getLogger(PeriodicNotificationCoordinatorExecutor.class);
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
     private int numThreads;
+    private final long tickMillis;
     private ScheduledExecutorService producerThreadPool;
-    private Map<String, ScheduledFuture<?>> serviceMap = new HashMap<>();
+    private final TimingWheel<NotificationGroup> wheel;
+    private Map<String, NotificationGroup> serviceMap = new HashMap<>();
+    private Map<GroupKey, NotificationGroup> groups = new HashMap<>();
     private BlockingQueue<TimestampedNotification> notifications;
     private final ReentrantLock lock = new ReentrantLock(true);
     private boolean running = false;
 
     public PeriodicNotificationCoordinatorExecutor(int numThreads, BlockingQueue<TimestampedNotification> notifications) {
+        this(numThreads, notifications, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates a PeriodicNotificationCoordinatorExecutor.
+     * @param numThreads - number of threads requested for the coordinator.  The timing wheel is advanced by a
+     * single thread, so this value is retained for compatibility with existing configurations.
+     * @param notifications - work queue that generated notifications are placed on
+     * @param tickMillis - granularity of the timing wheel in milliseconds.  Notifications are generated at most
+     * this long after they are due.
+     * @param wheelSize - number of buckets in each level of the timing wheel
+     */
+    public PeriodicNotificationCoordinatorExecutor(int numThreads, BlockingQueue<TimestampedNotification> notifications,
+            long tickMillis, int wheelSize) {
         this.numThreads = numThreads;
-        this.notifications = notifications;
+        this.notifications = Objects.requireNonNull(notifications);
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
     }
 
     @Override
@@ -73,7 +105,9 @@ public class PeriodicNotificationCoordinatorExecutor implements NotificationCoor
     @Override
     public void start() {
         if (!running) {
-            producerThreadPool = Executors.newScheduledThreadPool(numThreads);
+            LOG.info("Starting coordinator with tick of {} ms. Requested threads: {}", tickMillis, numThreads);
+            producerThreadPool = Executors.newSingleThreadScheduledExecutor();
+            producerThreadPool.scheduleAtFixedRate(new NotificationProducer(), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
             running = true;
         }
     }
@@ -113,43 +147,138 @@ public class PeriodicNotificationCoordinatorExecutor implements NotificationCoor
         Preconditions.checkArgument(notification instanceof PeriodicNotification);
         PeriodicNotification notify = (PeriodicNotification) notification;
         if (!serviceMap.containsKey(notification.getId())) {
-            ScheduledFuture<?> future = producerThreadPool.scheduleAtFixedRate(new NotificationProducer(notify), notify.getInitialDelay(),
-                    notify.getPeriod(), notify.getTimeUnit());
-            serviceMap.put(notify.getId(), future);
+            long periodMillis = notify.getTimeUnit().toMillis(notify.getPeriod());
+            long delayMillis = notify.getTimeUnit().toMillis(notify.getInitialDelay());
+            long start = Math.max(wheel.roundUp(System.currentTimeMillis() + delayMillis), wheel.getCurrentTime() + tickMillis);
+            GroupKey key = new GroupKey(periodMillis, start % periodMillis);
+            NotificationGroup group = groups.get(key);
+            if (group == null) {
+                group = new NotificationGroup(periodMillis, start);
+                groups.put(key, group);
+                wheel.add(start, group);
+            }
+            group.members.put(notify.getId(), new ScheduledNotification(notify, start));
+            serviceMap.put(notify.getId(), group);
         }
     }
 
     private boolean deleteNotification(Notification notification) {
         if (serviceMap.containsKey(notification.getId())) {
-            ScheduledFuture<?> future = serviceMap.remove(notification.getId());
-            future.cancel(true);
+            NotificationGroup group = serviceMap.remove(notification.getId());
+            group.members.remove(notification.getId());
+            if (group.members.isEmpty()) {
+                // the timer is dropped the next time that it fires
+                group.cancelled = true;
+                groups.remove(new GroupKey(group.periodMillis, group.nextDeadline % group.periodMillis));
+            }
             return true;
         }
         return false;
     }
 
     /**
-     * Scheduled Task that places a {@link PeriodicNotification}
-     * in the work queue at regular intervals. 
+     * Generates a notification for each member of the group that is due, and reschedules
+     * the group for its next period.  If the wheel has fallen more than a period behind,
+     * a notification is generated for every period that was missed.
+     */
+    private void fire(NotificationGroup group, List<TimestampedNotification> batch) {
+        if (group.cancelled) {
+            return;
+        }
+        do {
+            Date timestamp = new Date(group.nextDeadline);
+            for (ScheduledNotification member : group.members.values()) {
+                if (member.start <= group.nextDeadline) {
+                    batch.add(new TimestampedNotification(member.notification, timestamp));
+                }
+            }
+            group.nextDeadline += group.periodMillis;
+        } while (!wheel.add(group.nextDeadline, group));
+    }
+
+    /**
+     * Task run every tick that advances the {@link TimingWheel} and places the
+     * notifications that are due in the work queue.
      *
      */
     class NotificationProducer implements Runnable {
 
-        private PeriodicNotification notification;
-
-        public NotificationProducer(PeriodicNotification notification) {
-            this.notification = notification;
-        }
-
         public void run() {
+            List<TimestampedNotification> batch = new ArrayList<>();
+            lock.lock();
+            try {
+                wheel.advance(System.currentTimeMillis(), group -> fire(group, batch));
+            } finally {
+                lock.unlock();
+            }
             try {
-                notifications.put(new TimestampedNotification(notification));
+                for (TimestampedNotification notification : batch) {
+                    notifications.put(notification);
+                }
             } catch (InterruptedException e) {
                 LOG.info("Unable to add notification.  Process interrupted. ");
-                throw new RuntimeException(e);
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // an exception would cancel the task and stop all notifications
+                LOG.error("Unable to add notifications.", e);
+            }
+        }
+
+    }
+
+    /**
+     * Notifications that share a period and phase, and therefore a single timer.
+     */
+    private static class NotificationGroup {
+        private final long periodMillis;
+        private final Map<String, ScheduledNotification> members = new LinkedHashMap<>();
+        private long nextDeadline;
+        private boolean cancelled = false;
+
+        NotificationGroup(long periodMillis, long nextDeadline) {
+            this.periodMillis = periodMillis;
+            this.nextDeadline = nextDeadline;
+        }
+    }
+
+    /**
+     * A registered notification along with the time of its first notification.
+     */
+    private static class ScheduledNotification {
+        private final PeriodicNotification notification;
+        private final long start;
+
+        ScheduledNotification(PeriodicNotification notification, long start) {
+            this.notification = notification;
+            this.start = start;
+        }
+    }
+
+    private static class GroupKey {
+        private final long periodMillis;
+        private final long phaseMillis;
+
+        GroupKey(long periodMillis, long phaseMillis) {
+            this.periodMillis = periodMillis;
+            this.phaseMillis = phaseMillis;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
             }
+            if (!(other instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey key = (GroupKey) other;
+            return periodMillis == key.periodMillis && phaseMillis == key.phaseMillis;
         }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(periodMillis, phaseMillis);
+        }
     }
 
     @Override
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.periodic.notification.coordinator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Hierarchical timing wheel for scheduling a large number of timers on a single
+ * thread. The lowest level of the wheel has {@code wheelSize} buckets that each
+ * cover {@code tickMillis}. Timers that expire beyond the range of a level are
+ * kept in an overflow level whose ticks span the whole lower level, and they
+ * cascade down one level each time the lower level completes a revolution.
+ * Adding a timer and expiring a bucket are constant time operations regardless
+ * of the number of timers that are scheduled.
+ * <p>
+ * Timers never fire early. Expiration times are rounded up to the next tick, so
+ * a timer fires at most {@code tickMillis} after its expiration time, and all
+ * timers rounded to the same tick fire together.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <T> - type of the values that are scheduled
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long intervalMillis;
+    private final List<List<Timer<T>>> buckets;
+    private long currentTime;
+    private TimingWheel<T> overflow;
+
+    /**
+     * Creates a TimingWheel.
+     * @param tickMillis - granularity of the lowest level of the wheel in milliseconds
+     * @param wheelSize - number of buckets in each level of the wheel
+     * @param startMillis - current time in milliseconds
+     */
+    public TimingWheel(final long tickMillis, final int wheelSize, final long startMillis) {
+        Preconditions.checkArgument(tickMillis > 0, "tickMillis must be positive.");
+        Preconditions.checkArgument(wheelSize > 1, "wheelSize must be greater than one.");
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.intervalMillis = tickMillis * wheelSize;
+        this.currentTime = startMillis - (startMillis % tickMillis);
+        buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * @return time in milliseconds of the tick that the wheel was last advanced to
+     */
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * Rounds an expiration time up to the tick at which a timer with that
+     * expiration time will fire.
+     * @param expirationMillis - expiration time in milliseconds
+     * @return time of the tick at which the timer fires
+     */
+    public long roundUp(final long expirationMillis) {
+        final long remainder = expirationMillis % tickMillis;
+        return remainder == 0 ? expirationMillis : expirationMillis - remainder + tickMillis;
+    }
+
+    /**
+     * Schedules a value to expire at the given time.
+     * @param expirationMillis - time in milliseconds at which the value expires
+     * @param value - value to schedule
+     * @return true if the value was scheduled, false if it has already expired and should be handled immediately
+     */
+    public boolean add(final long expirationMillis, final T value) {
+        return addRounded(roundUp(expirationMillis), value);
+    }
+
+    private boolean addRounded(final long expiration, final T value) {
+        if (expiration <= currentTime) {
+            return false;
+        }
+        if (expiration - currentTime < intervalMillis) {
+            buckets.get(bucketIndex(expiration / tickMillis)).add(new Timer<>(expiration, value));
+            return true;
+        }
+        if (overflow == null) {
+            overflow = new TimingWheel<>(intervalMillis, wheelSize, currentTime);
+        }
+        return overflow.addRounded(expiration, value);
+    }
+
+    /**
+     * Advances the wheel to the given time and hands every value whose
+     * expiration time has been reached to the consumer, in order of expiration.
+     * @param nowMillis - current time in milliseconds
+     * @param expired - consumer of expired values
+     */
+    public void advance(final long nowMillis, final Consumer<T> expired) {
+        advanceTimers(nowMillis, timer -> expired.accept(timer.value));
+    }
+
+    private void advanceTimers(final long nowMillis, final Consumer<Timer<T>> expired) {
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+            if (overflow != null && currentTime % intervalMillis == 0) {
+                // the overflow bucket starting at this time now fits within this level
+                overflow.advanceTimers(currentTime, timer -> {
+                    if (!addRounded(timer.expiration, timer.value)) {
+                        expired.accept(timer);
+                    }
+                });
+            }
+            final int index = bucketIndex(currentTime / tickMillis);
+            final List<Timer<T>> bucket = buckets.get(index);
+            if (!bucket.isEmpty()) {
+                buckets.set(index, new ArrayList<>());
+                bucket.forEach(expired);
+            }
+        }
+    }
+
+    private int bucketIndex(final long tick) {
+        return (int) (tick % wheelSize);
+    }
+
+    /**
+     * A value scheduled on the wheel along with its rounded expiration time.
+     */
+    private static class Timer<T> {
+        private final long expiration;
+        private final T value;
+
+        Timer(final long expiration, final T value) {
+            this.expiration = expiration;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.periodic.notification.exporter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.rya.indexing.pcj.fluo.app.IncrementalUpdateConstants;
+import org.apache.rya.periodic.notification.api.BindingSetRecordExportException;
+import org.apache.rya.periodic.notification.metrics.PeriodicNotificationMetrics;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Exports all of the results of a periodic bin directly to Kafka as they are read from the
+ * storage layer. Results are sent in batches and the exporter waits for Kafka to acknowledge
+ * each batch before reading more results, so at most one batch of results per processing thread
+ * is held in memory no matter how slowly Kafka accepts them.
+ */
+public class KafkaBinExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaBinExporter.class);
+
+    /**
+     * The number of seconds to wait for Kafka to acknowledge a result.
+     */
+    private static final long ACKNOWLEDGEMENT_TIMEOUT_SECONDS = 30;
+
+    private final KafkaProducer<String, BindingSet> producer;
+    private final int batchSize;
+    private final PeriodicNotificationMetrics metrics;
+
+    /**
+     * Creates a KafkaBinExporter.
+     * @param producer - for publishing results to Kafka
+     * @param batchSize - the number of results that are sent before waiting for Kafka to acknowledge them
+     * @param metrics - records the number of results that are exported
+     */
+    public KafkaBinExporter(final KafkaProducer<String, BindingSet> producer, final int batchSize, final PeriodicNotificationMetrics metrics) {
+        Preconditions.checkArgument(batchSize > 0);
+        this.producer = Objects.requireNonNull(producer);
+        this.batchSize = batchSize;
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Exports results to the Kafka topic named after their query. Each result is keyed by its bin id.
+     * @param topic - Kafka topic the results are exported to
+     * @param results - results of a periodic bin
+     * @return the number of results that were exported
+     * @throws BindingSetRecordExportException if Kafka did not acknowledge the results
+     */
+    public long exportResults(final String topic, final Iterator<BindingSet> results) throws BindingSetRecordExportException {
+        Objects.requireNonNull(topic);
+        Objects.requireNonNull(results);
+
+        final String bindingName = IncrementalUpdateConstants.PERIODIC_BIN_ID;
+        final List<Future<RecordMetadata>> batch = new ArrayList<>(batchSize);
+        long exported = 0;
+
+        while(results.hasNext()) {
+            final BindingSet bindingSet = results.next();
+            final long binId = ((Literal) bindingSet.getValue(bindingName)).longValue();
+            batch.add(producer.send(new ProducerRecord<String, BindingSet>(topic, Long.toString(binId), bindingSet)));
+
+            if(batch.size() >= batchSize) {
+                exported += awaitBatch(batch);
+            }
+        }
+        exported += awaitBatch(batch);
+
+        log.debug("Exported {} results to Kafka topic: {}", exported, topic);
+        return exported;
+    }
+
+    private int awaitBatch(final List<Future<RecordMetadata>> batch) throws BindingSetRecordExportException {
+        final int size = batch.size();
+        try {
+            for(final Future<RecordMetadata> future : batch) {
+                future.get(ACKNOWLEDGEMENT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (final InterruptedException e) {
+            metrics.recordFailedExport();
+            Thread.currentThread().interrupt();
+            throw new BindingSetRecordExportException(e.getMessage(), e);
+        } catch (final Exception e) {  // catch all possible exceptional behavior and throw as our checked exception.
+            metrics.recordFailedExport();
+            throw new BindingSetRecordExportException(e.getMessage(), e);
+        } finally {
+            batch.clear();
+        }
+        metrics.recordExported(size);
+        return size;
+    }
+}
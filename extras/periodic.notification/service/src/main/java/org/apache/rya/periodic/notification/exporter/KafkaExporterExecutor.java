@@ -29,6 +29,7 @@ import java.util.concurrent.TimeUnit;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.rya.periodic.notification.api.BindingSetRecord;
 import org.apache.rya.periodic.notification.api.LifeCycle;
+import org.apache.rya.periodic.notification.metrics.PeriodicNotificationMetrics;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +46,8 @@ public class KafkaExporterExecutor implements LifeCycle {
     private ExecutorService executor;
     private final List<KafkaPeriodicBindingSetExporter> exporters;
     private final int numThreads;
+    private final int batchSize;
+    private final PeriodicNotificationMetrics metrics;
     private boolean running = false;
 
     /**
@@ -54,9 +57,24 @@ public class KafkaExporterExecutor implements LifeCycle {
      * @param bindingSets - work queue containing {@link BindingSet}s to be published
      */
     public KafkaExporterExecutor(final KafkaProducer<String, BindingSet> producer, final int numThreads, final BlockingQueue<BindingSetRecord> bindingSets) {
+        this(producer, numThreads, bindingSets, 1, null);
+    }
+
+    /**
+     * Creates a KafkaExporterExecutor for exporting periodic query results to Kafka.
+     * @param producer for publishing results to Kafka
+     * @param numThreads number of threads used to publish results
+     * @param bindingSets - work queue containing {@link BindingSet}s to be published
+     * @param batchSize - maximum number of results each thread sends to Kafka before waiting for them to be acknowledged
+     * @param metrics - records the number of results that are exported. If null, nothing is recorded.
+     */
+    public KafkaExporterExecutor(final KafkaProducer<String, BindingSet> producer, final int numThreads, final BlockingQueue<BindingSetRecord> bindingSets,
+            final int batchSize, final PeriodicNotificationMetrics metrics) {
         this.producer = Objects.requireNonNull(producer);
         this.bindingSets = Objects.requireNonNull(bindingSets);
         this.numThreads = numThreads;
+        this.batchSize = batchSize;
+        this.metrics = metrics;
         this.exporters = new ArrayList<>();
     }
 
@@ -67,7 +85,7 @@ public class KafkaExporterExecutor implements LifeCycle {
 
             for (int threadNumber = 0; threadNumber < numThreads; threadNumber++) {
                 log.info("Creating exporter: {}", threadNumber);
-                final KafkaPeriodicBindingSetExporter exporter = new KafkaPeriodicBindingSetExporter(producer, threadNumber, bindingSets);
+                final KafkaPeriodicBindingSetExporter exporter = new KafkaPeriodicBindingSetExporter(producer, threadNumber, bindingSets, batchSize, metrics);
                 exporters.add(exporter);
                 executor.submit(exporter);
             }
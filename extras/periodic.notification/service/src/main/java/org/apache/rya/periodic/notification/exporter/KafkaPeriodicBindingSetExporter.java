@@ -18,6 +18,8 @@
  */
 package org.apache.rya.periodic.notification.exporter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
@@ -31,29 +33,58 @@ import org.apache.rya.indexing.pcj.fluo.app.IncrementalUpdateConstants;
 import org.apache.rya.periodic.notification.api.BindingSetExporter;
 import org.apache.rya.periodic.notification.api.BindingSetRecord;
 import org.apache.rya.periodic.notification.api.BindingSetRecordExportException;
+import org.apache.rya.periodic.notification.metrics.PeriodicNotificationMetrics;
 import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
+
 /**
  * Object that exports {@link BindingSet}s to the Kafka topic indicated by
- * the {@link BindingSetRecord}.
+ * the {@link BindingSetRecord}. Records are drained from the work queue in
+ * batches that are sent to Kafka together. A batch that Kafka does not
+ * acknowledge is retried with an exponential backoff until it is exported or
+ * the exporter is shut down, so that a slow or unavailable Kafka cluster causes
+ * the work queue to fill up and block the processors that feed it.
  *
  */
 public class KafkaPeriodicBindingSetExporter implements BindingSetExporter, Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaPeriodicBindingSetExporter.class);
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 10000;
+
     private final KafkaProducer<String, BindingSet> producer;
     private final BlockingQueue<BindingSetRecord> bindingSets;
     private final AtomicBoolean closed = new AtomicBoolean(false);
     private final int threadNumber;
+    private final int batchSize;
+    private final PeriodicNotificationMetrics metrics;
 
     public KafkaPeriodicBindingSetExporter(final KafkaProducer<String, BindingSet> producer, final int threadNumber,
             final BlockingQueue<BindingSetRecord> bindingSets) {
+        this(producer, threadNumber, bindingSets, 1, null);
+    }
+
+    /**
+     * Creates a KafkaPeriodicBindingSetExporter.
+     * @param producer - for publishing results to Kafka
+     * @param threadNumber - number of the thread this exporter runs on
+     * @param bindingSets - work queue containing the {@link BindingSetRecord}s to be published
+     * @param batchSize - maximum number of records that are sent to Kafka before waiting for them to be acknowledged
+     * @param metrics - records the number of results that are exported. If null, nothing is recorded.
+     */
+    public KafkaPeriodicBindingSetExporter(final KafkaProducer<String, BindingSet> producer, final int threadNumber,
+            final BlockingQueue<BindingSetRecord> bindingSets, final int batchSize, final PeriodicNotificationMetrics metrics) {
+        Preconditions.checkArgument(batchSize > 0);
         this.threadNumber = threadNumber;
         this.producer = Objects.requireNonNull(producer);
         this.bindingSets = Objects.requireNonNull(bindingSets);
+        this.batchSize = batchSize;
+        this.metrics = metrics;
     }
 
     /**
@@ -62,31 +93,84 @@ public class KafkaPeriodicBindingSetExporter implements BindingSetExporter, Runn
      */
     @Override
     public void exportNotification(final BindingSetRecord record) throws BindingSetRecordExportException {
+        final List<BindingSetRecord> batch = new ArrayList<>(1);
+        batch.add(record);
+        exportBatch(batch);
+    }
+
+    /**
+     * Exports a batch of BindingSets to Kafka. Every record is sent before waiting
+     * for Kafka to acknowledge any of them.
+     * @param records - records to be exported
+     * @throws BindingSetRecordExportException if Kafka did not acknowledge every record
+     */
+    public void exportBatch(final List<BindingSetRecord> records) throws BindingSetRecordExportException {
         try {
-            log.info("Exporting {} records to Kafka to topic: {}", record.getBindingSet().size(), record.getTopic());
+            log.debug("Exporting {} records to Kafka", records.size());
             final String bindingName = IncrementalUpdateConstants.PERIODIC_BIN_ID;
 
-            final BindingSet bindingSet = record.getBindingSet();
-            final String topic = record.getTopic();
-            final long binId = ((Literal) bindingSet.getValue(bindingName)).longValue();
+            final List<Future<RecordMetadata>> futures = new ArrayList<>(records.size());
+            for (final BindingSetRecord record : records) {
+                final BindingSet bindingSet = record.getBindingSet();
+                final String topic = record.getTopic();
+                final long binId = ((Literal) bindingSet.getValue(bindingName)).longValue();
+
+                futures.add(producer.send(new ProducerRecord<String, BindingSet>(topic, Long.toString(binId), bindingSet)));
+            }
 
-            final Future<RecordMetadata> future = producer
-                .send(new ProducerRecord<String, BindingSet>(topic, Long.toString(binId), bindingSet));
             //wait for confirmation that results have been received
-            future.get(5, TimeUnit.SECONDS);
+            for (final Future<RecordMetadata> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            if (metrics != null) {
+                metrics.recordExported(records.size());
+            }
+        } catch (final InterruptedException e) {
+            if (metrics != null) {
+                metrics.recordFailedExport();
+            }
+            Thread.currentThread().interrupt();
+            throw new BindingSetRecordExportException(e.getMessage(), e);
         } catch (final Exception e) {  // catch all possible exceptional behavior and throw as our checked exception.
+            if (metrics != null) {
+                metrics.recordFailedExport();
+            }
             throw new BindingSetRecordExportException(e.getMessage(), e);
         }
     }
 
     @Override
     public void run() {
+        final List<BindingSetRecord> batch = new ArrayList<>(batchSize);
         try {
             while (!closed.get()) {
-                exportNotification(bindingSets.take());
+                batch.add(bindingSets.take());
+                bindingSets.drainTo(batch, batchSize - 1);
+                exportWithBackoff(batch);
+                batch.clear();
             }
-        } catch (InterruptedException | BindingSetRecordExportException e) {
+        } catch (final InterruptedException e) {
             log.warn("Thread " + threadNumber + " is unable to process message.", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void exportWithBackoff(final List<BindingSetRecord> batch) throws InterruptedException {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                exportBatch(batch);
+                return;
+            } catch (final BindingSetRecordExportException e) {
+                if (closed.get()) {
+                    log.error("Thread " + threadNumber + " was shut down before " + batch.size() + " records were exported after "
+                            + attempt + " failed attempts.", e);
+                    return;
+                }
+                log.warn("Thread " + threadNumber + " is unable to export " + batch.size() + " records.  Retrying in " + backoff + " ms.", e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
         }
     }
 
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.periodic.notification.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.rya.periodic.notification.api.BindingSetRecord;
+import org.apache.rya.periodic.notification.api.NodeBin;
+import org.apache.rya.periodic.notification.notification.TimestampedNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the depth of the work queues that connect the components of the Periodic Notification
+ * Service, how long notifications wait before they are processed and exported, and how long
+ * producers were blocked by full queues. Instances may be registered with the platform MBean
+ * server so that the service can be monitored.
+ */
+public class PeriodicNotificationMetrics implements PeriodicNotificationMetricsMBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PeriodicNotificationMetrics.class);
+
+    /**
+     * The name the metrics are registered with the platform MBean server under.
+     */
+    public static final String OBJECT_NAME = "org.apache.rya.periodic.notification:type=PeriodicNotificationMetrics";
+
+    private final BlockingQueue<TimestampedNotification> notifications;
+    private final BlockingQueue<NodeBin> bins;
+    private final BlockingQueue<BindingSetRecord> bindingSets;
+
+    private final AtomicLong processedNotifications = new AtomicLong();
+    private final AtomicLong exportedResults = new AtomicLong();
+    private final AtomicLong failedExports = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicLong lastProcessingLag = new AtomicLong();
+    private final AtomicLong maxProcessingLag = new AtomicLong();
+    private final AtomicLong lastExportLag = new AtomicLong();
+
+    private ObjectName registeredName = null;
+
+    /**
+     * Creates PeriodicNotificationMetrics.
+     * @param notifications - work queue of notifications that are waiting to be processed
+     * @param bins - work queue of bins that are waiting to be pruned
+     * @param bindingSets - work queue of results that are waiting to be exported
+     */
+    public PeriodicNotificationMetrics(final BlockingQueue<TimestampedNotification> notifications, final BlockingQueue<NodeBin> bins,
+            final BlockingQueue<BindingSetRecord> bindingSets) {
+        this.notifications = Objects.requireNonNull(notifications);
+        this.bins = Objects.requireNonNull(bins);
+        this.bindingSets = Objects.requireNonNull(bindingSets);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server. A failure to register is logged and ignored.
+     */
+    public synchronized void register() {
+        try {
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if(server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (final JMException e) {
+            log.warn("Unable to register the periodic notification metrics.", e);
+        }
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server if they were registered.
+     */
+    public synchronized void unregister() {
+        if(registeredName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (final JMException e) {
+                log.warn("Unable to unregister the periodic notification metrics.", e);
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * Places an element on a work queue, blocking while the queue is full. The time spent blocked is recorded.
+     * @param queue - work queue the element is placed on
+     * @param element - element to place on the queue
+     * @throws InterruptedException if interrupted while waiting for space on the queue
+     */
+    public <T> void put(final BlockingQueue<T> queue, final T element) throws InterruptedException {
+        if(!queue.offer(element)) {
+            final long start = System.nanoTime();
+            queue.put(element);
+            blockedNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records that the processing of a notification has started.
+     * @param lagMillis - milliseconds between the notification being generated and its processing starting
+     */
+    public void recordProcessingStarted(final long lagMillis) {
+        lastProcessingLag.set(lagMillis);
+        maxProcessingLag.accumulateAndGet(lagMillis, Math::max);
+    }
+
+    /**
+     * Records that a notification has been processed.
+     * @param lagMillis - milliseconds between the notification being generated and its results having been handed off for export
+     */
+    public void recordProcessingFinished(final long lagMillis) {
+        processedNotifications.incrementAndGet();
+        lastExportLag.set(lagMillis);
+    }
+
+    /**
+     * @param count - number of results that have been exported to Kafka
+     */
+    public void recordExported(final long count) {
+        exportedResults.addAndGet(count);
+    }
+
+    /**
+     * Records that an attempt to export results to Kafka failed.
+     */
+    public void recordFailedExport() {
+        failedExports.incrementAndGet();
+    }
+
+    @Override
+    public int getNotificationQueueDepth() {
+        return notifications.size();
+    }
+
+    @Override
+    public int getBinQueueDepth() {
+        return bins.size();
+    }
+
+    @Override
+    public int getExportQueueDepth() {
+        return bindingSets.size();
+    }
+
+    @Override
+    public long getProcessedNotifications() {
+        return processedNotifications.get();
+    }
+
+    @Override
+    public long getExportedResults() {
+        return exportedResults.get();
+    }
+
+    @Override
+    public long getFailedExports() {
+        return failedExports.get();
+    }
+
+    @Override
+    public long getBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+    }
+
+    @Override
+    public long getLastProcessingLagMillis() {
+        return lastProcessingLag.get();
+    }
+
+    @Override
+    public long getMaxProcessingLagMillis() {
+        return maxProcessingLag.get();
+    }
+
+    @Override
+    public long getLastExportLagMillis() {
+        return lastExportLag.get();
+    }
+}
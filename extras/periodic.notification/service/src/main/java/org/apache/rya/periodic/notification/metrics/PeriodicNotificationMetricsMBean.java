@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.periodic.notification.metrics;
+
+/**
+ * The JMX interface of {@link PeriodicNotificationMetrics}.
+ */
+public interface PeriodicNotificationMetricsMBean {
+
+    /**
+     * @return The number of notifications that are waiting to be processed.
+     */
+    public int getNotificationQueueDepth();
+
+    /**
+     * @return The number of bins that are waiting to be pruned.
+     */
+    public int getBinQueueDepth();
+
+    /**
+     * @return The number of results that are waiting to be exported.
+     */
+    public int getExportQueueDepth();
+
+    /**
+     * @return The number of notifications that have been processed.
+     */
+    public long getProcessedNotifications();
+
+    /**
+     * @return The number of results that have been exported to Kafka.
+     */
+    public long getExportedResults();
+
+    /**
+     * @return The number of attempts to export results to Kafka that failed.
+     */
+    public long getFailedExports();
+
+    /**
+     * @return The total number of milliseconds producers spent blocked on full queues.
+     */
+    public long getBlockedMillis();
+
+    /**
+     * @return The number of milliseconds between the most recently processed notification being
+     *   generated and its processing starting.
+     */
+    public long getLastProcessingLagMillis();
+
+    /**
+     * @return The largest number of milliseconds between a notification being generated and its processing starting.
+     */
+    public long getMaxProcessingLagMillis();
+
+    /**
+     * @return The number of milliseconds between the most recently processed notification being
+     *   generated and all of its bin's results having been handed off for export.
+     */
+    public long getLastExportLagMillis();
+}
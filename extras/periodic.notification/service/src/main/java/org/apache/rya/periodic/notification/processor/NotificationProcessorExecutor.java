@@ -21,6 +21,7 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -30,6 +31,8 @@ import org.apache.rya.indexing.pcj.storage.PeriodicQueryResultStorage;
 import org.apache.rya.periodic.notification.api.BindingSetRecord;
 import org.apache.rya.periodic.notification.api.LifeCycle;
 import org.apache.rya.periodic.notification.api.NodeBin;
+import org.apache.rya.periodic.notification.exporter.KafkaBinExporter;
+import org.apache.rya.periodic.notification.metrics.PeriodicNotificationMetrics;
 import org.apache.rya.periodic.notification.notification.TimestampedNotification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +60,9 @@ public class NotificationProcessorExecutor implements LifeCycle {
     private final PeriodicQueryResultStorage periodicStorage;
     private final List<TimestampedNotificationProcessor> processors;
     private final int numberThreads;
+    private final Optional<KafkaBinExporter> binExporter;
+    private final PeriodicNotificationMetrics metrics;
+    private final int maxBatchSize;
     private ExecutorService executor;
     private boolean running = false;
 
@@ -70,11 +76,32 @@ public class NotificationProcessorExecutor implements LifeCycle {
      */
     public NotificationProcessorExecutor(final PeriodicQueryResultStorage periodicStorage, final BlockingQueue<TimestampedNotification> notifications,
             final BlockingQueue<NodeBin> bins, final BlockingQueue<BindingSetRecord> bindingSets, final int numberThreads) {
+        this(periodicStorage, notifications, bins, bindingSets, numberThreads, Optional.empty(),
+                new PeriodicNotificationMetrics(notifications, bins, bindingSets), 1);
+    }
+
+    /**
+     * Creates NotificationProcessorExecutor.
+     * @param periodicStorage - storage layer that periodic results are read from
+     * @param notifications - notifications are pulled from this queue, and the timestamp indicates which bin of results to query for
+     * @param bins - after notifications are processed, they are added to the bin to be deleted
+     * @param bindingSets - results read from the storage layer to be exported
+     * @param numberThreads - number of threads used for processing
+     * @param binExporter - if present, results are exported directly to Kafka instead of being added to bindingSets
+     * @param metrics - records notification lag and time spent waiting on full work queues
+     * @param maxBatchSize - maximum number of notifications that each processor takes from the queue and processes together
+     */
+    public NotificationProcessorExecutor(final PeriodicQueryResultStorage periodicStorage, final BlockingQueue<TimestampedNotification> notifications,
+            final BlockingQueue<NodeBin> bins, final BlockingQueue<BindingSetRecord> bindingSets, final int numberThreads,
+            final Optional<KafkaBinExporter> binExporter, final PeriodicNotificationMetrics metrics, final int maxBatchSize) {
         this.notifications = Objects.requireNonNull(notifications);
         this.bins = Objects.requireNonNull(bins);
         this.bindingSets = Objects.requireNonNull(bindingSets);
         this.periodicStorage = periodicStorage;
         this.numberThreads = numberThreads;
+        this.binExporter = Objects.requireNonNull(binExporter);
+        this.metrics = Objects.requireNonNull(metrics);
+        this.maxBatchSize = maxBatchSize;
         processors = new ArrayList<>();
     }
 
@@ -86,7 +113,7 @@ public class NotificationProcessorExecutor implements LifeCycle {
                 log.info("Creating processor for thread: {}", threadNumber);
                 final TimestampedNotificationProcessor processor = TimestampedNotificationProcessor.builder().setBindingSets(bindingSets)
                         .setBins(bins).setPeriodicStorage(periodicStorage).setNotifications(notifications).setThreadNumber(threadNumber)
-                        .build();
+                        .setBinExporter(binExporter).setMetrics(metrics).setMaxBatchSize(maxBatchSize).build();
                 processors.add(processor);
                 executor.submit(processor);
             }
@@ -18,17 +18,27 @@
  */
 package org.apache.rya.periodic.notification.processor;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.rya.api.utils.CloseableIterator;
 import org.apache.rya.indexing.pcj.storage.PeriodicQueryResultStorage;
+import org.apache.rya.indexing.pcj.storage.PeriodicQueryStorageException;
 import org.apache.rya.periodic.notification.api.BinPruner;
 import org.apache.rya.periodic.notification.api.BindingSetRecord;
+import org.apache.rya.periodic.notification.api.BindingSetRecordExportException;
 import org.apache.rya.periodic.notification.api.NodeBin;
 import org.apache.rya.periodic.notification.api.NotificationProcessor;
+import org.apache.rya.periodic.notification.exporter.KafkaBinExporter;
 import org.apache.rya.periodic.notification.exporter.KafkaPeriodicBindingSetExporter;
+import org.apache.rya.periodic.notification.metrics.PeriodicNotificationMetrics;
 import org.apache.rya.periodic.notification.notification.TimestampedNotification;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.slf4j.Logger;
@@ -42,12 +52,28 @@ import com.google.common.base.Preconditions;
  * {@link PeriodicQueryResultStorage} layer containing the results of the
  * Periodic Query. The TimestampedNotificationProcessor then parses the results
  * and adds them to work queues to be processed by the {@link BinPruner} and the
- * {@link KafkaPeriodicBindingSetExporter}.
+ * {@link KafkaPeriodicBindingSetExporter}. If a {@link KafkaBinExporter} is provided,
+ * the results are instead streamed directly to Kafka in batches as they are read.
+ * If Kafka does not acknowledge them, the results are read again and resent with an
+ * exponential backoff, like the batches of the {@link KafkaPeriodicBindingSetExporter},
+ * so results that were already acknowledged may be exported more than once. The export
+ * is retried until it succeeds or the processor is shut down, and a bin is only handed
+ * to the {@link BinPruner} once its results were exported.
+ * Adding to a full work queue blocks until there is space, so a slow downstream
+ * component slows down the processing of notifications rather than filling the heap.
+ * <p>
+ * When several notifications are waiting, up to {@code maxBatchSize} of them are
+ * taken from the queue at once, and the bins of each query in that batch are read
+ * from the storage layer with a single scan.
  *
  */
 public class TimestampedNotificationProcessor implements NotificationProcessor, Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(TimestampedNotificationProcessor.class);
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 10000;
+
     private final PeriodicQueryResultStorage periodicStorage;
 
     /**
@@ -67,24 +93,55 @@ public class TimestampedNotificationProcessor implements NotificationProcessor,
     private final AtomicBoolean closed = new AtomicBoolean(false);
     private final int threadNumber;
 
+    /**
+     * exports query results directly to Kafka instead of through the bindingSets queue
+     */
+    private final Optional<KafkaBinExporter> binExporter;
+    private final PeriodicNotificationMetrics metrics;
+    private final int maxBatchSize;
+
 
     public TimestampedNotificationProcessor(final PeriodicQueryResultStorage periodicStorage,
             final BlockingQueue<TimestampedNotification> notifications, final BlockingQueue<NodeBin> bins, final BlockingQueue<BindingSetRecord> bindingSets,
             final int threadNumber) {
+        this(periodicStorage, notifications, bins, bindingSets, threadNumber, Optional.empty(),
+                new PeriodicNotificationMetrics(notifications, bins, bindingSets), 1);
+    }
+
+    /**
+     * Creates a TimestampedNotificationProcessor.
+     * @param periodicStorage - storage layer that periodic results are read from
+     * @param notifications - work queue containing notifications to be processed
+     * @param bins - work queue that processed bins are added to so that they can be pruned
+     * @param bindingSets - work queue that results are added to so that they can be exported
+     * @param threadNumber - number of the thread this processor runs on
+     * @param binExporter - if present, results are exported directly to Kafka instead of being added to the bindingSets queue
+     * @param metrics - records the lag of each notification and the time spent waiting on full work queues
+     * @param maxBatchSize - maximum number of notifications taken from the queue and processed together
+     */
+    public TimestampedNotificationProcessor(final PeriodicQueryResultStorage periodicStorage,
+            final BlockingQueue<TimestampedNotification> notifications, final BlockingQueue<NodeBin> bins, final BlockingQueue<BindingSetRecord> bindingSets,
+            final int threadNumber, final Optional<KafkaBinExporter> binExporter, final PeriodicNotificationMetrics metrics,
+            final int maxBatchSize) {
+        Preconditions.checkArgument(maxBatchSize > 0, "maxBatchSize must be positive.");
         this.notifications = Preconditions.checkNotNull(notifications);
         this.bins = Preconditions.checkNotNull(bins);
         this.bindingSets = Preconditions.checkNotNull(bindingSets);
         this.periodicStorage = periodicStorage;
         this.threadNumber = threadNumber;
+        this.binExporter = Preconditions.checkNotNull(binExporter);
+        this.metrics = Preconditions.checkNotNull(metrics);
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
      * Processes the TimestampNotifications by scanning the PCJ tables for
      * entries in the bin corresponding to
-     * {@link TimestampedNotification#getTimestamp()} and adding them to the
-     * export BlockingQueue. The TimestampNotification is then used to form a
-     * {@link NodeBin} that is passed to the BinPruner BlockingQueue so that the
-     * bins can be deleted from Fluo and Accumulo.
+     * {@link TimestampedNotification#getTimestamp()} and either exporting them
+     * directly to Kafka or adding them to the export BlockingQueue. The
+     * TimestampNotification is then used to form a {@link NodeBin} that is
+     * passed to the BinPruner BlockingQueue so that the bins can be deleted
+     * from Fluo and Accumulo.
      */
     @Override
     public void processNotification(final TimestampedNotification notification) {
@@ -94,20 +151,120 @@ public class TimestampedNotificationProcessor implements NotificationProcessor,
         final long period = notification.getPeriod();
         final long bin = getBinFromTimestamp(ts, period);
         final NodeBin nodeBin = new NodeBin(id, bin);
+        metrics.recordProcessingStarted(System.currentTimeMillis() - ts);
 
-        try (CloseableIterator<BindingSet> iter = periodicStorage.listResults(id, Optional.of(bin))) {
-
-            while(iter.hasNext()) {
-                bindingSets.add(new BindingSetRecord(iter.next(), id));
+        try {
+            if(!exportResults(id, () -> periodicStorage.listResults(id, Optional.of(bin)))) {
+                return;
             }
             // add NodeBin to BinPruner queue so that bin can be deleted from
             // Fluo and Accumulo
-            bins.add(nodeBin);
+            metrics.put(bins, nodeBin);
+            metrics.recordProcessingFinished(System.currentTimeMillis() - ts);
+        } catch (final InterruptedException e) {
+            log.info("Thread {} was interrupted while processing bin: {} for query: {}", threadNumber, bin, id);
+            Thread.currentThread().interrupt();
         } catch (final Exception e) {
             log.warn("Encountered exception while accessing periodic results for bin: " + bin + " for query: " + id, e);
         }
     }
 
+    /**
+     * Processes a batch of TimestampedNotifications. Notifications for the same
+     * query are processed together by reading the results of all of their bins
+     * with a single scan of the PCJ table, exporting them, and then passing a
+     * {@link NodeBin} for each bin to the BinPruner BlockingQueue.
+     * @param batch - notifications to process
+     */
+    public void processNotifications(final List<TimestampedNotification> batch) {
+        final Map<String, List<TimestampedNotification>> queries = new LinkedHashMap<>();
+        for(final TimestampedNotification notification : batch) {
+            queries.computeIfAbsent(notification.getId(), id -> new ArrayList<>()).add(notification);
+        }
+        for(final Map.Entry<String, List<TimestampedNotification>> entry : queries.entrySet()) {
+            if(entry.getValue().size() == 1) {
+                processNotification(entry.getValue().get(0));
+            } else {
+                processBins(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void processBins(final String id, final List<TimestampedNotification> queryNotifications) {
+        final SortedSet<Long> binIds = new TreeSet<>();
+        final long now = System.currentTimeMillis();
+        for(final TimestampedNotification notification : queryNotifications) {
+            final long ts = notification.getTimestamp().getTime();
+            binIds.add(getBinFromTimestamp(ts, notification.getPeriod()));
+            metrics.recordProcessingStarted(now - ts);
+        }
+
+        try {
+            if(!exportResults(id, () -> periodicStorage.listResults(id, binIds))) {
+                return;
+            }
+            for(final Long bin : binIds) {
+                metrics.put(bins, new NodeBin(id, bin));
+            }
+            final long finished = System.currentTimeMillis();
+            for(final TimestampedNotification notification : queryNotifications) {
+                metrics.recordProcessingFinished(finished - notification.getTimestamp().getTime());
+            }
+        } catch (final InterruptedException e) {
+            log.info("Thread {} was interrupted while processing bins: {} for query: {}", threadNumber, binIds, id);
+            Thread.currentThread().interrupt();
+        } catch (final Exception e) {
+            log.warn("Encountered exception while accessing periodic results for bins: " + binIds + " for query: " + id, e);
+        }
+    }
+
+    /**
+     * Reads the results of a query from the storage layer.
+     */
+    @FunctionalInterface
+    private interface ResultSource {
+        CloseableIterator<BindingSet> open() throws PeriodicQueryStorageException;
+    }
+
+    /**
+     * Exports the results of a query either directly to Kafka or by adding them to the export work queue.
+     * Results that are streamed to Kafka are read again and resent with an exponential backoff when Kafka
+     * does not acknowledge them, until they were exported or the processor is shut down.
+     * @param id - id of the query whose results are exported
+     * @param source - reads the results that are exported
+     * @return true if the results were exported, false if the processor was shut down before Kafka
+     *   acknowledged them, in which case the results must not be pruned
+     * @throws Exception if the results could not be read or the thread was interrupted
+     */
+    private boolean exportResults(final String id, final ResultSource source) throws Exception {
+        if(!binExporter.isPresent()) {
+            try (CloseableIterator<BindingSet> iter = source.open()) {
+                while(iter.hasNext()) {
+                    metrics.put(bindingSets, new BindingSetRecord(iter.next(), id));
+                }
+            }
+            return true;
+        }
+
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for(int attempt = 1; ; attempt++) {
+            try (CloseableIterator<BindingSet> iter = source.open()) {
+                binExporter.get().exportResults(id, iter);
+                return true;
+            } catch (final BindingSetRecordExportException e) {
+                if(closed.get()) {
+                    log.error("Thread " + threadNumber + " was shut down after " + attempt + " failed attempts to export the results of query: "
+                            + id + ".  The results are kept in the storage layer.", e);
+                    return false;
+                }
+                log.warn("Thread " + threadNumber + " is unable to export the results of query: " + id + ".  Retrying in "
+                        + backoff + " ms.", e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
     /**
      * Computes left bin end point containing event time ts
      *
@@ -124,8 +281,12 @@ public class TimestampedNotificationProcessor implements NotificationProcessor,
     @Override
     public void run() {
         try {
+            final List<TimestampedNotification> batch = new ArrayList<>();
             while(!closed.get()) {
-                processNotification(notifications.take());
+                batch.add(notifications.take());
+                notifications.drainTo(batch, maxBatchSize - 1);
+                processNotifications(batch);
+                batch.clear();
             }
         } catch (final Exception e) {
             log.warn("Thread {} is unable to process next notification.", threadNumber);
@@ -150,6 +311,9 @@ public class TimestampedNotificationProcessor implements NotificationProcessor,
         private BlockingQueue<TimestampedNotification> notifications; // notifications to process
         private BlockingQueue<NodeBin> bins; // entries to delete from Fluo
         private BlockingQueue<BindingSetRecord> bindingSets; // query results to export
+        private Optional<KafkaBinExporter> binExporter = Optional.empty(); // exports query results directly to Kafka
+        private PeriodicNotificationMetrics metrics;
+        private int maxBatchSize = 1;
 
         private int threadNumber;
 
@@ -183,6 +347,36 @@ public class TimestampedNotificationProcessor implements NotificationProcessor,
             return this;
         }
 
+        /**
+         * Set the exporter used to stream results directly to Kafka
+         * @param binExporter - if present, results are exported directly to Kafka instead of being added to the BindingSet queue
+         * @return this Builder for chaining method calls
+         */
+        public Builder setBinExporter(final Optional<KafkaBinExporter> binExporter) {
+            this.binExporter = binExporter;
+            return this;
+        }
+
+        /**
+         * Set the metrics the processor records to
+         * @param metrics - records notification lag and time spent waiting on full work queues
+         * @return this Builder for chaining method calls
+         */
+        public Builder setMetrics(final PeriodicNotificationMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of notifications processed together
+         * @param maxBatchSize - maximum number of notifications taken from the queue and processed together
+         * @return this Builder for chaining method calls
+         */
+        public Builder setMaxBatchSize(final int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
         /**
          * Sets the number of threads used by this processor
          * @param threadNumber - number of threads used by this processor
@@ -208,7 +402,10 @@ public class TimestampedNotificationProcessor implements NotificationProcessor,
          * @return - TimestampedNotificationProcessor built from arguments passed to this Builder
          */
         public TimestampedNotificationProcessor build() {
-            return new TimestampedNotificationProcessor(periodicStorage, notifications, bins, bindingSets, threadNumber);
+            if(metrics == null) {
+                return new TimestampedNotificationProcessor(periodicStorage, notifications, bins, bindingSets, threadNumber);
+            }
+            return new TimestampedNotificationProcessor(periodicStorage, notifications, bins, bindingSets, threadNumber, binExporter, metrics, maxBatchSize);
         }
 
     }
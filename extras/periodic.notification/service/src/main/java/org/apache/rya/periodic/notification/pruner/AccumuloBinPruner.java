@@ -43,7 +43,8 @@ public class AccumuloBinPruner implements BinPruner {
      * This method deletes all BindingSets in the indicated bin from the PCJ
      * table indicated by the id. It is assumed that all BindingSet entries for
      * the corresponding bin are written to the PCJ table so that the bin Id
-     * occurs first.
+     * occurs first. If the storage layer is configured to expire bins, no
+     * mutations are written and the bin is removed once it expires.
      *
      * @param id
      *            - pcj table id
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.periodic.notification.coordinator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimingWheelTest {
+
+    @Test
+    public void expiredTimerIsRejected() {
+        final TimingWheel<String> wheel = new TimingWheel<>(10, 8, 1000);
+        Assert.assertFalse(wheel.add(1000, "now"));
+        Assert.assertFalse(wheel.add(995, "past"));
+        Assert.assertTrue(wheel.add(1001, "future"));
+    }
+
+    @Test
+    public void timersFireInOrderAndNeverEarly() {
+        final TimingWheel<Long> wheel = new TimingWheel<>(10, 4, 0);
+        final List<Long> expirations = Arrays.asList(15L, 40L, 41L, 100L, 1000L, 5000L, 12345L);
+        for (final Long expiration : expirations) {
+            Assert.assertTrue(wheel.add(expiration, expiration));
+        }
+
+        final List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 20000; now += 7) {
+            final long time = now;
+            wheel.advance(now, expiration -> {
+                Assert.assertTrue(expiration <= time);
+                Assert.assertTrue(time - expiration < 10 + 7);
+                fired.add(expiration);
+            });
+        }
+        Assert.assertEquals(expirations, fired);
+    }
+
+    @Test
+    public void timersInSameTickFireTogether() {
+        final TimingWheel<String> wheel = new TimingWheel<>(100, 16, 0);
+        wheel.add(250, "a");
+        wheel.add(300, "b");
+        wheel.add(301, "c");
+
+        final List<String> fired = new ArrayList<>();
+        wheel.advance(299, fired::add);
+        Assert.assertTrue(fired.isEmpty());
+        wheel.advance(300, fired::add);
+        Assert.assertEquals(Arrays.asList("a", "b"), fired);
+        wheel.advance(400, fired::add);
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), fired);
+    }
+
+    @Test
+    public void timersCascadeFromOverflowLevels() {
+        final TimingWheel<Long> wheel = new TimingWheel<>(1, 2, 0);
+        final long expiration = 1000;
+        Assert.assertTrue(wheel.add(expiration, expiration));
+
+        final List<Long> fired = new ArrayList<>();
+        wheel.advance(999, fired::add);
+        Assert.assertTrue(fired.isEmpty());
+        wheel.advance(1000, fired::add);
+        Assert.assertEquals(Arrays.asList(expiration), fired);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.periodic.notification.exporter;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.rya.indexing.pcj.fluo.app.IncrementalUpdateConstants;
+import org.apache.rya.periodic.notification.api.BindingSetRecordExportException;
+import org.apache.rya.periodic.notification.metrics.PeriodicNotificationMetrics;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KafkaBinExporterTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void waitsForEachBatch() throws Exception {
+        // Record how many results had been sent each time the exporter waited for an acknowledgement.
+        final AtomicInteger sent = new AtomicInteger();
+        final List<Integer> sentWhenAcknowledged = new ArrayList<>();
+        final KafkaProducer<String, BindingSet> producer = mock(KafkaProducer.class);
+        when(producer.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            sent.incrementAndGet();
+            return new CompletableFuture<RecordMetadata>() {
+                @Override
+                public RecordMetadata get(final long timeout, final TimeUnit unit) {
+                    sentWhenAcknowledged.add(sent.get());
+                    return null;
+                }
+            };
+        });
+
+        final PeriodicNotificationMetrics metrics = newMetrics();
+        final KafkaBinExporter exporter = new KafkaBinExporter(producer, 2, metrics);
+        Assert.assertEquals(5, exporter.exportResults("query", results(5)));
+
+        Assert.assertEquals(5, sent.get());
+        Assert.assertEquals(Arrays.asList(2, 2, 4, 4, 5), sentWhenAcknowledged);
+        Assert.assertEquals(5, metrics.getExportedResults());
+        Assert.assertEquals(0, metrics.getFailedExports());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failedBatchStopsTheExport() throws Exception {
+        final AtomicInteger sent = new AtomicInteger();
+        final KafkaProducer<String, BindingSet> producer = mock(KafkaProducer.class);
+        when(producer.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            final CompletableFuture<RecordMetadata> future = new CompletableFuture<>();
+            if(sent.incrementAndGet() == 3) {
+                future.completeExceptionally(new IllegalStateException("Kafka is unavailable."));
+            } else {
+                future.complete(null);
+            }
+            return future;
+        });
+
+        final PeriodicNotificationMetrics metrics = newMetrics();
+        final KafkaBinExporter exporter = new KafkaBinExporter(producer, 2, metrics);
+        final Iterator<BindingSet> results = results(6);
+        try {
+            exporter.exportResults("query", results);
+            Assert.fail("The failed batch should have been reported.");
+        } catch (final BindingSetRecordExportException e) {
+            // expected
+        }
+
+        // The results after the failed batch are neither read nor sent.
+        Assert.assertEquals(4, sent.get());
+        Assert.assertTrue(results.hasNext());
+        Assert.assertEquals(2, metrics.getExportedResults());
+        Assert.assertEquals(1, metrics.getFailedExports());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void interruptIsRestored() throws Exception {
+        final KafkaProducer<String, BindingSet> producer = mock(KafkaProducer.class);
+        when(producer.send(any(ProducerRecord.class))).thenAnswer(invocation -> new CompletableFuture<RecordMetadata>() {
+            @Override
+            public RecordMetadata get(final long timeout, final TimeUnit unit) throws InterruptedException {
+                throw new InterruptedException();
+            }
+        });
+
+        final PeriodicNotificationMetrics metrics = newMetrics();
+        final KafkaBinExporter exporter = new KafkaBinExporter(producer, 2, metrics);
+        try {
+            exporter.exportResults("query", results(1));
+            Assert.fail("The interrupted export should have been reported.");
+        } catch (final BindingSetRecordExportException e) {
+            // expected
+        }
+
+        // Clears the flag so that it does not leak into other tests.
+        Assert.assertTrue(Thread.interrupted());
+        Assert.assertEquals(1, metrics.getFailedExports());
+    }
+
+    private static PeriodicNotificationMetrics newMetrics() {
+        return new PeriodicNotificationMetrics(new LinkedBlockingQueue<>(), new LinkedBlockingQueue<>(), new LinkedBlockingQueue<>());
+    }
+
+    private static Iterator<BindingSet> results(final int count) {
+        final List<BindingSet> results = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            final MapBindingSet bs = new MapBindingSet();
+            bs.addBinding(IncrementalUpdateConstants.PERIODIC_BIN_ID, SimpleValueFactory.getInstance().createLiteral(1000L));
+            bs.addBinding("result", SimpleValueFactory.getInstance().createLiteral(i));
+            results.add(bs);
+        }
+        return results.iterator();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.periodic.notification.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.rya.periodic.notification.api.BindingSetRecord;
+import org.apache.rya.periodic.notification.api.NodeBin;
+import org.apache.rya.periodic.notification.notification.TimestampedNotification;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PeriodicNotificationMetricsTest {
+
+    @Test
+    public void putBlocksOnFullQueue() throws Exception {
+        final BlockingQueue<NodeBin> bins = new ArrayBlockingQueue<>(1);
+        final PeriodicNotificationMetrics metrics = new PeriodicNotificationMetrics(new LinkedBlockingQueue<>(), bins,
+                new LinkedBlockingQueue<>());
+
+        // Space is available, so nothing is blocked.
+        metrics.put(bins, new NodeBin("query", 1));
+        Assert.assertEquals(0, metrics.getBlockedMillis());
+        Assert.assertEquals(1, metrics.getBinQueueDepth());
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread producer = new Thread(() -> {
+            try {
+                metrics.put(bins, new NodeBin("query", 2));
+                done.countDown();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        // The producer waits until the queue has space again.
+        Assert.assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(new NodeBin("query", 1), bins.take());
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(new NodeBin("query", 2), bins.take());
+        Assert.assertTrue(metrics.getBlockedMillis() >= 200);
+        producer.join();
+    }
+
+    @Test
+    public void recordsLagAndExports() {
+        final PeriodicNotificationMetrics metrics = new PeriodicNotificationMetrics(new LinkedBlockingQueue<>(),
+                new LinkedBlockingQueue<>(), new LinkedBlockingQueue<>());
+
+        metrics.recordProcessingStarted(50);
+        metrics.recordProcessingStarted(20);
+        metrics.recordProcessingFinished(80);
+        metrics.recordExported(3);
+        metrics.recordExported(4);
+        metrics.recordFailedExport();
+
+        Assert.assertEquals(20, metrics.getLastProcessingLagMillis());
+        Assert.assertEquals(50, metrics.getMaxProcessingLagMillis());
+        Assert.assertEquals(80, metrics.getLastExportLagMillis());
+        Assert.assertEquals(1, metrics.getProcessedNotifications());
+        Assert.assertEquals(7, metrics.getExportedResults());
+        Assert.assertEquals(1, metrics.getFailedExports());
+    }
+
+    @Test
+    public void registerExposesQueueDepths() throws Exception {
+        final BlockingQueue<TimestampedNotification> notifications = new LinkedBlockingQueue<>();
+        final BlockingQueue<BindingSetRecord> bindingSets = new LinkedBlockingQueue<>();
+        final PeriodicNotificationMetrics metrics = new PeriodicNotificationMetrics(notifications, new LinkedBlockingQueue<>(),
+                bindingSets);
+        notifications.add(new TimestampedNotification("query", 1000, TimeUnit.MILLISECONDS, 0));
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(PeriodicNotificationMetrics.OBJECT_NAME);
+        metrics.register();
+        try {
+            Assert.assertEquals(1, server.getAttribute(name, "NotificationQueueDepth"));
+            Assert.assertEquals(0, server.getAttribute(name, "ExportQueueDepth"));
+        } finally {
+            metrics.unregister();
+        }
+        Assert.assertFalse(server.isRegistered(name));
+    }
+}
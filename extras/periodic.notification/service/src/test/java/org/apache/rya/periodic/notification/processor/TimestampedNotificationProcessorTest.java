@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.periodic.notification.processor;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.rya.api.utils.CloseableIterator;
+import org.apache.rya.indexing.pcj.storage.PeriodicQueryResultStorage;
+import org.apache.rya.periodic.notification.api.BindingSetRecord;
+import org.apache.rya.periodic.notification.api.BindingSetRecordExportException;
+import org.apache.rya.periodic.notification.api.NodeBin;
+import org.apache.rya.periodic.notification.exporter.KafkaBinExporter;
+import org.apache.rya.periodic.notification.metrics.PeriodicNotificationMetrics;
+import org.apache.rya.periodic.notification.notification.PeriodicNotification;
+import org.apache.rya.periodic.notification.notification.TimestampedNotification;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimestampedNotificationProcessorTest {
+
+    private final BlockingQueue<TimestampedNotification> notifications = new LinkedBlockingQueue<>();
+    private final BlockingQueue<NodeBin> bins = new LinkedBlockingQueue<>();
+    private final BlockingQueue<BindingSetRecord> bindingSets = new LinkedBlockingQueue<>();
+    private final PeriodicNotificationMetrics metrics = new PeriodicNotificationMetrics(notifications, bins, bindingSets);
+
+    // A notification for the bin that starts at 5000 ms.
+    private final TimestampedNotification notification = new TimestampedNotification(
+            new PeriodicNotification("query", 1000, TimeUnit.MILLISECONDS, 0), new Date(5500));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failedStreamingExportIsRetried() throws Exception {
+        final PeriodicQueryResultStorage storage = mock(PeriodicQueryResultStorage.class);
+        when(storage.listResults(eq("query"), eq(Optional.of(5000L)))).thenAnswer(invocation -> emptyResults());
+
+        final KafkaBinExporter exporter = mock(KafkaBinExporter.class);
+        when(exporter.exportResults(eq("query"), any(Iterator.class)))
+            .thenThrow(new BindingSetRecordExportException("Kafka is unavailable."))
+            .thenReturn(0L);
+
+        final TimestampedNotificationProcessor processor = new TimestampedNotificationProcessor(storage, notifications, bins,
+                bindingSets, 0, Optional.of(exporter), metrics, 1);
+        processor.processNotification(notification);
+
+        // The results are read and exported again, and the bin is pruned once they were exported.
+        verify(storage, times(2)).listResults(eq("query"), eq(Optional.of(5000L)));
+        verify(exporter, times(2)).exportResults(eq("query"), any(Iterator.class));
+        Assert.assertEquals(new NodeBin("query", 5000), bins.poll());
+        Assert.assertEquals(1, metrics.getProcessedNotifications());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void binIsNotPrunedWhenShutDownBeforeExport() throws Exception {
+        final PeriodicQueryResultStorage storage = mock(PeriodicQueryResultStorage.class);
+        when(storage.listResults(eq("query"), eq(Optional.of(5000L)))).thenAnswer(invocation -> emptyResults());
+
+        final AtomicReference<TimestampedNotificationProcessor> processor = new AtomicReference<>();
+        final AtomicInteger attempts = new AtomicInteger();
+        final KafkaBinExporter exporter = mock(KafkaBinExporter.class);
+        when(exporter.exportResults(eq("query"), any(Iterator.class))).thenAnswer(invocation -> {
+            if(attempts.incrementAndGet() == 3) {
+                processor.get().shutdown();
+            }
+            throw new BindingSetRecordExportException("Kafka is unavailable.");
+        });
+
+        processor.set(new TimestampedNotificationProcessor(storage, notifications, bins,
+                bindingSets, 0, Optional.of(exporter), metrics, 1));
+        processor.get().processNotification(notification);
+
+        // The export is retried until the processor is shut down, and the results that were not exported are kept.
+        verify(exporter, times(3)).exportResults(eq("query"), any(Iterator.class));
+        Assert.assertTrue(bins.isEmpty());
+        Assert.assertEquals(0, metrics.getProcessedNotifications());
+    }
+
+    private static CloseableIterator<BindingSet> emptyResults() {
+        final Iterator<BindingSet> results = Collections.<BindingSet>emptyList().iterator();
+        return new CloseableIterator<BindingSet>() {
+            @Override
+            public boolean hasNext() {
+                return results.hasNext();
+            }
+
+            @Override
+            public BindingSet next() {
+                return results.next();
+            }
+
+            @Override
+            public void close() throws Exception {
+            }
+        };
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.benchmark.pcj;
+
+import static org.apache.rya.indexing.pcj.fluo.app.IncrementalUpdateConstants.DELIM;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.rya.api.domain.VarNameUtils;
+import org.apache.rya.indexing.pcj.fluo.app.query.StatementPatternIndex;
+import org.apache.rya.indexing.pcj.fluo.app.query.StatementPatternIndex.IndexedPattern;
+import org.apache.rya.indexing.pcj.fluo.app.query.StatementPatternMetadata;
+import org.apache.rya.indexing.pcj.storage.accumulo.VariableOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A benchmark that compares how quickly the Fluo TripleObserver finds the Statement Patterns
+ * a new triple matches. The {@link StatementPatternIndex} lookup is compared against a linear
+ * scan over every registered pattern. Most patterns bind a predicate, a few bind only an
+ * object, and a few bind nothing at all.
+ * <p>
+ * To execute this benchmark, build the project by executing:
+ * <pre>
+ * mvn clean install
+ * </pre>
+ * Transport the "target/benchmarking.jar" file to the system that will execute
+ * the benchmark and then execute:
+ * <pre>
+ * java -cp benchmarks.jar org.apache.rya.benchmark.pcj.StatementPatternIndexBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@DefaultAnnotation(NonNull.class)
+public class StatementPatternIndexBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int patternCount;
+
+    private final List<IndexedPattern> patterns = new ArrayList<>();
+    private StatementPatternIndex index;
+    private String[] triple;
+
+    @Setup
+    public void registerPatterns() {
+        final Map<String, StatementPatternMetadata> metadata = new HashMap<>();
+        for (int i = 0; i < patternCount; i++) {
+            final String nodeId = "STATEMENT_PATTERN_" + i;
+            final String pattern;
+            final VariableOrder varOrder;
+            if (i % 20 == 0) {
+                pattern = "s" + DELIM + "p" + DELIM + "o";
+                varOrder = new VariableOrder("s", "p", "o");
+            } else if (i % 10 == 0) {
+                pattern = "s" + DELIM + "p" + DELIM + VarNameUtils.prependConstant("urn:object" + i);
+                varOrder = new VariableOrder("s", "p");
+            } else {
+                pattern = "s" + DELIM + VarNameUtils.prependConstant("urn:predicate" + i) + DELIM + "o";
+                varOrder = new VariableOrder("s", "o");
+            }
+            metadata.put(nodeId, StatementPatternMetadata.builder(nodeId)
+                    .setStatementPattern(pattern)
+                    .setVarOrder(varOrder)
+                    .setParentNodeId("QUERY_" + i)
+                    .build());
+        }
+
+        index = StatementPatternIndex.build(metadata.keySet(), metadata::get);
+        for (final StatementPatternMetadata spMetadata : metadata.values()) {
+            patterns.add(new IndexedPattern(spMetadata));
+        }
+        triple = StatementPatternIndex.splitTriple("urn:subject" + DELIM + "urn:predicate1" + DELIM + "urn:object");
+    }
+
+    @Benchmark
+    public void match_linearScan(final Blackhole blackhole) {
+        for (final IndexedPattern pattern : patterns) {
+            if (pattern.matches(triple)) {
+                blackhole.consume(pattern.getBindingSetString(triple));
+            }
+        }
+    }
+
+    @Benchmark
+    public void match_index(final Blackhole blackhole) {
+        for (final IndexedPattern pattern : index.match(triple)) {
+            blackhole.consume(pattern.getBindingSetString(triple));
+        }
+    }
+
+    /**
+     * Runs the benchmarks within this class.
+     */
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final OptionsBuilder opts = new OptionsBuilder();
+        opts.parent(new CommandLineOptions(args));
+        opts.include(StatementPatternIndexBenchmark.class.getSimpleName());
+        new Runner(opts.build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.benchmark.resolver;
+
+import org.apache.rya.api.RdfCloudTripleStoreConstants.TABLE_LAYOUT;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.resolver.triple.TripleRow;
+import org.apache.rya.api.resolver.triple.TripleRowResolverException;
+import org.apache.rya.api.resolver.triple.impl.WholeRowTripleResolver;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A benchmark that compares the eager and lazy deserialization modes of {@link WholeRowTripleResolver}.
+ * It pivots over the table the row was read from and compares reading every term of the
+ * statement against only reading the term a typical statement pattern binds.
+ * <p>
+ * To execute this benchmark, build the project by executing:
+ * <pre>
+ * mvn clean install
+ * </pre>
+ * Transport the "target/benchmarking.jar" file to the system that will execute
+ * the benchmark and then execute:
+ * <pre>
+ * java -cp benchmarks.jar org.apache.rya.benchmark.resolver.WholeRowTripleResolverBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@DefaultAnnotation(NonNull.class)
+public class WholeRowTripleResolverBenchmark {
+
+    @Param({"SPO", "PO", "OSP"})
+    public TABLE_LAYOUT layout;
+
+    private final WholeRowTripleResolver eagerResolver = new WholeRowTripleResolver(false);
+    private final WholeRowTripleResolver lazyResolver = new WholeRowTripleResolver(true);
+
+    private TripleRow row;
+
+    @Setup
+    public void buildRow() throws TripleRowResolverException {
+        final RyaStatement statement = new RyaStatement(
+                new RyaIRI("http://example.org/benchmark/people#Alice_Smith_0123456789"),
+                new RyaIRI("http://example.org/benchmark/ontology#worksForOrganization"),
+                new RyaType(XMLSchema.STRING, "The Example Organization Of Benchmarking And Measurement"));
+        row = eagerResolver.serialize(statement).get(layout);
+    }
+
+    @Benchmark
+    public void deserialize_eager_allTerms(final Blackhole blackhole) throws TripleRowResolverException {
+        final RyaStatement statement = eagerResolver.deserialize(layout, row);
+        blackhole.consume(statement.getSubject());
+        blackhole.consume(statement.getPredicate());
+        blackhole.consume(statement.getObject());
+    }
+
+    @Benchmark
+    public void deserialize_lazy_allTerms(final Blackhole blackhole) throws TripleRowResolverException {
+        final RyaStatement statement = lazyResolver.deserialize(layout, row);
+        blackhole.consume(statement.getSubject());
+        blackhole.consume(statement.getPredicate());
+        blackhole.consume(statement.getObject());
+    }
+
+    @Benchmark
+    public void deserialize_eager_subjectOnly(final Blackhole blackhole) throws TripleRowResolverException {
+        blackhole.consume(eagerResolver.deserialize(layout, row).getSubject());
+    }
+
+    @Benchmark
+    public void deserialize_lazy_subjectOnly(final Blackhole blackhole) throws TripleRowResolverException {
+        blackhole.consume(lazyResolver.deserialize(layout, row).getSubject());
+    }
+
+    /**
+     * Runs the benchmarks within this class.
+     */
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final OptionsBuilder opts = new OptionsBuilder();
+        opts.parent(new CommandLineOptions(args));
+        opts.include(WholeRowTripleResolverBenchmark.class.getSimpleName());
+        new Runner(opts.build()).run();
+    }
+}
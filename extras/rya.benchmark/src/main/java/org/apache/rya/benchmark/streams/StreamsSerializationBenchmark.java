@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.benchmark.streams;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.rya.api.model.VisibilityBindingSet;
+import org.apache.rya.api.model.VisibilityStatement;
+import org.apache.rya.streams.kafka.serialization.SerializationFormat;
+import org.apache.rya.streams.kafka.serialization.VisibilityBindingSetDeserializer;
+import org.apache.rya.streams.kafka.serialization.VisibilityBindingSetSerializer;
+import org.apache.rya.streams.kafka.serialization.VisibilityStatementDeserializer;
+import org.apache.rya.streams.kafka.serialization.VisibilityStatementSerializer;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A benchmark that measures the throughput of the Rya Streams serializers and deserializers
+ * for each {@link SerializationFormat}. It pivots over the format and the number of bindings
+ * within the binding sets.
+ * <p>
+ * To execute this benchmark, build the project by executing:
+ * <pre>
+ * mvn clean install
+ * </pre>
+ * Transport the "target/benchmarking.jar" file to the system that will execute
+ * the benchmark and then execute:
+ * <pre>
+ * java -cp benchmarks.jar org.apache.rya.benchmark.streams.StreamsSerializationBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@DefaultAnnotation(NonNull.class)
+public class StreamsSerializationBenchmark {
+
+    private static final String TOPIC = "benchmark";
+
+    @Param({"JAVA", "BINARY", "BINARY_LZ4"})
+    public SerializationFormat format;
+
+    @Param({"2", "8", "32"})
+    public int bindingCount;
+
+    private Serializer<VisibilityStatement> statementSerializer;
+    private Deserializer<VisibilityStatement> statementDeserializer;
+    private Serializer<VisibilityBindingSet> bindingSetSerializer;
+    private Deserializer<VisibilityBindingSet> bindingSetDeserializer;
+
+    private VisibilityStatement statement;
+    private VisibilityBindingSet bindingSet;
+    private byte[] serializedStatement;
+    private byte[] serializedBindingSet;
+
+    @Setup
+    public void setup() {
+        statementSerializer = new VisibilityStatementSerializer(format);
+        statementDeserializer = new VisibilityStatementDeserializer();
+        bindingSetSerializer = new VisibilityBindingSetSerializer(format);
+        bindingSetDeserializer = new VisibilityBindingSetDeserializer();
+
+        final ValueFactory vf = SimpleValueFactory.getInstance();
+        statement = new VisibilityStatement(
+                vf.createStatement(
+                        vf.createIRI("urn:example:person/alice"),
+                        vf.createIRI("http://xmlns.com/foaf/0.1/age"),
+                        vf.createLiteral("37", XMLSchema.INTEGER),
+                        vf.createIRI("urn:example:graph")),
+                "U&(FOUO|\"REL TO USA\")");
+
+        final MapBindingSet bs = new MapBindingSet();
+        for(int i = 0; i < bindingCount; i++) {
+            switch(i % 3) {
+                case 0:
+                    bs.addBinding("person" + i, vf.createIRI("urn:example:person/" + i));
+                    break;
+                case 1:
+                    bs.addBinding("age" + i, vf.createLiteral(i));
+                    break;
+                default:
+                    bs.addBinding("name" + i, vf.createLiteral("Person number " + i, "en"));
+            }
+        }
+        bindingSet = new VisibilityBindingSet(bs, "U&(FOUO|\"REL TO USA\")");
+
+        serializedStatement = statementSerializer.serialize(TOPIC, statement);
+        serializedBindingSet = bindingSetSerializer.serialize(TOPIC, bindingSet);
+    }
+
+    @Benchmark
+    public byte[] serializeStatement() {
+        return statementSerializer.serialize(TOPIC, statement);
+    }
+
+    @Benchmark
+    public VisibilityStatement deserializeStatement() {
+        return statementDeserializer.deserialize(TOPIC, serializedStatement);
+    }
+
+    @Benchmark
+    public byte[] serializeBindingSet() {
+        return bindingSetSerializer.serialize(TOPIC, bindingSet);
+    }
+
+    @Benchmark
+    public VisibilityBindingSet deserializeBindingSet() {
+        return bindingSetDeserializer.deserialize(TOPIC, serializedBindingSet);
+    }
+
+    /**
+     * Runs the benchmarks within this class.
+     */
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final OptionsBuilder opts = new OptionsBuilder();
+        opts.parent(new CommandLineOptions(args));
+        opts.include(StreamsSerializationBenchmark.class.getSimpleName());
+        new Runner(opts.build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.benchmark.visibility;
+
+import java.util.Set;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
+import org.apache.accumulo.core.security.VisibilityParseException;
+import org.apache.rya.api.model.visibility.CompiledAuthorizations;
+import org.apache.rya.api.model.visibility.VisibilityCache;
+import org.apache.rya.api.model.visibility.VisibilitySimplifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.Sets;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A benchmark that compares evaluating visibility expressions by parsing them every time,
+ * the way {@link VisibilityEvaluator} is used, against evaluating the expressions that were
+ * compiled once by the {@link VisibilityCache}. It pivots over the complexity of the expression.
+ * <p>
+ * To execute this benchmark, build the project by executing:
+ * <pre>
+ * mvn clean install
+ * </pre>
+ * Transport the "target/benchmarking.jar" file to the system that will execute
+ * the benchmark and then execute:
+ * <pre>
+ * java -cp benchmarks.jar org.apache.rya.benchmark.visibility.VisibilityEvaluationBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@DefaultAnnotation(NonNull.class)
+public class VisibilityEvaluationBenchmark {
+
+    @Param({"U", "U&FOUO", "(U&FOUO)|(S&\"REL TO USA\")", "(A&B&C)|(D&(E|F|G))|(H&I&\"J K\")|L"})
+    public String expression;
+
+    private final Set<String> userAuths = Sets.newHashSet("U", "FOUO", "REL TO USA", "D", "G");
+
+    private VisibilityEvaluator evaluator;
+    private CompiledAuthorizations compiledAuths;
+
+    @Setup
+    public void setup() {
+        evaluator = new VisibilityEvaluator(new Authorizations(userAuths.toArray(new String[userAuths.size()])));
+        compiledAuths = VisibilityCache.compileAuthorizations(userAuths);
+    }
+
+    @Benchmark
+    public boolean evaluate_parsed() throws VisibilityParseException {
+        return evaluator.evaluate(new ColumnVisibility(expression));
+    }
+
+    @Benchmark
+    public boolean evaluate_compiled() {
+        return VisibilityCache.compile(expression).evaluate(compiledAuths);
+    }
+
+    @Benchmark
+    public String unionAndSimplify() {
+        return VisibilitySimplifier.unionAndSimplify(expression, "U");
+    }
+
+    /**
+     * Runs the benchmarks within this class.
+     */
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final OptionsBuilder opts = new OptionsBuilder();
+        opts.parent(new CommandLineOptions(args));
+        opts.include(VisibilityEvaluationBenchmark.class.getSimpleName());
+        new Runner(opts.build()).run();
+    }
+}
@@ -28,6 +28,7 @@ import org.apache.rya.forwardchain.rule.Ruleset;
 import org.apache.rya.forwardchain.strategy.AbstractForwardChainStrategy;
 import org.apache.rya.forwardchain.strategy.AbstractRuleExecutionStrategy;
 import org.apache.rya.forwardchain.strategy.MongoPipelineStrategy;
+import org.apache.rya.forwardchain.strategy.ParallelRoundRobinStrategy;
 import org.apache.rya.forwardchain.strategy.RoundRobinStrategy;
 import org.apache.rya.forwardchain.strategy.SailExecutionStrategy;
 import org.apache.rya.indexing.accumulo.ConfigUtils;
@@ -48,6 +49,14 @@ import com.google.common.base.Preconditions;
 public abstract class AbstractForwardChainTool implements Tool {
     private static final Logger logger = Logger.getLogger(AbstractForwardChainTool.class);
 
+    /**
+     * Configuration key for the number of rules to execute concurrently. If
+     * greater than one, and the rule execution strategy supports concurrent
+     * execution, the default strategy executes independent rules in parallel.
+     * Defaults to one.
+     */
+    public static final String NUM_THREADS = "rya.forwardchain.threads";
+
     private RdfCloudTripleStoreConfiguration conf;
 
     private long numInferences = 0;
@@ -98,13 +107,26 @@ public abstract class AbstractForwardChainTool implements Tool {
      * Get the high-level {@link AbstractForwardChainStrategy} that governs how
      * reasoning will proceed. By default, returns a {@link RoundRobinStrategy}
      * which executes each relevant rule one-by-one, then moves to the next
-     * iteration and repeats, until no rules are still relevant. Subclasses may
-     * override this method to provide alternative strategies.
+     * iteration and repeats, until no rules are still relevant. If the
+     * configuration sets {@link #NUM_THREADS} greater than one and the rule
+     * strategy supports concurrent execution, returns a
+     * {@link ParallelRoundRobinStrategy} that executes independent rules
+     * concurrently instead. Subclasses may override this method to provide
+     * alternative strategies.
      * @return The high-level forward chaining logic.
      * @throws ForwardChainException if the strategy can't be instantiated.
      */
     protected AbstractForwardChainStrategy getStrategy() throws ForwardChainException {
-        return new RoundRobinStrategy(getRuleStrategy());
+        final int numThreads = conf.getInt(NUM_THREADS, 1);
+        final AbstractRuleExecutionStrategy ruleStrategy = getRuleStrategy();
+        if (numThreads > 1) {
+            if (ruleStrategy.supportsConcurrentExecution()) {
+                return new ParallelRoundRobinStrategy(ruleStrategy, numThreads);
+            }
+            logger.warn("Ignoring " + NUM_THREADS + "=" + numThreads + " because "
+                    + ruleStrategy.getClass().getSimpleName() + " does not support concurrent execution.");
+        }
+        return new RoundRobinStrategy(ruleStrategy);
     }
 
     /**
@@ -93,6 +93,16 @@ public abstract class AbstractRuleExecutionStrategy {
      */
     public void shutDown() throws ForwardChainException { }
 
+    /**
+     * Indicate whether different rules may be executed through this strategy
+     * at the same time, from different threads. Returns false by default;
+     * subclasses that are safe to call concurrently should override.
+     * @return true if rules may be executed concurrently.
+     */
+    public boolean supportsConcurrentExecution() {
+        return false;
+    }
+
     /**
      * Indicate that a rule need only be applied if one of the source statements
      * is is at least this derivation level, i.e. took this many steps to derive
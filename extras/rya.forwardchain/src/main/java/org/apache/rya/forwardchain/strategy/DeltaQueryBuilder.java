@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.forwardchain.strategy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.algebra.AggregateOperator;
+import org.eclipse.rdf4j.query.algebra.ArbitraryLengthPath;
+import org.eclipse.rdf4j.query.algebra.BindingSetAssignment;
+import org.eclipse.rdf4j.query.algebra.Difference;
+import org.eclipse.rdf4j.query.algebra.Group;
+import org.eclipse.rdf4j.query.algebra.LeftJoin;
+import org.eclipse.rdf4j.query.algebra.QueryModelNode;
+import org.eclipse.rdf4j.query.algebra.Service;
+import org.eclipse.rdf4j.query.algebra.Slice;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.SubQueryValueOperator;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.ZeroLengthPath;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
+import org.eclipse.rdf4j.query.parser.ParsedGraphQuery;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Rewrites a construct rule's query into the delta queries used for
+ * semi-naive evaluation. For each antecedent statement pattern, one delta
+ * query replaces that pattern with the bindings produced by matching it
+ * against a set of newly inferred statements, leaving the rest of the query
+ * to be evaluated against the full store. The union of the delta queries'
+ * results contains every conclusion that depends on at least one new
+ * statement, which is all that a re-execution of a monotonic rule can add.
+ * <p>
+ * Queries containing non-monotonic operators (negation, optional joins,
+ * aggregation, slicing, property paths, federation) can lose or change
+ * conclusions when new statements arrive, so they are reported as
+ * unsupported and should be evaluated in full instead.
+ */
+class DeltaQueryBuilder {
+    private final ParsedGraphQuery query;
+    private final int numPatterns;
+    private final boolean supported;
+
+    /**
+     * Analyze a construct query.
+     * @param query The query to rewrite; not null.
+     */
+    DeltaQueryBuilder(ParsedGraphQuery query) {
+        Preconditions.checkNotNull(query);
+        this.query = query;
+        this.numPatterns = getPatterns(query.getTupleExpr()).size();
+        MonotonicityVisitor visitor = new MonotonicityVisitor();
+        query.getTupleExpr().visit(visitor);
+        this.supported = visitor.monotonic && numPatterns > 0;
+    }
+
+    /**
+     * @return Whether the query can be evaluated using delta queries.
+     */
+    boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * Build the delta queries for a set of new statements. Antecedents that
+     * match none of the statements produce no query, so an empty result means
+     * the rule cannot derive anything new from these statements.
+     * @param delta Statements added since the rule was last evaluated.
+     * @return A list of queries whose combined results contain every
+     *  conclusion depending on the new statements.
+     * @throws IllegalStateException if the query is not supported.
+     */
+    List<ParsedGraphQuery> build(Collection<Statement> delta) {
+        Preconditions.checkState(supported, "Query can't be evaluated semi-naively");
+        List<ParsedGraphQuery> deltaQueries = new ArrayList<>();
+        for (int i = 0; i < numPatterns; i++) {
+            TupleExpr expr = query.getTupleExpr().clone();
+            StatementPattern sp = getPatterns(expr).get(i);
+            List<BindingSet> matches = new ArrayList<>();
+            for (Statement statement : delta) {
+                BindingSet bindings = match(sp, statement);
+                if (bindings != null) {
+                    matches.add(bindings);
+                }
+            }
+            if (matches.isEmpty()) {
+                continue;
+            }
+            BindingSetAssignment assignment = new BindingSetAssignment();
+            assignment.setBindingNames(getVariableNames(sp));
+            assignment.setBindingSets(matches);
+            sp.replaceWith(assignment);
+            ParsedGraphQuery deltaQuery = new ParsedGraphQuery(expr, query.getQueryNamespaces());
+            deltaQuery.setDataset(query.getDataset());
+            deltaQueries.add(deltaQuery);
+        }
+        return deltaQueries;
+    }
+
+    /**
+     * Match a statement against a statement pattern.
+     * @param sp The pattern.
+     * @param statement The statement.
+     * @return The resulting bindings for the pattern's variables, or null if
+     *  the statement doesn't match.
+     */
+    static BindingSet match(StatementPattern sp, Statement statement) {
+        QueryBindingSet bindings = new QueryBindingSet();
+        if (bind(sp.getSubjectVar(), statement.getSubject(), bindings)
+                && bind(sp.getPredicateVar(), statement.getPredicate(), bindings)
+                && bind(sp.getObjectVar(), statement.getObject(), bindings)) {
+            Var contextVar = sp.getContextVar();
+            if (contextVar == null) {
+                return bindings;
+            }
+            if (statement.getContext() != null
+                    && bind(contextVar, statement.getContext(), bindings)) {
+                return bindings;
+            }
+        }
+        return null;
+    }
+
+    private static boolean bind(Var var, Value value, QueryBindingSet bindings) {
+        if (var.hasValue()) {
+            return var.getValue().equals(value);
+        }
+        Value existing = bindings.getValue(var.getName());
+        if (existing != null) {
+            // A variable repeated within the pattern must match the same value
+            return existing.equals(value);
+        }
+        bindings.addBinding(var.getName(), value);
+        return true;
+    }
+
+    private static Set<String> getVariableNames(StatementPattern sp) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Var var : sp.getVarList()) {
+            if (!var.hasValue()) {
+                names.add(var.getName());
+            }
+        }
+        return names;
+    }
+
+    private static List<StatementPattern> getPatterns(TupleExpr expr) {
+        List<StatementPattern> patterns = new ArrayList<>();
+        expr.visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(StatementPattern sp) {
+                patterns.add(sp);
+            }
+        });
+        return patterns;
+    }
+
+    private static class MonotonicityVisitor extends AbstractQueryModelVisitor<RuntimeException> {
+        private boolean monotonic = true;
+
+        @Override
+        protected void meetNode(QueryModelNode node) {
+            if (node instanceof LeftJoin || node instanceof Difference
+                    || node instanceof SubQueryValueOperator || node instanceof Group
+                    || node instanceof AggregateOperator || node instanceof Slice
+                    || node instanceof ArbitraryLengthPath || node instanceof ZeroLengthPath
+                    || node instanceof Service) {
+                monotonic = false;
+            }
+            else {
+                super.meetNode(node);
+            }
+        }
+    }
+}
@@ -75,7 +75,7 @@ public class MongoPipelineStrategy extends AbstractRuleExecutionStrategy {
     private final ConcurrentHashMap<Rule, Long> executionTimes = new ConcurrentHashMap<>();
     private final AbstractRuleExecutionStrategy backup;
     private final RyaQueryEngine<StatefulMongoDBRdfConfiguration> engine;
-    private boolean usedBackup = false;
+    private volatile boolean usedBackup = false;
 
     /**
      * Initialize based on a configuration.
@@ -108,7 +108,8 @@ public class MongoPipelineStrategy extends AbstractRuleExecutionStrategy {
         this.baseCollection = mongoDB.getCollection(collectionName);
         this.pipelineVisitor = new SparqlToPipelineTransformVisitor(this.baseCollection);
         this.engine = this.dao.getQueryEngine();
-        this.backup = new SailExecutionStrategy(statefulConf);
+        // Pipeline inferences bypass the backup strategy, so it must evaluate rules in full
+        this.backup = new SailExecutionStrategy(statefulConf, false);
         final MongoDbBatchWriterConfig writerConfig = MongoDbBatchWriterUtils.getMongoDbBatchWriterConfig(statefulConf);
         final CollectionType<Document> ct = new MongoCollectionType(baseCollection);
         this.batchWriter = new MongoDbBatchWriter<>(ct, writerConfig);
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.forwardchain.strategy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.apache.rya.api.domain.StatementMetadata;
+import org.apache.rya.forwardchain.ForwardChainException;
+import org.apache.rya.forwardchain.rule.Rule;
+import org.apache.rya.forwardchain.rule.Ruleset;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A {@link RoundRobinStrategy} that executes independent rules concurrently.
+ * <p>
+ * Iterations proceed as in the round robin strategy, but each step executes a
+ * group of rules rather than a single rule. A group is formed by considering
+ * the remaining rules in order of priority, and adding each rule that neither
+ * triggers nor is triggered by any rule already in the group, according to the
+ * {@link Ruleset}. Rules in a group therefore don't consume each other's
+ * conclusions, and are executed concurrently on a fixed-size thread pool. Any
+ * successors they trigger are handled as they would be in the round robin
+ * strategy once the whole group has finished.
+ * <p>
+ * The {@link AbstractRuleExecutionStrategy} must support concurrent execution
+ * of different rules, as reported by
+ * {@link AbstractRuleExecutionStrategy#supportsConcurrentExecution()}.
+ */
+public class ParallelRoundRobinStrategy extends RoundRobinStrategy {
+    private static final Logger logger = Logger.getLogger(ParallelRoundRobinStrategy.class);
+
+    private final int numThreads;
+    private ExecutorService executor = null;
+
+    /**
+     * Instantiate a ParallelRoundRobinStrategy.
+     * @param ruleStrategy Defines how to execute individual rules; not null.
+     *  Must be safe to call concurrently.
+     * @param numThreads The maximum number of rules to execute at once; must
+     *  be positive.
+     * @throws IllegalArgumentException if the rule strategy doesn't support
+     *  concurrent execution.
+     */
+    public ParallelRoundRobinStrategy(AbstractRuleExecutionStrategy ruleStrategy, int numThreads) {
+        super(ruleStrategy);
+        Preconditions.checkArgument(numThreads > 0, "Number of threads must be positive");
+        Preconditions.checkArgument(ruleStrategy.supportsConcurrentExecution(),
+                "Rule execution strategy does not support concurrent execution: " + ruleStrategy.getClass().getName());
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public void initialize(Ruleset withRuleset) throws ForwardChainException {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                    .setNameFormat("forward-chain-%d").setDaemon(true).build());
+        }
+        super.initialize(withRuleset);
+    }
+
+    @Override
+    protected void setDone() throws ForwardChainException {
+        try {
+            super.setDone();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * Choose a group of mutually independent rules, in order of priority.
+     * @return The rules to execute concurrently, or an empty list if none
+     *  remain.
+     */
+    @Override
+    protected List<Rule> getNextRules() {
+        Ruleset ruleset = getRuleset();
+        List<Rule> group = new ArrayList<>();
+        Set<Rule> related = new HashSet<>();
+        for (Rule rule : getPrioritizedRules()) {
+            if (!related.contains(rule)) {
+                group.add(rule);
+                related.add(rule);
+                related.addAll(ruleset.getSuccessorsOf(rule));
+                related.addAll(ruleset.getPredecessorsOf(rule));
+            }
+        }
+        removeActive(group);
+        return group;
+    }
+
+    @Override
+    protected Map<Rule, Long> executeRules(List<Rule> rules, StatementMetadata metadata)
+            throws ForwardChainException {
+        if (rules.size() == 1) {
+            return super.executeRules(rules, metadata);
+        }
+        logger.info("Executing " + rules.size() + " independent rules on "
+                + numThreads + " threads...");
+        Map<Rule, Future<Long>> futures = new HashMap<>();
+        for (Rule rule : rules) {
+            futures.put(rule, executor.submit(() -> executeRule(rule, metadata)));
+        }
+        Map<Rule, Long> results = new HashMap<>();
+        try {
+            for (Rule rule : rules) {
+                results.put(rule, futures.get(rule).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(futures);
+            throw new ForwardChainException("Interrupted while executing rules", e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof ForwardChainException) {
+                throw (ForwardChainException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ForwardChainException("Error executing rule", (Exception) cause);
+        }
+        return results;
+    }
+
+    private static void cancel(Map<Rule, Future<Long>> futures) {
+        for (Future<Long> future : futures.values()) {
+            future.cancel(true);
+        }
+    }
+}
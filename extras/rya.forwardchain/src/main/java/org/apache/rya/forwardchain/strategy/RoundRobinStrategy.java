@@ -18,11 +18,18 @@
  */
 package org.apache.rya.forwardchain.strategy;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.log4j.Logger;
@@ -69,6 +76,10 @@ import com.google.common.base.Preconditions;
  * The procedure for executing the individual rules is governed by the
  * {@link RuleExecutionStrategy}. This class uses the strategy's reported counts
  * to determine whether or not a rule has produced inferences.
+ * <p>
+ * The number of executions, inferences, and time spent are recorded for each
+ * rule, and are available through {@link #getRuleStatistics()} and logged when
+ * forward chaining finishes.
  */
 public class RoundRobinStrategy extends AbstractForwardChainStrategy {
     private static final Logger logger = Logger.getLogger(RoundRobinStrategy.class);
@@ -80,6 +91,7 @@ public class RoundRobinStrategy extends AbstractForwardChainStrategy {
     private Set<Rule> activeNextIteration;
     private long inferencesThisIteration;
     private AtomicBoolean initialized = new AtomicBoolean(false);
+    private final Map<Rule, RuleStatistics> statistics = new ConcurrentHashMap<>();
 
     /**
      * Instantiate a RoundRobinStrategy by providing the RuleExecutionStrategy.
@@ -97,6 +109,7 @@ public class RoundRobinStrategy extends AbstractForwardChainStrategy {
         ruleset = withRuleset;
         activeNow = new HashSet<>();
         activeNextIteration = new HashSet<>(ruleset.getRules());
+        statistics.clear();
         logger.info("Initializing round robin forward chaining, with " +
                 activeNextIteration.size() + " rules.");
         initialized.set(true);
@@ -112,6 +125,7 @@ public class RoundRobinStrategy extends AbstractForwardChainStrategy {
                 }
                 if (activeNextIteration.isEmpty()) {
                     logger.info("Finished forward chaining after " + iteration + " iterations.");
+                    logStatistics();
                     setDone();
                 }
                 else {
@@ -127,7 +141,11 @@ public class RoundRobinStrategy extends AbstractForwardChainStrategy {
         }
     }
 
-    private void setDone() throws ForwardChainException {
+    /**
+     * Stop forward chaining and shut down the rule execution strategy.
+     * @throws ForwardChainException if shutting down fails.
+     */
+    protected void setDone() throws ForwardChainException {
         initialized.set(false);
         if (ruleStrategy != null) {
             ruleStrategy.shutDown();
@@ -144,32 +162,88 @@ public class RoundRobinStrategy extends AbstractForwardChainStrategy {
         if (!initialized.get()) {
             return 0;
         }
-        Rule rule = getNextRule();
-        if (rule == null) {
+        List<Rule> rules = getNextRules();
+        if (rules.isEmpty()) {
             return 0;
         }
         StatementMetadata metadata = new StatementMetadata();
         metadata.addMetadata(ForwardChainConstants.RYA_DERIVATION_TIME,
                 new RyaType(XMLSchema.INT, Integer.toString(iteration)));
-        long inferences = rule.execute(ruleStrategy, metadata);
-        inferencesThisIteration += inferences;
-        if (inferences > 0) {
-            for (Rule successor : ruleset.getSuccessorsOf(rule)) {
-                // If we'll handle the triggered rule in the current iteration,
-                // it may not need  to be checked in the next one.
-                if (!activeNow.contains(successor)) {
-                    activeNextIteration.add(successor);
+        Map<Rule, Long> results = executeRules(rules, metadata);
+        long inferences = 0;
+        for (Rule rule : rules) {
+            long ruleInferences = results.get(rule);
+            inferences += ruleInferences;
+            if (ruleInferences > 0) {
+                for (Rule successor : ruleset.getSuccessorsOf(rule)) {
+                    // If we'll handle the triggered rule in the current iteration,
+                    // it may not need  to be checked in the next one.
+                    if (!activeNow.contains(successor)) {
+                        activeNextIteration.add(successor);
+                    }
                 }
             }
         }
+        inferencesThisIteration += inferences;
         prepareQueue();
         return inferences;
     }
 
-    private Rule getNextRule() {
+    /**
+     * Choose the rules to execute in the next step, and remove them from the
+     * set of rules remaining in the current iteration. By default, chooses the
+     * single highest-priority rule.
+     * @return The rules to execute next, or an empty list if none remain.
+     */
+    protected List<Rule> getNextRules() {
         if (activeNow.isEmpty()) {
-            return null;
+            return Collections.emptyList();
+        }
+        Rule next = getPrioritizedRules().first();
+        activeNow.remove(next);
+        return Collections.singletonList(next);
+    }
+
+    /**
+     * Execute a set of rules chosen by {@link #getNextRules()}. By default,
+     * executes them one at a time, in order.
+     * @param rules The rules to execute.
+     * @param metadata Metadata to attach to any inferred statements.
+     * @return The number of inferences made by each rule.
+     * @throws ForwardChainException if any rule fails.
+     */
+    protected Map<Rule, Long> executeRules(List<Rule> rules, StatementMetadata metadata)
+            throws ForwardChainException {
+        Map<Rule, Long> results = new HashMap<>();
+        for (Rule rule : rules) {
+            results.put(rule, executeRule(rule, metadata));
         }
+        return results;
+    }
+
+    /**
+     * Execute a single rule using the rule execution strategy, and record its
+     * statistics. May be called concurrently for different rules.
+     * @param rule The rule to execute.
+     * @param metadata Metadata to attach to any inferred statements.
+     * @return The number of inferences made.
+     * @throws ForwardChainException if the rule fails.
+     */
+    protected long executeRule(Rule rule, StatementMetadata metadata) throws ForwardChainException {
+        long start = System.currentTimeMillis();
+        long inferences = rule.execute(ruleStrategy, metadata);
+        long elapsed = System.currentTimeMillis() - start;
+        statistics.computeIfAbsent(rule, r -> new RuleStatistics()).record(inferences, elapsed);
+        return inferences;
+    }
+
+    /**
+     * Get the rules remaining in the current iteration, sorted such that a rule
+     * which may trigger many other rules comes before a rule that may be
+     * triggered by many other rules.
+     * @return The remaining rules in order of priority.
+     */
+    protected SortedSet<Rule> getPrioritizedRules() {
         Ruleset subset = new Ruleset(activeNow);
         SortedSet<Rule> sorted = new TreeSet<>(new Comparator<Rule>() {
             @Override
@@ -193,9 +267,41 @@ public class RoundRobinStrategy extends AbstractForwardChainStrategy {
             return remainingPredecessors(rule).size() - remainingSuccessors(rule).size();
         }).thenComparing(Rule::toString)); // Fall back on string comparison
         sorted.addAll(activeNow);
-        Rule next = sorted.first();
-        activeNow.remove(next);
-        return next;
+        return sorted;
+    }
+
+    /**
+     * Remove rules from the set of rules remaining in the current iteration,
+     * after choosing to execute them.
+     * @param rules Rules about to be executed.
+     */
+    protected void removeActive(Collection<Rule> rules) {
+        activeNow.removeAll(rules);
+    }
+
+    /**
+     * @return The complete ruleset being materialized.
+     */
+    protected Ruleset getRuleset() {
+        return ruleset;
+    }
+
+    /**
+     * Get execution statistics for each rule executed since initialization.
+     * @return A map from each executed rule to its statistics.
+     */
+    public Map<Rule, RuleStatistics> getRuleStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    private void logStatistics() {
+        List<Map.Entry<Rule, RuleStatistics>> entries = new ArrayList<>(statistics.entrySet());
+        entries.sort((e1, e2) -> Long.compare(e2.getValue().getTotalMillis(),
+                e1.getValue().getTotalMillis()));
+        logger.info("Rule statistics, by total execution time:");
+        for (Map.Entry<Rule, RuleStatistics> entry : entries) {
+            logger.info("\t" + entry.getValue() + "\t" + entry.getKey());
+        }
     }
 
     private Set<Rule> remainingSuccessors(Rule rule) {
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.forwardchain.strategy;
+
+/**
+ * Running execution statistics for a single rule: how many times it was
+ * executed, how many inferences it made, and how long its executions took.
+ */
+public class RuleStatistics {
+    private long executions = 0;
+    private long inferences = 0;
+    private long totalMillis = 0;
+    private long maxMillis = 0;
+
+    /**
+     * Record one execution of the rule.
+     * @param numInferences The number of inferences made by the execution.
+     * @param millis The duration of the execution, in milliseconds.
+     */
+    public synchronized void record(long numInferences, long millis) {
+        executions++;
+        inferences += numInferences;
+        totalMillis += millis;
+        maxMillis = Math.max(maxMillis, millis);
+    }
+
+    /**
+     * @return The number of times the rule was executed.
+     */
+    public synchronized long getExecutions() {
+        return executions;
+    }
+
+    /**
+     * @return The total number of inferences made by the rule.
+     */
+    public synchronized long getInferences() {
+        return inferences;
+    }
+
+    /**
+     * @return The total time spent executing the rule, in milliseconds.
+     */
+    public synchronized long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * @return The duration of the rule's longest execution, in milliseconds.
+     */
+    public synchronized long getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "executions=" + executions + ", inferences=" + inferences
+                + ", totalMillis=" + totalMillis + ", maxMillis=" + maxMillis;
+    }
+}
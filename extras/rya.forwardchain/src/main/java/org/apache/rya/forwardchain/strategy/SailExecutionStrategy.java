@@ -18,6 +18,15 @@
  */
 package org.apache.rya.forwardchain.strategy;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.log4j.Logger;
@@ -32,6 +41,7 @@ import org.apache.rya.api.persist.query.RyaQueryEngine;
 import org.apache.rya.api.resolver.RdfToRyaConversions;
 import org.apache.rya.forwardchain.ForwardChainException;
 import org.apache.rya.forwardchain.rule.AbstractConstructRule;
+import org.apache.rya.forwardchain.rule.Rule;
 import org.apache.rya.indexing.accumulo.ConfigUtils;
 import org.apache.rya.mongodb.MongoDBRdfConfiguration;
 import org.apache.rya.sail.config.RyaSailFactory;
@@ -54,24 +64,107 @@ import com.google.common.base.Preconditions;
  * construct rule by submitting the associated query to a Rya SAIL, then
  * converting the resulting bindings (expecting variables "subject",
  * "predicate", and "object") into triples and inserting them into a Rya DAO.
+ * <p>
+ * By default, rules are evaluated semi-naively: the strategy remembers the
+ * statements it has inferred, and when a rule is executed again, only
+ * conclusions that depend on statements inferred since the rule's previous
+ * execution are computed (see {@link DeltaQueryBuilder}). Rules that aren't
+ * monotonic, rules executing for the first time, and rules whose delta
+ * exceeds {@link #getMaxDeltaSize()} are evaluated in full. Since the delta
+ * only contains statements inferred through this strategy, semi-naive
+ * evaluation assumes that the underlying data isn't otherwise modified
+ * while forward chaining is in progress.
+ * <p>
+ * Different rules may be executed concurrently: each execution uses its own
+ * SAIL connection, and inferred statements are written to the DAO in batches
+ * of {@link #getWriteBatchSize()}.
  */
 public class SailExecutionStrategy extends AbstractRuleExecutionStrategy {
     private static final Logger logger = Logger.getLogger(SailExecutionStrategy.class);
 
+    /**
+     * Default maximum number of new statements a rule will be evaluated
+     * against semi-naively before falling back to full evaluation.
+     */
+    public static final int DEFAULT_MAX_DELTA_SIZE = 10000;
+
+    /**
+     * Default number of inferred statements to write to the DAO at once.
+     */
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 1000;
+
     private final RdfCloudTripleStoreConfiguration conf;
+    private final boolean semiNaive;
+    private volatile int maxDeltaSize = DEFAULT_MAX_DELTA_SIZE;
+    private volatile int writeBatchSize = DEFAULT_WRITE_BATCH_SIZE;
+
+    // Log of inferred statements; logStart is the absolute position of the
+    // first entry still retained.
+    private final List<Statement> inferred = new ArrayList<>();
+    private long logStart = 0;
+    // Absolute log position at the start of each rule's latest execution
+    private final Map<Rule, Long> watermarks = new HashMap<>();
+    private final Map<Rule, DeltaQueryBuilder> deltaBuilders = new HashMap<>();
 
     private SailRepository repo = null;
-    private SailRepositoryConnection conn = null;
     private RyaDAO<?> dao = null;
-    private boolean initialized = false;
+    private volatile boolean initialized = false;
 
     /**
      * Initialize a SailExecutionStrategy with the given configuration.
      * @param conf Defines Rya connection and query parameters; not null.
      */
     public SailExecutionStrategy(RdfCloudTripleStoreConfiguration conf) {
+        this(conf, true);
+    }
+
+    /**
+     * Initialize a SailExecutionStrategy with the given configuration.
+     * @param conf Defines Rya connection and query parameters; not null.
+     * @param semiNaive Whether to re-execute rules semi-naively, using only
+     *  the statements inferred since their previous execution. Should be
+     *  false if inferences are also written by some other means.
+     */
+    public SailExecutionStrategy(RdfCloudTripleStoreConfiguration conf, boolean semiNaive) {
         Preconditions.checkNotNull(conf);
         this.conf = conf;
+        this.semiNaive = semiNaive;
+    }
+
+    /**
+     * @return The largest number of new statements a rule will be evaluated
+     *  against semi-naively. Larger deltas trigger full evaluation.
+     */
+    public int getMaxDeltaSize() {
+        return maxDeltaSize;
+    }
+
+    /**
+     * Set the largest number of new statements a rule will be evaluated
+     * against semi-naively. Larger deltas trigger full evaluation, and at
+     * most twice this many inferred statements are kept in memory.
+     * @param maxDeltaSize A positive number of statements.
+     */
+    public synchronized void setMaxDeltaSize(int maxDeltaSize) {
+        Preconditions.checkArgument(maxDeltaSize > 0, "Max delta size must be positive");
+        this.maxDeltaSize = maxDeltaSize;
+        trimLog();
+    }
+
+    /**
+     * @return The number of inferred statements written to the DAO at once.
+     */
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    /**
+     * Set the number of inferred statements written to the DAO at once.
+     * @param writeBatchSize A positive number of statements.
+     */
+    public void setWriteBatchSize(int writeBatchSize) {
+        Preconditions.checkArgument(writeBatchSize > 0, "Write batch size must be positive");
+        this.writeBatchSize = writeBatchSize;
     }
 
     /**
@@ -88,7 +181,11 @@ public class SailExecutionStrategy extends AbstractRuleExecutionStrategy {
         Preconditions.checkNotNull(rule);
         Preconditions.checkNotNull(metadata);
         if (!initialized) {
-            initialize();
+            synchronized (this) {
+                if (!initialized) {
+                    initialize();
+                }
+            }
         }
         ParsedGraphQuery graphQuery = rule.getQuery();
         long statementsAdded = 0;
@@ -96,17 +193,112 @@ public class SailExecutionStrategy extends AbstractRuleExecutionStrategy {
         for (String line : graphQuery.getTupleExpr().toString().split("\n")) {
             logger.debug("\t" + line);
         }
-        InferredStatementHandler<?> handler = new InferredStatementHandler<>(dao, metadata);
-        try {
-            GraphQuery executableQuery = new SailGraphQuery(graphQuery, conn) { };
-            executableQuery.evaluate(handler);
+        List<ParsedGraphQuery> queries = getQueries(rule, graphQuery);
+        if (queries.isEmpty()) {
+            logger.info("No new statements match the rule's antecedents.");
+            return 0;
+        }
+        InferredStatementHandler<?> handler = new InferredStatementHandler<>(dao, metadata, writeBatchSize,
+                semiNaive ? getMaxDeltaSize() : 0);
+        try (SailRepositoryConnection conn = repo.getConnection()) {
+            for (ParsedGraphQuery query : queries) {
+                GraphQuery executableQuery = new SailGraphQuery(query, conn) { };
+                executableQuery.evaluate(handler);
+            }
+            handler.flush();
             statementsAdded = handler.getNumStatementsAdded();
+            if (semiNaive && statementsAdded > 0) {
+                // Later delta queries join new statements against the rest
+                // of the store, so these must be visible to the SAIL.
+                dao.flush();
+                if (handler.isOverflowed()) {
+                    skipLog(statementsAdded);
+                }
+                else {
+                    log(handler.getStatementsAdded());
+                }
+            }
             logger.info("Added " + statementsAdded + " inferred statements.");
             return statementsAdded;
         } catch (QueryEvaluationException e) {
             throw new ForwardChainException("Error evaluating query portion of construct rule", e);
         } catch (RDFHandlerException e) {
             throw new ForwardChainException("Error processing results of construct rule", e);
+        } catch (RyaDAOException e) {
+            throw new ForwardChainException("Error writing inferred statements", e);
+        } catch (RepositoryException e) {
+            throw new ForwardChainException("Error connecting to SAIL", e);
+        }
+    }
+
+    /**
+     * Determine which queries to evaluate in order to execute a rule, and
+     * record the start of this execution.
+     * @param rule The rule being executed.
+     * @param graphQuery The rule's full query.
+     * @return Either the full query, or the delta queries covering the
+     *  statements inferred since the rule was last executed.
+     */
+    private synchronized List<ParsedGraphQuery> getQueries(Rule rule, ParsedGraphQuery graphQuery) {
+        if (!semiNaive) {
+            return Collections.singletonList(graphQuery);
+        }
+        long logEnd = logStart + inferred.size();
+        Long previous = watermarks.put(rule, logEnd);
+        try {
+            if (previous == null || previous < logStart || logEnd - previous > maxDeltaSize) {
+                return Collections.singletonList(graphQuery);
+            }
+            DeltaQueryBuilder builder = deltaBuilders.get(rule);
+            if (builder == null) {
+                builder = new DeltaQueryBuilder(graphQuery);
+                deltaBuilders.put(rule, builder);
+            }
+            if (!builder.isSupported()) {
+                return Collections.singletonList(graphQuery);
+            }
+            List<Statement> delta = inferred.subList((int) (previous - logStart), inferred.size());
+            logger.debug("Evaluating rule against " + delta.size() + " new statements");
+            return builder.build(delta);
+        } finally {
+            trimLog();
+        }
+    }
+
+    private synchronized void log(Set<Statement> statements) {
+        inferred.addAll(statements);
+        trimLog();
+    }
+
+    /**
+     * Record that statements were inferred without logging them, because
+     * there were too many. Every rule executed before this point will then
+     * be evaluated in full the next time it is executed.
+     * @param count The number of statements that weren't logged.
+     */
+    private synchronized void skipLog(long count) {
+        logStart += inferred.size() + count;
+        inferred.clear();
+    }
+
+    /**
+     * Discard inferred statements that no rule still needs: those preceding
+     * every rule's latest execution, and those too old to fall within any
+     * delta that would be evaluated semi-naively. Trimming happens in bulk
+     * once the log reaches twice the maximum delta size.
+     */
+    private void trimLog() {
+        long minWatermark = logStart + inferred.size();
+        for (Long watermark : watermarks.values()) {
+            minWatermark = Math.min(minWatermark, watermark);
+        }
+        long newStart = Math.max(logStart, minWatermark);
+        if (inferred.size() >= 2 * maxDeltaSize) {
+            newStart = Math.max(newStart, logStart + inferred.size() - maxDeltaSize);
+        }
+        if (newStart > logStart) {
+            inferred.subList(0, (int) (newStart - logStart)).clear();
+            logStart = newStart;
         }
     }
 
@@ -122,7 +314,7 @@ public class SailExecutionStrategy extends AbstractRuleExecutionStrategy {
                 dao = getDAO();
             }
             repo = new SailRepository(RyaSailFactory.getInstance(conf));
-            conn = repo.getConnection();
+            repo.initialize();
             initialized = true;
         } catch (Exception e) {
             shutDown();
@@ -158,17 +350,26 @@ public class SailExecutionStrategy extends AbstractRuleExecutionStrategy {
     }
 
     /**
-     * Shut down the SAIL connection objects.
+     * Each rule execution uses its own SAIL connection and result handler, so
+     * different rules may be executed concurrently.
+     * @return true
+     */
+    @Override
+    public boolean supportsConcurrentExecution() {
+        return true;
+    }
+
+    /**
+     * Shut down the SAIL repository.
      */
     @Override
     public void shutDown() {
         initialized = false;
-        if (conn != null) {
-            try {
-                conn.close();
-            } catch (RepositoryException e) {
-                logger.warn("Error closing SailRepositoryConnection", e);
-            }
+        synchronized (this) {
+            inferred.clear();
+            logStart = 0;
+            watermarks.clear();
+            deltaBuilders.clear();
         }
         if (repo != null && repo.isInitialized()) {
             try {
@@ -191,33 +392,93 @@ public class SailExecutionStrategy extends AbstractRuleExecutionStrategy {
         private RyaQueryEngine<T> engine;
         private long numStatementsAdded = 0;
         private StatementMetadata metadata;
+        // Statements added during this execution, until there are more than
+        // maxCollected of them
+        private Set<Statement> statementsAdded = new LinkedHashSet<>();
+        private boolean overflowed = false;
+        // Statements are only counted as added once their batch is written
+        private final Map<Statement, RyaStatement> batch = new LinkedHashMap<>();
+        private final int batchSize;
+        private final int maxCollected;
 
-        InferredStatementHandler(RyaDAO<T> dao, StatementMetadata metadata) {
+        InferredStatementHandler(RyaDAO<T> dao, StatementMetadata metadata, int batchSize, int maxCollected) {
             this.dao = dao;
             this.engine = dao.getQueryEngine();
             this.metadata = metadata;
+            this.batchSize = batchSize;
+            this.maxCollected = maxCollected;
             this.engine.setConf(dao.getConf());
         }
 
         @Override
-        public void handleStatement(Statement statement) {
+        public void handleStatement(Statement statement) throws RDFHandlerException {
+            if (statementsAdded.contains(statement) || batch.containsKey(statement)) {
+                // Already produced during this execution
+                return;
+            }
             RyaStatement ryaStatement = RdfToRyaConversions.convertStatement(statement);
             ryaStatement.setStatementMetadata(metadata);
             try {
                 // Need to check whether the statement already exists, because
                 // we need an accurate count of newly added statements.
                 CloseableIterable<RyaStatement> iter = engine.query(new RyaQuery(ryaStatement));
-                if (!iter.iterator().hasNext()) {
-                    dao.add(ryaStatement);
-                    numStatementsAdded++;
+                if (iter.iterator().hasNext()) {
+                    return;
                 }
             } catch (RyaDAOException e) {
                 logger.error("Error handling inferred statement", e);
+                return;
+            }
+            batch.put(statement, ryaStatement);
+            if (batch.size() >= batchSize) {
+                try {
+                    flush();
+                } catch (RyaDAOException e) {
+                    throw new RDFHandlerException("Error writing inferred statements", e);
+                }
+            }
+        }
+
+        /**
+         * Write any buffered statements to the DAO. Statements are only
+         * counted as added once they have been written.
+         * @throws RyaDAOException if the write fails.
+         */
+        public void flush() throws RyaDAOException {
+            if (!batch.isEmpty()) {
+                dao.add(batch.values().iterator());
+                numStatementsAdded += batch.size();
+                if (!overflowed) {
+                    statementsAdded.addAll(batch.keySet());
+                    if (statementsAdded.size() > maxCollected) {
+                        // Too many to evaluate semi-naively; past this point
+                        // only the existence query filters out duplicates.
+                        overflowed = true;
+                        statementsAdded = Collections.emptySet();
+                    }
+                }
+                batch.clear();
             }
         }
 
         public long getNumStatementsAdded() {
             return numStatementsAdded;
         }
+
+        /**
+         * @return The statements added during this execution, unless more
+         *  were added than the handler collects.
+         */
+        public Set<Statement> getStatementsAdded() {
+            return statementsAdded;
+        }
+
+        /**
+         * @return Whether more statements were added than the handler
+         *  collects, in which case they aren't available.
+         */
+        public boolean isOverflowed() {
+            return overflowed;
+        }
     }
 }
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.forwardchain.strategy;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryResults;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.parser.ParsedGraphQuery;
+import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
+import org.eclipse.rdf4j.repository.sail.SailGraphQuery;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeltaQueryBuilderTest {
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final String EX = "http://example.org/";
+    private static final IRI ANCESTOR = VF.createIRI(EX, "ancestor");
+    private static final IRI KNOWS = VF.createIRI(EX, "knows");
+    private static final IRI A = VF.createIRI(EX, "A");
+    private static final IRI B = VF.createIRI(EX, "B");
+    private static final IRI C = VF.createIRI(EX, "C");
+    private static final IRI D = VF.createIRI(EX, "D");
+    private static final IRI E = VF.createIRI(EX, "E");
+
+    private static final String TRANSITIVE = "CONSTRUCT { ?x <" + ANCESTOR + "> ?z } WHERE {\n"
+            + "  ?x <" + ANCESTOR + "> ?y .\n"
+            + "  ?y <" + ANCESTOR + "> ?z .\n"
+            + "}";
+
+    private static ParsedGraphQuery parse(String text) throws Exception {
+        return (ParsedGraphQuery) new SPARQLParser().parseQuery(text, null);
+    }
+
+    private static Set<Statement> evaluate(SailRepositoryConnection conn, ParsedGraphQuery query) throws Exception {
+        return new HashSet<>(QueryResults.asModel(new SailGraphQuery(query, conn) { }.evaluate()));
+    }
+
+    @Test
+    public void testMatch() throws Exception {
+        StatementPattern sp = new StatementPattern(new Var("x"), new Var("p", KNOWS), new Var("x"));
+        Assert.assertNull(DeltaQueryBuilder.match(sp, VF.createStatement(A, KNOWS, B)));
+        Assert.assertNull(DeltaQueryBuilder.match(sp, VF.createStatement(A, ANCESTOR, A)));
+        BindingSet bindings = DeltaQueryBuilder.match(sp, VF.createStatement(A, KNOWS, A));
+        Assert.assertNotNull(bindings);
+        Assert.assertEquals(1, bindings.size());
+        Assert.assertEquals(A, bindings.getValue("x"));
+        StatementPattern contextPattern = new StatementPattern(new Var("x"), new Var("p", KNOWS),
+                new Var("y"), new Var("c"));
+        Assert.assertNull(DeltaQueryBuilder.match(contextPattern, VF.createStatement(A, KNOWS, B)));
+        bindings = DeltaQueryBuilder.match(contextPattern, VF.createStatement(A, KNOWS, B, C));
+        Assert.assertNotNull(bindings);
+        Assert.assertEquals(C, bindings.getValue("c"));
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        Assert.assertTrue(new DeltaQueryBuilder(parse(TRANSITIVE)).isSupported());
+        Assert.assertTrue(new DeltaQueryBuilder(parse("CONSTRUCT { ?x <" + KNOWS + "> ?y } WHERE {\n"
+                + "  { ?x <" + ANCESTOR + "> ?y } UNION { ?y <" + ANCESTOR + "> ?x }\n"
+                + "  FILTER (?x != ?y)\n"
+                + "}")).isSupported());
+        Assert.assertFalse(new DeltaQueryBuilder(parse("CONSTRUCT { ?x <" + KNOWS + "> ?y } WHERE {\n"
+                + "  ?x <" + ANCESTOR + "> ?y .\n"
+                + "  FILTER NOT EXISTS { ?y <" + KNOWS + "> ?x }\n"
+                + "}")).isSupported());
+        Assert.assertFalse(new DeltaQueryBuilder(parse("CONSTRUCT { ?x <" + KNOWS + "> ?y } WHERE {\n"
+                + "  ?x <" + ANCESTOR + "> ?y .\n"
+                + "  OPTIONAL { ?y <" + KNOWS + "> ?z }\n"
+                + "}")).isSupported());
+        Assert.assertFalse(new DeltaQueryBuilder(parse("CONSTRUCT { ?x <" + KNOWS + "> ?y } WHERE {\n"
+                + "  ?x <" + ANCESTOR + ">+ ?y .\n"
+                + "}")).isSupported());
+    }
+
+    @Test
+    public void testNoMatchingStatements() throws Exception {
+        DeltaQueryBuilder builder = new DeltaQueryBuilder(parse(TRANSITIVE));
+        Assert.assertTrue(builder.build(Arrays.asList(VF.createStatement(A, KNOWS, B))).isEmpty());
+    }
+
+    @Test
+    public void testDeltaQueries() throws Exception {
+        SailRepository repo = new SailRepository(new MemoryStore());
+        repo.initialize();
+        try (SailRepositoryConnection conn = repo.getConnection()) {
+            // Chain A -> B -> C -> D -> E, already closed over paths of length two
+            conn.add(VF.createStatement(A, ANCESTOR, B));
+            conn.add(VF.createStatement(B, ANCESTOR, C));
+            conn.add(VF.createStatement(C, ANCESTOR, D));
+            conn.add(VF.createStatement(D, ANCESTOR, E));
+            ParsedGraphQuery query = parse(TRANSITIVE);
+            List<Statement> delta = Arrays.asList(
+                    VF.createStatement(A, ANCESTOR, C),
+                    VF.createStatement(B, ANCESTOR, D),
+                    VF.createStatement(C, ANCESTOR, E));
+            Set<Statement> before = evaluate(conn, query);
+            Assert.assertEquals(new HashSet<>(delta), before);
+            conn.add(delta);
+            // Everything the full query newly derives must come from the delta queries
+            Set<Statement> expected = evaluate(conn, query);
+            expected.removeAll(before);
+            Assert.assertFalse(expected.isEmpty());
+            List<ParsedGraphQuery> deltaQueries = new DeltaQueryBuilder(query).build(delta);
+            Assert.assertEquals(2, deltaQueries.size());
+            Set<Statement> actual = new HashSet<>();
+            for (ParsedGraphQuery deltaQuery : deltaQueries) {
+                actual.addAll(evaluate(conn, deltaQuery));
+            }
+            Assert.assertTrue(actual.containsAll(expected));
+            Assert.assertFalse(actual.contains(VF.createStatement(A, ANCESTOR, B)));
+        } finally {
+            repo.shutDown();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.forwardchain.strategy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.rya.api.domain.StatementMetadata;
+import org.apache.rya.forwardchain.ForwardChainException;
+import org.apache.rya.forwardchain.rule.Rule;
+import org.apache.rya.forwardchain.rule.Ruleset;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelRoundRobinStrategyTest {
+    private static final AbstractRuleExecutionStrategy RULE_STRATEGY = new AbstractRuleExecutionStrategy() {
+        @Override
+        public boolean supportsConcurrentExecution() {
+            return true;
+        }
+    };
+
+    private static StatementPattern sp(String predicate) {
+        return new StatementPattern(new Var("s"), new Var(predicate), new Var("o"));
+    }
+
+    /**
+     * Consumes one pattern and produces another; makes a fixed number of
+     * inferences the first time it's executed, and none after that.
+     */
+    private static class TestRule implements Rule {
+        private final String name;
+        private final StatementPattern consume;
+        private final StatementPattern produce;
+        private final long inferences;
+        private final CyclicBarrier barrier;
+        private final AtomicInteger executions = new AtomicInteger();
+
+        TestRule(String name, String consume, String produce, long inferences, CyclicBarrier barrier) {
+            this.name = name;
+            this.consume = sp(consume);
+            this.produce = sp(produce);
+            this.inferences = inferences;
+            this.barrier = barrier;
+        }
+        @Override
+        public boolean canConclude(StatementPattern sp) {
+            return produce.equals(sp);
+        }
+        @Override
+        public Collection<StatementPattern> getAntecedentPatterns() {
+            return Collections.singleton(consume);
+        }
+        @Override
+        public Collection<StatementPattern> getConsequentPatterns() {
+            return Collections.singleton(produce);
+        }
+        @Override
+        public long execute(AbstractRuleExecutionStrategy strategy,
+                StatementMetadata metadata) throws ForwardChainException {
+            if (executions.getAndIncrement() > 0) {
+                return 0;
+            }
+            if (barrier != null) {
+                try {
+                    // Only succeeds if every rule sharing the barrier runs at once
+                    barrier.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new ForwardChainException("Rules were not executed concurrently", e);
+                }
+            }
+            return inferences;
+        }
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    @Test
+    public void testIndependentRulesRunConcurrently() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        TestRule a = new TestRule("A", "p1", "p2", 5, barrier);
+        TestRule b = new TestRule("B", "p3", "p4", 7, barrier);
+        TestRule c = new TestRule("C", "p5", "p6", 11, barrier);
+        // Depends on A, so must not run alongside it
+        TestRule d = new TestRule("D", "p2", "p7", 13, null);
+        Ruleset ruleset = new Ruleset(Arrays.asList(a, b, c, d));
+        ParallelRoundRobinStrategy strategy = new ParallelRoundRobinStrategy(RULE_STRATEGY, 3);
+        Assert.assertEquals(36, strategy.executeAll(ruleset));
+        Assert.assertFalse(strategy.isActive());
+        Map<Rule, RuleStatistics> stats = strategy.getRuleStatistics();
+        Assert.assertEquals(4, stats.size());
+        for (TestRule rule : Arrays.asList(a, b, c, d)) {
+            Assert.assertEquals(1, rule.executions.get());
+            Assert.assertEquals(1, stats.get(rule).getExecutions());
+            Assert.assertEquals(rule.inferences, stats.get(rule).getInferences());
+        }
+    }
+
+    @Test
+    public void testDependentRulesAreSeparated() throws Exception {
+        TestRule a = new TestRule("A", "p1", "p2", 1, null);
+        TestRule b = new TestRule("B", "p2", "p3", 1, null);
+        TestRule c = new TestRule("C", "p3", "p1", 1, null);
+        TestRule d = new TestRule("D", "p4", "p5", 1, null);
+        ParallelRoundRobinStrategy strategy = new ParallelRoundRobinStrategy(RULE_STRATEGY, 4);
+        strategy.initialize(new Ruleset(Arrays.asList(a, b, c, d)));
+        List<Rule> group = strategy.getNextRules();
+        // Any two of A, B, and C depend on each other, so only one can be chosen
+        Assert.assertEquals(2, group.size());
+        Assert.assertTrue(group.contains(d));
+        strategy.setDone();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequiresConcurrentRuleStrategy() throws Exception {
+        new ParallelRoundRobinStrategy(new AbstractRuleExecutionStrategy() { }, 2);
+    }
+}
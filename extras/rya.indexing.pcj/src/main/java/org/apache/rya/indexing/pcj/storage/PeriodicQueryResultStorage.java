@@ -106,6 +106,16 @@ public interface PeriodicQueryResultStorage {
      */
     public CloseableIterator<BindingSet> listResults(String queryId, Optional<Long> binID) throws PeriodicQueryStorageException;
 
+    /**
+     * List the results of several bins in the storage layer indicated by the query id using a single scan.
+     * Results are not guaranteed to be grouped or ordered by bin.
+     * @param queryId - id indicating the storage layer whose results will be listed
+     * @param binIds - ids of the bins whose results will be listed
+     * @return - iterator over the results of all of the indicated bins
+     * @throws PeriodicQueryStorageException
+     */
+    public CloseableIterator<BindingSet> listResults(String queryId, Collection<Long> binIds) throws PeriodicQueryStorageException;
+
     /**
      * List all storage tables containing periodic results.
      * @return List of Strings with names of all tables containing periodic results
@@ -20,20 +20,28 @@ package org.apache.rya.indexing.pcj.storage.accumulo;
 
 import static java.util.Objects.requireNonNull;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.BatchDeleter;
+import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.BatchWriterConfig;
 import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.admin.CompactionConfig;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.hadoop.io.Text;
@@ -44,6 +52,8 @@ import org.apache.rya.indexing.pcj.storage.PeriodicQueryResultStorage;
 import org.apache.rya.indexing.pcj.storage.PeriodicQueryStorageException;
 import org.apache.rya.indexing.pcj.storage.PeriodicQueryStorageMetadata;
 import org.apache.rya.indexing.pcj.storage.accumulo.BindingSetConverter.BindingSetConversionException;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
@@ -51,7 +61,10 @@ import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.MalformedQueryException;
 import org.eclipse.rdf4j.query.algebra.AbstractAggregateOperator;
 import org.eclipse.rdf4j.query.algebra.ExtensionElem;
+import org.eclipse.rdf4j.query.algebra.FunctionCall;
 import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.ValueExpr;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
 import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
 import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
@@ -61,6 +74,21 @@ import com.google.common.base.Preconditions;
 /**
  * This class is the Accumulo implementation of {@link PeriodicQueryResultStorage} for
  * creating, deleting, and interacting with tables where PeriodicQuery results are stored.
+ * <p>
+ * By default {@link #deletePeriodicQueryResults(String, long)} deletes the results of a bin
+ * with a {@link BatchDeleter}. If a bin expiry is configured, a {@link PeriodicBinFilter} is
+ * attached to each result table instead, and deleting a bin writes no mutations: the bin's
+ * results are hidden from scans once it is older than the expiry and are removed from the
+ * table by compactions. If a compaction interval is also configured, deleting bins
+ * periodically starts a compaction of the range of the table holding the expired bins so
+ * that their space is reclaimed without waiting for a major compaction. Bin expiry requires
+ * the {@link PeriodicBinFilter} class to be on the classpath of the tablet servers.
+ * <p>
+ * The filter drops a bin once its id, the end of its window, is older than the expiry by the
+ * wall clock, whether or not the bin has been exported. A bin may be written to for up to a
+ * window and a period before it is reported, and its export may lag behind by another period,
+ * so the expiry must be at least {@link #getMinBinExpiryMillis(String)} for every periodic
+ * query. Queries whose bins could expire before they are exported are rejected.
  */
 public class AccumuloPeriodicQueryResultStorage implements PeriodicQueryResultStorage {
 
@@ -71,6 +99,13 @@ public class AccumuloPeriodicQueryResultStorage implements PeriodicQueryResultSt
     private final AccumuloPcjSerializer converter = new AccumuloPcjSerializer();
     private static final PcjTables pcjTables = new PcjTables();
     private static final PeriodicQueryTableNameFactory tableNameFactory = new PeriodicQueryTableNameFactory();
+    public static final String BIN_FILTER_NAME = "periodicBinFilter";
+    private static final int BIN_FILTER_PRIORITY = 25;
+    private final Optional<Duration> binExpiry;
+    private final Optional<Duration> compactionInterval;
+    private final Set<String> binFilterTables = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> lastCompactions = new ConcurrentHashMap<>();
+    private static final int MAX_QUERY_THREADS = 4;
 
     /**
      * Creates a AccumuloPeriodicQueryResultStorage Object.
@@ -78,8 +113,24 @@ public class AccumuloPeriodicQueryResultStorage implements PeriodicQueryResultSt
      * @param ryaInstance - Rya Instance name for connecting to Rya
      */
     public AccumuloPeriodicQueryResultStorage(final Connector accumuloConn, final String ryaInstance) {
+        this(accumuloConn, ryaInstance, Optional.empty(), Optional.empty());
+    }
+
+    /**
+     * Creates a AccumuloPeriodicQueryResultStorage Object.
+     * @param accumuloConn - Accumulo Connector for connecting to an Accumulo instance
+     * @param ryaInstance - Rya Instance name for connecting to Rya
+     * @param binExpiry - if present, bins are dropped by a {@link PeriodicBinFilter} this long after their bin id,
+     *   whether or not they were exported, instead of being deleted
+     * @param compactionInterval - if present along with binExpiry, the minimum time between compactions of
+     *   the expired bins of a table
+     */
+    public AccumuloPeriodicQueryResultStorage(final Connector accumuloConn, final String ryaInstance, final Optional<Duration> binExpiry,
+            final Optional<Duration> compactionInterval) {
         this.accumuloConn = Preconditions.checkNotNull(accumuloConn);
         this.ryaInstance = Preconditions.checkNotNull(ryaInstance);
+        this.binExpiry = Preconditions.checkNotNull(binExpiry);
+        this.compactionInterval = Preconditions.checkNotNull(compactionInterval);
         final String user = accumuloConn.whoami();
         try {
             this.auths = accumuloConn.securityOperations().getUserAuthorizations(user);
@@ -120,13 +171,50 @@ public class AccumuloPeriodicQueryResultStorage implements PeriodicQueryResultSt
         final String tableName = tableNameFactory.makeTableName(ryaInstance, queryId);
         final Set<VariableOrder> varOrders = new HashSet<>();
         varOrders.add(order);
+        if (binExpiry.isPresent()) {
+            checkBinExpiry(queryId, sparql);
+        }
         try {
             pcjTables.createPcjTable(accumuloConn, tableName, varOrders, sparql);
+            if (binExpiry.isPresent()) {
+                attachBinFilter(tableName);
+            }
         } catch (final Exception e) {
             throw new PeriodicQueryStorageException(e.getMessage());
         }
     }
 
+    /**
+     * @throws PeriodicQueryStorageException The bins of the query could expire before they are exported.
+     */
+    private void checkBinExpiry(final String queryId, final String sparql) throws PeriodicQueryStorageException {
+        final long minExpiry;
+        try {
+            minExpiry = getMinBinExpiryMillis(sparql);
+        } catch (final MalformedQueryException | IllegalArgumentException e) {
+            throw new PeriodicQueryStorageException("Could not read the periodic function of query " + queryId, e);
+        }
+        if (binExpiry.get().toMillis() < minExpiry) {
+            throw new PeriodicQueryStorageException("The bin expiry of " + binExpiry.get().toMillis() + " ms is shorter than the "
+                    + minExpiry + " ms needed to export the bins of periodic query " + queryId
+                    + ", so its bins could be dropped before they are exported.");
+        }
+    }
+
+    /**
+     * @param sparql - A periodic query. (not null)
+     * @return The window plus twice the period of the query's periodic function, the shortest bin
+     *   expiry that gives each bin a period to be exported after it is reported, or 0 if the query
+     *   has no periodic function.
+     * @throws MalformedQueryException The query could not be parsed.
+     * @throws IllegalArgumentException The arguments of the periodic function are malformed.
+     */
+    static long getMinBinExpiryMillis(final String sparql) throws MalformedQueryException {
+        final PeriodicFunctionReader reader = new PeriodicFunctionReader();
+        new SPARQLParser().parseQuery(sparql, null).getTupleExpr().visit(reader);
+        return reader.found ? reader.windowMillis + 2 * reader.periodMillis : 0;
+    }
+
     @Override
     public PeriodicQueryStorageMetadata getPeriodicQueryMetadata(final String queryId) throws PeriodicQueryStorageException {
         try {
@@ -151,6 +239,10 @@ public class AccumuloPeriodicQueryResultStorage implements PeriodicQueryResultSt
     @Override
     public void deletePeriodicQueryResults(final String queryId, final long binId) throws PeriodicQueryStorageException {
         final String tableName = tableNameFactory.makeTableName(ryaInstance, queryId);
+        if (binExpiry.isPresent()) {
+            expireBins(queryId, tableName);
+            return;
+        }
         BatchDeleter deleter = null;
         try {
             final Text prefix = getRowPrefix(binId);
@@ -170,6 +262,45 @@ public class AccumuloPeriodicQueryResultStorage implements PeriodicQueryResultSt
         }
     }
 
+    /**
+     * Makes sure that the bin filter is attached to the table and, if the compaction interval
+     * has passed since the table was last compacted, compacts the range of the table that holds
+     * the expired bins.
+     */
+    private void expireBins(final String queryId, final String tableName) throws PeriodicQueryStorageException {
+        if (!binFilterTables.contains(tableName)) {
+            // The table may have been created before bins were set to expire.
+            checkBinExpiry(queryId, getPeriodicQueryMetadata(queryId).getSparql());
+        }
+        try {
+            if (!binFilterTables.contains(tableName)) {
+                attachBinFilter(tableName);
+            }
+            if (compactionInterval.isPresent()) {
+                final long now = System.currentTimeMillis();
+                final Long last = lastCompactions.putIfAbsent(tableName, now);
+                if (last != null && now - last >= compactionInterval.get().toMillis() && lastCompactions.replace(tableName, last, now)) {
+                    final CompactionConfig config = new CompactionConfig()
+                            .setEndRow(getRowPrefix(now - binExpiry.get().toMillis()))
+                            .setFlush(true)
+                            .setWait(false);
+                    accumuloConn.tableOperations().compact(tableName, config);
+                }
+            }
+        } catch (final Exception e) {
+            throw new PeriodicQueryStorageException(e.getMessage());
+        }
+    }
+
+    private void attachBinFilter(final String tableName) throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
+        if (!accumuloConn.tableOperations().listIterators(tableName).containsKey(BIN_FILTER_NAME)) {
+            final IteratorSetting setting = new IteratorSetting(BIN_FILTER_PRIORITY, BIN_FILTER_NAME, PeriodicBinFilter.class);
+            PeriodicBinFilter.setTtl(setting, binExpiry.get().toMillis());
+            accumuloConn.tableOperations().attachIterator(tableName, setting);
+        }
+        binFilterTables.add(tableName);
+    }
+
     public void deletePeriodicQueryResults(final String queryId) throws PeriodicQueryStorageException {
         try {
             pcjTables.purgePcjTable(accumuloConn, tableNameFactory.makeTableName(ryaInstance, queryId));
@@ -215,6 +346,30 @@ public class AccumuloPeriodicQueryResultStorage implements PeriodicQueryResultSt
         }
     }
 
+    @Override
+    public CloseableIterator<BindingSet> listResults(final String queryId, final Collection<Long> binIds)
+            throws PeriodicQueryStorageException {
+        requireNonNull(queryId);
+        Preconditions.checkArgument(!binIds.isEmpty(), "At least one bin id must be specified.");
+
+        final String tableName = tableNameFactory.makeTableName(ryaInstance, queryId);
+        final VariableOrder varOrder = getPeriodicQueryMetadata(queryId).getVariableOrder();
+
+        try {
+            final List<Range> ranges = new ArrayList<>();
+            for (final Long binId : new HashSet<>(binIds)) {
+                ranges.add(Range.prefix(getRowPrefix(binId)));
+            }
+            final BatchScanner scanner = accumuloConn.createBatchScanner(tableName, auths, Math.min(ranges.size(), MAX_QUERY_THREADS));
+            scanner.fetchColumnFamily(new Text(varOrder.toString()));
+            scanner.setRanges(ranges);
+            return new AccumuloValueBindingSetIterator(scanner);
+
+        } catch (final Exception e) {
+            throw new PeriodicQueryStorageException(String.format("PCJ Table does not exist for name '%s'.", tableName), e);
+        }
+    }
+
     private Text getRowPrefix(final long binId) throws BindingSetConversionException {
         final ValueFactory vf = SimpleValueFactory.getInstance();
         final QueryBindingSet bs = new QueryBindingSet();
@@ -249,6 +404,55 @@ public class AccumuloPeriodicQueryResultStorage implements PeriodicQueryResultSt
         return periodicTables;
     }
 
+    /**
+     * Reads the window and period of the periodic function of a query, in milliseconds.
+     */
+    static class PeriodicFunctionReader extends AbstractQueryModelVisitor<RuntimeException> {
+        private static final String PERIODIC_FUNCTION = "http://org.apache.rya/function#periodic";
+        private static final String TIME_NAMESPACE = "http://www.w3.org/2006/time#";
+
+        private boolean found = false;
+        private long windowMillis;
+        private long periodMillis;
+
+        @Override
+        public void meet(final FunctionCall node) {
+            if (!PERIODIC_FUNCTION.equals(node.getURI())) {
+                super.meet(node);
+                return;
+            }
+            final List<ValueExpr> args = node.getArgs();
+            Preconditions.checkArgument(args.size() == 4, "The periodic function takes four arguments.");
+            final long unitMillis = getUnitMillis(args.get(3));
+            windowMillis = (long) (getDuration(args.get(1)) * unitMillis);
+            periodMillis = (long) (getDuration(args.get(2)) * unitMillis);
+            found = true;
+        }
+
+        private static double getDuration(final ValueExpr arg) {
+            Preconditions.checkArgument(arg instanceof ValueConstant && ((ValueConstant) arg).getValue() instanceof Literal,
+                    "The window and period of the periodic function must be literals.");
+            return ((Literal) ((ValueConstant) arg).getValue()).doubleValue();
+        }
+
+        private static long getUnitMillis(final ValueExpr arg) {
+            Preconditions.checkArgument(arg instanceof ValueConstant && ((ValueConstant) arg).getValue() instanceof IRI,
+                    "The time unit of the periodic function must be an IRI.");
+            final IRI unit = (IRI) ((ValueConstant) arg).getValue();
+            Preconditions.checkArgument(TIME_NAMESPACE.equals(unit.getNamespace()), "Invalid time unit for the periodic function.");
+            switch (unit.getLocalName()) {
+                case "days":
+                    return TimeUnit.DAYS.toMillis(1);
+                case "hours":
+                    return TimeUnit.HOURS.toMillis(1);
+                case "minutes":
+                    return TimeUnit.MINUTES.toMillis(1);
+                default:
+                    throw new IllegalArgumentException("Invalid time unit for the periodic function.");
+            }
+        }
+    }
+
     /**
      * Class for removing any aggregate variables from the ProjectionElementList
      * of the parsed SPARQL queries. This ensures that only non-aggregation
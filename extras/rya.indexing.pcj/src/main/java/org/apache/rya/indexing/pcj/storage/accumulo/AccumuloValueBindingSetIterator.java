@@ -21,7 +21,7 @@ package org.apache.rya.indexing.pcj.storage.accumulo;
 import java.util.Iterator;
 import java.util.Map.Entry;
 
-import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.fluo.api.data.Bytes;
@@ -35,11 +35,11 @@ import org.eclipse.rdf4j.query.BindingSet;
  */
 public class AccumuloValueBindingSetIterator implements CloseableIterator<BindingSet>{
 
-    private final Scanner scanner;
+    private final ScannerBase scanner;
     private final Iterator<Entry<Key, Value>> iter;
     private final VisibilityBindingSetSerDe bsSerDe = new VisibilityBindingSetSerDe();
 
-    public AccumuloValueBindingSetIterator(Scanner scanner) {
+    public AccumuloValueBindingSetIterator(ScannerBase scanner) {
         this.scanner = scanner;
         iter = scanner.iterator();
     }
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.indexing.pcj.storage.accumulo;
+
+import static org.apache.rya.api.RdfCloudTripleStoreConstants.DELIM_BYTE;
+import static org.apache.rya.api.RdfCloudTripleStoreConstants.TYPE_DELIM_BYTE;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.rya.api.resolver.impl.LongRyaTypeResolver;
+import org.calrissian.mango.types.exception.TypeDecodingException;
+
+/**
+ * Removes the results of expired bins from a periodic query result table.
+ * <p>
+ * The rows of a periodic query result table start with the periodic bin id,
+ * which is the end time of the bin's window in milliseconds. This filter
+ * decodes that id from the row and drops the entries of bins whose id is more
+ * than {@link #TTL_PROP} milliseconds before the current time. Bins are dropped
+ * by the wall clock alone, whether or not they have been exported, so the ttl
+ * must leave enough time to export every bin; see
+ * {@link AccumuloPeriodicQueryResultStorage}.
+ * Rows that do not start with a bin id, such as the table's metadata row, are
+ * always kept. Attached to a table it hides expired bins from scans and removes
+ * them during compactions, so bins do not need to be deleted with mutations.
+ */
+public class PeriodicBinFilter extends Filter {
+    public static final String TTL_PROP = "ttl";
+    public static final String CURRENT_TIME_PROP = "currentTime";
+
+    private static final byte LONG_MARKER = (byte) LongRyaTypeResolver.LONG_LITERAL_MARKER;
+
+    private long expiredBefore = Long.MIN_VALUE;
+
+    // The entries of a row are read together, so the decision for the last row is reused.
+    private byte[] lastRow = new byte[0];
+    private boolean lastAccepted = true;
+
+    /**
+     * Configures the filter to remove bins whose id is more than ttl milliseconds ago.
+     * @param setting - iterator setting to configure
+     * @param ttlMillis - number of milliseconds a bin is kept after its id
+     */
+    public static void setTtl(final IteratorSetting setting, final long ttlMillis) {
+        setting.addOption(TTL_PROP, Long.toString(ttlMillis));
+    }
+
+    @Override
+    public void init(final SortedKeyValueIterator<Key, Value> source, final Map<String, String> options, final IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        expiredBefore = getExpiredBefore(options);
+    }
+
+    private static long getExpiredBefore(final Map<String, String> options) {
+        if (!options.containsKey(TTL_PROP)) {
+            throw new IllegalArgumentException("ttl must be set for PeriodicBinFilter");
+        }
+        final long ttl = Long.parseLong(options.get(TTL_PROP));
+        final long currentTime = options.containsKey(CURRENT_TIME_PROP) ? Long.parseLong(options.get(CURRENT_TIME_PROP)) : System.currentTimeMillis();
+        return currentTime - ttl;
+    }
+
+    @Override
+    public boolean accept(final Key k, final Value v) {
+        final ByteSequence row = k.getRowData();
+        if (!equalsLastRow(row)) {
+            lastRow = row.toArray();
+            lastAccepted = isKept(lastRow);
+        }
+        return lastAccepted;
+    }
+
+    private boolean equalsLastRow(final ByteSequence row) {
+        if (row.length() != lastRow.length) {
+            return false;
+        }
+        for (int i = row.length() - 1; i >= 0; i--) {
+            if (row.byteAt(i) != lastRow[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isKept(final byte[] row) {
+        final Long binId = getBinId(row);
+        return binId == null || binId >= expiredBefore;
+    }
+
+    /**
+     * Decodes the periodic bin id that a periodic query result row starts with.
+     * @param row - row of a periodic query result table
+     * @return the bin id, or null if the row does not start with a bin id
+     */
+    static Long getBinId(final byte[] row) {
+        // the first value is written as: lexicoded long, type delimiter, long type marker, value delimiter
+        int typeDelim = -1;
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] == TYPE_DELIM_BYTE) {
+                typeDelim = i;
+                break;
+            } else if (row[i] == DELIM_BYTE) {
+                return null;
+            }
+        }
+        if (typeDelim < 1 || typeDelim + 2 >= row.length || row[typeDelim + 1] != LONG_MARKER || row[typeDelim + 2] != DELIM_BYTE) {
+            return null;
+        }
+        try {
+            return LongRyaTypeResolver.LONG_STRING_TYPE_ENCODER.decode(new String(Arrays.copyOf(row, typeDelim), StandardCharsets.UTF_8));
+        } catch (final TypeDecodingException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(final IteratorEnvironment env) {
+        final PeriodicBinFilter copy = (PeriodicBinFilter) super.deepCopy(env);
+        copy.expiredBefore = expiredBefore;
+        return copy;
+    }
+
+    @Override
+    public IteratorOptions describeOptions() {
+        final Map<String, String> options = new TreeMap<>();
+        options.put(TTL_PROP, "remove bins whose id is more than this many milliseconds before the current time");
+        options.put(CURRENT_TIME_PROP, "if set, use the given value as the current time in milliseconds instead of the system time");
+        return new IteratorOptions("periodicBinFilter", "PeriodicBinFilter removes the results of expired periodic query bins", options, null);
+    }
+
+    @Override
+    public boolean validateOptions(final Map<String, String> options) {
+        if (!super.validateOptions(options)) {
+            return false;
+        }
+        try {
+            getExpiredBefore(options);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("ttl and currentTime must be longs", e);
+        }
+        return true;
+    }
+}
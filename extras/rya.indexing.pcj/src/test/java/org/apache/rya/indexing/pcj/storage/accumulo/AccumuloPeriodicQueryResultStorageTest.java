@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.indexing.pcj.storage.accumulo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.rya.indexing.pcj.storage.PeriodicQueryStorageException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests how {@link AccumuloPeriodicQueryResultStorage} checks the bin expiry of periodic queries.
+ */
+public class AccumuloPeriodicQueryResultStorageTest {
+    private static final String PERIODIC_SPARQL = "prefix function: <http://org.apache.rya/function#> "
+            + "prefix time: <http://www.w3.org/2006/time#> "
+            + "select ?id (count(?obs) as ?total) where {"
+            + "Filter(function:periodic(?time, 2, .5, time:hours)) "
+            + "?obs <uri:hasTime> ?time. "
+            + "?obs <uri:hasId> ?id } group by ?id";
+
+    // A two hour window and a half hour period.
+    private static final long MIN_EXPIRY = Duration.ofHours(3).toMillis();
+
+    private Connector connector;
+
+    @Before
+    public void setUp() throws Exception {
+        connector = new MockInstance("AccumuloPeriodicQueryResultStorageTest").getConnector("root", new byte[0]);
+    }
+
+    @Test
+    public void getMinBinExpiryMillis() throws Exception {
+        assertEquals(MIN_EXPIRY, AccumuloPeriodicQueryResultStorage.getMinBinExpiryMillis(PERIODIC_SPARQL));
+        assertEquals(0, AccumuloPeriodicQueryResultStorage.getMinBinExpiryMillis("select ?x where { ?x <uri:p> ?y }"));
+    }
+
+    @Test
+    public void createWithLongEnoughExpiry() throws Exception {
+        final AccumuloPeriodicQueryResultStorage storage = new AccumuloPeriodicQueryResultStorage(connector, "rya_long_",
+                Optional.of(Duration.ofMillis(MIN_EXPIRY)), Optional.empty());
+        final String queryId = storage.createPeriodicQuery(PERIODIC_SPARQL);
+        assertTrue(storage.listPeriodicTables().contains(new PeriodicQueryTableNameFactory().makeTableName("rya_long_", queryId)));
+    }
+
+    @Test(expected = PeriodicQueryStorageException.class)
+    public void rejectsShortExpiry() throws Exception {
+        final AccumuloPeriodicQueryResultStorage storage = new AccumuloPeriodicQueryResultStorage(connector, "rya_short_",
+                Optional.of(Duration.ofMillis(MIN_EXPIRY - 1)), Optional.empty());
+        storage.createPeriodicQuery(PERIODIC_SPARQL);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.indexing.pcj.storage.accumulo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.hadoop.io.Text;
+import org.apache.rya.indexing.pcj.storage.PeriodicQueryResultStorage;
+import org.apache.rya.indexing.pcj.storage.accumulo.BindingSetConverter.BindingSetConversionException;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link PeriodicBinFilter}.
+ */
+public class PeriodicBinFilterTest {
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final VariableOrder VAR_ORDER = new VariableOrder(PeriodicQueryResultStorage.PeriodicBinId, "x");
+
+    @Test
+    public void getBinId() throws BindingSetConversionException {
+        assertEquals(Long.valueOf(123456789L), PeriodicBinFilter.getBinId(makeRow(123456789L, "http://a")));
+        assertEquals(Long.valueOf(0L), PeriodicBinFilter.getBinId(makeRow(0L, "http://a")));
+    }
+
+    @Test
+    public void getBinId_notABinRow() throws BindingSetConversionException {
+        assertNull(PeriodicBinFilter.getBinId("pcjMetadata".getBytes()));
+        assertNull(PeriodicBinFilter.getBinId(new byte[0]));
+
+        // A row whose first value is not a long.
+        final MapBindingSet bs = new MapBindingSet();
+        bs.addBinding(PeriodicQueryResultStorage.PeriodicBinId, VF.createIRI("http://a"));
+        assertNull(PeriodicBinFilter.getBinId(new AccumuloPcjSerializer().convert(bs, VAR_ORDER)));
+    }
+
+    @Test
+    public void filtersExpiredBins() throws Exception {
+        final TreeMap<Key, Value> table = new TreeMap<>();
+        final String family = VAR_ORDER.toString();
+        table.put(new Key(new Text(makeRow(1000L, "http://a")), new Text(family)), new Value(new byte[0]));
+        table.put(new Key(new Text(makeRow(1000L, "http://b")), new Text(family)), new Value(new byte[0]));
+        table.put(new Key(new Text(makeRow(2000L, "http://a")), new Text(family)), new Value(new byte[0]));
+        table.put(new Key(new Text(makeRow(3000L, "http://a")), new Text(family)), new Value(new byte[0]));
+        table.put(new Key(new Text("pcjMetadata"), new Text("metadata")), new Value(new byte[0]));
+
+        final Map<String, String> options = new HashMap<>();
+        options.put(PeriodicBinFilter.TTL_PROP, "1500");
+        options.put(PeriodicBinFilter.CURRENT_TIME_PROP, "3500");
+
+        final PeriodicBinFilter filter = new PeriodicBinFilter();
+        filter.init(new SortedMapIterator(table), options, null);
+        filter.seek(new Range(), Collections.<ByteSequence>emptySet(), false);
+
+        final Map<Long, Integer> binCounts = new HashMap<>();
+        boolean sawMetadata = false;
+        while (filter.hasTop()) {
+            final Long binId = PeriodicBinFilter.getBinId(filter.getTopKey().getRow().copyBytes());
+            if (binId == null) {
+                sawMetadata = true;
+            } else {
+                binCounts.merge(binId, 1, Integer::sum);
+            }
+            filter.next();
+        }
+
+        assertTrue(sawMetadata);
+        assertFalse(binCounts.containsKey(1000L));
+        assertEquals(Integer.valueOf(1), binCounts.get(2000L));
+        assertEquals(Integer.valueOf(1), binCounts.get(3000L));
+    }
+
+    private static byte[] makeRow(final long binId, final String x) throws BindingSetConversionException {
+        final MapBindingSet bs = new MapBindingSet();
+        bs.addBinding(PeriodicQueryResultStorage.PeriodicBinId, VF.createLiteral(Long.toString(binId), XMLSchema.LONG));
+        bs.addBinding("x", VF.createIRI(x));
+        return new AccumuloPcjSerializer().convert(bs, VAR_ORDER);
+    }
+}
@@ -45,6 +45,7 @@ public class StatementPatternIdCache {
     private final ReentrantLock lock = new ReentrantLock();
     private static Optional<String> HASH = Optional.empty();
     private static Set<String> IDS = new HashSet<>();
+    private static StatementPatternIndex INDEX = StatementPatternIndex.empty();
 
     /**
      * This method retrieves the StatementPattern NodeIds registered in the Fluo table.
@@ -77,13 +78,40 @@ public class StatementPatternIdCache {
         return IDS;
     }
 
+    /**
+     * Retrieves an index over the StatementPatterns registered in the Fluo table. The index is rebuilt
+     * whenever {@link StatementPatternIdCache#getStatementPatternIds(TransactionBase)} picks up a new set of
+     * nodeIds, so it stays in sync as PCJs are registered and deleted.  This method is thread safe.
+     * @param tx
+     * @param metadata - Used to read the metadata of newly registered StatementPatterns
+     * @return - Index of the registered StatementPatterns
+     */
+    public StatementPatternIndex getStatementPatternIndex(TransactionBase tx, FluoQueryMetadataCache metadata) {
+        checkNotNull(metadata);
+        Set<String> ids = getStatementPatternIds(tx);
+        StatementPatternIndex index = INDEX;
+        if (index.isBuiltFrom(ids)) {
+            return index;
+        }
+        lock.lock();
+        try {
+            if (!INDEX.isBuiltFrom(ids)) {
+                INDEX = StatementPatternIndex.build(ids, id -> metadata.readStatementPatternMetadata(tx, id));
+            }
+            return INDEX;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Clears contexts of cache so that it will be re-populated next time
      * {@link StatementPatternIdCache#getStatementPatternIds(TransactionBase)} is called.
      */
     public void clear() {
         HASH = Optional.empty();
-        IDS.clear();
+        IDS = new HashSet<>();
+        INDEX = StatementPatternIndex.empty();
     }
 
 }
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.indexing.pcj.fluo.app.query;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.rya.indexing.pcj.fluo.app.IncrementalUpdateConstants.DELIM;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.rya.api.domain.VarNameUtils;
+import org.apache.rya.indexing.pcj.storage.accumulo.VariableOrder;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import net.jcip.annotations.Immutable;
+
+/**
+ * An in memory index of the Statement Patterns of the queries maintained by the Fluo
+ * application, so the TripleObserver only considers the patterns a new triple can match.
+ * <p>
+ * Each pattern is parsed once and filed under one of its constants: the predicate if it is
+ * bound, otherwise the object, otherwise the subject. Patterns without constants go into a
+ * wildcard bucket. A triple is looked up under each of its three values plus the wildcard
+ * bucket, and the candidates are then matched against all of their constants.
+ */
+@Immutable
+@DefaultAnnotation(NonNull.class)
+public class StatementPatternIndex {
+    private static final int SUBJECT = 0;
+    private static final int PREDICATE = 1;
+    private static final int OBJECT = 2;
+
+    private final Set<String> source;
+    private final List<Map<String, List<IndexedPattern>>> byConstant;
+    private final List<IndexedPattern> wildcard;
+    private final int size;
+
+    private StatementPatternIndex(final Set<String> source, final List<Map<String, List<IndexedPattern>>> byConstant,
+            final List<IndexedPattern> wildcard, final int size) {
+        this.source = source;
+        this.byConstant = byConstant;
+        this.wildcard = wildcard;
+        this.size = size;
+    }
+
+    /**
+     * Indexes a set of Statement Patterns.
+     *
+     * @param ids - The nodeIds of the Statement Patterns to index. (not null)
+     * @param metadata - Reads the metadata of a Statement Pattern. (not null)
+     * @return The index of the patterns.
+     * @throws RuntimeException The metadata of a pattern could not be read. No index is built, so the
+     *   transaction that needs it fails and is retried instead of missing the pattern.
+     */
+    public static StatementPatternIndex build(final Set<String> ids, final Function<String, StatementPatternMetadata> metadata) {
+        checkNotNull(ids);
+        checkNotNull(metadata);
+
+        final List<Map<String, List<IndexedPattern>>> byConstant = new ArrayList<>(3);
+        for (int i = 0; i < 3; i++) {
+            byConstant.add(new HashMap<>());
+        }
+        final List<IndexedPattern> wildcard = new ArrayList<>();
+        int size = 0;
+
+        for (final String id : ids) {
+            if (id.isEmpty()) {
+                continue;
+            }
+            final IndexedPattern pattern = new IndexedPattern(metadata.apply(id));
+
+            final int position = pattern.constants[PREDICATE] != null ? PREDICATE
+                    : pattern.constants[OBJECT] != null ? OBJECT
+                    : pattern.constants[SUBJECT] != null ? SUBJECT
+                    : -1;
+            if (position == -1) {
+                wildcard.add(pattern);
+            } else {
+                byConstant.get(position).computeIfAbsent(pattern.constants[position], k -> new ArrayList<>()).add(pattern);
+            }
+            size++;
+        }
+        return new StatementPatternIndex(ids, byConstant, wildcard, size);
+    }
+
+    /**
+     * @param triple - The string representation of a triple, as created by
+     *   {@link org.apache.rya.indexing.pcj.fluo.app.IncUpdateDAO#getTripleString(org.apache.rya.api.domain.RyaStatement)}. (not null)
+     * @return The subject, predicate, and object of the triple.
+     */
+    public static String[] splitTriple(final String triple) {
+        final String[] tripleArray = triple.split(DELIM);
+        if (tripleArray.length != 3) {
+            throw new IllegalArgumentException("Invald number of components");
+        }
+        return tripleArray;
+    }
+
+    /**
+     * @param triple - The subject, predicate, and object of a triple. (not null)
+     * @return The indexed patterns the triple matches.
+     */
+    public List<IndexedPattern> match(final String[] triple) {
+        final List<IndexedPattern> matches = new ArrayList<>();
+        for (int position = 0; position < 3; position++) {
+            final List<IndexedPattern> candidates = byConstant.get(position).get(triple[position]);
+            if (candidates != null) {
+                addMatches(candidates, triple, matches);
+            }
+        }
+        addMatches(wildcard, triple, matches);
+        return matches;
+    }
+
+    private static void addMatches(final List<IndexedPattern> candidates, final String[] triple, final List<IndexedPattern> matches) {
+        for (final IndexedPattern candidate : candidates) {
+            if (candidate.matches(triple)) {
+                matches.add(candidate);
+            }
+        }
+    }
+
+    /**
+     * @param ids - A set of Statement Pattern nodeIds.
+     * @return {@code true} if this index was built from that very set.
+     */
+    public boolean isBuiltFrom(final Set<String> ids) {
+        return source == ids;
+    }
+
+    /**
+     * @return The number of indexed Statement Patterns.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return An index without any patterns.
+     */
+    public static StatementPatternIndex empty() {
+        return build(Collections.emptySet(), id -> null);
+    }
+
+    /**
+     * A Statement Pattern that has been parsed for matching.
+     */
+    @Immutable
+    public static final class IndexedPattern {
+        private final String nodeId;
+        private final VariableOrder varOrder;
+        private final String[] constants = new String[3];
+        private final String[] varNames = new String[3];
+
+        /**
+         * @param metadata - The metadata of the Statement Pattern. (not null)
+         */
+        public IndexedPattern(final StatementPatternMetadata metadata) {
+            nodeId = metadata.getNodeId();
+            varOrder = metadata.getVariableOrder();
+            final String[] patternArray = metadata.getStatementPattern().split(DELIM);
+            if (patternArray.length != 3) {
+                throw new IllegalArgumentException("Invald number of components");
+            }
+            for (int i = 0; i < 3; i++) {
+                if (VarNameUtils.isConstant(patternArray[i])) {
+                    constants[i] = patternArray[i].substring(7);
+                } else {
+                    varNames[i] = patternArray[i];
+                }
+            }
+        }
+
+        /**
+         * @return The nodeId of the Statement Pattern.
+         */
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        /**
+         * @return The variable order of the binding sets the pattern emits.
+         */
+        public VariableOrder getVariableOrder() {
+            return varOrder;
+        }
+
+        /**
+         * @param triple - The subject, predicate, and object of a triple. (not null)
+         * @return {@code true} if every constant of the pattern equals the triple's value.
+         */
+        public boolean matches(final String[] triple) {
+            for (int i = 0; i < 3; i++) {
+                if (constants[i] != null && !constants[i].equals(triple[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @param triple - The subject, predicate, and object of a triple the pattern matches. (not null)
+         * @return The string representation of the Binding Set the triple produces, ordered by the
+         *   pattern's variable order.
+         */
+        public String getBindingSetString(final String[] triple) {
+            final Map<String, String> bindingValues = new HashMap<>(4);
+            for (int i = 0; i < 3; i++) {
+                if (varNames[i] != null) {
+                    bindingValues.put(varNames[i], triple[i]);
+                }
+            }
+
+            final StringBuilder bindingSetString = new StringBuilder();
+            for (final String bindingName : varOrder) {
+                if (bindingSetString.length() != 0) {
+                    bindingSetString.append(DELIM);
+                }
+                bindingSetString.append(bindingValues.get(bindingName));
+            }
+            return bindingSetString.toString();
+        }
+    }
+}
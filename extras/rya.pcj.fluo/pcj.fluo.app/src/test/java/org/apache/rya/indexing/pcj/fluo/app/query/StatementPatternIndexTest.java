@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.indexing.pcj.fluo.app.query;
+
+import static org.apache.rya.indexing.pcj.fluo.app.IncrementalUpdateConstants.DELIM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.rya.api.domain.VarNameUtils;
+import org.apache.rya.indexing.pcj.fluo.app.query.StatementPatternIndex.IndexedPattern;
+import org.apache.rya.indexing.pcj.storage.accumulo.VariableOrder;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the methods of {@link StatementPatternIndex}.
+ */
+public class StatementPatternIndexTest {
+
+    private final Map<String, StatementPatternMetadata> metadata = new HashMap<>();
+
+    private void addPattern(final String nodeId, final String subj, final String pred, final String obj, final String... varOrder) {
+        metadata.put(nodeId, StatementPatternMetadata.builder(nodeId)
+                .setStatementPattern(subj + DELIM + pred + DELIM + obj)
+                .setVarOrder(new VariableOrder(varOrder))
+                .setParentNodeId("parent")
+                .build());
+    }
+
+    private static String constant(final String value) {
+        return VarNameUtils.prependConstant(value);
+    }
+
+    private StatementPatternIndex buildIndex() {
+        return StatementPatternIndex.build(new HashSet<>(metadata.keySet()), metadata::get);
+    }
+
+    private static Set<String> matchedIds(final StatementPatternIndex index, final String subj, final String pred, final String obj) {
+        final List<IndexedPattern> matches = index.match(new String[] { subj, pred, obj });
+        return matches.stream().map(IndexedPattern::getNodeId).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void match_byBoundConstants() {
+        addPattern("sp1", "x", constant("urn:talksTo"), "y", "x", "y");
+        addPattern("sp2", "x", constant("urn:worksAt"), constant("urn:Apache"), "x");
+        addPattern("sp3", constant("urn:Alice"), "p", "o", "p", "o");
+        addPattern("sp4", "s", "p", constant("urn:Bob"), "s", "p");
+        addPattern("sp5", "s", "p", "o", "s", "p", "o");
+        final StatementPatternIndex index = buildIndex();
+
+        assertEquals(5, index.size());
+        assertEquals(Sets.newHashSet("sp1", "sp3", "sp4", "sp5"), matchedIds(index, "urn:Alice", "urn:talksTo", "urn:Bob"));
+        assertEquals(Sets.newHashSet("sp5"), matchedIds(index, "urn:Bob", "urn:worksAt", "urn:Google"));
+        assertEquals(Sets.newHashSet("sp2", "sp5"), matchedIds(index, "urn:Bob", "urn:worksAt", "urn:Apache"));
+    }
+
+    @Test
+    public void getBindingSetString_followsVariableOrder() {
+        addPattern("sp1", "x", constant("urn:talksTo"), "y", "y", "x");
+        final StatementPatternIndex index = buildIndex();
+
+        final List<IndexedPattern> matches = index.match(new String[] { "urn:Alice", "urn:talksTo", "urn:Bob" });
+        assertEquals(1, matches.size());
+        assertEquals("urn:Bob" + DELIM + "urn:Alice", matches.get(0).getBindingSetString(new String[] { "urn:Alice", "urn:talksTo", "urn:Bob" }));
+    }
+
+    @Test
+    public void build_skipsEmptyIds() {
+        addPattern("sp1", "x", constant("urn:talksTo"), "y", "x", "y");
+        final Set<String> ids = Sets.newHashSet("sp1", "");
+        final StatementPatternIndex index = StatementPatternIndex.build(ids, metadata::get);
+
+        assertEquals(1, index.size());
+        assertTrue(index.isBuiltFrom(ids));
+        assertFalse(index.isBuiltFrom(new HashSet<>(ids)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void build_failsOnUnreadablePattern() {
+        addPattern("sp1", "x", constant("urn:talksTo"), "y", "x", "y");
+        StatementPatternIndex.build(Sets.newHashSet("sp1", "sp2"), id -> {
+            if (!metadata.containsKey(id)) {
+                throw new RuntimeException("No metadata for " + id);
+            }
+            return metadata.get(id);
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void splitTriple_invalid() {
+        StatementPatternIndex.splitTriple("urn:Alice" + DELIM + "urn:talksTo");
+    }
+}
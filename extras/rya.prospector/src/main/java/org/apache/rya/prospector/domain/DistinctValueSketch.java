@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.prospector.domain;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * A HyperLogLog sketch that estimates how many distinct values appear in the subject or
+ * object position of a predicate's Statements.
+ * <p>
+ * Each value is hashed into one of {@link #REGISTER_COUNT} registers, and each register keeps
+ * the highest rank (position of the first set bit) of the hashes it has seen. Registers are
+ * merged by taking their maximum, which lets a Prospector run build them with a combiner
+ * the same way {@link IndexEntry} counts are summed.
+ */
+public class DistinctValueSketch {
+
+    /**
+     * The number of hash bits that pick a register.
+     */
+    public static final int PRECISION = 9;
+
+    /**
+     * The number of registers in a sketch. The standard error of the estimate is about
+     * {@code 1.04 / sqrt(REGISTER_COUNT)}, or 4.6%.
+     */
+    public static final int REGISTER_COUNT = 1 << PRECISION;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+
+    private final byte[] registers = new byte[REGISTER_COUNT];
+
+    /**
+     * @param value - The value that will be hashed. (not null)
+     * @return The 64 bit hash of the value.
+     */
+    public static long hash(final String value) {
+        requireNonNull(value);
+        return HASH.hashBytes(value.getBytes(StandardCharsets.UTF_8)).asLong();
+    }
+
+    /**
+     * @param hash - The hash of a value.
+     * @return The register the value belongs to.
+     */
+    public static int getRegister(final long hash) {
+        return (int) (hash >>> (Long.SIZE - PRECISION));
+    }
+
+    /**
+     * @param hash - The hash of a value.
+     * @return The rank of the value within its register.
+     */
+    public static int getRank(final long hash) {
+        // The marker bit caps the rank when every remaining bit is zero.
+        return Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value - The value that will be added. (not null)
+     */
+    public void offer(final String value) {
+        final long hash = hash(value);
+        merge(getRegister(hash), getRank(hash));
+    }
+
+    /**
+     * Raises a register to a rank if the register is lower than it.
+     *
+     * @param register - The register that will be merged. (0 &lt;= register &lt; {@link #REGISTER_COUNT})
+     * @param rank - The rank that is merged into the register.
+     */
+    public void merge(final int register, final int rank) {
+        if (register < 0 || register >= REGISTER_COUNT) {
+            throw new IllegalArgumentException("The register must be between 0 and " + (REGISTER_COUNT - 1) + ", was " + register);
+        }
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * @return {@code true} if no values have been added to the sketch.
+     */
+    public boolean isEmpty() {
+        for (final byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The estimated number of distinct values that were added to the sketch.
+     */
+    public double estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (final byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        final double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && zeros > 0) {
+            // Linear counting is more accurate while many registers are still empty.
+            return REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeros);
+        }
+        return estimate;
+    }
+}
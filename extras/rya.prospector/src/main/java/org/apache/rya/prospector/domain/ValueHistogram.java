@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.prospector.domain;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.datatypes.XMLDatatypeUtil;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+
+/**
+ * An equi-depth histogram over the numeric or date values that appear as the objects
+ * of a predicate.
+ * <p>
+ * A Prospector run can not see the whole distribution of a predicate's values at once,
+ * so it counts values into fixed, fine grained buckets instead. The fine buckets are
+ * log-scaled: each one covers 1/256th of a power of two, which keeps their relative width
+ * the same no matter how large the values are. When the histogram is read, the fine buckets
+ * are coalesced into a small number of buckets that each hold roughly the same number of values.
+ */
+public class ValueHistogram {
+
+    /**
+     * The number of buckets a histogram is coalesced into when it is read.
+     */
+    public static final int DEFAULT_BUCKET_COUNT = 64;
+
+    /**
+     * The value class of numeric literals. All numeric datatypes share one histogram
+     * because a range over one of them may match values of another.
+     */
+    public static final String NUMERIC = "numeric";
+
+    /**
+     * The value class of {@code xsd:dateTime} and {@code xsd:date} literals. Their values
+     * are the number of milliseconds since the epoch.
+     */
+    public static final String DATE_TIME = "dateTime";
+
+    /**
+     * The number of mantissa bits that are kept in a fine bucket's bounds.
+     */
+    private static final int MANTISSA_BITS = 8;
+    private static final long BUCKET_ULP = 1L << (52 - MANTISSA_BITS);
+
+    private final String valueClass;
+    private final List<Bucket> buckets;
+    private final long total;
+
+    /**
+     * Constructs an instance of {@link ValueHistogram}.
+     *
+     * @param valueClass - Either {@link #NUMERIC} or {@link #DATE_TIME}. (not null)
+     * @param buckets - The disjoint buckets of the histogram, sorted by their bounds. (not null)
+     */
+    private ValueHistogram(final String valueClass, final List<Bucket> buckets) {
+        this.valueClass = requireNonNull(valueClass);
+        this.buckets = Collections.unmodifiableList(buckets);
+        long total = 0;
+        for (final Bucket bucket : buckets) {
+            total += bucket.getCount();
+        }
+        this.total = total;
+    }
+
+    /**
+     * Coalesces fine buckets into an equi-depth histogram.
+     *
+     * @param valueClass - Either {@link #NUMERIC} or {@link #DATE_TIME}. (not null)
+     * @param fineBuckets - The fine buckets a Prospector run counted values into. Buckets with
+     *   the same bounds are summed, for example when they were written with different visibilities. (not null)
+     * @param bucketCount - The maximum number of buckets the histogram will have. (&gt; 0)
+     * @return The coalesced histogram.
+     */
+    public static ValueHistogram fromFineBuckets(final String valueClass, final Collection<Bucket> fineBuckets, final int bucketCount) {
+        requireNonNull(fineBuckets);
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("The bucket count must be positive, was " + bucketCount);
+        }
+
+        final List<Bucket> sorted = new ArrayList<>(fineBuckets);
+        sorted.sort(Comparator.comparingDouble(Bucket::getLower).thenComparingDouble(Bucket::getUpper));
+
+        // Sum the buckets that share bounds so a single fine bucket is never split.
+        final List<Bucket> distinct = new ArrayList<>();
+        long total = 0;
+        for (final Bucket bucket : sorted) {
+            total += bucket.getCount();
+            final int last = distinct.size() - 1;
+            if (last >= 0 && distinct.get(last).sameBounds(bucket)) {
+                distinct.set(last, new Bucket(bucket.getLower(), bucket.getUpper(), distinct.get(last).getCount() + bucket.getCount()));
+            } else {
+                distinct.add(bucket);
+            }
+        }
+        final long depth = Math.max(1, (total + bucketCount - 1) / bucketCount);
+
+        final List<Bucket> coalesced = new ArrayList<>();
+        Bucket current = null;
+        for (final Bucket bucket : distinct) {
+            if (current == null) {
+                current = bucket;
+            } else if (current.getCount() < depth) {
+                current = new Bucket(current.getLower(), Math.max(current.getUpper(), bucket.getUpper()), current.getCount() + bucket.getCount());
+            } else {
+                coalesced.add(current);
+                current = bucket;
+            }
+        }
+        if (current != null) {
+            coalesced.add(current);
+        }
+        return new ValueHistogram(valueClass, coalesced);
+    }
+
+    /**
+     * @return Either {@link #NUMERIC} or {@link #DATE_TIME}.
+     */
+    public String getValueClass() {
+        return valueClass;
+    }
+
+    /**
+     * @return The buckets of the histogram, sorted by their bounds.
+     */
+    public List<Bucket> getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * @return The number of values the histogram was built from.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Estimates how many values fall within a range. Values are assumed to be spread
+     * evenly within each bucket.
+     *
+     * @param start - The inclusive lower bound of the range.
+     * @param end - The inclusive upper bound of the range.
+     * @return The estimated number of values within the range.
+     */
+    public double estimate(final double start, final double end) {
+        double estimate = 0;
+        for (final Bucket bucket : buckets) {
+            if (bucket.getUpper() < start || bucket.getLower() > end) {
+                continue;
+            }
+            final double width = bucket.getUpper() - bucket.getLower();
+            final double overlap = Math.min(end, bucket.getUpper()) - Math.max(start, bucket.getLower());
+            final double fraction = width > 0 ? Math.min(1, overlap / width) : 1;
+            // A range that touches a bucket is assumed to match at least one of its values.
+            estimate += Math.min(bucket.getCount(), Math.max(1, bucket.getCount() * fraction));
+        }
+        return estimate;
+    }
+
+    /**
+     * @param dataType - The datatype of a literal. (not null)
+     * @return The value class the datatype's values are counted under, or {@code null}
+     *   if values of the datatype are not kept in histograms.
+     */
+    public static String getValueClass(final String dataType) {
+        requireNonNull(dataType);
+        final IRI datatype = SimpleValueFactory.getInstance().createIRI(dataType);
+        if (XMLDatatypeUtil.isNumericDatatype(datatype)) {
+            return NUMERIC;
+        } else if (XMLSchema.DATETIME.equals(datatype) || XMLSchema.DATE.equals(datatype)) {
+            return DATE_TIME;
+        }
+        return null;
+    }
+
+    /**
+     * Converts the lexical form of a literal into the number it is placed within a histogram by.
+     *
+     * @param data - The lexical form of the literal. (not null)
+     * @param dataType - The datatype of the literal. (not null)
+     * @return The literal's number, or {@code null} if it is not kept in histograms or is not valid.
+     */
+    public static Double toNumber(final String data, final String dataType) {
+        requireNonNull(data);
+        final String valueClass = getValueClass(dataType);
+        try {
+            double number;
+            if (NUMERIC.equals(valueClass)) {
+                number = XMLDatatypeUtil.parseDouble(data.trim());
+            } else if (DATE_TIME.equals(valueClass)) {
+                number = XMLDatatypeUtil.parseCalendar(data.trim()).toGregorianCalendar().getTimeInMillis();
+            } else {
+                return null;
+            }
+            return Double.isNaN(number) || Double.isInfinite(number) ? null : number;
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param value - A bound of a range over literals. (not null)
+     * @return The bound's number, or {@code null} if it is not a literal that is kept in histograms.
+     */
+    public static Double toNumber(final Value value) {
+        requireNonNull(value);
+        if (value instanceof Literal) {
+            final Literal literal = (Literal) value;
+            return toNumber(literal.getLabel(), literal.getDatatype().stringValue());
+        }
+        return null;
+    }
+
+    /**
+     * Finds the fine bucket a number is counted within.
+     *
+     * @param number - The number of a value.
+     * @return A bucket holding the number with a count of one.
+     */
+    public static Bucket getFineBucket(final double number) {
+        if (number == 0) {
+            return new Bucket(0, 0, 1);
+        }
+        final double magnitude = Math.abs(number);
+        final long lowerBits = Double.doubleToRawLongBits(magnitude) & ~(BUCKET_ULP - 1);
+        final double lower = Double.longBitsToDouble(lowerBits);
+        final double upper = Double.longBitsToDouble(lowerBits + BUCKET_ULP);
+        return number > 0 ? new Bucket(lower, upper, 1) : new Bucket(-upper, -lower, 1);
+    }
+
+    /**
+     * A range of values and how many values were found within it.
+     */
+    public static final class Bucket {
+        private final double lower;
+        private final double upper;
+        private final long count;
+
+        /**
+         * Constructs an instance of {@link Bucket}.
+         *
+         * @param lower - The inclusive lower bound of the bucket.
+         * @param upper - The upper bound of the bucket. It is exclusive unless the bucket only holds negative values.
+         * @param count - The number of values within the bucket.
+         */
+        public Bucket(final double lower, final double upper, final long count) {
+            this.lower = lower;
+            this.upper = upper;
+            this.count = count;
+        }
+
+        /**
+         * @return The inclusive lower bound of the bucket.
+         */
+        public double getLower() {
+            return lower;
+        }
+
+        /**
+         * @return The upper bound of the bucket.
+         */
+        public double getUpper() {
+            return upper;
+        }
+
+        /**
+         * @return The number of values within the bucket.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        private boolean sameBounds(final Bucket other) {
+            return lower == other.lower && upper == other.upper;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lower, upper, count);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof Bucket) {
+                final Bucket other = (Bucket) o;
+                return lower == other.lower && upper == other.upper && count == other.count;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + lower + ", " + upper + "): " + count;
+        }
+    }
+}
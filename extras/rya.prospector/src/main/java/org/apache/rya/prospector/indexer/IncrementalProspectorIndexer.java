@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.prospector.indexer;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.rya.prospector.plans.IndexWorkPlan.DELIM;
+import static org.apache.rya.prospector.utils.ProspectorConstants.COUNT;
+import static org.apache.rya.prospector.utils.ProspectorConstants.LIVE;
+import static org.apache.rya.prospector.utils.ProspectorConstants.LIVE_SEEDED;
+import static org.apache.rya.prospector.utils.ProspectorConstants.METADATA;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchDeleter;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.MultiTableBatchWriter;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Combiner;
+import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
+import org.apache.accumulo.core.iterators.LongCombiner;
+import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.accumulo.core.iterators.user.SummingCombiner;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.rya.accumulo.AccumuloRdfConfiguration;
+import org.apache.rya.accumulo.experimental.AbstractAccumuloIndexer;
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.prospector.domain.IntermediateProspect;
+import org.apache.rya.prospector.plans.impl.CountPlan;
+import org.apache.rya.prospector.service.ProspectorService;
+import org.apache.rya.prospector.service.ProspectorServiceEvalStatsDAO;
+import org.eclipse.rdf4j.model.IRI;
+
+/**
+ * Keeps the counts of the Prospects table up to date as Statements are written to and deleted
+ * from a Rya instance, so the {@link ProspectorServiceEvalStatsDAO} does not have to wait for
+ * the next {@link org.apache.rya.prospector.mr.Prospector} run to see new data.
+ * <p>
+ * Every Statement is mapped to the same counts the {@link CountPlan} computes. Each count is
+ * written as a delta of +1 or -1 to a live row that has {@code live} in place
+ * of a Prospect run's timestamp, and a {@link SummingCombiner} on the {@code count} column family
+ * adds the deltas together. When the indexer is initialized, and whenever a Prospect run finishes,
+ * the live rows are reset to the counts of the latest Prospect run, so they hold that run's counts
+ * plus the changes made since.
+ * <p>
+ * The counts are statistics, not an exact accounting: a Statement that is written twice is
+ * counted twice, and changes made while a Prospect run is in progress may be counted twice or
+ * not at all. Both are corrected by the next Prospect run.
+ */
+public class IncrementalProspectorIndexer extends AbstractAccumuloIndexer {
+
+    private static final String COMBINER_NAME = "prospectCounts";
+    private static final int COMBINER_PRIORITY = 10;
+    private static final byte[] NO_VISIBILITY = new byte[0];
+    private static final Value INCREMENT = new Value("1".getBytes(StandardCharsets.UTF_8));
+    private static final Value DECREMENT = new Value("-1".getBytes(StandardCharsets.UTF_8));
+
+    private final CountPlan plan = new CountPlan();
+
+    private AccumuloRdfConfiguration conf;
+    private Connector connector;
+    private MultiTableBatchWriter multiTableWriter;
+    private BatchWriter writer;
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    @Override
+    public void setConf(final Configuration conf) {
+        if (conf instanceof AccumuloRdfConfiguration) {
+            this.conf = (AccumuloRdfConfiguration) conf;
+        } else {
+            this.conf = new AccumuloRdfConfiguration(conf);
+        }
+    }
+
+    @Override
+    public String getTableName() {
+        return ProspectorServiceEvalStatsDAO.getProspectTableName(conf);
+    }
+
+    @Override
+    public void setConnector(final Connector connector) {
+        this.connector = connector;
+    }
+
+    @Override
+    public void setMultiTableBatchWriter(final MultiTableBatchWriter writer) throws IOException {
+        this.multiTableWriter = writer;
+    }
+
+    @Override
+    public void init() {
+        requireNonNull(connector, "Connector not set");
+        requireNonNull(multiTableWriter, "MultiTableBatchWriter not set");
+        try {
+            // Creates the table if it does not exist yet.
+            final ProspectorService service = new ProspectorService(connector, getTableName());
+            attachCombiner();
+            service.seedLiveCounts(conf.getAuths());
+            writer = multiTableWriter.getBatchWriter(getTableName());
+        } catch (final AccumuloException | AccumuloSecurityException | TableNotFoundException | MutationsRejectedException e) {
+            throw new RuntimeException("Unable to initialize the incremental Prospector index.", e);
+        }
+    }
+
+    private void attachCombiner() throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
+        final Map<String, EnumSet<IteratorScope>> attached = connector.tableOperations().listIterators(getTableName());
+        if (!attached.containsKey(COMBINER_NAME)) {
+            final IteratorSetting setting = new IteratorSetting(COMBINER_PRIORITY, COMBINER_NAME, SummingCombiner.class);
+            LongCombiner.setEncodingType(setting, LongCombiner.Type.STRING);
+            Combiner.setColumns(setting, Collections.singletonList(new IteratorSetting.Column(COUNT)));
+            connector.tableOperations().attachIterator(getTableName(), setting);
+        }
+    }
+
+    @Override
+    public void storeStatement(final RyaStatement statement) throws IOException {
+        write(statement, INCREMENT);
+    }
+
+    @Override
+    public void deleteStoredStatement(final RyaStatement statement) throws IOException {
+        write(statement, DECREMENT);
+    }
+
+    private void write(final RyaStatement statement, final Value delta) throws IOException {
+        RyaStatement counted = statement;
+        if (statement.getColumnVisibility() == null) {
+            counted = RyaStatement.builder(statement).setColumnVisibility(NO_VISIBILITY).build();
+        }
+
+        try {
+            for (final Map.Entry<IntermediateProspect, LongWritable> entry : plan.map(counted)) {
+                final IntermediateProspect prospect = entry.getKey();
+                final Mutation m = new Mutation(prospect.getTripleValueType().getIndexType() + DELIM + prospect.getData() + DELIM + LIVE);
+                m.put(COUNT, prospect.getDataType(), new ColumnVisibility(prospect.getVisibility()), delta);
+                writer.addMutation(m);
+            }
+        } catch (final MutationsRejectedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public Set<IRI> getIndexablePredicates() {
+        return null;
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Removes the live counts. The counts of Prospect runs are left in place and are used again
+     * until the indexer is initialized, and seeded, once more.
+     */
+    @Override
+    public void purge(final RdfCloudTripleStoreConfiguration configuration) {
+        BatchDeleter deleter = null;
+        try {
+            deleter = connector.createBatchDeleter(getTableName(), conf.getAuthorizations(), conf.getNumThreads(), new BatchWriterConfig());
+            deleter.setRanges(Collections.singleton(new Range()));
+            final IteratorSetting live = new IteratorSetting(COMBINER_PRIORITY + 1, "liveRows", RegExFilter.class);
+            RegExFilter.setRegexs(live, "(?s)(.*" + DELIM + LIVE + ")|(" + METADATA + ")", LIVE_SEEDED + "|" + COUNT, null, null, false);
+            deleter.addScanIterator(live);
+            deleter.delete();
+        } catch (final TableNotFoundException | MutationsRejectedException e) {
+            throw new RuntimeException("Unable to purge the incremental Prospector index.", e);
+        } finally {
+            if (deleter != null) {
+                deleter.close();
+            }
+        }
+    }
+
+    @Override
+    public void dropAndDestroy() {
+        purge(conf);
+    }
+}
@@ -32,6 +32,7 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 
+import org.apache.accumulo.core.client.Connector;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.security.ColumnVisibility;
@@ -44,6 +45,7 @@ import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 import org.apache.rya.prospector.domain.IntermediateProspect;
+import org.apache.rya.prospector.service.ProspectorService;
 import org.apache.rya.prospector.utils.ProspectorUtils;
 
 /**
@@ -105,7 +107,11 @@ public class Prospector extends Configured implements Tool {
         if (success == 0) {
             final Mutation m = new Mutation(METADATA);
             m.put(PROSPECT_TIME, getReverseIndexDateTime(truncatedDate), new ColumnVisibility(DEFAULT_VIS), truncatedDate.getTime(), new Value(EMPTY));
-            writeMutations(connector(instance(conf), conf), outTable, Collections.singleton(m));
+            final Connector connector = connector(instance(conf), conf);
+            writeMutations(connector, outTable, Collections.singleton(m));
+
+            // Live counts that are kept up to date as Statements are written now continue from this run.
+            new ProspectorService(connector, outTable).refreshLiveCounts(auths);
         }
 
         return success;
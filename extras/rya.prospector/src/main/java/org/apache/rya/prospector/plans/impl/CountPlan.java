@@ -19,6 +19,7 @@
 package org.apache.rya.prospector.plans.impl;
 
 import static org.apache.rya.prospector.utils.ProspectorConstants.COUNT;
+import static org.apache.rya.prospector.utils.ProspectorConstants.LIVE;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -200,7 +201,16 @@ public class CountPlan implements IndexWorkPlan {
     public List<IndexEntry> query(final Connector connector, final String tableName, final List<Long> prospectTimes, final String type, final String compositeIndex, final String dataType, final String[] auths) throws TableNotFoundException {
         assert connector != null && tableName != null && type != null && compositeIndex != null;
 
-        final BatchScanner bs = connector.createBatchScanner(tableName, new Authorizations(auths), 4);
+        if (prospectTimes == null) {
+            // Counts that are kept up to date as Statements are written hold the latest run's counts plus the
+            // changes made since, so they take the place of the latest run.
+            final List<Range> liveRange = Collections.singletonList(new Range(type + DELIM + compositeIndex + DELIM + LIVE));
+            final List<IndexEntry> liveEntries = query(connector, tableName, liveRange, type, dataType, auths, 1);
+            if (!liveEntries.isEmpty()) {
+                return liveEntries;
+            }
+        }
+
         final List<Range> ranges = new ArrayList<>();
         int max = 1000; //by default only return 1000 prospects maximum
         if (prospectTimes != null) {
@@ -212,7 +222,11 @@ public class CountPlan implements IndexWorkPlan {
             final String prefix = type + DELIM + compositeIndex + DELIM;
             ranges.add(new Range(prefix, prefix + RdfCloudTripleStoreConstants.LAST));
         }
+        return query(connector, tableName, ranges, type, dataType, auths, max);
+    }
 
+    private static List<IndexEntry> query(final Connector connector, final String tableName, final List<Range> ranges, final String type, final String dataType, final String[] auths, final int max) throws TableNotFoundException {
+        final BatchScanner bs = connector.createBatchScanner(tableName, new Authorizations(auths), 4);
         bs.setRanges(ranges);
         if (dataType != null) {
             bs.fetchColumn(new Text(COUNT), new Text(dataType));
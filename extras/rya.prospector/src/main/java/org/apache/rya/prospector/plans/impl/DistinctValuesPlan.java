@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.prospector.plans.impl;
+
+import static org.apache.rya.prospector.utils.ProspectorConstants.DISTINCT;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.prospector.domain.DistinctValueSketch;
+import org.apache.rya.prospector.domain.IndexEntry;
+import org.apache.rya.prospector.domain.IntermediateProspect;
+import org.apache.rya.prospector.domain.TripleValueType;
+import org.apache.rya.prospector.plans.IndexWorkPlan;
+import org.apache.rya.prospector.utils.CustomEntry;
+import org.apache.rya.prospector.utils.ProspectorUtils;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+
+/**
+ * An implementation of {@link IndexWorkPlan} that builds a {@link DistinctValueSketch} over
+ * the subjects and another over the objects of every predicate.
+ * <p>
+ * Instead of a count, each intermediate value is the rank a Statement contributes to one
+ * register of a sketch, and the combiner and reducer keep the highest rank rather than
+ * summing them. The {@link IndexEntry}s returned by
+ * {@link #query(Connector, String, List, String, String, String, String[])} hold the register
+ * as their data, the position as their triple value type, and the register's rank as their count.
+ */
+public class DistinctValuesPlan implements IndexWorkPlan {
+
+    private static final String REGISTER_TYPE = XMLSchema.INT.stringValue();
+
+    @Override
+    public Collection<Map.Entry<IntermediateProspect, LongWritable>> map(final RyaStatement ryaStatement) {
+        final String predicate = ryaStatement.getPredicate().getData();
+        final RyaType object = ryaStatement.getObject();
+        final String visibility = new String(ryaStatement.getColumnVisibility(), StandardCharsets.UTF_8);
+
+        final List<Map.Entry<IntermediateProspect, LongWritable>> entries = new ArrayList<>(2);
+        entries.add(register(predicate, TripleValueType.SUBJECT, ryaStatement.getSubject().getData(), visibility));
+        // Literals with the same label but different datatypes are different values.
+        entries.add(register(predicate, TripleValueType.OBJECT, object.getData() + DELIM + object.getDataType().stringValue(), visibility));
+        return entries;
+    }
+
+    private static Map.Entry<IntermediateProspect, LongWritable> register(final String predicate, final TripleValueType position, final String value, final String visibility) {
+        final long hash = DistinctValueSketch.hash(value);
+        return new CustomEntry<IntermediateProspect, LongWritable>(
+                IntermediateProspect.builder()
+                    .setIndex(DISTINCT)
+                    .setData(predicate + DELIM + DistinctValueSketch.getRegister(hash))
+                    .setDataType(REGISTER_TYPE)
+                    .setTripleValueType(position)
+                    .setVisibility(visibility)
+                    .build()
+                , new LongWritable(DistinctValueSketch.getRank(hash)));
+    }
+
+    @Override
+    public Collection<Map.Entry<IntermediateProspect, LongWritable>> combine(final IntermediateProspect prospect, final Iterable<LongWritable> ranks) {
+        return Collections.singleton( new CustomEntry<IntermediateProspect, LongWritable>(prospect, new LongWritable(max(ranks))) );
+    }
+
+    @Override
+    public void reduce(final IntermediateProspect prospect, final Iterable<LongWritable> ranks, final Date timestamp, final Reducer.Context context) throws IOException, InterruptedException {
+        final long rank = max(ranks);
+
+        // The data is the predicate followed by the register.
+        final String[] data = prospect.getData().split(DELIM);
+        final Mutation m = new Mutation(DISTINCT + DELIM + data[0] + DELIM + ProspectorUtils.getReverseIndexDateTime(timestamp));
+        final ColumnVisibility visibility = new ColumnVisibility(prospect.getVisibility());
+        final Value rankValue = new Value(("" + rank).getBytes(StandardCharsets.UTF_8));
+        m.put(DISTINCT, prospect.getTripleValueType().getIndexType() + DELIM + data[1], visibility, timestamp.getTime(), rankValue);
+
+        context.write(null, m);
+    }
+
+    private static long max(final Iterable<LongWritable> ranks) {
+        long max = 0;
+        for (final LongWritable rank : ranks) {
+            max = Math.max(max, rank.get());
+        }
+        return max;
+    }
+
+    @Override
+    public String getIndexType() {
+        return DISTINCT;
+    }
+
+    @Override
+    public String getCompositeValue(final List<String> indices) {
+        final Iterator<String> indexIt = indices.iterator();
+        String compositeIndex = indexIt.next();
+        while (indexIt.hasNext()){
+            compositeIndex += DELIM + indexIt.next();
+        }
+        return compositeIndex;
+    }
+
+    @Override
+    public List<IndexEntry> query(final Connector connector, final String tableName, final List<Long> prospectTimes, final String type, final String compositeIndex, final String dataType, final String[] auths) throws TableNotFoundException {
+        assert connector != null && tableName != null && compositeIndex != null;
+
+        final List<IndexEntry> indexEntries = new ArrayList<>();
+        for (final Entry<Key, Value> entry : ProspectorUtils.scanRuns(connector, tableName, DISTINCT + DELIM + compositeIndex + DELIM, prospectTimes, DISTINCT, auths)) {
+            final Key k = entry.getKey();
+
+            // The column qualifier is the position followed by the register.
+            final String[] qualifier = k.getColumnQualifier().toString().split(DELIM);
+            if (type != null && !type.equals(qualifier[0])) {
+                continue;
+            }
+
+            indexEntries.add(
+                    IndexEntry.builder()
+                        .setData(qualifier[1])
+                        .setTripleValueType(qualifier[0])
+                        .setIndex(DISTINCT)
+                        .setDataType(REGISTER_TYPE)
+                        .setVisibility(k.getColumnVisibility().toString())
+                        .setCount(Long.parseLong(new String(entry.getValue().get(), StandardCharsets.UTF_8)))
+                        .setTimestamp(k.getTimestamp())
+                        .build());
+        }
+        return indexEntries;
+    }
+}
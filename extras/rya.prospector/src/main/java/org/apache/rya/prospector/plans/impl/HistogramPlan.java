@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.prospector.plans.impl;
+
+import static org.apache.rya.prospector.utils.ProspectorConstants.HISTOGRAM;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.prospector.domain.IndexEntry;
+import org.apache.rya.prospector.domain.IntermediateProspect;
+import org.apache.rya.prospector.domain.TripleValueType;
+import org.apache.rya.prospector.domain.ValueHistogram;
+import org.apache.rya.prospector.domain.ValueHistogram.Bucket;
+import org.apache.rya.prospector.plans.IndexWorkPlan;
+import org.apache.rya.prospector.utils.CustomEntry;
+import org.apache.rya.prospector.utils.ProspectorUtils;
+
+/**
+ * An implementation of {@link IndexWorkPlan} that counts the numeric and date objects
+ * of every predicate into the fine buckets of a {@link ValueHistogram}.
+ * <p>
+ * Every bucket of a predicate is written as a column of the same row, so the histogram of
+ * the latest Prospect run is read with a single scan. The {@link IndexEntry}s returned by
+ * {@link #query(Connector, String, List, String, String, String, String[])} hold the bucket
+ * bounds as their data, the value class as their data type, and the bucket's count.
+ */
+public class HistogramPlan implements IndexWorkPlan {
+
+    @Override
+    public Collection<Map.Entry<IntermediateProspect, LongWritable>> map(final RyaStatement ryaStatement) {
+        final RyaType object = ryaStatement.getObject();
+        final String dataType = object.getDataType().stringValue();
+        final String valueClass = ValueHistogram.getValueClass(dataType);
+        if (valueClass == null) {
+            return Collections.emptyList();
+        }
+        final Double number = ValueHistogram.toNumber(object.getData(), dataType);
+        if (number == null) {
+            return Collections.emptyList();
+        }
+
+        final Bucket bucket = ValueHistogram.getFineBucket(number);
+        final String visibility = new String(ryaStatement.getColumnVisibility(), StandardCharsets.UTF_8);
+        return Collections.singleton(new CustomEntry<IntermediateProspect, LongWritable>(
+                IntermediateProspect.builder()
+                    .setIndex(HISTOGRAM)
+                    .setData(ryaStatement.getPredicate().getData() + DELIM + bucket.getLower() + DELIM + bucket.getUpper())
+                    .setDataType(valueClass)
+                    .setTripleValueType(TripleValueType.PREDICATE_OBJECT)
+                    .setVisibility(visibility)
+                    .build()
+                , ONE));
+    }
+
+    @Override
+    public Collection<Map.Entry<IntermediateProspect, LongWritable>> combine(final IntermediateProspect prospect, final Iterable<LongWritable> counts) {
+        long sum = 0;
+        for(final LongWritable count : counts) {
+            sum += count.get();
+        }
+        return Collections.singleton( new CustomEntry<IntermediateProspect, LongWritable>(prospect, new LongWritable(sum)) );
+    }
+
+    @Override
+    public void reduce(final IntermediateProspect prospect, final Iterable<LongWritable> counts, final Date timestamp, final Reducer.Context context) throws IOException, InterruptedException {
+        long sum = 0;
+        for(final LongWritable count : counts) {
+            sum += count.get();
+        }
+
+        // The data is the predicate followed by the bounds of the bucket.
+        final String[] data = prospect.getData().split(DELIM);
+        final Mutation m = new Mutation(HISTOGRAM + DELIM + data[0] + DELIM + ProspectorUtils.getReverseIndexDateTime(timestamp));
+        final ColumnVisibility visibility = new ColumnVisibility(prospect.getVisibility());
+        final Value sumValue = new Value(("" + sum).getBytes(StandardCharsets.UTF_8));
+        m.put(HISTOGRAM, prospect.getDataType() + DELIM + data[1] + DELIM + data[2], visibility, timestamp.getTime(), sumValue);
+
+        context.write(null, m);
+    }
+
+    @Override
+    public String getIndexType() {
+        return HISTOGRAM;
+    }
+
+    @Override
+    public String getCompositeValue(final List<String> indices) {
+        final Iterator<String> indexIt = indices.iterator();
+        String compositeIndex = indexIt.next();
+        while (indexIt.hasNext()){
+            compositeIndex += DELIM + indexIt.next();
+        }
+        return compositeIndex;
+    }
+
+    @Override
+    public List<IndexEntry> query(final Connector connector, final String tableName, final List<Long> prospectTimes, final String type, final String compositeIndex, final String dataType, final String[] auths) throws TableNotFoundException {
+        assert connector != null && tableName != null && compositeIndex != null;
+
+        final List<IndexEntry> indexEntries = new ArrayList<>();
+        for (final Entry<Key, Value> entry : ProspectorUtils.scanRuns(connector, tableName, HISTOGRAM + DELIM + compositeIndex + DELIM, prospectTimes, HISTOGRAM, auths)) {
+            final Key k = entry.getKey();
+
+            // The column qualifier is the value class followed by the bounds of the bucket.
+            final String[] qualifier = k.getColumnQualifier().toString().split(DELIM);
+            if (dataType != null && !dataType.equals(qualifier[0])) {
+                continue;
+            }
+
+            indexEntries.add(
+                    IndexEntry.builder()
+                        .setData(qualifier[1] + DELIM + qualifier[2])
+                        .setTripleValueType(TripleValueType.PREDICATE_OBJECT.getIndexType())
+                        .setIndex(HISTOGRAM)
+                        .setDataType(qualifier[0])
+                        .setVisibility(k.getColumnVisibility().toString())
+                        .setCount(Long.parseLong(new String(entry.getValue().get(), StandardCharsets.UTF_8)))
+                        .setTimestamp(k.getTimestamp())
+                        .build());
+        }
+        return indexEntries;
+    }
+}
@@ -19,26 +19,39 @@
 package org.apache.rya.prospector.service;
 
 import static java.util.Objects.requireNonNull;
+import static org.apache.rya.prospector.plans.IndexWorkPlan.DELIM;
+import static org.apache.rya.prospector.utils.ProspectorConstants.COUNT;
+import static org.apache.rya.prospector.utils.ProspectorConstants.LIVE;
+import static org.apache.rya.prospector.utils.ProspectorConstants.LIVE_SEEDED;
 import static org.apache.rya.prospector.utils.ProspectorConstants.METADATA;
 import static org.apache.rya.prospector.utils.ProspectorConstants.PROSPECT_TIME;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
 import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.MutationsRejectedException;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.TableExistsException;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.client.admin.TableOperations;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.hadoop.io.Text;
 import org.apache.rya.prospector.domain.IndexEntry;
 import org.apache.rya.prospector.plans.IndexWorkPlan;
@@ -162,4 +175,124 @@ public class ProspectorService {
 
         return plan.query(connector, tableName, prospectTimes, type, compositeIndex, dataType, auths);
     }
-}
\ No newline at end of file
+
+    /**
+     * Brings the live count rows up to date with the latest Prospect run so that the counts which
+     * are kept up to date as Statements are written start from the data the run counted. This
+     * happens when the live rows have not been seeded yet, or when they were seeded from an older
+     * run; otherwise nothing is done.
+     * <p>
+     * Each live count is adjusted by the difference between the latest run's count and its current
+     * value instead of being overwritten, so changes that are written while this runs are kept.
+     * The live counts only carry changes made since the latest run, so Statements that were written
+     * twice or changed while a run was in progress do not skew the counts past the next run.
+     *
+     * @param auths - The authorizations used to read the counts. Counts that are not visible
+     *   to them are not copied. (not null)
+     * @return {@code true} if the live counts were updated by this call.
+     * @throws TableNotFoundException No table exists for {@code tableName}.
+     * @throws MutationsRejectedException The live counts could not be written.
+     */
+    public boolean seedLiveCounts(String[] auths) throws TableNotFoundException, MutationsRejectedException {
+        return seedLiveCounts(auths, false);
+    }
+
+    /**
+     * Updates the live count rows with the latest Prospect run like {@link #seedLiveCounts(String[])},
+     * but only if they have already been seeded. Called once a Prospect run has finished so that
+     * tables which do not keep live counts do not get them.
+     *
+     * @param auths - The authorizations used to read the counts. (not null)
+     * @return {@code true} if the live counts were updated by this call.
+     * @throws TableNotFoundException No table exists for {@code tableName}.
+     * @throws MutationsRejectedException The live counts could not be written.
+     */
+    public boolean refreshLiveCounts(String[] auths) throws TableNotFoundException, MutationsRejectedException {
+        return seedLiveCounts(auths, true);
+    }
+
+    private boolean seedLiveCounts(String[] auths, boolean onlyIfSeeded) throws TableNotFoundException, MutationsRejectedException {
+        // The seeded entry holds the time of the Prospect run the live counts were last seeded from.
+        Long seededRun = null;
+        final Scanner seeded = connector.createScanner(tableName, new Authorizations(auths));
+        seeded.setRange(Range.exact(METADATA));
+        seeded.fetchColumnFamily(new Text(LIVE_SEEDED));
+        for (final Entry<Key, Value> entry : seeded) {
+            seededRun = Long.parseLong(new String(entry.getValue().get(), StandardCharsets.UTF_8));
+        }
+        if (seededRun == null && onlyIfSeeded) {
+            return false;
+        }
+
+        long latestRun = 0;
+        final Iterator<Long> prospects = getProspects(auths);
+        while (prospects.hasNext()) {
+            latestRun = Math.max(latestRun, prospects.next());
+        }
+        if (seededRun != null && latestRun <= seededRun) {
+            return false;
+        }
+        final String latestRunSuffix = latestRun > 0 ? DELIM + ProspectorUtils.getReverseIndexDateTime(new Date(latestRun)) : null;
+
+        final Scanner scanner = connector.createScanner(tableName, new Authorizations(auths));
+        scanner.fetchColumnFamily(new Text(COUNT));
+        final BatchWriter writer = connector.createBatchWriter(tableName, new BatchWriterConfig());
+        try {
+            // The rows of a piece of data are next to each other, and its live row sorts after the rows of its runs.
+            String prefix = null;
+            final Map<Key, Long> runCounts = new HashMap<>();
+            final Map<Key, Long> liveCounts = new HashMap<>();
+            for (final Entry<Key, Value> entry : scanner) {
+                final Key key = entry.getKey();
+                final String row = key.getRow().toString();
+                final int split = row.lastIndexOf(DELIM);
+                if (split < 0) {
+                    continue;
+                }
+
+                final String rowPrefix = row.substring(0, split + 1);
+                if (!rowPrefix.equals(prefix)) {
+                    adjustLiveCounts(writer, runCounts, liveCounts);
+                    prefix = rowPrefix;
+                }
+
+                final boolean live = row.endsWith(DELIM + LIVE);
+                if (live || (latestRunSuffix != null && row.endsWith(latestRunSuffix))) {
+                    final Key liveKey = new Key(new Text(prefix + LIVE), key.getColumnFamily(), key.getColumnQualifier(),
+                            key.getColumnVisibility(), 0);
+                    final long count = Long.parseLong(new String(entry.getValue().get(), StandardCharsets.UTF_8));
+                    (live ? liveCounts : runCounts).put(liveKey, count);
+                }
+            }
+            adjustLiveCounts(writer, runCounts, liveCounts);
+
+            final Mutation m = new Mutation(METADATA);
+            m.put(LIVE_SEEDED, "", new Value(Long.toString(latestRun).getBytes(StandardCharsets.UTF_8)));
+            writer.addMutation(m);
+        } finally {
+            writer.close();
+        }
+        return true;
+    }
+
+    /**
+     * Writes the deltas that turn the live counts of a piece of data into the counts of the latest
+     * Prospect run. The live rows are summed by a combiner, so the deltas are added to them.
+     */
+    private static void adjustLiveCounts(BatchWriter writer, Map<Key, Long> runCounts, Map<Key, Long> liveCounts) throws MutationsRejectedException {
+        final Set<Key> keys = new HashSet<>(runCounts.keySet());
+        keys.addAll(liveCounts.keySet());
+        for (final Key key : keys) {
+            final long runCount = runCounts.containsKey(key) ? runCounts.get(key) : 0;
+            final long liveCount = liveCounts.containsKey(key) ? liveCounts.get(key) : 0;
+            if (runCount != liveCount) {
+                final Mutation m = new Mutation(key.getRow());
+                m.put(key.getColumnFamily(), key.getColumnQualifier(), new ColumnVisibility(key.getColumnVisibility()),
+                        new Value(Long.toString(runCount - liveCount).getBytes(StandardCharsets.UTF_8)));
+                writer.addMutation(m);
+            }
+        }
+        runCounts.clear();
+        liveCounts.clear();
+    }
+}
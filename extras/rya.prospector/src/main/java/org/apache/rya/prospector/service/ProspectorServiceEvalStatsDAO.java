@@ -21,6 +21,7 @@ package org.apache.rya.prospector.service;
 import static java.util.Objects.requireNonNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -34,9 +35,15 @@ import org.apache.rya.accumulo.utils.ConnectorFactory;
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
 import org.apache.rya.api.persist.RdfDAOException;
 import org.apache.rya.api.persist.RdfEvalStatsDAO;
+import org.apache.rya.prospector.domain.DistinctValueSketch;
 import org.apache.rya.prospector.domain.IndexEntry;
 import org.apache.rya.prospector.domain.TripleValueType;
+import org.apache.rya.prospector.domain.ValueHistogram;
+import org.apache.rya.prospector.domain.ValueHistogram.Bucket;
+import org.apache.rya.prospector.plans.IndexWorkPlan;
 import org.apache.rya.prospector.utils.ProspectorConstants;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Value;
 
@@ -138,6 +145,78 @@ public class ProspectorServiceEvalStatsDAO implements RdfEvalStatsDAO<RdfCloudTr
         return getCardinality(conf, card, val); //TODO: Not sure about the context yet
     }
 
+    /**
+     * Estimates the range from the histogram the latest Prospect run built for the predicate.
+     * Both bounds must be numeric literals or both must be date literals.
+     */
+    @Override
+    public double getRangeCardinality(RdfCloudTripleStoreConfiguration conf, IRI predicate, Value start, Value end) throws RdfDAOException {
+        assert conf != null && predicate != null && start != null && end != null;
+
+        if (!(start instanceof Literal) || !(end instanceof Literal)) {
+            return -1;
+        }
+        final String valueClass = ValueHistogram.getValueClass(((Literal) start).getDatatype().stringValue());
+        final Double lower = ValueHistogram.toNumber(start);
+        final Double upper = ValueHistogram.toNumber(end);
+        if (valueClass == null || lower == null || upper == null
+                || !valueClass.equals(ValueHistogram.getValueClass(((Literal) end).getDatatype().stringValue()))) {
+            return -1;
+        }
+
+        final List<IndexEntry> entries;
+        try {
+            entries = prospectorService.query(null, ProspectorConstants.HISTOGRAM, null,
+                    Collections.singletonList(predicate.stringValue()), valueClass, conf.getAuths());
+        } catch (final TableNotFoundException e) {
+            throw new RdfDAOException(e);
+        }
+        if (entries.isEmpty()) {
+            return -1;
+        }
+
+        final List<Bucket> fineBuckets = new ArrayList<>(entries.size());
+        for (final IndexEntry entry : entries) {
+            final String[] bounds = entry.getData().split(IndexWorkPlan.DELIM);
+            fineBuckets.add(new Bucket(Double.parseDouble(bounds[0]), Double.parseDouble(bounds[1]), entry.getCount()));
+        }
+        return ValueHistogram.fromFineBuckets(valueClass, fineBuckets, ValueHistogram.DEFAULT_BUCKET_COUNT)
+                .estimate(Math.min(lower, upper), Math.max(lower, upper));
+    }
+
+    /**
+     * Estimates the count from the sketch the latest Prospect run built for the predicate.
+     */
+    @Override
+    public double getDistinctCount(RdfCloudTripleStoreConfiguration conf, IRI predicate, CARDINALITY_OF position) throws RdfDAOException {
+        assert conf != null && predicate != null && position != null;
+
+        final String triplePart;
+        switch (position) {
+            case SUBJECT:
+                triplePart = TripleValueType.SUBJECT.getIndexType();
+                break;
+            case OBJECT:
+                triplePart = TripleValueType.OBJECT.getIndexType();
+                break;
+            default:
+                return -1;
+        }
+
+        final DistinctValueSketch sketch = new DistinctValueSketch();
+        try {
+            final List<IndexEntry> entries = prospectorService.query(null, ProspectorConstants.DISTINCT, triplePart,
+                    Collections.singletonList(predicate.stringValue()), null, conf.getAuths());
+            for (final IndexEntry entry : entries) {
+                // Registers written under different visibilities are merged like any other registers.
+                sketch.merge(Integer.parseInt(entry.getData()), entry.getCount().intValue());
+            }
+        } catch (final TableNotFoundException e) {
+            throw new RdfDAOException(e);
+        }
+        return sketch.isEmpty() ? -1 : sketch.estimate();
+    }
+
     @Override
     public void setConf(RdfCloudTripleStoreConfiguration conf) {
     }
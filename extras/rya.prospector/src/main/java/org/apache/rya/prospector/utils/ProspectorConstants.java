@@ -27,6 +27,16 @@ public class ProspectorConstants {
      */
     public static final String COUNT = "count";
 
+    /**
+     * The name of the index that holds histograms of the numeric and date objects of each predicate.
+     */
+    public static final String HISTOGRAM = "histogram";
+
+    /**
+     * The name of the index that holds sketches of the number of distinct subjects and objects of each predicate.
+     */
+    public static final String DISTINCT = "distinct";
+
     /**
      * The Row ID within Accumulo for any metadata entry related to a Prospect run.
      */
@@ -38,6 +48,19 @@ public class ProspectorConstants {
      */
     public static final String PROSPECT_TIME = "prospectTime";
 
+    /**
+     * Takes the place of a Prospect run's reversed timestamp in the rows of the counts that are
+     * kept up to date as Statements are written and deleted. They are reset to the latest Prospect
+     * run's counts when a run finishes, and when they exist they are returned instead of that run's counts.
+     */
+    public static final String LIVE = "live";
+
+    /**
+     * The Column Family of the {@link #METADATA} entry that records the time of the Prospect run
+     * the live counts were last seeded from.
+     */
+    public static final String LIVE_SEEDED = "liveSeeded";
+
     public static final String DEFAULT_VIS = "U&FOUO";
     public static final byte[] EMPTY = new byte [0];
 
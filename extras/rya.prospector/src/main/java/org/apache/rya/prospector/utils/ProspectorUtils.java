@@ -26,10 +26,13 @@ import static org.apache.rya.prospector.utils.ProspectorConstants.ZOOKEEPERS;
 
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -37,19 +40,24 @@ import org.apache.accumulo.core.client.BatchWriter;
 import org.apache.accumulo.core.client.Connector;
 import org.apache.accumulo.core.client.Instance;
 import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.client.ZooKeeperInstance;
 import org.apache.accumulo.core.client.mapreduce.AccumuloInputFormat;
 import org.apache.accumulo.core.client.mapreduce.AccumuloOutputFormat;
 import org.apache.accumulo.core.client.mock.MockInstance;
 import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.commons.lang.Validate;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.compress.GzipCodec;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.rya.api.RdfCloudTripleStoreConstants;
 import org.apache.rya.prospector.plans.IndexWorkPlan;
 
 public class ProspectorUtils {
@@ -145,4 +153,48 @@ public class ProspectorUtils {
         bw.flush();
         bw.close();
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads every entry of the rows a plan wrote for one piece of data. Each Prospect run writes
+     * its own row that ends with the run's reversed timestamp, so when no prospect times are
+     * given the first row found belongs to the most recent run and only that row is read.
+     *
+     * @param connector - The Accumulo connector used to read the table. (not null)
+     * @param tableName - The name of the Prospects table. (not null)
+     * @param rowPrefix - The part of the rows that comes before the reversed timestamp,
+     *   including the trailing delimiter. (not null)
+     * @param prospectTimes - The Prospect runs to read, or {@code null} to read the latest one.
+     * @param columnFamily - The column family the plan writes its values to. (not null)
+     * @param auths - The authorizations used to read the entries. (not null)
+     * @return The entries that were found, in key order.
+     * @throws TableNotFoundException The table does not exist.
+     */
+    public static List<Entry<Key, Value>> scanRuns(final Connector connector, final String tableName, final String rowPrefix,
+            final List<Long> prospectTimes, final String columnFamily, final String[] auths) throws TableNotFoundException {
+        final Scanner scanner = connector.createScanner(tableName, new Authorizations(auths));
+        scanner.fetchColumnFamily(new Text(columnFamily));
+
+        final List<Entry<Key, Value>> entries = new ArrayList<>();
+        if (prospectTimes != null) {
+            for (final Long prospectTime : prospectTimes) {
+                scanner.setRange(Range.exact(rowPrefix + getReverseIndexDateTime(new Date(prospectTime))));
+                for (final Entry<Key, Value> entry : scanner) {
+                    entries.add(entry);
+                }
+            }
+        } else {
+            scanner.setRange(new Range(rowPrefix, rowPrefix + RdfCloudTripleStoreConstants.LAST));
+            Text latestRow = null;
+            for (final Entry<Key, Value> entry : scanner) {
+                final Text row = entry.getKey().getRow();
+                if (latestRow == null) {
+                    latestRow = row;
+                } else if (!latestRow.equals(row)) {
+                    break;
+                }
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.prospector.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link DistinctValueSketch}.
+ */
+public class DistinctValueSketchTest {
+
+    @Test
+    public void estimate_small() {
+        final DistinctValueSketch sketch = new DistinctValueSketch();
+        assertTrue(sketch.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            sketch.offer("urn:subject" + (i % 10));
+        }
+        assertEquals(10, sketch.estimate(), 1);
+    }
+
+    @Test
+    public void estimate_large() {
+        final DistinctValueSketch sketch = new DistinctValueSketch();
+        for (int i = 0; i < 100000; i++) {
+            sketch.offer("urn:subject" + i);
+        }
+        // Well within four standard errors.
+        assertEquals(100000, sketch.estimate(), 100000 * 0.2);
+    }
+
+    @Test
+    public void merge_sameAsOffer() {
+        final DistinctValueSketch offered = new DistinctValueSketch();
+        final DistinctValueSketch merged = new DistinctValueSketch();
+        for (int i = 0; i < 5000; i++) {
+            final String value = "urn:object" + i;
+            offered.offer(value);
+            final long hash = DistinctValueSketch.hash(value);
+            merged.merge(DistinctValueSketch.getRegister(hash), DistinctValueSketch.getRank(hash));
+        }
+        assertEquals(offered.estimate(), merged.estimate(), 0.0);
+    }
+}
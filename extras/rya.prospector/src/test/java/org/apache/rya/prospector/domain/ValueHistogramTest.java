@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.prospector.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.rya.prospector.domain.ValueHistogram.Bucket;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+import org.junit.Test;
+
+/**
+ * Tests the methods of {@link ValueHistogram}.
+ */
+public class ValueHistogramTest {
+
+    @Test
+    public void fineBucket_containsValue() {
+        for (final double value : new double[] { 1, 7.5, 1000, 123456789, -42, 0.001 }) {
+            final Bucket bucket = ValueHistogram.getFineBucket(value);
+            assertTrue(bucket.getLower() <= value);
+            assertTrue(value <= bucket.getUpper());
+            // Each bucket covers 1/256th of its power of two.
+            assertTrue((bucket.getUpper() - bucket.getLower()) / Math.abs(value) <= 1.0 / 256);
+        }
+        assertEquals(new Bucket(0, 0, 1), ValueHistogram.getFineBucket(0));
+    }
+
+    @Test
+    public void toNumber() {
+        assertEquals(5.0, ValueHistogram.toNumber("5", XMLSchema.INT.stringValue()), 0.0);
+        assertEquals(2.5, ValueHistogram.toNumber("2.5", XMLSchema.DECIMAL.stringValue()), 0.0);
+        assertEquals(0.0, ValueHistogram.toNumber("1970-01-01T00:00:00Z", XMLSchema.DATETIME.stringValue()), 0.0);
+        assertNull(ValueHistogram.toNumber("5", XMLSchema.STRING.stringValue()));
+        assertNull(ValueHistogram.toNumber("five", XMLSchema.INT.stringValue()));
+    }
+
+    @Test
+    public void fromFineBuckets_equiDepth() {
+        // 1000 values, 1 through 1000.
+        final List<Bucket> fineBuckets = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            fineBuckets.add(ValueHistogram.getFineBucket(i));
+        }
+
+        final ValueHistogram histogram = ValueHistogram.fromFineBuckets(ValueHistogram.NUMERIC, fineBuckets, 10);
+        assertEquals(1000, histogram.getTotal());
+        assertTrue(histogram.getBuckets().size() <= 10);
+        for (final Bucket bucket : histogram.getBuckets().subList(0, histogram.getBuckets().size() - 1)) {
+            assertTrue(bucket.getCount() >= 100);
+        }
+    }
+
+    @Test
+    public void estimate() {
+        final List<Bucket> fineBuckets = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            fineBuckets.add(ValueHistogram.getFineBucket(i));
+        }
+        final ValueHistogram histogram = ValueHistogram.fromFineBuckets(ValueHistogram.NUMERIC, fineBuckets, ValueHistogram.DEFAULT_BUCKET_COUNT);
+
+        assertEquals(1000, histogram.estimate(0, 2000), 0.001);
+        assertEquals(100, histogram.estimate(101, 200), 20);
+        assertEquals(0, histogram.estimate(2000, 3000), 0.0);
+        assertTrue(histogram.estimate(500, 500) >= 1);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.prospector.indexer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.rya.accumulo.AccumuloRdfConfiguration;
+import org.apache.rya.accumulo.AccumuloRyaDAO;
+import org.apache.rya.api.domain.RyaIRI;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.domain.RyaType;
+import org.apache.rya.api.persist.RdfEvalStatsDAO.CARDINALITY_OF;
+import org.apache.rya.prospector.domain.TripleValueType;
+import org.apache.rya.prospector.plans.IndexWorkPlan;
+import org.apache.rya.prospector.service.ProspectorService;
+import org.apache.rya.prospector.service.ProspectorServiceEvalStatsDAO;
+import org.apache.rya.prospector.utils.ProspectorConstants;
+import org.apache.rya.prospector.utils.ProspectorUtils;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the {@link IncrementalProspectorIndexer} keeps the counts read by the
+ * {@link ProspectorServiceEvalStatsDAO} up to date without a Prospector run.
+ */
+public class IncrementalProspectorIndexerTest {
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+    private Connector connector;
+    private AccumuloRdfConfiguration conf;
+    private AccumuloRyaDAO ryaDAO;
+    private ProspectorServiceEvalStatsDAO evalDao;
+
+    @Before
+    public void setup() throws Exception {
+        connector = new MockInstance("incremental").getConnector("root", new PasswordToken(""));
+
+        conf = new AccumuloRdfConfiguration();
+        conf.setTablePrefix("incremental_");
+        conf.setAdditionalIndexers(IncrementalProspectorIndexer.class);
+
+        ryaDAO = new AccumuloRyaDAO();
+        ryaDAO.setConnector(connector);
+        ryaDAO.setConf(conf);
+        ryaDAO.init();
+
+        evalDao = new ProspectorServiceEvalStatsDAO(connector, conf);
+        evalDao.init();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        ryaDAO.purge(conf);
+        ryaDAO.destroy();
+    }
+
+    @Test
+    public void countsFollowWritesAndDeletes() throws Exception {
+        final RyaStatement first = new RyaStatement(new RyaIRI("urn:gem:etype#1234"), new RyaIRI("urn:gem#pred"), new RyaType("mydata1"));
+        ryaDAO.add(first);
+        ryaDAO.add(new RyaStatement(new RyaIRI("urn:gem:etype#1234"), new RyaIRI("urn:gem#pred"), new RyaType("mydata2")));
+        ryaDAO.add(new RyaStatement(new RyaIRI("urn:gem:etype#1235"), new RyaIRI("urn:gem#pred"), new RyaType("mydata1")));
+        ryaDAO.add(new RyaStatement(new RyaIRI("urn:gem:etype#1235"), new RyaIRI("urn:gem#pred1"), new RyaType("mydata1")));
+
+        assertEquals(3.0, cardinality(CARDINALITY_OF.PREDICATE, VF.createIRI("urn:gem#pred")), 0.001);
+        assertEquals(3.0, cardinality(CARDINALITY_OF.OBJECT, VF.createLiteral("mydata1")), 0.001);
+
+        // Delete a single Statement.
+        ryaDAO.delete(first, conf);
+        assertEquals(2.0, cardinality(CARDINALITY_OF.PREDICATE, VF.createIRI("urn:gem#pred")), 0.001);
+        assertEquals(2.0, cardinality(CARDINALITY_OF.OBJECT, VF.createLiteral("mydata1")), 0.001);
+
+        // Delete every Statement about a subject.
+        ryaDAO.delete(new RyaStatement(new RyaIRI("urn:gem:etype#1235"), null, null), conf);
+        assertEquals(1.0, cardinality(CARDINALITY_OF.PREDICATE, VF.createIRI("urn:gem#pred")), 0.001);
+        assertEquals(0.0, cardinality(CARDINALITY_OF.PREDICATE, VF.createIRI("urn:gem#pred1")), 0.001);
+        assertEquals(0.0, cardinality(CARDINALITY_OF.OBJECT, VF.createLiteral("mydata1")), 0.001);
+    }
+
+    @Test
+    public void liveCountsFollowTheLatestProspectRun() throws Exception {
+        // A Statement that is written twice is counted twice.
+        final RyaStatement statement = new RyaStatement(new RyaIRI("urn:gem:etype#1234"), new RyaIRI("urn:gem#pred"), new RyaType("mydata1"));
+        ryaDAO.add(statement);
+        ryaDAO.add(statement);
+        assertEquals(2.0, cardinality(CARDINALITY_OF.PREDICATE, VF.createIRI("urn:gem#pred")), 0.001);
+
+        // A Prospect run that counted the Statement once finishes, so the live counts continue from it.
+        final Date runTime = new Date(System.currentTimeMillis() - 60000);
+        final String tableName = ProspectorServiceEvalStatsDAO.getProspectTableName(conf);
+        final Mutation count = new Mutation(TripleValueType.PREDICATE.getIndexType() + IndexWorkPlan.DELIM + "urn:gem#pred"
+                + IndexWorkPlan.DELIM + ProspectorUtils.getReverseIndexDateTime(runTime));
+        count.put(ProspectorConstants.COUNT, IndexWorkPlan.URITYPE, new ColumnVisibility(""), runTime.getTime(),
+                new org.apache.accumulo.core.data.Value("1".getBytes(StandardCharsets.UTF_8)));
+        final Mutation run = new Mutation(ProspectorConstants.METADATA);
+        run.put(ProspectorConstants.PROSPECT_TIME, ProspectorUtils.getReverseIndexDateTime(runTime), new ColumnVisibility(""),
+                runTime.getTime(), new org.apache.accumulo.core.data.Value(ProspectorConstants.EMPTY));
+        ProspectorUtils.writeMutations(connector, tableName, Arrays.asList(count, run));
+
+        final ProspectorService service = new ProspectorService(connector, tableName);
+        assertTrue(service.refreshLiveCounts(conf.getAuths()));
+        assertEquals(1.0, cardinality(CARDINALITY_OF.PREDICATE, VF.createIRI("urn:gem#pred")), 0.001);
+
+        // Later writes are added on top of the run's counts.
+        ryaDAO.add(new RyaStatement(new RyaIRI("urn:gem:etype#1235"), new RyaIRI("urn:gem#pred"), new RyaType("mydata2")));
+        assertEquals(2.0, cardinality(CARDINALITY_OF.PREDICATE, VF.createIRI("urn:gem#pred")), 0.001);
+
+        // Data the run did not count, such as the object, drops back to the run's count of zero.
+        assertEquals(1.0, cardinality(CARDINALITY_OF.OBJECT, VF.createLiteral("mydata2")), 0.001);
+        assertEquals(0.0, cardinality(CARDINALITY_OF.OBJECT, VF.createLiteral("mydata1")), 0.001);
+
+        // The live counts are only reset once per run.
+        assertFalse(service.refreshLiveCounts(conf.getAuths()));
+        assertEquals(2.0, cardinality(CARDINALITY_OF.PREDICATE, VF.createIRI("urn:gem#pred")), 0.001);
+    }
+
+    private double cardinality(final CARDINALITY_OF card, final Value value) throws Exception {
+        final List<Value> values = Collections.singletonList(value);
+        return evalDao.getCardinality(conf, card, values);
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.rya.streams.client.command;
 
 import static java.util.Objects.requireNonNull;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Properties;
@@ -36,6 +37,7 @@ import org.apache.rya.streams.kafka.KafkaTopics;
 import org.apache.rya.streams.kafka.interactor.KafkaRunQuery;
 import org.apache.rya.streams.kafka.interactor.KafkaTopicPropertiesBuilder;
 import org.apache.rya.streams.kafka.queries.KafkaQueryChangeLogFactory;
+import org.apache.rya.streams.kafka.serialization.SerializationFormat;
 import org.apache.rya.streams.kafka.topology.TopologyFactory;
 
 import com.beust.jcommander.JCommander;
@@ -61,6 +63,12 @@ public class RunQueryCommand implements RyaStreamsCommand {
         @Parameter(names = {"--zookeepers", "-z"}, required = true, description = "The servers that Zookeeper runs on.")
         private String zookeeperServers;
 
+        @Parameter(names = {"--serialization", "-s"}, required = false, description = "The format the query's results are written with: JAVA, BINARY, or BINARY_LZ4.")
+        private String serialization = SerializationFormat.JAVA.name();
+
+        @Parameter(names = {"--joinRetentionSeconds", "-j"}, required = false, description = "How long the query's joins join with a binding set after it was emitted. If not set, binding sets are retained forever.")
+        private Long joinRetentionSeconds = null;
+
         @Override
         public String toString() {
             final StringBuilder parameters = new StringBuilder();
@@ -70,6 +78,12 @@ public class RunQueryCommand implements RyaStreamsCommand {
                 parameters.append("\tQueryID: " + queryId);
                 parameters.append("\n");
             }
+            parameters.append("\tSerialization: " + serialization);
+            parameters.append("\n");
+            if (joinRetentionSeconds != null) {
+                parameters.append("\tJoin Retention Seconds: " + joinRetentionSeconds);
+                parameters.append("\n");
+            }
             return parameters.toString();
         }
     }
@@ -117,6 +131,14 @@ public class RunQueryCommand implements RyaStreamsCommand {
             throw new ArgumentsException("Could not add a new query because of invalid command line parameters.", e);
         }
 
+        final SerializationFormat format;
+        try {
+            format = SerializationFormat.valueOf(params.serialization.toUpperCase());
+        } catch(final IllegalArgumentException e) {
+            throw new ArgumentsException("Unknown serialization format " + params.serialization + ".", e);
+        }
+        final Optional<Duration> joinRetention = Optional.ofNullable(params.joinRetentionSeconds).map(Duration::ofSeconds);
+
         // Create the Kafka backed QueryChangeLog.
         final String bootstrapServers = params.kafkaIP + ":" + params.kafkaPort;
         final String topic = KafkaTopics.queryChangeLogTopic(params.ryaInstance);
@@ -152,7 +174,7 @@ public class RunQueryCommand implements RyaStreamsCommand {
                         KafkaTopics.statementsTopic(params.ryaInstance),
                         KafkaTopics.queryResultsTopic(params.ryaInstance, queryId),
                         queryRepo,
-                        new TopologyFactory());
+                        new TopologyFactory(format, joinRetention));
                 runQuery.run(queryId);
             } catch(final Exception e) {
                 throw new ExecutionException("Could not execute the Run Query command.", e);
@@ -20,8 +20,10 @@ package org.apache.rya.streams.kafka.processors.join;
 
 import static java.util.Objects.requireNonNull;
 
+import java.time.Duration;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.apache.kafka.streams.processor.Processor;
@@ -53,6 +55,27 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
     private final IterativeJoin join;
     private final List<String> joinVars;
     private final List<String> allVars;
+    private final Optional<Duration> retention;
+
+    /**
+     * Constructs an instance of {@link JoinProcessorSupplier} whose processors retain binding sets forever.
+     *
+     * @param stateStoreName - The name of the state store the processor will use. (not null)
+     * @param join - The join function the supplied processor will use. (not null)
+     * @param joinVars - The variables that the supplied processor will join over. (not null)
+     * @param allVars - An ordered list of all the variables that may appear in resulting Binding Sets.
+     *   This list must lead with the same variables and order as {@code joinVars}. (not null)
+     * @param resultFactory - The factory that the supplied processors will use to create results. (not null)
+     * @throws IllegalArgumentException Thrown if {@code allVars} does not start with {@code joinVars}.
+     */
+    public JoinProcessorSupplier(
+            final String stateStoreName,
+            final IterativeJoin join,
+            final List<String> joinVars,
+            final List<String> allVars,
+            final ProcessorResultFactory resultFactory) throws IllegalArgumentException {
+        this(stateStoreName, join, joinVars, allVars, Optional.empty(), resultFactory);
+    }
 
     /**
      * Constructs an instance of {@link JoinProcessorSupplier}.
@@ -62,6 +85,8 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
      * @param joinVars - The variables that the supplied processor will join over. (not null)
      * @param allVars - An ordered list of all the variables that may appear in resulting Binding Sets.
      *   This list must lead with the same variables and order as {@code joinVars}. (not null)
+     * @param retention - How long the supplied processors join with a binding set after it was emitted.
+     *   If empty, binding sets are retained forever. (not null)
      * @param resultFactory - The factory that the supplied processors will use to create results. (not null)
      * @throws IllegalArgumentException Thrown if {@code allVars} does not start with {@code joinVars}.
      */
@@ -70,12 +95,14 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
             final IterativeJoin join,
             final List<String> joinVars,
             final List<String> allVars,
+            final Optional<Duration> retention,
             final ProcessorResultFactory resultFactory) throws IllegalArgumentException {
         super(resultFactory);
         this.stateStoreName = requireNonNull(stateStoreName);
         this.join = requireNonNull(join);
         this.joinVars = requireNonNull(joinVars);
         this.allVars = requireNonNull(allVars);
+        this.retention = requireNonNull(retention);
 
         if(!allVars.subList(0, joinVars.size()).equals(joinVars)) {
             throw new IllegalArgumentException("The allVars list must start with the joinVars list, but it did not. " +
@@ -85,14 +112,17 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
 
     @Override
     public Processor<Object, ProcessorResult> get() {
-        return new JoinProcessor(stateStoreName, join, joinVars, allVars, super.getResultFactory());
+        return new JoinProcessor(stateStoreName, join, joinVars, allVars, retention, super.getResultFactory());
     }
 
     /**
-     * Joins {@link VisibilityBindingSet}s against all binding sets that were emitted on the other side. This function
-     * does not have an age off policy, so it will match everything that could have ever possibly matched, however this
-     * may become prohibitive for joins that match a large volume of binding sets since this will indefinitely grow
-     * within the state store.
+     * Joins {@link VisibilityBindingSet}s against all binding sets that were emitted on the other side. Without a
+     * retention period this function does not have an age off policy, so it will match everything that could have
+     * ever possibly matched, however this may become prohibitive for joins that match a large volume of binding sets
+     * since this will indefinitely grow within the state store. With a retention period, binding sets are only
+     * joined with for that long after they were emitted and are then removed from the state store.
+     * </p>
+     * The size of the state store is published as a {@link JoinStateMetricsMBean}.
      */
     @DefaultAnnotation(NonNull.class)
     public static class JoinProcessor extends RyaStreamsProcessor {
@@ -103,8 +133,11 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
         private final IterativeJoin join;
         private final List<String> joinVars;
         private final List<String> allVars;
+        private final Optional<Duration> retention;
         private final ProcessorResultFactory resultFactory;
 
+        private final JoinStateMetrics metrics = new JoinStateMetrics();
+
         private ProcessorContext context;
         private JoinStateStore joinStateStore;
 
@@ -116,6 +149,8 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
          * @param joinVars - The variables that the processor will join over. (not null)
          * @param allVars - An ordered list of all the variables that may appear in resulting Binding Sets.
          *   This list must lead with the same variables and order as {@code joinVars}. (not null)
+         * @param retention - How long a binding set is joined with after it was emitted. If empty, binding sets
+         *   are retained forever. (not null)
          * @param resultFactory - The factory that will format this processor's final results
          *   for the downstream processor. (not null)
          */
@@ -124,12 +159,14 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
                 final IterativeJoin join,
                 final List<String> joinVars,
                 final List<String> allVars,
+                final Optional<Duration> retention,
                 final ProcessorResultFactory resultFactory) {
             super(resultFactory);
             this.stateStoreName = requireNonNull(stateStoreName);
             this.join = requireNonNull(join);
             this.joinVars = requireNonNull(joinVars);
             this.allVars = requireNonNull(allVars);
+            this.retention = requireNonNull(retention);
             this.resultFactory = requireNonNull(resultFactory);
 
             if(!allVars.subList(0, joinVars.size()).equals(joinVars)) {
@@ -147,9 +184,15 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
             final UUID queryId = UuidUtils.extractUuidFromStringEnd(appId);
 
             // Get a reference to the state store that keeps track of what can be joined with.
-            final KeyValueStore<String, VisibilityBindingSet> stateStore =
-                    (KeyValueStore<String, VisibilityBindingSet>) context.getStateStore( stateStoreName );
-            joinStateStore = new KeyValueJoinStateStore( stateStore, queryId.toString(), joinVars, allVars );
+            final KeyValueStore<byte[], VisibilityBindingSet> stateStore =
+                    (KeyValueStore<byte[], VisibilityBindingSet>) context.getStateStore( stateStoreName );
+            joinStateStore = new KeyValueJoinStateStore( stateStore, joinVars, allVars, retention, metrics );
+            metrics.register(queryId.toString(), context.taskId().toString(), stateStoreName);
+
+            // Periodically sweep the binding sets whose retention period has passed out of the state store.
+            if(retention.isPresent()) {
+                context.schedule( retention.get().toMillis() );
+            }
         }
 
         @Override
@@ -161,10 +204,11 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
             final BinaryResult binary = value.getBinary();
 
             // Store the new result in the state store so that future joins may include it.
-            joinStateStore.store(binary);
+            final long timestamp = context.timestamp();
+            joinStateStore.store(binary, timestamp);
 
             // Fetch the binding sets that the emitted value joins with.
-            try(final CloseableIterator<VisibilityBindingSet> otherSide = joinStateStore.getJoinedValues(binary)) {
+            try(final CloseableIterator<VisibilityBindingSet> otherSide = joinStateStore.getJoinedValues(binary, timestamp)) {
                 // Create an iterator that performs the join operation.
                 final Iterator<VisibilityBindingSet> joinResults = binary.getSide() == Side.LEFT ?
                         join.newLeftResult(binary.getResult(), otherSide) :
@@ -186,12 +230,13 @@ public class JoinProcessorSupplier extends RyaStreamsProcessorSupplier {
 
         @Override
         public void punctuate(final long timestamp) {
-            // Nothing to do.
+            joinStateStore.removeExpired(timestamp);
+            log.debug("Join state of {}: {}", stateStoreName, metrics);
         }
 
         @Override
         public void close() {
-            // Nothing to do.
+            metrics.unregister();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.streams.kafka.processors.join;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Tracks the size of and the work done against a single join processor's state store. Instances
+ * may be registered with the platform MBean server so that the state of long running joins can be
+ * monitored.
+ */
+@DefaultAnnotation(NonNull.class)
+public class JoinStateMetrics implements JoinStateMetricsMBean {
+
+    private static final Logger log = LoggerFactory.getLogger(JoinStateMetrics.class);
+
+    private final AtomicLong storedEntries = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong scannedEntries = new AtomicLong();
+    private final AtomicLong expiredEntries = new AtomicLong();
+
+    private ObjectName registeredName = null;
+
+    /**
+     * Registers these metrics with the platform MBean server. A failure to register is logged and ignored.
+     *
+     * @param queryId - The ID of the query the join belongs to. (not null)
+     * @param taskId - The ID of the stream task that runs the join processor. Each task holds its own
+     *   partition of the join state, so each task's metrics are registered separately. (not null)
+     * @param processorId - The ID of the join processor. (not null)
+     */
+    public synchronized void register(final String queryId, final String taskId, final String processorId) {
+        requireNonNull(queryId);
+        requireNonNull(taskId);
+        requireNonNull(processorId);
+
+        try {
+            final ObjectName name = new ObjectName("org.apache.rya.streams:type=JoinState" +
+                    ",query=" + ObjectName.quote(queryId) +
+                    ",task=" + ObjectName.quote(taskId) +
+                    ",processor=" + ObjectName.quote(processorId));
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if(server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (final JMException e) {
+            log.warn("Could not register the join state metrics for processor " + processorId + ".", e);
+        }
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server if they were registered.
+     */
+    public synchronized void unregister() {
+        if(registeredName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (final JMException e) {
+                log.warn("Could not unregister the join state metrics " + registeredName + ".", e);
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * @param delta - The change in the number of binding sets that are held within the state store.
+     */
+    public void addStoredEntries(final long delta) {
+        storedEntries.addAndGet(delta);
+    }
+
+    /**
+     * Records that a binding set was written to the state store.
+     */
+    public void recordWrite() {
+        writes.incrementAndGet();
+    }
+
+    /**
+     * Records that a range scan was performed.
+     */
+    public void recordScan() {
+        scans.incrementAndGet();
+    }
+
+    /**
+     * Records that a binding set was read by a range scan.
+     */
+    public void recordScannedEntry() {
+        scannedEntries.incrementAndGet();
+    }
+
+    /**
+     * Records that a binding set was removed because its retention period passed.
+     */
+    public void recordExpiredEntry() {
+        expiredEntries.incrementAndGet();
+        storedEntries.decrementAndGet();
+    }
+
+    @Override
+    public long getStoredEntries() {
+        return storedEntries.get();
+    }
+
+    @Override
+    public long getWrites() {
+        return writes.get();
+    }
+
+    @Override
+    public long getScans() {
+        return scans.get();
+    }
+
+    @Override
+    public long getScannedEntries() {
+        return scannedEntries.get();
+    }
+
+    @Override
+    public long getExpiredEntries() {
+        return expiredEntries.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Stored Entries: " + storedEntries.get() +
+                ", Writes: " + writes.get() +
+                ", Scans: " + scans.get() +
+                ", Scanned Entries: " + scannedEntries.get() +
+                ", Expired Entries: " + expiredEntries.get();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.streams.kafka.processors.join;
+
+/**
+ * The JMX interface of {@link JoinStateMetrics}.
+ */
+public interface JoinStateMetricsMBean {
+
+    /**
+     * @return The number of binding sets that are held within the join's state store.
+     */
+    public long getStoredEntries();
+
+    /**
+     * @return The number of binding sets that have been written to the join's state store.
+     */
+    public long getWrites();
+
+    /**
+     * @return The number of range scans that have been performed to find joining binding sets.
+     */
+    public long getScans();
+
+    /**
+     * @return The number of binding sets that have been read by those range scans.
+     */
+    public long getScannedEntries();
+
+    /**
+     * @return The number of binding sets that have been removed because their retention period passed.
+     */
+    public long getExpiredEntries();
+}
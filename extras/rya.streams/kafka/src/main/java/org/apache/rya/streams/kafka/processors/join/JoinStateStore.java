@@ -28,6 +28,9 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 /**
  * Provides a mechanism for storing {@link VisibilityBindingSet}s that have been emitted from either side of
  * a Join and a way to fetch all {@link VisibilityBindingSet}s that join with it from the other side.
+ * </p>
+ * Implementations may age off binding sets that were stored a retention period before the timestamps
+ * that are provided to them.
  */
 @DefaultAnnotation(NonNull.class)
 public interface JoinStateStore {
@@ -36,14 +39,24 @@ public interface JoinStateStore {
      * Store a {@link VisibilityBindingSet} based on the side it was emitted from.
      *
      * @param result - The result whose value will be stored. (not null)
+     * @param timestamp - The stream time at which the result was emitted.
      */
-    public void store(BinaryResult result);
+    public void store(BinaryResult result, long timestamp);
 
     /**
      * Get the previously stored {@link VisibilityBindingSet}s that join with the provided result.
      *
      * @param result - The value that will be joined with. (not null)
+     * @param timestamp - The stream time at which the result was emitted.
      * @return The {@link VisibilityBinidngSet}s that join with {@code result}.
      */
-    public CloseableIterator<VisibilityBindingSet> getJoinedValues(BinaryResult result);
+    public CloseableIterator<VisibilityBindingSet> getJoinedValues(BinaryResult result, long timestamp);
+
+    /**
+     * Remove the {@link VisibilityBindingSet}s whose retention period has passed. Implementations may
+     * spread the removal across several calls to bound the work done by each one.
+     *
+     * @param timestamp - The current stream time.
+     */
+    public void removeExpired(long timestamp);
 }
\ No newline at end of file
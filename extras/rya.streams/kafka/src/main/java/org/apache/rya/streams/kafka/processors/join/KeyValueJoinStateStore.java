@@ -20,7 +20,10 @@ package org.apache.rya.streams.kafka.processors.join;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,12 +34,15 @@ import org.apache.rya.api.model.VisibilityBindingSet;
 import org.apache.rya.api.utils.CloseableIterator;
 import org.apache.rya.streams.kafka.processors.ProcessorResult.BinaryResult;
 import org.apache.rya.streams.kafka.processors.ProcessorResult.BinaryResult.Side;
-import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.eclipse.rdf4j.query.Binding;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Charsets;
-import com.google.common.base.Joiner;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
 
 import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
 import edu.umd.cs.findbugs.annotations.NonNull;
@@ -45,76 +51,126 @@ import edu.umd.cs.findbugs.annotations.NonNull;
  * A {@link KeyValueStore} implementation of {@link JoinStateStore}.
  * </p>
  * This is a key/value store, so we need to store the {@link VisibilityBindingSet}s using keys that allow us to fetch
- * all binding sets that join from a specific side. We use the following pattern to accomplish this:
+ * all binding sets that join from a specific side. We use the following binary pattern to accomplish this:
  * <pre>
- * [side],[joinVar1 value], [joinVar2 value], ..., [joinVarN value]
+ * [side][joinVar1 value]...[joinVarN value][hash of the remaining values][timestamp]
  * </pre>
- * This will group all binding sets that have been emitted from a specific side and who have the same join variables
- * next to each other within the store. This isn't enough information to fetch that group, though. We must provide a
- * start and end key to bound the range that is fetched back. To accomplish this, we place a start of range marker
- * as the first key for all unique [side]/[join values] groups, and an end of range marker as the last key for each
- * of those groups. All keys in between the start and end markers separate their
- * [joinVars] from their [remainingBindingValues] with the join variable end
- * marker, {@link #JOIN_VAR_END_MARKER}.
+ * The side is a single byte. Each join variable's value is written as a varint length followed by the value's
+ * UTF-8 bytes. The length is one greater than the number of bytes so that zero can mark an unbound variable.
+ * The hash is a 128 bit hash of the values of the variables that are not join variables and the timestamp is
+ * the 8 byte big endian stream time at which the binding set was stored.
  * </p>
- * The rows follow this pattern:
- * <pre>
- * [side],[joinVar1 value], [joinVar2 value], ..., [joinVarN value]0x00
- * [side],[joinVar1 value], [joinVar2 value], ..., [joinVarN value][JOIN_VAR_END_MARKER],[remainingBindingValues]
- * [side],[joinVar1 value], [joinVar2 value], ..., [joinVarN value]0xFF
- * </pre>
+ * Because the join values are length prefixed, no key of one [side]/[join values] group can begin with the
+ * prefix of another group, so every binding set that joins is found by a range scan from the group's prefix
+ * followed by all 0x00 bytes to the group's prefix followed by all 0xFF bytes. No range marker rows are stored.
+ * </p>
+ * Storing a binding set first removes any earlier copy of it from the group, so each binding set is only held
+ * once and its timestamp is refreshed. When a retention period is provided, binding sets that were stored more
+ * than that long before the current stream time are skipped while scanning and removed from the store.
+ * The binding sets that are never scanned again are removed by {@link #removeExpired(long)}, which examines
+ * at most a bounded number of entries per call and resumes where the previous call stopped, so a pass over
+ * a large store is spread across several punctuations instead of reading the whole store each time.
  * </p>
- * When an iterator over the results is returned, it skips over the start and end of range markers.
+ * The underlying store must order its keys by their unsigned bytes, which is how RocksDB backed stores behave.
  */
 @DefaultAnnotation(NonNull.class)
 public class KeyValueJoinStateStore implements JoinStateStore {
 
     private static final Logger log = LoggerFactory.getLogger(KeyValueJoinStateStore.class);
 
-    /**
-     * This is the minimum value in UTF-8 character.
-     */
-    private static final String START_RANGE_SUFFIX = new String(new byte[] { 0x00 }, Charsets.UTF_8);
+    private static final byte LEFT_SIDE = 0x00;
+    private static final byte RIGHT_SIDE = 0x01;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final int HASH_LENGTH = 16;
+    private static final int TIMESTAMP_LENGTH = 8;
 
     /**
-     * This is the maximum value of a UTF-8 character.
+     * The default maximum number of entries examined by each call to {@link #removeExpired(long)}.
      */
-    private static final String END_RANGE_SUFFIX = new String(new byte[] { (byte) 0xFF }, Charsets.UTF_8);
+    public static final int DEFAULT_SWEEP_LIMIT = 10_000;
+
+    // Every key starts with a side byte, so these bound every key within the store.
+    private static final byte[] FIRST_KEY = new byte[] { LEFT_SIDE };
+    private static final byte[] LAST_KEY = new byte[] { RIGHT_SIDE + 1 };
+
+    private final KeyValueStore<byte[], VisibilityBindingSet> store;
+    private final List<String> joinVars;
+    private final List<String> remainingVars;
+    private final Optional<Long> retentionMs;
+    private final JoinStateMetrics metrics;
+    private final int sweepLimit;
+
+    // The key the next call to removeExpired(long) starts from.
+    private byte[] sweepFrom = FIRST_KEY;
 
     /**
-     * Indicates where the end of the join variables occurs and the start of
-     * the remaining binding values should begin.
+     * Constructs an instance of {@link KeyValueJoinStateStore} that retains binding sets forever.
+     *
+     * @param store - The state store that will be used. (not null)
+     * @param joinVars - The variables that are used to build grouping keys. (not null)
+     * @param allVars - The variables that are used to build full value keys. (not null)
+     * @throws IllegalArgumentException Thrown if {@code allVars} does not start with {@code joinVars}.
      */
-    private static final String JOIN_VAR_END_MARKER = new String(new byte[] { (byte) 0x06, (byte) 0x10, (byte) 0x03, (byte) 0x04}, Charsets.UTF_8);
+    public KeyValueJoinStateStore(
+            final KeyValueStore<byte[], VisibilityBindingSet> store,
+            final List<String> joinVars,
+            final List<String> allVars) throws IllegalArgumentException {
+        this(store, joinVars, allVars, Optional.empty(), new JoinStateMetrics());
+    }
 
     /**
-     * A default empty value that is stored for a start of range or end of range marker.
+     * Constructs an instance of {@link KeyValueJoinStateStore}.
+     * </p>
+     * The binding sets that are already within {@code store} are counted so that the metrics start out accurate.
+     *
+     * @param store - The state store that will be used. (not null)
+     * @param joinVars - The variables that are used to build grouping keys. (not null)
+     * @param allVars - The variables that are used to build full value keys. (not null)
+     * @param retention - How long binding sets are joined with after they were stored. If empty, they are
+     *   retained forever. (not null)
+     * @param metrics - Tracks the size of and the work done against the store. (not null)
+     * @throws IllegalArgumentException Thrown if {@code allVars} does not start with {@code joinVars}.
      */
-    private static final VisibilityBindingSet RANGE_MARKER_VALUE = new VisibilityBindingSet(new MapBindingSet(), "");
-
-    private final KeyValueStore<String, VisibilityBindingSet> store;
-    private final String id;
-    private final List<String> joinVars;
-    private final List<String> allVars;
+    public KeyValueJoinStateStore(
+            final KeyValueStore<byte[], VisibilityBindingSet> store,
+            final List<String> joinVars,
+            final List<String> allVars,
+            final Optional<Duration> retention,
+            final JoinStateMetrics metrics) throws IllegalArgumentException {
+        this(store, joinVars, allVars, retention, metrics, DEFAULT_SWEEP_LIMIT);
+    }
 
     /**
      * Constructs an instance of {@link KeyValueJoinStateStore}.
+     * </p>
+     * The binding sets that are already within {@code store} are counted so that the metrics start out accurate.
      *
      * @param store - The state store that will be used. (not null)
-     * @param id - The ID used for the state store. (not null)
      * @param joinVars - The variables that are used to build grouping keys. (not null)
      * @param allVars - The variables that are used to build full value keys. (not null)
+     * @param retention - How long binding sets are joined with after they were stored. If empty, they are
+     *   retained forever. (not null)
+     * @param metrics - Tracks the size of and the work done against the store. (not null)
+     * @param sweepLimit - The maximum number of entries examined by each call to {@link #removeExpired(long)}. (> 0)
      * @throws IllegalArgumentException Thrown if {@code allVars} does not start with {@code joinVars}.
      */
     public KeyValueJoinStateStore(
-            final KeyValueStore<String, VisibilityBindingSet> store,
-            final String id,
+            final KeyValueStore<byte[], VisibilityBindingSet> store,
             final List<String> joinVars,
-            final List<String> allVars) throws IllegalArgumentException {
+            final List<String> allVars,
+            final Optional<Duration> retention,
+            final JoinStateMetrics metrics,
+            final int sweepLimit) throws IllegalArgumentException {
+        if(sweepLimit <= 0) {
+            throw new IllegalArgumentException("The sweep limit must be positive, but was " + sweepLimit);
+        }
+        this.sweepLimit = sweepLimit;
         this.store = requireNonNull(store);
-        this.id = requireNonNull(id);
         this.joinVars = requireNonNull(joinVars);
-        this.allVars = requireNonNull(allVars);
+        requireNonNull(allVars);
+        this.retentionMs = requireNonNull(retention).map(Duration::toMillis);
+        this.metrics = requireNonNull(metrics);
 
         for(int i = 0; i < joinVars.size(); i++) {
             if(!joinVars.get(i).equals(allVars.get(i))) {
@@ -122,56 +178,77 @@ public class KeyValueJoinStateStore implements JoinStateStore {
                         "Join Vars: " + joinVars + ", All Vars: " + allVars);
             }
         }
+        this.remainingVars = allVars.subList(joinVars.size(), allVars.size());
+
+        long entries = 0;
+        try(final KeyValueIterator<byte[], VisibilityBindingSet> it = store.all()) {
+            while(it.hasNext()) {
+                it.next();
+                entries++;
+            }
+        }
+        metrics.addStoredEntries(entries);
+    }
+
+    /**
+     * @return Tracks the size of and the work done against the store.
+     */
+    public JoinStateMetrics getMetrics() {
+        return metrics;
     }
 
     @Override
-    public void store(final BinaryResult result) {
+    public void store(final BinaryResult result, final long timestamp) {
         requireNonNull(result);
 
-        // The join key prefix is an ordered list of values from the binding set that match the join variables.
-        // This is a prefix for every row that holds values for a specific set of join variable values.
-        final Side side = result.getSide();
         final VisibilityBindingSet bs = result.getResult();
 
-        final String joinKeyPrefix = makeCommaDelimitedValues(side, joinVars, bs, joinVars.size());
-
-        final List<KeyValue<String, VisibilityBindingSet>> values = new ArrayList<>();
-
-        // For each join variable set, we need a start key for scanning.
-        final String startKey = joinKeyPrefix + START_RANGE_SUFFIX;
-        values.add( new KeyValue<>(startKey, RANGE_MARKER_VALUE) );
-
-        // The actual value that was emitted as a result.
-        final String valueKey = makeCommaDelimitedValues(side, allVars, bs, joinVars.size());
+        // The key, minus the timestamp, identifies the binding set within its side and join values.
+        final byte[] joinPrefix = makeJoinPrefix(result.getSide(), bs);
+        final byte[] valuePrefix = Arrays.copyOf(joinPrefix, joinPrefix.length + HASH_LENGTH);
+        System.arraycopy(hashRemainingValues(bs), 0, valuePrefix, joinPrefix.length, HASH_LENGTH);
+
+        // Remove the earlier copies of the binding set so that it is only joined with once.
+        final List<byte[]> previous = new ArrayList<>();
+        try(final KeyValueIterator<byte[], VisibilityBindingSet> it = store.range(
+                withSuffix(valuePrefix, (byte) 0x00, TIMESTAMP_LENGTH),
+                withSuffix(valuePrefix, (byte) 0xFF, TIMESTAMP_LENGTH))) {
+            while(it.hasNext()) {
+                previous.add(it.next().key);
+            }
+        }
+        for(final byte[] key : previous) {
+            store.delete(key);
+        }
 
-        values.add( new KeyValue<>(valueKey, bs) );
+        // Write the binding set using the time it was stored.
+        final byte[] key = Arrays.copyOf(valuePrefix, valuePrefix.length + TIMESTAMP_LENGTH);
+        System.arraycopy(Longs.toByteArray(timestamp), 0, key, valuePrefix.length, TIMESTAMP_LENGTH);
 
-        // And the end key for scanning.
-        final String endKey = joinKeyPrefix + END_RANGE_SUFFIX;
-        values.add( new KeyValue<>(endKey, RANGE_MARKER_VALUE) );
+        log.debug("\nStoring the following value: {}\n", bs);
+        store.put(key, bs);
 
-        // Write the pairs to the store.
-        log.debug("\nStoring the following values: {}\n", values);
-        store.putAll( values );
+        metrics.recordWrite();
+        metrics.addStoredEntries(1 - previous.size());
     }
 
     @Override
-    public CloseableIterator<VisibilityBindingSet> getJoinedValues(final BinaryResult result) {
+    public CloseableIterator<VisibilityBindingSet> getJoinedValues(final BinaryResult result, final long timestamp) {
         requireNonNull(result);
 
         // Get an iterator over the values that start with the join variables for the other side.
         final Side otherSide = result.getSide() == Side.LEFT ? Side.RIGHT : Side.LEFT;
-        final VisibilityBindingSet bs = result.getResult();
-        final String joinKeyPrefix = makeCommaDelimitedValues(otherSide, joinVars, bs, joinVars.size());
+        final byte[] joinPrefix = makeJoinPrefix(otherSide, result.getResult());
 
-        final String startKey = joinKeyPrefix + START_RANGE_SUFFIX;
-        final String endKey = joinKeyPrefix + END_RANGE_SUFFIX;
+        final KeyValueIterator<byte[], VisibilityBindingSet> rangeIt = store.range(
+                withSuffix(joinPrefix, (byte) 0x00, HASH_LENGTH + TIMESTAMP_LENGTH),
+                withSuffix(joinPrefix, (byte) 0xFF, HASH_LENGTH + TIMESTAMP_LENGTH));
+        metrics.recordScan();
 
-        final KeyValueIterator<String, VisibilityBindingSet> rangeIt = store.range(startKey, endKey);
-
-        // Return a CloseableIterator over the range's value fields, skipping the start and end entry.
+        // Return a CloseableIterator over the range's value fields, skipping the values that have expired.
         return new CloseableIterator<VisibilityBindingSet>() {
 
+            private final List<byte[]> expired = new ArrayList<>();
             private Optional<VisibilityBindingSet> next = null;
 
             @Override
@@ -205,109 +282,131 @@ public class KeyValueJoinStateStore implements JoinStateStore {
             }
 
             private Optional<VisibilityBindingSet> readNext() {
-                // Check to see if there's anything left in the iterator.
-                if(!rangeIt.hasNext()) {
-                    return Optional.empty();
-                }
-
-                // Read a candidate key/value pair from the iterator.
-                KeyValue<String, VisibilityBindingSet> candidate = rangeIt.next();
-
-                // If we are initializing, then the first thing we must read is a start of range marker.
-                if(next == null) {
-                    if(!candidate.key.endsWith(START_RANGE_SUFFIX)) {
-                        throw new IllegalStateException("The first key encountered must be a start of range key.");
+                while(rangeIt.hasNext()) {
+                    final KeyValue<byte[], VisibilityBindingSet> candidate = rangeIt.next();
+                    metrics.recordScannedEntry();
+
+                    // Expired values are removed once the scan has been closed.
+                    if(isExpired(candidate.key, timestamp)) {
+                        expired.add(candidate.key);
+                    } else {
+                        return Optional.of( candidate.value );
                     }
-                    log.debug("Read the start of range markers.\n");
-
-                    // Read a new candidate to skip this one.
-                    if(!rangeIt.hasNext()) {
-                        throw new IllegalStateException("There must be another entry after the start of range key.");
-                    }
-                    candidate = rangeIt.next();
                 }
-
-                // If that value is an end of range key, then we are finished. Otherwise, return it.
-                else if(candidate.key.endsWith(END_RANGE_SUFFIX)) {
-                    log.debug("Read the end of range marker.\n");
-
-                    // If there are more messages, that's a problem.
-                    if(rangeIt.hasNext()) {
-                        throw new IllegalStateException("The end of range marker must be the last key in the iterator.");
-                    }
-
-                    return Optional.empty();
-                }
-
-                // Otherwise we found a new value.
-                return Optional.of( candidate.value );
+                return Optional.empty();
             }
 
             @Override
             public void close() throws Exception {
                 rangeIt.close();
+                remove(expired);
             }
         };
     }
 
+    @Override
+    public void removeExpired(final long timestamp) {
+        if(!retentionMs.isPresent()) {
+            return;
+        }
+
+        // Examine a bounded number of entries so that a punctuation does not read the whole store.
+        final List<byte[]> expired = new ArrayList<>();
+        try(final KeyValueIterator<byte[], VisibilityBindingSet> it = store.range(sweepFrom, LAST_KEY)) {
+            int examined = 0;
+            while(examined < sweepLimit && it.hasNext()) {
+                final byte[] key = it.next().key;
+                examined++;
+                if(isExpired(key, timestamp)) {
+                    expired.add(key);
+                }
+            }
+
+            // The next sweep resumes from the first key that was not examined, or starts over at the beginning.
+            sweepFrom = it.hasNext() ? it.next().key : FIRST_KEY;
+        }
+        remove(expired);
+    }
+
+    private void remove(final List<byte[]> expired) {
+        for(final byte[] key : expired) {
+            store.delete(key);
+            metrics.recordExpiredEntry();
+        }
+        if(!expired.isEmpty()) {
+            log.debug("Removed {} expired binding sets from the join state.", expired.size());
+        }
+    }
+
     /**
-     * A utility function that helps construct the keys used by {@link KeyValueJoinStateStore}.
+     * @param key - A key of a stored binding set. (not null)
+     * @param timestamp - The current stream time.
+     * @return {@code true} if the binding set was stored longer than the retention period before {@code timestamp}.
+     */
+    private boolean isExpired(final byte[] key, final long timestamp) {
+        if(!retentionMs.isPresent()) {
+            return false;
+        }
+        final long storedAt = Longs.fromByteArray(Arrays.copyOfRange(key, key.length - TIMESTAMP_LENGTH, key.length));
+        return timestamp - storedAt > retentionMs.get();
+    }
+
+    /**
+     * Builds the part of a key that holds the side and the join variable values.
      *
      * @param side - The side value for the key. (not null)
-     * @param vars - Which variables within the binding set to use for the key's values. (not null)
      * @param bindingSet - The binding set the key is being constructed from. (not null)
-     * @param joinVarSize - the number of join variables at the beginning of
-     * {@code vars}.
-     * @return A comma delimited list of the binding values, leading with the side.
+     * @return The side byte followed by each length prefixed join variable value.
      */
-    private String makeCommaDelimitedValues(final Side side, final List<String> vars, final VisibilityBindingSet bindingSet, final int joinVarSize) {
+    private byte[] makeJoinPrefix(final Side side, final VisibilityBindingSet bindingSet) {
         requireNonNull(side);
-        requireNonNull(vars);
         requireNonNull(bindingSet);
 
-        // Make a an ordered list of the binding set variables.
-        final List<String> values = new ArrayList<>();
-        values.add(id);
-        values.add(side.toString());
-        int count = 0;
-        for(final String var : vars) {
-            count++;
-            String value = bindingSet.hasBinding(var) ? bindingSet.getBinding(var).getValue().toString() : "";
-            if (count == joinVarSize) {
-                // Place the marker at the end of the last joinVar String (and
-                // before the remaining "allVars")
-                // A marker is needed to indicate where the join vars end so
-                // that a range search from "urn:Student9[0x00]" to "urn:Student9[0xFF]"
-                // does not return "urn:Student95,[remainingBindingValues]"
-                // when we want "urn:Student9,[remainingBindingValues]".
-                value += JOIN_VAR_END_MARKER;
+        final ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+        prefix.write(side == Side.LEFT ? LEFT_SIDE : RIGHT_SIDE);
+        for(final String var : joinVars) {
+            final Binding binding = bindingSet.getBinding(var);
+            if(binding == null) {
+                writeVarInt(prefix, 0);
+            } else {
+                final byte[] value = binding.getValue().toString().getBytes(Charsets.UTF_8);
+                writeVarInt(prefix, value.length + 1);
+                prefix.write(value, 0, value.length);
             }
-            values.add(value);
         }
-
-        // Return a comma delimited list of those values.
-        return Joiner.on(",").join(values);
+        return prefix.toByteArray();
     }
 
-    private void printStateStoreRange(final String startKey, final String endKey) {
-        final KeyValueIterator<String, VisibilityBindingSet> rangeIt = store.range(startKey, endKey);
-        printStateStoreKeyValueIterator(rangeIt);
+    /**
+     * @param bindingSet - The binding set whose non-join values will be hashed. (not null)
+     * @return A 128 bit hash of the values of the variables that are not join variables.
+     */
+    private byte[] hashRemainingValues(final VisibilityBindingSet bindingSet) {
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        for(final String var : remainingVars) {
+            final Binding binding = bindingSet.getBinding(var);
+            if(binding == null) {
+                hasher.putInt(-1);
+            } else {
+                final String value = binding.getValue().toString();
+                hasher.putInt(value.length());
+                hasher.putString(value, Charsets.UTF_8);
+            }
+        }
+        return hasher.hash().asBytes();
     }
 
-    private void printStateStoreAll() {
-        final KeyValueIterator<String, VisibilityBindingSet> rangeIt = store.all();
-        printStateStoreKeyValueIterator(rangeIt);
+    private static void writeVarInt(final ByteArrayOutputStream out, int value) {
+        while((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
     }
 
-    private static void printStateStoreKeyValueIterator(final KeyValueIterator<String, VisibilityBindingSet> rangeIt) {
-        log.info("----------------");
-        while (rangeIt.hasNext()) {
-            final KeyValue<String, VisibilityBindingSet> keyValue = rangeIt.next();
-            log.info(keyValue.key + " :::: " + keyValue.value);
-        }
-        log.info("----------------\n\n");
-        if (rangeIt != null) {
-            rangeIt.close();
-        }
+    private static byte[] withSuffix(final byte[] prefix, final byte fill, final int length) {
+        final byte[] key = Arrays.copyOf(prefix, prefix.length + length);
+        Arrays.fill(key, prefix.length, key.length, fill);
+        return key;
     }
 }
\ No newline at end of file
@@ -0,0 +1,459 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.streams.kafka.serialization;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.rya.api.model.VisibilityBindingSet;
+import org.apache.rya.api.model.VisibilityStatement;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+
+import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * A utility class used to serialize {@link VisibilityStatement}s and {@link VisibilityBindingSet}s
+ * using a compact binary format.
+ * <p>
+ * Each record starts with a three byte header: {@link #MAGIC}, the format version, and a byte
+ * that holds the record type and whether the body is LZ4 compressed. The magic byte can not be
+ * the first byte of a Java object serialization stream, so {@link #isBinary(byte[])} tells the
+ * two formats apart.
+ * <p>
+ * Lengths and counts within the body are written as unsigned varints and strings are UTF-8.
+ * IRI namespaces, datatypes, language tags, and binding names are written to a dictionary the
+ * first time they appear within a record and are referenced by their index afterwards.
+ */
+@DefaultAnnotation(NonNull.class)
+public class BinarySerialization {
+
+    /**
+     * The first byte of every record written by this class.
+     */
+    public static final byte MAGIC = (byte) 0xB7;
+
+    /**
+     * The version of the format that is written by this class.
+     */
+    public static final byte VERSION = 1;
+
+    /**
+     * Bodies that are shorter than this many bytes are never compressed.
+     */
+    public static final int MIN_COMPRESSION_LENGTH = 256;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private static final int FLAG_LZ4 = 0x01;
+    private static final int TYPE_STATEMENT = 0x10;
+    private static final int TYPE_BINDING_SET = 0x20;
+    private static final int TYPE_MASK = 0xF0;
+
+    private static final byte VALUE_NONE = 0;
+    private static final byte VALUE_IRI = 1;
+    private static final byte VALUE_BNODE = 2;
+    private static final byte VALUE_STRING_LITERAL = 3;
+    private static final byte VALUE_LANGUAGE_LITERAL = 4;
+    private static final byte VALUE_TYPED_LITERAL = 5;
+
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    /**
+     * Indicates whether some data was written by this class.
+     *
+     * @param data - The data to inspect. (not null)
+     * @return {@code true} if the data starts with a binary record header; otherwise {@code false}.
+     */
+    public static boolean isBinary(final byte[] data) {
+        requireNonNull(data);
+        return data.length >= HEADER_LENGTH && data[0] == MAGIC;
+    }
+
+    /**
+     * Serialize a {@link VisibilityStatement}.
+     *
+     * @param statement - The statement to serialize. (not null)
+     * @param compress - Whether the body may be compressed using LZ4.
+     * @return A byte[] representation of the statement.
+     */
+    public static byte[] serialize(final VisibilityStatement statement, final boolean compress) {
+        requireNonNull(statement);
+
+        final Encoder body = new Encoder();
+        body.writeString(statement.getVisibility());
+        body.writeValue(statement.getSubject());
+        body.writeValue(statement.getPredicate());
+        body.writeValue(statement.getObject());
+        body.writeValue(statement.getContext());
+
+        return finish(TYPE_STATEMENT, body, compress);
+    }
+
+    /**
+     * Serialize a {@link VisibilityBindingSet}.
+     *
+     * @param bindingSet - The binding set to serialize. (not null)
+     * @param compress - Whether the body may be compressed using LZ4.
+     * @return A byte[] representation of the binding set.
+     */
+    public static byte[] serialize(final VisibilityBindingSet bindingSet, final boolean compress) {
+        requireNonNull(bindingSet);
+
+        final Encoder body = new Encoder();
+        body.writeString(bindingSet.getVisibility());
+        body.writeVarInt(bindingSet.size());
+        for(final Binding binding : bindingSet) {
+            body.writeDictionaryString(binding.getName());
+            body.writeValue(binding.getValue());
+        }
+
+        return finish(TYPE_BINDING_SET, body, compress);
+    }
+
+    /**
+     * Deserialize a {@link VisibilityStatement} that was written by {@link #serialize(VisibilityStatement, boolean)}.
+     *
+     * @param data - The data that will be deserialized. (not null)
+     * @return The statement that was read from the data.
+     * @throws IOException The data is not a binary serialized statement.
+     */
+    public static VisibilityStatement deserializeStatement(final byte[] data) throws IOException {
+        requireNonNull(data);
+
+        final Decoder body = start(TYPE_STATEMENT, data);
+        final String visibility = body.readString();
+        final Resource subject = body.readValue(Resource.class);
+        final IRI predicate = body.readValue(IRI.class);
+        final Value object = body.readValue(Value.class);
+        final Resource context = body.readOptionalValue(Resource.class);
+
+        final Statement statement = context == null ?
+                VF.createStatement(subject, predicate, object) :
+                VF.createStatement(subject, predicate, object, context);
+        return new VisibilityStatement(statement, visibility);
+    }
+
+    /**
+     * Deserialize a {@link VisibilityBindingSet} that was written by {@link #serialize(VisibilityBindingSet, boolean)}.
+     *
+     * @param data - The data that will be deserialized. (not null)
+     * @return The binding set that was read from the data.
+     * @throws IOException The data is not a binary serialized binding set.
+     */
+    public static VisibilityBindingSet deserializeBindingSet(final byte[] data) throws IOException {
+        requireNonNull(data);
+
+        final Decoder body = start(TYPE_BINDING_SET, data);
+        final String visibility = body.readString();
+        final int size = body.readVarInt();
+
+        final MapBindingSet bindingSet = new MapBindingSet(size);
+        for(int i = 0; i < size; i++) {
+            final String name = body.readDictionaryString();
+            bindingSet.addBinding(name, body.readValue(Value.class));
+        }
+        return new VisibilityBindingSet(bindingSet, visibility);
+    }
+
+    /**
+     * Prefixes a record's body with its header, compressing the body if that is allowed and worthwhile.
+     */
+    private static byte[] finish(final int type, final Encoder body, final boolean compress) {
+        final int length = body.length();
+
+        if(compress && length >= MIN_COMPRESSION_LENGTH) {
+            final LZ4Compressor compressor = LZ4.fastCompressor();
+            final byte[] compressed = new byte[HEADER_LENGTH + 5 + compressor.maxCompressedLength(length)];
+            final int offset = writeVarInt(compressed, HEADER_LENGTH, length);
+            final int compressedLength = compressor.compress(body.buffer(), 0, length, compressed, offset, compressed.length - offset);
+
+            // Only keep the compressed form when it is smaller than the original body.
+            if(offset + compressedLength < HEADER_LENGTH + length) {
+                writeHeader(compressed, type | FLAG_LZ4);
+                return Arrays.copyOf(compressed, offset + compressedLength);
+            }
+        }
+
+        final byte[] record = new byte[HEADER_LENGTH + length];
+        writeHeader(record, type);
+        System.arraycopy(body.buffer(), 0, record, HEADER_LENGTH, length);
+        return record;
+    }
+
+    private static void writeHeader(final byte[] record, final int flags) {
+        record[0] = MAGIC;
+        record[1] = VERSION;
+        record[2] = (byte) flags;
+    }
+
+    private static int writeVarInt(final byte[] buffer, int offset, int value) {
+        while((value & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Verifies a record's header and returns a {@link Decoder} over its uncompressed body.
+     */
+    private static Decoder start(final int expectedType, final byte[] data) throws IOException {
+        if(!isBinary(data)) {
+            throw new IOException("The data is not a binary serialized record.");
+        }
+        if(data[1] != VERSION) {
+            throw new IOException("Unsupported binary serialization version " + data[1] + ".");
+        }
+
+        final int flags = data[2] & 0xFF;
+        if((flags & TYPE_MASK) != expectedType) {
+            throw new IOException("The record is of type " + (flags & TYPE_MASK) + ", but the expected type was " + expectedType + ".");
+        }
+
+        if((flags & FLAG_LZ4) == 0) {
+            return new Decoder(data, HEADER_LENGTH);
+        }
+
+        final Decoder lengthDecoder = new Decoder(data, HEADER_LENGTH);
+        final int length = lengthDecoder.readVarInt();
+        final byte[] body = new byte[length];
+        try {
+            LZ4.fastDecompressor().decompress(data, lengthDecoder.position(), body, 0, length);
+        } catch(final LZ4Exception e) {
+            throw new IOException("Could not decompress the record.", e);
+        }
+        return new Decoder(body, 0);
+    }
+
+    /**
+     * Writes the body of a record.
+     */
+    private static final class Encoder {
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private byte[] buffer = new byte[128];
+        private int length = 0;
+
+        public byte[] buffer() {
+            return buffer;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public void writeByte(final byte b) {
+            ensureCapacity(1);
+            buffer[length++] = b;
+        }
+
+        public void writeVarInt(final int value) {
+            ensureCapacity(5);
+            length = BinarySerialization.writeVarInt(buffer, length, value);
+        }
+
+        public void writeString(final String value) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        /**
+         * Writes a reference to a string that has already been written to the record, or
+         * a zero followed by the string if this is its first appearance.
+         */
+        public void writeDictionaryString(final String value) {
+            final Integer index = dictionary.get(value);
+            if(index != null) {
+                writeVarInt(index + 1);
+            } else {
+                dictionary.put(value, dictionary.size());
+                writeVarInt(0);
+                writeString(value);
+            }
+        }
+
+        public void writeValue(final Value value) {
+            if(value == null) {
+                writeByte(VALUE_NONE);
+            } else if(value instanceof IRI) {
+                final IRI iri = (IRI) value;
+                writeByte(VALUE_IRI);
+                writeDictionaryString(iri.getNamespace());
+                writeString(iri.getLocalName());
+            } else if(value instanceof BNode) {
+                writeByte(VALUE_BNODE);
+                writeString(((BNode) value).getID());
+            } else if(value instanceof Literal) {
+                final Literal literal = (Literal) value;
+                if(literal.getLanguage().isPresent()) {
+                    writeByte(VALUE_LANGUAGE_LITERAL);
+                    writeString(literal.getLabel());
+                    writeDictionaryString(literal.getLanguage().get());
+                } else if(XMLSchema.STRING.equals(literal.getDatatype())) {
+                    writeByte(VALUE_STRING_LITERAL);
+                    writeString(literal.getLabel());
+                } else {
+                    writeByte(VALUE_TYPED_LITERAL);
+                    writeString(literal.getLabel());
+                    writeDictionaryString(literal.getDatatype().stringValue());
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName() + ".");
+            }
+        }
+
+        private void ensureCapacity(final int additional) {
+            if(length + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+            }
+        }
+    }
+
+    /**
+     * Reads the body of a record.
+     */
+    private static final class Decoder {
+        private final List<String> dictionary = new ArrayList<>();
+        private final byte[] data;
+        private int position;
+
+        public Decoder(final byte[] data, final int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        public int position() {
+            return position;
+        }
+
+        public byte readByte() throws IOException {
+            if(position >= data.length) {
+                throw new EOFException("Unexpected end of the record.");
+            }
+            return data[position++];
+        }
+
+        public int readVarInt() throws IOException {
+            int value = 0;
+            for(int shift = 0; shift < 32; shift += 7) {
+                final byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if((b & 0x80) == 0) {
+                    if(value < 0) {
+                        throw new IOException("Invalid varint.");
+                    }
+                    return value;
+                }
+            }
+            throw new IOException("Invalid varint.");
+        }
+
+        public String readString() throws IOException {
+            final int length = readVarInt();
+            if(length > data.length - position) {
+                throw new EOFException("Unexpected end of the record.");
+            }
+            final String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        public String readDictionaryString() throws IOException {
+            final int reference = readVarInt();
+            if(reference == 0) {
+                final String value = readString();
+                dictionary.add(value);
+                return value;
+            }
+            if(reference > dictionary.size()) {
+                throw new IOException("Invalid dictionary reference " + reference + ".");
+            }
+            return dictionary.get(reference - 1);
+        }
+
+        public <T extends Value> T readValue(final Class<T> type) throws IOException {
+            final T value = readOptionalValue(type);
+            if(value == null) {
+                throw new IOException("Expected a " + type.getSimpleName() + ", but no value was present.");
+            }
+            return value;
+        }
+
+        public <T extends Value> T readOptionalValue(final Class<T> type) throws IOException {
+            final Value value;
+            final byte tag = readByte();
+            switch(tag) {
+                case VALUE_NONE:
+                    return null;
+                case VALUE_IRI:
+                    final String namespace = readDictionaryString();
+                    value = VF.createIRI(namespace, readString());
+                    break;
+                case VALUE_BNODE:
+                    value = VF.createBNode(readString());
+                    break;
+                case VALUE_STRING_LITERAL:
+                    value = VF.createLiteral(readString());
+                    break;
+                case VALUE_LANGUAGE_LITERAL:
+                    final String label = readString();
+                    value = VF.createLiteral(label, readDictionaryString());
+                    break;
+                case VALUE_TYPED_LITERAL:
+                    final String typedLabel = readString();
+                    value = VF.createLiteral(typedLabel, VF.createIRI(readDictionaryString()));
+                    break;
+                default:
+                    throw new IOException("Unknown value type " + tag + ".");
+            }
+
+            if(!type.isInstance(value)) {
+                throw new IOException("Expected a " + type.getSimpleName() + ", but found " + value + ".");
+            }
+            return type.cast(value);
+        }
+    }
+}
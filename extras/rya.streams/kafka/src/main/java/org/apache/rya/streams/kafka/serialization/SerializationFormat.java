@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.streams.kafka.serialization;
+
+import org.apache.rya.api.model.VisibilityBindingSet;
+import org.apache.rya.api.model.VisibilityStatement;
+
+/**
+ * The formats the Rya Streams serializers are able to write {@link VisibilityStatement}s
+ * and {@link VisibilityBindingSet}s with. The deserializers detect the format of each
+ * record, so a topic may contain a mix of formats.
+ */
+public enum SerializationFormat {
+    /**
+     * Java object serialization. This is the format written by older versions of Rya Streams.
+     */
+    JAVA(false),
+
+    /**
+     * The compact format written by {@link BinarySerialization}.
+     */
+    BINARY(false),
+
+    /**
+     * The compact format written by {@link BinarySerialization} with large records compressed using LZ4.
+     */
+    BINARY_LZ4(true);
+
+    private final boolean compressed;
+
+    private SerializationFormat(final boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    /**
+     * @return {@code true} if records written in this format may be compressed; otherwise {@code false}.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+}
@@ -18,17 +18,54 @@
  */
 package org.apache.rya.streams.kafka.serialization;
 
+import java.io.IOException;
+
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.rya.api.model.VisibilityBindingSet;
+import org.apache.rya.api.model.visibility.VisibilityCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
- * A Kafka {@link Deserializer} that is able to deserialize Java object serialized {@link VisibilityBindingSet}s.
+ * A Kafka {@link Deserializer} that is able to deserialize {@link VisibilityBindingSet}s that were written
+ * using any {@link SerializationFormat}. The format of each record is detected from its first byte.
+ * The visibility expressions are interned by the {@link VisibilityCache}.
  */
 @DefaultAnnotation(NonNull.class)
 public class VisibilityBindingSetDeserializer extends ObjectDeserializer<VisibilityBindingSet> {
+
+    private static final Logger log = LoggerFactory.getLogger(VisibilityBindingSetDeserializer.class);
+
+    @Override
+    public VisibilityBindingSet deserialize(final String topic, final byte[] data) {
+        final VisibilityBindingSet bindingSet;
+        if(data != null && BinarySerialization.isBinary(data)) {
+            bindingSet = deserializeBinary(data);
+        } else {
+            bindingSet = super.deserialize(topic, data);
+        }
+
+        if(bindingSet != null) {
+            // Share one instance of each visibility expression across the deserialized entities.
+            bindingSet.setVisibility(VisibilityCache.intern(bindingSet.getVisibility()));
+        }
+        return bindingSet;
+    }
+
+    private VisibilityBindingSet deserializeBinary(final byte[] data) {
+        try {
+            return BinarySerialization.deserializeBindingSet(data);
+        } catch (final IOException e) {
+            log.error("Could not deserialize some binary data into a VisibilityBindingSet. This data will be skipped.", e);
+
+            // Returning null because that is the contract of this method.
+            return null;
+        }
+    }
+
     @Override
     protected Class<VisibilityBindingSet> getDeserializedClass() {
         return VisibilityBindingSet.class;
@@ -18,6 +18,8 @@
  */
 package org.apache.rya.streams.kafka.serialization;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.Map;
 
 import org.apache.kafka.common.serialization.Deserializer;
@@ -30,6 +32,24 @@ import org.apache.rya.api.model.VisibilityBindingSet;
  */
 public class VisibilityBindingSetSerde implements Serde<VisibilityBindingSet> {
 
+    private final SerializationFormat format;
+
+    /**
+     * Constructs an instance of {@link VisibilityBindingSetSerde} that serializes using Java object serialization.
+     */
+    public VisibilityBindingSetSerde() {
+        this(SerializationFormat.JAVA);
+    }
+
+    /**
+     * Constructs an instance of {@link VisibilityBindingSetSerde}.
+     *
+     * @param format - The format the serializer writes. The deserializer reads every format. (not null)
+     */
+    public VisibilityBindingSetSerde(final SerializationFormat format) {
+        this.format = requireNonNull(format);
+    }
+
     @Override
     public void configure(final Map<String, ?> configs, final boolean isKey) {
         // Nothing to do.
@@ -37,7 +57,7 @@ public class VisibilityBindingSetSerde implements Serde<VisibilityBindingSet> {
 
     @Override
     public Serializer<VisibilityBindingSet> serializer() {
-        return new VisibilityBindingSetSerializer();
+        return new VisibilityBindingSetSerializer(format);
     }
 
     @Override
@@ -18,6 +18,8 @@
  */
 package org.apache.rya.streams.kafka.serialization;
 
+import static java.util.Objects.requireNonNull;
+
 import org.apache.kafka.common.serialization.Serializer;
 import org.apache.rya.api.model.VisibilityBindingSet;
 
@@ -25,10 +27,38 @@ import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
- * A Kafka {@link Serializer} that is able to serialize {@link VisibilityBinidngSet}s using Java object serialization.
+ * A Kafka {@link Serializer} that is able to serialize {@link VisibilityBindingSet}s using one of the
+ * {@link SerializationFormat}s. Java object serialization is used unless another format is specified.
  */
 @DefaultAnnotation(NonNull.class)
 public class VisibilityBindingSetSerializer extends ObjectSerializer<VisibilityBindingSet> {
+
+    private final SerializationFormat format;
+
+    /**
+     * Constructs an instance of {@link VisibilityBindingSetSerializer} that uses Java object serialization.
+     */
+    public VisibilityBindingSetSerializer() {
+        this(SerializationFormat.JAVA);
+    }
+
+    /**
+     * Constructs an instance of {@link VisibilityBindingSetSerializer}.
+     *
+     * @param format - The format the binding sets will be written with. (not null)
+     */
+    public VisibilityBindingSetSerializer(final SerializationFormat format) {
+        this.format = requireNonNull(format);
+    }
+
+    @Override
+    public byte[] serialize(final String topic, final VisibilityBindingSet data) {
+        if(data == null || format == SerializationFormat.JAVA) {
+            return super.serialize(topic, data);
+        }
+        return BinarySerialization.serialize(data, format.isCompressed());
+    }
+
     @Override
     protected Class<VisibilityBindingSet> getSerializedClass() {
         return VisibilityBindingSet.class;
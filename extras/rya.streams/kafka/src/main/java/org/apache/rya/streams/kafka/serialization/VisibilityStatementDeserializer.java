@@ -18,17 +18,54 @@
  */
 package org.apache.rya.streams.kafka.serialization;
 
+import java.io.IOException;
+
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.rya.api.model.VisibilityStatement;
+import org.apache.rya.api.model.visibility.VisibilityCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
- * A Kafka {@link Deserializer} that is able to deserialize Java object serialized {@link VisibilityStatement}s.
+ * A Kafka {@link Deserializer} that is able to deserialize {@link VisibilityStatement}s that were written
+ * using any {@link SerializationFormat}. The format of each record is detected from its first byte.
+ * The visibility expressions are interned by the {@link VisibilityCache}.
  */
 @DefaultAnnotation(NonNull.class)
 public class VisibilityStatementDeserializer extends ObjectDeserializer<VisibilityStatement> {
+
+    private static final Logger log = LoggerFactory.getLogger(VisibilityStatementDeserializer.class);
+
+    @Override
+    public VisibilityStatement deserialize(final String topic, final byte[] data) {
+        final VisibilityStatement statement;
+        if(data != null && BinarySerialization.isBinary(data)) {
+            statement = deserializeBinary(data);
+        } else {
+            statement = super.deserialize(topic, data);
+        }
+
+        if(statement != null) {
+            // Share one instance of each visibility expression across the deserialized entities.
+            statement.setVisibility(VisibilityCache.intern(statement.getVisibility()));
+        }
+        return statement;
+    }
+
+    private VisibilityStatement deserializeBinary(final byte[] data) {
+        try {
+            return BinarySerialization.deserializeStatement(data);
+        } catch (final IOException e) {
+            log.error("Could not deserialize some binary data into a VisibilityStatement. This data will be skipped.", e);
+
+            // Returning null because that is the contract of this method.
+            return null;
+        }
+    }
+
     @Override
     protected Class<VisibilityStatement> getDeserializedClass() {
         return VisibilityStatement.class;
@@ -18,6 +18,8 @@
  */
 package org.apache.rya.streams.kafka.serialization;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.Map;
 
 import org.apache.kafka.common.serialization.Deserializer;
@@ -34,6 +36,24 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 @DefaultAnnotation(NonNull.class)
 public class VisibilityStatementSerde implements Serde<VisibilityStatement> {
 
+    private final SerializationFormat format;
+
+    /**
+     * Constructs an instance of {@link VisibilityStatementSerde} that serializes using Java object serialization.
+     */
+    public VisibilityStatementSerde() {
+        this(SerializationFormat.JAVA);
+    }
+
+    /**
+     * Constructs an instance of {@link VisibilityStatementSerde}.
+     *
+     * @param format - The format the serializer writes. The deserializer reads every format. (not null)
+     */
+    public VisibilityStatementSerde(final SerializationFormat format) {
+        this.format = requireNonNull(format);
+    }
+
     @Override
     public void configure(final Map<String, ?> configs, final boolean isKey) {
         // Nothing to do.
@@ -41,7 +61,7 @@ public class VisibilityStatementSerde implements Serde<VisibilityStatement> {
 
     @Override
     public Serializer<VisibilityStatement> serializer() {
-        return new VisibilityStatementSerializer();
+        return new VisibilityStatementSerializer(format);
     }
 
     @Override
@@ -18,6 +18,8 @@
  */
 package org.apache.rya.streams.kafka.serialization;
 
+import static java.util.Objects.requireNonNull;
+
 import org.apache.kafka.common.serialization.Serializer;
 import org.apache.rya.api.model.VisibilityStatement;
 
@@ -25,10 +27,38 @@ import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
- * A Kafka {@link Serializer} that is able to serialize {@link VisibilityStatement}s using Java object serialization.
+ * A Kafka {@link Serializer} that is able to serialize {@link VisibilityStatement}s using one of the
+ * {@link SerializationFormat}s. Java object serialization is used unless another format is specified.
  */
 @DefaultAnnotation(NonNull.class)
 public class VisibilityStatementSerializer extends ObjectSerializer<VisibilityStatement> {
+
+    private final SerializationFormat format;
+
+    /**
+     * Constructs an instance of {@link VisibilityStatementSerializer} that uses Java object serialization.
+     */
+    public VisibilityStatementSerializer() {
+        this(SerializationFormat.JAVA);
+    }
+
+    /**
+     * Constructs an instance of {@link VisibilityStatementSerializer}.
+     *
+     * @param format - The format the statements will be written with. (not null)
+     */
+    public VisibilityStatementSerializer(final SerializationFormat format) {
+        this.format = requireNonNull(format);
+    }
+
+    @Override
+    public byte[] serialize(final String topic, final VisibilityStatement data) {
+        if(data == null || format == SerializationFormat.JAVA) {
+            return super.serialize(topic, data);
+        }
+        return BinarySerialization.serialize(data, format.isCompressed());
+    }
+
     @Override
     protected Class<VisibilityStatement> getSerializedClass() {
         return VisibilityStatement.class;
@@ -20,6 +20,7 @@ package org.apache.rya.streams.kafka.topology;
 
 import static java.util.Objects.requireNonNull;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -58,6 +59,7 @@ import org.apache.rya.streams.kafka.processors.output.BindingSetOutputFormatterS
 import org.apache.rya.streams.kafka.processors.output.StatementOutputFormatterSupplier;
 import org.apache.rya.streams.kafka.processors.projection.MultiProjectionProcessorSupplier;
 import org.apache.rya.streams.kafka.processors.projection.ProjectionProcessorSupplier;
+import org.apache.rya.streams.kafka.serialization.SerializationFormat;
 import org.apache.rya.streams.kafka.serialization.VisibilityBindingSetSerde;
 import org.apache.rya.streams.kafka.serialization.VisibilityBindingSetSerializer;
 import org.apache.rya.streams.kafka.serialization.VisibilityStatementDeserializer;
@@ -88,6 +90,10 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
  * Factory for building {@link TopologyBuilder}s from a SPARQL query.
+ * <p>
+ * The {@link SerializationFormat} used for the query's results and join state may be chosen for
+ * each query. The source reads statements that were written in any format. Joins may be given a
+ * retention period after which the binding sets they hold are aged off.
  */
 @DefaultAnnotation(NonNull.class)
 public class TopologyFactory implements TopologyBuilderFactory {
@@ -99,8 +105,39 @@ public class TopologyFactory implements TopologyBuilderFactory {
     private static final String AGGREGATION_PREFIX = "AGGREGATION_";
     private static final String SINK = "SINK";
 
+    private final SerializationFormat defaultFormat;
+    private final Optional<Duration> joinRetention;
+
     private List<ProcessorEntry> processorEntryList;
 
+    /**
+     * Constructs an instance of {@link TopologyFactory} that uses Java object serialization by default.
+     */
+    public TopologyFactory() {
+        this(SerializationFormat.JAVA);
+    }
+
+    /**
+     * Constructs an instance of {@link TopologyFactory}.
+     *
+     * @param defaultFormat - The format used by topologies that are built without specifying one. (not null)
+     */
+    public TopologyFactory(final SerializationFormat defaultFormat) {
+        this(defaultFormat, Optional.empty());
+    }
+
+    /**
+     * Constructs an instance of {@link TopologyFactory}.
+     *
+     * @param defaultFormat - The format used by topologies that are built without specifying one. (not null)
+     * @param joinRetention - How long the joins within the built topologies join with a binding set after
+     *   it was emitted. If empty, joins retain binding sets forever. (not null)
+     */
+    public TopologyFactory(final SerializationFormat defaultFormat, final Optional<Duration> joinRetention) {
+        this.defaultFormat = requireNonNull(defaultFormat);
+        this.joinRetention = requireNonNull(joinRetention);
+    }
+
     @Override
     public TopologyBuilder build(
             final String sparqlQuery,
@@ -108,15 +145,40 @@ public class TopologyFactory implements TopologyBuilderFactory {
             final String resultsTopic,
             final BNodeIdFactory bNodeIdFactory)
             throws MalformedQueryException, TopologyBuilderException {
+        return build(sparqlQuery, statementsTopic, resultsTopic, bNodeIdFactory, defaultFormat);
+    }
+
+    /**
+     * Builds a {@link TopologyBuilder} based on the provided SPARQL query that
+     * pulls from {@code statementsTopic} for input and writes the query's results
+     * to {@code resultsTopic}.
+     *
+     * @param sparqlQuery - The SPARQL query to build a topology for. (not null)
+     * @param statementsTopic - The topic for the source to read from. (not null)
+     * @param resultsTopic - The topic for the sink to write to. (not null)
+     * @param bNodeIdFactory - A factory that generates Blank Node IDs if any are required. (not null)
+     * @param format - The format the query's results and join state are written with. (not null)
+     * @return The created {@link TopologyBuilder}.
+     * @throws MalformedQueryException - The provided query is not a valid SPARQL query.
+     * @throws TopologyBuilderException - A problem occurred while constructing the topology.
+     */
+    public TopologyBuilder build(
+            final String sparqlQuery,
+            final String statementsTopic,
+            final String resultsTopic,
+            final BNodeIdFactory bNodeIdFactory,
+            final SerializationFormat format)
+            throws MalformedQueryException, TopologyBuilderException {
         requireNonNull(sparqlQuery);
         requireNonNull(statementsTopic);
         requireNonNull(resultsTopic);
+        requireNonNull(format);
 
         final ParsedQuery parsedQuery = new SPARQLParser().parseQuery(sparqlQuery, null);
         final TopologyBuilder builder = new TopologyBuilder();
 
         final TupleExpr expr = parsedQuery.getTupleExpr();
-        final QueryVisitor visitor = new QueryVisitor(bNodeIdFactory);
+        final QueryVisitor visitor = new QueryVisitor(bNodeIdFactory, format, joinRetention);
         expr.visit(visitor);
 
         processorEntryList = visitor.getProcessorEntryList();
@@ -145,15 +207,24 @@ public class TopologyFactory implements TopologyBuilderFactory {
             }
 
             // Add a state store for any node type that requires one.
-            if (entry.getNode() instanceof Join ||  entry.getNode() instanceof LeftJoin || entry.getNode() instanceof Group) {
-                // Add a state store for the join processor.
+            if (entry.getNode() instanceof Join ||  entry.getNode() instanceof LeftJoin) {
+                // Add a state store for the join processor. Its keys are binary and ordered by RocksDB.
                 final StateStoreSupplier joinStoreSupplier =
+                        Stores.create( entry.getID() )
+                            .withByteArrayKeys()
+                            .withValues(new VisibilityBindingSetSerde(format))
+                            .persistent()
+                            .build();
+                builder.addStateStore(joinStoreSupplier, entry.getID());
+            } else if (entry.getNode() instanceof Group) {
+                // The aggregation state is not a binding set, so it is always stored using Java object serialization.
+                final StateStoreSupplier aggregationStoreSupplier =
                         Stores.create( entry.getID() )
                             .withStringKeys()
                             .withValues(new VisibilityBindingSetSerde())
                             .persistent()
                             .build();
-                builder.addStateStore(joinStoreSupplier, entry.getID());
+                builder.addStateStore(aggregationStoreSupplier, entry.getID());
             }
         }
 
@@ -339,21 +410,28 @@ public class TopologyFactory implements TopologyBuilderFactory {
         private final List<ProcessorEntry> entries = new ArrayList<>();
         private final Map<TupleExpr, String> idMap = new HashMap<>();
 
-        // Default to a Binding Set outputting sink entry.
-        private SinkEntry<?, ?> sinkEntry = new SinkEntry<>(
-                new BindingSetOutputFormatterSupplier(),
-                new StringSerializer(),
-                new VisibilityBindingSetSerializer());
-
         private final BNodeIdFactory bNodeIdFactory;
+        private final SerializationFormat format;
+        private final Optional<Duration> joinRetention;
+
+        // Default to a Binding Set outputting sink entry.
+        private SinkEntry<?, ?> sinkEntry;
 
         /**
          * Constructs an instance of {@link QueryVisitor}.
          *
          * @param bNodeIdFactory - Builds Blank Node IDs for the query's results. (not null)
+         * @param format - The format the query's results are written with. (not null)
+         * @param joinRetention - How long joins retain binding sets. If empty, they are retained forever. (not null)
          */
-        public QueryVisitor(final BNodeIdFactory bNodeIdFactory) {
+        public QueryVisitor(final BNodeIdFactory bNodeIdFactory, final SerializationFormat format, final Optional<Duration> joinRetention) {
             this.bNodeIdFactory = requireNonNull(bNodeIdFactory);
+            this.format = requireNonNull(format);
+            this.joinRetention = requireNonNull(joinRetention);
+            sinkEntry = new SinkEntry<>(
+                    new BindingSetOutputFormatterSupplier(),
+                    new StringSerializer(),
+                    new VisibilityBindingSetSerializer(format));
         }
 
         /**
@@ -383,7 +461,7 @@ public class TopologyFactory implements TopologyBuilderFactory {
             sinkEntry = new SinkEntry<>(
                     new StatementOutputFormatterSupplier(),
                     new StringSerializer(),
-                    new VisibilityStatementSerializer());
+                    new VisibilityStatementSerializer(format));
             super.meet(node);
         }
 
@@ -527,7 +605,7 @@ public class TopologyFactory implements TopologyBuilderFactory {
             allVars.addAll(otherVars);
 
             final Optional<Side> side = getSide(node);
-            final JoinProcessorSupplier supplier = new JoinProcessorSupplier(id, joinFunction, joinVars, allVars, result -> getResult(side, result));
+            final JoinProcessorSupplier supplier = new JoinProcessorSupplier(id, joinFunction, joinVars, allVars, joinRetention, result -> getResult(side, result));
             entries.add(new ProcessorEntry(node, id, side, supplier, Lists.newArrayList(node.getLeftArg(), node.getRightArg())));
             idMap.put(node, id);
         }
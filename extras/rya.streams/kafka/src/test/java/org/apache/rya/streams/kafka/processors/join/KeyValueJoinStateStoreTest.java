@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.streams.kafka.processors.join;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.rya.api.model.VisibilityBindingSet;
+import org.apache.rya.api.utils.CloseableIterator;
+import org.apache.rya.streams.kafka.processors.ProcessorResult.BinaryResult;
+import org.apache.rya.streams.kafka.processors.ProcessorResult.BinaryResult.Side;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * Unit tests the methods of {@link KeyValueJoinStateStore}.
+ */
+public class KeyValueJoinStateStoreTest {
+
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+    private final List<String> joinVars = Lists.newArrayList("a");
+    private final List<String> allVars = Lists.newArrayList("a", "b");
+
+    // Ordered by unsigned bytes, like a RocksDB backed store.
+    private TreeMap<byte[], VisibilityBindingSet> entries;
+    private KeyValueStore<byte[], VisibilityBindingSet> store;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        entries = new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+        store = mock(KeyValueStore.class);
+        doAnswer(invocation -> {
+            entries.put((byte[]) invocation.getArguments()[0], (VisibilityBindingSet) invocation.getArguments()[1]);
+            return null;
+        }).when(store).put(any(byte[].class), any(VisibilityBindingSet.class));
+        when(store.delete(any(byte[].class))).thenAnswer(invocation -> entries.remove(invocation.getArguments()[0]));
+        when(store.all()).thenAnswer(invocation -> iterator(entries));
+        when(store.range(any(byte[].class), any(byte[].class))).thenAnswer(invocation ->
+                iterator(entries.subMap((byte[]) invocation.getArguments()[0], true, (byte[]) invocation.getArguments()[1], true)));
+    }
+
+    @Test
+    public void joinValuesAreIsolatedByPrefix() throws Exception {
+        final KeyValueJoinStateStore joinState = new KeyValueJoinStateStore(store, joinVars, allVars);
+
+        // "urn:x" is a prefix of "urn:xy", but they are different groups.
+        final VisibilityBindingSet x = bindingSet("urn:x", "urn:1");
+        final VisibilityBindingSet xy = bindingSet("urn:xy", "urn:2");
+        joinState.store(new BinaryResult(Side.LEFT, x), 0L);
+        joinState.store(new BinaryResult(Side.LEFT, xy), 0L);
+
+        assertEquals(Lists.newArrayList(x), joined(joinState, new BinaryResult(Side.RIGHT, bindingSet("urn:x", "urn:3")), 0L));
+        assertEquals(Lists.newArrayList(xy), joined(joinState, new BinaryResult(Side.RIGHT, bindingSet("urn:xy", "urn:3")), 0L));
+
+        // A result never joins with values that were stored from its own side.
+        assertTrue(joined(joinState, new BinaryResult(Side.LEFT, bindingSet("urn:x", "urn:3")), 0L).isEmpty());
+    }
+
+    @Test
+    public void unboundJoinValues() throws Exception {
+        final KeyValueJoinStateStore joinState = new KeyValueJoinStateStore(store, joinVars, allVars);
+
+        final VisibilityBindingSet unbound = bindingSet(null, "urn:1");
+        final VisibilityBindingSet bound = bindingSet("urn:x", "urn:2");
+        joinState.store(new BinaryResult(Side.LEFT, unbound), 0L);
+        joinState.store(new BinaryResult(Side.LEFT, bound), 0L);
+
+        assertEquals(Lists.newArrayList(unbound), joined(joinState, new BinaryResult(Side.RIGHT, bindingSet(null, "urn:3")), 0L));
+        assertEquals(Lists.newArrayList(bound), joined(joinState, new BinaryResult(Side.RIGHT, bindingSet("urn:x", "urn:3")), 0L));
+    }
+
+    @Test
+    public void storingAgainDoesNotDuplicate() throws Exception {
+        final JoinStateMetrics metrics = new JoinStateMetrics();
+        final KeyValueJoinStateStore joinState = new KeyValueJoinStateStore(store, joinVars, allVars, Optional.empty(), metrics);
+
+        final VisibilityBindingSet bs = bindingSet("urn:x", "urn:1");
+        joinState.store(new BinaryResult(Side.LEFT, bs), 0L);
+        joinState.store(new BinaryResult(Side.LEFT, bs), 10L);
+
+        assertEquals(Lists.newArrayList(bs), joined(joinState, new BinaryResult(Side.RIGHT, bindingSet("urn:x", "urn:3")), 10L));
+        assertEquals(1, entries.size());
+        assertEquals(1, metrics.getStoredEntries());
+        assertEquals(2, metrics.getWrites());
+    }
+
+    @Test
+    public void expiredValuesAreSkippedAndRemovedByScans() throws Exception {
+        final JoinStateMetrics metrics = new JoinStateMetrics();
+        final KeyValueJoinStateStore joinState = new KeyValueJoinStateStore(store, joinVars, allVars,
+                Optional.of(Duration.ofMillis(10)), metrics);
+
+        final VisibilityBindingSet old = bindingSet("urn:x", "urn:1");
+        final VisibilityBindingSet recent = bindingSet("urn:x", "urn:2");
+        joinState.store(new BinaryResult(Side.LEFT, old), 0L);
+        joinState.store(new BinaryResult(Side.LEFT, recent), 15L);
+
+        // Within the retention period both are joined with.
+        final BinaryResult probe = new BinaryResult(Side.RIGHT, bindingSet("urn:x", "urn:3"));
+        assertEquals(2, joined(joinState, probe, 10L).size());
+
+        // Afterwards the old one is skipped and removed once the scan is closed.
+        assertEquals(Lists.newArrayList(recent), joined(joinState, probe, 20L));
+        assertEquals(1, entries.size());
+        assertEquals(1, metrics.getExpiredEntries());
+    }
+
+    @Test
+    public void removeExpired() throws Exception {
+        final KeyValueJoinStateStore joinState = new KeyValueJoinStateStore(store, joinVars, allVars,
+                Optional.of(Duration.ofMillis(10)), new JoinStateMetrics());
+
+        joinState.store(new BinaryResult(Side.LEFT, bindingSet("urn:x", "urn:1")), 0L);
+        joinState.store(new BinaryResult(Side.RIGHT, bindingSet("urn:y", "urn:2")), 0L);
+        joinState.store(new BinaryResult(Side.LEFT, bindingSet("urn:z", "urn:3")), 15L);
+
+        joinState.removeExpired(20L);
+        assertEquals(1, entries.size());
+        assertEquals(bindingSet("urn:z", "urn:3"), entries.firstEntry().getValue());
+    }
+
+    @Test
+    public void removeExpiredIsBounded() throws Exception {
+        final KeyValueJoinStateStore joinState = new KeyValueJoinStateStore(store, joinVars, allVars,
+                Optional.of(Duration.ofMillis(10)), new JoinStateMetrics(), 2);
+
+        for(int i = 0; i < 5; i++) {
+            joinState.store(new BinaryResult(Side.LEFT, bindingSet("urn:x" + i, "urn:1")), 0L);
+        }
+
+        // Each call examines at most two entries and resumes where the previous one stopped.
+        joinState.removeExpired(20L);
+        assertEquals(3, entries.size());
+        joinState.removeExpired(20L);
+        assertEquals(1, entries.size());
+        joinState.removeExpired(20L);
+        assertTrue(entries.isEmpty());
+
+        // Once the end of the store was reached the next sweep starts over.
+        joinState.store(new BinaryResult(Side.LEFT, bindingSet("urn:x0", "urn:1")), 20L);
+        joinState.removeExpired(40L);
+        assertTrue(entries.isEmpty());
+    }
+
+    private static VisibilityBindingSet bindingSet(final String a, final String b) {
+        final MapBindingSet bs = new MapBindingSet();
+        if(a != null) {
+            bs.addBinding("a", VF.createIRI(a));
+        }
+        bs.addBinding("b", VF.createIRI(b));
+        return new VisibilityBindingSet(bs, "");
+    }
+
+    private static List<VisibilityBindingSet> joined(final KeyValueJoinStateStore joinState, final BinaryResult result,
+            final long timestamp) throws Exception {
+        final List<VisibilityBindingSet> joined = new ArrayList<>();
+        try(final CloseableIterator<VisibilityBindingSet> it = joinState.getJoinedValues(result, timestamp)) {
+            while(it.hasNext()) {
+                joined.add(it.next());
+            }
+        }
+        return joined;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KeyValueIterator<byte[], VisibilityBindingSet> iterator(final Map<byte[], VisibilityBindingSet> range) {
+        // Iterate over a copy so that the store may be changed while the iterator is open.
+        final List<Map.Entry<byte[], VisibilityBindingSet>> snapshot = new ArrayList<>();
+        for(final Map.Entry<byte[], VisibilityBindingSet> entry : range.entrySet()) {
+            snapshot.add(new SimpleImmutableEntry<>(entry));
+        }
+        final Iterator<Map.Entry<byte[], VisibilityBindingSet>> copy = snapshot.iterator();
+        final KeyValueIterator<byte[], VisibilityBindingSet> it = mock(KeyValueIterator.class);
+        when(it.hasNext()).thenAnswer(invocation -> copy.hasNext());
+        when(it.next()).thenAnswer(invocation -> {
+            final Map.Entry<byte[], VisibilityBindingSet> entry = copy.next();
+            return new KeyValue<>(entry.getKey(), entry.getValue());
+        });
+        return it;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.streams.kafka.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.rya.api.model.VisibilityBindingSet;
+import org.apache.rya.api.model.VisibilityStatement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
+import org.junit.Test;
+
+/**
+ * Unit tests the methods of {@link BinarySerialization}.
+ */
+public class BinarySerializationTest {
+
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+    @Test
+    public void serializeAndDeserializeStatement() throws IOException {
+        final VisibilityStatement original = new VisibilityStatement(
+                VF.createStatement(
+                        VF.createIRI("urn:alice"),
+                        VF.createIRI("urn:talksTo"),
+                        VF.createBNode("bob"),
+                        VF.createIRI("urn:graph")),
+                "a&(b|c)");
+
+        final byte[] data = BinarySerialization.serialize(original, false);
+        assertTrue( BinarySerialization.isBinary(data) );
+
+        final VisibilityStatement deserialized = BinarySerialization.deserializeStatement(data);
+        assertEquals(original, deserialized);
+        assertEquals(original.getContext(), deserialized.getContext());
+    }
+
+    @Test
+    public void serializeAndDeserializeBindingSet() throws IOException {
+        final MapBindingSet bs = new MapBindingSet();
+        bs.addBinding("person", VF.createIRI("urn:example#alice"));
+        bs.addBinding("friend", VF.createIRI("urn:example#bob"));
+        bs.addBinding("name", VF.createLiteral("alice"));
+        bs.addBinding("greeting", VF.createLiteral("bonjour", "fr"));
+        bs.addBinding("age", VF.createLiteral(37));
+        bs.addBinding("height", VF.createLiteral(1.7));
+        bs.addBinding("node", VF.createBNode("b1"));
+
+        final VisibilityBindingSet original = new VisibilityBindingSet(bs, "a|b|c");
+
+        final byte[] data = BinarySerialization.serialize(original, false);
+        assertEquals(original, BinarySerialization.deserializeBindingSet(data));
+    }
+
+    @Test
+    public void compressedBindingSet() throws IOException {
+        final MapBindingSet bs = new MapBindingSet();
+        for(int i = 0; i < 50; i++) {
+            bs.addBinding("value" + i, VF.createLiteral("a label that repeats itself"));
+        }
+        final VisibilityBindingSet original = new VisibilityBindingSet(bs, "a");
+
+        final byte[] uncompressed = BinarySerialization.serialize(original, false);
+        final byte[] compressed = BinarySerialization.serialize(original, true);
+        assertTrue( compressed.length < uncompressed.length );
+
+        assertEquals(original, BinarySerialization.deserializeBindingSet(compressed));
+    }
+
+    @Test
+    public void smallerThanJavaSerialization() throws IOException {
+        final MapBindingSet bs = new MapBindingSet();
+        bs.addBinding("name", VF.createLiteral("alice"));
+        bs.addBinding("age", VF.createLiteral(37));
+        final VisibilityBindingSet original = new VisibilityBindingSet(bs, "a");
+
+        final byte[] javaData = ObjectSerialization.serialize(original);
+        final byte[] binaryData = BinarySerialization.serialize(original, false);
+
+        assertFalse( BinarySerialization.isBinary(javaData) );
+        assertTrue( binaryData.length < javaData.length );
+    }
+
+    @Test(expected = IOException.class)
+    public void wrongType() throws IOException {
+        final VisibilityStatement statement = new VisibilityStatement(
+                VF.createStatement(VF.createIRI("urn:alice"), VF.createIRI("urn:age"), VF.createLiteral(37)));
+
+        final byte[] data = BinarySerialization.serialize(statement, false);
+        BinarySerialization.deserializeBindingSet(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedData() throws IOException {
+        final VisibilityStatement statement = new VisibilityStatement(
+                VF.createStatement(VF.createIRI("urn:alice"), VF.createIRI("urn:age"), VF.createLiteral(37)));
+
+        final byte[] data = BinarySerialization.serialize(statement, false);
+        final byte[] truncated = new byte[data.length - 2];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        BinarySerialization.deserializeStatement(truncated);
+    }
+
+    @Test
+    public void deserializerReadsEveryFormat() {
+        final MapBindingSet bs = new MapBindingSet();
+        bs.addBinding("name", VF.createLiteral("alice"));
+        final VisibilityBindingSet original = new VisibilityBindingSet(bs, "a");
+
+        for(final SerializationFormat format : SerializationFormat.values()) {
+            try(final Serde<VisibilityBindingSet> writer = new VisibilityBindingSetSerde(format);
+                    final Serde<VisibilityBindingSet> reader = new VisibilityBindingSetSerde()) {
+                final byte[] data = writer.serializer().serialize("topic", original);
+                assertEquals(original, reader.deserializer().deserialize("topic", data));
+            }
+        }
+    }
+
+    @Test
+    public void deserializeCorruptData() {
+        final byte[] data = new byte[] { BinarySerialization.MAGIC, BinarySerialization.VERSION, 0x10, 0x05 };
+        try(final Serde<VisibilityStatement> serde = new VisibilityStatementSerde(SerializationFormat.BINARY)) {
+            assertNull( serde.deserializer().deserialize("topic", data) );
+        }
+    }
+}
@@ -130,6 +130,12 @@ public class AccumuloRdfCountTool extends AbstractAccumuloMRTool implements Tool
 
         SimpleValueFactory vf = SimpleValueFactory.getInstance();
 
+        /**
+         * Objects longer than this are not counted because they may not fit in a
+         * {@link java.io.DataOutput#writeUTF(String)} encoded key.
+         */
+        private static final int MAX_COUNTED_OBJECT_LENGTH = 16384;
+
         private final Text keyOut = new Text();
         private final LongWritable valOut = new LongWritable(1);
         private RyaTripleContext ryaContext;
@@ -151,7 +157,7 @@ public class AccumuloRdfCountTool extends AbstractAccumuloMRTool implements Tool
 
                 final String subj = statement.getSubject().getData();
                 final String pred = statement.getPredicate().getData();
-//                byte[] objBytes = tripleFormat.getValueFormat().serialize(statement.getObject());
+                final String obj = statement.getObject().getData();
                 final RyaIRI scontext = statement.getContext();
                 final boolean includesContext = scontext != null;
                 final String scontext_str = (includesContext) ? scontext.getData() : null;
@@ -175,6 +181,18 @@ public class AccumuloRdfCountTool extends AbstractAccumuloMRTool implements Tool
                 }
                 keyOut.set(output.toByteArray());
                 context.write(keyOut, valOut);
+
+                if (obj.length() <= MAX_COUNTED_OBJECT_LENGTH) {
+                    output = ByteStreams.newDataOutput();
+                    output.writeUTF(obj);
+                    output.writeUTF(RdfCloudTripleStoreConstants.OBJ_CF);
+                    output.writeBoolean(includesContext);
+                    if (includesContext) {
+                        output.writeUTF(scontext_str);
+                    }
+                    keyOut.set(output.toByteArray());
+                    context.write(keyOut, valOut);
+                }
             } catch (final TripleRowResolverException e) {
                 throw new IOException(e);
             }
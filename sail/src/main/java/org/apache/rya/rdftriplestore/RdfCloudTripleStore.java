@@ -20,11 +20,17 @@ package org.apache.rya.rdftriplestore;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.concurrent.ExecutorService;
+
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.persist.CachingRdfEvalStatsDAO;
 import org.apache.rya.api.persist.RdfEvalStatsDAO;
 import org.apache.rya.api.persist.RyaDAO;
 import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.joinselect.CachingSelectivityEvalDAO;
 import org.apache.rya.api.persist.joinselect.SelectivityEvalDAO;
+import org.apache.rya.rdftriplestore.evaluation.QueryExecutors;
+import org.apache.rya.rdftriplestore.evaluation.QueryPlanCache;
 import org.apache.rya.rdftriplestore.inference.InferenceEngine;
 import org.apache.rya.rdftriplestore.namespace.NamespaceManager;
 import org.apache.rya.rdftriplestore.provenance.ProvenanceCollector;
@@ -41,9 +47,13 @@ public class RdfCloudTripleStore<C extends RdfCloudTripleStoreConfiguration> ext
     protected RyaDAO<C> ryaDAO;
     protected InferenceEngine inferenceEngine;
     protected RdfEvalStatsDAO<C> rdfEvalStatsDAO;
+    private CachingRdfEvalStatsDAO<C> cachingEvalStatsDAO;
+    private CachingSelectivityEvalDAO<C> cachingSelectEvalDAO;
     protected SelectivityEvalDAO<C> selectEvalDAO;
     private NamespaceManager namespaceManager;
     protected ProvenanceCollector provenanceCollector;
+    private ExecutorService queryExecutor;
+    private QueryPlanCache queryPlanCache;
 
     private static final ValueFactory VF = SimpleValueFactory.getInstance();
 
@@ -76,9 +86,25 @@ public class RdfCloudTripleStore<C extends RdfCloudTripleStoreConfiguration> ext
             rdfEvalStatsDAO.init();
         }
 
+        if (rdfEvalStatsDAO != null && this.conf.getStatsCacheTtl() > 0) {
+            cachingEvalStatsDAO = new CachingRdfEvalStatsDAO<>(rdfEvalStatsDAO, this.conf.getStatsCacheTtl(), this.conf.getStatsCacheSize());
+        }
+
+        if (selectEvalDAO != null && this.conf.getStatsCacheTtl() > 0) {
+            cachingSelectEvalDAO = new CachingSelectivityEvalDAO<>(selectEvalDAO, this.conf.getStatsCacheTtl(), this.conf.getStatsCacheSize());
+        }
+
         if (namespaceManager == null) {
             this.namespaceManager = new NamespaceManager(ryaDAO, this.conf);
         }
+
+        if (queryExecutor == null) {
+            queryExecutor = QueryExecutors.create(this.conf);
+        }
+
+        if (queryPlanCache == null && this.conf.getPlanCacheSize() > 0) {
+            queryPlanCache = new QueryPlanCache(this.conf.getPlanCacheSize(), this.conf.getPlanCacheTtl());
+        }
     }
 
     @Override
@@ -94,12 +120,47 @@ public class RdfCloudTripleStore<C extends RdfCloudTripleStoreConfiguration> ext
             if (rdfEvalStatsDAO != null) {
                 rdfEvalStatsDAO.destroy();
             }
+            cachingEvalStatsDAO = null;
+            cachingSelectEvalDAO = null;
+            queryPlanCache = null;
+            if (queryExecutor != null) {
+                queryExecutor.shutdownNow();
+                queryExecutor = null;
+            }
             ryaDAO.destroy();
         } catch (final Exception e) {
             throw new SailException(e);
         }
     }
 
+    /**
+     * @return The executor shared by the queries of this store, or the process wide default
+     *   if the store has not been initialized.
+     */
+    public ExecutorService getQueryExecutor() {
+        final ExecutorService executor = queryExecutor;
+        return executor != null ? executor : QueryExecutors.getDefault();
+    }
+
+    /**
+     * @return The optimized query plans that are reused by the connections of this store, or
+     *   {@code null} if every query is optimized from scratch.
+     */
+    public QueryPlanCache getQueryPlanCache() {
+        return queryPlanCache;
+    }
+
+    /**
+     * Drops the cached query plans. Call this after PCJs have been created or deleted so that new
+     * queries are planned against them; plans are dropped automatically when the inference schema changes.
+     */
+    public void invalidateQueryPlans() {
+        final QueryPlanCache cache = queryPlanCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
     @Override
     public ValueFactory getValueFactory() {
         return VF;
@@ -124,6 +185,15 @@ public class RdfCloudTripleStore<C extends RdfCloudTripleStoreConfiguration> ext
 
     public void setRdfEvalStatsDAO(final RdfEvalStatsDAO<C> rdfEvalStatsDAO) {
         this.rdfEvalStatsDAO = rdfEvalStatsDAO;
+        this.cachingEvalStatsDAO = null;
+    }
+
+    /**
+     * @return The cache the query planner reads cardinalities through, or {@code null} if
+     *   cardinalities are not cached. Exposes the cache's hit and miss counts.
+     */
+    public CachingRdfEvalStatsDAO<C> getCachingRdfEvalStatsDAO() {
+        return cachingEvalStatsDAO;
     }
 
     public SelectivityEvalDAO<C> getSelectEvalDAO() {
@@ -132,6 +202,15 @@ public class RdfCloudTripleStore<C extends RdfCloudTripleStoreConfiguration> ext
 
     public void setSelectEvalDAO(final SelectivityEvalDAO<C> selectEvalDAO) {
         this.selectEvalDAO = selectEvalDAO;
+        this.cachingSelectEvalDAO = null;
+    }
+
+    /**
+     * @return The cache the join selectivity optimizer reads its statistics through, or {@code null}
+     *   if they are not cached.
+     */
+    public CachingSelectivityEvalDAO<C> getCachingSelectEvalDAO() {
+        return cachingSelectEvalDAO;
     }
 
     public synchronized RyaDAO<C> getRyaDAO() {
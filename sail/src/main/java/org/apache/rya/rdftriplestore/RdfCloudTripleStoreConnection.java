@@ -24,6 +24,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.lang.reflect.Constructor;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -40,12 +41,14 @@ import org.apache.rya.api.persist.RdfEvalStatsDAO;
 import org.apache.rya.api.persist.RyaDAO;
 import org.apache.rya.api.persist.RyaDAOException;
 import org.apache.rya.api.persist.joinselect.SelectivityEvalDAO;
+import org.apache.rya.api.persist.query.BindingBatch;
 import org.apache.rya.api.persist.utils.RyaDAOHelper;
 import org.apache.rya.api.resolver.RdfToRyaConversions;
 import org.apache.rya.rdftriplestore.evaluation.FilterRangeVisitor;
 import org.apache.rya.rdftriplestore.evaluation.ParallelEvaluationStrategyImpl;
 import org.apache.rya.rdftriplestore.evaluation.QueryJoinOptimizer;
 import org.apache.rya.rdftriplestore.evaluation.QueryJoinSelectOptimizer;
+import org.apache.rya.rdftriplestore.evaluation.QueryPlanCache;
 import org.apache.rya.rdftriplestore.evaluation.RdfCloudTripleStoreEvaluationStatistics;
 import org.apache.rya.rdftriplestore.evaluation.RdfCloudTripleStoreSelectivityEvaluationStatistics;
 import org.apache.rya.rdftriplestore.evaluation.SeparateFilterJoinsVisitor;
@@ -136,8 +139,8 @@ public class RdfCloudTripleStoreConnection<C extends RdfCloudTripleStoreConfigur
             checkNotNull(store.getNamespaceManager());
 
             this.ryaDAO = store.getRyaDAO();
-            this.rdfEvalStatsDAO = store.getRdfEvalStatsDAO();
-            this.selectEvalDAO = store.getSelectEvalDAO();
+            this.rdfEvalStatsDAO = store.getCachingRdfEvalStatsDAO() != null ? store.getCachingRdfEvalStatsDAO() : store.getRdfEvalStatsDAO();
+            this.selectEvalDAO = store.getCachingSelectEvalDAO() != null ? store.getCachingSelectEvalDAO() : store.getSelectEvalDAO();
             this.inferenceEngine = store.getInferenceEngine();
             this.namespaceManager = store.getNamespaceManager();
             this.provenanceCollector = store.getProvenanceCollector();
@@ -175,6 +178,9 @@ public class RdfCloudTripleStoreConnection<C extends RdfCloudTripleStoreConfigur
                 ryaStatements.add(statement);
             }
             ryaDAO.add(ryaStatements.iterator());
+            if (inferenceEngine != null) {
+                inferenceEngine.handleSchemaChange(subject, predicate, object, true);
+            }
         } catch (final RyaDAOException e) {
             throw new SailException(e);
         }
@@ -191,6 +197,9 @@ public class RdfCloudTripleStoreConnection<C extends RdfCloudTripleStoreConfigur
                 graphs[i] = RdfToRyaConversions.convertResource(aresource[i]);
             }
             ryaDAO.dropGraph(conf, graphs);
+            if (inferenceEngine != null) {
+                inferenceEngine.handleSchemaChange(null, null, null, false);
+            }
         } catch (final RyaDAOException e) {
             throw new SailException(e);
         }
@@ -286,127 +295,36 @@ public class RdfCloudTripleStoreConnection<C extends RdfCloudTripleStoreConfigur
         }
 
         try {
-            final List<Class<QueryOptimizer>> optimizers = queryConf.getOptimizers();
-            final Class<QueryOptimizer> pcjOptimizer = queryConf.getPcjOptimizer();
-
-            if(pcjOptimizer != null) {
-                QueryOptimizer opt = null;
-                try {
-                    final Constructor<QueryOptimizer> construct = pcjOptimizer.getDeclaredConstructor();
-                    opt = construct.newInstance();
-                } catch (final Exception e) {
-                }
-                if (opt == null) {
-                    throw new NoSuchMethodException("Could not find valid constructor for " + pcjOptimizer.getName());
-                }
-                if (opt instanceof Configurable) {
-                    ((Configurable) opt).setConf(conf);
-                }
-                opt.optimize(tupleExpr, dataset, bindings);
-            }
-
             final ParallelEvaluationStrategyImpl strategy = new ParallelEvaluationStrategyImpl(
-                    new StoreTripleSource<C>(queryConf, ryaDAO), inferenceEngine, dataset, queryConf);
-
-                (new BindingAssigner()).optimize(tupleExpr, dataset, bindings);
-                (new ConstantOptimizer(strategy)).optimize(tupleExpr, dataset,
-                        bindings);
-                (new CompareOptimizer()).optimize(tupleExpr, dataset, bindings);
-                (new ConjunctiveConstraintSplitter()).optimize(tupleExpr, dataset,
-                        bindings);
-                (new DisjunctiveConstraintOptimizer()).optimize(tupleExpr, dataset,
-                        bindings);
-                (new SameTermFilterOptimizer()).optimize(tupleExpr, dataset,
-                        bindings);
-                (new QueryModelNormalizer()).optimize(tupleExpr, dataset, bindings);
-
-                (new IterativeEvaluationOptimizer()).optimize(tupleExpr, dataset,
-                        bindings);
-
-            if (!optimizers.isEmpty()) {
-                for (final Class<QueryOptimizer> optclz : optimizers) {
-                    QueryOptimizer result = null;
-                    try {
-                        final Constructor<QueryOptimizer> meth = optclz.getDeclaredConstructor();
-                        result = meth.newInstance();
-                    } catch (final Exception e) {
-                    }
-                    try {
-                        final Constructor<QueryOptimizer> meth = optclz.getDeclaredConstructor(EvaluationStrategy.class);
-                        result = meth.newInstance(strategy);
-                    } catch (final Exception e) {
-                    }
-                    if (result == null) {
-                        throw new NoSuchMethodException("Could not find valid constructor for " + optclz.getName());
-                    }
-                    if (result instanceof Configurable) {
-                        ((Configurable) result).setConf(conf);
-                    }
-                    result.optimize(tupleExpr, dataset, bindings);
-                }
-            }
-
-            (new FilterOptimizer()).optimize(tupleExpr, dataset, bindings);
-            (new OrderLimitOptimizer()).optimize(tupleExpr, dataset, bindings);
-
-            logger.trace("Optimized query model:\n{}", tupleExpr.toString());
+                    new StoreTripleSource<C>(queryConf, ryaDAO), inferenceEngine, dataset, queryConf,
+                    store.getQueryExecutor());
 
-            if (queryConf.isInfer()
-                    && this.inferenceEngine != null
-                    ) {
-                try {
-                    tupleExpr.visit(new DomainRangeVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new SomeValuesFromVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new AllValuesFromVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new HasValueVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new IntersectionOfVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new ReflexivePropertyVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new PropertyChainVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new TransitivePropertyVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new SymmetricPropertyVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new InverseOfVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new SubPropertyOfVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new SubClassOfVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new SameAsVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new OneOfVisitor(queryConf, inferenceEngine));
-                    tupleExpr.visit(new HasSelfVisitor(queryConf, inferenceEngine));
-                } catch (final Exception e) {
-                    logger.error("Error encountered while visiting query node.", e);
-                }
-            }
-            if (queryConf.isPerformant()) {
-                tupleExpr.visit(new SeparateFilterJoinsVisitor());
-//                tupleExpr.visit(new FilterTimeIndexVisitor(queryConf));
-//                tupleExpr.visit(new PartitionFilterTimeIndexVisitor(queryConf));
-            }
-            final FilterRangeVisitor rangeVisitor = new FilterRangeVisitor(queryConf);
-            tupleExpr.visit(rangeVisitor);
-            tupleExpr.visit(rangeVisitor); //this has to be done twice to get replace the statementpatterns with the right ranges
-            EvaluationStatistics stats = null;
-            if (!queryConf.isUseStats() && queryConf.isPerformant() || rdfEvalStatsDAO == null) {
-                stats = new DefaultStatistics();
-            } else if (queryConf.isUseStats()) {
-
-                if (queryConf.isUseSelectivity()) {
-                    stats = new RdfCloudTripleStoreSelectivityEvaluationStatistics<C>(queryConf, rdfEvalStatsDAO,
-                            selectEvalDAO);
-                } else {
-                    stats = new RdfCloudTripleStoreEvaluationStatistics<C>(queryConf, rdfEvalStatsDAO);
-                }
-            }
-            if (stats != null) {
-
-                if (stats instanceof RdfCloudTripleStoreSelectivityEvaluationStatistics) {
-                    final QueryJoinSelectOptimizer qjso = new QueryJoinSelectOptimizer(stats, selectEvalDAO);
-                    qjso.optimize(tupleExpr, dataset, bindings);
+            BindingSet evaluationBindings = EmptyBindingSet.getInstance();
+            final QueryPlanCache planCache = store.getQueryPlanCache();
+            try {
+                if (planCache == null) {
+                    optimize(tupleExpr, dataset, bindings, queryConf, strategy);
                 } else {
-                    final QueryJoinOptimizer qjo = new QueryJoinOptimizer(stats);
-                    qjo.optimize(tupleExpr, dataset, bindings); // TODO: Make pluggable
+                    final QueryPlanCache.Request request = QueryPlanCache.prepare(tupleExpr, dataset, bindings,
+                            getPlanSettings(queryConf), optimizesConstants(queryConf));
+                    final TupleExpr plan = planCache.get(request.getKey());
+                    if (plan != null) {
+                        logger.trace("Reusing cached query plan:\n{}", plan);
+                        tupleExpr = plan;
+                    } else {
+                        tupleExpr = request.getTupleExpr();
+                        optimize(tupleExpr, dataset, request.getPlanBindings(), queryConf, strategy);
+                        planCache.put(request.getKey(), tupleExpr);
+                    }
+                    evaluationBindings = request.getEvaluationBindings();
                 }
+            } catch (final Exception e) {
+                strategy.shutdown();
+                throw e;
             }
 
             final CloseableIteration<BindingSet, QueryEvaluationException> iter = strategy
-                    .evaluate(tupleExpr, EmptyBindingSet.getInstance());
+                    .evaluate(tupleExpr, evaluationBindings);
             final CloseableIteration<BindingSet, QueryEvaluationException> iterWrap = new CloseableIteration<BindingSet, QueryEvaluationException>() {
 
                 @Override
@@ -421,13 +339,17 @@ public class RdfCloudTripleStoreConnection<C extends RdfCloudTripleStoreConfigur
 
                 @Override
                 public boolean hasNext() throws QueryEvaluationException {
+                    strategy.checkTimeout();
                     return iter.hasNext();
                 }
 
                 @Override
                 public void close() throws QueryEvaluationException {
-                    iter.close();
-                    strategy.shutdown();
+                    try {
+                        iter.close();
+                    } finally {
+                        strategy.shutdown();
+                    }
                 }
             };
             return iterWrap;
@@ -438,6 +360,159 @@ public class RdfCloudTripleStoreConnection<C extends RdfCloudTripleStoreConfigur
         }
     }
 
+    /**
+     * Runs the configured optimizers and inference visitors over a query.
+     */
+    private void optimize(final TupleExpr tupleExpr, final Dataset dataset, final BindingSet bindings,
+            final C queryConf, final ParallelEvaluationStrategyImpl strategy) throws Exception {
+        final List<Class<QueryOptimizer>> optimizers = queryConf.getOptimizers();
+        final Class<QueryOptimizer> pcjOptimizer = queryConf.getPcjOptimizer();
+
+        if(pcjOptimizer != null) {
+            QueryOptimizer opt = null;
+            try {
+                final Constructor<QueryOptimizer> construct = pcjOptimizer.getDeclaredConstructor();
+                opt = construct.newInstance();
+            } catch (final Exception e) {
+            }
+            if (opt == null) {
+                throw new NoSuchMethodException("Could not find valid constructor for " + pcjOptimizer.getName());
+            }
+            if (opt instanceof Configurable) {
+                ((Configurable) opt).setConf(conf);
+            }
+            opt.optimize(tupleExpr, dataset, bindings);
+        }
+
+            (new BindingAssigner()).optimize(tupleExpr, dataset, bindings);
+            (new ConstantOptimizer(strategy)).optimize(tupleExpr, dataset,
+                    bindings);
+            (new CompareOptimizer()).optimize(tupleExpr, dataset, bindings);
+            (new ConjunctiveConstraintSplitter()).optimize(tupleExpr, dataset,
+                    bindings);
+            (new DisjunctiveConstraintOptimizer()).optimize(tupleExpr, dataset,
+                    bindings);
+            (new SameTermFilterOptimizer()).optimize(tupleExpr, dataset,
+                    bindings);
+            (new QueryModelNormalizer()).optimize(tupleExpr, dataset, bindings);
+
+            (new IterativeEvaluationOptimizer()).optimize(tupleExpr, dataset,
+                    bindings);
+
+        if (!optimizers.isEmpty()) {
+            for (final Class<QueryOptimizer> optclz : optimizers) {
+                QueryOptimizer result = null;
+                try {
+                    final Constructor<QueryOptimizer> meth = optclz.getDeclaredConstructor();
+                    result = meth.newInstance();
+                } catch (final Exception e) {
+                }
+                try {
+                    final Constructor<QueryOptimizer> meth = optclz.getDeclaredConstructor(EvaluationStrategy.class);
+                    result = meth.newInstance(strategy);
+                } catch (final Exception e) {
+                }
+                if (result == null) {
+                    throw new NoSuchMethodException("Could not find valid constructor for " + optclz.getName());
+                }
+                if (result instanceof Configurable) {
+                    ((Configurable) result).setConf(conf);
+                }
+                result.optimize(tupleExpr, dataset, bindings);
+            }
+        }
+
+        (new FilterOptimizer()).optimize(tupleExpr, dataset, bindings);
+        (new OrderLimitOptimizer()).optimize(tupleExpr, dataset, bindings);
+
+        logger.trace("Optimized query model:\n{}", tupleExpr.toString());
+
+        if (queryConf.isInfer()
+                && this.inferenceEngine != null
+                ) {
+            try {
+                tupleExpr.visit(new DomainRangeVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new SomeValuesFromVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new AllValuesFromVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new HasValueVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new IntersectionOfVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new ReflexivePropertyVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new PropertyChainVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new TransitivePropertyVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new SymmetricPropertyVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new InverseOfVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new SubPropertyOfVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new SubClassOfVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new SameAsVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new OneOfVisitor(queryConf, inferenceEngine));
+                tupleExpr.visit(new HasSelfVisitor(queryConf, inferenceEngine));
+            } catch (final Exception e) {
+                logger.error("Error encountered while visiting query node.", e);
+            }
+        }
+        if (queryConf.isPerformant()) {
+            tupleExpr.visit(new SeparateFilterJoinsVisitor());
+//                tupleExpr.visit(new FilterTimeIndexVisitor(queryConf));
+//                tupleExpr.visit(new PartitionFilterTimeIndexVisitor(queryConf));
+        }
+        final FilterRangeVisitor rangeVisitor = new FilterRangeVisitor(queryConf);
+        tupleExpr.visit(rangeVisitor);
+        tupleExpr.visit(rangeVisitor); //this has to be done twice to get replace the statementpatterns with the right ranges
+        EvaluationStatistics stats = null;
+        if (!queryConf.isUseStats() && queryConf.isPerformant() || rdfEvalStatsDAO == null) {
+            stats = new DefaultStatistics();
+        } else if (queryConf.isUseStats()) {
+
+            if (queryConf.isUseSelectivity()) {
+                stats = new RdfCloudTripleStoreSelectivityEvaluationStatistics<C>(queryConf, rdfEvalStatsDAO,
+                        selectEvalDAO);
+            } else {
+                stats = new RdfCloudTripleStoreEvaluationStatistics<C>(queryConf, rdfEvalStatsDAO);
+            }
+        }
+        if (stats != null) {
+
+            if (stats instanceof RdfCloudTripleStoreSelectivityEvaluationStatistics) {
+                final QueryJoinSelectOptimizer qjso = new QueryJoinSelectOptimizer(stats, selectEvalDAO);
+                qjso.optimize(tupleExpr, dataset, bindings);
+            } else {
+                final QueryJoinOptimizer qjo = new QueryJoinOptimizer(stats);
+                qjo.optimize(tupleExpr, dataset, bindings); // TODO: Make pluggable
+            }
+        }
+    }
+
+    /**
+     * @return The configuration values an optimized query plan depends on, including the version of
+     *   the inference schema, so plans made with other values are not reused.
+     */
+    private List<Object> getPlanSettings(final C queryConf) {
+        return Arrays.<Object>asList(
+                Arrays.asList(queryConf.getAuths()),
+                queryConf.isInfer(),
+                queryConf.isPerformant(),
+                queryConf.isUseStats(),
+                queryConf.isUseSelectivity(),
+                queryConf.isUseCompositeCardinality(),
+                queryConf.getTtl(),
+                queryConf.getStartTime(),
+                queryConf.getOffset(),
+                queryConf.getLimit(),
+                queryConf.getPcjTables(),
+                inferenceEngine == null ? -1L : inferenceEngine.getSchemaVersion());
+    }
+
+    /**
+     * @return {@code true} if the optimizers rewrite a query based on the values of its subjects and
+     *   objects, like owl:sameAs inference and the PCJ and indexing optimizers do, so parameters must
+     *   be assigned before the query is optimized.
+     */
+    private boolean optimizesConstants(final C queryConf) {
+        return (queryConf.isInfer() && inferenceEngine != null)
+                || queryConf.getPcjOptimizer() != null
+                || !queryConf.getOptimizers().isEmpty();
+    }
+
     @Override
     protected CloseableIteration<? extends Resource, SailException> getContextIDsInternal()
             throws SailException {
@@ -580,6 +655,9 @@ public class RdfCloudTripleStoreConnection<C extends RdfCloudTripleStoreConfigur
 
                 ryaDAO.delete(statement, conf);
             }
+            if (inferenceEngine != null) {
+                inferenceEngine.handleSchemaChange(subject, predicate, object, false);
+            }
         } catch (final RyaDAOException e) {
             throw new SailException(e);
         }
@@ -637,6 +715,14 @@ public class RdfCloudTripleStoreConnection<C extends RdfCloudTripleStoreConfigur
             return RyaDAOHelper.query(ryaDAO, statements, conf);
         }
 
+        /**
+         * Queries the left side of a bind join, scanning each distinct probe of the batch once.
+         */
+        public CloseableIteration<? extends Entry<Statement, BindingSet>, QueryEvaluationException> getStatements(
+                final BindingBatch batch) throws QueryEvaluationException {
+            return RyaDAOHelper.query(ryaDAO, batch, conf);
+        }
+
         @Override
         public ValueFactory getValueFactory() {
             return RdfCloudTripleStoreConstants.VALUE_FACTORY;
@@ -57,6 +57,7 @@ public class MultipleBindingSetsIterator extends LookAheadIteration<BindingSet,
     }
 
     protected void initIter() throws QueryEvaluationException {
+        strategy.checkTimeout();
         try {
             Collection<BindingSet> sets = new ArrayList<BindingSet>();
             int i = 0;
@@ -20,17 +20,24 @@ package org.apache.rya.rdftriplestore.evaluation;
  */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.apache.log4j.Logger;
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
 import org.apache.rya.api.RdfCloudTripleStoreUtils;
+import org.apache.rya.api.domain.RyaStatement;
+import org.apache.rya.api.persist.index.TransitiveClosureIndex;
+import org.apache.rya.api.persist.query.BindingBatch;
+import org.apache.rya.api.persist.utils.RyaDAOHelper;
+import org.apache.rya.api.resolver.RdfToRyaConversions;
 import org.apache.rya.api.utils.NullableStatementImpl;
 import org.apache.rya.rdftriplestore.RdfCloudTripleStoreConnection;
 import org.apache.rya.rdftriplestore.RdfCloudTripleStoreConnection.StoreTripleSource;
@@ -44,6 +51,7 @@ import org.eclipse.rdf4j.common.iteration.EmptyIteration;
 import org.eclipse.rdf4j.common.iteration.Iteration;
 import org.eclipse.rdf4j.common.iteration.IteratorIteration;
 import org.eclipse.rdf4j.common.iteration.LimitIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
 import org.eclipse.rdf4j.common.iteration.OffsetIteration;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
@@ -63,6 +71,7 @@ import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.FilterIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.JoinIterator;
+import org.eclipse.rdf4j.query.algebra.helpers.StatementPatternCollector;
 
 import com.google.common.collect.Lists;
 
@@ -74,11 +83,25 @@ public class ParallelEvaluationStrategyImpl extends StrictEvaluationStrategy {
     private int numOfThreads = 10;
     private boolean performant = true;
     private boolean displayQueryPlan = false;
-    private ExecutorService executorService;
+    private boolean parallelJoin = true;
+    private int parallelJoinBatch = 100;
+    private QueryScopedExecutor executorService;
     private InferenceEngine inferenceEngine;
+    private RdfCloudTripleStoreConfiguration conf;
 
     public ParallelEvaluationStrategyImpl(StoreTripleSource tripleSource, InferenceEngine inferenceEngine,
                                           Dataset dataset, RdfCloudTripleStoreConfiguration conf) {
+        this(tripleSource, inferenceEngine, dataset, conf, QueryExecutors.getDefault());
+    }
+
+    /**
+     * @param queryExecutor - The executor shared by the queries of a store. The strategy runs at most
+     *   {@link RdfCloudTripleStoreConfiguration#getNumThreads()} tasks on it at a time and cancels them
+     *   when {@link #shutdown()} is called or the query times out.
+     */
+    public ParallelEvaluationStrategyImpl(StoreTripleSource tripleSource, InferenceEngine inferenceEngine,
+                                          Dataset dataset, RdfCloudTripleStoreConfiguration conf,
+                                          ExecutorService queryExecutor) {
         super(tripleSource, dataset, null);
         Integer nthreads = conf.getNumThreads();
         this.numOfThreads = (nthreads != null) ? nthreads : this.numOfThreads;
@@ -86,8 +109,11 @@ public class ParallelEvaluationStrategyImpl extends StrictEvaluationStrategy {
         this.performant = (val != null) ? val : this.performant;
         val = conf.isDisplayQueryPlan();
         this.displayQueryPlan = (val != null) ? val : this.displayQueryPlan;
-        this.executorService = Executors.newFixedThreadPool(this.numOfThreads);
+        this.parallelJoin = conf.isParallelJoin();
+        this.parallelJoinBatch = conf.getParallelJoinBatch();
+        this.executorService = new QueryScopedExecutor(queryExecutor, Math.max(1, this.numOfThreads), conf.getQueryTimeout());
         this.inferenceEngine = inferenceEngine;
+        this.conf = conf;
     }
 
     @Override
@@ -122,17 +148,44 @@ public class ParallelEvaluationStrategyImpl extends StrictEvaluationStrategy {
                         return new FilterIterator(filter, new MultipleBindingSetsIterator(this, new Join(buffer, fcj_left), (StatementPattern) fcj_right, bindings), this);
                     }
                 }
-                //TODO: add a configuration flag for ParallelJoinIterator
-                return new JoinIterator(this, join, bindings);
+                return joinIterator(join, bindings);
             } else {
-                //TODO: add a configuration flag for ParallelJoinIterator
-                return new JoinIterator(this, join, bindings);
+                return joinIterator(join, bindings);
             }
         } else {
             return super.evaluate(join, bindings);
         }
     }
 
+    /**
+     * Evaluates the right argument once per left binding set. When the right argument reads from the store
+     * the evaluations run in parallel, otherwise the cost of handing them to other threads outweighs the work.
+     */
+    private CloseableIteration<BindingSet, QueryEvaluationException> joinIterator(Join join, BindingSet bindings) throws QueryEvaluationException {
+        if (parallelJoin && readsStore(join.getRightArg())) {
+            return new ParallelJoinIterator(this, join, bindings, executorService, parallelJoinBatch);
+        }
+        return new JoinIterator(this, join, bindings);
+    }
+
+    private static boolean readsStore(TupleExpr expr) {
+        for (StatementPattern sp : StatementPatternCollector.process(expr)) {
+            if (!(sp instanceof FixedStatementPattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancels the query if it has run longer than {@link RdfCloudTripleStoreConfiguration#getQueryTimeout()}.
+     *
+     * @throws QueryEvaluationException The query timed out or has been shut down.
+     */
+    public void checkTimeout() throws QueryEvaluationException {
+        executorService.checkTimeout();
+    }
+
     @Override
     public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(StatementPattern sp, BindingSet bindings) throws QueryEvaluationException {
         //TODO: Wonder if creating a Collection here hurts performance
@@ -148,8 +201,6 @@ public class ParallelEvaluationStrategyImpl extends StrictEvaluationStrategy {
         final Var objVar = sp.getObjectVar();
         final Var cntxtVar = sp.getContextVar();
 
-        List<Map.Entry<Statement, BindingSet>> stmts = new ArrayList<Map.Entry<Statement, BindingSet>>();
-
         Iteration<? extends Map.Entry<Statement, BindingSet>, QueryEvaluationException> iter;
         if (sp instanceof FixedStatementPattern) {
             Collection<Map.Entry<Statement, BindingSet>> coll = Lists.newArrayList();
@@ -167,6 +218,10 @@ public class ParallelEvaluationStrategyImpl extends StrictEvaluationStrategy {
                 }
             }
             iter = new IteratorIteration(coll.iterator());
+        } else if (sp instanceof TransitivePropertySP && isClosureIndexed(predVar, cntxtVar)) {
+            //the closure index answers the pattern for each binding, including open ended ones
+            iter = evaluateClosure(inferenceEngine.getTransitiveClosureIndex(), subjVar, (IRI) predVar.getValue(),
+                    objVar, bindings);
         } else if (sp instanceof TransitivePropertySP &&
                 ((subjVar != null && subjVar.getValue() != null) ||
                         (objVar != null && objVar.getValue() != null)) &&
@@ -190,6 +245,10 @@ public class ParallelEvaluationStrategyImpl extends StrictEvaluationStrategy {
             }
             iter = new IteratorIteration(coll.iterator());
         } else {
+            // bindings that produce the same pattern share a probe, so each pattern is converted and scanned once
+            BindingBatch.Builder batch = BindingBatch.builder();
+            Map<List<Value>, RyaStatement> probes = new HashMap<List<Value>, RyaStatement>();
+            boolean empty = true;
             for (BindingSet binding : bindings) {
                 Value subjValue = getVarValue(subjVar, binding);
                 Value predValue = getVarValue(predVar, binding);
@@ -199,14 +258,21 @@ public class ParallelEvaluationStrategyImpl extends StrictEvaluationStrategy {
                         (predValue != null && !(predValue instanceof IRI))) {
                     continue;
                 }
-                stmts.add(new RdfCloudTripleStoreUtils.CustomEntry<Statement, BindingSet>(
-                        new NullableStatementImpl((Resource) subjValue, (IRI) predValue, objValue, contxtValue), binding));
+                List<Value> probeKey = Arrays.asList(subjValue, predValue, objValue, contxtValue);
+                RyaStatement probe = probes.get(probeKey);
+                if (probe == null) {
+                    probe = RdfToRyaConversions.convertStatement(
+                            new NullableStatementImpl((Resource) subjValue, (IRI) predValue, objValue, contxtValue));
+                    probes.put(probeKey, probe);
+                }
+                batch.add(probe, binding);
+                empty = false;
             }
-            if (stmts.size() == 0) {
+            if (empty) {
                 return new EmptyIteration();
             }
 
-            iter = ((RdfCloudTripleStoreConnection.StoreTripleSource) tripleSource).getStatements(stmts);
+            iter = ((RdfCloudTripleStoreConnection.StoreTripleSource) tripleSource).getStatements(batch.build());
         }
         return new ConvertingIteration<Map.Entry<Statement, BindingSet>, BindingSet, QueryEvaluationException>(iter) {
 
@@ -264,6 +330,62 @@ public class ParallelEvaluationStrategyImpl extends StrictEvaluationStrategy {
         return result;
     }
 
+    private boolean isClosureIndexed(Var predVar, Var cntxtVar) {
+        if (inferenceEngine == null || inferenceEngine.getTransitiveClosureIndex() == null) {
+            return false;
+        }
+        // the index spans every graph, so it can't answer a pattern restricted to one
+        if (cntxtVar != null || predVar == null || !(predVar.getValue() instanceof IRI)) {
+            return false;
+        }
+        return inferenceEngine.getTransitiveClosureIndex().isIndexed(
+                RdfToRyaConversions.convertIRI((IRI) predVar.getValue()));
+    }
+
+    private Iteration<Map.Entry<Statement, BindingSet>, QueryEvaluationException> evaluateClosure(
+            final TransitiveClosureIndex index, final Var subjVar, final IRI predicate, final Var objVar,
+            Collection<BindingSet> bindings) {
+        final Iterator<BindingSet> remaining = bindings.iterator();
+        return new LookAheadIteration<Map.Entry<Statement, BindingSet>, QueryEvaluationException>() {
+            private BindingSet current;
+            private CloseableIteration<Statement, QueryEvaluationException> closure;
+
+            @Override
+            protected Map.Entry<Statement, BindingSet> getNextElement() throws QueryEvaluationException {
+                while (true) {
+                    if (closure != null) {
+                        if (closure.hasNext()) {
+                            return new RdfCloudTripleStoreUtils.CustomEntry<Statement, BindingSet>(closure.next(), current);
+                        }
+                        closure.close();
+                        closure = null;
+                    }
+                    if (!remaining.hasNext()) {
+                        return null;
+                    }
+                    current = remaining.next();
+                    Value subjValue = getVarValue(subjVar, current);
+                    if (subjValue != null && !(subjValue instanceof Resource)) {
+                        continue;
+                    }
+                    closure = RyaDAOHelper.queryClosure(index, (Resource) subjValue, predicate,
+                            getVarValue(objVar, current), conf);
+                }
+            }
+
+            @Override
+            protected void handleClose() throws QueryEvaluationException {
+                try {
+                    super.handleClose();
+                } finally {
+                    if (closure != null) {
+                        closure.close();
+                    }
+                }
+            }
+        };
+    }
+
     protected Value getVarValue(Var var) {
         if (var == null)
             return null;
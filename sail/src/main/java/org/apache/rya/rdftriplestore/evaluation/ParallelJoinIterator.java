@@ -19,34 +19,62 @@ package org.apache.rya.rdftriplestore.evaluation;
  * under the License.
  */
 
-import java.util.NoSuchElementException;
-import java.util.Queue;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.QueryInterruptedException;
 import org.eclipse.rdf4j.query.algebra.Join;
 import org.eclipse.rdf4j.query.algebra.TupleExpr;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
 import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 
 /**
+ * Evaluates the right argument of a {@link Join} once per left binding set on an {@link ExecutorService}.
+ * <p>
+ * At most {@code batch} right hand evaluations are outstanding at a time, and each buffers at most
+ * {@link #RESULT_BUFFER_SIZE} results before it waits for them to be read. Results are returned in the
+ * order of the left binding sets. A failed right hand evaluation fails the iteration, as does one that was
+ * interrupted, and closing the iteration cancels the evaluations that are still running. When the executor
+ * is a {@link QueryScopedExecutor} its timeout is checked while waiting for results.
+ * <p>
+ * An evaluation that no thread has started yet when its results are needed is read on the waiting thread
+ * instead, as the results are consumed. This keeps nested parallel joins, whose evaluations wait on
+ * evaluations of their own, from deadlocking when they take up every thread the query may use.
  */
 public class ParallelJoinIterator extends LookAheadIteration<BindingSet, QueryEvaluationException> {
 
     public static final EmptyBindingSet EMPTY_BINDING_SET = new EmptyBindingSet();
 
+    /**
+     * The maximum number of results a right hand evaluation buffers.
+     */
+    public static final int RESULT_BUFFER_SIZE = 1024;
+
+    /**
+     * Ends the results of a right hand evaluation that was interrupted before it completed.
+     */
+    private static final Object CANCELLED = new Object();
+
+    private static final long POLL_MILLIS = 100;
+
     private final EvaluationStrategy strategy;
     private final Join join;
     private final CloseableIteration<BindingSet, QueryEvaluationException> leftIter;
 
-    private ExecutorService executorService;
-    private Queue<ParallelIteratorWork> workQueue = new LinkedBlockingQueue<ParallelIteratorWork>();
-    private ParallelIteratorWork currentWork;
-    private int batch;
+    private final ExecutorService executorService;
+    private final Deque<ParallelIteratorWork> workQueue = new ArrayDeque<ParallelIteratorWork>();
+    private final int batch;
 
     public ParallelJoinIterator(EvaluationStrategy strategy, Join join, BindingSet bindings, ExecutorService executorService, int batch)
             throws QueryEvaluationException {
@@ -55,82 +83,206 @@ public class ParallelJoinIterator extends LookAheadIteration<BindingSet, QueryEv
         leftIter = strategy.evaluate(join.getLeftArg(), bindings);
 
         this.executorService = executorService;
-        this.batch = batch;
+        this.batch = Math.max(1, batch);
     }
 
-
     @Override
     protected BindingSet getNextElement() throws QueryEvaluationException {
+        while (true) {
+            fill();
+            final ParallelIteratorWork currentWork = workQueue.peekFirst();
+            if (currentWork == null) {
+                return null;
+            }
+
+            final Object next = take(currentWork);
+            if (next == EMPTY_BINDING_SET) {
+                workQueue.pollFirst();
+            } else if (next == CANCELLED) {
+                throw new QueryInterruptedException("The evaluation of a join was interrupted.");
+            } else if (next instanceof Failure) {
+                throw ((Failure) next).exception;
+            } else {
+                return (BindingSet) next;
+            }
+        }
+    }
+
+    private void fill() throws QueryEvaluationException {
+        while (workQueue.size() < batch && leftIter.hasNext()) {
+            final ParallelIteratorWork work = new ParallelIteratorWork(leftIter.next(), join.getRightArg());
+            try {
+                work.future = executorService.submit(work);
+            } catch (RejectedExecutionException e) {
+                throw new QueryInterruptedException("The query was cancelled.", e);
+            }
+            workQueue.addLast(work);
+        }
+    }
+
+    private Object take(ParallelIteratorWork work) throws QueryEvaluationException {
+        if (work.claim()) {
+            // no thread has started the evaluation, so it is read here as its results are consumed
+            work.future.cancel(false);
+            if (executorService instanceof QueryScopedExecutor && work.future instanceof Runnable) {
+                // releases the cancelled task's place in the query's queue
+                ((QueryScopedExecutor) executorService).runNow((Runnable) work.future);
+            }
+            work.inline = strategy.evaluate(work.rightTupleExpr, work.leftBindingSet);
+        }
+        if (work.inline != null) {
+            checkTimeout();
+            if (work.inline.hasNext()) {
+                return work.inline.next();
+            }
+            work.closeInline();
+            return EMPTY_BINDING_SET;
+        }
 
         try {
-            while (leftIter.hasNext() || !workQueue.isEmpty() || currentWork != null) {
-                if (!workQueue.isEmpty() && currentWork == null) {
-                    currentWork = workQueue.poll();
+            while (true) {
+                final Object next = work.queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    return next;
                 }
-
-                if (currentWork != null) {
-                    BindingSet bindingSet = currentWork.queue.poll();
-                    if (EMPTY_BINDING_SET.equals(bindingSet)) {
-                        currentWork = null;
-                        continue;
-                    } else if (bindingSet == null) {
-                        continue;
-                    }
-                    return bindingSet;
+                final Object end = work.end;
+                if (end != null) {
+                    // nothing is added once the end is set, so the buffer only has to be checked once more
+                    final Object last = work.queue.poll();
+                    return last != null ? last : end;
                 }
-
-                try {
-                    for (int i = 0; i < batch; i++) {
-                        if (leftIter.hasNext()) {
-                            ParallelIteratorWork work = new ParallelIteratorWork(leftIter.next(), join.getRightArg());
-                            workQueue.add(work);
-                            executorService.execute(work);
-                        } else
-                            break;
-                    }
-                } catch (NoSuchElementException ignore) {
+                checkTimeout();
+                if (work.future.isCancelled()) {
+                    throw new QueryInterruptedException("The query was cancelled.");
                 }
             }
-        } catch (Exception e) {
-            throw new QueryEvaluationException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryInterruptedException(e);
+        }
+    }
+
+    private void checkTimeout() throws QueryEvaluationException {
+        if (executorService instanceof QueryScopedExecutor) {
+            ((QueryScopedExecutor) executorService).checkTimeout();
         }
-        return null;
     }
 
     @Override
     protected void handleClose() throws QueryEvaluationException {
         try {
             super.handleClose();
-            leftIter.close();
-//           rightIter.close();
-        } catch (Exception e) {
-            throw new QueryEvaluationException(e);
+        } finally {
+            for (ParallelIteratorWork work : workQueue) {
+                work.cancelled = true;
+                work.future.cancel(true);
+            }
+            try {
+                final ParallelIteratorWork current = workQueue.peekFirst();
+                if (current != null) {
+                    current.closeInline();
+                }
+            } finally {
+                workQueue.clear();
+                leftIter.close();
+            }
+        }
+    }
+
+    /**
+     * Carries the exception of a failed right hand evaluation to the consumer.
+     */
+    private static class Failure {
+        private final QueryEvaluationException exception;
+
+        private Failure(QueryEvaluationException exception) {
+            this.exception = exception;
         }
     }
 
     private class ParallelIteratorWork implements Runnable {
 
-        private BindingSet leftBindingSet;
-        private TupleExpr rightTupleExpr;
-        public LinkedBlockingQueue<BindingSet> queue = new LinkedBlockingQueue<BindingSet>();
+        private final BindingSet leftBindingSet;
+        private final TupleExpr rightTupleExpr;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(RESULT_BUFFER_SIZE);
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private Future<?> future;
+        private volatile boolean cancelled = false;
+
+        // how the results end, set once the evaluation has handed off all of its results
+        private volatile Object end;
+
+        // the evaluation when it is read by the consumer rather than run on the executor
+        private CloseableIteration<BindingSet, QueryEvaluationException> inline;
 
         private ParallelIteratorWork(BindingSet leftBindingSet, TupleExpr rightTupleExpr) {
             this.leftBindingSet = leftBindingSet;
             this.rightTupleExpr = rightTupleExpr;
         }
 
+        /**
+         * @return {@code true} if the caller is the first to start the evaluation.
+         */
+        private boolean claim() {
+            return started.compareAndSet(false, true);
+        }
+
+        private void closeInline() throws QueryEvaluationException {
+            if (inline != null) {
+                try {
+                    inline.close();
+                } finally {
+                    inline = null;
+                }
+            }
+        }
+
         @Override
         public void run() {
+            if (!claim()) {
+                return;
+            }
+            CloseableIteration<BindingSet, QueryEvaluationException> iter = null;
+            Object result = CANCELLED;
             try {
-                CloseableIteration<BindingSet, QueryEvaluationException> iter = strategy.evaluate(rightTupleExpr, leftBindingSet);
-                while (iter.hasNext()) {
-                    queue.add(iter.next());
+                iter = strategy.evaluate(rightTupleExpr, leftBindingSet);
+                boolean handed = true;
+                while (handed && iter.hasNext()) {
+                    handed = hand(iter.next());
+                }
+                if (handed) {
+                    result = EMPTY_BINDING_SET;
                 }
-                queue.add(EMPTY_BINDING_SET);
-                iter.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             } catch (QueryEvaluationException e) {
-                throw new RuntimeException(e);
+                result = new Failure(e);
+            } catch (RuntimeException e) {
+                result = new Failure(new QueryEvaluationException(e));
+            } finally {
+                if (iter != null) {
+                    try {
+                        iter.close();
+                    } catch (QueryEvaluationException e) {
+                        // the results have already been handed off
+                    }
+                }
+                end = result;
+            }
+        }
+
+        /**
+         * Waits for room in the buffer until the join is closed.
+         *
+         * @return {@code true} if the result was buffered; {@code false} if the join was closed.
+         */
+        private boolean hand(BindingSet result) throws InterruptedException {
+            while (!queue.offer(result, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (cancelled) {
+                    return false;
+                }
             }
+            return true;
         }
     }
 }
@@ -0,0 +1,73 @@
+package org.apache.rya.rdftriplestore.evaluation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Creates the thread pools that are shared by the queries of a store. Each query submits its work through a
+ * {@link QueryScopedExecutor}, which limits how many of the shared threads it may use at the same time.
+ */
+public final class QueryExecutors {
+
+    private QueryExecutors() {
+    }
+
+    /**
+     * @param conf - Sizes the pool. (not null)
+     * @return A pool of {@link RdfCloudTripleStoreConfiguration#getQueryExecutorThreads()} daemon threads.
+     */
+    public static ExecutorService create(RdfCloudTripleStoreConfiguration conf) {
+        Preconditions.checkNotNull(conf);
+        return create(conf.getQueryExecutorThreads());
+    }
+
+    /**
+     * @param numThreads - The number of threads in the pool. (> 0)
+     * @return A pool of daemon threads that are released while the pool is idle.
+     */
+    public static ExecutorService create(int numThreads) {
+        Preconditions.checkArgument(numThreads > 0, "numThreads must be greater than 0");
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("rya-query-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return A pool shared by all of the queries that are not evaluated by a store that owns its own pool.
+     */
+    public static ExecutorService getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static class DefaultHolder {
+        private static final ExecutorService INSTANCE = create(Runtime.getRuntime().availableProcessors() * 2);
+    }
+}
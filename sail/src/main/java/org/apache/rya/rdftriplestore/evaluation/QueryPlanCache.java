@@ -0,0 +1,328 @@
+package org.apache.rya.rdftriplestore.evaluation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.rya.api.domain.VarNameUtils;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.algebra.ExtensionElem;
+import org.eclipse.rdf4j.query.algebra.GroupElem;
+import org.eclipse.rdf4j.query.algebra.ProjectionElem;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Keeps optimized query plans so that a query that is evaluated over and over again, usually with
+ * different parameter values, is only optimized once.
+ * <p>
+ * A plan is keyed by the query algebra, the dataset, and whatever settings the caller says the plan
+ * depends on. Parameters that bind a subject or an object are not assigned before the query is
+ * optimized; they are handed to the evaluation strategy instead, so one plan serves every value.
+ * Parameters that bind a predicate, a context, or the type of an {@code rdf:type} pattern decide
+ * which inference rules and indices apply, so they are assigned and their values are part of the key.
+ * <p>
+ * Some optimizers also depend on constant subjects and objects: owl:sameAs inference only expands
+ * patterns whose subject or object is known, and PCJ and indexing optimizers match constants. When
+ * they run, the caller asks for every parameter to be assigned, and a plan is only reused for the same
+ * parameter values.
+ */
+public class QueryPlanCache {
+
+    private final Cache<PlanKey, TupleExpr> plans;
+
+    /**
+     * @param maxSize - The maximum number of plans that are kept. (&gt; 0)
+     * @param ttlMillis - The number of milliseconds a plan may be reused for. (&gt; 0)
+     */
+    public QueryPlanCache(final int maxSize, final long ttlMillis) {
+        checkArgument(maxSize > 0, "maxSize must be greater than 0");
+        checkArgument(ttlMillis > 0, "ttlMillis must be greater than 0");
+        plans = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Normalizes a query and splits its bindings into the ones the plan depends on and the ones
+     * that are only needed to evaluate it.
+     *
+     * @param tupleExpr - The query, which is normalized in place. (not null)
+     * @param dataset - The dataset the query is evaluated over.
+     * @param bindings - The bindings the query is evaluated with. (not null)
+     * @param settings - The configuration values the optimized plan depends on. (not null)
+     * @return The request the plan is looked up and optimized with.
+     */
+    public static Request prepare(final TupleExpr tupleExpr, final Dataset dataset, final BindingSet bindings, final List<?> settings) {
+        return prepare(tupleExpr, dataset, bindings, settings, false);
+    }
+
+    /**
+     * Normalizes a query and splits its bindings into the ones the plan depends on and the ones
+     * that are only needed to evaluate it.
+     *
+     * @param tupleExpr - The query, which is normalized in place. (not null)
+     * @param dataset - The dataset the query is evaluated over.
+     * @param bindings - The bindings the query is evaluated with. (not null)
+     * @param settings - The configuration values the optimized plan depends on. (not null)
+     * @param assignAll - {@code true} if the optimizers depend on the values of subjects and objects,
+     *   so every binding must be assigned before optimizing and be part of the key.
+     * @return The request the plan is looked up and optimized with.
+     */
+    public static Request prepare(final TupleExpr tupleExpr, final Dataset dataset, final BindingSet bindings,
+            final List<?> settings, final boolean assignAll) {
+        checkNotNull(tupleExpr);
+        checkNotNull(bindings);
+        checkNotNull(settings);
+
+        final AnonymousVarNormalizer normalizer = new AnonymousVarNormalizer();
+        tupleExpr.visit(normalizer);
+
+        final QueryBindingSet planBindings = new QueryBindingSet();
+        final QueryBindingSet evaluationBindings = new QueryBindingSet();
+        final Map<String, Value> keyBindings = new TreeMap<>();
+        for (final Binding binding : bindings) {
+            if (normalizer.structuralVars.contains(binding.getName())
+                    || (assignAll && normalizer.vars.contains(binding.getName()))) {
+                planBindings.addBinding(binding);
+                keyBindings.put(binding.getName(), binding.getValue());
+            } else if (normalizer.vars.contains(binding.getName())) {
+                evaluationBindings.addBinding(binding);
+            }
+        }
+
+        final PlanKey key = new PlanKey(tupleExpr.clone(), dataset == null ? null : dataset.toString(),
+                keyBindings, new ArrayList<>(settings));
+        return new Request(key, tupleExpr, planBindings, evaluationBindings);
+    }
+
+    /**
+     * @param key - Identifies the plan. (not null)
+     * @return A copy of the cached plan, or {@code null} if there is none.
+     */
+    public TupleExpr get(final PlanKey key) {
+        final TupleExpr plan = plans.getIfPresent(key);
+        return plan == null ? null : plan.clone();
+    }
+
+    /**
+     * @param key - Identifies the plan. (not null)
+     * @param plan - The optimized plan. A copy of it is kept. (not null)
+     */
+    public void put(final PlanKey key, final TupleExpr plan) {
+        plans.put(key, plan.clone());
+    }
+
+    /**
+     * Drops every plan, for example because PCJs were created or deleted.
+     */
+    public void invalidateAll() {
+        plans.invalidateAll();
+    }
+
+    /**
+     * @return The number of plans that were reused.
+     */
+    public long getHitCount() {
+        return plans.stats().hitCount();
+    }
+
+    /**
+     * @return The number of queries that had to be optimized.
+     */
+    public long getMissCount() {
+        return plans.stats().missCount();
+    }
+
+    /**
+     * @return All of the statistics of the cache, including evictions.
+     */
+    public CacheStats getStats() {
+        return plans.stats();
+    }
+
+    /**
+     * A query that has been prepared for {@link QueryPlanCache}.
+     */
+    public static final class Request {
+        private final PlanKey key;
+        private final TupleExpr tupleExpr;
+        private final BindingSet planBindings;
+        private final BindingSet evaluationBindings;
+
+        private Request(final PlanKey key, final TupleExpr tupleExpr, final BindingSet planBindings, final BindingSet evaluationBindings) {
+            this.key = key;
+            this.tupleExpr = tupleExpr;
+            this.planBindings = planBindings;
+            this.evaluationBindings = evaluationBindings;
+        }
+
+        /**
+         * @return Identifies the plan of the query.
+         */
+        public PlanKey getKey() {
+            return key;
+        }
+
+        /**
+         * @return The normalized query, which is optimized when no plan is cached.
+         */
+        public TupleExpr getTupleExpr() {
+            return tupleExpr;
+        }
+
+        /**
+         * @return The bindings the query must be optimized with.
+         */
+        public BindingSet getPlanBindings() {
+            return planBindings;
+        }
+
+        /**
+         * @return The bindings the plan must be evaluated with.
+         */
+        public BindingSet getEvaluationBindings() {
+            return evaluationBindings;
+        }
+    }
+
+    /**
+     * Identifies an optimized plan.
+     */
+    public static final class PlanKey {
+        private final TupleExpr algebra;
+        private final String dataset;
+        private final Map<String, Value> bindings;
+        private final List<?> settings;
+        private final int hashCode;
+
+        private PlanKey(final TupleExpr algebra, final String dataset, final Map<String, Value> bindings, final List<?> settings) {
+            this.algebra = algebra;
+            this.dataset = dataset;
+            this.bindings = bindings;
+            this.settings = settings;
+            hashCode = Objects.hash(algebra, dataset, bindings, settings);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            final PlanKey other = (PlanKey) o;
+            return hashCode == other.hashCode && algebra.equals(other.algebra) && Objects.equals(dataset, other.dataset)
+                    && bindings.equals(other.bindings) && settings.equals(other.settings);
+        }
+    }
+
+    /**
+     * Renames the anonymous variables of a query in the order they are found, because the parser gives
+     * them different names every time the same query is parsed. Also finds the variables of the query and
+     * the ones that decide how it is planned.
+     */
+    private static class AnonymousVarNormalizer extends AbstractQueryModelVisitor<RuntimeException> {
+        private final Map<String, String> names = new HashMap<>();
+        private final Set<String> vars = new HashSet<>();
+        private final Set<String> structuralVars = new HashSet<>();
+
+        private String rename(final String name) {
+            if (name == null || !VarNameUtils.isAnonymous(name)) {
+                return name;
+            }
+            return names.computeIfAbsent(name, n -> VarNameUtils.ANONYMOUS_PREFIX + "plan_" + names.size());
+        }
+
+        @Override
+        public void meet(final Var node) {
+            if (!node.hasValue()) {
+                node.setName(rename(node.getName()));
+                vars.add(node.getName());
+            }
+        }
+
+        @Override
+        public void meet(final StatementPattern node) {
+            super.meet(node);
+            addStructural(node.getPredicateVar());
+            addStructural(node.getContextVar());
+            final Var predicate = node.getPredicateVar();
+            if (predicate != null && RDF.TYPE.equals(predicate.getValue())) {
+                addStructural(node.getObjectVar());
+            }
+        }
+
+        private void addStructural(final Var var) {
+            if (var != null && !var.hasValue()) {
+                structuralVars.add(var.getName());
+            }
+        }
+
+        @Override
+        public void meet(final ProjectionElem node) {
+            node.setSourceName(rename(node.getSourceName()));
+            node.setTargetName(rename(node.getTargetName()));
+            super.meet(node);
+        }
+
+        @Override
+        public void meet(final ExtensionElem node) {
+            node.setName(rename(node.getName()));
+            super.meet(node);
+        }
+
+        @Override
+        public void meet(final GroupElem node) {
+            node.setName(rename(node.getName()));
+            super.meet(node);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package org.apache.rya.rdftriplestore.evaluation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.rdf4j.query.QueryInterruptedException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The view a single query has of the executor shared by a store.
+ * <p>
+ * At most {@code maxConcurrency} of the query's tasks run on the shared executor at a time; the rest wait
+ * in this executor's queue so one query can not take every shared thread. {@link #shutdownNow()} cancels
+ * the query's queued tasks and interrupts its running ones, which is how closing a query or exceeding its
+ * timeout stops the work it started. Iterators call {@link #checkTimeout()} between results so a query that
+ * ran out of time fails instead of running to completion.
+ * <p>
+ * A thread that needs the result of a task that has not started yet calls {@link #runNow(Runnable)} to run
+ * it itself. Tasks that wait on other tasks of the same query, like nested parallel joins, therefore make
+ * progress even when every slot of the query, or every thread of the shared executor, is taken by a
+ * waiting task.
+ */
+public class QueryScopedExecutor extends AbstractExecutorService {
+
+    private final ExecutorService shared;
+    private final int maxConcurrency;
+    private final long deadline;
+
+    private final Queue<Runnable> pending = new ArrayDeque<Runnable>();
+    private final Map<Runnable, FutureTask<Void>> running = new HashMap<Runnable, FutureTask<Void>>();
+    private int numRunning = 0;
+    private boolean shutdown = false;
+
+    /**
+     * @param shared - The executor the tasks run on. (not null)
+     * @param maxConcurrency - The maximum number of tasks that run at the same time. (> 0)
+     * @param timeoutMillis - The number of milliseconds the query may run, or 0 if it never times out. (>= 0)
+     */
+    public QueryScopedExecutor(ExecutorService shared, int maxConcurrency, long timeoutMillis) {
+        Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency must be greater than 0");
+        Preconditions.checkArgument(timeoutMillis >= 0, "timeout must be non negative");
+        this.shared = Preconditions.checkNotNull(shared);
+        this.maxConcurrency = maxConcurrency;
+        this.deadline = timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+    }
+
+    /**
+     * @return {@code true} if the query has run longer than its timeout.
+     */
+    public boolean isTimedOut() {
+        return deadline != 0 && System.nanoTime() - deadline > 0;
+    }
+
+    /**
+     * Cancels the query's tasks if it has run longer than its timeout.
+     *
+     * @throws QueryInterruptedException The query has timed out or was cancelled.
+     */
+    public void checkTimeout() throws QueryInterruptedException {
+        if (isTimedOut()) {
+            shutdownNow();
+            throw new QueryInterruptedException("The query did not complete within its timeout.");
+        }
+        if (isShutdown()) {
+            throw new QueryInterruptedException("The query was cancelled.");
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Preconditions.checkNotNull(command);
+        synchronized (this) {
+            if (shutdown) {
+                throw new RejectedExecutionException("The query has been closed.");
+            }
+            pending.add(command);
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        synchronized (this) {
+            while (!shutdown && numRunning < maxConcurrency && !pending.isEmpty()) {
+                final Runnable task = pending.poll();
+                numRunning++;
+                // done() is called once the task completes or is cancelled, even if it never started
+                final FutureTask<Void> future = new FutureTask<Void>(task, null) {
+                    @Override
+                    protected void done() {
+                        finished(task);
+                    }
+                };
+                running.put(task, future);
+                shared.execute(future);
+            }
+        }
+    }
+
+    private void finished(Runnable task) {
+        synchronized (this) {
+            numRunning--;
+            running.remove(task);
+            notifyAll();
+        }
+        dispatch();
+    }
+
+    /**
+     * Runs a task submitted to this executor on the calling thread if no thread has started it yet. A task
+     * waiting in this executor's queue is removed from it; a task handed to the shared executor but still
+     * in its queue is run here and skipped once a shared thread reaches it. Does nothing if the task is
+     * running, has finished, or was not submitted to this executor.
+     *
+     * @param task - The task, as passed to {@link #execute(Runnable)}. For tasks submitted with
+     *   {@code submit} this is the returned {@link Future}. (not null)
+     */
+    public void runNow(Runnable task) {
+        Preconditions.checkNotNull(task);
+        final FutureTask<Void> dispatched;
+        synchronized (this) {
+            if (pending.remove(task)) {
+                dispatched = null;
+            } else {
+                dispatched = running.get(task);
+                if (dispatched == null) {
+                    return;
+                }
+            }
+        }
+        if (dispatched == null) {
+            task.run();
+        } else {
+            // A FutureTask only runs once, so this returns right away if a shared thread has started it
+            dispatched.run();
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        final List<Runnable> dropped;
+        final List<Future<?>> cancelled;
+        synchronized (this) {
+            shutdown = true;
+            dropped = new ArrayList<Runnable>(pending);
+            pending.clear();
+            cancelled = new ArrayList<Future<?>>(running.values());
+            running.clear();
+            notifyAll();
+        }
+        for (Future<?> future : cancelled) {
+            future.cancel(true);
+        }
+        return dropped;
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && numRunning == 0;
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        final long end = System.nanoTime() + remaining;
+        while (!isTerminated()) {
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            remaining = end - System.nanoTime();
+        }
+        return true;
+    }
+}
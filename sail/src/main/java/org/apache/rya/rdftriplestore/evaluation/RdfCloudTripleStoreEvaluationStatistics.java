@@ -22,12 +22,18 @@ package org.apache.rya.rdftriplestore.evaluation;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
+import org.apache.rya.api.domain.RangeValue;
+import org.apache.rya.api.persist.CardinalityKey;
+import org.apache.rya.api.persist.RdfDAOException;
 import org.apache.rya.api.persist.RdfEvalStatsDAO;
 import org.apache.rya.api.persist.RdfEvalStatsDAO.CARDINALITY_OF;
 import org.apache.rya.rdftriplestore.inference.DoNotExpandSP;
@@ -47,6 +53,7 @@ import org.eclipse.rdf4j.query.algebra.TupleExpr;
 import org.eclipse.rdf4j.query.algebra.UnaryTupleOperator;
 import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.query.algebra.helpers.StatementPatternCollector;
 
 /**
  * Class RdfCloudTripleStoreEvaluationStatistics
@@ -55,10 +62,15 @@ import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
  */
 public class RdfCloudTripleStoreEvaluationStatistics<C extends RdfCloudTripleStoreConfiguration> extends EvaluationStatistics {
 
+    private static final CARDINALITY_OF[] JOIN_POSITIONS = { CARDINALITY_OF.SUBJECT, CARDINALITY_OF.OBJECT };
+
     private C conf;
     private RdfEvalStatsDAO<C> rdfEvalStatsDAO;
     protected boolean pushEmptyRdfTypeDown = true;
     protected boolean useCompositeCardinalities = true;
+    private final Map<CardinalityKey, Double> resolvedCardinalities = new HashMap<>();
+    private final Map<List<Value>, Double> resolvedRangeCardinalities = new HashMap<>();
+    private final Map<CardinalityKey, Double> resolvedDistinctCounts = new HashMap<>();
 
     public RdfCloudTripleStoreEvaluationStatistics(final C conf, final RdfEvalStatsDAO<C> rdfEvalStatsDAO) {
         checkNotNull(conf);
@@ -75,6 +87,7 @@ public class RdfCloudTripleStoreEvaluationStatistics<C extends RdfCloudTripleSto
 
     @Override
     public double getCardinality(final TupleExpr expr) {
+        prefetchCardinalities(expr);
         if (expr instanceof Filter) {
             final Filter f = (Filter) expr;
             // filters must make sets smaller
@@ -88,12 +101,191 @@ public class RdfCloudTripleStoreEvaluationStatistics<C extends RdfCloudTripleSto
         return new RdfCloudTripleStoreCardinalityCalculator(this);
     }
 
+    /**
+     * Resolves the cardinalities of all of the statement patterns of an expression with a single
+     * call to {@link RdfEvalStatsDAO#getCardinalities(RdfCloudTripleStoreConfiguration, java.util.Collection)},
+     * so that the cardinality calculator does not look them up one at a time. The optimizers ask
+     * for the cardinality of many overlapping expressions, so resolved cardinalities are kept for
+     * as long as these statistics are used.
+     */
+    protected void prefetchCardinalities(final TupleExpr expr) {
+        final Set<CardinalityKey> keys = new HashSet<>();
+        for (final StatementPattern sp : StatementPatternCollector.process(expr)) {
+            if (sp instanceof FixedStatementPattern || sp instanceof DoNotExpandSP) {
+                continue;
+            }
+            final CardinalityKey key = getCardinalityKey(
+                    (Resource) constantValue(sp.getSubjectVar()),
+                    (IRI) constantValue(sp.getPredicateVar()),
+                    constantValue(sp.getObjectVar()),
+                    (Resource) constantValue(sp.getContextVar()));
+            if (key != null && !resolvedCardinalities.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        if (!keys.isEmpty()) {
+            try {
+                resolvedCardinalities.putAll(rdfEvalStatsDAO.getCardinalities(conf, keys));
+            } catch (final RdfDAOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * @return The cardinality that is looked up for a statement pattern with the given constants,
+     *   or {@code null} if none is looked up.
+     */
+    protected CardinalityKey getCardinalityKey(final Resource subj, final IRI pred, final Value obj, final Resource context) {
+        if (subj != null) {
+            final List<Value> values = new ArrayList<Value>();
+            CARDINALITY_OF card = RdfEvalStatsDAO.CARDINALITY_OF.SUBJECT;
+            values.add(subj);
+            if (useCompositeCardinalities) {
+                if (pred != null) {
+                    values.add(pred);
+                    card = RdfEvalStatsDAO.CARDINALITY_OF.SUBJECTPREDICATE;
+                } else if (obj != null) {
+                    values.add(obj);
+                    card = RdfEvalStatsDAO.CARDINALITY_OF.SUBJECTOBJECT;
+                }
+            }
+            return new CardinalityKey(card, values, context);
+        } else if (pred != null) {
+            if (pushEmptyRdfTypeDown && RDF.TYPE.equals(pred) && obj == null) {
+                return null;
+            }
+            final List<Value> values = new ArrayList<Value>();
+            CARDINALITY_OF card = RdfEvalStatsDAO.CARDINALITY_OF.PREDICATE;
+            values.add(pred);
+            if (useCompositeCardinalities && obj != null) {
+                values.add(obj);
+                card = RdfEvalStatsDAO.CARDINALITY_OF.PREDICATEOBJECT;
+            }
+            return new CardinalityKey(card, values, context);
+        } else if (obj != null) {
+            final List<Value> values = new ArrayList<Value>();
+            values.add(obj);
+            return new CardinalityKey(RdfEvalStatsDAO.CARDINALITY_OF.OBJECT, values, context);
+        }
+        return null;
+    }
+
+    /**
+     * @return The cardinality of the key, read from the DAO unless it has already been resolved.
+     */
+    protected double lookupCardinality(final CardinalityKey key) {
+        final Double resolved = resolvedCardinalities.get(key);
+        if (resolved != null) {
+            return resolved;
+        }
+        try {
+            final double cardinality = rdfEvalStatsDAO.getCardinality(conf, key.getCard(), key.getValues(), key.getContext());
+            resolvedCardinalities.put(key, cardinality);
+            return cardinality;
+        } catch (final RdfDAOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return The estimated number of statements with the predicate whose object falls within
+     *   the range, or -1 if the DAO keeps no histogram for the predicate.
+     */
+    protected double lookupRangeCardinality(final IRI pred, final RangeValue<?> range) {
+        final List<Value> key = Arrays.asList(pred, range.getStart(), range.getEnd());
+        final Double resolved = resolvedRangeCardinalities.get(key);
+        if (resolved != null) {
+            return resolved;
+        }
+        try {
+            final double cardinality = rdfEvalStatsDAO.getRangeCardinality(conf, pred, range.getStart(), range.getEnd());
+            resolvedRangeCardinalities.put(key, cardinality);
+            return cardinality;
+        } catch (final RdfDAOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return The estimated number of distinct values in the subject or object position of the
+     *   statements with the predicate, or -1 if the DAO keeps no estimate for the predicate.
+     */
+    protected double lookupDistinctCount(final IRI pred, final CARDINALITY_OF position) {
+        final CardinalityKey key = new CardinalityKey(position, Arrays.<Value>asList(pred), null);
+        final Double resolved = resolvedDistinctCounts.get(key);
+        if (resolved != null) {
+            return resolved;
+        }
+        try {
+            final double count = rdfEvalStatsDAO.getDistinctCount(conf, pred, position);
+            resolvedDistinctCounts.put(key, count);
+            return count;
+        } catch (final RdfDAOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Estimates the size of a join between two statement patterns with constant predicates that
+     * share a subject or object variable as {@code |L| * |R| / max(V(L), V(R))}, where V is the
+     * number of distinct values of the shared variable's position.
+     *
+     * @return The estimated size of the join, or -1 if it can not be estimated this way.
+     */
+    protected double estimateJoinCardinality(final TupleExpr left, final double leftCard, final TupleExpr right, final double rightCard) {
+        if (!isEstimable(left) || !isEstimable(right)
+                || leftCard < 0 || rightCard < 0 || leftCard >= Double.MAX_VALUE - 1 || rightCard >= Double.MAX_VALUE - 1) {
+            return -1;
+        }
+        final StatementPattern leftSp = (StatementPattern) left;
+        final StatementPattern rightSp = (StatementPattern) right;
+        for (final CARDINALITY_OF leftPosition : JOIN_POSITIONS) {
+            final Var leftVar = getPositionVar(leftSp, leftPosition);
+            if (leftVar.hasValue()) {
+                continue;
+            }
+            for (final CARDINALITY_OF rightPosition : JOIN_POSITIONS) {
+                final Var rightVar = getPositionVar(rightSp, rightPosition);
+                if (rightVar.hasValue() || !leftVar.getName().equals(rightVar.getName())) {
+                    continue;
+                }
+                final double leftDistinct = lookupDistinctCount((IRI) leftSp.getPredicateVar().getValue(), leftPosition);
+                final double rightDistinct = lookupDistinctCount((IRI) rightSp.getPredicateVar().getValue(), rightPosition);
+                if (leftDistinct < 1 || rightDistinct < 1) {
+                    return -1;
+                }
+                return leftCard * rightCard / Math.max(leftDistinct, rightDistinct);
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isEstimable(final TupleExpr expr) {
+        if (!(expr instanceof StatementPattern) || expr instanceof FixedStatementPattern || expr instanceof DoNotExpandSP) {
+            return false;
+        }
+        final Value pred = ((StatementPattern) expr).getPredicateVar().getValue();
+        return pred instanceof IRI;
+    }
+
+    private static Var getPositionVar(final StatementPattern sp, final CARDINALITY_OF position) {
+        return CARDINALITY_OF.SUBJECT.equals(position) ? sp.getSubjectVar() : sp.getObjectVar();
+    }
+
+    private static Value constantValue(final Var var) {
+        return var != null ? var.getValue() : null;
+    }
+
     public RdfEvalStatsDAO<C> getRdfEvalStatsDAO() {
         return rdfEvalStatsDAO;
     }
 
     public void setRdfEvalStatsDAO(final RdfEvalStatsDAO<C> rdfEvalStatsDAO) {
         this.rdfEvalStatsDAO = rdfEvalStatsDAO;
+        resolvedCardinalities.clear();
+        resolvedRangeCardinalities.clear();
+        resolvedDistinctCounts.clear();
     }
 
     public class RdfCloudTripleStoreCardinalityCalculator extends CardinalityCalculator {
@@ -162,70 +354,35 @@ public class RdfCloudTripleStoreEvaluationStatistics<C extends RdfCloudTripleSto
                     for (final Statement statement : statements) {
                         final List<Value> values = new ArrayList<Value>();
                         values.add(statement.getSubject());
-                        fspCard  += rdfEvalStatsDAO.getCardinality(conf, cardinality_of, values, context);
+                        fspCard  += statistics.lookupCardinality(new CardinalityKey(cardinality_of, values, context));
                     }
                     return fspCard;
                 }
             }
 
+            // A range over the object of a predicate is estimated from the predicate's value histogram.
+            if (subj == null && pred != null && obj instanceof RangeValue) {
+                final double rangeCard = statistics.lookupRangeCardinality(pred, (RangeValue<?>) obj);
+                if (rangeCard >= 0) {
+                    return rangeCard;
+                }
+            }
+
             /**
              * We put full triple scans before rdf:type because more often than not
              * the triple scan is being joined with something else that is better than
              * asking the full rdf:type of everything.
              */
             double cardinality = Double.MAX_VALUE - 1;
-            try {
-                if (subj != null) {
-                    final List<Value> values = new ArrayList<Value>();
-                    CARDINALITY_OF card = RdfEvalStatsDAO.CARDINALITY_OF.SUBJECT;
-                    values.add(subj);
-                    if (useCompositeCardinalities){
-                           if (pred != null){
-                            values.add(pred);
-                            card = RdfEvalStatsDAO.CARDINALITY_OF.SUBJECTPREDICATE;
-                        }
-                           else if (obj != null){
-                            values.add(obj);
-                            card = RdfEvalStatsDAO.CARDINALITY_OF.SUBJECTOBJECT;
-                           }
-                    }
-                    double evalCard = evalCard = rdfEvalStatsDAO.getCardinality(conf, card, values, context);
-                    // the cardinality will be -1 if there was no value found (if the index does not exist)
-                    if (evalCard >= 0) {
-                        cardinality = Math.min(cardinality, evalCard);
-                    } else {
-                        cardinality = 1;
-                    }
+            final CardinalityKey key = statistics.getCardinalityKey(subj, pred, obj, context);
+            if (key != null) {
+                final double evalCard = statistics.lookupCardinality(key);
+                // the cardinality will be -1 if there was no value found (if the index does not exist)
+                if (evalCard >= 0) {
+                    cardinality = Math.min(cardinality, evalCard);
+                } else {
+                    cardinality = 1;
                 }
-                else if (pred != null) {
-                    final List<Value> values = new ArrayList<Value>();
-                    CARDINALITY_OF card = RdfEvalStatsDAO.CARDINALITY_OF.PREDICATE;
-                    values.add(pred);
-                    if (useCompositeCardinalities){
-                           if (obj != null){
-                            values.add(obj);
-                            card = RdfEvalStatsDAO.CARDINALITY_OF.PREDICATEOBJECT;
-                           }
-                    }
-                    double evalCard = evalCard = rdfEvalStatsDAO.getCardinality(conf, card, values, context);
-                    if (evalCard >= 0) {
-                        cardinality = Math.min(cardinality, evalCard);
-                    } else {
-                        cardinality = 1;
-                    }
-                }
-                else if (obj != null) {
-                    final List<Value> values = new ArrayList<Value>();
-                    values.add(obj);
-                    final double evalCard = rdfEvalStatsDAO.getCardinality(conf, RdfEvalStatsDAO.CARDINALITY_OF.OBJECT, values, context);
-                    if (evalCard >= 0) {
-                        cardinality = Math.min(cardinality, evalCard);
-                    } else {
-                        cardinality = 1;
-                    }
-                }
-            } catch (final Exception e) {
-                throw new RuntimeException(e);
             }
 
             return cardinality;
@@ -259,7 +416,10 @@ public class RdfCloudTripleStoreEvaluationStatistics<C extends RdfCloudTripleSto
             node.getLeftArg().visit(this);
             final double leftArgCost = cardinality;
             node.getRightArg().visit(this);
-            if (leftArgCost > cardinality) {
+            final double joinCard = statistics.estimateJoinCardinality(node.getLeftArg(), leftArgCost, node.getRightArg(), cardinality);
+            if (joinCard >= 0) {
+                cardinality = joinCard;
+            } else if (leftArgCost > cardinality) {
                 cardinality = leftArgCost;    //TODO: Is this ok?
             }
         }
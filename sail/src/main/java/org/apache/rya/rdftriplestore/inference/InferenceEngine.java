@@ -22,6 +22,9 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -29,12 +32,14 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.Stack;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -45,6 +50,8 @@ import org.apache.log4j.Logger;
 import org.apache.rya.api.RdfCloudTripleStoreConfiguration;
 import org.apache.rya.api.persist.RyaDAO;
 import org.apache.rya.api.persist.RyaDAOException;
+import org.apache.rya.api.persist.index.RyaSecondaryIndexer;
+import org.apache.rya.api.persist.index.TransitiveClosureIndex;
 import org.apache.rya.api.persist.utils.RyaDAOHelper;
 import org.apache.rya.api.persist.utils.RyaDaoQueryWrapper;
 import org.apache.tinkerpop.gremlin.structure.Direction;
@@ -52,6 +59,7 @@ import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
@@ -85,24 +93,40 @@ public class InferenceEngine {
     private final AtomicReference<Graph> subClassOfGraph = new AtomicReference<>();
     private final AtomicReference<Graph> subPropertyOfGraph = new AtomicReference<>();
 
-    private final Set<IRI> symmetricPropertySet = ConcurrentHashMap.newKeySet();;
-    private final Map<IRI, IRI> inverseOfMap = new ConcurrentHashMap<>();
-    private final Set<IRI> transitivePropertySet = ConcurrentHashMap.newKeySet();;
-    private final Set<IRI> reflexivePropertySet = ConcurrentHashMap.newKeySet();;
-    private final Map<IRI, Set<IRI>> domainByType = new ConcurrentHashMap<>();
-    private final Map<IRI, Set<IRI>> rangeByType = new ConcurrentHashMap<>();
-    private final Map<Resource, Map<IRI, Value>> hasValueByType = new ConcurrentHashMap<>();
-    private final Map<IRI, Map<Resource, Value>> hasValueByProperty = new ConcurrentHashMap<>();
-    private final Map<Resource, Map<Resource, IRI>> someValuesFromByRestrictionType = new ConcurrentHashMap<>();
-    private final Map<Resource, Map<Resource, IRI>> allValuesFromByValueType = new ConcurrentHashMap<>();
-    private final Map<Resource, List<Set<Resource>>> intersections = new ConcurrentHashMap<>();
-    private final Map<Resource, Set<Resource>> enumerations = new ConcurrentHashMap<>();
-    private final Map<IRI, List<IRI>> propertyChainPropertyToChain = new ConcurrentHashMap<>();
+    // Each schema structure is a snapshot that is never modified once it has been published. A refresh
+    // builds a new snapshot and swaps it in, so readers never lock and never see a partial refresh.
+    private volatile Set<IRI> symmetricPropertySet = Collections.emptySet();
+    private volatile Map<IRI, IRI> inverseOfMap = Collections.emptyMap();
+    private volatile Set<IRI> transitivePropertySet = Collections.emptySet();
+    private volatile Set<IRI> reflexivePropertySet = Collections.emptySet();
+    private volatile Map<IRI, Set<IRI>> domainByType = Collections.emptyMap();
+    private volatile Map<IRI, Set<IRI>> rangeByType = Collections.emptyMap();
+    private volatile Map<Resource, Map<IRI, Value>> hasValueByType = Collections.emptyMap();
+    private volatile Map<IRI, Map<Resource, Value>> hasValueByProperty = Collections.emptyMap();
+    private volatile Map<Resource, Map<Resource, IRI>> someValuesFromByRestrictionType = Collections.emptyMap();
+    private volatile Map<Resource, Map<Resource, IRI>> allValuesFromByValueType = Collections.emptyMap();
+    private volatile Map<Resource, List<Set<Resource>>> intersections = Collections.emptyMap();
+    private volatile Map<Resource, Set<Resource>> enumerations = Collections.emptyMap();
+    private volatile Map<IRI, List<IRI>> propertyChainPropertyToChain = Collections.emptyMap();
     // hasSelf maps.
-    private final Map<IRI, Set<Resource>> hasSelfByProperty = new ConcurrentHashMap<>();
-    private final Map<Resource, Set<IRI>> hasSelfByType = new ConcurrentHashMap<>();
+    private volatile Map<IRI, Set<Resource>> hasSelfByProperty = Collections.emptyMap();
+    private volatile Map<Resource, Set<IRI>> hasSelfByType = Collections.emptyMap();
+
+    // Incremental refresh: schema changes reported by the write path are queued here and applied by the timer.
+    private final Queue<SchemaDelta> pendingDeltas = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean deltasScheduled = new AtomicBoolean();
+    private final AtomicBoolean incremental = new AtomicBoolean();
+
+    // Refresh metrics.
+    private final AtomicLong lastRefreshMillis = new AtomicLong();
+    private final AtomicLong totalRefreshMillis = new AtomicLong();
+    private final AtomicLong fullRefreshCount = new AtomicLong();
+    private final AtomicLong partialRefreshCount = new AtomicLong();
+    private final AtomicLong appliedDeltaCount = new AtomicLong();
+    private final AtomicLong schemaVersion = new AtomicLong();
 
     private RyaDAO<?> ryaDAO;
+    private TransitiveClosureIndex transitiveClosureIndex;
     private RdfCloudTripleStoreConfiguration conf;
     private RyaDaoQueryWrapper ryaDaoQueryWrapper;
     private final AtomicBoolean isInitialized = new AtomicBoolean();
@@ -121,10 +145,22 @@ public class InferenceEngine {
             checkNotNull(ryaDAO, "RdfDao is null");
             checkArgument(ryaDAO.isInitialized(), "RdfDao is not initialized");
             ryaDaoQueryWrapper = new RyaDaoQueryWrapper(ryaDAO, conf);
+            incremental.set(conf.isInferIncrementalRefresh());
+            if (transitiveClosureIndex == null) {
+                for (final RyaSecondaryIndexer indexer : ryaDAO.getSecondaryIndexers()) {
+                    if (indexer instanceof TransitiveClosureIndex) {
+                        transitiveClosureIndex = (TransitiveClosureIndex) indexer;
+                        break;
+                    }
+                }
+            }
 
             refreshGraph();
 
-            if (schedule.get()) {
+            if (incremental.get()) {
+                // Deltas are applied on the timer thread as they arrive; full rebuilds only happen on demand.
+                timer = new Timer(InferenceEngine.class.getName(), true);
+            } else if (schedule.get()) {
                 timer = new Timer(InferenceEngine.class.getName());
                 timer.scheduleAtFixedRate(new TimerTask() {
                     @Override
@@ -149,50 +185,149 @@ public class InferenceEngine {
         if (timer != null) {
             timer.cancel();
         }
+        pendingDeltas.clear();
     }
 
+    /**
+     * Rebuilds every schema structure from the store. Any schema changes that were reported through
+     * {@link #handleSchemaChange(Resource, IRI, Value, boolean)} and not applied yet are covered by the rebuild.
+     */
     public void refreshGraph() throws InferenceEngineException {
         refreshLock.lock();
         try {
-            //get all subclassof
-            Graph graph = TinkerGraph.open();
-            addPredicateEdges(RDFS.SUBCLASSOF, Direction.OUT, graph, RDFS.SUBCLASSOF.stringValue());
-            //equivalentClass is the same as subClassOf both ways
-            addPredicateEdges(OWL.EQUIVALENTCLASS, Direction.BOTH, graph, RDFS.SUBCLASSOF.stringValue());
-            // Add unions to the subclass graph
-            addUnions(graph);
-            subClassOfGraph.set(graph);
-
-            graph = TinkerGraph.open();
-            addPredicateEdges(RDFS.SUBPROPERTYOF, Direction.OUT, graph, RDFS.SUBPROPERTYOF.stringValue());
-            //equiv property really is the same as a subPropertyOf both ways
-            addPredicateEdges(OWL.EQUIVALENTPROPERTY, Direction.BOTH, graph, RDFS.SUBPROPERTYOF.stringValue());
-            subPropertyOfGraph.set(graph);
-
-            refreshIntersectionOf();
+            final long start = System.currentTimeMillis();
+            // the rebuild reads the store after this point, so it covers every queued change
+            pendingDeltas.clear();
+            refresh(EnumSet.allOf(SchemaComponent.class));
+            fullRefreshCount.incrementAndGet();
+            recordRefresh(start);
+        } catch (final QueryEvaluationException e) {
+            throw new InferenceEngineException(e);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
 
+    /**
+     * Rebuilds the given schema structures in dependency order. Must hold {@link #refreshLock}.
+     */
+    private void refresh(final Set<SchemaComponent> components) throws QueryEvaluationException {
+        if (components.contains(SchemaComponent.CLASSES)) {
+            refreshClasses();
+        }
+        if (components.contains(SchemaComponent.PROPERTIES)) {
+            refreshProperties();
+        }
+        if (components.contains(SchemaComponent.ONE_OF)) {
             refreshOneOf();
-
-            synchronized(symmetricPropertySet) {
-                symmetricPropertySet.clear();
-                symmetricPropertySet.addAll(fetchInstances(OWL.SYMMETRICPROPERTY));
-            }
-            synchronized(transitivePropertySet) {
-                transitivePropertySet.clear();
-                transitivePropertySet.addAll(fetchInstances(OWL.TRANSITIVEPROPERTY));
-            }
-            synchronized(reflexivePropertySet) {
-                reflexivePropertySet.clear();
-                reflexivePropertySet.addAll(fetchInstances(REFLEXIVE_PROPERTY));
-            }
-
+        }
+        if (components.contains(SchemaComponent.PROPERTY_TYPES)) {
+            symmetricPropertySet = Collections.unmodifiableSet(fetchInstances(OWL.SYMMETRICPROPERTY));
+            transitivePropertySet = Collections.unmodifiableSet(fetchInstances(OWL.TRANSITIVEPROPERTY));
+            reflexivePropertySet = Collections.unmodifiableSet(fetchInstances(REFLEXIVE_PROPERTY));
+        }
+        if (components.contains(SchemaComponent.INVERSE_OF)) {
             refreshInverseOf();
-
+        }
+        if (components.contains(SchemaComponent.PROPERTY_CHAINS)) {
             refreshPropertyChainPropertyToChain();
-
+        }
+        if (components.contains(SchemaComponent.DOMAIN_RANGE)) {
             refreshDomainRange();
-
+        }
+        if (components.contains(SchemaComponent.RESTRICTIONS)) {
             refreshPropertyRestrictions();
+        }
+    }
+
+    private void refreshClasses() throws QueryEvaluationException {
+        //get all subclassof
+        final Graph graph = TinkerGraph.open();
+        addPredicateEdges(RDFS.SUBCLASSOF, Direction.OUT, graph, RDFS.SUBCLASSOF.stringValue());
+        //equivalentClass is the same as subClassOf both ways
+        addPredicateEdges(OWL.EQUIVALENTCLASS, Direction.BOTH, graph, RDFS.SUBCLASSOF.stringValue());
+        // Add unions to the subclass graph
+        addUnions(graph);
+        // Intersections add to the subclass graph as well, so both are published together
+        final Map<Resource, List<Set<Resource>>> intersectionsPartial = refreshIntersectionOf(graph);
+        subClassOfGraph.set(graph);
+        intersections = Collections.unmodifiableMap(intersectionsPartial);
+    }
+
+    private void refreshProperties() throws QueryEvaluationException {
+        final Graph graph = TinkerGraph.open();
+        addPredicateEdges(RDFS.SUBPROPERTYOF, Direction.OUT, graph, RDFS.SUBPROPERTYOF.stringValue());
+        //equiv property really is the same as a subPropertyOf both ways
+        addPredicateEdges(OWL.EQUIVALENTPROPERTY, Direction.BOTH, graph, RDFS.SUBPROPERTYOF.stringValue());
+        subPropertyOfGraph.set(graph);
+    }
+
+    /**
+     * Reports that a statement was added to or removed from the store so the schema can be kept up to
+     * date without a full rebuild. Statements that do not describe the schema are ignored, so this can be
+     * called for every write. When the engine is not in incremental mode this does nothing and the schema
+     * is refreshed on its schedule instead.
+     * <p>
+     * Changes are applied asynchronously: simple changes, such as a new rdfs:subClassOf edge or a new
+     * owl:SymmetricProperty, are applied to a copy of the affected structure; any other change rebuilds
+     * only the structures that depend on it.
+     *
+     * @param subject - The subject of the statement, or {@code null} for a removal by pattern.
+     * @param predicate - The predicate of the statement, or {@code null} for a removal by pattern.
+     * @param object - The object of the statement, or {@code null} for a removal by pattern.
+     * @param added - {@code true} if the statement was added, {@code false} if it was removed.
+     */
+    public void handleSchemaChange(final Resource subject, final IRI predicate, final Value object, final boolean added) {
+        if (!incremental.get() || !isInitialized() || timer == null) {
+            return;
+        }
+        final Set<SchemaComponent> affected = SchemaComponent.affectedBy(predicate, object);
+        if (affected.isEmpty()) {
+            return;
+        }
+        pendingDeltas.add(new SchemaDelta(subject, predicate, object, added, affected));
+        if (deltasScheduled.compareAndSet(false, true)) {
+            try {
+                timer.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        deltasScheduled.set(false);
+                        try {
+                            applyPendingDeltas();
+                        } catch (final InferenceEngineException e) {
+                            log.error("Unable to apply schema changes, refresh the inference engine to recover.", e);
+                        }
+                    }
+                }, 0);
+            } catch (final IllegalStateException e) {
+                // the timer was cancelled by destroy()
+                deltasScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Applies the schema changes that were reported through {@link #handleSchemaChange(Resource, IRI, Value, boolean)}
+     * and have not been applied yet.
+     */
+    public void applyPendingDeltas() throws InferenceEngineException {
+        refreshLock.lock();
+        try {
+            if (pendingDeltas.isEmpty()) {
+                return;
+            }
+            final long start = System.currentTimeMillis();
+            final Set<SchemaComponent> rebuild = EnumSet.noneOf(SchemaComponent.class);
+            SchemaDelta delta;
+            while ((delta = pendingDeltas.poll()) != null) {
+                if (!rebuild.containsAll(delta.affected) && !applyDelta(delta)) {
+                    rebuild.addAll(delta.affected);
+                }
+                appliedDeltaCount.incrementAndGet();
+            }
+            refresh(SchemaComponent.withDependents(rebuild));
+            partialRefreshCount.incrementAndGet();
+            recordRefresh(start);
         } catch (final QueryEvaluationException e) {
             throw new InferenceEngineException(e);
         } finally {
@@ -200,6 +335,123 @@ public class InferenceEngine {
         }
     }
 
+    /**
+     * Applies a change to copies of the structures it affects without reading the store.
+     * Must hold {@link #refreshLock}.
+     *
+     * @return {@code false} if the change can not be applied directly and the affected structures must be rebuilt.
+     */
+    private boolean applyDelta(final SchemaDelta delta) {
+        if (!(delta.subject instanceof IRI) || delta.predicate == null || !(delta.object instanceof IRI)) {
+            return false;
+        }
+        final IRI subject = (IRI) delta.subject;
+        final IRI object = (IRI) delta.object;
+        if (RDF.TYPE.equals(delta.predicate)) {
+            if (!delta.added && (OWL.SYMMETRICPROPERTY.equals(object) || OWL.TRANSITIVEPROPERTY.equals(object)
+                    || REFLEXIVE_PROPERTY.equals(object))) {
+                // the same declaration may also be stored in another graph or with another visibility
+                return false;
+            }
+            if (OWL.SYMMETRICPROPERTY.equals(object)) {
+                symmetricPropertySet = withChange(symmetricPropertySet, subject, delta.added);
+            } else if (OWL.TRANSITIVEPROPERTY.equals(object)) {
+                transitivePropertySet = withChange(transitivePropertySet, subject, delta.added);
+            } else if (REFLEXIVE_PROPERTY.equals(object)) {
+                reflexivePropertySet = withChange(reflexivePropertySet, subject, delta.added);
+            }
+            return true;
+        }
+        if (!delta.added) {
+            // another statement may imply the same edge, so removals are rebuilt
+            return false;
+        }
+        // closures derived from the hierarchies are recomputed from the new snapshot
+        if (RDFS.SUBCLASSOF.equals(delta.predicate) || OWL.EQUIVALENTCLASS.equals(delta.predicate)) {
+            if (!intersections.isEmpty()) {
+                // intersections are propagated to superclasses, which an edge alone does not capture
+                return false;
+            }
+            subClassOfGraph.set(withEdge(subClassOfGraph.get(), RDFS.SUBCLASSOF.stringValue(), subject, object,
+                    OWL.EQUIVALENTCLASS.equals(delta.predicate)));
+            refreshDependentsLater(delta);
+            return true;
+        }
+        if (RDFS.SUBPROPERTYOF.equals(delta.predicate) || OWL.EQUIVALENTPROPERTY.equals(delta.predicate)) {
+            subPropertyOfGraph.set(withEdge(subPropertyOfGraph.get(), RDFS.SUBPROPERTYOF.stringValue(), subject, object,
+                    OWL.EQUIVALENTPROPERTY.equals(delta.predicate)));
+            refreshDependentsLater(delta);
+            return true;
+        }
+        if (OWL.INVERSEOF.equals(delta.predicate)) {
+            final Map<IRI, IRI> invProp = new HashMap<>(inverseOfMap);
+            invProp.put(subject, object);
+            invProp.put(object, subject);
+            inverseOfMap = Collections.unmodifiableMap(invProp);
+            refreshDependentsLater(delta);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Queues a rebuild of the structures derived from the ones a delta was applied to.
+     */
+    private void refreshDependentsLater(final SchemaDelta delta) {
+        final Set<SchemaComponent> dependents = SchemaComponent.withDependents(delta.affected);
+        dependents.removeAll(delta.affected);
+        if (!dependents.isEmpty()) {
+            pendingDeltas.add(new SchemaDelta(null, null, null, delta.added, dependents));
+        }
+    }
+
+    private static Set<IRI> withChange(final Set<IRI> snapshot, final IRI value, final boolean added) {
+        final Set<IRI> copy = new HashSet<>(snapshot);
+        if (added) {
+            copy.add(value);
+        } else {
+            copy.remove(value);
+        }
+        return Collections.unmodifiableSet(copy);
+    }
+
+    private static Graph withEdge(final Graph snapshot, final String edgeName, final IRI subject, final IRI object,
+            final boolean bothWays) {
+        final Graph graph = copyGraph(snapshot);
+        addStatementEdge(graph, edgeName, VF.createStatement(subject, RDFS.SUBCLASSOF, object));
+        if (bothWays) {
+            addStatementEdge(graph, edgeName, VF.createStatement(object, RDFS.SUBCLASSOF, subject));
+        }
+        return graph;
+    }
+
+    private static Graph copyGraph(final Graph graph) {
+        final Graph copy = TinkerGraph.open();
+        if (graph == null) {
+            return copy;
+        }
+        graph.vertices().forEachRemaining(vertex -> {
+            final Vertex copied = copy.addVertex(T.id, vertex.id());
+            copied.property(URI_PROP, vertex.property(URI_PROP).value());
+        });
+        graph.edges().forEachRemaining(edge -> {
+            final Vertex out = getVertex(copy, edge.outVertex().id());
+            final Vertex in = getVertex(copy, edge.inVertex().id());
+            out.addEdge(edge.label(), in);
+        });
+        return copy;
+    }
+
+    private void recordRefresh(final long start) {
+        final long elapsed = System.currentTimeMillis() - start;
+        lastRefreshMillis.set(elapsed);
+        totalRefreshMillis.addAndGet(elapsed);
+        schemaVersion.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Refreshed the inference schema in " + elapsed + " ms, snapshot size " + getSnapshotSize());
+        }
+    }
+
     /**
      * Query for and collect all instances of a given type. Should only be called for types expected
      * to have few members, such as ontology vocabulary terms, as instances will be collected in
@@ -319,10 +571,7 @@ public class InferenceEngine {
                 iter.close();
             }
         }
-        synchronized(inverseOfMap) {
-            inverseOfMap.clear();
-            inverseOfMap.putAll(invProp);
-        }
+        inverseOfMap = Collections.unmodifiableMap(invProp);
     }
 
     private void refreshPropertyChainPropertyToChain() throws QueryEvaluationException {
@@ -466,10 +715,7 @@ public class InferenceEngine {
             }
         }
 
-        synchronized(propertyChainPropertyToChain) {
-            propertyChainPropertyToChain.clear();
-            propertyChainPropertyToChain.putAll(tempPropertyChainPropertyToChain);
-        }
+        propertyChainPropertyToChain = Collections.unmodifiableMap(tempPropertyChainPropertyToChain);
     }
 
     /**
@@ -626,14 +872,8 @@ public class InferenceEngine {
                 }
             }
         }
-        synchronized(domainByType) {
-            domainByType.clear();
-            domainByType.putAll(domainByTypePartial);
-        }
-        synchronized(rangeByType) {
-            rangeByType.clear();
-            rangeByType.putAll(rangeByTypePartial);
-        }
+        domainByType = Collections.unmodifiableMap(domainByTypePartial);
+        rangeByType = Collections.unmodifiableMap(rangeByTypePartial);
     }
 
     private void refreshPropertyRestrictions() throws QueryEvaluationException {
@@ -658,8 +898,8 @@ public class InferenceEngine {
     }
 
     private void refreshHasValueRestrictions(final Map<Resource, IRI> restrictions) throws QueryEvaluationException {
-        hasValueByType.clear();
-        hasValueByProperty.clear();
+        final Map<Resource, Map<IRI, Value>> hasValueByType = new HashMap<>();
+        final Map<IRI, Map<Resource, Value>> hasValueByProperty = new HashMap<>();
         final CloseableIteration<Statement, QueryEvaluationException> iter = RyaDAOHelper.query(ryaDAO, null, OWL.HASVALUE, null, conf);
         try {
             while (iter.hasNext()) {
@@ -683,10 +923,12 @@ public class InferenceEngine {
                 iter.close();
             }
         }
+        this.hasValueByType = Collections.unmodifiableMap(hasValueByType);
+        this.hasValueByProperty = Collections.unmodifiableMap(hasValueByProperty);
     }
 
     private void refreshSomeValuesFromRestrictions(final Map<Resource, IRI> restrictions) throws QueryEvaluationException {
-        someValuesFromByRestrictionType.clear();
+        final Map<Resource, Map<Resource, IRI>> someValuesFromByRestrictionType = new HashMap<>();
         ryaDaoQueryWrapper.queryAll(null, OWL.SOMEVALUESFROM, null, new AbstractRDFHandler() {
             @Override
             public void handleStatement(final Statement statement) throws RDFHandlerException {
@@ -709,10 +951,11 @@ public class InferenceEngine {
                 }
             }
         });
+        this.someValuesFromByRestrictionType = Collections.unmodifiableMap(someValuesFromByRestrictionType);
     }
 
     private void refreshAllValuesFromRestrictions(final Map<Resource, IRI> restrictions) throws QueryEvaluationException {
-        allValuesFromByValueType.clear();
+        final Map<Resource, Map<Resource, IRI>> allValuesFromByValueType = new HashMap<>();
         ryaDaoQueryWrapper.queryAll(null, OWL.ALLVALUESFROM, null, new AbstractRDFHandler() {
             @Override
             public void handleStatement(final Statement statement) throws RDFHandlerException {
@@ -735,11 +978,12 @@ public class InferenceEngine {
                 }
             }
         });
+        this.allValuesFromByValueType = Collections.unmodifiableMap(allValuesFromByValueType);
     }
 
     private void refreshHasSelfRestrictions(final Map<Resource, IRI> restrictions) throws QueryEvaluationException {
-        hasSelfByType.clear();
-        hasSelfByProperty.clear();
+        final Map<Resource, Set<IRI>> hasSelfByType = new HashMap<>();
+        final Map<IRI, Set<Resource>> hasSelfByProperty = new HashMap<>();
 
         for(final Resource type : restrictions.keySet()) {
             final IRI property = restrictions.get(type);
@@ -768,9 +1012,17 @@ public class InferenceEngine {
                 }
             }
         }
+        this.hasSelfByType = Collections.unmodifiableMap(hasSelfByType);
+        this.hasSelfByProperty = Collections.unmodifiableMap(hasSelfByProperty);
     }
 
-    private void refreshIntersectionOf() throws QueryEvaluationException {
+    /**
+     * Adds the subclass relations implied by intersections to the given subclass graph.
+     * @param graph the subclass {@link Graph} that is being built.
+     * @return the intersections that imply each type.
+     */
+    private Map<Resource, List<Set<Resource>>> refreshIntersectionOf(final Graph graph) throws QueryEvaluationException {
+        final Map<Resource, List<Set<Resource>>> intersections = new HashMap<>();
         final Map<Resource, List<Set<Resource>>> intersectionsProp = new HashMap<>();
 
         // First query for all the owl:intersectionOf's.
@@ -808,7 +1060,6 @@ public class InferenceEngine {
             }
         });
 
-        intersections.clear();
         for (final Entry<Resource, List<Set<Resource>>> entry : intersectionsProp.entrySet()) {
             final Resource type = entry.getKey();
             final List<Set<Resource>> intersectionList = entry.getValue();
@@ -823,22 +1074,22 @@ public class InferenceEngine {
                 // :A subclassOf :C
                 // So add each type that's part of the intersection to the
                 // subClassOf graph.
-                addSubClassOf(type, other);
+                addSubClassOf(graph, type, other);
                 for (final Set<Resource> intersection : intersectionList) {
                     if (!intersection.contains(other)) {
-                        addIntersection(intersection, other);
+                        addIntersection(intersections, intersection, other);
                     }
                 }
             }
             for (final Set<Resource> intersection : intersectionList) {
-                addIntersection(intersection, type);
+                addIntersection(intersections, intersection, type);
             }
         }
         for (final Entry<Resource, List<Set<Resource>>> entry : intersectionsProp.entrySet()) {
             final Resource type = entry.getKey();
             final List<Set<Resource>> intersectionList = entry.getValue();
 
-            final Set<IRI> superClasses = getSuperClasses((IRI) type);
+            final Set<IRI> superClasses = findChildren(graph, (IRI) type);
             for (final IRI superClass : superClasses) {
                 // Add intersections to super classes if applicable.
                 // IF:
@@ -848,7 +1099,7 @@ public class InferenceEngine {
                 // Then we can infer:
                 // intersectionOf[:B, :C] subclassOf :D
                 for (final Set<Resource> intersection : intersectionList) {
-                    addIntersection(intersection, superClass);
+                    addIntersection(intersections, intersection, superClass);
                 }
             }
             // Check if other keys have any of the same intersections and infer
@@ -859,12 +1110,13 @@ public class InferenceEngine {
                 otherKeys.remove(type);
                 for (final Resource otherKey : otherKeys) {
                     if (intersectionsProp.get(otherKey).contains(intersection)) {
-                        addSubClassOf(otherKey, type);
-                        addSubClassOf(type, otherKey);
+                        addSubClassOf(graph, otherKey, type);
+                        addSubClassOf(graph, type, otherKey);
                     }
                 }
             }
         }
+        return intersections;
     }
 
     private void refreshOneOf() throws QueryEvaluationException {
@@ -903,10 +1155,7 @@ public class InferenceEngine {
             }
         });
 
-        synchronized(enumerations) {
-            enumerations.clear();
-            enumerations.putAll(enumTypes);
-        }
+        enumerations = Collections.unmodifiableMap(enumTypes);
     }
 
     /**
@@ -1026,14 +1275,15 @@ public class InferenceEngine {
         return list;
     }
 
-    private void addSubClassOf(final Resource s, final Resource o) {
+    private static void addSubClassOf(final Graph graph, final Resource s, final Resource o) {
         final Statement statement = VF.createStatement(s, RDFS.SUBCLASSOF, o);
         final String edgeName = RDFS.SUBCLASSOF.stringValue();
 
-        addStatementEdge(subClassOfGraph.get(), edgeName, statement);
+        addStatementEdge(graph, edgeName, statement);
     }
 
-    private void addIntersection(final Set<Resource> intersection, final Resource type) {
+    private static void addIntersection(final Map<Resource, List<Set<Resource>>> intersections,
+            final Set<Resource> intersection, final Resource type) {
         if (type != null && intersection != null && !intersection.isEmpty()) {
             List<Set<Resource>> intersectionList = intersections.get(type);
             if (intersectionList == null) {
@@ -1346,6 +1596,21 @@ public class InferenceEngine {
         ryaDaoQueryWrapper = new RyaDaoQueryWrapper(ryaDAO);
     }
 
+    /**
+     * @return The index that answers transitive property patterns, or {@code null} if the DAO has none.
+     */
+    public TransitiveClosureIndex getTransitiveClosureIndex() {
+        return transitiveClosureIndex;
+    }
+
+    /**
+     * Sets the index that answers transitive property patterns. When none is set, {@link #init()} uses
+     * the first secondary indexer of the DAO that is one.
+     */
+    public void setTransitiveClosureIndex(final TransitiveClosureIndex transitiveClosureIndex) {
+        this.transitiveClosureIndex = transitiveClosureIndex;
+    }
+
     public synchronized RdfCloudTripleStoreConfiguration getConf() {
         return conf;
     }
@@ -1397,6 +1662,84 @@ public class InferenceEngine {
         return schedule.get();
     }
 
+    /**
+     * @return {@code true} if schema changes reported by the write path are applied as they arrive
+     *   instead of rebuilding the schema on a schedule.
+     */
+    public boolean isIncremental() {
+        return incremental.get();
+    }
+
+    /**
+     * @return The number of milliseconds the most recent full or partial refresh took.
+     */
+    public long getLastRefreshMillis() {
+        return lastRefreshMillis.get();
+    }
+
+    /**
+     * @return The number of milliseconds spent in all full and partial refreshes.
+     */
+    public long getTotalRefreshMillis() {
+        return totalRefreshMillis.get();
+    }
+
+    /**
+     * @return The number of times the whole schema was rebuilt.
+     */
+    public long getFullRefreshCount() {
+        return fullRefreshCount.get();
+    }
+
+    /**
+     * @return The number of times queued schema changes were applied.
+     */
+    public long getPartialRefreshCount() {
+        return partialRefreshCount.get();
+    }
+
+    /**
+     * @return A number that changes every time the schema is refreshed, either fully or partially.
+     *   Anything derived from the schema, such as a query plan, is stale once it changes.
+     */
+    public long getSchemaVersion() {
+        return schemaVersion.get();
+    }
+
+    /**
+     * @return The number of schema changes that have been applied.
+     */
+    public long getAppliedDeltaCount() {
+        return appliedDeltaCount.get();
+    }
+
+    /**
+     * @return The number of schema changes that are waiting to be applied.
+     */
+    public int getPendingDeltaCount() {
+        return pendingDeltas.size();
+    }
+
+    /**
+     * @return The number of edges in the class and property graphs plus the number of entries in the
+     *   other schema structures.
+     */
+    public long getSnapshotSize() {
+        long size = 0;
+        for (final Graph graph : Arrays.asList(subClassOfGraph.get(), subPropertyOfGraph.get())) {
+            if (graph != null) {
+                size += IteratorUtils.count(graph.edges());
+            }
+        }
+        size += symmetricPropertySet.size() + transitivePropertySet.size() + reflexivePropertySet.size();
+        for (final Map<?, ?> map : Arrays.<Map<?, ?>>asList(inverseOfMap, domainByType, rangeByType, hasValueByType,
+                hasValueByProperty, someValuesFromByRestrictionType, allValuesFromByValueType, intersections,
+                enumerations, propertyChainPropertyToChain, hasSelfByProperty, hasSelfByType)) {
+            size += map.size();
+        }
+        return size;
+    }
+
     public void setSchedule(final boolean schedule) {
         this.schedule.set(schedule);
     }
@@ -1644,4 +1987,24 @@ public class InferenceEngine {
     public boolean isEnumeratedType(final Resource type) {
         return enumerations != null && enumerations.containsKey(type);
     }
+
+    /**
+     * A schema change reported by the write path that has not been applied yet.
+     */
+    private static class SchemaDelta {
+        private final Resource subject;
+        private final IRI predicate;
+        private final Value object;
+        private final boolean added;
+        private final Set<SchemaComponent> affected;
+
+        private SchemaDelta(final Resource subject, final IRI predicate, final Value object, final boolean added,
+                final Set<SchemaComponent> affected) {
+            this.subject = subject;
+            this.predicate = predicate;
+            this.object = object;
+            this.added = added;
+            this.affected = affected;
+        }
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.rya.rdftriplestore.inference;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.OWL;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+
+/**
+ * The schema structures the {@link InferenceEngine} builds, in the order they must be refreshed.
+ * A structure that is derived from another one must be refreshed after it.
+ */
+enum SchemaComponent {
+    /** The subclass graph and the intersections, built from subClassOf, equivalentClass, unionOf and intersectionOf. */
+    CLASSES,
+    /** The subproperty graph, built from subPropertyOf and equivalentProperty. */
+    PROPERTIES,
+    /** The enumerated types, built from oneOf. */
+    ONE_OF,
+    /** The symmetric, transitive, and reflexive properties. */
+    PROPERTY_TYPES,
+    /** The inverse properties. */
+    INVERSE_OF,
+    /** The property chains. */
+    PROPERTY_CHAINS,
+    /** The domain and range closures, derived from the class and property hierarchies and the inverse properties. */
+    DOMAIN_RANGE,
+    /** The hasValue, someValuesFrom, allValuesFrom and hasSelf restrictions, derived from the class hierarchy. */
+    RESTRICTIONS;
+
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final IRI HAS_SELF = VF.createIRI(OWL.NAMESPACE, "hasSelf");
+    private static final IRI REFLEXIVE_PROPERTY = VF.createIRI(OWL.NAMESPACE, "ReflexiveProperty");
+    private static final IRI PROPERTY_CHAIN_AXIOM = VF.createIRI(OWL.NAMESPACE, "propertyChainAxiom");
+
+    /**
+     * @param predicate - The predicate of a statement that was added or removed, or {@code null} if
+     *   statements were removed by a pattern that matches any predicate.
+     * @param object - The object of the statement, or {@code null} if it matches any object.
+     * @return The structures that may change because of the statement.
+     */
+    static Set<SchemaComponent> affectedBy(final IRI predicate, final Value object) {
+        if (predicate == null) {
+            return EnumSet.allOf(SchemaComponent.class);
+        }
+        if (RDFS.SUBCLASSOF.equals(predicate) || OWL.EQUIVALENTCLASS.equals(predicate)
+                || OWL.UNIONOF.equals(predicate) || OWL.INTERSECTIONOF.equals(predicate)) {
+            return EnumSet.of(CLASSES);
+        }
+        if (RDFS.SUBPROPERTYOF.equals(predicate) || OWL.EQUIVALENTPROPERTY.equals(predicate)) {
+            return EnumSet.of(PROPERTIES);
+        }
+        if (OWL.ONEOF.equals(predicate)) {
+            return EnumSet.of(ONE_OF);
+        }
+        if (RDF.TYPE.equals(predicate)) {
+            if (object == null || OWL.SYMMETRICPROPERTY.equals(object) || OWL.TRANSITIVEPROPERTY.equals(object)
+                    || REFLEXIVE_PROPERTY.equals(object)) {
+                return EnumSet.of(PROPERTY_TYPES);
+            }
+            return EnumSet.noneOf(SchemaComponent.class);
+        }
+        if (OWL.INVERSEOF.equals(predicate)) {
+            return EnumSet.of(INVERSE_OF);
+        }
+        if (PROPERTY_CHAIN_AXIOM.equals(predicate)) {
+            return EnumSet.of(PROPERTY_CHAINS);
+        }
+        if (RDFS.DOMAIN.equals(predicate) || RDFS.RANGE.equals(predicate)) {
+            return EnumSet.of(DOMAIN_RANGE);
+        }
+        if (OWL.ONPROPERTY.equals(predicate) || OWL.HASVALUE.equals(predicate) || OWL.SOMEVALUESFROM.equals(predicate)
+                || OWL.ALLVALUESFROM.equals(predicate) || HAS_SELF.equals(predicate)) {
+            return EnumSet.of(RESTRICTIONS);
+        }
+        if (RDF.FIRST.equals(predicate) || RDF.REST.equals(predicate)) {
+            // lists describe unions, intersections, enumerations and property chains
+            return EnumSet.of(CLASSES, ONE_OF, PROPERTY_CHAINS);
+        }
+        return EnumSet.noneOf(SchemaComponent.class);
+    }
+
+    /**
+     * @param components - The structures that changed. (not null)
+     * @return The structures that changed plus every structure derived from them.
+     */
+    static Set<SchemaComponent> withDependents(final Collection<SchemaComponent> components) {
+        final Set<SchemaComponent> result = EnumSet.noneOf(SchemaComponent.class);
+        result.addAll(components);
+        if (result.contains(CLASSES)) {
+            result.add(DOMAIN_RANGE);
+            result.add(RESTRICTIONS);
+        }
+        if (result.contains(PROPERTIES) || result.contains(INVERSE_OF)) {
+            result.add(DOMAIN_RANGE);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,321 @@
+package org.apache.rya.rdftriplestore.evaluation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.QueryInterruptedException;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategy;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParallelJoinIteratorTest {
+
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final String EX = "urn:example:";
+    private static final int NUM_CHAINS = 20;
+    private static final int CHAIN_LENGTH = 5;
+
+    private ExecutorService shared;
+
+    @After
+    public void tearDown() {
+        if (shared != null) {
+            shared.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testJoin() throws Exception {
+        shared = Executors.newFixedThreadPool(8);
+        assertEquals(expected(2), evaluate(new QueryScopedExecutor(shared, 4, 0), 2));
+    }
+
+    @Test(timeout = 30000)
+    public void testNestedJoins() throws Exception {
+        shared = Executors.newFixedThreadPool(8);
+        assertEquals(expected(CHAIN_LENGTH), evaluate(new QueryScopedExecutor(shared, 4, 0), CHAIN_LENGTH));
+    }
+
+    @Test(timeout = 30000)
+    public void testNestedJoinsWithOneQuerySlot() throws Exception {
+        // Every task the query may run at a time is an outer join waiting on the inner joins
+        shared = Executors.newFixedThreadPool(8);
+        assertEquals(expected(CHAIN_LENGTH), evaluate(new QueryScopedExecutor(shared, 1, 0), CHAIN_LENGTH));
+    }
+
+    @Test(timeout = 30000)
+    public void testNestedJoinsWithFewerThreadsThanJoins() throws Exception {
+        // The shared executor has fewer threads than there are joins waiting on each other
+        shared = Executors.newFixedThreadPool(2);
+        assertEquals(expected(CHAIN_LENGTH), evaluate(new QueryScopedExecutor(shared, 4, 0), CHAIN_LENGTH));
+    }
+
+    @Test(timeout = 30000)
+    public void testRightSideLargerThanBuffer() throws Exception {
+        shared = Executors.newFixedThreadPool(8);
+        final int fanOut = 3 * ParallelJoinIterator.RESULT_BUFFER_SIZE;
+        final ParallelJoinStrategy strategy = new ParallelJoinStrategy(new ModelTripleSource(fans(fanOut)),
+                new QueryScopedExecutor(shared, 4, 0));
+
+        int count = 0;
+        final CloseableIteration<BindingSet, QueryEvaluationException> results =
+                strategy.evaluate(chainQuery(2), EmptyBindingSet.getInstance());
+        try {
+            while (results.hasNext()) {
+                results.next();
+                count++;
+            }
+        } finally {
+            results.close();
+        }
+        assertEquals(NUM_CHAINS * fanOut, count);
+    }
+
+    @Test(timeout = 30000)
+    public void testInterruptedRightSideFails() throws Exception {
+        final StatementPattern right = pattern(2);
+        final CountDownLatch started = new CountDownLatch(1);
+        final StrictEvaluationStrategy strategy = new StrictEvaluationStrategy(
+                new ModelTripleSource(fans(3 * ParallelJoinIterator.RESULT_BUFFER_SIZE)), null, null) {
+            @Override
+            public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(StatementPattern pattern,
+                    BindingSet bindings) throws QueryEvaluationException {
+                if (pattern == right) {
+                    started.countDown();
+                }
+                return super.evaluate(pattern, bindings);
+            }
+        };
+        final ThreadPerTaskExecutor executor = new ThreadPerTaskExecutor(started);
+
+        final CloseableIteration<BindingSet, QueryEvaluationException> results =
+                new ParallelJoinIterator(strategy, new Join(pattern(1), right), EmptyBindingSet.getInstance(), executor, 1);
+        try {
+            results.next();
+            // the evaluation stops while its buffer is full, it must not look like the end of its results
+            executor.interruptAll();
+            while (results.hasNext()) {
+                results.next();
+            }
+            fail("An interrupted evaluation must fail the join.");
+        } catch (QueryInterruptedException e) {
+            // expected
+        } finally {
+            results.close();
+        }
+    }
+
+    /**
+     * Matches {@code ?x0 <p1> ?x1 . ?x1 <p2> ?x2 ...} as a right deep tree of joins, so each join evaluates
+     * another join for every left binding set.
+     */
+    private static TupleExpr chainQuery(int length) {
+        TupleExpr expr = pattern(length);
+        for (int i = length - 1; i >= 1; i--) {
+            expr = new Join(pattern(i), expr);
+        }
+        return expr;
+    }
+
+    private static StatementPattern pattern(int i) {
+        return new StatementPattern(new Var("x" + (i - 1)), new Var("_const_p" + i, predicate(i)), new Var("x" + i));
+    }
+
+    private static IRI predicate(int i) {
+        return VF.createIRI(EX, "p" + i);
+    }
+
+    private static IRI node(int chain, int i) {
+        return VF.createIRI(EX, "n" + chain + "_" + i);
+    }
+
+    private static Model chains() {
+        final Model model = new LinkedHashModel();
+        for (int chain = 0; chain < NUM_CHAINS; chain++) {
+            for (int i = 1; i <= CHAIN_LENGTH; i++) {
+                model.add(node(chain, i - 1), predicate(i), node(chain, i));
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Links the start of every chain to a node with {@code fanOut} successors.
+     */
+    private static Model fans(int fanOut) {
+        final Model model = new LinkedHashModel();
+        for (int chain = 0; chain < NUM_CHAINS; chain++) {
+            model.add(node(chain, 0), predicate(1), node(chain, 1));
+            for (int i = 0; i < fanOut; i++) {
+                model.add(node(chain, 1), predicate(2), VF.createIRI(EX, "m" + chain + "_" + i));
+            }
+        }
+        return model;
+    }
+
+    private static List<Value> expected(int length) {
+        final List<Value> ends = new ArrayList<>();
+        for (int chain = 0; chain < NUM_CHAINS; chain++) {
+            ends.add(node(chain, length));
+        }
+        return ends;
+    }
+
+    private static List<Value> evaluate(QueryScopedExecutor executor, int length) throws Exception {
+        final ParallelJoinStrategy strategy = new ParallelJoinStrategy(new ModelTripleSource(chains()), executor);
+        final List<Value> ends = new ArrayList<>();
+        final CloseableIteration<BindingSet, QueryEvaluationException> results =
+                strategy.evaluate(chainQuery(length), EmptyBindingSet.getInstance());
+        try {
+            while (results.hasNext()) {
+                ends.add(results.next().getValue("x" + length));
+            }
+        } finally {
+            results.close();
+            executor.shutdownNow();
+        }
+        return ends;
+    }
+
+    /**
+     * Evaluates every join with a {@link ParallelJoinIterator}, the way {@link ParallelEvaluationStrategyImpl}
+     * does for joins whose right argument reads from the store.
+     */
+    private static class ParallelJoinStrategy extends StrictEvaluationStrategy {
+        private final QueryScopedExecutor executor;
+
+        private ParallelJoinStrategy(TripleSource tripleSource, QueryScopedExecutor executor) {
+            super(tripleSource, null, null);
+            this.executor = executor;
+        }
+
+        @Override
+        public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(Join join, BindingSet bindings)
+                throws QueryEvaluationException {
+            return new ParallelJoinIterator(this, join, bindings, executor, 4);
+        }
+    }
+
+    /**
+     * Runs every task on a new thread and only returns once the task has started its evaluation, so the
+     * iterator never reads the evaluation itself.
+     */
+    private static class ThreadPerTaskExecutor extends AbstractExecutorService {
+        private final CountDownLatch started;
+        private final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        private ThreadPerTaskExecutor(CountDownLatch started) {
+            this.started = started;
+        }
+
+        void interruptAll() {
+            synchronized (threads) {
+                for (Thread thread : threads) {
+                    thread.interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            final Thread thread = new Thread(command);
+            threads.add(thread);
+            thread.start();
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            interruptAll();
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+
+    private static class ModelTripleSource implements TripleSource {
+        private final Model model;
+
+        private ModelTripleSource(Model model) {
+            this.model = model;
+        }
+
+        @Override
+        public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource subj,
+                IRI pred, Value obj, Resource... contexts) throws QueryEvaluationException {
+            return new CloseableIteratorIteration<Statement, QueryEvaluationException>(
+                    model.filter(subj, pred, obj, contexts).iterator());
+        }
+
+        @Override
+        public ValueFactory getValueFactory() {
+            return VF;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.apache.rya.rdftriplestore.evaluation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.rya.accumulo.AccumuloRdfConfiguration;
+import org.apache.rya.rdftriplestore.inference.InferJoin;
+import org.apache.rya.rdftriplestore.inference.InferenceEngine;
+import org.apache.rya.rdftriplestore.inference.SameAsVisitor;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.QueryRoot;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.BindingAssigner;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
+import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
+import org.junit.Test;
+import org.mockito.Matchers;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the methods of {@link QueryPlanCache}.
+ */
+public class QueryPlanCacheTest {
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final List<Object> SETTINGS = Arrays.<Object>asList("U", true);
+
+    private static TupleExpr parse(final String sparql) throws Exception {
+        return new QueryRoot(new SPARQLParser().parseQuery(sparql, null).getTupleExpr());
+    }
+
+    @Test
+    public void prepare_sameQueryWithAnonymousVars() throws Exception {
+        final String sparql = "SELECT ?name WHERE { [] <urn:name> ?name . ?x <urn:knows> [ <urn:name> ?name ] }";
+        final QueryPlanCache.Request first = QueryPlanCache.prepare(parse(sparql), null, new QueryBindingSet(), SETTINGS);
+        final QueryPlanCache.Request second = QueryPlanCache.prepare(parse(sparql), null, new QueryBindingSet(), SETTINGS);
+        assertEquals(first.getKey(), second.getKey());
+    }
+
+    @Test
+    public void prepare_subjectAndObjectParametersAreRebound() throws Exception {
+        final String sparql = "SELECT ?x ?y WHERE { ?x <urn:talksTo> ?y }";
+
+        final QueryBindingSet alice = new QueryBindingSet();
+        alice.addBinding("x", VF.createIRI("urn:Alice"));
+        alice.addBinding("query.auth", VF.createLiteral("U"));
+        final QueryBindingSet bob = new QueryBindingSet();
+        bob.addBinding("x", VF.createIRI("urn:Bob"));
+
+        final QueryPlanCache.Request first = QueryPlanCache.prepare(parse(sparql), null, alice, SETTINGS);
+        final QueryPlanCache.Request second = QueryPlanCache.prepare(parse(sparql), null, bob, SETTINGS);
+
+        assertEquals(first.getKey(), second.getKey());
+        assertEquals(0, first.getPlanBindings().size());
+        assertEquals(1, first.getEvaluationBindings().size());
+        assertEquals(VF.createIRI("urn:Alice"), first.getEvaluationBindings().getValue("x"));
+    }
+
+    @Test
+    public void prepare_predicateAndTypeParametersArePartOfThePlan() throws Exception {
+        final String sparql = "SELECT ?x WHERE { ?x ?p ?y . ?y a ?type }";
+
+        final QueryBindingSet first = new QueryBindingSet();
+        first.addBinding("p", VF.createIRI("urn:talksTo"));
+        first.addBinding("type", VF.createIRI("urn:Person"));
+        final QueryBindingSet second = new QueryBindingSet();
+        second.addBinding("p", VF.createIRI("urn:talksTo"));
+        second.addBinding("type", VF.createIRI("urn:Robot"));
+
+        final QueryPlanCache.Request firstRequest = QueryPlanCache.prepare(parse(sparql), null, first, SETTINGS);
+        final QueryPlanCache.Request secondRequest = QueryPlanCache.prepare(parse(sparql), null, second, SETTINGS);
+
+        assertNotEquals(firstRequest.getKey(), secondRequest.getKey());
+        assertEquals(2, firstRequest.getPlanBindings().size());
+        assertEquals(0, firstRequest.getEvaluationBindings().size());
+    }
+
+    @Test
+    public void prepare_assignAllKeepsSameAsExpansion() throws Exception {
+        final String sparql = "SELECT ?y WHERE { ?x <urn:talksTo> ?y }";
+        final IRI alice = VF.createIRI("urn:Alice");
+        final IRI aliceAlias = VF.createIRI("urn:AliceAlias");
+
+        final QueryBindingSet aliceBindings = new QueryBindingSet();
+        aliceBindings.addBinding("x", alice);
+        final QueryBindingSet bobBindings = new QueryBindingSet();
+        bobBindings.addBinding("x", VF.createIRI("urn:Bob"));
+
+        final QueryPlanCache.Request aliceRequest = QueryPlanCache.prepare(parse(sparql), null, aliceBindings, SETTINGS, true);
+        final QueryPlanCache.Request bobRequest = QueryPlanCache.prepare(parse(sparql), null, bobBindings, SETTINGS, true);
+        assertNotEquals(aliceRequest.getKey(), bobRequest.getKey());
+        assertEquals(alice, aliceRequest.getPlanBindings().getValue("x"));
+        assertEquals(0, aliceRequest.getEvaluationBindings().size());
+
+        // Optimize the way the connection does with inference enabled
+        final InferenceEngine inferenceEngine = mock(InferenceEngine.class);
+        when(inferenceEngine.findSameAs(eq(alice), Matchers.<Resource>anyVararg()))
+                .thenReturn(Sets.<Resource>newHashSet(alice, aliceAlias));
+        final AccumuloRdfConfiguration conf = new AccumuloRdfConfiguration();
+        conf.setInferSameAs(true);
+
+        final TupleExpr plan = aliceRequest.getTupleExpr();
+        new BindingAssigner().optimize(plan, null, aliceRequest.getPlanBindings());
+        plan.visit(new SameAsVisitor(conf, inferenceEngine));
+        assertTrue(containsInferJoin(plan));
+
+        // Without assigning the subject the pattern is not expanded
+        final QueryPlanCache.Request unassigned = QueryPlanCache.prepare(parse(sparql), null, aliceBindings, SETTINGS);
+        final TupleExpr unexpanded = unassigned.getTupleExpr();
+        new BindingAssigner().optimize(unexpanded, null, unassigned.getPlanBindings());
+        unexpanded.visit(new SameAsVisitor(conf, inferenceEngine));
+        assertFalse(containsInferJoin(unexpanded));
+    }
+
+    private static boolean containsInferJoin(final TupleExpr tupleExpr) {
+        final AtomicBoolean found = new AtomicBoolean();
+        tupleExpr.visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(final Join node) {
+                if (node instanceof InferJoin) {
+                    found.set(true);
+                }
+                super.meet(node);
+            }
+        });
+        return found.get();
+    }
+
+    @Test
+    public void prepare_settingsArePartOfTheKey() throws Exception {
+        final String sparql = "SELECT ?x WHERE { ?x <urn:talksTo> ?y }";
+        final QueryPlanCache.Request first = QueryPlanCache.prepare(parse(sparql), null, new QueryBindingSet(), SETTINGS);
+        final QueryPlanCache.Request second = QueryPlanCache.prepare(parse(sparql), null, new QueryBindingSet(), Arrays.<Object>asList("U", false));
+        assertNotEquals(first.getKey(), second.getKey());
+    }
+
+    @Test
+    public void getAndPut() throws Exception {
+        final QueryPlanCache cache = new QueryPlanCache(10, 60000);
+        final QueryPlanCache.Request request = QueryPlanCache.prepare(
+                parse("SELECT ?x WHERE { ?x <urn:talksTo> ?y }"), null, new QueryBindingSet(), SETTINGS);
+
+        assertNull(cache.get(request.getKey()));
+        cache.put(request.getKey(), request.getTupleExpr());
+
+        final TupleExpr plan = cache.get(request.getKey());
+        assertNotNull(plan);
+        assertNotSame(request.getTupleExpr(), plan);
+        assertEquals(request.getTupleExpr(), plan);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.invalidateAll();
+        assertNull(cache.get(request.getKey()));
+        assertEquals(2, cache.getMissCount());
+    }
+}
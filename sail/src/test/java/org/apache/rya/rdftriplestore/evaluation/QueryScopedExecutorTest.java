@@ -0,0 +1,144 @@
+package org.apache.rya.rdftriplestore.evaluation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.rdf4j.query.QueryInterruptedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryScopedExecutorTest {
+
+    private ExecutorService shared;
+
+    @Before
+    public void setUp() {
+        shared = Executors.newFixedThreadPool(8);
+    }
+
+    @After
+    public void tearDown() {
+        shared.shutdownNow();
+    }
+
+    @Test
+    public void testLimitsConcurrency() throws Exception {
+        final QueryScopedExecutor executor = new QueryScopedExecutor(shared, 2, 0);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final int now = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(now, Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testShutdownNowCancels() throws Exception {
+        final QueryScopedExecutor executor = new QueryScopedExecutor(shared, 1, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        assertEquals(1, executor.shutdownNow().size());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRunNowRunsQueuedTaskOnCaller() throws Exception {
+        final QueryScopedExecutor executor = new QueryScopedExecutor(shared, 1, 0);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        // The only slot is taken, so this task waits in the query's queue
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger ranOnCaller = new AtomicInteger();
+        final Future<?> queued = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (Thread.currentThread() == caller) {
+                    ranOnCaller.incrementAndGet();
+                }
+            }
+        });
+        executor.runNow((Runnable) queued);
+        assertTrue(queued.isDone());
+        assertEquals(1, ranOnCaller.get());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = QueryInterruptedException.class)
+    public void testCheckTimeout() throws Exception {
+        final QueryScopedExecutor executor = new QueryScopedExecutor(shared, 1, 1);
+        Thread.sleep(10);
+        executor.checkTimeout();
+    }
+}
@@ -126,6 +126,66 @@ public class InferenceEngineTest extends TestCase {
         Assert.assertEquals(belowLevel4, inferenceEngine.getSubClasses(g));
     }
 
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        conf.setInferIncrementalRefresh(true);
+        inferenceEngine.setConf(conf);
+        inferenceEngine.init();
+        final long fullRefreshes = inferenceEngine.getFullRefreshCount();
+        final IRI a = VF.createIRI("urn:A");
+        final IRI b = VF.createIRI("urn:B");
+        final IRI c = VF.createIRI("urn:C");
+        final IRI p = VF.createIRI("urn:p");
+        conn.prepareUpdate(QueryLanguage.SPARQL, "INSERT DATA {\n"
+                + "  <urn:A> rdfs:subClassOf <urn:B> . \n"
+                + "  <urn:B> rdfs:subClassOf <urn:C> . \n"
+                + "  <urn:p> a owl:SymmetricProperty . \n"
+                + "  <urn:p> rdfs:domain <urn:B> . \n"
+                + "}").execute();
+        inferenceEngine.applyPendingDeltas();
+        Assert.assertEquals(new HashSet<>(Arrays.asList(a, b)), inferenceEngine.getSubClasses(c));
+        Assert.assertTrue(inferenceEngine.isSymmetricProperty(p));
+        // the domain closure is rebuilt against the new class hierarchy
+        Assert.assertEquals(Sets.newHashSet(p), inferenceEngine.getPropertiesWithDomain(c));
+
+        conn.prepareUpdate(QueryLanguage.SPARQL, "DELETE DATA {\n"
+                + "  <urn:B> rdfs:subClassOf <urn:C> . \n"
+                + "  <urn:p> a owl:SymmetricProperty . \n"
+                + "}").execute();
+        inferenceEngine.applyPendingDeltas();
+        Assert.assertEquals(new HashSet<>(), inferenceEngine.getSubClasses(c));
+        Assert.assertFalse(inferenceEngine.isSymmetricProperty(p));
+        Assert.assertEquals(new HashSet<>(), inferenceEngine.getPropertiesWithDomain(c));
+
+        Assert.assertEquals(fullRefreshes, inferenceEngine.getFullRefreshCount());
+        Assert.assertEquals(0, inferenceEngine.getPendingDeltaCount());
+        Assert.assertTrue(inferenceEngine.getAppliedDeltaCount() > 0);
+        Assert.assertTrue(inferenceEngine.getSnapshotSize() > 0);
+    }
+
+    @Test
+    public void testIncrementalRefreshKeepsDeclarationsStoredTwice() throws Exception {
+        conf.setInferIncrementalRefresh(true);
+        inferenceEngine.setConf(conf);
+        inferenceEngine.init();
+        final IRI p = VF.createIRI("urn:p");
+        conn.prepareUpdate(QueryLanguage.SPARQL, "INSERT DATA {\n"
+                + "  GRAPH <urn:g1> { <urn:p> a owl:SymmetricProperty, owl:TransitiveProperty . }\n"
+                + "  GRAPH <urn:g2> { <urn:p> a owl:SymmetricProperty, owl:TransitiveProperty . }\n"
+                + "}").execute();
+        inferenceEngine.applyPendingDeltas();
+        Assert.assertTrue(inferenceEngine.isSymmetricProperty(p));
+        Assert.assertTrue(inferenceEngine.isTransitiveProperty(p));
+
+        // the declarations remain in the other graph
+        conn.prepareUpdate(QueryLanguage.SPARQL, "DELETE DATA {\n"
+                + "  GRAPH <urn:g1> { <urn:p> a owl:SymmetricProperty, owl:TransitiveProperty . }\n"
+                + "}").execute();
+        inferenceEngine.applyPendingDeltas();
+        Assert.assertTrue(inferenceEngine.isSymmetricProperty(p));
+        Assert.assertTrue(inferenceEngine.isTransitiveProperty(p));
+    }
+
     @Test
     public void testSubPropertyGraph() throws Exception {
         final String insert = "INSERT DATA { GRAPH <http://updated/test> {\n"